@@ -1,6 +1,7 @@
 package com.chua.starter.common.support.api.feature;
 import com.chua.starter.common.support.api.annotations.ApiFeature;
 import com.chua.starter.common.support.api.interceptor.ApiControlInterceptor;
+import com.chua.starter.common.support.api.interceptor.ApiPolicyRegistry;
 import com.chua.starter.common.support.api.properties.ApiProperties;
 import jakarta.annotation.PostConstruct;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -55,24 +56,30 @@ public class ApiFeatureConfiguration implements WebMvcConfigurer {
     }
 
     @Bean
-    public ApiControlInterceptor apiControlInterceptor(ApiFeatureManager featureManager) {
-        return new ApiControlInterceptor(apiProperties, environment, featureManager);
+    public ApiPolicyRegistry apiPolicyRegistry(ApiFeatureManager featureManager) {
+        return new ApiPolicyRegistry(environment, featureManager);
+    }
+
+    @Bean
+    public ApiControlInterceptor apiControlInterceptor(ApiPolicyRegistry policyRegistry) {
+        return new ApiControlInterceptor(apiProperties, environment, policyRegistry);
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(apiControlInterceptor(apiFeatureManager()))
+        registry.addInterceptor(apiControlInterceptor(apiPolicyRegistry(apiFeatureManager())))
                 .addPathPatterns("/**")
                 .excludePathPatterns("/error", "/actuator/**");
     }
 
     /**
-     * 启动时扫描所有 @ApiFeature 注解
+     * 启动时扫描所有 @ApiFeature 注解，并预构建每个处理方法的控制策略描述
      */
     @PostConstruct
     public void scanApiFeatures() {
         Map<RequestMappingInfo, HandlerMethod> handlerMethods = requestMappingHandlerMapping.getHandlerMethods();
         var featureManager = apiFeatureManager();
+        var policyRegistry = apiPolicyRegistry(featureManager);
 
         int count = 0;
         for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMethods.entrySet()) {
@@ -90,6 +97,8 @@ public class ApiFeatureConfiguration implements WebMvcConfigurer {
                 featureManager.registerFeature(apiFeature.value(), apiFeature, handlerMethod, mappingInfo);
                 count++;
             }
+            // 功能开关注册后再构建，描述中的开关状态以注册结果为准
+            policyRegistry.register(handlerMethod);
         }
 
         if (count > 0) {
@@ -7,6 +7,8 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -37,6 +39,21 @@ public class ApiFeatureManager {
      */
     private final Map<String, ApiFeatureInfo> featureInfoMap = new ConcurrentHashMap<>();
 
+    /**
+     * 开关状态变化监听器
+     * 参数: 功能标识, 是否启用
+     */
+    private final List<BiConsumer<String, Boolean>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 添加开关状态变化监听器
+     *
+     * @param listener 监听器，参数为功能标识和新状态
+     */
+    public void addListener(BiConsumer<String, Boolean> listener) {
+        listeners.add(listener);
+    }
+
     /**
      * 注册功能开关
      *
@@ -99,6 +116,13 @@ public class ApiFeatureManager {
             featureInfoMap.put(featureId, info.toBuilder().enabled(enabled).build());
         }
         log.info("功能开关状态已更新: {} -> {}", featureId, enabled);
+        for (BiConsumer<String, Boolean> listener : listeners) {
+            try {
+                listener.accept(featureId, enabled);
+            } catch (Exception e) {
+                log.warn("功能开关监听器执行失败: {}", featureId, e);
+            }
+        }
         return true;
     }
 
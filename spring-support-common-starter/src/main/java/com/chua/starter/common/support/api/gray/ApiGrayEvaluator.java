@@ -10,6 +10,7 @@ import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
+import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
@@ -31,9 +32,39 @@ public class ApiGrayEvaluator {
         private static final ExpressionParser PARSER = new SpelExpressionParser();
     
     /**
-     * SpEL 表达式缓存
+     * SpEL 辅助函数，类加载时解析一次
      */
-    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+    private static final Method HEADER_FUNCTION;
+    private static final Method PARAM_FUNCTION;
+    private static final Method COOKIE_FUNCTION;
+
+    static {
+        try {
+            HEADER_FUNCTION = ApiGrayEvaluator.class.getDeclaredMethod("getHeader", HttpServletRequest.class, String.class);
+            PARAM_FUNCTION = ApiGrayEvaluator.class.getDeclaredMethod("getParam", HttpServletRequest.class, String.class);
+            COOKIE_FUNCTION = ApiGrayEvaluator.class.getDeclaredMethod("getCookie", HttpServletRequest.class, String.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 编译后的灰度规则缓存
+     */
+    private final Map<ApiGray, CompiledGrayRule> ruleCache = new ConcurrentHashMap<>();
+
+    /**
+     * 预编译灰度规则
+     * <p>
+     * 解析 SpEL 表达式和请求头规则，供 {@link #evaluate(CompiledGrayRule, HttpServletRequest, Object, String, java.util.Collection)} 反复使用。
+     * </p>
+     *
+     * @param apiGray 灰度注解
+     * @return 编译后的规则
+     */
+    public CompiledGrayRule compile(ApiGray apiGray) {
+        return ruleCache.computeIfAbsent(apiGray, CompiledGrayRule::new);
+    }
 
     /**
      * 评估请求是否命中灰度
@@ -47,6 +78,22 @@ public class ApiGrayEvaluator {
      */
     public boolean evaluate(ApiGray apiGray, HttpServletRequest request, Object userId, String username,
                             java.util.Collection<String> roles) {
+        return evaluate(compile(apiGray), request, userId, username, roles);
+    }
+
+    /**
+     * 使用预编译规则评估请求是否命中灰度
+     *
+     * @param rule     编译后的规则
+     * @param request  HTTP请求
+     * @param userId   用户ID
+     * @param username 用户名
+     * @param roles    当前用户角色集合（可为 null）
+     * @return 是否命中灰度
+     */
+    public boolean evaluate(CompiledGrayRule rule, HttpServletRequest request, Object userId, String username,
+                            java.util.Collection<String> roles) {
+        ApiGray apiGray = rule.annotation();
         String clientIp = IpUtils.getClientIp(request);
 
         // 1. 检查用户白名单
@@ -68,14 +115,14 @@ public class ApiGrayEvaluator {
         }
 
         // 4. 检查请求头匹配
-        if (matchHeaders(apiGray.headers(), request)) {
+        if (matchHeaders(rule.headerRules(), request)) {
             log.debug("灰度命中: 请求头匹配");
             return true;
         }
 
         // 5. 检查SpEL规则
-        if (StringUtils.isNotBlank(apiGray.rule())) {
-            if (evaluateSpelRule(apiGray.rule(), request, userId, username, clientIp, roles)) {
+        if (rule.expression() != null) {
+            if (evaluateSpelRule(rule, request, userId, username, clientIp, roles)) {
                 log.debug("灰度命中: SpEL规则匹配 - rule={}", apiGray.rule());
                 return true;
             }
@@ -154,25 +201,17 @@ public class ApiGrayEvaluator {
     /**
      * 检查请求头匹配
      */
-    private boolean matchHeaders(String[] headers, HttpServletRequest request) {
-        if (headers == null || headers.length == 0) {
-            return false;
-        }
-        for (String header : headers) {
-            if (header.contains("=")) {
+    private boolean matchHeaders(String[][] headerRules, HttpServletRequest request) {
+        for (String[] headerRule : headerRules) {
+            String actualValue = request.getHeader(headerRule[0]);
+            if (headerRule.length > 1) {
                 // headerName=value 格式
-                String[] parts = header.split("=", 2);
-                String headerName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                String actualValue = request.getHeader(headerName);
-                if (expectedValue.equals(actualValue)) {
+                if (headerRule[1].equals(actualValue)) {
                     return true;
                 }
-            } else {
+            } else if (StringUtils.isNotBlank(actualValue)) {
                 // 仅检查header是否存在
-                if (StringUtils.isNotBlank(request.getHeader(header.trim()))) {
-                    return true;
-                }
+                return true;
             }
         }
         return false;
@@ -181,16 +220,15 @@ public class ApiGrayEvaluator {
     /**
      * 评估SpEL表达式
      */
-    private boolean evaluateSpelRule(String rule, HttpServletRequest request,
+    private boolean evaluateSpelRule(CompiledGrayRule rule, HttpServletRequest request,
                                      Object userId, String username, String clientIp,
                                      java.util.Collection<String> roles) {
         try {
-            Expression expression = expressionCache.computeIfAbsent(rule, PARSER::parseExpression);
             EvaluationContext context = createEvaluationContext(request, userId, username, clientIp, roles);
-            Boolean result = expression.getValue(context, Boolean.class);
+            Boolean result = rule.expression().getValue(context, Boolean.class);
             return Boolean.TRUE.equals(result);
         } catch (Exception e) {
-            log.warn("灰度SpEL表达式评估失败: rule={}, error={}", rule, e.getMessage());
+            log.warn("灰度SpEL表达式评估失败: rule={}, error={}", rule.annotation().rule(), e.getMessage());
             return false;
         }
     }
@@ -211,16 +249,9 @@ public class ApiGrayEvaluator {
         context.setVariable("request", request);
 
         // 注册方法
-        try {
-            context.registerFunction("header",
-                    ApiGrayEvaluator.class.getDeclaredMethod("getHeader", HttpServletRequest.class, String.class));
-            context.registerFunction("param",
-                    ApiGrayEvaluator.class.getDeclaredMethod("getParam", HttpServletRequest.class, String.class));
-            context.registerFunction("cookie",
-                    ApiGrayEvaluator.class.getDeclaredMethod("getCookie", HttpServletRequest.class, String.class));
-        } catch (NoSuchMethodException e) {
-            log.warn("注册SpEL函数失败", e);
-        }
+        context.registerFunction("header", HEADER_FUNCTION);
+        context.registerFunction("param", PARAM_FUNCTION);
+        context.registerFunction("cookie", COOKIE_FUNCTION);
 
         // 设置根对象为请求，方便直接访问
         context.setRootObject(new GrayContext(request, userId, username, clientIp, roles));
@@ -298,6 +329,58 @@ public class ApiGrayEvaluator {
         return null;
     }
 
+    /**
+     * 编译后的灰度规则
+     * <p>
+     * SpEL 表达式与请求头规则在创建时解析，表达式语法错误时记录日志并视为不匹配。
+     * </p>
+     */
+    public static final class CompiledGrayRule {
+        private final ApiGray annotation;
+        private final Expression expression;
+        private final String[][] headerRules;
+
+        CompiledGrayRule(ApiGray annotation) {
+            this.annotation = annotation;
+            this.expression = parseRule(annotation.rule());
+            String[] headers = annotation.headers();
+            this.headerRules = new String[headers == null ? 0 : headers.length][];
+            for (int i = 0; i < headerRules.length; i++) {
+                String header = headers[i];
+                if (header.contains("=")) {
+                    String[] parts = header.split("=", 2);
+                    headerRules[i] = new String[]{parts[0].trim(), parts[1].trim()};
+                } else {
+                    headerRules[i] = new String[]{header.trim()};
+                }
+            }
+        }
+
+        private static Expression parseRule(String rule) {
+            if (StringUtils.isBlank(rule)) {
+                return null;
+            }
+            try {
+                return PARSER.parseExpression(rule);
+            } catch (Exception e) {
+                log.warn("灰度SpEL表达式解析失败: rule={}, error={}", rule, e.getMessage());
+                return null;
+            }
+        }
+
+        public ApiGray annotation() {
+            return annotation;
+        }
+
+        Expression expression() {
+            return expression;
+        }
+
+        String[][] headerRules() {
+            return headerRules;
+        }
+    }
+
     /**
      * 灰度上下文（SpEL 根对象）
      */
@@ -2,8 +2,6 @@ package com.chua.starter.common.support.api.interceptor;
 import com.chua.common.support.text.json.Json;
 import com.chua.common.support.lang.code.ReturnResult;
 import com.chua.common.support.network.net.Version;
-import com.chua.common.support.core.utils.ArrayUtils;
-import com.chua.common.support.core.utils.IoUtils;
 import com.chua.common.support.core.utils.StringUtils;
 import com.chua.starter.common.support.api.annotations.ApiDeprecated;
 import com.chua.starter.common.support.api.annotations.ApiFeature;
@@ -17,14 +15,11 @@ import com.chua.starter.common.support.utils.IpUtils;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,6 +29,7 @@ import lombok.extern.slf4j.Slf4j;
  * API 控制拦截器
  * <p>
  * 处理 @ApiMock、@ApiDeprecated、@ApiFeature 注解的拦截逻辑。
+ * 注解在 {@link ApiPolicyRegistry} 中按处理方法预先解析，每次请求只查一次描述并执行实际生效的检查。
  * </p>
  *
  * @author CH
@@ -50,15 +46,27 @@ public class ApiControlInterceptor implements HandlerInterceptor {
      * @param featureManager ApiFeatureManager
      */
     public ApiControlInterceptor(ApiProperties apiProperties, Environment environment, ApiFeatureManager featureManager) {
+        this(apiProperties, environment, new ApiPolicyRegistry(environment, featureManager));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param apiProperties ApiProperties
+     * @param environment Environment
+     * @param policyRegistry ApiPolicyRegistry
+     */
+    public ApiControlInterceptor(ApiProperties apiProperties, Environment environment, ApiPolicyRegistry policyRegistry) {
         this.apiProperties = apiProperties;
         this.environment = environment;
-        this.featureManager = featureManager;
+        this.policyRegistry = policyRegistry;
+        this.grayEvaluator = policyRegistry.getGrayEvaluator();
     }
 
         private final ApiProperties apiProperties;
     private final Environment environment;
-    private final ApiFeatureManager featureManager;
-    private final ApiGrayEvaluator grayEvaluator = new ApiGrayEvaluator();
+    private final ApiPolicyRegistry policyRegistry;
+    private final ApiGrayEvaluator grayEvaluator;
 
     /**
      * 语义化版本正则（预编译）
@@ -77,28 +85,33 @@ public class ApiControlInterceptor implements HandlerInterceptor {
             return true;
         }
 
+        ApiPolicyDescriptor policy = policyRegistry.get(handlerMethod);
+        if (policy.isEmpty()) {
+            return true;
+        }
+
         // 处理 @ApiInternal（优先处理，用于设置跳过鉴权标识）
-        if (!handleApiInternal(handlerMethod, request, response)) {
+        if (policy.getInternal() != null && !handleApiInternal(policy.getInternal(), request, response)) {
             return false;
         }
 
         // 处理 @ApiFeature
-        if (!handleApiFeature(handlerMethod, request, response)) {
+        if (policy.getFeature() != null && !handleApiFeature(policy, response)) {
             return false;
         }
 
         // 处理 @ApiMock
-        if (!handleApiMock(handlerMethod, request, response)) {
+        if (policy.getMock() != null && !handleApiMock(policy, request, response)) {
             return false;
         }
 
         // 处理 @ApiDeprecated
-        if (!handleApiDeprecated(handlerMethod, request, response)) {
+        if (policy.getDeprecated() != null && !handleApiDeprecated(policy, request, response)) {
             return false;
         }
 
         // 处理 @ApiGray
-        if (!handleApiGray(handlerMethod, request, response)) {
+        if (policy.getGrayRule() != null && !handleApiGray(policy.getGrayRule(), request, response)) {
             return false;
         }
 
@@ -111,17 +124,8 @@ public class ApiControlInterceptor implements HandlerInterceptor {
      * 校验请求是否来自内网IP或白名单
      * </p>
      */
-    private boolean handleApiInternal(HandlerMethod handlerMethod, HttpServletRequest request,
+    private boolean handleApiInternal(ApiInternal apiInternal, HttpServletRequest request,
                                       HttpServletResponse response) throws IOException {
-        ApiInternal apiInternal = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), ApiInternal.class);
-        if (apiInternal == null) {
-            apiInternal = AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), ApiInternal.class);
-        }
-
-        if (apiInternal == null) {
-            return true;
-        }
-
         // 设置跳过鉴权标识
         if (apiInternal.skipAuth()) {
             request.setAttribute(ATTR_SKIP_AUTH, true);
@@ -184,19 +188,10 @@ public class ApiControlInterceptor implements HandlerInterceptor {
     /**
      * 处理 @ApiFeature 注解
      */
-    private boolean handleApiFeature(HandlerMethod handlerMethod, HttpServletRequest request,
-                                     HttpServletResponse response) throws IOException {
-        var apiFeature = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), ApiFeature.class);
-        if (apiFeature == null) {
-            apiFeature = AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), ApiFeature.class);
-        }
-
-        if (apiFeature == null) {
-            return true;
-        }
-
+    private boolean handleApiFeature(ApiPolicyDescriptor policy, HttpServletResponse response) throws IOException {
+        ApiFeature apiFeature = policy.getFeature();
         String featureId = apiFeature.value();
-        if (!featureManager.isEnabled(featureId)) {
+        if (!policy.isFeatureEnabled()) {
             log.debug("功能开关已关闭: {}", featureId);
             writeResponse(response, apiFeature.disabledStatus(),
                     ReturnResult.error(apiFeature.disabledMessage()));
@@ -209,31 +204,10 @@ public class ApiControlInterceptor implements HandlerInterceptor {
     /**
      * 处理 @ApiMock 注解
      */
-    private boolean handleApiMock(HandlerMethod handlerMethod, HttpServletRequest request,
+    private boolean handleApiMock(ApiPolicyDescriptor policy, HttpServletRequest request,
                                   HttpServletResponse response) throws IOException {
-        var apiMock = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), ApiMock.class);
-        if (apiMock == null) {
-            return true;
-        }
-
-        // 检查是否在允许的环境中
-        String[] profiles = environment.getActiveProfiles();
-        if (profiles.length == 0) {
-            profiles = new String[]{"default"};
-        }
-
-        boolean matched = false;
-        for (String profile : apiMock.profile()) {
-            if (ArrayUtils.containsIgnoreCase(profiles, profile)) {
-                matched = true;
-                break;
-            }
-        }
-
-        if (!matched) {
-            // 不在 Mock 环境中，正常执行
-            return true;
-        }
+        // 描述中只保留激活环境匹配的 Mock
+        ApiMock apiMock = policy.getMock();
 
         // 检查全局 Mock 开关
         if (!isMockEnabled()) {
@@ -250,7 +224,7 @@ public class ApiControlInterceptor implements HandlerInterceptor {
         }
 
         // 获取 Mock 响应
-        String mockResponse = getMockResponse(apiMock);
+        String mockResponse = policy.getMockPayload();
         if (StringUtils.isBlank(mockResponse)) {
             return true;
         }
@@ -268,24 +242,14 @@ public class ApiControlInterceptor implements HandlerInterceptor {
      * 支持语义化版本号（如 1.0.0, 1.0.0-release, 2.0.0-rc.1）进行比较
      * </p>
      */
-    private boolean handleApiDeprecated(HandlerMethod handlerMethod, HttpServletRequest request,
+    private boolean handleApiDeprecated(ApiPolicyDescriptor policy, HttpServletRequest request,
                                         HttpServletResponse response) throws IOException {
-        var apiDeprecated = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), ApiDeprecated.class);
-        if (apiDeprecated == null) {
-            apiDeprecated = AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), ApiDeprecated.class);
-        }
-
-        if (apiDeprecated == null) {
-            return true;
-        }
+        ApiDeprecated apiDeprecated = policy.getDeprecated();
 
-        // 获取请求版本（使用语义化版本）
+        // 获取请求版本（使用语义化版本），废弃与移除版本已预先解析
         Version requestVersion = getRequestVersion(request);
-        Version sinceVersion = Version.parse(apiDeprecated.since());
-        // removedIn 为空时使用 "latest" 表示永远不会移除
-        Version removedVersion = StringUtils.isBlank(apiDeprecated.removedIn())
-                ? Version.parse("latest")
-                : Version.parse(apiDeprecated.removedIn());
+        Version sinceVersion = policy.getDeprecatedSince();
+        Version removedVersion = policy.getRemovedIn();
 
         // 添加废弃警告头
         if (apiDeprecated.addWarningHeader()) {
@@ -325,12 +289,9 @@ public class ApiControlInterceptor implements HandlerInterceptor {
     /**
      * 处理 @ApiGray 注解
      */
-    private boolean handleApiGray(HandlerMethod handlerMethod, HttpServletRequest request,
+    private boolean handleApiGray(ApiGrayEvaluator.CompiledGrayRule grayRule, HttpServletRequest request,
                                   HttpServletResponse response) throws IOException {
-        var apiGray = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), ApiGray.class);
-        if (apiGray == null) {
-            return true;
-        }
+        ApiGray apiGray = grayRule.annotation();
 
         // 检查全局灰度开关
         if (!isGrayEnabled()) {
@@ -352,7 +313,7 @@ public class ApiControlInterceptor implements HandlerInterceptor {
         java.util.Collection<String> roles = resolveRoles(request, session);
 
         // 评估灰度规则
-        boolean hitGray = grayEvaluator.evaluate(apiGray, request, userId, username, roles);
+        boolean hitGray = grayEvaluator.evaluate(grayRule, request, userId, username, roles);
 
         if (hitGray) {
             // 命中灰度，添加响应头并继续执行
@@ -428,32 +389,6 @@ public class ApiControlInterceptor implements HandlerInterceptor {
         return environment.getProperty("plugin.api.mock.enable", Boolean.class, true);
     }
 
-    /**
-     * 获取 Mock 响应内容
-     */
-    private String getMockResponse(ApiMock apiMock) {
-        // 优先使用 response 属性
-        if (StringUtils.isNotBlank(apiMock.response())) {
-            return apiMock.response();
-        }
-
-        // 从文件读取
-        if (StringUtils.isNotBlank(apiMock.responseFile())) {
-            try {
-                var resource = new ClassPathResource(apiMock.responseFile());
-                if (resource.exists()) {
-                    return IoUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
-                } else {
-                    log.warn("Mock 文件不存在: {}", apiMock.responseFile());
-                }
-            } catch (IOException e) {
-                log.error("读取 Mock 文件失败: {}", apiMock.responseFile(), e);
-            }
-        }
-
-        return null;
-    }
-
     /**
      * 获取请求中的 API 版本
      * <p>
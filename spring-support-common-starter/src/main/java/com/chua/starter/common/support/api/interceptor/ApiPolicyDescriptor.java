@@ -0,0 +1,142 @@
+package com.chua.starter.common.support.api.interceptor;
+
+import com.chua.common.support.network.net.Version;
+import com.chua.starter.common.support.api.annotations.ApiDeprecated;
+import com.chua.starter.common.support.api.annotations.ApiFeature;
+import com.chua.starter.common.support.api.annotations.ApiInternal;
+import com.chua.starter.common.support.api.annotations.ApiMock;
+import com.chua.starter.common.support.api.gray.ApiGrayEvaluator.CompiledGrayRule;
+
+/**
+ * 单个 HandlerMethod 的 API 控制策略描述
+ * <p>
+ * 注解查找、版本解析、灰度规则编译和 Mock 数据读取都在创建时完成，
+ * 拦截器每次请求只需按描述执行实际生效的检查。实例不可变，功能开关变化时由
+ * {@link ApiPolicyRegistry} 以新实例替换。
+ * </p>
+ *
+ * @author CH
+ * @since 2024/12/08
+ * @version 1.0.0
+ */
+public final class ApiPolicyDescriptor {
+
+    /**
+     * 无任何控制注解的描述
+     */
+    static final ApiPolicyDescriptor EMPTY = new ApiPolicyDescriptor(null, null, true, null, null,
+            null, null, null, null);
+
+    private final ApiInternal internal;
+    private final ApiFeature feature;
+    private final boolean featureEnabled;
+    private final ApiMock mock;
+    private final String mockPayload;
+    private final ApiDeprecated deprecated;
+    private final Version deprecatedSince;
+    private final Version removedIn;
+    private final CompiledGrayRule grayRule;
+
+    ApiPolicyDescriptor(ApiInternal internal, ApiFeature feature, boolean featureEnabled,
+                        ApiMock mock, String mockPayload,
+                        ApiDeprecated deprecated, Version deprecatedSince, Version removedIn,
+                        CompiledGrayRule grayRule) {
+        this.internal = internal;
+        this.feature = feature;
+        this.featureEnabled = featureEnabled;
+        this.mock = mock;
+        this.mockPayload = mockPayload;
+        this.deprecated = deprecated;
+        this.deprecatedSince = deprecatedSince;
+        this.removedIn = removedIn;
+        this.grayRule = grayRule;
+    }
+
+    /**
+     * 以新的功能开关状态复制描述
+     */
+    ApiPolicyDescriptor withFeatureEnabled(boolean enabled) {
+        if (enabled == featureEnabled) {
+            return this;
+        }
+        return new ApiPolicyDescriptor(internal, feature, enabled, mock, mockPayload,
+                deprecated, deprecatedSince, removedIn, grayRule);
+    }
+
+    /**
+     * 是否没有任何需要检查的策略
+     */
+    public boolean isEmpty() {
+        return internal == null && feature == null && mock == null && deprecated == null && grayRule == null;
+    }
+
+    /**
+     * 内部接口注解（方法优先，其次类）
+     */
+    public ApiInternal getInternal() {
+        return internal;
+    }
+
+    /**
+     * 功能开关注解（方法优先，其次类）
+     */
+    public ApiFeature getFeature() {
+        return feature;
+    }
+
+    /**
+     * 功能标识，无功能开关时返回 null
+     */
+    public String getFeatureId() {
+        return feature == null ? null : feature.value();
+    }
+
+    /**
+     * 功能开关当前状态
+     */
+    public boolean isFeatureEnabled() {
+        return featureEnabled;
+    }
+
+    /**
+     * Mock 注解，仅在当前激活环境匹配时存在
+     */
+    public ApiMock getMock() {
+        return mock;
+    }
+
+    /**
+     * 预读取的 Mock 响应内容
+     */
+    public String getMockPayload() {
+        return mockPayload;
+    }
+
+    /**
+     * 废弃注解（方法优先，其次类）
+     */
+    public ApiDeprecated getDeprecated() {
+        return deprecated;
+    }
+
+    /**
+     * 废弃起始版本
+     */
+    public Version getDeprecatedSince() {
+        return deprecatedSince;
+    }
+
+    /**
+     * 移除版本
+     */
+    public Version getRemovedIn() {
+        return removedIn;
+    }
+
+    /**
+     * 编译后的灰度规则
+     */
+    public CompiledGrayRule getGrayRule() {
+        return grayRule;
+    }
+}
@@ -0,0 +1,197 @@
+package com.chua.starter.common.support.api.interceptor;
+
+import com.chua.common.support.core.utils.ArrayUtils;
+import com.chua.common.support.core.utils.IoUtils;
+import com.chua.common.support.core.utils.StringUtils;
+import com.chua.common.support.network.net.Version;
+import com.chua.starter.common.support.api.annotations.ApiDeprecated;
+import com.chua.starter.common.support.api.annotations.ApiFeature;
+import com.chua.starter.common.support.api.annotations.ApiGray;
+import com.chua.starter.common.support.api.annotations.ApiInternal;
+import com.chua.starter.common.support.api.annotations.ApiMock;
+import com.chua.starter.common.support.api.feature.ApiFeatureManager;
+import com.chua.starter.common.support.api.gray.ApiGrayEvaluator;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.method.HandlerMethod;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * API 控制策略注册表
+ * <p>
+ * 为每个 HandlerMethod 缓存一份 {@link ApiPolicyDescriptor}。启动扫描映射时预先构建，
+ * 运行期新注册的映射在首次访问时构建。监听 {@link ApiFeatureManager} 的开关变化，
+ * 替换引用该功能的描述。
+ * </p>
+ *
+ * @author CH
+ * @since 2024/12/08
+ * @version 1.0.0
+ */
+@Slf4j
+public class ApiPolicyRegistry {
+
+    private final Map<HandlerKey, ApiPolicyDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final ApiFeatureManager featureManager;
+    private final ApiGrayEvaluator grayEvaluator;
+
+    public ApiPolicyRegistry(Environment environment, ApiFeatureManager featureManager) {
+        this(environment, featureManager, new ApiGrayEvaluator());
+    }
+
+    public ApiPolicyRegistry(Environment environment, ApiFeatureManager featureManager, ApiGrayEvaluator grayEvaluator) {
+        this.environment = environment;
+        this.featureManager = featureManager;
+        this.grayEvaluator = grayEvaluator;
+        featureManager.addListener(this::onFeatureChanged);
+    }
+
+    /**
+     * 获取处理方法的策略描述，不存在时构建
+     *
+     * @param handlerMethod 处理方法
+     * @return 策略描述
+     */
+    public ApiPolicyDescriptor get(HandlerMethod handlerMethod) {
+        ApiPolicyDescriptor descriptor = descriptors.get(new HandlerKey(handlerMethod.getBeanType(), handlerMethod.getMethod()));
+        return descriptor != null ? descriptor : register(handlerMethod);
+    }
+
+    /**
+     * 注册处理方法并构建策略描述
+     *
+     * @param handlerMethod 处理方法
+     * @return 策略描述
+     */
+    public ApiPolicyDescriptor register(HandlerMethod handlerMethod) {
+        HandlerKey key = new HandlerKey(handlerMethod.getBeanType(), handlerMethod.getMethod());
+        ApiPolicyDescriptor descriptor = descriptors.computeIfAbsent(key, k -> build(k.beanType(), k.method()));
+        String featureId = descriptor.getFeatureId();
+        if (featureId != null && descriptor.isFeatureEnabled() != featureManager.isEnabled(featureId)) {
+            // 构建期间开关发生变化，以最新状态为准
+            descriptor = descriptors.compute(key, (k, d) -> d == null ? null : d.withFeatureEnabled(featureManager.isEnabled(featureId)));
+        }
+        return descriptor;
+    }
+
+    /**
+     * 灰度评估器
+     */
+    public ApiGrayEvaluator getGrayEvaluator() {
+        return grayEvaluator;
+    }
+
+    /**
+     * 已缓存的策略描述数量
+     */
+    public int size() {
+        return descriptors.size();
+    }
+
+    /**
+     * 功能开关变化时刷新引用该功能的描述
+     */
+    private void onFeatureChanged(String featureId, boolean enabled) {
+        descriptors.replaceAll((key, descriptor) -> featureId.equals(descriptor.getFeatureId())
+                ? descriptor.withFeatureEnabled(enabled)
+                : descriptor);
+        log.debug("刷新API策略描述: feature={}, enabled={}", featureId, enabled);
+    }
+
+    private ApiPolicyDescriptor build(Class<?> beanType, Method method) {
+        ApiInternal internal = findAnnotation(method, beanType, ApiInternal.class);
+        ApiFeature feature = findAnnotation(method, beanType, ApiFeature.class);
+        ApiDeprecated deprecated = findAnnotation(method, beanType, ApiDeprecated.class);
+        ApiMock mock = AnnotationUtils.findAnnotation(method, ApiMock.class);
+        ApiGray gray = AnnotationUtils.findAnnotation(method, ApiGray.class);
+
+        if (internal == null && feature == null && deprecated == null && mock == null && gray == null) {
+            return ApiPolicyDescriptor.EMPTY;
+        }
+
+        // 激活环境在运行期不变，不匹配的 Mock 直接忽略
+        if (mock != null && !matchProfile(mock)) {
+            mock = null;
+        }
+
+        Version since = null;
+        Version removedIn = null;
+        if (deprecated != null) {
+            since = Version.parse(deprecated.since());
+            // removedIn 为空时使用 "latest" 表示永远不会移除
+            removedIn = StringUtils.isBlank(deprecated.removedIn())
+                    ? Version.parse("latest")
+                    : Version.parse(deprecated.removedIn());
+        }
+
+        return new ApiPolicyDescriptor(
+                internal,
+                feature,
+                feature == null || featureManager.isEnabled(feature.value()),
+                mock,
+                mock == null ? null : readMockPayload(mock),
+                deprecated,
+                since,
+                removedIn,
+                gray == null ? null : grayEvaluator.compile(gray));
+    }
+
+    private static <A extends java.lang.annotation.Annotation> A findAnnotation(Method method, Class<?> beanType, Class<A> type) {
+        A annotation = AnnotationUtils.findAnnotation(method, type);
+        return annotation != null ? annotation : AnnotationUtils.findAnnotation(beanType, type);
+    }
+
+    private boolean matchProfile(ApiMock apiMock) {
+        String[] profiles = environment.getActiveProfiles();
+        if (profiles.length == 0) {
+            profiles = new String[]{"default"};
+        }
+        for (String profile : apiMock.profile()) {
+            if (ArrayUtils.containsIgnoreCase(profiles, profile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取 Mock 响应内容
+     */
+    private String readMockPayload(ApiMock apiMock) {
+        // 优先使用 response 属性
+        if (StringUtils.isNotBlank(apiMock.response())) {
+            return apiMock.response();
+        }
+
+        // 从文件读取
+        if (StringUtils.isNotBlank(apiMock.responseFile())) {
+            try {
+                var resource = new ClassPathResource(apiMock.responseFile());
+                if (resource.exists()) {
+                    return IoUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
+                } else {
+                    log.warn("Mock 文件不存在: {}", apiMock.responseFile());
+                }
+            } catch (IOException e) {
+                log.error("读取 Mock 文件失败: {}", apiMock.responseFile(), e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 以实际 Bean 类型和方法作为键，请求期的 HandlerMethod 与注册期的实例不同
+     */
+    private record HandlerKey(Class<?> beanType, Method method) {
+    }
+}
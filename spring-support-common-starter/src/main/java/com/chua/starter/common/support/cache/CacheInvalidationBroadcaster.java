@@ -0,0 +1,54 @@
+package com.chua.starter.common.support.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效广播
+ * <p>
+ * 多节点部署时，某个节点写入或清除缓存后，通过广播通知其他节点淘汰本地近端缓存（L1），
+ * 使 L1 可以安全地使用较短 TTL 而不会长期读到旧值。
+ * </p>
+ * <ul>
+ *     <li>{@link LocalCacheInvalidationBroadcaster}: 进程内总线，用于单机和测试</li>
+ *     <li>Redis 发布订阅实现由 redis starter 提供</li>
+ * </ul>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2024/7/22
+ */
+public interface CacheInvalidationBroadcaster {
+
+    /**
+     * 发布失效消息
+     *
+     * @param message 消息
+     */
+    void publish(CacheInvalidationMessage message);
+
+    /**
+     * 订阅失效消息
+     *
+     * @param listener 监听器
+     */
+    void subscribe(Consumer<CacheInvalidationMessage> listener);
+
+    /**
+     * 缓存失效消息
+     *
+     * @param nodeId    发送节点，接收方据此忽略自身发出的消息
+     * @param cacheName 缓存名称
+     * @param key       缓存键，{@code clear} 为 true 时为空
+     * @param clear     是否清空整个缓存
+     */
+    record CacheInvalidationMessage(String nodeId, String cacheName, Object key, boolean clear) {
+
+        public static CacheInvalidationMessage evict(String nodeId, String cacheName, Object key) {
+            return new CacheInvalidationMessage(nodeId, cacheName, key, false);
+        }
+
+        public static CacheInvalidationMessage clear(String nodeId, String cacheName) {
+            return new CacheInvalidationMessage(nodeId, cacheName, null, true);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.chua.starter.common.support.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个缓存层级的统计
+ * <p>
+ * 记录该层级的命中、未命中次数及读取耗时，用于定位多级缓存中哪一层成为瓶颈。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2024/7/22
+ */
+public class CacheLevelStatistics {
+
+    private final int level;
+    private final String cacheType;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalReadNanos = new LongAdder();
+
+    public CacheLevelStatistics(int level, String cacheType) {
+        this.level = level;
+        this.cacheType = cacheType;
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param hit         是否命中
+     * @param elapsedNanos 耗时（纳秒）
+     */
+    void recordRead(boolean hit, long elapsedNanos) {
+        if (hit) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        totalReadNanos.add(elapsedNanos);
+    }
+
+    /**
+     * 记录一次读取异常
+     */
+    void recordError() {
+        errorCount.increment();
+    }
+
+    void reset() {
+        hitCount.reset();
+        missCount.reset();
+        errorCount.reset();
+        totalReadNanos.reset();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getCacheType() {
+        return cacheType;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * 获取命中率
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * 获取平均读取耗时（微秒）
+     */
+    public double getAverageReadMicros() {
+        long total = hitCount.sum() + missCount.sum();
+        return total == 0 ? 0.0 : totalReadNanos.sum() / 1000.0 / total;
+    }
+
+    /**
+     * 生成快照
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(level, cacheType, getHitCount(), getMissCount(), getErrorCount(),
+                getHitRate(), getAverageReadMicros());
+    }
+
+    /**
+     * 层级统计快照
+     */
+    public record Snapshot(int level, String cacheType, long hitCount, long missCount, long errorCount,
+                           double hitRate, double averageReadMicros) {
+    }
+}
@@ -44,6 +44,11 @@ public class CacheProperties {
      */
     private CaffeineProperties caffeine = new CaffeineProperties();
 
+    /**
+     * 跨节点缓存失效配置
+     */
+    private InvalidationProperties invalidation = new InvalidationProperties();
+
     /**
      * Redis 配置
      */
@@ -85,4 +90,33 @@ public class CacheProperties {
          */
         private long expireAfterAccess = 0;
     }
+
+    /**
+     * 跨节点缓存失效配置
+     */
+    @Data
+    public static class InvalidationProperties {
+        /**
+         * 是否启用跨节点失效广播
+         */
+        private boolean enable = false;
+
+        /**
+         * 广播方式
+         * <p>
+         * 支持: local(进程内总线), redis(Redis 发布订阅)
+         * </p>
+         */
+        private String mode = "local";
+
+        /**
+         * Redis 发布订阅通道
+         */
+        private String channel = "plugin:cache:invalidation";
+
+        /**
+         * 收到失效消息时淘汰的近端层级数（从 L1 开始）
+         */
+        private int nearLevels = 1;
+    }
 }
@@ -0,0 +1,40 @@
+package com.chua.starter.common.support.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内缓存失效广播
+ * <p>
+ * 同一 JVM 内的多个缓存管理器共享一条总线，适用于单机部署和测试场景。
+ * 多个缓存管理器共用同一个对象即可模拟多节点。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2024/7/22
+ */
+@Slf4j
+public class LocalCacheInvalidationBroadcaster implements CacheInvalidationBroadcaster {
+
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        for (Consumer<CacheInvalidationMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.warn("缓存失效消息处理失败: cache={}, key={}", message.cacheName(), message.key(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+}
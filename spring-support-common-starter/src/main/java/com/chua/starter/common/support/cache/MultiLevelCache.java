@@ -1,10 +1,18 @@
 package com.chua.starter.common.support.cache;
 
+import com.chua.starter.common.support.cache.CacheInvalidationBroadcaster.CacheInvalidationMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
@@ -13,6 +21,11 @@ import java.util.concurrent.atomic.LongAdder;
  * 支持多级缓存查询和回填，从L1开始查找，未命中则向更高层级查找，
  * 命中后自动回填到更低层级的缓存中。
  * </p>
+ * <ul>
+ *     <li>L1 未命中后的逐级查找与 valueLoader 调用按 key 合并（single-flight），并发请求只穿透一次</li>
+ *     <li>每个层级独立统计命中、未命中及读取耗时</li>
+ *     <li>写入、清除时通过 {@link CacheInvalidationBroadcaster} 通知其他节点淘汰近端缓存</li>
+ * </ul>
  *
  * @author CH
  * @version 1.0.0
@@ -23,14 +36,46 @@ public class MultiLevelCache implements Cache {
 
     private final String name;
     private final List<Cache> caches;
+    private final List<CacheLevelStatistics> levelStatistics;
+
+    /**
+     * 失效广播，为空时不做跨节点通知
+     */
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final String nodeId;
+
+    /**
+     * 收到远端失效消息时需要淘汰的近端层级数（从 L1 开始）
+     */
+    private final int nearLevels;
 
     // 缓存统计
     private final LongAdder hitCount = new LongAdder();
     private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    // 按 key 合并的在途查找与加载
+    private final ConcurrentMap<Object, CompletableFuture<ValueWrapper>> inFlightLookups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
 
     public MultiLevelCache(String name, List<Cache> caches) {
+        this(name, caches, null, null, 1);
+    }
+
+    public MultiLevelCache(String name, List<Cache> caches, CacheInvalidationBroadcaster broadcaster,
+                           String nodeId, int nearLevels) {
         this.name = name;
         this.caches = caches;
+        this.broadcaster = broadcaster;
+        this.nodeId = nodeId;
+        this.nearLevels = Math.max(1, Math.min(nearLevels, caches.size()));
+        List<CacheLevelStatistics> statistics = new ArrayList<>(caches.size());
+        for (int i = 0; i < caches.size(); i++) {
+            statistics.add(new CacheLevelStatistics(i, caches.get(i).getClass().getSimpleName()));
+        }
+        this.levelStatistics = Collections.unmodifiableList(statistics);
     }
 
     @Override
@@ -45,89 +90,153 @@ public class MultiLevelCache implements Cache {
 
     @Override
     public ValueWrapper get(Object key) {
-        return get(key, 0);
-    }
-
-    private ValueWrapper get(Object key, int index) {
-        if (index >= caches.size()) {
+        ValueWrapper wrapper = readLevel(0, key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        if (caches.size() == 1) {
             missCount.increment();
             return null;
         }
-
-        Cache cache = caches.get(index);
-        ValueWrapper wrapper = cache.get(key);
-
-        if (wrapper == null) {
-            // 未命中，继续向上查找
-            ValueWrapper found = get(key, index + 1);
-            if (found != null) {
-                // 回填到当前层级
-                backfill(key, found.get(), index);
-            }
-            return found;
+        try {
+            return singleFlight(inFlightLookups, key, () -> lookupFrom(key, 1));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
         }
-
-        hitCount.increment();
-        log.debug("缓存命中: cache={}, level={}, key={}", name, index, key);
-        return wrapper;
     }
 
     @Override
     public <T> T get(Object key, Class<T> type) {
-        return get(key, type, 0);
-    }
-
-    private <T> T get(Object key, Class<T> type, int index) {
-        if (index >= caches.size()) {
-            missCount.increment();
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
             return null;
         }
-
-        Cache cache = caches.get(index);
-        T value = cache.get(key, type);
-
-        if (value == null) {
-            T found = get(key, type, index + 1);
-            if (found != null) {
-                backfill(key, found, index);
-            }
-            return found;
+        Object value = wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: required=" + type.getName() + ", actual=" + value.getClass().getName());
         }
-
-        hitCount.increment();
-        log.debug("缓存命中: cache={}, level={}, key={}", name, index, key);
-        return value;
+        @SuppressWarnings("unchecked")
+        T result = (T) value;
+        return result;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(Object key, Callable<T> valueLoader) {
-        // 先按普通 key 查找各级缓存
-        for (int i = 0; i < caches.size(); i++) {
-            Cache cache = caches.get(i);
-            ValueWrapper wrapper = cache.get(key);
-            if (wrapper != null) {
-                hitCount.increment();
-                @SuppressWarnings("unchecked")
-                T value = (T) wrapper.get();
-                // 回填到更低层级
-                backfill(key, value, i - 1);
-                log.debug("缓存命中: cache={}, level={}, key={}", name, i, key);
-                return value;
-            }
+        ValueWrapper wrapper = readLevel(0, key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
         }
-        // 所有层级均未命中，调用 valueLoader 加载并写入所有层级
+        try {
+            return (T) singleFlight(inFlightLoads, key, () -> {
+                ValueWrapper found = caches.size() > 1 ? lookupFrom(key, 1) : missed();
+                if (found != null) {
+                    return found.get();
+                }
+                // 所有层级均未命中，调用 valueLoader 加载并写入所有层级
+                return load(key, valueLoader);
+            });
+        } catch (Cache.ValueRetrievalException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Cache.ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private ValueWrapper missed() {
         missCount.increment();
+        return null;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        loadCount.increment();
         try {
-            T value = valueLoader.call();
+            Object value = valueLoader.call();
             if (value != null) {
                 put(key, value);
             }
             return value;
         } catch (Exception e) {
+            loadFailureCount.increment();
             throw new Cache.ValueRetrievalException(key, valueLoader, e);
         }
     }
 
+    /**
+     * 从指定层级开始向上查找，命中后回填到更低层级
+     */
+    private ValueWrapper lookupFrom(Object key, int fromIndex) {
+        for (int i = fromIndex; i < caches.size(); i++) {
+            ValueWrapper wrapper = readLevel(i, key);
+            if (wrapper != null) {
+                backfill(key, wrapper.get(), i - 1);
+                return wrapper;
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * 读取单个层级并记录统计
+     */
+    private ValueWrapper readLevel(int index, Object key) {
+        CacheLevelStatistics statistics = levelStatistics.get(index);
+        long start = System.nanoTime();
+        ValueWrapper wrapper;
+        try {
+            wrapper = caches.get(index).get(key);
+        } catch (RuntimeException e) {
+            statistics.recordError();
+            log.warn("缓存读取失败: cache={}, level={}, key={}", name, index, key, e);
+            wrapper = null;
+        }
+        statistics.recordRead(wrapper != null, System.nanoTime() - start);
+        if (wrapper != null) {
+            hitCount.increment();
+            log.debug("缓存命中: cache={}, level={}, key={}", name, index, key);
+        }
+        return wrapper;
+    }
+
+    /**
+     * 按 key 合并并发执行，同一时刻同一 key 只有一个调用者真正执行任务，其余等待其结果
+     */
+    private <V> V singleFlight(ConcurrentMap<Object, CompletableFuture<V>> flights, Object key, Callable<V> task) throws Exception {
+        if (key == null) {
+            return task.call();
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalescedCount.increment();
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception ex) {
+                    throw ex;
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = task.call();
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, mine);
+        }
+    }
+
     /**
      * 回填缓存到指定层级及以下
      */
@@ -155,6 +264,7 @@ public class MultiLevelCache implements Cache {
                 log.warn("缓存写入失败: cache={}, level={}, key={}", name, i, key, e);
             }
         }
+        broadcast(CacheInvalidationMessage.evict(nodeId, name, key));
     }
 
     @Override
@@ -166,6 +276,7 @@ public class MultiLevelCache implements Cache {
                 log.warn("缓存清除失败: cache={}, level={}, key={}", name, i, key, e);
             }
         }
+        broadcast(CacheInvalidationMessage.evict(nodeId, name, key));
     }
 
     @Override
@@ -177,6 +288,41 @@ public class MultiLevelCache implements Cache {
                 log.warn("缓存清空失败: cache={}, level={}", name, i, e);
             }
         }
+        broadcast(CacheInvalidationMessage.clear(nodeId, name));
+    }
+
+    private void broadcast(CacheInvalidationMessage message) {
+        if (broadcaster == null) {
+            return;
+        }
+        try {
+            broadcaster.publish(message);
+        } catch (Exception e) {
+            log.warn("缓存失效广播失败: cache={}, key={}", name, message.key(), e);
+        }
+    }
+
+    /**
+     * 处理其他节点发来的失效消息，只淘汰近端层级，共享层级由发送方负责
+     *
+     * @param message 失效消息
+     */
+    void onInvalidation(CacheInvalidationMessage message) {
+        if (Objects.equals(nodeId, message.nodeId())) {
+            return;
+        }
+        for (int i = 0; i < nearLevels; i++) {
+            try {
+                if (message.clear() || message.key() == null) {
+                    caches.get(i).clear();
+                } else {
+                    caches.get(i).evict(message.key());
+                }
+            } catch (Exception e) {
+                log.warn("处理远端缓存失效失败: cache={}, level={}, key={}", name, i, message.key(), e);
+            }
+        }
+        log.debug("远端缓存失效: cache={}, from={}, key={}, clear={}", name, message.nodeId(), message.key(), message.clear());
     }
 
     /**
@@ -202,12 +348,44 @@ public class MultiLevelCache implements Cache {
         return total == 0 ? 0.0 : (double) hits / total;
     }
 
+    /**
+     * 获取 valueLoader 调用次数
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * 获取 valueLoader 失败次数
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    /**
+     * 获取被合并（未穿透）的并发请求次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * 获取各层级统计
+     */
+    public List<CacheLevelStatistics> getLevelStatistics() {
+        return levelStatistics;
+    }
+
     /**
      * 重置统计
      */
     public void resetStats() {
         hitCount.reset();
         missCount.reset();
+        loadCount.reset();
+        loadFailureCount.reset();
+        coalescedCount.reset();
+        levelStatistics.forEach(CacheLevelStatistics::reset);
     }
 
     /**
@@ -38,6 +38,12 @@ public class MultiLevelCacheManager implements CacheManager, InitializingBean, A
     private Environment environment;
     private CacheProperties cacheProperties;
 
+    /**
+     * 当前节点标识，用于忽略自身发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    private CacheInvalidationBroadcaster broadcaster;
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -59,7 +65,8 @@ public class MultiLevelCacheManager implements CacheManager, InitializingBean, A
             }
             
             log.debug("创建多级缓存: name={}, levels={}", name, caches.size());
-            return new MultiLevelCache(name, caches);
+            return new MultiLevelCache(name, caches, broadcaster, nodeId,
+                    cacheProperties == null ? 1 : cacheProperties.getInvalidation().getNearLevels());
         });
     }
 
@@ -95,9 +102,30 @@ public class MultiLevelCacheManager implements CacheManager, InitializingBean, A
             }
         }
 
+        initializeBroadcaster();
         log.info("多级缓存管理器初始化完成: levels={}", cacheManagers.size());
     }
 
+    /**
+     * 初始化跨节点失效广播，未注册实现时退化为进程内总线
+     */
+    private void initializeBroadcaster() {
+        CacheProperties.InvalidationProperties invalidation = cacheProperties.getInvalidation();
+        if (!invalidation.isEnable()) {
+            return;
+        }
+        broadcaster = applicationContext.getBeanProvider(CacheInvalidationBroadcaster.class)
+                .getIfAvailable(LocalCacheInvalidationBroadcaster::new);
+        broadcaster.subscribe(message -> {
+            Cache cache = cacheMap.get(message.cacheName());
+            if (cache instanceof MultiLevelCache mlc) {
+                mlc.onInvalidation(message);
+            }
+        });
+        log.info("多级缓存失效广播已启用: broadcaster={}, nearLevels={}",
+                broadcaster.getClass().getSimpleName(), invalidation.getNearLevels());
+    }
+
     /**
      * 获取缓存统计信息
      */
@@ -111,7 +139,10 @@ public class MultiLevelCacheManager implements CacheManager, InitializingBean, A
                         mlc.getHitCount(),
                         mlc.getMissCount(),
                         mlc.getHitRate(),
-                        mlc.getLevelCount()
+                        mlc.getLevelCount(),
+                        mlc.getLoadCount(),
+                        mlc.getCoalescedCount(),
+                        mlc.getLevelStatistics().stream().map(CacheLevelStatistics::snapshot).toList()
                 ));
             }
         }
@@ -163,6 +194,7 @@ public class MultiLevelCacheManager implements CacheManager, InitializingBean, A
     /**
      * 缓存统计信息
      */
-    public record CacheStats(long hitCount, long missCount, double hitRate, int levelCount) {
+    public record CacheStats(long hitCount, long missCount, double hitRate, int levelCount,
+                             long loadCount, long coalescedCount, List<CacheLevelStatistics.Snapshot> levels) {
     }
 }
@@ -11,6 +11,9 @@ import org.springframework.core.env.Environment;
 import com.chua.starter.common.support.service.IptablesService;
 import com.chua.starter.common.support.service.impl.IptablesServiceImpl;
 import com.chua.starter.common.support.watch.WatchPointcutAdvisor;
+import com.chua.starter.common.support.watch.WatchTraceExporter;
+import com.chua.starter.common.support.watch.WatchTraceRecorder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +31,7 @@ import org.springframework.web.client.RestTemplate;
         ActuatorProperties.class,
         IpProperties.class,
         NonceSignProperties.class,
+        WatchProperties.class,
 })
 @ComponentScan("com.chua.starter.common.support.service")
 public class CommonConfiguration {
@@ -136,8 +140,28 @@ public class CommonConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @Lazy
-    public WatchPointcutAdvisor watchPointcutAdvisor() {
-        return new WatchPointcutAdvisor();
+    public WatchPointcutAdvisor watchPointcutAdvisor(WatchProperties watchProperties,
+                                                     ObjectProvider<WatchTraceRecorder> watchTraceRecorder) {
+        return new WatchPointcutAdvisor(watchProperties.getCaptureSampleRate(), watchTraceRecorder.getIfAvailable());
+    }
+
+    /**
+     * 创建链路记录器实例。
+     * 已完成的 {@code @Watch} 链路写入有界缓冲区，由后台线程批量交给容器中的 {@link WatchTraceExporter}；
+     * 未注册导出器时不启动后台线程。
+     *
+     * @return {@link WatchTraceRecorder} 链路记录器实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @Lazy
+    public WatchTraceRecorder watchTraceRecorder(WatchProperties watchProperties,
+                                                 ObjectProvider<WatchTraceExporter> watchTraceExporters) {
+        return new WatchTraceRecorder(
+                watchProperties.getBufferSize(),
+                watchProperties.getExportBatchSize(),
+                watchProperties.getExportIntervalMillis(),
+                watchTraceExporters.orderedStream().toList());
     }
 
 }
@@ -0,0 +1,214 @@
+package com.chua.starter.common.support.expression;
+
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的 key 表达式
+ * <p>
+ * 锁、幂等等切面按方法缓存本类实例，表达式只解析一次：
+ * </p>
+ * <ul>
+ *     <li>{@code #arg}、{@code #arg.field}、{@code #p0}、{@code #a0} 形式直接按参数下标和缓存的 getter 取值，不经过 SpEL</li>
+ *     <li>其余表达式预先解析，并以 {@link SpelCompilerMode#IMMEDIATE} 编译为字节码；参数类型变化导致编译代码不可用时退回解释执行</li>
+ * </ul>
+ * <p>
+ * 快速路径的结果与 SpEL 一致：{@link #getValue} 返回原始值，{@link #getString} 的字符串转换使用与
+ * {@code StandardEvaluationContext} 相同的共享 {@link DefaultConversionService}，字段、Map 键等 getter 以外的取值方式仍交给 SpEL。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+public final class CompiledKeyExpression {
+
+    private static final Pattern SIMPLE_REFERENCE = Pattern.compile("#([A-Za-z_$][\\w$]*)(?:\\.([A-Za-z_$][\\w$]*))?");
+
+    private static final Pattern ARGUMENT_ALIAS = Pattern.compile("[ap](\\d+)");
+
+    /**
+     * 切面会额外注册到上下文中的变量，与参数同名时不走快速路径
+     */
+    private static final Set<String> RESERVED_VARIABLES = Set.of("root", "this", "request", "session", "principal");
+
+    private static final Method NO_GETTER = ReflectionUtils.findMethod(Object.class, "getClass");
+
+    private final String expression;
+    private final int argumentIndex;
+    private final String property;
+    private final Map<Class<?>, Method> getters;
+    private volatile Expression spelExpression;
+
+    private CompiledKeyExpression(String expression, int argumentIndex, String property, Expression spelExpression) {
+        this.expression = expression;
+        this.argumentIndex = argumentIndex;
+        this.property = property;
+        this.getters = property == null ? Map.of() : new ConcurrentHashMap<>();
+        this.spelExpression = spelExpression;
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param method                  注解所在方法
+     * @param expression              SpEL 表达式
+     * @param parameterNameDiscoverer 参数名解析器
+     * @return 编译结果
+     */
+    public static CompiledKeyExpression compile(Method method, String expression, ParameterNameDiscoverer parameterNameDiscoverer) {
+        Expression spelExpression = new SpelExpressionParser(new SpelParserConfiguration(
+                SpelCompilerMode.IMMEDIATE, method.getDeclaringClass().getClassLoader())).parseExpression(expression);
+
+        Matcher matcher = SIMPLE_REFERENCE.matcher(expression.trim());
+        if (matcher.matches() && !method.isVarArgs()) {
+            int index = resolveArgumentIndex(method, matcher.group(1), parameterNameDiscoverer);
+            if (index >= 0) {
+                return new CompiledKeyExpression(expression, index, matcher.group(2), spelExpression);
+            }
+        }
+        return new CompiledKeyExpression(expression, -1, null, spelExpression);
+    }
+
+    /**
+     * 是否走参数直取的快速路径
+     */
+    public boolean isDirectReference() {
+        return argumentIndex >= 0;
+    }
+
+    /**
+     * 求值
+     *
+     * @param args            方法参数
+     * @param contextSupplier 求值上下文，仅在需要 SpEL 时创建
+     * @return 表达式的值，可能为 null
+     */
+    public Object getValue(Object[] args, Supplier<EvaluationContext> contextSupplier) {
+        return getValue(args, contextSupplier, Object.class);
+    }
+
+    /**
+     * 求值并转换为字符串
+     *
+     * @param args            方法参数
+     * @param contextSupplier 求值上下文，仅在需要 SpEL 时创建
+     * @return 字符串结果，可能为 null
+     */
+    public String getString(Object[] args, Supplier<EvaluationContext> contextSupplier) {
+        return getValue(args, contextSupplier, String.class);
+    }
+
+    private <T> T getValue(Object[] args, Supplier<EvaluationContext> contextSupplier, Class<T> type) {
+        if (argumentIndex >= 0 && args != null && argumentIndex < args.length) {
+            Object argument = args[argumentIndex];
+            if (property == null) {
+                return convert(argument, type);
+            }
+            if (argument != null) {
+                Method getter = getters.computeIfAbsent(argument.getClass(), this::findGetter);
+                if (getter != NO_GETTER) {
+                    return convert(invokeGetter(getter, argument), type);
+                }
+            }
+        }
+        return evaluate(contextSupplier.get(), type);
+    }
+
+    private <T> T evaluate(EvaluationContext context, Class<T> type) {
+        Expression current = spelExpression;
+        try {
+            return current.getValue(context, type);
+        } catch (SpelEvaluationException e) {
+            if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                throw e;
+            }
+            // 编译代码绑定了首次调用时的参数类型，类型变化后改为解释执行
+            Expression interpreted = new SpelExpressionParser().parseExpression(expression);
+            spelExpression = interpreted;
+            return interpreted.getValue(context, type);
+        }
+    }
+
+    private Method findGetter(Class<?> type) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        Method getter = ReflectionUtils.findMethod(type, "get" + suffix);
+        if (getter == null) {
+            getter = ReflectionUtils.findMethod(type, "is" + suffix);
+            if (getter != null && getter.getReturnType() != boolean.class && getter.getReturnType() != Boolean.class) {
+                getter = null;
+            }
+        }
+        if (getter == null || getter.getReturnType() == void.class
+                || !Modifier.isPublic(getter.getModifiers()) || Modifier.isStatic(getter.getModifiers())) {
+            return NO_GETTER;
+        }
+        ReflectionUtils.makeAccessible(getter);
+        return getter;
+    }
+
+    private static Object invokeGetter(Method getter, Object target) {
+        try {
+            return getter.invoke(target);
+        } catch (InvocationTargetException e) {
+            ReflectionUtils.rethrowRuntimeException(e.getTargetException());
+            return null;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问属性: " + getter, e);
+        }
+    }
+
+    private static <T> T convert(Object value, Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        return DefaultConversionService.getSharedInstance().convert(value, type);
+    }
+
+    private static int resolveArgumentIndex(Method method, String name, ParameterNameDiscoverer parameterNameDiscoverer) {
+        if (RESERVED_VARIABLES.contains(name)) {
+            return -1;
+        }
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        Matcher alias = ARGUMENT_ALIAS.matcher(name);
+        if (alias.matches()) {
+            if (parameterNames != null) {
+                for (String parameterName : parameterNames) {
+                    if (ARGUMENT_ALIAS.matcher(parameterName).matches()) {
+                        // 参数名与 a0/p0 别名冲突时，按 SpEL 的覆盖顺序处理
+                        return -1;
+                    }
+                }
+            }
+            int index = Integer.parseInt(alias.group(1));
+            return index < method.getParameterCount() ? index : -1;
+        }
+        if (parameterNames == null) {
+            return -1;
+        }
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals(parameterNames[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
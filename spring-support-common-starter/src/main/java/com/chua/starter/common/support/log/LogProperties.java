@@ -2,6 +2,11 @@ package com.chua.starter.common.support.log;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 日志配置属性
  *
@@ -27,6 +32,27 @@ public class LogProperties {
      */
     private long slowRequestThresholdMs = 3000;
 
+    /**
+     * 请求/响应详情日志的默认采样率（0~1），默认 1 表示全部记录
+     */
+    private double sampleRate = 1D;
+
+    /**
+     * 按路径配置的采样率，key 为 Ant 风格路径，按配置顺序匹配，优先于 {@link #sampleRate}
+     */
+    private Map<String, Double> pathSampleRates = new LinkedHashMap<>();
+
+    /**
+     * 请求体/响应体最多记录的字节数，超出部分截断
+     */
+    private int maxBodyBytes = 2048;
+
+    /**
+     * 记录请求体/响应体的内容类型（前缀匹配），其他类型（文件上传、下载等）只记录长度
+     */
+    private List<String> bodyContentTypes = new ArrayList<>(List.of(
+            "application/json", "application/xml", "application/x-www-form-urlencoded", "text/"));
+
     /**
      * 获取 enable
      *
@@ -98,4 +124,76 @@ public class LogProperties {
     public void setSlowRequestThresholdMs(long slowRequestThresholdMs) {
         this.slowRequestThresholdMs = slowRequestThresholdMs;
     }
+
+    /**
+     * 获取默认采样率
+     *
+     * @return sampleRate
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 设置默认采样率
+     *
+     * @param sampleRate 采样率
+     */
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 获取按路径配置的采样率
+     *
+     * @return pathSampleRates
+     */
+    public Map<String, Double> getPathSampleRates() {
+        return pathSampleRates;
+    }
+
+    /**
+     * 设置按路径配置的采样率
+     *
+     * @param pathSampleRates 路径采样率
+     */
+    public void setPathSampleRates(Map<String, Double> pathSampleRates) {
+        this.pathSampleRates = pathSampleRates;
+    }
+
+    /**
+     * 获取请求体/响应体最多记录的字节数
+     *
+     * @return maxBodyBytes
+     */
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * 设置请求体/响应体最多记录的字节数
+     *
+     * @param maxBodyBytes 字节数
+     */
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * 获取记录请求体/响应体的内容类型
+     *
+     * @return bodyContentTypes
+     */
+    public List<String> getBodyContentTypes() {
+        return bodyContentTypes;
+    }
+
+    /**
+     * 设置记录请求体/响应体的内容类型
+     *
+     * @param bodyContentTypes 内容类型
+     */
+    public void setBodyContentTypes(List<String> bodyContentTypes) {
+        this.bodyContentTypes = bodyContentTypes;
+    }
 }
@@ -1,8 +1,4 @@
 package com.chua.starter.common.support.log;
-import com.chua.common.support.core.constant.NumberConstant;
-import com.chua.common.support.core.utils.CollectionUtils;
-import com.chua.common.support.core.utils.IoUtils;
-import com.chua.common.support.core.utils.StringUtils;
 import com.chua.starter.common.support.logger.InterfaceLoggerInfo;
 import com.chua.starter.common.support.utils.RequestUtils;
 import jakarta.servlet.*;
@@ -10,22 +6,24 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
 import org.springframework.context.ApplicationContext;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Enumeration;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
-import static com.chua.common.support.core.constant.NameConstant.*;
-import static com.chua.common.support.network.http.HttpConstant.HTTP_HEADER_CONTENT_TYPE;
-import static java.time.LocalDateTime.*;
 import static java.time.format.DateTimeFormatter.*;
 
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +40,11 @@ import lombok.extern.slf4j.Slf4j;
  *     <li>请求耗时统计</li>
  * </ul>
  * </p>
+ * <p>
+ * 请求体只在内容类型命中 {@code body-content-types} 时缓存，且最多缓存 {@code max-body-bytes} 字节；
+ * 响应体直接写出，只复制同样长度的前缀，文件上传/下载不会额外占用与内容等大的内存。
+ * 详情日志按路径采样，请求线程只采集 {@link RequestLogEvent}，文本在虚拟线程中拼接输出。
+ * </p>
  *
  * <h3>配置项：</h3>
  * <pre>
@@ -49,6 +52,10 @@ import lombok.extern.slf4j.Slf4j;
  *   log:
  *     enable: true              # 是否开启日志过滤器
  *     open-interface-log: true  # 是否开启接口日志事件
+ *     sample-rate: 1            # 详情日志默认采样率
+ *     path-sample-rates:
+ *       "[/api/upload/**]": 0.01
+ *     max-body-bytes: 2048      # 请求体/响应体最多记录的字节数
  * </pre>
  *
  * @author CH
@@ -58,6 +65,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ParameterLogFilter implements Filter {
         public static final DateTimeFormatter DATE_TIME_FORMATTER = ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
     private final LogProperties logProperties;
     private final ApplicationContext applicationContext;
     private final ExecutorService interfaceServiceLog = Executors.newVirtualThreadPerTaskExecutor();
@@ -81,139 +89,167 @@ public class ParameterLogFilter implements Filter {
             return;
         }
 
-        // 记录请求开始时间
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(REQUEST_START_TIME, startTime);
-
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
-        
-        String connection = requestWrapper.getHeader("upgrade");
-        
         // WebSocket 请求跳过日志记录
-        if ("websocket".equalsIgnoreCase(connection)) {
+        if ("websocket".equalsIgnoreCase(request.getHeader("upgrade"))) {
             filterChain.doFilter(servletRequest, servletResponse);
             return;
         }
 
-        String requestURI = requestWrapper.getRequestURI();
-        String method = requestWrapper.getMethod();
-        String traceId = MDC.get("traceId");
+        // 记录请求开始时间
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        request.setAttribute(REQUEST_START_TIME, startTime);
+
+        String requestURI = request.getRequestURI();
+        String method = request.getMethod();
         
         // 静态资源跳过详细日志
         if (isPass(requestURI)) {
-            filterChain.doFilter(requestWrapper, responseWrapper);
-            responseWrapper.copyBodyToResponse();
-            injectInterfaceServiceLog(requestWrapper);
-            printCostTime(method, requestURI, startTime, responseWrapper.getStatus());
+            filterChain.doFilter(request, response);
+            injectInterfaceServiceLog(request);
+            printCostTime(method, requestURI, elapsed(startNanos), response.getStatus());
             return;
         }
 
-        String contentType = requestWrapper.getHeader(HTTP_HEADER_CONTENT_TYPE);
-        StringBuilder logBuilder = new StringBuilder();
-        
-        // 构建请求头日志
-        logBuilder.append("╔═══════════════════════════════════════════════════════════════════════════════════════════════════════\n");
-        logBuilder.append("║ [请求开始] TraceId: ").append(traceId).append("\n");
-        logBuilder.append("║ 请求时间: ").append(now().format(DATE_TIME_FORMATTER)).append("\n");
-        logBuilder.append("╠═══════════════════════════════════════════════════════════════════════════════════════════════════════\n");
-        
+        boolean detail = log.isDebugEnabled() && isSampled(requestURI);
+        boolean interfaceLog = logProperties.isOpenInterfaceLog();
+        if (!detail && !interfaceLog) {
+            filterChain.doFilter(request, response);
+            warnIfSlow(method, requestURI, elapsed(startNanos), response.getStatus());
+            return;
+        }
+
+        HttpServletRequest requestWrapper = request;
+        if (interfaceLog) {
+            // 接口日志事件需要完整请求体
+            requestWrapper = new ContentCachingRequestWrapper(request);
+        } else if (isCapturable(request.getContentType(), logProperties.getBodyContentTypes())) {
+            requestWrapper = new ContentCachingRequestWrapper(request, Math.max(0, logProperties.getMaxBodyBytes()));
+        }
+        ResponseBodyCaptureWrapper responseWrapper = detail
+                ? new ResponseBodyCaptureWrapper(response, logProperties.getMaxBodyBytes(), logProperties.getBodyContentTypes())
+                : null;
+        LocalDateTime requestTime = LocalDateTime.now();
+        String traceId = MDC.get("traceId");
+
         try {
-            // form-data 请求
-            if (StringUtils.contains(contentType, "form-data")) {
-                appendUrl(logBuilder, requestWrapper);
-                appendHeader(logBuilder, requestWrapper);
-                logBuilder.append("║ 请求类型: multipart/form-data (文件上传)\n");
-                log.debug(logBuilder.toString());
-                filterChain.doFilter(requestWrapper, responseWrapper);
-                responseWrapper.copyBodyToResponse();
-                injectInterfaceServiceLog(requestWrapper);
-                printResponse(responseWrapper, startTime);
-                return;
+            filterChain.doFilter(requestWrapper, responseWrapper == null ? response : responseWrapper);
+        } finally {
+            HttpServletRequest completedRequest = requestWrapper;
+            Runnable completion = () -> complete(completedRequest, response, responseWrapper, interfaceLog,
+                    traceId, requestTime, startNanos);
+            if (requestWrapper.isAsyncStarted()) {
+                requestWrapper.getAsyncContext().addListener(new CompletionListener(completion));
+            } else {
+                completion.run();
             }
+        }
+    }
 
-            // GET/DELETE 请求
-            if (StringUtils.isEmpty(contentType) || GET.equals(method) || DELETE.equals(method)) {
-                appendUrl(logBuilder, requestWrapper);
-                appendQuery(logBuilder, requestWrapper);
-                appendHeader(logBuilder, requestWrapper);
-                log.debug("\n{}", logBuilder);
-                filterChain.doFilter(requestWrapper, responseWrapper);
-                injectInterfaceServiceLog(request);
-                printResponse(responseWrapper, startTime);
-                return;
-            }
+    /**
+     * 请求处理完成（同步请求在过滤器返回时，异步请求在异步处理结束时）
+     */
+    private void complete(HttpServletRequest request,
+                          HttpServletResponse response,
+                          ResponseBodyCaptureWrapper responseWrapper,
+                          boolean interfaceLog,
+                          String traceId,
+                          LocalDateTime requestTime,
+                          long startNanos) {
+        long costTime = elapsed(startNanos);
+        if (interfaceLog) {
+            injectInterfaceServiceLog(request);
+        }
+        if (responseWrapper != null) {
+            RequestLogEvent event = collect(request, response, responseWrapper, traceId, requestTime, costTime);
+            interfaceServiceLog.execute(() -> printEvent(event));
+        }
+        warnIfSlow(request.getMethod(), request.getRequestURI(), costTime, response.getStatus());
+    }
 
-            // POST/PUT/PATCH 请求
-            if (POST.equalsIgnoreCase(method) || PUT.equalsIgnoreCase(method) || "patch".equalsIgnoreCase(method)) {
-                appendBody(logBuilder, requestWrapper);
-                appendHeader(logBuilder, requestWrapper);
-                log.debug("\n{}", logBuilder.toString());
-                filterChain.doFilter(requestWrapper, responseWrapper);
-                injectInterfaceServiceLog(requestWrapper);
-                printResponse(responseWrapper, startTime);
-                return;
+    /**
+     * 在请求线程中采集日志字段
+     */
+    private RequestLogEvent collect(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    ResponseBodyCaptureWrapper responseWrapper,
+                                    String traceId,
+                                    LocalDateTime requestTime,
+                                    long costTime) {
+        Map<String, String> customHeaders = new LinkedHashMap<>();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            if (headerName.startsWith("x-")) {
+                customHeaders.put(headerName, request.getHeader(headerName));
             }
+        }
+
+        byte[] requestBody = null;
+        if (request instanceof ContentCachingRequestWrapper wrapper
+                && isCapturable(request.getContentType(), logProperties.getBodyContentTypes())) {
+            byte[] content = wrapper.getContentAsByteArray();
+            int limit = Math.max(0, logProperties.getMaxBodyBytes());
+            requestBody = content.length > limit ? Arrays.copyOf(content, limit) : content;
+        }
+        return new RequestLogEvent(
+                traceId,
+                requestTime,
+                request.getMethod(),
+                request.getRequestURI(),
+                request.getRequestURL().toString(),
+                request.getQueryString(),
+                RequestUtils.getIpAddress(request),
+                request.getHeader("User-Agent"),
+                request.getContentType(),
+                request.getContentLengthLong(),
+                customHeaders,
+                requestBody,
+                request.getCharacterEncoding(),
+                response.getStatus(),
+                response.getContentType(),
+                responseWrapper.getCapturedBody(),
+                responseWrapper.getTotalBytes(),
+                costTime);
+    }
 
-            log.debug(logBuilder.toString());
-            injectInterfaceServiceLog(requestWrapper);
-            filterChain.doFilter(requestWrapper, responseWrapper);
-            printResponse(responseWrapper, startTime);
+    /**
+     * 在日志线程中输出
+     */
+    private void printEvent(RequestLogEvent event) {
+        if (event.traceId() != null) {
+            MDC.put("traceId", event.traceId());
+        }
+        try {
+            log.debug("\n{}", event.render());
         } finally {
-            responseWrapper.copyBodyToResponse();
+            MDC.remove("traceId");
         }
     }
 
     /**
-     * 打印响应信息
+     * 慢请求告警
      *
-     * @param responseWrapper 响应包装器
-     * @param startTime       开始时间
+     * @param method   请求方法
+     * @param uri      请求 URI
+     * @param costTime 耗时（毫秒）
+     * @param status   响应状态码
      */
-    private void printResponse(ContentCachingResponseWrapper responseWrapper, long startTime) {
-        long costTime = System.currentTimeMillis() - startTime;
-        int status = responseWrapper.getStatus();
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append("╠═══════════════════════════════════════════════════════════════════════════════════════════════════════\n");
-        sb.append("║ [响应信息]\n");
-        sb.append("║ 状态码: ").append(status).append("\n");
-        sb.append("║ 响应类型: ").append(responseWrapper.getContentType()).append("\n");
-        
-        // 打印响应体（限制大小）
-        byte[] content = responseWrapper.getContentAsByteArray();
-        if (content.length > 0 && content.length < NumberConstant.TWE_THOUSAND) {
-            String responseBody = new String(content, StandardCharsets.UTF_8);
-            // 截取前500字符
-            if (responseBody.length() > 500) {
-                responseBody = responseBody.substring(0, 500) + "...(截断)";
-            }
-            sb.append("║ 响应内容: ").append(responseBody).append("\n");
-        } else if (content.length >= NumberConstant.TWE_THOUSAND) {
-            sb.append("║ 响应内容: (内容过长，共 ").append(content.length).append(" 字节)\n");
-        }
-        
-        sb.append("║ 耗时: ").append(costTime).append("ms\n");
-        sb.append("╚═══════════════════════════════════════════════════════════════════════════════════════════════════════\n");
-        
-        log.debug("\n{}", sb);
-        
-        // 慢请求警告
+    private void warnIfSlow(String method, String uri, long costTime, int status) {
         if (costTime > logProperties.getSlowRequestThresholdMs()) {
-            log.warn("[慢请求警告] 耗时: {}ms, 状态码: {}", costTime, status);
+            log.warn("[慢请求警告] {} {} 耗时: {}ms, 状态码: {}", method, uri, costTime, status);
         }
     }
 
     /**
      * 打印请求耗时（简化版，用于静态资源）
      *
-     * @param method    请求方法
-     * @param uri       请求 URI
-     * @param startTime 开始时间
-     * @param status    响应状态码
+     * @param method   请求方法
+     * @param uri      请求 URI
+     * @param costTime 耗时（毫秒）
+     * @param status   响应状态码
      */
-    private void printCostTime(String method, String uri, long startTime, int status) {
-        long costTime = System.currentTimeMillis() - startTime;
+    private void printCostTime(String method, String uri, long costTime, int status) {
         long threshold = logProperties.getSlowRequestThresholdMs();
         if (costTime > threshold) {
             log.warn("[慢请求] {} {} 状态码: {} 耗时: {}ms", method, uri, status, costTime);
@@ -226,6 +262,7 @@ public class ParameterLogFilter implements Filter {
 
     /**
      * 注入接口服务日志
+     * <p>事件在请求线程中构建（请求对象在请求结束后会被容器回收），在虚拟线程中发布。</p>
      *
      * @param request 请求
      */
@@ -234,9 +271,8 @@ public class ParameterLogFilter implements Filter {
             return;
         }
 
-        interfaceServiceLog.execute(() -> {
-            applicationContext.publishEvent(new InterfaceLoggerInfo(request));
-        });
+        InterfaceLoggerInfo info = new InterfaceLoggerInfo(request);
+        interfaceServiceLog.execute(() -> applicationContext.publishEvent(info));
     }
 
     /**
@@ -250,88 +286,73 @@ public class ParameterLogFilter implements Filter {
     }
 
     /**
-     * 追加URL信息到日志
+     * 按路径采样
      *
-     * @param sb      StringBuilder
-     * @param request 请求
+     * @param requestURI 请求URI
+     * @return 是否记录详情日志
      */
-    private void appendUrl(StringBuilder sb, HttpServletRequest request) {
-        sb.append("║ 请求方法: ").append(request.getMethod()).append("\n");
-        sb.append("║ 请求URI: ").append(request.getRequestURI()).append("\n");
-        sb.append("║ 完整URL: ").append(request.getRequestURL()).append("\n");
-        String queryString = request.getQueryString();
-        if (StringUtils.isNotEmpty(queryString)) {
-            sb.append("║ 查询字符串: ").append(queryString).append("\n");
+    private boolean isSampled(String requestURI) {
+        double rate = logProperties.getSampleRate();
+        Map<String, Double> pathSampleRates = logProperties.getPathSampleRates();
+        if (pathSampleRates != null && !pathSampleRates.isEmpty()) {
+            for (Map.Entry<String, Double> entry : pathSampleRates.entrySet()) {
+                if (entry.getValue() != null && PATH_MATCHER.match(entry.getKey(), requestURI)) {
+                    rate = entry.getValue();
+                    break;
+                }
+            }
         }
+        if (rate >= 1D) {
+            return true;
+        }
+        return rate > 0D && ThreadLocalRandom.current().nextDouble() < rate;
     }
 
     /**
-     * 追加请求头信息到日志
+     * 内容类型是否需要记录内容
      *
-     * @param sb      StringBuilder
-     * @param request 请求
+     * @param contentType  内容类型
+     * @param contentTypes 需要记录的内容类型前缀
+     * @return 是否记录
      */
-    private void appendHeader(StringBuilder sb, HttpServletRequest request) {
-        sb.append("║ 客户端IP: ").append(RequestUtils.getIpAddress(request)).append("\n");
-        sb.append("║ User-Agent: ").append(request.getHeader("User-Agent")).append("\n");
-        sb.append("║ Content-Type: ").append(request.getContentType()).append("\n");
-        sb.append("║ Content-Length: ").append(request.getContentLength()).append("\n");
-        
-        // 打印自定义请求头 (x- 开头)
-        Enumeration<String> headerNames = request.getHeaderNames();
-        List<String> customHeaders = new LinkedList<>();
-        while (headerNames.hasMoreElements()) {
-            String headerName = headerNames.nextElement();
-            if (headerName.startsWith("x-")) {
-                customHeaders.add(headerName);
-            }
+    static boolean isCapturable(String contentType, List<String> contentTypes) {
+        if (contentType == null || contentTypes == null) {
+            return false;
         }
-
-        if (CollectionUtils.isNotEmpty(customHeaders)) {
-            sb.append("╟──────────────────── 自定义请求头 ────────────────────\n");
-            for (String headerName : customHeaders) {
-                sb.append("║ ").append(headerName).append(": ").append(request.getHeader(headerName)).append("\n");
+        String value = contentType.toLowerCase(Locale.ROOT);
+        for (String type : contentTypes) {
+            if (value.startsWith(type)) {
+                return true;
             }
         }
+        return false;
     }
 
-    /**
-     * 追加查询参数到日志
-     *
-     * @param sb      StringBuilder
-     * @param request 请求
-     */
-    private void appendQuery(StringBuilder sb, HttpServletRequest request) {
-        String queryString = request.getQueryString();
-        if (StringUtils.isNotEmpty(queryString)) {
-            sb.append("╟──────────────────── 请求参数 ────────────────────\n");
-            if (queryString.length() < NumberConstant.ONE_THOUSAND) {
-                String decoded = URLDecoder.decode(queryString, StandardCharsets.UTF_8);
-                sb.append("║ ").append(decoded).append("\n");
-            } else {
-                sb.append("║ (参数过长，共 ").append(queryString.length()).append(" 字符)\n");
-            }
-        }
+    private static long elapsed(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
     /**
-     * 追加请求体到日志
-     *
-     * @param sb             StringBuilder
-     * @param requestWrapper 请求包装器
+     * 异步请求完成监听
      */
-    private void appendBody(StringBuilder sb, ContentCachingRequestWrapper requestWrapper) {
-        sb.append("║ 请求方法: ").append(requestWrapper.getMethod()).append("\n");
-        sb.append("║ 请求URL: ").append(requestWrapper.getRequestURL()).append("\n");
-        
-        String body = IoUtils.toString(requestWrapper.getContentAsByteArray(), requestWrapper.getCharacterEncoding());
-        if (StringUtils.isNotEmpty(body)) {
-            sb.append("╟──────────────────── 请求体 ────────────────────\n");
-            if (body.length() < NumberConstant.TWE_THOUSAND) {
-                sb.append("║ ").append(body).append("\n");
-            } else {
-                sb.append("║ (请求体过长，共 ").append(body.length()).append(" 字符)\n");
-            }
+    private record CompletionListener(Runnable completion) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            completion.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
         }
     }
 }
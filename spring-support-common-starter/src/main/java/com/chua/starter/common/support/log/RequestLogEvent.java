@@ -0,0 +1,124 @@
+package com.chua.starter.common.support.log;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 请求日志事件
+ * <p>
+ * 请求线程只采集字段（请求体/响应体均为截断后的字节前缀），
+ * 由 {@link ParameterLogFilter} 的日志线程调用 {@link #render()} 拼接成日志文本。
+ * </p>
+ *
+ * @param traceId          链路ID
+ * @param time             请求时间
+ * @param method           请求方法
+ * @param uri              请求URI
+ * @param url              完整URL
+ * @param queryString      查询字符串
+ * @param ip               客户端IP
+ * @param userAgent        User-Agent
+ * @param contentType      请求内容类型
+ * @param contentLength    请求内容长度
+ * @param customHeaders    自定义请求头（x- 开头）
+ * @param requestBody      请求体前缀，未采集时为 null
+ * @param requestEncoding  请求体编码
+ * @param status           响应状态码
+ * @param responseType     响应内容类型
+ * @param responseBody     响应体前缀，未采集时为 null
+ * @param responseBytes    响应体总字节数
+ * @param costTime         耗时（毫秒）
+ * @author CH
+ * @version 1.0.0
+ * @since 2025/01/10
+ */
+record RequestLogEvent(String traceId,
+                       LocalDateTime time,
+                       String method,
+                       String uri,
+                       String url,
+                       String queryString,
+                       String ip,
+                       String userAgent,
+                       String contentType,
+                       long contentLength,
+                       Map<String, String> customHeaders,
+                       byte[] requestBody,
+                       String requestEncoding,
+                       int status,
+                       String responseType,
+                       byte[] responseBody,
+                       long responseBytes,
+                       long costTime) {
+
+    private static final String LINE = "═══════════════════════════════════════════════════════════════════════════════════════════════════════\n";
+
+    String render() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append('╔').append(LINE);
+        sb.append("║ [请求] TraceId: ").append(traceId).append('\n');
+        sb.append("║ 请求时间: ").append(time.format(ParameterLogFilter.DATE_TIME_FORMATTER)).append('\n');
+        sb.append('╠').append(LINE);
+        sb.append("║ 请求方法: ").append(method).append('\n');
+        sb.append("║ 请求URI: ").append(uri).append('\n');
+        sb.append("║ 完整URL: ").append(url).append('\n');
+        if (queryString != null && !queryString.isEmpty()) {
+            sb.append("║ 查询字符串: ").append(decode(queryString)).append('\n');
+        }
+        sb.append("║ 客户端IP: ").append(ip).append('\n');
+        sb.append("║ User-Agent: ").append(userAgent).append('\n');
+        sb.append("║ Content-Type: ").append(contentType).append('\n');
+        sb.append("║ Content-Length: ").append(contentLength).append('\n');
+        if (!customHeaders.isEmpty()) {
+            sb.append("╟──────────────────── 自定义请求头 ────────────────────\n");
+            customHeaders.forEach((name, value) -> sb.append("║ ").append(name).append(": ").append(value).append('\n'));
+        }
+        if (requestBody != null && requestBody.length > 0) {
+            sb.append("╟──────────────────── 请求体 ────────────────────\n");
+            sb.append("║ ").append(text(requestBody, requestEncoding));
+            if (contentLength > requestBody.length) {
+                sb.append("...(截断，共 ").append(contentLength).append(" 字节)");
+            }
+            sb.append('\n');
+        }
+        sb.append('╠').append(LINE);
+        sb.append("║ [响应信息]\n");
+        sb.append("║ 状态码: ").append(status).append('\n');
+        sb.append("║ 响应类型: ").append(responseType).append('\n');
+        if (responseBody != null && responseBody.length > 0) {
+            sb.append("║ 响应内容: ").append(text(responseBody, null));
+            if (responseBytes > responseBody.length) {
+                sb.append("...(截断，共 ").append(responseBytes).append(" 字节)");
+            }
+            sb.append('\n');
+        } else if (responseBytes > 0) {
+            sb.append("║ 响应内容: (共 ").append(responseBytes).append(" 字节)\n");
+        }
+        sb.append("║ 耗时: ").append(costTime).append("ms\n");
+        sb.append('╚').append(LINE);
+        return sb.toString();
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static String text(byte[] bytes, String encoding) {
+        Charset charset = StandardCharsets.UTF_8;
+        if (encoding != null) {
+            try {
+                charset = Charset.forName(encoding);
+            } catch (RuntimeException ignored) {
+                // 非法编码按 UTF-8 输出
+            }
+        }
+        return new String(bytes, charset);
+    }
+}
@@ -0,0 +1,234 @@
+package com.chua.starter.common.support.log;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 响应体前缀采集包装器
+ * <p>
+ * 与 {@link org.springframework.web.util.ContentCachingResponseWrapper} 不同，响应内容直接写入底层响应，
+ * 只额外复制前 {@code limit} 个字节用于日志，内存占用与响应大小无关；
+ * 内容类型不在采集范围内时只统计字节数。
+ * </p>
+ * <p>
+ * {@link #getWriter()} 返回的 writer 每次写入都会把字符编码后直接写入底层输出流（不触发提交），
+ * 异步请求在过滤器返回后写出的内容同样能完整到达客户端并被采集。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025/01/10
+ */
+final class ResponseBodyCaptureWrapper extends HttpServletResponseWrapper {
+
+    private final int limit;
+    private final List<String> contentTypes;
+    private final ByteArrayOutputStream captured;
+    private long total;
+    private Boolean capturable;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    ResponseBodyCaptureWrapper(HttpServletResponse response, int limit, List<String> contentTypes) {
+        super(response);
+        this.limit = Math.max(0, limit);
+        this.contentTypes = contentTypes;
+        this.captured = new ByteArrayOutputStream(Math.min(this.limit, 1024));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called on this response.");
+        }
+        if (outputStream == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called on this response.");
+        }
+        if (writer == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(encoding);
+            writer = new WriteThroughWriter(new OutputStreamWriter(new EncodingSink(outputStream), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * 已采集的响应体前缀
+     */
+    byte[] getCapturedBody() {
+        return captured.toByteArray();
+    }
+
+    /**
+     * 响应体总字节数
+     */
+    long getTotalBytes() {
+        return total;
+    }
+
+    private void capture(byte[] bytes, int off, int len) {
+        total += len;
+        if (capturable == null) {
+            capturable = ParameterLogFilter.isCapturable(getContentType(), contentTypes);
+        }
+        int remaining = limit - captured.size();
+        if (capturable && remaining > 0) {
+            captured.write(bytes, off, Math.min(remaining, len));
+        }
+    }
+
+    /**
+     * 写入即编码的 writer，不在自身保留缓冲字符；显式 flush 时才刷新底层响应
+     */
+    private final class WriteThroughWriter extends PrintWriter {
+
+        private WriteThroughWriter(OutputStreamWriter out) {
+            super(out, false);
+        }
+
+        @Override
+        public void write(int c) {
+            super.write(c);
+            drain();
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            super.write(buf, off, len);
+            drain();
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            super.write(s, off, len);
+            drain();
+        }
+
+        @Override
+        public void println() {
+            super.println();
+            drain();
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            try {
+                outputStream.flush();
+            } catch (IOException e) {
+                setError();
+            }
+        }
+
+        /**
+         * 把编码器中的字节推入输出流；未成对的代理字符由编码器保留到下次写入
+         */
+        private void drain() {
+            synchronized (lock) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    setError();
+                }
+            }
+        }
+    }
+
+    /**
+     * 编码器的目标流，忽略 flush，避免每次写入都提交响应
+     */
+    private static final class EncodingSink extends OutputStream {
+
+        private final OutputStream delegate;
+
+        private EncodingSink(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private final class CaptureOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final byte[] single = new byte[1];
+
+        private CaptureOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            single[0] = (byte) b;
+            capture(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.chua.starter.common.support.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code @Watch} 链路追踪配置
+ *
+ * @author CH
+ * @since 2025/01/10
+ */
+@ConfigurationProperties(prefix = WatchProperties.PRE, ignoreInvalidFields = true)
+@Getter
+@Setter
+public class WatchProperties {
+
+    public static final String PRE = "plugin.watch";
+
+    /**
+     * 参数/堆栈采集的链路采样率（0~1），仅对开启了 captureArgs / captureStack 的方法生效
+     */
+    private double captureSampleRate = 0.1D;
+
+    /**
+     * 待导出链路缓冲区容量，满时丢弃最旧的链路
+     */
+    private int bufferSize = 1024;
+
+    /**
+     * 单次导出的最大链路数
+     */
+    private int exportBatchSize = 256;
+
+    /**
+     * 导出线程空闲等待间隔（毫秒）
+     */
+    private long exportIntervalMillis = 1000L;
+}
@@ -2,16 +2,31 @@ package com.chua.starter.common.support.watch;
 
 import com.chua.common.support.span.trace.TrackContext;
 
-import java.util.Stack;
-import java.util.UUID;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 追踪管控
+ * <p>
+ * 每个线程维护一条进行中的链路：入口 Span 入栈，方法结束时出栈并进入已完成列表，
+ * 根 Span 结束时整条链路交给调用方导出并清理线程上下文。
+ * Span ID 由进程前缀加自增序号组成，不依赖 {@link java.util.UUID}。
+ * </p>
  */
 public class NewTrackManager {
 
-    private static final ThreadLocal<Stack<Span>> TRACK_CACHE = new ThreadLocal<>();
+    private static final ThreadLocal<Trace> TRACK_CACHE = new ThreadLocal<>();
+
+    /**
+     * 进程级随机前缀，区分不同实例生成的ID
+     */
+    private static final String ID_PREFIX = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36) + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
 
     public static Object invoke(Callable<?> callable) throws Exception {
         return callable.call();
@@ -21,27 +36,36 @@ public class NewTrackManager {
     public static void before() {
         Span currentSpan = NewTrackManager.getCurrentSpan();
         if (null == currentSpan) {
-            String linkId = UUID.randomUUID().toString();
-            TrackContext.setLinkId(linkId);
+            TrackContext.setLinkId(nextId());
         }
         NewTrackManager.createEntrySpan();
     }
 
+    /**
+     * 生成链路/Span ID
+     *
+     * @return 进程内唯一的顺序ID
+     */
+    public static String nextId() {
+        return ID_PREFIX + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
     public static Span getCurrentSpan() {
-        Stack<Span> stack = TRACK_CACHE.get();
-        if (stack == null || stack.isEmpty()) {
+        Trace trace = TRACK_CACHE.get();
+        if (trace == null) {
             return null;
         }
-        return stack.peek();
+        return trace.active.peekLast();
     }
 
     /**
-     * 获取栈
+     * 获取进行中的 Span，栈底在前
      *
      * @return 栈
      */
-    public static Stack<Span> currentSpans() {
-        return TRACK_CACHE.get();
+    public static Deque<Span> currentSpans() {
+        Trace trace = TRACK_CACHE.get();
+        return trace == null ? null : trace.active;
     }
 
 
@@ -51,45 +75,84 @@ public class NewTrackManager {
 
     public static Span createEntrySpan() {
         Span span = createSpan();
-        Stack<Span> stack = TRACK_CACHE.get();
+        Deque<Span> stack = TRACK_CACHE.get().active;
         span.setEnterTime(System.nanoTime());
         if (stack.isEmpty()) {
             span.setId(span.getLinkId());
         } else {
-            span.setId(UUID.randomUUID().toString());
-            span.setPid(stack.peek().getId());
+            span.setId(nextId());
+            span.setPid(stack.peekLast().getId());
         }
-        stack.push(span);
+        stack.addLast(span);
         return span;
     }
 
+    /**
+     * 结束 Span
+     *
+     * @param span 由 {@link #createEntrySpan()} 创建的 Span
+     * @return 根 Span 结束时返回整条链路（按结束先后排列），否则返回 null
+     */
+    public static List<Span> exitSpan(Span span) {
+        Trace trace = TRACK_CACHE.get();
+        if (trace == null || span == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        span.setEndTime(now);
+        span.setCostTime(now - span.getEnterTime());
+        trace.active.removeLastOccurrence(span);
+        trace.finished.add(span);
+        if (!trace.active.isEmpty()) {
+            return null;
+        }
+        TRACK_CACHE.remove();
+        return trace.finished;
+    }
+
+    /**
+     * 当前链路是否被采样（采样的链路才会采集参数和堆栈）
+     */
+    public static boolean isSampled() {
+        Trace trace = TRACK_CACHE.get();
+        return trace != null && trace.sampled;
+    }
+
+    /**
+     * 设置当前链路的采样标记，通常在根 Span 创建后调用一次
+     */
+    public static void setSampled(boolean sampled) {
+        Trace trace = TRACK_CACHE.get();
+        if (trace != null) {
+            trace.sampled = sampled;
+        }
+    }
+
 
     public static Span getLastSpan() {
-        Stack<Span> stack = TRACK_CACHE.get();
-        if (stack == null || stack.isEmpty()) {
+        Trace trace = TRACK_CACHE.get();
+        if (trace == null || trace.active.isEmpty()) {
             TrackContext.clear();
             return null;
         }
-        return stack.peek();
+        return trace.active.peekLast();
     }
 
     public static void registerSpan(Span span) {
-        Stack<Span> spans = TRACK_CACHE.get();
-        if (spans == null) {
-            spans = new Stack<>();
+        currentTrace().active.addLast(span);
+    }
+
+    private static Trace currentTrace() {
+        Trace trace = TRACK_CACHE.get();
+        if (trace == null) {
+            trace = new Trace();
+            TRACK_CACHE.set(trace);
         }
-        spans.push(span);
-        TRACK_CACHE.remove();
-        TRACK_CACHE.set(spans);
+        return trace;
     }
 
     private static Span createSpan() {
-        Stack<Span> stack = TRACK_CACHE.get();
-        if (stack == null) {
-            stack = new Stack<>();
-            TRACK_CACHE.remove();
-            TRACK_CACHE.set(stack);
-        }
+        Deque<Span> stack = currentTrace().active;
 
         String linkId;
         if (stack.isEmpty()) {
@@ -99,11 +162,13 @@ public class NewTrackManager {
                 TrackContext.setLinkId(linkId);
             }
         } else {
-            Span span = stack.peek();
+            Span span = stack.peekLast();
             linkId = span.getLinkId();
             TrackContext.setLinkId(linkId);
         }
-        return new Span(linkId);
+        Span span = new Span();
+        span.setLinkId(linkId);
+        return span;
     }
 
     public static void refreshCost(Span span) {
@@ -113,4 +178,13 @@ public class NewTrackManager {
 
         span.setCostTime(System.nanoTime() - span.getEnterTime());
     }
+
+    /**
+     * 线程内的链路
+     */
+    private static final class Trace {
+        private final Deque<Span> active = new ArrayDeque<>();
+        private final List<Span> finished = new ArrayList<>();
+        private boolean sampled;
+    }
 }
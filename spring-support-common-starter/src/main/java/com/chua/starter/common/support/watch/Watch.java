@@ -34,4 +34,14 @@ public @interface Watch {
      * 是否记录方法返回值（默认关闭）
      */
     boolean logResult() default false;
+
+    /**
+     * 是否在链路 Span 中采集方法入参（默认关闭，仅对被采样的链路生效，采样率见 {@code plugin.watch.capture-sample-rate}）
+     */
+    boolean captureArgs() default false;
+
+    /**
+     * 是否在链路 Span 中采集调用堆栈（默认关闭，仅对被采样的链路生效，采样率见 {@code plugin.watch.capture-sample-rate}）
+     */
+    boolean captureStack() default false;
 }
@@ -15,15 +15,40 @@ import jakarta.annotation.Nullable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 切面
+ * <p>
+ * 注解属性与类名、方法名等描述按 {@link Method} 缓存，调用路径只做 Span 入栈/出栈与纳秒计时；
+ * 参数与堆栈仅在注解开启且链路被采样时采集，根 Span 结束后整条链路交给 {@link WatchTraceRecorder} 异步导出。
+ * </p>
  *
  * @author CH
  */
 @Lazy
 @Slf4j
 public class WatchPointcutAdvisor extends StaticMethodMatcherPointcutAdvisor implements InitializingBean {
+
+    private final Map<Method, WatchDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final double captureSampleRate;
+    private final WatchTraceRecorder recorder;
+
+    public WatchPointcutAdvisor() {
+        this(0D, null);
+    }
+
+    /**
+     * @param captureSampleRate 参数/堆栈采集的链路采样率（0~1）
+     * @param recorder          链路记录器，为空时不导出
+     */
+    public WatchPointcutAdvisor(double captureSampleRate, WatchTraceRecorder recorder) {
+        this.captureSampleRate = captureSampleRate;
+        this.recorder = recorder;
+    }
+
     @Override
     public boolean matches(Method method, Class<?> targetClass) {
         if (Proxy.isProxyClass(targetClass)) {
@@ -40,66 +65,69 @@ public class WatchPointcutAdvisor extends StaticMethodMatcherPointcutAdvisor imp
             @Nullable
             @Override
             public Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
-                Span currentSpan = NewTrackManager.getCurrentSpan();
-                if (null == currentSpan) {
-                    String linkId = UUID.randomUUID().toString();
-                    TrackContext.setLinkId(linkId);
-                }
-                Span entrySpan = NewTrackManager.createEntrySpan();
-                Method method = invocation.getMethod();
-                Object[] objects = invocation.getArguments();
-
-                // 读取注解属性
-                Watch watch = AnnotatedElementUtils.findMergedAnnotation(method, Watch.class);
-                if (watch == null) {
-                    watch = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Watch.class);
-                }
-                final Watch watchAttr = watch;
-
-                // 记录入参
-                if (watchAttr != null && watchAttr.logArgs() && log.isDebugEnabled()) {
-                    log.debug("[Watch] {}.{} args={}", method.getDeclaringClass().getSimpleName(),
-                            method.getName(), java.util.Arrays.toString(objects));
-                }
-
-                long start = System.currentTimeMillis();
-                Object result = null;
-                try {
-                    result = invocation.proceed();
-                    return result;
-                } finally {
-                    endSpan(currentSpan, entrySpan, method, invocation.getThis(), objects);
-                    long cost = System.currentTimeMillis() - start;
-
-                    // 超时告警
-                    if (watchAttr != null && watchAttr.timeoutMs() > 0 && cost > watchAttr.timeoutMs()) {
-                        log.warn("[Watch 超时] {}.{} 耗时: {}ms, 阈值: {}ms",
-                                method.getDeclaringClass().getSimpleName(), method.getName(),
-                                cost, watchAttr.timeoutMs());
-                    }
-
-                    // 记录返回值
-                    if (watchAttr != null && watchAttr.logResult() && log.isDebugEnabled()) {
-                        log.debug("[Watch] {}.{} result={}", method.getDeclaringClass().getSimpleName(),
-                                method.getName(), result);
-                    }
-                }
+                return doInvoke(invocation);
             }
         });
     }
 
+    private Object doInvoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        WatchDescriptor descriptor = descriptors.computeIfAbsent(method, WatchDescriptor::of);
+        boolean root = NewTrackManager.getCurrentSpan() == null;
+        if (root) {
+            TrackContext.setLinkId(NewTrackManager.nextId());
+        }
+        Span span = NewTrackManager.createEntrySpan();
+        if (root) {
+            NewTrackManager.setSampled(captureSampleRate > 0
+                    && (captureSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < captureSampleRate));
+        }
+        Object[] objects = invocation.getArguments();
+        boolean sampled = NewTrackManager.isSampled();
+        if (sampled && descriptor.captureArgs) {
+            span.setArgs(objects.clone());
+        }
+
+        // 记录入参
+        if (descriptor.logArgs && log.isDebugEnabled()) {
+            log.debug("[Watch] {} args={}", descriptor.method, Arrays.toString(objects));
+        }
 
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            descriptor.apply(span);
+            if (error != null) {
+                span.setEx(error.toString());
+            }
+            if (sampled && descriptor.captureStack) {
+                span.setStack(Thread.currentThread().getStackTrace());
+            }
+            List<Span> trace = NewTrackManager.exitSpan(span);
+            long cost = TimeUnit.NANOSECONDS.toMillis(span.getCostTime());
+
+            // 超时告警
+            if (descriptor.timeoutMs > 0 && cost > descriptor.timeoutMs) {
+                log.warn("[Watch 超时] {} 耗时: {}ms, 阈值: {}ms", descriptor.method, cost, descriptor.timeoutMs);
+            }
 
-    private static void endSpan(Span currentSpan, Span lastSpan, Method method, Object obj, Object[] objects) {
-        NewTrackManager.refreshCost(lastSpan);
-        NewTrackManager.refreshCost(currentSpan);
-        if (null != lastSpan) {
-            doRefreshSpan(method, objects, lastSpan);
+            // 记录返回值
+            if (descriptor.logResult && log.isDebugEnabled()) {
+                log.debug("[Watch] {} result={}", descriptor.method, result);
+            }
+            if (trace != null && recorder != null) {
+                recorder.record(trace);
+            }
         }
     }
 
-
-    public static List<Span> build(Stack<Span> spans) {
+    public static List<Span> build(Collection<Span> spans) {
         if(null == spans) {
             return Collections.emptyList();
         }
@@ -252,21 +280,44 @@ public class WatchPointcutAdvisor extends StaticMethodMatcherPointcutAdvisor imp
     }
 
     /**
-     * 链路
-     *
-     * @param method   方法
-     * @param args     参数
-     * @param lastSpan 链路
+     * 方法级追踪描述，按 {@link Method} 缓存
      */
-    static void doRefreshSpan(Method method, Object[] args, Span lastSpan) {
-        String className = method.getDeclaringClass().getName();
-        String methodName = method.getName();
-        lastSpan.setFrom(className + "." + methodName);
-        lastSpan.setMessage("链路追踪(MQ): " + lastSpan.getLinkId() + " " + className + "." + methodName + " 耗时: " + lastSpan.getCostTime() + "ms");
-        lastSpan.setStack(Thread.currentThread().getStackTrace());
-        lastSpan.setTypeMethod(className + "." + methodName);
-        lastSpan.setMethod(method.getDeclaringClass().getSimpleName() + "." + methodName);
-        lastSpan.setType(className);
+    private static final class WatchDescriptor {
+        private final String type;
+        private final String typeMethod;
+        private final String method;
+        private final long timeoutMs;
+        private final boolean logArgs;
+        private final boolean logResult;
+        private final boolean captureArgs;
+        private final boolean captureStack;
+
+        private WatchDescriptor(Method method, Watch watch) {
+            String className = method.getDeclaringClass().getName();
+            this.type = className;
+            this.typeMethod = className + "." + method.getName();
+            this.method = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            this.timeoutMs = watch == null ? 0 : watch.timeoutMs();
+            this.logArgs = watch != null && watch.logArgs();
+            this.logResult = watch != null && watch.logResult();
+            this.captureArgs = watch != null && watch.captureArgs();
+            this.captureStack = watch != null && watch.captureStack();
+        }
+
+        static WatchDescriptor of(Method method) {
+            Watch watch = AnnotatedElementUtils.findMergedAnnotation(method, Watch.class);
+            if (watch == null) {
+                watch = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Watch.class);
+            }
+            return new WatchDescriptor(method, watch);
+        }
+
+        void apply(Span span) {
+            span.setFrom(typeMethod);
+            span.setTypeMethod(typeMethod);
+            span.setMethod(method);
+            span.setType(type);
+        }
     }
 
 }
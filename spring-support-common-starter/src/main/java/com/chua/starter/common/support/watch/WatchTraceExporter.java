@@ -0,0 +1,21 @@
+package com.chua.starter.common.support.watch;
+
+import java.util.List;
+
+/**
+ * 链路导出器
+ * <p>注册为 Spring Bean 后，{@link WatchTraceRecorder} 会在后台线程中批量回调，实现中不应长时间阻塞。</p>
+ *
+ * @author CH
+ * @since 2025/01/10
+ */
+@FunctionalInterface
+public interface WatchTraceExporter {
+
+    /**
+     * 导出一批已完成的链路
+     *
+     * @param traces 链路列表，每条链路内的 Span 按结束先后排列，最后一个为根 Span
+     */
+    void export(List<List<Span>> traces);
+}
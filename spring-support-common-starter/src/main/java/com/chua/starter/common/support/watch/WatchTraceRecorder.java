@@ -0,0 +1,139 @@
+package com.chua.starter.common.support.watch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 链路记录器
+ * <p>
+ * 业务线程只把已完成的链路放入有界环形缓冲区，缓冲区满时丢弃最旧的链路；
+ * 后台线程按批次取出并交给 {@link WatchTraceExporter}，导出耗时不影响业务调用。
+ * 未注册导出器时不启动后台线程，{@link #record(List)} 直接返回。
+ * </p>
+ *
+ * @author CH
+ * @since 2025/01/10
+ */
+@Slf4j
+public class WatchTraceRecorder implements AutoCloseable {
+
+    private final ArrayBlockingQueue<List<Span>> buffer;
+    private final int batchSize;
+    private final long exportIntervalMillis;
+    private final List<WatchTraceExporter> exporters;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity             缓冲区容量（链路条数）
+     * @param batchSize            单次导出的最大链路数
+     * @param exportIntervalMillis 缓冲区为空时的最长等待时间
+     * @param exporters            导出器
+     */
+    public WatchTraceRecorder(int capacity, int batchSize, long exportIntervalMillis, List<WatchTraceExporter> exporters) {
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.exportIntervalMillis = Math.max(1L, exportIntervalMillis);
+        this.exporters = exporters == null ? List.of() : List.copyOf(exporters);
+        if (this.exporters.isEmpty()) {
+            this.worker = null;
+            return;
+        }
+        this.worker = new Thread(this::run, "watch-trace-exporter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 记录一条已完成的链路
+     *
+     * @param trace 链路
+     */
+    public void record(List<Span> trace) {
+        if (worker == null || !running || trace == null || trace.isEmpty()) {
+            return;
+        }
+        while (!buffer.offer(trace)) {
+            if (buffer.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 因缓冲区已满被丢弃的链路数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<List<Span>> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                List<Span> first = buffer.poll(exportIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                export(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // 退出前导出剩余链路
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            export(batch);
+            batch.clear();
+        }
+    }
+
+    private void export(List<List<Span>> batch) {
+        for (List<Span> trace : batch) {
+            for (Span span : trace) {
+                describe(span);
+            }
+        }
+        for (WatchTraceExporter exporter : exporters) {
+            try {
+                exporter.export(batch);
+            } catch (Throwable e) {
+                log.warn("[Watch] 链路导出失败: {}", exporter.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 在导出线程中补全描述信息，避免业务线程拼接字符串
+     */
+    private static void describe(Span span) {
+        if (span.getMessage() != null) {
+            return;
+        }
+        span.setMessage("链路追踪: " + span.getLinkId() + " " + span.getTypeMethod() + " 耗时: "
+                + TimeUnit.NANOSECONDS.toMillis(span.getCostTime()) + "ms");
+    }
+}
@@ -0,0 +1,136 @@
+package com.chua.starter.common.support.api.interceptor;
+
+import com.chua.starter.common.support.api.annotations.ApiDeprecated;
+import com.chua.starter.common.support.api.annotations.ApiFeature;
+import com.chua.starter.common.support.api.annotations.ApiMock;
+import com.chua.starter.common.support.api.feature.ApiFeatureManager;
+import com.chua.starter.common.support.api.properties.ApiProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiControlInterceptorTest {
+
+    private final DemoController controller = new DemoController();
+    private ApiFeatureManager featureManager;
+    private ApiPolicyRegistry policyRegistry;
+    private ApiControlInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+        featureManager = new ApiFeatureManager();
+        policyRegistry = new ApiPolicyRegistry(environment, featureManager);
+        interceptor = new ApiControlInterceptor(new ApiProperties(), environment, policyRegistry);
+    }
+
+    @Test
+    void shouldReusePrebuiltDescriptorForRequestHandlerMethods() throws Exception {
+        ApiPolicyDescriptor prebuilt = policyRegistry.register(handler("deprecated"));
+        ApiPolicyDescriptor plain = policyRegistry.register(handler("plain"));
+
+        // 请求期的 HandlerMethod 是新实例，仍命中启动时构建的描述
+        assertThat(policyRegistry.get(handler("deprecated"))).isSameAs(prebuilt);
+        assertThat(policyRegistry.get(handler("plain"))).isSameAs(plain).isSameAs(ApiPolicyDescriptor.EMPTY);
+        assertThat(policyRegistry.size()).isEqualTo(2);
+        assertThat(prebuilt.getDeprecatedSince()).isNotNull();
+        assertThat(prebuilt.getRemovedIn()).isNotNull();
+
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("plain"))).isTrue();
+        assertThat(policyRegistry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBuildDescriptorOnFirstRequestForLateMappings() throws Exception {
+        assertThat(policyRegistry.size()).isZero();
+
+        interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("deprecated"));
+        ApiPolicyDescriptor built = policyRegistry.get(handler("deprecated"));
+        interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("deprecated"));
+
+        assertThat(policyRegistry.size()).isEqualTo(1);
+        assertThat(policyRegistry.get(handler("deprecated"))).isSameAs(built);
+    }
+
+    @Test
+    void shouldApplyFeatureToggleToPrebuiltDescriptor() throws Exception {
+        HandlerMethod beta = handler("beta");
+        featureManager.registerFeature("beta", beta.getMethodAnnotation(ApiFeature.class), beta,
+                RequestMappingInfo.paths("/beta").build());
+        policyRegistry.register(beta);
+
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("beta"))).isTrue();
+
+        featureManager.setEnabled("beta", false);
+        MockHttpServletResponse disabled = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), disabled, handler("beta"))).isFalse();
+        assertThat(disabled.getStatus()).isEqualTo(503);
+
+        featureManager.setEnabled("beta", true);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("beta"))).isTrue();
+    }
+
+    @Test
+    void shouldServeMockOnlyForActiveProfile() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), response, handler("mocked"))).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("{\"mock\":true}");
+
+        assertThat(policyRegistry.get(handler("prodMock")).isEmpty()).isTrue();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("prodMock"))).isTrue();
+    }
+
+    @Test
+    void shouldCompareRequestVersionWithPrebuiltDeprecation() throws Exception {
+        MockHttpServletRequest current = new MockHttpServletRequest();
+        current.addHeader("X-API-Version", "1.5.0");
+        MockHttpServletResponse warned = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(current, warned, handler("deprecated"))).isTrue();
+        assertThat(warned.getHeader("X-API-Deprecated")).isEqualTo("true");
+
+        MockHttpServletRequest removed = new MockHttpServletRequest("GET", "/api/v3.0.0/orders");
+        MockHttpServletResponse gone = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(removed, gone, handler("deprecated"))).isFalse();
+        assertThat(gone.getStatus()).isEqualTo(410);
+    }
+
+    private HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(controller, DemoController.class.getMethod(name));
+    }
+
+    static class DemoController {
+
+        public String plain() {
+            return "plain";
+        }
+
+        @ApiDeprecated(since = "1.0.0", removedIn = "3.0.0", replacement = "/api/v2/orders")
+        public String deprecated() {
+            return "deprecated";
+        }
+
+        @ApiFeature("beta")
+        public String beta() {
+            return "beta";
+        }
+
+        @ApiMock(response = "{\"mock\":true}")
+        public String mocked() {
+            return "real";
+        }
+
+        @ApiMock(profile = "prod", response = "{\"mock\":true}")
+        public String prodMock() {
+            return "real";
+        }
+    }
+}
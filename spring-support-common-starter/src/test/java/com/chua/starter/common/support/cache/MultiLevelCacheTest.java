@@ -0,0 +1,94 @@
+package com.chua.starter.common.support.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiLevelCacheTest {
+
+    @Test
+    void shouldEvictNearCacheOnOtherNodesThroughInJvmBus() {
+        LocalCacheInvalidationBroadcaster bus = new LocalCacheInvalidationBroadcaster();
+        Cache shared = new ConcurrentMapCache("shared");
+        Cache nearA = new ConcurrentMapCache("nearA");
+        Cache nearB = new ConcurrentMapCache("nearB");
+        MultiLevelCache nodeA = new MultiLevelCache("user", List.of(nearA, shared), bus, "A", 1);
+        MultiLevelCache nodeB = new MultiLevelCache("user", List.of(nearB, shared), bus, "B", 1);
+        bus.subscribe(nodeA::onInvalidation);
+        bus.subscribe(nodeB::onInvalidation);
+
+        nodeA.put("k", "v1");
+        assertThat(nodeB.get("k").get()).isEqualTo("v1");
+        assertThat(nearB.get("k")).isNotNull();
+
+        nodeA.put("k", "v2");
+
+        assertThat(nearB.get("k")).isNull();
+        assertThat(nearA.get("k").get()).isEqualTo("v2");
+        assertThat(nodeB.get("k").get()).isEqualTo("v2");
+    }
+
+    @Test
+    void shouldClearNearCacheOnOtherNodes() {
+        LocalCacheInvalidationBroadcaster bus = new LocalCacheInvalidationBroadcaster();
+        Cache shared = new ConcurrentMapCache("shared");
+        Cache nearB = new ConcurrentMapCache("nearB");
+        MultiLevelCache nodeA = new MultiLevelCache("user", List.of(new ConcurrentMapCache("nearA"), shared), bus, "A", 1);
+        MultiLevelCache nodeB = new MultiLevelCache("user", List.of(nearB, shared), bus, "B", 1);
+        bus.subscribe(nodeB::onInvalidation);
+        nearB.put("k", "stale");
+
+        nodeA.clear();
+
+        assertThat(nearB.get("k")).isNull();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentLoads() throws Exception {
+        MultiLevelCache cache = new MultiLevelCache("user",
+                List.of(new ConcurrentMapCache("l1"), new ConcurrentMapCache("l2")));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?> first = executor.submit(() -> cache.get("k", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "v";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<String>> others = new java.util.ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                others.add(executor.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (cache.getCoalescedCount() < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            for (Future<String> other : others) {
+                assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.chua.starter.common.support.expression;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledKeyExpressionTest {
+
+    private static final ParameterNameDiscoverer DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    @Test
+    void shouldReturnRawValueOrStringFromSameExpression() throws Exception {
+        Method method = KeyService.class.getMethod("submit", String.class, Order.class);
+        Object[] args = {"tenant-1", new Order(42L)};
+
+        CompiledKeyExpression property = CompiledKeyExpression.compile(method, "#order.id", DISCOVERER);
+        CompiledKeyExpression concat = CompiledKeyExpression.compile(method, "#order.id + 1", DISCOVERER);
+
+        assertThat(property.getValue(args, () -> {
+            throw new AssertionError("SpEL should not be used");
+        })).isEqualTo(42L);
+        assertThat(property.getString(args, () -> {
+            throw new AssertionError("SpEL should not be used");
+        })).isEqualTo("42");
+        assertThat(concat.getValue(args, () -> context(method, args))).isEqualTo(43L);
+        assertThat(concat.getString(args, () -> context(method, args))).isEqualTo("43");
+        assertThat(property.getString(new Object[]{"tenant-1", new Order(null)}, () -> context(method, args))).isNull();
+    }
+
+    private static MethodBasedEvaluationContext context(Method method, Object[] args) {
+        return new MethodBasedEvaluationContext(null, method, args, DISCOVERER);
+    }
+
+    public static class Order {
+        private final Long id;
+
+        public Order(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class KeyService {
+        public void submit(String tenant, Order order) {
+        }
+    }
+}
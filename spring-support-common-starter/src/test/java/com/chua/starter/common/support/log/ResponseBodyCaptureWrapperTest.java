@@ -0,0 +1,103 @@
+package com.chua.starter.common.support.log;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyCaptureWrapperTest {
+
+    private static final List<String> JSON = List.of("application/json");
+
+    @Test
+    void shouldCaptureWriterOutputWithoutExplicitFlush() throws Exception {
+        MockHttpServletResponse response = jsonResponse();
+        ResponseBodyCaptureWrapper wrapper = new ResponseBodyCaptureWrapper(response, 1024, JSON);
+
+        PrintWriter writer = wrapper.getWriter();
+        writer.print("{\"name\":\"张三\"}");
+        writer.println();
+
+        String expected = "{\"name\":\"张三\"}" + System.lineSeparator();
+        assertThat(response.getContentAsString()).isEqualTo(expected);
+        assertThat(new String(wrapper.getCapturedBody(), StandardCharsets.UTF_8)).isEqualTo(expected);
+        assertThat(wrapper.getTotalBytes()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8).length);
+        // 写入不会提前提交响应
+        assertThat(response.isCommitted()).isFalse();
+    }
+
+    @Test
+    void shouldCaptureOnlyPrefixButCountAllBytes() throws Exception {
+        MockHttpServletResponse response = jsonResponse();
+        ResponseBodyCaptureWrapper wrapper = new ResponseBodyCaptureWrapper(response, 4, JSON);
+
+        wrapper.getOutputStream().write("0123456789".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        assertThat(wrapper.getCapturedBody()).isEqualTo("0123".getBytes(StandardCharsets.UTF_8));
+        assertThat(wrapper.getTotalBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCaptureBodyWrittenAfterFilterReturnedForAsyncRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/async");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = jsonResponse();
+        ResponseBodyCaptureWrapper wrapper = new ResponseBodyCaptureWrapper(response, 1024, JSON);
+        AsyncContext asyncContext = request.startAsync(request, wrapper);
+        AtomicReference<String> capturedOnComplete = new AtomicReference<>();
+        asyncContext.addListener(new CompleteListener(() ->
+                capturedOnComplete.set(new String(wrapper.getCapturedBody(), StandardCharsets.UTF_8))));
+
+        // 过滤器已返回，业务线程稍后写出响应并结束异步处理，期间不调用 flush
+        CompletableFuture.runAsync(() -> {
+            try {
+                wrapper.getWriter().write("{\"status\":\"done\"}");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            asyncContext.complete();
+        }).get(5, TimeUnit.SECONDS);
+
+        assertThat(capturedOnComplete.get()).isEqualTo("{\"status\":\"done\"}");
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":\"done\"}");
+    }
+
+    private static MockHttpServletResponse jsonResponse() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        return response;
+    }
+
+    private record CompleteListener(Runnable onComplete) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            onComplete.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
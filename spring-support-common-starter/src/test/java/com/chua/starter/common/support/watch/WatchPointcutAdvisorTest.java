@@ -0,0 +1,138 @@
+package com.chua.starter.common.support.watch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WatchPointcutAdvisorTest {
+
+    private final List<List<Span>> exported = new CopyOnWriteArrayList<>();
+    private WatchTraceRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.close();
+        }
+        NewTrackManager.clear();
+    }
+
+    @Test
+    void shouldMatchOnlyAnnotatedMethods() throws Exception {
+        WatchPointcutAdvisor advisor = new WatchPointcutAdvisor();
+
+        assertThat(advisor.matches(OrderService.class.getMethod("place", String.class), OrderService.class)).isTrue();
+        assertThat(advisor.matches(OrderService.class.getMethod("describe", String.class), OrderService.class)).isFalse();
+        // 类上标注时所有方法都匹配
+        assertThat(advisor.matches(AuditService.class.getMethod("record", String.class), AuditService.class)).isTrue();
+    }
+
+    @Test
+    void shouldRecordNestedCallsAsOneTrace() throws Exception {
+        recorder = new WatchTraceRecorder(16, 8, 10, List.of(exported::addAll));
+        WatchPointcutAdvisor advisor = advisor(0D);
+        OrderService orders = proxy(new OrderService(proxy(new AuditService(), advisor)), advisor);
+
+        assertThat(orders.place("o-1")).isEqualTo("placed:o-1");
+        orders.describe("o-1");
+
+        awaitUntil(() -> exported.size() == 1);
+        List<Span> trace = exported.get(0);
+        assertThat(trace).extracting(Span::getTypeMethod).containsExactly(
+                AuditService.class.getName() + ".record", OrderService.class.getName() + ".place");
+        Span child = trace.get(0);
+        Span root = trace.get(1);
+        assertThat(child.getPid()).isEqualTo(root.getId());
+        assertThat(child.getLinkId()).isEqualTo(root.getLinkId());
+        assertThat(root.getCostTime()).isGreaterThanOrEqualTo(child.getCostTime());
+        // 未采样的链路不采集参数
+        assertThat(root.getArgs()).isNull();
+        assertThat(NewTrackManager.getCurrentSpan()).isNull();
+    }
+
+    @Test
+    void shouldCaptureArgsAndErrorForSampledTraces() throws Exception {
+        recorder = new WatchTraceRecorder(16, 8, 10, List.of(exported::addAll));
+        WatchPointcutAdvisor advisor = advisor(1D);
+        OrderService orders = proxy(new OrderService(proxy(new AuditService(), advisor)), advisor);
+
+        assertThatThrownBy(() -> orders.place("")).isInstanceOf(IllegalArgumentException.class);
+
+        awaitUntil(() -> exported.size() == 1);
+        Span root = exported.get(0).get(exported.get(0).size() - 1);
+        assertThat(root.getArgs()).containsExactly("");
+        assertThat(root.getEx()).contains("IllegalArgumentException");
+    }
+
+    @Test
+    void shouldStartNewTraceForEachRootCall() throws Exception {
+        recorder = new WatchTraceRecorder(16, 8, 10, List.of(exported::addAll));
+        WatchPointcutAdvisor advisor = advisor(0D);
+        AuditService audit = proxy(new AuditService(), advisor);
+
+        audit.record("a");
+        audit.record("b");
+
+        awaitUntil(() -> exported.size() == 2);
+        assertThat(exported).allSatisfy(trace -> assertThat(trace).hasSize(1));
+        assertThat(exported.get(0).get(0).getLinkId()).isNotEqualTo(exported.get(1).get(0).getLinkId());
+    }
+
+    private WatchPointcutAdvisor advisor(double captureSampleRate) throws Exception {
+        WatchPointcutAdvisor advisor = new WatchPointcutAdvisor(captureSampleRate, recorder);
+        advisor.afterPropertiesSet();
+        return advisor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, WatchPointcutAdvisor advisor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(advisor);
+        return (T) factory.getProxy();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    static class OrderService {
+
+        private final AuditService auditService;
+
+        OrderService(AuditService auditService) {
+            this.auditService = auditService;
+        }
+
+        @Watch(captureArgs = true)
+        public String place(String orderId) {
+            if (orderId.isEmpty()) {
+                throw new IllegalArgumentException("empty order id");
+            }
+            auditService.record(orderId);
+            return "placed:" + orderId;
+        }
+
+        public String describe(String orderId) {
+            return "order:" + orderId;
+        }
+    }
+
+    @Watch
+    static class AuditService {
+
+        public void record(String orderId) {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.chua.starter.common.support.watch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WatchTraceRecorderTest {
+
+    @Test
+    void shouldDropOldestTracesWhenBufferIsFull() throws Exception {
+        List<String> exported = new CopyOnWriteArrayList<>();
+        CountDownLatch exporting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WatchTraceExporter exporter = traces -> {
+            traces.forEach(trace -> exported.add(trace.get(0).getTypeMethod()));
+            exporting.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (WatchTraceRecorder recorder = new WatchTraceRecorder(2, 8, 10, List.of(exporter))) {
+            recorder.record(trace("t0"));
+            assertThat(exporting.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // 导出线程阻塞时缓冲区只保留最新的两条
+            for (int i = 1; i <= 4; i++) {
+                recorder.record(trace("t" + i));
+            }
+            assertThat(recorder.getDroppedCount()).isEqualTo(2);
+
+            release.countDown();
+            awaitUntil(() -> exported.size() == 3);
+            assertThat(exported).containsExactly("t0", "t3", "t4");
+        }
+    }
+
+    @Test
+    void shouldExportInBatchesAndDescribeSpans() throws Exception {
+        List<List<List<Span>>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        WatchTraceExporter exporter = traces -> {
+            batches.add(List.copyOf(traces));
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (WatchTraceRecorder recorder = new WatchTraceRecorder(16, 3, 10, List.of(exporter))) {
+            recorder.record(trace("t0"));
+            awaitUntil(() -> batches.size() == 1);
+            for (int i = 1; i <= 5; i++) {
+                recorder.record(trace("t" + i));
+            }
+            release.countDown();
+
+            awaitUntil(() -> batches.stream().mapToInt(List::size).sum() == 6);
+            assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(3));
+            assertThat(recorder.getDroppedCount()).isZero();
+            Span span = batches.get(0).get(0).get(0);
+            assertThat(span.getMessage()).isEqualTo("链路追踪: link-t0 t0 耗时: 2ms");
+        }
+    }
+
+    @Test
+    void shouldExportRemainingTracesOnClose() {
+        List<String> exported = new CopyOnWriteArrayList<>();
+        WatchTraceRecorder recorder = new WatchTraceRecorder(64, 4, 60_000,
+                List.of(traces -> traces.forEach(trace -> exported.add(trace.get(0).getTypeMethod()))));
+        for (int i = 0; i < 20; i++) {
+            recorder.record(trace("t" + i));
+        }
+
+        recorder.close();
+
+        assertThat(exported).hasSize(20);
+        recorder.record(trace("late"));
+        assertThat(exported).doesNotContain("late");
+    }
+
+    @Test
+    void shouldIgnoreTracesWithoutExporters() {
+        try (WatchTraceRecorder recorder = new WatchTraceRecorder(1, 1, 10, List.of())) {
+            for (int i = 0; i < 10; i++) {
+                recorder.record(trace("t" + i));
+            }
+
+            assertThat(recorder.getDroppedCount()).isZero();
+        }
+    }
+
+    private static List<Span> trace(String typeMethod) {
+        Span span = new Span();
+        span.setLinkId("link-" + typeMethod);
+        span.setTypeMethod(typeMethod);
+        span.setCostTime(TimeUnit.MILLISECONDS.toNanos(2));
+        return List.of(span);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
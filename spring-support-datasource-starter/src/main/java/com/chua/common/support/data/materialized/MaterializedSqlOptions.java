@@ -14,4 +14,7 @@ public class MaterializedSqlOptions {
     private long defaultThreshold = 1000L;
     private long refreshIntervalSeconds = 300L;
     private String cacheDataSourcePrefix = "materialized#";
+    private long maxStalenessMillis = 0L;
+    private long maintenanceIntervalMillis = 100L;
+    private int maxBatchKeys = 500;
 }
@@ -14,15 +14,20 @@ import java.util.function.Function;
 /**
  * 基于 Calcite 物理化能力的最小路由实现。
  * 当前仓库仍以安全降级为第一原则，缺失完整依赖时自动旁路源库。
+ * <p>
+ * 副本数据源与源库不同时，副本由 {@link MaterializedViewMaintainer} 维护：首次路由触发整表加载，
+ * 写操作成功后按主键批量增量同步；副本未就绪或陈旧度超过 {@code maxStalenessMillis} 时查询回源库。
+ * </p>
  *
  * @author CH
  * @since 2026/4/2
  */
-public class CalciteMaterializedSqlRouter implements MaterializedSqlDataSourceRouter {
+public class CalciteMaterializedSqlRouter implements MaterializedSqlDataSourceRouter, AutoCloseable {
 
     private final MaterializedSqlOptions options;
     private final DataSource defaultDataSource;
     private final Function<String, DataSource> dataSourceResolver;
+    private final MaterializedViewMaintainer maintainer;
 
     public CalciteMaterializedSqlRouter(MaterializedSqlOptions options,
                                         DataSource defaultDataSource,
@@ -30,6 +35,7 @@ public class CalciteMaterializedSqlRouter implements MaterializedSqlDataSourceRo
         this.options = options;
         this.defaultDataSource = defaultDataSource;
         this.dataSourceResolver = dataSourceResolver;
+        this.maintainer = new MaterializedViewMaintainer(options);
     }
 
     @Override
@@ -46,6 +52,14 @@ public class CalciteMaterializedSqlRouter implements MaterializedSqlDataSourceRo
         if (resolved == null) {
             return MaterializedSqlRoute.notRouted();
         }
+        DataSource source = resolveSource(request);
+        if (resolved != source) {
+            for (String table : request.getTables()) {
+                if (!maintainer.isFresh(targetDataSource, table, source, resolved, resolveThreshold(request.getDefinition()))) {
+                    return MaterializedSqlRoute.notRouted();
+                }
+            }
+        }
         return MaterializedSqlRoute.routed(targetDataSource);
     }
 
@@ -63,7 +77,41 @@ public class CalciteMaterializedSqlRouter implements MaterializedSqlDataSourceRo
 
     @Override
     public void onWriteSuccess(MaterializedSqlRequest request) {
-        // 当前仓库缺失完整物理化实现，先保持 no-op，确保路由链可编译和可安全降级。
+        if (request == null || request.getCommandType() == MaterializedSqlCommandType.SELECT) {
+            return;
+        }
+        if (request.getDefinition() == null || request.getTables() == null || request.getTables().isEmpty()) {
+            return;
+        }
+        // 写语句的首个表为被修改的表，其余为子查询引用
+        String table = request.getTables().get(0);
+        String targetDataSource = buildCacheDataSourceName(request.getDefinition(), table);
+        DataSource resolved = resolveByName(targetDataSource);
+        DataSource source = resolveSource(request);
+        if (resolved == null || resolved == source) {
+            return;
+        }
+        maintainer.enqueue(targetDataSource, table, source, resolved, resolveThreshold(request.getDefinition()), request);
+    }
+
+    @Override
+    public void close() {
+        maintainer.close();
+    }
+
+    private DataSource resolveSource(MaterializedSqlRequest request) {
+        String name = request.getSourceDataSource();
+        if (name == null || name.isBlank() || dataSourceResolver == null) {
+            return defaultDataSource;
+        }
+        return Objects.requireNonNullElse(dataSourceResolver.apply(name), defaultDataSource);
+    }
+
+    private long resolveThreshold(MaterializedRouteDefinition definition) {
+        if (definition.getThreshold() > 0) {
+            return definition.getThreshold();
+        }
+        return options == null ? 0L : options.getDefaultThreshold();
     }
 
     private String buildCacheDataSourceName(MaterializedRouteDefinition definition, String tableName) {
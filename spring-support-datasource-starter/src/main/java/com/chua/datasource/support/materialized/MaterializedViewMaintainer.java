@@ -0,0 +1,544 @@
+package com.chua.datasource.support.materialized;
+
+import com.chua.common.support.data.materialized.MaterializedSqlOptions;
+import com.chua.common.support.data.materialized.MaterializedSqlRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 物理化副本维护器。
+ * <p>
+ * 写操作成功后只把请求放入对应副本的队列，由后台线程按 {@code maintenanceIntervalMillis} 批量处理：
+ * 同一批次内的写语句解析出主键后合并去重，从源库按主键回查最新行，在副本库中以单个事务
+ * 先删后插；无法解析主键、主键数超过 {@code maxBatchKeys} 或副本尚未加载时整表重载。
+ * </p>
+ * <p>
+ * 未指定主键的插入（自增主键）按范围刷新：写入登记时记下副本当前的最大主键，批处理时从源库回查
+ * 大于其中最小值的行。下界在写入登记时确定，事务晚提交的较小自增值仍在刷新范围内；
+ * 仅支持单列数值主键，其他情况仍整表重载。
+ * </p>
+ * <p>
+ * 读路由前通过 {@link #isFresh(String, String, DataSource, DataSource, long)} 判断副本是否可用：
+ * 副本已完成加载、行数未超过阈值，且最早一条未应用的写入不超过 {@code maxStalenessMillis}。
+ * 事务内的写入在事务结束后才会回查源库，事务未结束期间按未应用写入计入陈旧度。
+ * </p>
+ *
+ * @author CH
+ * @since 2026/4/2
+ */
+@Slf4j
+final class MaterializedViewMaintainer implements AutoCloseable {
+
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final long RETRY_DELAY_MILLIS = 5000L;
+
+    private final long maintenanceIntervalMillis;
+    private final long maxStalenessMillis;
+    private final int maxBatchKeys;
+    private final long refreshIntervalMillis;
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean closed;
+
+    MaterializedViewMaintainer(MaterializedSqlOptions options) {
+        MaterializedSqlOptions current = options == null ? new MaterializedSqlOptions() : options;
+        this.maintenanceIntervalMillis = Math.max(1L, current.getMaintenanceIntervalMillis());
+        this.maxStalenessMillis = current.getMaxStalenessMillis();
+        this.maxBatchKeys = Math.max(1, current.getMaxBatchKeys());
+        this.refreshIntervalMillis = current.getRefreshIntervalSeconds() > 0
+                ? TimeUnit.SECONDS.toMillis(current.getRefreshIntervalSeconds())
+                : 0L;
+    }
+
+    /**
+     * 副本是否可供读取。
+     * <p>首次访问时登记副本并异步整表加载，加载完成前返回 false。</p>
+     *
+     * @param targetName 副本数据源名称
+     * @param table      表名
+     * @param source     源库
+     * @param target     副本库
+     * @param threshold  副本允许的最大行数，小于等于 0 时不限制
+     * @return 可路由到副本时返回 true
+     */
+    boolean isFresh(String targetName, String table, DataSource source, DataSource target, long threshold) {
+        Replica replica = replica(targetName, table, source, target, threshold);
+        if (replica == null || replica.state != ReplicaState.READY) {
+            return false;
+        }
+        // 先看队列再看在途批次：后台线程先登记在途时间再出队，保证两者之间不会漏判
+        PendingWrite head = replica.queue.peek();
+        long inFlightSince = replica.inFlightSince;
+        long oldest = head == null ? inFlightSince
+                : inFlightSince == 0L ? head.enqueuedAt : Math.min(head.enqueuedAt, inFlightSince);
+        if (oldest == 0L) {
+            return true;
+        }
+        return maxStalenessMillis > 0 && System.currentTimeMillis() - oldest <= maxStalenessMillis;
+    }
+
+    /**
+     * 登记一次成功的写入。
+     * <p>
+     * 写入会分发到同一源库中该表的所有副本（联表查询会把被关联的表登记在首个表的副本库下）；
+     * 处于事务中时，写入在事务结束后才会被应用。
+     * </p>
+     */
+    void enqueue(String targetName, String table, DataSource source, DataSource target, long threshold,
+                 MaterializedSqlRequest request) {
+        if (replica(targetName, table, source, target, threshold) == null) {
+            return;
+        }
+        String name = MaterializedWriteParser.normalize(table);
+        long now = System.currentTimeMillis();
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        List<PendingWrite> writes = new ArrayList<>();
+        for (Replica replica : replicas.values()) {
+            if (replica.source == source && replica.name.equals(name)) {
+                PendingWrite write = new PendingWrite(replica, request, now, replica.maxKey);
+                write.released = !inTransaction;
+                writes.add(write);
+            }
+        }
+        if (inTransaction && !writes.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // 回滚时重新回查同样无害
+                    for (PendingWrite write : writes) {
+                        write.released = true;
+                    }
+                }
+            });
+        }
+        for (PendingWrite write : writes) {
+            write.replica.queue.offer(write);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledExecutorService current = executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private Replica replica(String targetName, String table, DataSource source, DataSource target, long threshold) {
+        if (closed || targetName == null || table == null || source == null || target == null || source == target) {
+            return null;
+        }
+        String key = targetName + "|" + MaterializedWriteParser.normalize(table);
+        Replica replica = replicas.computeIfAbsent(key, it -> new Replica(table, source, target, threshold));
+        ensureStarted();
+        return replica;
+    }
+
+    private void ensureStarted() {
+        if (executor != null) {
+            return;
+        }
+        synchronized (this) {
+            if (executor != null || closed) {
+                return;
+            }
+            ScheduledExecutorService created = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "materialized-maintainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            created.scheduleWithFixedDelay(this::maintain, 0L, maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+            executor = created;
+        }
+    }
+
+    /**
+     * 后台线程：逐个副本应用积压写入
+     */
+    void maintain() {
+        for (Replica replica : replicas.values()) {
+            if (closed) {
+                return;
+            }
+            try {
+                maintain(replica, System.currentTimeMillis());
+            } catch (Throwable e) {
+                log.warn("[Datasource][Materialized] 副本维护异常: {}", replica.table, e);
+            }
+        }
+    }
+
+    private void maintain(Replica replica, long now) {
+        if (replica.state == ReplicaState.FAILED && now < replica.retryAt) {
+            return;
+        }
+        PendingWrite head = firstReleased(replica);
+        boolean periodic = refreshIntervalMillis > 0 && now - replica.lastFullRefreshAt >= refreshIntervalMillis;
+        boolean reload = periodic || replica.state == ReplicaState.LOADING || replica.state == ReplicaState.FAILED;
+        if (head == null && !reload) {
+            return;
+        }
+        // 超阈值的副本只在有写入时重新计数
+        reload |= replica.state == ReplicaState.OVERSIZED;
+
+        PendingWrite oldest = replica.queue.peek();
+        if (oldest != null) {
+            // 取队首（可能仍在事务中）作为在途时间，宁可高估陈旧度
+            replica.inFlightSince = oldest.enqueuedAt;
+        }
+        List<PendingWrite> batch = drainReleased(replica);
+        try {
+            Set<List<Object>> keys = new LinkedHashSet<>();
+            if (!reload) {
+                reload = collectKeys(replica, batch, keys);
+            }
+            if (reload) {
+                reloadAll(replica, now);
+            } else {
+                if (!keys.isEmpty()) {
+                    reloadKeys(replica, keys);
+                }
+                Long floor = appendFloor(batch);
+                if (floor != null) {
+                    reloadAppended(replica, floor);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            replica.state = ReplicaState.FAILED;
+            replica.retryAt = now + RETRY_DELAY_MILLIS;
+            log.warn("[Datasource][Materialized] 副本 {} 同步失败, {}ms 后整表重载: {}",
+                    replica.table, RETRY_DELAY_MILLIS, e.getMessage());
+        } finally {
+            replica.inFlightSince = 0L;
+        }
+    }
+
+    /**
+     * 合并本批次写入的主键
+     *
+     * @return 需要整表重载时返回 true
+     */
+    private boolean collectKeys(Replica replica, List<PendingWrite> batch, Set<List<Object>> keys) {
+        if (replica.primaryKeys.isEmpty()) {
+            return !batch.isEmpty();
+        }
+        for (PendingWrite write : batch) {
+            Set<List<Object>> parsed = MaterializedWriteParser.extractKeys(
+                    write.request.getSql(), write.request.getParameters(), replica.primaryKeys);
+            if (parsed == null) {
+                return true;
+            }
+            if (parsed == MaterializedWriteParser.APPEND) {
+                // 登记时副本尚未加载或主键不是数值，无法确定范围
+                if (write.maxKey == null) {
+                    return true;
+                }
+                write.appended = true;
+                continue;
+            }
+            keys.addAll(parsed);
+            if (keys.size() > maxBatchKeys) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 本批次自增插入的范围下界：各写入登记时副本最大主键中的最小值
+     */
+    private static Long appendFloor(List<PendingWrite> batch) {
+        Long floor = null;
+        for (PendingWrite write : batch) {
+            if (write.appended && (floor == null || write.maxKey < floor)) {
+                floor = write.maxKey;
+            }
+        }
+        return floor;
+    }
+
+    private void reloadAll(Replica replica, long now) throws SQLException {
+        try (Connection source = replica.source.getConnection()) {
+            replica.primaryKeys = loadPrimaryKeys(source, replica.table);
+            if (replica.threshold > 0 && countRows(source, replica.table) > replica.threshold) {
+                replica.state = ReplicaState.OVERSIZED;
+                replica.lastFullRefreshAt = now;
+                return;
+            }
+            try (Statement statement = source.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT * FROM " + replica.table)) {
+                apply(replica, "DELETE FROM " + replica.table, List.of(), resultSet);
+            }
+        }
+        replica.maxKey = loadMaxKey(replica);
+        replica.state = ReplicaState.READY;
+        replica.lastFullRefreshAt = now;
+        log.debug("[Datasource][Materialized] 副本 {} 已整表重载", replica.table);
+    }
+
+    /**
+     * 按主键范围刷新自增插入的行
+     */
+    private void reloadAppended(Replica replica, long floor) throws SQLException {
+        String predicate = replica.primaryKeys.get(0) + " > ?";
+        List<Object> values = List.of(floor);
+        try (Connection source = replica.source.getConnection();
+             PreparedStatement statement = source.prepareStatement(
+                     "SELECT * FROM " + replica.table + " WHERE " + predicate)) {
+            bind(statement, values);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                apply(replica, "DELETE FROM " + replica.table + " WHERE " + predicate, values, resultSet);
+            }
+        }
+        replica.maxKey = loadMaxKey(replica);
+        log.debug("[Datasource][Materialized] 副本 {} 已刷新主键大于 {} 的行", replica.table, floor);
+    }
+
+    /**
+     * 副本当前最大主键，仅单列数值主键有效；空表视为 0
+     */
+    private static Long loadMaxKey(Replica replica) throws SQLException {
+        if (replica.primaryKeys.size() != 1) {
+            return null;
+        }
+        try (Connection target = replica.target.getConnection();
+             Statement statement = target.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT MAX(" + replica.primaryKeys.get(0) + ") FROM " + replica.table)) {
+            if (!resultSet.next()) {
+                return 0L;
+            }
+            Object value = resultSet.getObject(1);
+            if (value == null) {
+                return 0L;
+            }
+            return value instanceof Number number && !(value instanceof Double || value instanceof Float)
+                    ? number.longValue() : null;
+        }
+    }
+
+    private void reloadKeys(Replica replica, Set<List<Object>> keys) throws SQLException {
+        List<List<Object>> all = new ArrayList<>(keys);
+        try (Connection source = replica.source.getConnection()) {
+            for (int from = 0; from < all.size(); from += INSERT_BATCH_SIZE) {
+                List<List<Object>> chunk = all.subList(from, Math.min(all.size(), from + INSERT_BATCH_SIZE));
+                String predicate = keyPredicate(replica.primaryKeys, chunk.size());
+                List<Object> values = MaterializedWriteParser.flatten(chunk);
+                try (PreparedStatement statement = source.prepareStatement(
+                        "SELECT * FROM " + replica.table + " WHERE " + predicate)) {
+                    bind(statement, values);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        apply(replica, "DELETE FROM " + replica.table + " WHERE " + predicate, values, resultSet);
+                    }
+                }
+            }
+        }
+        log.debug("[Datasource][Materialized] 副本 {} 已同步 {} 行", replica.table, all.size());
+    }
+
+    /**
+     * 在副本库单个事务内先删除再写入源库查询结果
+     */
+    private void apply(Replica replica, String deleteSql, List<Object> deleteValues, ResultSet rows) throws SQLException {
+        try (Connection target = replica.target.getConnection()) {
+            boolean autoCommit = target.getAutoCommit();
+            target.setAutoCommit(false);
+            try {
+                try (PreparedStatement delete = target.prepareStatement(deleteSql)) {
+                    bind(delete, deleteValues);
+                    delete.executeUpdate();
+                }
+                insertRows(target, replica.table, rows);
+                target.commit();
+            } catch (SQLException | RuntimeException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                target.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void insertRows(Connection target, String table, ResultSet rows) throws SQLException {
+        ResultSetMetaData metaData = rows.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        for (int i = 1; i <= columnCount; i++) {
+            sql.append(i > 1 ? ", " : "").append(metaData.getColumnLabel(i));
+        }
+        sql.append(") VALUES (").append("?, ".repeat(columnCount - 1)).append("?)");
+        try (PreparedStatement insert = target.prepareStatement(sql.toString())) {
+            int pending = 0;
+            while (rows.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    insert.setObject(i, rows.getObject(i));
+                }
+                insert.addBatch();
+                if (++pending == INSERT_BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static String keyPredicate(List<String> primaryKeys, int keyCount) {
+        if (primaryKeys.size() == 1) {
+            return primaryKeys.get(0) + " IN (" + "?, ".repeat(keyCount - 1) + "?)";
+        }
+        StringBuilder one = new StringBuilder("(");
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            one.append(i > 0 ? " AND " : "").append(primaryKeys.get(i)).append(" = ?");
+        }
+        one.append(')');
+        StringBuilder predicate = new StringBuilder();
+        for (int i = 0; i < keyCount; i++) {
+            predicate.append(i > 0 ? " OR " : "").append(one);
+        }
+        return predicate.toString();
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setObject(i + 1, values.get(i));
+        }
+    }
+
+    private static long countRows(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+        }
+    }
+
+    /**
+     * 读取主键列，依次尝试原始、大写、小写表名以兼容不同数据库的标识符大小写
+     */
+    private static List<String> loadPrimaryKeys(Connection connection, String table) throws SQLException {
+        String name = MaterializedWriteParser.normalize(table);
+        String raw = table.substring(table.lastIndexOf('.') + 1).replace("`", "").replace("\"", "");
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String candidate : new LinkedHashSet<>(List.of(raw, name.toUpperCase(Locale.ROOT), name))) {
+            Map<Short, String> columns = new TreeMap<>();
+            try (ResultSet resultSet = metaData.getPrimaryKeys(connection.getCatalog(), null, candidate)) {
+                while (resultSet.next()) {
+                    columns.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+                }
+            }
+            if (!columns.isEmpty()) {
+                return List.copyOf(columns.values());
+            }
+        }
+        return List.of();
+    }
+
+    private static PendingWrite firstReleased(Replica replica) {
+        for (PendingWrite write : replica.queue) {
+            if (write.released) {
+                return write;
+            }
+        }
+        return null;
+    }
+
+    private static List<PendingWrite> drainReleased(Replica replica) {
+        List<PendingWrite> batch = new ArrayList<>();
+        Iterator<PendingWrite> iterator = replica.queue.iterator();
+        while (iterator.hasNext()) {
+            PendingWrite write = iterator.next();
+            if (write.released) {
+                iterator.remove();
+                batch.add(write);
+            }
+        }
+        return batch;
+    }
+
+    private enum ReplicaState {
+        /**
+         * 等待首次加载
+         */
+        LOADING,
+        /**
+         * 可读
+         */
+        READY,
+        /**
+         * 源表行数超过阈值，不提供副本
+         */
+        OVERSIZED,
+        /**
+         * 同步失败，等待重试整表重载
+         */
+        FAILED
+    }
+
+    private static final class Replica {
+        private final String table;
+        private final String name;
+        private final DataSource source;
+        private final DataSource target;
+        private final long threshold;
+        private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+        private volatile ReplicaState state = ReplicaState.LOADING;
+        private volatile long inFlightSince;
+        private volatile List<String> primaryKeys = List.of();
+        private volatile Long maxKey;
+        private long lastFullRefreshAt;
+        private long retryAt;
+
+        private Replica(String table, DataSource source, DataSource target, long threshold) {
+            this.table = table;
+            this.name = MaterializedWriteParser.normalize(table);
+            this.source = source;
+            this.target = target;
+            this.threshold = threshold;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Replica replica;
+        private final MaterializedSqlRequest request;
+        private final long enqueuedAt;
+        /**
+         * 登记时副本的最大主键，作为自增插入的刷新下界
+         */
+        private final Long maxKey;
+        private volatile boolean released = true;
+        private boolean appended;
+
+        private PendingWrite(Replica replica, MaterializedSqlRequest request, long enqueuedAt, Long maxKey) {
+            this.replica = replica;
+            this.request = request;
+            this.enqueuedAt = enqueuedAt;
+            this.maxKey = maxKey;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.chua.datasource.support.materialized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 写语句主键提取器。
+ * <p>
+ * 以轻量分词识别 MyBatis / MyBatis-Plus 常见的单表写语句，提取受影响行的主键：
+ * </p>
+ * <ul>
+ *     <li>{@code INSERT INTO t (c1, c2) VALUES (?, ?)[, (...)]}：主键列取自对应的参数或字面量；
+ *     单列主键未出现在列清单中（自增主键）时返回 {@link #APPEND}，由调用方按主键范围刷新新增行</li>
+ *     <li>{@code UPDATE t SET ... WHERE pk = ? [AND ...]} / {@code DELETE FROM t WHERE pk IN (?, ?)}：
+ *     取顶层 AND 条件中的主键等值或 IN 条件</li>
+ * </ul>
+ * <p>
+ * 无法确定主键（含顶层 OR、INSERT ... SELECT、REPLACE、ON DUPLICATE KEY UPDATE 等 VALUES 之后的子句、
+ * 修改主键列、方言语法等）时返回 {@code null}，
+ * 由调用方退化为整表刷新，保证副本正确性优先。
+ * </p>
+ *
+ * @author CH
+ * @since 2026/4/2
+ */
+final class MaterializedWriteParser {
+
+    /**
+     * 无法解析的值
+     */
+    private static final Object NONE = new Object();
+
+    /**
+     * 参数值为 null 时的占位
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * 插入语句未指定主键（自增主键），新增行的主键只能在源库中按范围查找
+     */
+    static final Set<List<Object>> APPEND = Collections.unmodifiableSet(new LinkedHashSet<>());
+
+    private MaterializedWriteParser() {
+    }
+
+    /**
+     * 提取写语句影响的主键。
+     *
+     * @param sql         SQL
+     * @param parameters  按占位符顺序排列的参数
+     * @param primaryKeys 主键列名
+     * @return 主键值集合（每个元素按 {@code primaryKeys} 顺序排列），自增插入返回 {@link #APPEND}，无法确定时返回 null
+     */
+    static Set<List<Object>> extractKeys(String sql, List<Object> parameters, List<String> primaryKeys) {
+        if (sql == null || primaryKeys == null || primaryKeys.isEmpty()) {
+            return null;
+        }
+        List<Token> tokens;
+        try {
+            tokens = tokenize(sql);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>(primaryKeys.size());
+        for (String primaryKey : primaryKeys) {
+            keys.add(normalize(primaryKey));
+        }
+        List<Object> params = parameters == null ? List.of() : parameters;
+        String command = tokens.get(0).upper();
+        return switch (command) {
+            // REPLACE 会先删除冲突行，被删行的主键无法从语句得到
+            case "INSERT" -> parseInsert(tokens, params, keys);
+            case "UPDATE" -> parseUpdate(tokens, params, keys);
+            case "DELETE" -> parseDelete(tokens, params, keys);
+            default -> null;
+        };
+    }
+
+    private static Set<List<Object>> parseInsert(List<Token> tokens, List<Object> params, List<String> keys) {
+        int i = indexOfKeyword(tokens, "INTO", 1);
+        if (i < 0 || i + 2 >= tokens.size()) {
+            return null;
+        }
+        // 跳过表名（可能带 schema）
+        i = skipQualifiedName(tokens, i + 1);
+        if (i >= tokens.size() || !tokens.get(i).is("(")) {
+            return null;
+        }
+        int close = matching(tokens, i);
+        if (close < 0) {
+            return null;
+        }
+        List<List<Token>> columns = splitTopLevel(tokens, i + 1, close, ",");
+        int[] keyPositions = new int[keys.size()];
+        int missing = 0;
+        for (int k = 0; k < keys.size(); k++) {
+            keyPositions[k] = -1;
+            for (int c = 0; c < columns.size(); c++) {
+                List<Token> column = columns.get(c);
+                if (column.size() == 1 && normalize(column.get(0).text).equals(keys.get(k))) {
+                    keyPositions[k] = c;
+                }
+            }
+            if (keyPositions[k] < 0) {
+                missing++;
+            }
+        }
+        // 只有单列主键整体缺省才视为自增，联合主键缺列无法推断
+        boolean append = missing > 0;
+        if (append && keys.size() > 1) {
+            return null;
+        }
+
+        i = close + 1;
+        if (i >= tokens.size() || !(tokens.get(i).upper().equals("VALUES") || tokens.get(i).upper().equals("VALUE"))) {
+            return null;
+        }
+        i++;
+        Set<List<Object>> result = new LinkedHashSet<>();
+        while (i < tokens.size() && tokens.get(i).is("(")) {
+            int end = matching(tokens, i);
+            if (end < 0) {
+                return null;
+            }
+            List<List<Token>> values = splitTopLevel(tokens, i + 1, end, ",");
+            if (values.size() != columns.size()) {
+                return null;
+            }
+            if (!append) {
+                List<Object> key = new ArrayList<>(keys.size());
+                for (int position : keyPositions) {
+                    Object value = valueOf(values.get(position), params);
+                    if (value == NONE) {
+                        return null;
+                    }
+                    key.add(value);
+                }
+                result.add(key);
+            }
+            i = end + 1;
+            if (i < tokens.size() && tokens.get(i).is(",")) {
+                i++;
+            }
+        }
+        if (!isInsertTail(tokens, i)) {
+            return null;
+        }
+        if (append) {
+            return APPEND;
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * VALUES 之后只允许 RETURNING 子句或语句结束符，ON DUPLICATE KEY UPDATE / ON CONFLICT 等会改写已有行
+     */
+    private static boolean isInsertTail(List<Token> tokens, int from) {
+        if (from < tokens.size() && tokens.get(from).upper().equals("RETURNING")) {
+            return true;
+        }
+        for (int i = from; i < tokens.size(); i++) {
+            if (!tokens.get(i).is(";")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<List<Object>> parseUpdate(List<Token> tokens, List<Object> params, List<String> keys) {
+        int set = indexOfKeyword(tokens, "SET", 1);
+        int where = indexOfKeyword(tokens, "WHERE", 1);
+        if (set < 0 || where < set) {
+            return null;
+        }
+        // 修改主键列时旧主键与新主键都会变化，退化为整表刷新
+        for (List<Token> assignment : splitTopLevel(tokens, set + 1, where, ",")) {
+            int operator = indexOfOperator(assignment);
+            if (operator <= 0 || keys.contains(normalize(assignment.get(operator - 1).text))) {
+                return null;
+            }
+        }
+        return parseWhere(tokens, where, params, keys);
+    }
+
+    private static Set<List<Object>> parseDelete(List<Token> tokens, List<Object> params, List<String> keys) {
+        int where = indexOfKeyword(tokens, "WHERE", 1);
+        if (where < 0) {
+            return null;
+        }
+        return parseWhere(tokens, where, params, keys);
+    }
+
+    private static Set<List<Object>> parseWhere(List<Token> tokens, int where, List<Object> params, List<String> keys) {
+        int end = tokens.size();
+        for (int i = where + 1, depth = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.is("(")) {
+                depth++;
+            } else if (token.is(")")) {
+                depth--;
+            } else if (depth == 0 && (token.upper().equals("ORDER") || token.upper().equals("LIMIT")
+                    || token.upper().equals("RETURNING") || token.is(";"))) {
+                end = i;
+                break;
+            } else if (depth == 0 && token.upper().equals("OR")) {
+                return null;
+            }
+        }
+
+        Map<String, List<Object>> values = new HashMap<>();
+        for (List<Token> condition : splitTopLevel(tokens, where + 1, end, "AND")) {
+            List<Token> unwrapped = unwrap(condition);
+            if (unwrapped.size() < 3) {
+                continue;
+            }
+            int operator = indexOfOperator(unwrapped);
+            if (operator <= 0) {
+                continue;
+            }
+            String column = normalize(unwrapped.get(operator - 1).text);
+            if (!keys.contains(column) || values.containsKey(column)) {
+                continue;
+            }
+            List<Token> rhs = unwrapped.subList(operator + 1, unwrapped.size());
+            if (unwrapped.get(operator).is("=")) {
+                Object value = valueOf(rhs, params);
+                if (value != NONE) {
+                    values.put(column, List.of(valueHolder(value)));
+                }
+            } else if (!rhs.isEmpty() && rhs.get(0).is("(") && matching(rhs, 0) == rhs.size() - 1) {
+                List<Object> list = new ArrayList<>();
+                for (List<Token> item : splitTopLevel(rhs, 1, rhs.size() - 1, ",")) {
+                    Object value = valueOf(item, params);
+                    if (value == NONE) {
+                        return null;
+                    }
+                    list.add(valueHolder(value));
+                }
+                values.put(column, list);
+            }
+        }
+
+        if (!values.keySet().containsAll(keys)) {
+            return null;
+        }
+        Set<List<Object>> result = new LinkedHashSet<>();
+        if (keys.size() == 1) {
+            for (Object value : values.get(keys.get(0))) {
+                result.add(singletonKey(value));
+            }
+            return result;
+        }
+        // 联合主键只支持逐列等值
+        List<Object> key = new ArrayList<>(keys.size());
+        for (String column : keys) {
+            List<Object> list = values.get(column);
+            if (list.size() != 1) {
+                return null;
+            }
+            key.add(unholder(list.get(0)));
+        }
+        result.add(key);
+        return result;
+    }
+
+    private static int indexOfOperator(List<Token> condition) {
+        for (int i = 0; i < condition.size(); i++) {
+            Token token = condition.get(i);
+            if (token.is("=")) {
+                return i;
+            }
+            if (token.upper().equals("IN")) {
+                return i > 0 && condition.get(i - 1).upper().equals("NOT") ? -1 : i;
+            }
+            if (token.is("(") || token.type == TokenType.OPERATOR) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Token> unwrap(List<Token> condition) {
+        List<Token> current = condition;
+        while (current.size() >= 2 && current.get(0).is("(") && matching(current, 0) == current.size() - 1) {
+            current = current.subList(1, current.size() - 1);
+        }
+        return current;
+    }
+
+    /**
+     * 解析单个值表达式：占位符或字面量，其他表达式返回 {@link #NONE}
+     */
+    private static Object valueOf(List<Token> expression, List<Object> params) {
+        if (expression.size() != 1) {
+            return NONE;
+        }
+        Token token = expression.get(0);
+        return switch (token.type) {
+            case PARAM -> token.paramIndex < params.size() ? params.get(token.paramIndex) : NONE;
+            case STRING -> token.text;
+            case NUMBER -> numberOf(token.text);
+            default -> NONE;
+        };
+    }
+
+    private static Object numberOf(String text) {
+        try {
+            if (text.contains(".")) {
+                return Double.valueOf(text);
+            }
+            return Long.valueOf(text);
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * 参数值可能为 null，包装后以便放入不可变集合
+     */
+    private static Object valueHolder(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Object unholder(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    private static List<Object> singletonKey(Object value) {
+        List<Object> key = new ArrayList<>(1);
+        key.add(unholder(value));
+        return key;
+    }
+
+    private static int skipQualifiedName(List<Token> tokens, int start) {
+        int i = start + 1;
+        while (i + 1 < tokens.size() && tokens.get(i).is(".")) {
+            i += 2;
+        }
+        return i;
+    }
+
+    private static int indexOfKeyword(List<Token> tokens, String keyword, int from) {
+        int depth = 0;
+        for (int i = from; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.is("(")) {
+                depth++;
+            } else if (token.is(")")) {
+                depth--;
+            } else if (depth == 0 && token.type == TokenType.WORD && token.upper().equals(keyword)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int matching(List<Token> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if (tokens.get(i).is("(")) {
+                depth++;
+            } else if (tokens.get(i).is(")") && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<List<Token>> splitTopLevel(List<Token> tokens, int from, int to, String separator) {
+        List<List<Token>> parts = new ArrayList<>();
+        int depth = 0;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            Token token = tokens.get(i);
+            if (token.is("(")) {
+                depth++;
+            } else if (token.is(")")) {
+                depth--;
+            } else if (depth == 0 && (token.is(separator) || (token.type == TokenType.WORD && token.upper().equals(separator)))) {
+                parts.add(tokens.subList(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(tokens.subList(start, to));
+        return parts;
+    }
+
+    /**
+     * 标识符归一化：去掉引号并转小写
+     */
+    static String normalize(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        String value = identifier.trim();
+        int dot = lastUnquotedDot(value);
+        if (dot >= 0) {
+            value = value.substring(dot + 1);
+        }
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            if ((first == '`' && last == '`') || (first == '"' && last == '"') || (first == '[' && last == ']')) {
+                value = value.substring(1, value.length() - 1);
+            }
+        }
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int lastUnquotedDot(String value) {
+        boolean quoted = false;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            char c = value.charAt(i);
+            if (c == '`' || c == '"' || c == ']' || c == '[') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int paramIndex = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("unterminated comment");
+                }
+                i = end + 2;
+            } else if (c == '\'') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("unterminated string");
+                    }
+                    char ch = sql.charAt(i);
+                    if (ch == '\'' && i + 1 < length && sql.charAt(i + 1) == '\'') {
+                        value.append('\'');
+                        i += 2;
+                    } else if (ch == '\'') {
+                        i++;
+                        break;
+                    } else {
+                        value.append(ch);
+                        i++;
+                    }
+                }
+                tokens.add(new Token(TokenType.STRING, value.toString(), -1));
+            } else if (c == '`' || c == '"' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int end = sql.indexOf(close, i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("unterminated identifier");
+                }
+                tokens.add(new Token(TokenType.WORD, sql.substring(i, end + 1), -1));
+                i = end + 1;
+            } else if (c == '?') {
+                tokens.add(new Token(TokenType.PARAM, "?", paramIndex++));
+                i++;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(sql.charAt(i + 1))
+                    && (tokens.isEmpty() || tokens.get(tokens.size() - 1).type == TokenType.SYMBOL
+                    || tokens.get(tokens.size() - 1).is("=")))) {
+                int start = i++;
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, sql.substring(start, i), -1));
+            } else if (Character.isLetter(c) || c == '_' || c == '$' || c == '#') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                        || sql.charAt(i) == '$' || sql.charAt(i) == '#')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.WORD, sql.substring(start, i), -1));
+            } else if (c == '(' || c == ')' || c == ',' || c == '.' || c == ';') {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), -1));
+                i++;
+            } else if (c == '=') {
+                tokens.add(new Token(TokenType.SYMBOL, "=", -1));
+                i++;
+            } else {
+                int start = i;
+                while (i < length && "<>!+-*/%|&^~:".indexOf(sql.charAt(i)) >= 0) {
+                    i++;
+                }
+                if (i == start) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.OPERATOR, sql.substring(start, i), -1));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 将主键集合按顺序展开为预编译语句参数
+     */
+    static List<Object> flatten(Collection<List<Object>> keys) {
+        List<Object> values = new ArrayList<>();
+        for (List<Object> key : keys) {
+            values.addAll(key);
+        }
+        return values;
+    }
+
+    enum TokenType {
+        WORD, STRING, NUMBER, PARAM, SYMBOL, OPERATOR
+    }
+
+    record Token(TokenType type, String text, int paramIndex) {
+
+        boolean is(String value) {
+            return (type == TokenType.SYMBOL || type == TokenType.OPERATOR) && text.equals(value);
+        }
+
+        String upper() {
+            return type == TokenType.WORD ? text.toUpperCase(Locale.ROOT) : "";
+        }
+    }
+}
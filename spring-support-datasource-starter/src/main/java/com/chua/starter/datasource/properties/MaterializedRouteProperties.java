@@ -46,6 +46,22 @@ public class MaterializedRouteProperties {
      */
     private String cacheDataSourcePrefix = "materialized#";
 
+    /**
+     * 副本允许的最大陈旧时间，单位毫秒。
+     * 存在早于该时间仍未应用到副本的写入时查询回源库；小于等于 0 时有任何未应用写入即回源库。
+     */
+    private long maxStalenessMillis = 0L;
+
+    /**
+     * 副本增量维护的批处理间隔，单位毫秒。
+     */
+    private long maintenanceIntervalMillis = 100L;
+
+    /**
+     * 单批次合并的最大主键数，超出后改为整表重载。
+     */
+    private int maxBatchKeys = 500;
+
     public static MaterializedRouteProperties bind(Environment environment) {
         MaterializedRouteProperties current = Binder.get(environment).bindOrCreate(PRE, MaterializedRouteProperties.class);
         MaterializedRouteProperties legacy = Binder.get(environment).bindOrCreate(LEGACY_PRE, MaterializedRouteProperties.class);
@@ -61,6 +77,12 @@ public class MaterializedRouteProperties {
                 current.isSkipQueryInTransaction(), legacy.isSkipQueryInTransaction()));
         result.setCacheDataSourcePrefix(readString(environment, PRE + ".cache-data-source-prefix", LEGACY_PRE + ".cache-data-source-prefix",
                 current.getCacheDataSourcePrefix(), legacy.getCacheDataSourcePrefix()));
+        result.setMaxStalenessMillis(readLong(environment, PRE + ".max-staleness-millis", LEGACY_PRE + ".max-staleness-millis",
+                current.getMaxStalenessMillis(), legacy.getMaxStalenessMillis()));
+        result.setMaintenanceIntervalMillis(readLong(environment, PRE + ".maintenance-interval-millis", LEGACY_PRE + ".maintenance-interval-millis",
+                current.getMaintenanceIntervalMillis(), legacy.getMaintenanceIntervalMillis()));
+        result.setMaxBatchKeys((int) readLong(environment, PRE + ".max-batch-keys", LEGACY_PRE + ".max-batch-keys",
+                current.getMaxBatchKeys(), legacy.getMaxBatchKeys()));
         return result;
     }
 
@@ -111,6 +133,9 @@ public class MaterializedRouteProperties {
         options.setDefaultThreshold(defaultThreshold);
         options.setRefreshIntervalSeconds(refreshIntervalSeconds);
         options.setCacheDataSourcePrefix(cacheDataSourcePrefix);
+        options.setMaxStalenessMillis(maxStalenessMillis);
+        options.setMaintenanceIntervalMillis(maintenanceIntervalMillis);
+        options.setMaxBatchKeys(maxBatchKeys);
         return options;
     }
 }
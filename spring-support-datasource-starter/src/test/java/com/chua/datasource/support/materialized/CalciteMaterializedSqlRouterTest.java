@@ -0,0 +1,241 @@
+package com.chua.datasource.support.materialized;
+
+import com.chua.common.support.data.materialized.MaterializedRouteDefinition;
+import com.chua.common.support.data.materialized.MaterializedSqlCommandType;
+import com.chua.common.support.data.materialized.MaterializedSqlOptions;
+import com.chua.common.support.data.materialized.MaterializedSqlRequest;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class CalciteMaterializedSqlRouterTest {
+
+    private static final MaterializedRouteDefinition DEFINITION = new MaterializedRouteDefinition(100L, null);
+
+    private JdbcDataSource source;
+    private JdbcDataSource replica;
+    private CalciteMaterializedSqlRouter router;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = dataSource();
+        replica = dataSource();
+        execute(source, "CREATE TABLE sys_dict (id BIGINT PRIMARY KEY, name VARCHAR(64))");
+        execute(replica, "CREATE TABLE sys_dict (id BIGINT PRIMARY KEY, name VARCHAR(64))");
+        execute(source, "INSERT INTO sys_dict (id, name) VALUES (1, 'a'), (2, 'b')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    void shouldLoadReplicaBeforeRouting() throws Exception {
+        router = router(10L, 0L);
+
+        await(() -> router.route(select(DEFINITION)).isRouted());
+
+        assertThat(router.route(select(DEFINITION)).getDataSource()).isEqualTo("materialized#sys_dict");
+        assertThat(rows(replica)).containsExactly(Map.entry(1L, "a"), Map.entry(2L, "b"));
+    }
+
+    @Test
+    void shouldApplyCoalescedWritesByPrimaryKey() throws Exception {
+        router = router(10L, 0L);
+        await(() -> router.route(select(DEFINITION)).isRouted());
+
+        write(MaterializedSqlCommandType.UPDATE, "UPDATE sys_dict SET name = ? WHERE id = ?", "a2", 1L);
+        write(MaterializedSqlCommandType.UPDATE, "UPDATE sys_dict SET name = ? WHERE id = ?", "a3", 1L);
+        write(MaterializedSqlCommandType.DELETE, "DELETE FROM sys_dict WHERE id IN (?)", 2L);
+        write(MaterializedSqlCommandType.INSERT, "INSERT INTO sys_dict (id, name) VALUES (?, ?)", 3L, "c");
+
+        await(() -> router.route(select(DEFINITION)).isRouted());
+        assertThat(rows(replica)).containsExactly(Map.entry(1L, "a3"), Map.entry(3L, "c"));
+    }
+
+    @Test
+    void shouldReloadTableWhenKeysCannotBeParsed() throws Exception {
+        router = router(10L, 0L);
+        await(() -> router.route(select(DEFINITION)).isRouted());
+
+        write(MaterializedSqlCommandType.UPDATE, "UPDATE sys_dict SET name = UPPER(name) WHERE name LIKE ?", "%");
+
+        await(() -> router.route(select(DEFINITION)).isRouted());
+        assertThat(rows(replica)).containsExactly(Map.entry(1L, "A"), Map.entry(2L, "B"));
+    }
+
+    @Test
+    void shouldRespectStalenessBound() throws Exception {
+        // 批处理间隔足够长，首次加载后的写入在测试期间不会被应用
+        router = router(60_000L, 0L);
+        await(() -> router.route(select(DEFINITION)).isRouted());
+
+        write(MaterializedSqlCommandType.UPDATE, "UPDATE sys_dict SET name = ? WHERE id = ?", "a2", 1L);
+
+        assertThat(router.route(select(DEFINITION)).isRouted()).isFalse();
+        assertThat(rows(replica)).containsEntry(1L, "a");
+
+        router.close();
+        router = router(60_000L, 60_000L);
+        await(() -> router.route(select(DEFINITION)).isRouted());
+        write(MaterializedSqlCommandType.UPDATE, "UPDATE sys_dict SET name = ? WHERE id = ?", "a3", 1L);
+
+        assertThat(router.route(select(DEFINITION)).isRouted()).isTrue();
+    }
+
+    @Test
+    void shouldNotRouteWhenSourceExceedsThreshold() throws Exception {
+        router = router(10L, 0L);
+        MaterializedRouteDefinition small = new MaterializedRouteDefinition(1L, null);
+
+        long deadline = System.currentTimeMillis() + 300L;
+        while (System.currentTimeMillis() < deadline) {
+            assertThat(router.route(select(small)).isRouted()).isFalse();
+            Thread.sleep(20L);
+        }
+        assertThat(rows(replica)).isEmpty();
+    }
+
+    @Test
+    void shouldExtractPrimaryKeysFromWrites() {
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO `sys_dict` (`id`, `name`) VALUES (?, ?), (?, ?)", List.of(1L, "a", 2L, "b"), List.of("ID")))
+                .containsExactly(List.of(1L), List.of(2L));
+        assertThat(MaterializedWriteParser.extractKeys(
+                "UPDATE sys_dict SET name = 'it''s ?' WHERE id = ? AND deleted = 0", List.of(5L), List.of("id")))
+                .containsExactly(List.of(5L));
+        assertThat(MaterializedWriteParser.extractKeys(
+                "UPDATE t SET v = ? WHERE a = ? AND b = ?", List.of(0, 1, 2), List.of("a", "b")))
+                .containsExactly(List.of(1, 2));
+        assertThat(MaterializedWriteParser.extractKeys(
+                "DELETE FROM sys_dict WHERE id = 1 OR id = 2", List.of(), List.of("id"))).isNull();
+        assertThat(MaterializedWriteParser.extractKeys(
+                "UPDATE sys_dict SET id = ? WHERE id = ?", List.of(6L, 5L), List.of("id"))).isNull();
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO sys_dict (name) VALUES (?)", List.of("a"), List.of("id")))
+                .isSameAs(MaterializedWriteParser.APPEND);
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO t (b, v) VALUES (?, ?)", List.of(1, 2), List.of("a", "b"))).isNull();
+    }
+
+    @Test
+    void shouldFallBackForWritesThatMayTouchOtherRows() {
+        assertThat(MaterializedWriteParser.extractKeys(
+                "REPLACE INTO sys_dict (id, name) VALUES (?, ?)", List.of(1L, "a"), List.of("id"))).isNull();
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO sys_dict (id, name) VALUES (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)",
+                List.of(1L, "a"), List.of("id"))).isNull();
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO sys_dict (name) VALUES (?) ON CONFLICT DO NOTHING", List.of("a"), List.of("id"))).isNull();
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO sys_dict (id, name) VALUES (?, ?);", List.of(1L, "a"), List.of("id")))
+                .containsExactly(List.of(1L));
+        assertThat(MaterializedWriteParser.extractKeys(
+                "INSERT INTO sys_dict (name) VALUES (?) RETURNING id", List.of("a"), List.of("id")))
+                .isSameAs(MaterializedWriteParser.APPEND);
+    }
+
+    @Test
+    void shouldRefreshAutoIncrementInsertsByKeyRange() throws Exception {
+        execute(source, "CREATE SEQUENCE sys_dict_seq START WITH 100");
+        execute(source, "ALTER TABLE sys_dict ALTER COLUMN id SET DEFAULT NEXT VALUE FOR sys_dict_seq");
+        router = router(10L, 0L);
+        await(() -> router.route(select(DEFINITION)).isRouted());
+        // 未登记的修改只会被整表重载带到副本，用来确认没有整表重载
+        execute(source, "UPDATE sys_dict SET name = 'untracked' WHERE id = 1");
+
+        write(MaterializedSqlCommandType.INSERT, "INSERT INTO sys_dict (name) VALUES (?)", "c");
+        write(MaterializedSqlCommandType.INSERT, "INSERT INTO sys_dict (name) VALUES (?), (?)", "d", "e");
+
+        await(() -> router.route(select(DEFINITION)).isRouted());
+        assertThat(rows(replica)).containsExactly(Map.entry(1L, "a"), Map.entry(2L, "b"),
+                Map.entry(100L, "c"), Map.entry(101L, "d"), Map.entry(102L, "e"));
+    }
+
+    private CalciteMaterializedSqlRouter router(long maintenanceIntervalMillis, long maxStalenessMillis) {
+        MaterializedSqlOptions options = new MaterializedSqlOptions();
+        options.setRefreshIntervalSeconds(0L);
+        options.setMaintenanceIntervalMillis(maintenanceIntervalMillis);
+        options.setMaxStalenessMillis(maxStalenessMillis);
+        return new CalciteMaterializedSqlRouter(options, source,
+                name -> "materialized#sys_dict".equals(name) ? replica : source);
+    }
+
+    private void write(MaterializedSqlCommandType commandType, String sql, Object... parameters) throws SQLException {
+        MaterializedSqlRequest.MaterializedSqlRequestBuilder builder = MaterializedSqlRequest.builder()
+                .sql(sql)
+                .commandType(commandType)
+                .definition(DEFINITION)
+                .table("sys_dict");
+        for (Object parameter : parameters) {
+            builder.parameter(parameter);
+        }
+        execute(source, sql, parameters);
+        router.onWriteSuccess(builder.build());
+    }
+
+    private static MaterializedSqlRequest select(MaterializedRouteDefinition definition) {
+        return MaterializedSqlRequest.builder()
+                .sql("SELECT id, name FROM sys_dict")
+                .commandType(MaterializedSqlCommandType.SELECT)
+                .definition(definition)
+                .table("sys_dict")
+                .build();
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static void execute(JdbcDataSource dataSource, String sql, Object... parameters) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.execute();
+        }
+    }
+
+    private static Map<Long, String> rows(JdbcDataSource dataSource) throws SQLException {
+        Map<Long, String> rows = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, name FROM sys_dict ORDER BY id")) {
+            while (resultSet.next()) {
+                rows.put(resultSet.getLong(1), resultSet.getString(2));
+            }
+        }
+        return rows;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("等待副本同步超时");
+            }
+            Thread.sleep(10L);
+        }
+    }
+}
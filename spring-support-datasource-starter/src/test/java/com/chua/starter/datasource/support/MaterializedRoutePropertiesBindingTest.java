@@ -14,7 +14,8 @@ class MaterializedRoutePropertiesBindingTest {
                 .withProperty("plugin.datasource.materialized.enabled", "true")
                 .withProperty("plugin.datasource.materialized.default-threshold", "256")
                 .withProperty("plugin.datasource.materialized.refresh-interval-seconds", "120")
-                .withProperty("plugin.datasource.materialized.cache-data-source-prefix", "mem#");
+                .withProperty("plugin.datasource.materialized.cache-data-source-prefix", "mem#")
+                .withProperty("plugin.datasource.materialized.max-staleness-millis", "200");
 
         MaterializedRouteProperties properties = MaterializedRouteProperties.bind(environment);
 
@@ -22,6 +23,8 @@ class MaterializedRoutePropertiesBindingTest {
         assertThat(properties.getDefaultThreshold()).isEqualTo(256L);
         assertThat(properties.getRefreshIntervalSeconds()).isEqualTo(120L);
         assertThat(properties.getCacheDataSourcePrefix()).isEqualTo("mem#");
+        assertThat(properties.getMaxStalenessMillis()).isEqualTo(200L);
+        assertThat(properties.toOptions().getMaxStalenessMillis()).isEqualTo(200L);
     }
 
     @Test
@@ -95,6 +95,8 @@ public class JobConfiguration {
 
         // 初始化日志文件存储路径
         JobFileAppender.initLogPath(jobProperties.getLogPath());
+        JobFileAppender.initLogOptions(jobProperties.getLogFlushIntervalMs(),
+                jobProperties.getLogMaxFileBytes(), jobProperties.isLogCompressEnabled());
 
         log.info("[Job] 调度器初始化完成 [{}], 线程池: {}, 日志路径: {}", 
                 enabled(), highlight(jobProperties.getPoolSize()), highlight(jobProperties.getLogPath()));
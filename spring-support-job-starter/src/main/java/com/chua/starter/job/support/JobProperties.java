@@ -20,11 +20,17 @@ import org.springframework.util.StringUtils;
  *     pool-size: 10                   # 调度线程池大小
  *     log-path: /data/applogs/job     # 日志存储路径
  *     log-retention-days: 30          # 日志保留天数
+ *     log-flush-interval-ms: 1000     # 日志刷盘间隔（毫秒）
+ *     log-max-file-bytes: 0           # 单个日志文件大小上限，超出后滚动（0 不滚动）
+ *     log-compress-enabled: false     # 执行结束后 gzip 压缩日志
  *     backup-retention-days: 90       # 备份保留天数
  *     auto-backup-enabled: true       # 启用自动备份
  *     auto-backup-cron: 0 0 3 * * ?   # 自动备仼CRON
  *     trigger-pool-fast-max: 200      # 快速线程池最大线程数
  *     trigger-pool-slow-max: 100      # 慢速线程池最大线程数
+ *     pre-read-ms: 5000               # 调度预读时间窗口（毫秒）
+ *     timing-wheel-tick-ms: 100       # 时间轮最小刻度（毫秒）
+ *     timing-wheel-size: 100          # 时间轮每层槽数
  *     job-annotation-sync-mode: UPDATE # 自动解析 @Job 到配置表
  *     scheduled-annotation-sync-mode: CREATE # 自动解析 @Scheduled 到配置表
  *     table-init-mode: UPDATE         # 使用 JdbcEngine 初始化/校验表结构
@@ -86,6 +92,24 @@ public class JobProperties {
      */
     private int logRetentionDays = 30;
 
+    /**
+     * 日志刷盘间隔（毫秒）
+     * <p>任务日志先写入缓冲区，按该间隔刷盘，执行结束时立即刷盘。小于等于0时每行立即刷盘。默认: 1000</p>
+     */
+    private long logFlushIntervalMs = 1000;
+
+    /**
+     * 单个日志文件大小上限（字节）
+     * <p>超出后滚动到 {@code xxx.log.1}、{@code xxx.log.2} ...，读取时自动合并。小于等于0时不滚动。默认: 0</p>
+     */
+    private long logMaxFileBytes = 0;
+
+    /**
+     * 执行结束后是否 gzip 压缩日志文件
+     * <p>默认: false</p>
+     */
+    private boolean logCompressEnabled = false;
+
     /**
      * 备份文件保留天数
      * <p>超过此天数的备份文件将被删除。默认: 90天</p>
@@ -116,6 +140,24 @@ public class JobProperties {
      */
     private int triggerPoolSlowMax = 100;
 
+    /**
+     * 调度预读时间窗口（毫秒）
+     * <p>核心调度线程每次扫描读取该窗口内到期的任务并推送到时间轮，窗口越大数据库往返越少。最小1000，默认: 5000</p>
+     */
+    private long preReadMs = 5000;
+
+    /**
+     * 时间轮最小刻度（毫秒）
+     * <p>决定任务触发精度，任务最多延后一个刻度触发。默认: 100</p>
+     */
+    private long timingWheelTickMs = 100;
+
+    /**
+     * 时间轮每层槽数
+     * <p>最底层覆盖 tick * size 毫秒，超出部分由上层时间轮承载。默认: 100</p>
+     */
+    private int timingWheelSize = 100;
+
     /**
      * @Job 注解自动同步到配置表的策略。
      */
@@ -1,11 +1,13 @@
 package com.chua.starter.job.support;
 
 import com.chua.starter.job.support.log.DefaultJobLog;
+import com.chua.starter.job.support.log.JobFileAppender;
 
+import java.io.BufferedReader;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -76,12 +78,9 @@ public class ScriptUtil {
      * @throws IOException IO异常
      */
     public static int execToFile(String command, String scriptFile, String logFile, String... params) throws IOException {
-        FileOutputStream fileOutputStream = null;
         Thread inputThread = null;
         Thread errThread = null;
         try {
-            fileOutputStream = new FileOutputStream(logFile, true);
-
             List<String> cmdarray = new ArrayList<>();
             cmdarray.add(command);
             cmdarray.add(scriptFile);
@@ -92,17 +91,17 @@ public class ScriptUtil {
 
             final Process process = Runtime.getRuntime().exec(cmdarrayFinal);
 
-            final FileOutputStream finalFileOutputStream = fileOutputStream;
+            // 输出经由 JobFileAppender 写入，与任务日志共用同一个缓冲写入器和行索引
             inputThread = new Thread(() -> {
                 try {
-                    copy(process.getInputStream(), finalFileOutputStream, new byte[1024]);
+                    copyLines(process.getInputStream(), logFile);
                 } catch (IOException e) {
                     DefaultJobLog.log(e.getMessage());
                 }
             });
             errThread = new Thread(() -> {
                 try {
-                    copy(process.getErrorStream(), finalFileOutputStream, new byte[1024]);
+                    copyLines(process.getErrorStream(), logFile);
                 } catch (IOException e) {
                     DefaultJobLog.log(e.getMessage());
                 }
@@ -120,13 +119,6 @@ public class ScriptUtil {
             DefaultJobLog.log(e.getMessage());
             return -1;
         } finally {
-            if (fileOutputStream != null) {
-                try {
-                    fileOutputStream.close();
-                } catch (IOException e) {
-                    DefaultJobLog.log(e.getMessage());
-                }
-            }
             if (inputThread != null && inputThread.isAlive()) {
                 inputThread.interrupt();
             }
@@ -136,27 +128,11 @@ public class ScriptUtil {
         }
     }
 
-    private static long copy(InputStream inputStream, OutputStream outputStream, byte[] buffer) throws IOException {
-        try {
-            long total = 0;
-            for (; ; ) {
-                int res = inputStream.read(buffer);
-                if (res == -1) {
-                    break;
-                }
-                if (res > 0) {
-                    total += res;
-                    if (outputStream != null) {
-                        outputStream.write(buffer, 0, res);
-                    }
-                }
-            }
-            outputStream.flush();
-            inputStream.close();
-            return total;
-        } finally {
-            if (inputStream != null) {
-                inputStream.close();
+    private static void copyLines(InputStream inputStream, String logFile) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JobFileAppender.appendLog(logFile, line);
             }
         }
     }
@@ -4,10 +4,21 @@ import com.chua.common.support.core.utils.FileUtils;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 任务日志文件处理器
@@ -27,11 +38,23 @@ import java.util.Date;
  *   └── gluesource/      (脚本源码目录)
  * </pre>
  *
+ * <h3>写入与读取</h3>
+ * <ul>
+ *     <li>每个日志文件对应一个缓冲写入器（{@link JobLogWriter}），后台线程按 {@code plugin.job.log-flush-interval-ms} 定时刷盘，
+ *     执行结束时由 {@link #closeLog(String)} 关闭；长时间无写入的写入器也会被自动关闭</li>
+ *     <li>写入时维护稀疏行索引（{@link JobLogIndex}），{@link #readLog(String, int)} 直接定位到起始行附近，
+ *     控制台增量轮询不再从第一行扫描</li>
+ *     <li>可选按大小滚动（{@code plugin.job.log-max-file-bytes}）与结束后 gzip 压缩（{@code plugin.job.log-compress-enabled}），
+ *     读取时透明合并各分片</li>
+ * </ul>
+ *
  * <h3>主要方法</h3>
  * <ul>
  *     <li>{@link #initLogPath(String)} - 初始化日志路径</li>
+ *     <li>{@link #initLogOptions(long, long, boolean)} - 初始化刷盘、滚动与压缩配置</li>
  *     <li>{@link #makeLogFileName(Date, long)} - 生成日志文件名</li>
  *     <li>{@link #appendLog(String, String)} - 追加日志内容</li>
+ *     <li>{@link #closeLog(String)} - 执行结束，关闭日志</li>
  *     <li>{@link #readLog(String, int)} - 读取日志内容</li>
  * </ul>
  *
@@ -50,6 +73,22 @@ public class JobFileAppender {
     private static String logBasePath = "/data/applogs/job/jobhandler";
     private static String glueSrcPath = logBasePath.concat("/gluesource");
 
+    /**
+     * 长时间无写入的写入器自动关闭的阈值
+     */
+    private static final long IDLE_CLOSE_MS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 活跃的写入器，key 为日志文件绝对路径
+     */
+    private static final Map<String, JobLogWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private static volatile long flushIntervalMs = 1000;
+    private static volatile long maxFileBytes = 0;
+    private static volatile boolean compressEnabled = false;
+    private static ScheduledExecutorService flusher;
+    private static boolean shutdownHookRegistered;
+
     /**
      * 初始化日志路径
      *
@@ -74,6 +113,27 @@ public class JobFileAppender {
         glueSrcPath = glueBaseDir.getPath();
     }
 
+    /**
+     * 初始化日志写入配置
+     *
+     * @param flushIntervalMs 刷盘间隔（毫秒），小于等于0时每次写入立即刷盘
+     * @param maxFileBytes    单个日志文件大小上限（字节），小于等于0时不滚动
+     * @param compressEnabled 执行结束后是否 gzip 压缩日志
+     */
+    public static synchronized void initLogOptions(long flushIntervalMs, long maxFileBytes, boolean compressEnabled) {
+        JobFileAppender.flushIntervalMs = flushIntervalMs;
+        JobFileAppender.maxFileBytes = maxFileBytes;
+        JobFileAppender.compressEnabled = compressEnabled;
+        if (flusher != null) {
+            // 按新的间隔重新调度
+            flusher.shutdown();
+            flusher = null;
+            if (!WRITERS.isEmpty()) {
+                ensureFlusher();
+            }
+        }
+    }
+
     public static String getLogPath() {
         return logBasePath;
     }
@@ -141,27 +201,53 @@ public class JobFileAppender {
             return;
         }
         File logFile = new File(logFileName);
+        byte[] bytes = ((appendLog == null ? "" : appendLog) + "\r\n").getBytes(StandardCharsets.UTF_8);
+        String key = logFile.getAbsolutePath();
 
-        FileUtils.mkParentDirs(logFile);
-        if (!logFile.exists()) {
+        // 写入器可能恰好被关闭，重试一次时会重新打开
+        for (int attempt = 0; attempt < 2; attempt++) {
+            JobLogWriter writer = WRITERS.computeIfAbsent(key, k -> openWriter(logFile));
+            if (writer == null) {
+                return;
+            }
             try {
-                logFile.createNewFile();
+                if (writer.append(bytes)) {
+                    if (flushIntervalMs <= 0) {
+                        writer.flush();
+                    }
+                    return;
+                }
             } catch (IOException e) {
                 log.error(e.getMessage(), e);
                 return;
             }
+            WRITERS.remove(key, writer);
         }
+    }
 
-        if (appendLog == null) {
-            appendLog = "";
+    /**
+     * 执行结束，刷盘并关闭日志；开启压缩时在后台压缩各分片
+     *
+     * @param logFileName 日志文件名
+     */
+    public static void closeLog(String logFileName) {
+        if (logFileName == null || logFileName.trim().isEmpty()) {
+            return;
         }
-        appendLog += "\r\n";
-
-        try (FileOutputStream fos = new FileOutputStream(logFile, true)) {
-            fos.write(appendLog.getBytes(StandardCharsets.UTF_8));
-            fos.flush();
-        } catch (Exception e) {
+        File logFile = new File(logFileName);
+        JobLogWriter writer = WRITERS.remove(logFile.getAbsolutePath());
+        if (writer == null) {
+            return;
+        }
+        int parts;
+        try {
+            parts = writer.close();
+        } catch (IOException e) {
             log.error(e.getMessage(), e);
+            return;
+        }
+        if (compressEnabled) {
+            ensureFlusher().execute(() -> compress(logFile, parts));
         }
     }
 
@@ -178,26 +264,185 @@ public class JobFileAppender {
         }
         File logFile = new File(logFileName);
 
-        if (!logFile.exists()) {
+        List<JobLogIndex> parts;
+        try {
+            JobLogWriter writer = WRITERS.get(logFile.getAbsolutePath());
+            parts = writer != null ? writer.snapshot() : JobLogWriter.loadIndexes(logFile);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return new LogResult(fromLineNum, 0, "读取日志失败: " + e.getMessage(), true);
+        }
+        if (parts.isEmpty()) {
             return new LogResult(fromLineNum, 0, "读取日志失败，日志文件不存在", true);
         }
 
         StringBuilder logContentBuffer = new StringBuilder();
-        int toLineNum = 0;
-        try (LineNumberReader reader = new LineNumberReader(
-                new InputStreamReader(Files.newInputStream(logFile.toPath()), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                toLineNum = reader.getLineNumber();
-                if (toLineNum >= fromLineNum) {
-                    logContentBuffer.append(line).append("\n");
+        long lineBase = 0;
+        for (int part = 0; part < parts.size(); part++) {
+            JobLogIndex index = parts.get(part);
+            long partLines = index.lines();
+            if (fromLineNum <= lineBase + partLines) {
+                try {
+                    readPart(logFile, part, index, fromLineNum - lineBase, logContentBuffer);
+                } catch (IOException e) {
+                    log.error(e.getMessage(), e);
                 }
             }
+            lineBase += partLines;
+        }
+
+        return new LogResult(fromLineNum, (int) lineBase, logContentBuffer.toString(), false);
+    }
+
+    /**
+     * 读取分片中从指定行开始的内容
+     *
+     * @param fromLine 分片内起始行号（从1开始）
+     */
+    private static void readPart(File logFile, int part, JobLogIndex index, long fromLine, StringBuilder buffer) throws IOException {
+        File plain = JobLogWriter.partFile(logFile, part);
+        if (plain.exists()) {
+            long[] seek = index.seek(fromLine);
+            try (FileChannel channel = FileChannel.open(plain.toPath(), StandardOpenOption.READ)) {
+                channel.position(seek[0]);
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+                readLines(in, index.length() - seek[0], seek[1], fromLine, buffer);
+            }
+            return;
+        }
+        File compressed = JobLogWriter.compressedPartFile(logFile, part);
+        if (compressed.exists()) {
+            try (InputStream in = JobLogIndex.open(compressed)) {
+                readLines(in, index.length(), 1, fromLine, buffer);
+            }
+        }
+    }
+
+    private static void readLines(InputStream in, long limit, long lineNum, long fromLine, StringBuilder buffer) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long remaining = limit;
+        int b;
+        while (remaining > 0 && (b = in.read()) != -1) {
+            remaining--;
+            if (b != '\n') {
+                if (lineNum >= fromLine) {
+                    line.write(b);
+                }
+                continue;
+            }
+            if (lineNum >= fromLine) {
+                appendLine(line, buffer);
+            }
+            lineNum++;
+        }
+        if (line.size() > 0) {
+            appendLine(line, buffer);
+        }
+    }
+
+    private static void appendLine(ByteArrayOutputStream line, StringBuilder buffer) {
+        String text = line.toString(StandardCharsets.UTF_8);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        buffer.append(text).append("\n");
+        line.reset();
+    }
+
+    private static JobLogWriter openWriter(File logFile) {
+        FileUtils.mkParentDirs(logFile);
+        try {
+            JobLogWriter writer = new JobLogWriter(logFile, maxFileBytes);
+            ensureFlusher();
+            return writer;
         } catch (IOException e) {
             log.error(e.getMessage(), e);
+            return null;
         }
+    }
+
+    private static synchronized ScheduledExecutorService ensureFlusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "job-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(100, flushIntervalMs);
+            flusher.scheduleWithFixedDelay(JobFileAppender::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+            registerShutdownHook();
+        }
+        return flusher;
+    }
 
-        return new LogResult(fromLineNum, toLineNum, logContentBuffer.toString(), false);
+    private static void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            shutdownHookRegistered = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(JobFileAppender::closeAll, "job-log-shutdown"));
+        }
+    }
+
+    private static void flushAll() {
+        long now = System.currentTimeMillis();
+        WRITERS.forEach((key, writer) -> {
+            try {
+                if (now - writer.getLastAccessMillis() > IDLE_CLOSE_MS) {
+                    // 长时间无写入视为执行已结束但未显式关闭，仅关闭不压缩
+                    if (WRITERS.remove(key, writer)) {
+                        writer.close();
+                    }
+                } else {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                log.warn("刷新任务日志失败: {}, {}", key, e.getMessage());
+            }
+        });
+    }
+
+    private static void closeAll() {
+        WRITERS.forEach((key, writer) -> {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // 进程退出中，忽略
+            }
+        });
+        WRITERS.clear();
+    }
+
+    private static void compress(File logFile, int parts) {
+        for (int part = 0; part < parts; part++) {
+            File plain = JobLogWriter.partFile(logFile, part);
+            if (!plain.exists()) {
+                continue;
+            }
+            File target = JobLogWriter.compressedPartFile(logFile, part);
+            File temp = new File(target.getPath() + ".tmp");
+            try {
+                try (InputStream in = Files.newInputStream(plain.toPath());
+                     OutputStream out = new GZIPOutputStream(new FileOutputStream(temp), 64 * 1024)) {
+                    in.transferTo(out);
+                }
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                if (!WRITERS.containsKey(logFile.getAbsolutePath())) {
+                    Files.deleteIfExists(plain.toPath());
+                }
+            } catch (IOException e) {
+                log.warn("压缩任务日志失败: {}, {}", plain, e.getMessage());
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * 是否为任务日志文件（含滚动分片与压缩文件，不含索引文件）
+     *
+     * @param fileName 文件名
+     * @return 是否为日志文件
+     */
+    public static boolean isLogFile(String fileName) {
+        return fileName != null && !fileName.endsWith(".idx") && !fileName.endsWith(".tmp") && fileName.contains(".log");
     }
 
     /**
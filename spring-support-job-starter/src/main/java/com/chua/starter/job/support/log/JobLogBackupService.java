@@ -248,7 +248,7 @@ public class JobLogBackupService {
                 String datePath = current.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
                 File dateDir = new File(logBasePath, datePath);
                 if (dateDir.exists() && dateDir.isDirectory()) {
-                    File[] logFiles = dateDir.listFiles((dir, name) -> name.endsWith(".log"));
+                    File[] logFiles = dateDir.listFiles((dir, name) -> JobFileAppender.isLogFile(name));
                     if (logFiles != null) {
                         for (File logFile : logFiles) {
                             ZipEntry fileEntry = new ZipEntry("files/" + datePath + "/" + logFile.getName());
@@ -28,6 +28,11 @@ public class JobLogDetailService {
 
     private final SysJobLogDetailMapper jobLogDetailMapper;
 
+    /**
+     * 批量插入每批条数
+     */
+    private static final int BATCH_SIZE = 500;
+
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
     /**
@@ -196,6 +201,9 @@ public class JobLogDetailService {
 
     /**
      * 批量保存日志详情
+     * <p>
+     * 使用 MyBatis BATCH 执行器按 {@link #BATCH_SIZE} 条一批提交 JDBC 批量插入。
+     * </p>
      *
      * @param details 日志详情列表
      * @return 保存数量
@@ -205,16 +213,15 @@ public class JobLogDetailService {
             return 0;
         }
 
-        int count = 0;
+        LocalDateTime now = LocalDateTime.now();
         for (SysJobLogDetail detail : details) {
-            detail.setCreateTime(LocalDateTime.now());
+            detail.setCreateTime(now);
             if (detail.getJobLogDetailTime() == null) {
-                detail.setJobLogDetailTime(LocalDateTime.now());
+                detail.setJobLogDetailTime(now);
             }
-            jobLogDetailMapper.insert(detail);
-            count++;
         }
-        return count;
+        jobLogDetailMapper.insert(details, BATCH_SIZE);
+        return details.size();
     }
 
     /**
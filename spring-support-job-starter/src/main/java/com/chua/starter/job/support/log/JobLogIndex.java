@@ -0,0 +1,153 @@
+package com.chua.starter.job.support.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 任务日志稀疏行索引
+ * <p>
+ * 每 {@link #INTERVAL} 行记录一次行首字节偏移，按行号读取时先定位到最近的索引点再向后跳过不足一个间隔的行，
+ * 读取代价与起始行号无关。行以 {@code '\n'} 分隔，未以换行结尾的最后一段也计为一行。
+ * </p>
+ * <p>
+ * 一个日志文件滚动后由多个分片组成，每个分片对应一个索引；压缩后的分片只使用其中的行数。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025/01/08
+ * @see JobFileAppender
+ */
+final class JobLogIndex {
+
+    /**
+     * 索引间隔（行）
+     */
+    static final int INTERVAL = 256;
+
+    private long[] offsets = new long[8];
+    private int size;
+    private long newlines;
+    private long length;
+
+    /**
+     * 最后一个换行之后的偏移，小于 {@link #length} 时表示末尾存在未换行的内容
+     */
+    private long lastNewlineEnd;
+
+    JobLogIndex() {
+        offsets[size++] = 0;
+    }
+
+    /**
+     * 追加写入的字节
+     */
+    void update(byte[] bytes, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            if (bytes[off + i] == '\n') {
+                newlines++;
+                lastNewlineEnd = length + i + 1;
+                if (newlines % INTERVAL == 0) {
+                    if (size == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, size * 2);
+                    }
+                    offsets[size++] = length + i + 1;
+                }
+            }
+        }
+        length += len;
+    }
+
+    /**
+     * 分片字节数
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * 分片行数
+     */
+    long lines() {
+        return newlines + (length > lastNewlineEnd ? 1 : 0);
+    }
+
+    /**
+     * 不晚于指定行的最近索引点
+     *
+     * @param line 分片内行号（从1开始）
+     * @return [字节偏移, 该偏移处的行号]
+     */
+    long[] seek(long line) {
+        int k = (int) Math.min(Math.max(0, line - 1) / INTERVAL, size - 1);
+        return new long[]{offsets[k], (long) k * INTERVAL + 1};
+    }
+
+    JobLogIndex copy() {
+        JobLogIndex copy = new JobLogIndex();
+        copy.offsets = Arrays.copyOf(offsets, size);
+        copy.size = size;
+        copy.newlines = newlines;
+        copy.length = length;
+        copy.lastNewlineEnd = lastNewlineEnd;
+        return copy;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(length);
+        out.writeLong(newlines);
+        out.writeLong(lastNewlineEnd);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(offsets[i]);
+        }
+    }
+
+    static JobLogIndex readFrom(DataInputStream in) throws IOException {
+        JobLogIndex index = new JobLogIndex();
+        index.length = in.readLong();
+        index.newlines = in.readLong();
+        index.lastNewlineEnd = in.readLong();
+        int size = in.readInt();
+        if (size <= 0 || size > index.newlines / INTERVAL + 1) {
+            throw new IOException("日志索引已损坏");
+        }
+        index.offsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            index.offsets[i] = in.readLong();
+        }
+        index.size = size;
+        return index;
+    }
+
+    /**
+     * 扫描已有分片建立索引
+     *
+     * @param file 分片文件，{@code .gz} 结尾时按压缩流读取
+     */
+    static JobLogIndex scan(File file) throws IOException {
+        JobLogIndex index = new JobLogIndex();
+        try (InputStream in = open(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                index.update(buffer, 0, read);
+            }
+        }
+        return index;
+    }
+
+    static InputStream open(File file) throws IOException {
+        InputStream in = Files.newInputStream(file.toPath());
+        return file.getName().endsWith(".gz")
+                ? new GZIPInputStream(in, 64 * 1024)
+                : new BufferedInputStream(in, 64 * 1024);
+    }
+}
@@ -0,0 +1,232 @@
+package com.chua.starter.job.support.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单次执行的任务日志写入器
+ * <p>
+ * 日志先写入缓冲区，由 {@link JobFileAppender} 定时刷盘，执行结束时关闭并写出索引文件（{@code xxx.log.idx}）。
+ * 配置了单文件大小上限时按大小滚动，分片依次命名为 {@code xxx.log}、{@code xxx.log.1}、{@code xxx.log.2} ...
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025/01/08
+ * @see JobFileAppender
+ * @see JobLogIndex
+ */
+@Slf4j
+final class JobLogWriter {
+
+    private static final int INDEX_MAGIC = 0x4A4C4958;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final File base;
+    private final long maxPartBytes;
+    private final List<JobLogIndex> parts;
+    private OutputStream out;
+    private boolean closed;
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    JobLogWriter(File base, long maxPartBytes) throws IOException {
+        this.base = base;
+        this.maxPartBytes = maxPartBytes;
+        this.parts = new ArrayList<>(loadIndexes(base, false));
+        // 重新打开时旧索引即将失效
+        Files.deleteIfExists(indexFile(base).toPath());
+        if (parts.isEmpty() || !partFile(base, parts.size() - 1).exists()) {
+            // 无分片或最后一个分片已压缩，从新分片开始写
+            parts.add(new JobLogIndex());
+        }
+        this.out = openPart(parts.size() - 1);
+    }
+
+    /**
+     * 追加内容
+     *
+     * @return 写入器已关闭时返回 false
+     */
+    synchronized boolean append(byte[] data) throws IOException {
+        if (closed) {
+            return false;
+        }
+        JobLogIndex current = parts.get(parts.size() - 1);
+        if (maxPartBytes > 0 && current.length() > 0 && current.length() + data.length > maxPartBytes) {
+            out.close();
+            current = new JobLogIndex();
+            parts.add(current);
+            out = openPart(parts.size() - 1);
+        }
+        out.write(data);
+        current.update(data, 0, data.length);
+        lastAccessMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+
+    /**
+     * 刷盘并返回当前各分片索引的副本
+     */
+    synchronized List<JobLogIndex> snapshot() throws IOException {
+        flush();
+        List<JobLogIndex> copy = new ArrayList<>(parts.size());
+        for (JobLogIndex part : parts) {
+            copy.add(part.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * 关闭写入器并写出索引文件
+     *
+     * @return 分片数
+     */
+    synchronized int close() throws IOException {
+        if (closed) {
+            return parts.size();
+        }
+        closed = true;
+        try {
+            out.close();
+        } finally {
+            storeIndexes(base, parts);
+        }
+        return parts.size();
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    private OutputStream openPart(int part) throws IOException {
+        return new BufferedOutputStream(new FileOutputStream(partFile(base, part), true), BUFFER_SIZE);
+    }
+
+    private static void storeIndexes(File base, List<JobLogIndex> parts) throws IOException {
+        File target = indexFile(base);
+        // 多个读取方可能同时重建同一索引，各自写独立的临时文件后原子替换
+        File temp = File.createTempFile(target.getName() + ".", ".tmp", target.getAbsoluteFile().getParentFile());
+        try {
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                data.writeInt(INDEX_MAGIC);
+                data.writeInt(parts.size());
+                for (JobLogIndex part : parts) {
+                    part.writeTo(data);
+                }
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * 第 n 个分片的未压缩文件
+     */
+    static File partFile(File base, int part) {
+        return part == 0 ? base : new File(base.getPath() + "." + part);
+    }
+
+    /**
+     * 第 n 个分片的压缩文件
+     */
+    static File compressedPartFile(File base, int part) {
+        return new File(partFile(base, part).getPath() + ".gz");
+    }
+
+    static File indexFile(File base) {
+        return new File(base.getPath() + ".idx");
+    }
+
+    /**
+     * 加载日志各分片的索引
+     * <p>
+     * 优先读取索引文件，索引文件缺失或与分片大小不一致时扫描分片重建，并写回索引文件，
+     * 之后读取同一日志不再重复扫描。
+     * </p>
+     *
+     * @param base 日志文件
+     * @return 分片索引，日志不存在时为空
+     */
+    static List<JobLogIndex> loadIndexes(File base) throws IOException {
+        return loadIndexes(base, true);
+    }
+
+    /**
+     * 加载日志各分片的索引
+     *
+     * @param base    日志文件
+     * @param persist 扫描重建后是否写回索引文件；重新打开写入时索引随即失效，无需写回
+     * @return 分片索引，日志不存在时为空
+     */
+    private static List<JobLogIndex> loadIndexes(File base, boolean persist) throws IOException {
+        List<JobLogIndex> stored = readIndexFile(base);
+        if (stored != null) {
+            return stored;
+        }
+        List<JobLogIndex> scanned = new ArrayList<>();
+        for (int part = 0; ; part++) {
+            File plain = partFile(base, part);
+            File compressed = compressedPartFile(base, part);
+            if (plain.exists()) {
+                scanned.add(JobLogIndex.scan(plain));
+            } else if (compressed.exists()) {
+                scanned.add(JobLogIndex.scan(compressed));
+            } else {
+                break;
+            }
+        }
+        if (persist && !scanned.isEmpty()) {
+            try {
+                storeIndexes(base, scanned);
+            } catch (IOException e) {
+                // 索引只是加速读取，写回失败不影响本次结果
+                log.debug("日志索引写入失败: {}", indexFile(base), e);
+            }
+        }
+        return scanned;
+    }
+
+    private static List<JobLogIndex> readIndexFile(File base) {
+        File file = indexFile(base);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream data = new DataInputStream(JobLogIndex.open(file))) {
+            if (data.readInt() != INDEX_MAGIC) {
+                return null;
+            }
+            int count = data.readInt();
+            List<JobLogIndex> parts = new ArrayList<>(count);
+            for (int part = 0; part < count; part++) {
+                JobLogIndex index = JobLogIndex.readFrom(data);
+                File plain = partFile(base, part);
+                if (plain.exists() ? plain.length() != index.length() : !compressedPartFile(base, part).exists()) {
+                    return null;
+                }
+                parts.add(index);
+            }
+            return parts;
+        } catch (IOException e) {
+            log.debug("日志索引读取失败, 将重新扫描: {}", file, e);
+            return null;
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.chua.starter.job.support.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.chua.starter.job.support.entity.SysJob;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 /**
  * 定时任务Mapper接口
@@ -19,4 +23,25 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface SysJobMapper extends BaseMapper<SysJob> {
 
+    /**
+     * 批量更新任务触发信息（触发状态、上次触发时间、下次触发时间）
+     *
+     * @param jobs 任务列表
+     * @return 更新数量
+     */
+    @Update({"<script>",
+            "UPDATE sys_job SET",
+            "job_trigger_status = CASE job_id",
+            "<foreach collection='jobs' item='job'> WHEN #{job.jobId} THEN #{job.jobTriggerStatus,jdbcType=INTEGER} </foreach>",
+            "END,",
+            "job_trigger_last_time = CASE job_id",
+            "<foreach collection='jobs' item='job'> WHEN #{job.jobId} THEN #{job.jobTriggerLastTime,jdbcType=BIGINT} </foreach>",
+            "END,",
+            "job_trigger_next_time = CASE job_id",
+            "<foreach collection='jobs' item='job'> WHEN #{job.jobId} THEN #{job.jobTriggerNextTime,jdbcType=BIGINT} </foreach>",
+            "END",
+            "WHERE job_id IN",
+            "<foreach collection='jobs' item='job' open='(' separator=',' close=')'>#{job.jobId}</foreach>",
+            "</script>"})
+    int updateTriggerInfoBatch(@Param("jobs") List<SysJob> jobs);
 }
@@ -148,6 +148,10 @@ public class RemoteJobExecutorDispatchService {
                     EXECUTE_CODE_SUCCESS.equals(executeCode) ? "任务执行成功" : "任务执行失败"
             );
         } finally {
+            JobContext current = JobContext.getJobContext();
+            if (current != null) {
+                JobFileAppender.closeLog(current.getJobLogFileName());
+            }
             JobContext.removeJobContext();
             lock.unlock();
         }
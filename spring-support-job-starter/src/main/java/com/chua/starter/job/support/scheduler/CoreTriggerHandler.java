@@ -12,22 +12,22 @@ import java.util.concurrent.TimeUnit;
 
 import static com.chua.starter.job.support.scheduler.JobHelper.PRE_READ_MS;
 import static com.chua.starter.job.support.scheduler.JobHelper.generateNextValidTime;
-import static com.chua.starter.job.support.scheduler.RingTriggerHandler.pushTimeRing;
 
 /**
  * 核心调度处理器
  * <p>
  * 负责周期性扫描数据库中待执行的任务，根据任务的调度配置计算执行时间，
- * 并将任务推送到{@link RingTriggerHandler}时间环中等待触发。
+ * 并将任务推送到{@link RingTriggerHandler}时间轮中等待触发。
  * </p>
  *
  * <h3>调度流程</h3>
  * <ol>
- *     <li>每秒扫描数据库，预读未来5秒内需要执行的任务</li>
+ *     <li>每秒扫描数据库，预读未来 {@code plugin.job.pre-read-ms}（默认5秒）内需要执行的任务</li>
  *     <li>判断任务的触发时间与当前时间的关系</li>
  *     <li>超时超过5秒：根据失效策略处理</li>
  *     <li>超时不超5秒：立即触发执行</li>
- *     <li>未超时：推送到时间环等待执行</li>
+ *     <li>预读窗口内的全部触发点推送到时间轮（亚秒级的固定频率任务在一次扫描中可推送多个触发点）</li>
+ *     <li>本轮所有任务的触发信息合并为一条语句批量写回</li>
  * </ol>
  *
  * <h3>失效策略</h3>
@@ -38,7 +38,7 @@ import static com.chua.starter.job.support.scheduler.RingTriggerHandler.pushTime
  *
  * <h3>配置参数</h3>
  * <ul>
- *     <li>预读时间窗口：5秒 ({@link JobHelper#PRE_READ_MS})</li>
+ *     <li>预读时间窗口：{@code plugin.job.pre-read-ms}，默认 {@link JobHelper#PRE_READ_MS}</li>
  *     <li>预读数量：(快速线程池大小 + 慢速线程池大小) * 20</li>
  * </ul>
  *
@@ -53,7 +53,13 @@ import static com.chua.starter.job.support.scheduler.RingTriggerHandler.pushTime
 public class CoreTriggerHandler implements TriggerHandler, Runnable {
     private static final Logger log = LoggerFactory.getLogger(CoreTriggerHandler.class);
 
+    /**
+     * 单个任务在一次扫描中最多推送的触发点数，避免毫秒级固定频率任务占满时间轮
+     */
+    private static final int MAX_PUSH_PER_SCAN = 1000;
+
     private final JobProperties jobProperties;
+    private final RingTriggerHandler ringTriggerHandler;
     private volatile boolean scheduleThreadToStop = false;
     private Thread scheduleThread;
 
@@ -100,6 +106,9 @@ public class CoreTriggerHandler implements TriggerHandler, Runnable {
 
         // 预读数量: 线程池大小 * 触发qps (每个触发耗时50ms, qps = 1000/50 = 20)
         int preReadCount = (JobConfig.getInstance().getTriggerPoolFastMax() + JobConfig.getInstance().getTriggerPoolSlowMax()) * 20;
+        long preReadMs = jobProperties == null ? PRE_READ_MS : Math.max(1000, jobProperties.getPreReadMs());
+        // 空轮询的等待时间不超过默认窗口，避免新建任务等待过久
+        long idleWaitMs = Math.min(preReadMs, PRE_READ_MS);
 
         while (!scheduleThreadToStop) {
 
@@ -111,74 +120,10 @@ public class CoreTriggerHandler implements TriggerHandler, Runnable {
 
                 // 1、预读任务
                 long nowTime = System.currentTimeMillis();
-                List<SysJob> scheduleList = JobConfig.getInstance().scheduleJobQuery(nowTime + PRE_READ_MS, preReadCount);
+                long windowEnd = nowTime + preReadMs;
+                List<SysJob> scheduleList = JobConfig.getInstance().scheduleJobQuery(windowEnd, preReadCount);
                 if (scheduleList != null && !scheduleList.isEmpty()) {
-                    // 2、推送到时间环
-                    for (SysJob jobInfo : scheduleList) {
-
-                        if (jobInfo.getJobTriggerNextTime() != null && nowTime > jobInfo.getJobTriggerNextTime() + PRE_READ_MS) {
-                            // 2.1、触发超时 > 5s：跳过 && 更新下次触发时间
-                            log.warn(">>>>>>>>>>> 任务触发超时, jobId={}", jobInfo.getJobId());
-
-                            // 失效策略匹配
-                            MisfireStrategyEnum misfireStrategyEnum = MisfireStrategyEnum.match(jobInfo.getJobExecuteMisfireStrategy(), MisfireStrategyEnum.DO_NOTHING);
-                            if (MisfireStrategyEnum.FIRE_ONCE_NOW == misfireStrategyEnum) {
-                                // 立即触发一次
-                                JobTriggerPoolHelper.trigger(jobInfo.getJobId(), TriggerTypeEnum.MISFIRE, -1, null, null);
-                                log.debug(">>>>>>>>>>> 任务失效补征触发, jobId={}", jobInfo.getJobId());
-                            }
-
-                            // 更新下次触发时间
-                            refreshNextValidTime(jobInfo, new Date());
-
-                        } else if (jobInfo.getJobTriggerNextTime() != null && nowTime > jobInfo.getJobTriggerNextTime()) {
-                            // 2.2、触发超时 < 5s：直接触发 && 更新下次触发时间
-
-                            // 触发
-                            JobTriggerPoolHelper.trigger(jobInfo.getJobId(), TriggerTypeEnum.CRON, -1, null, null);
-                            log.debug(">>>>>>>>>>> 任务调度触发, jobId={}", jobInfo.getJobId());
-
-                            // 更新下次触发时间
-                            refreshNextValidTime(jobInfo, new Date());
-
-                            // 下次触发时间在5s内，再次预读
-                            if (jobInfo.getJobTriggerStatus() != null && jobInfo.getJobTriggerStatus() == 1 
-                                    && jobInfo.getJobTriggerNextTime() != null && nowTime + PRE_READ_MS > jobInfo.getJobTriggerNextTime()) {
-
-                                // 计算时间环秒数
-                                int ringSecond = (int) ((jobInfo.getJobTriggerNextTime() / 1000) % 60);
-
-                                // 推送时间环
-                                pushTimeRing(ringSecond, jobInfo.getJobId());
-
-                                // 更新下次触发时间
-                                refreshNextValidTime(jobInfo, new Date(jobInfo.getJobTriggerNextTime()));
-
-                            }
-
-                        } else {
-                            // 2.3、预读：时间环触发 && 更新下次触发时间
-
-                            // 计算时间环秒数
-                            if (jobInfo.getJobTriggerNextTime() != null) {
-                                int ringSecond = (int) ((jobInfo.getJobTriggerNextTime() / 1000) % 60);
-
-                                // 推送时间环
-                                pushTimeRing(ringSecond, jobInfo.getJobId());
-
-                                // 更新下次触发时间
-                                refreshNextValidTime(jobInfo, new Date(jobInfo.getJobTriggerNextTime()));
-                            }
-
-                        }
-
-                    }
-
-                    // 3、更新触发信息
-                    for (SysJob jobInfo : scheduleList) {
-                        JobConfig.getInstance().scheduleUpdate(jobInfo);
-                    }
-
+                    schedule(scheduleList, nowTime, windowEnd);
                 } else {
                     preReadSuc = false;
                 }
@@ -195,7 +140,7 @@ public class CoreTriggerHandler implements TriggerHandler, Runnable {
             // 等待，对齐秒
             if (cost < 1000) {
                 try {
-                    TimeUnit.MILLISECONDS.sleep((preReadSuc ? 1000 : PRE_READ_MS) - System.currentTimeMillis() % 1000);
+                    TimeUnit.MILLISECONDS.sleep((preReadSuc ? 1000 : idleWaitMs) - System.currentTimeMillis() % 1000);
                 } catch (InterruptedException e) {
                     if (!scheduleThreadToStop) {
                         log.error(e.getMessage(), e);
@@ -208,6 +153,60 @@ public class CoreTriggerHandler implements TriggerHandler, Runnable {
         log.info(">>>>>>>>>>> 核心调度线程已停止");
     }
 
+    /**
+     * 处理一轮预读到的任务：超时任务按失效策略处理，窗口内的触发点推送到时间轮，
+     * 触发信息合并为一条语句批量写回
+     *
+     * @param scheduleList 预读到的任务
+     * @param nowTime      本轮扫描时间
+     * @param windowEnd    预读窗口结束时间
+     */
+    void schedule(List<SysJob> scheduleList, long nowTime, long windowEnd) throws Exception {
+        for (SysJob jobInfo : scheduleList) {
+
+            if (jobInfo.getJobTriggerNextTime() != null && nowTime > jobInfo.getJobTriggerNextTime() + PRE_READ_MS) {
+                // 2.1、触发超时 > 5s：跳过 && 更新下次触发时间
+                log.warn(">>>>>>>>>>> 任务触发超时, jobId={}", jobInfo.getJobId());
+
+                // 失效策略匹配
+                MisfireStrategyEnum misfireStrategyEnum = MisfireStrategyEnum.match(jobInfo.getJobExecuteMisfireStrategy(), MisfireStrategyEnum.DO_NOTHING);
+                if (MisfireStrategyEnum.FIRE_ONCE_NOW == misfireStrategyEnum) {
+                    // 立即触发一次
+                    JobTriggerPoolHelper.trigger(jobInfo.getJobId(), TriggerTypeEnum.MISFIRE, -1, null, null);
+                    log.debug(">>>>>>>>>>> 任务失效补征触发, jobId={}", jobInfo.getJobId());
+                }
+
+                // 更新下次触发时间
+                refreshNextValidTime(jobInfo, new Date());
+
+            } else if (jobInfo.getJobTriggerNextTime() != null && nowTime > jobInfo.getJobTriggerNextTime()) {
+                // 2.2、触发超时 < 5s：直接触发 && 更新下次触发时间
+                JobTriggerPoolHelper.trigger(jobInfo.getJobId(), TriggerTypeEnum.CRON, -1, null, null);
+                log.debug(">>>>>>>>>>> 任务调度触发, jobId={}", jobInfo.getJobId());
+
+                refreshNextValidTime(jobInfo, new Date());
+            }
+
+            // 2.3、预读窗口内的触发点推送到时间轮 && 更新下次触发时间
+            pushWithinWindow(jobInfo, windowEnd);
+        }
+
+        // 3、批量更新触发信息
+        JobConfig.getInstance().scheduleUpdate(scheduleList);
+    }
+
+    private void pushWithinWindow(SysJob jobInfo, long windowEnd) throws Exception {
+        for (int pushed = 0; pushed < MAX_PUSH_PER_SCAN; pushed++) {
+            Long nextTime = jobInfo.getJobTriggerNextTime();
+            if (jobInfo.getJobTriggerStatus() == null || jobInfo.getJobTriggerStatus() != 1
+                    || nextTime == null || nextTime <= 0 || nextTime > windowEnd) {
+                return;
+            }
+            ringTriggerHandler.push(jobInfo.getJobId(), nextTime);
+            refreshNextValidTime(jobInfo, new Date(nextTime));
+        }
+    }
+
     private void refreshNextValidTime(SysJob jobInfo, Date fromTime) throws Exception {
         Date nextValidTime = generateNextValidTime(jobInfo, fromTime);
         if (nextValidTime != null) {
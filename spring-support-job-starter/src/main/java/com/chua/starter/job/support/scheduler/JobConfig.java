@@ -57,6 +57,11 @@ public class JobConfig {
      */
     private static final JobConfig INSTANCE = new JobConfig();
 
+    /**
+     * 批量更新触发信息时单条语句包含的最大任务数
+     */
+    private static final int SCHEDULE_UPDATE_BATCH_SIZE = 500;
+
     /**
      * 任务配置属性
      */
@@ -77,6 +82,11 @@ public class JobConfig {
      */
     private SysJobLogMapper sysJobLogMapper;
 
+    /**
+     * 时间环处理器，任务停止或重新调度时取消已推送的触发点
+     */
+    private volatile RingTriggerHandler ringTriggerHandler;
+
     /**
      * 本地锁，用于保证调度线程安全（单机版本）
      */
@@ -107,6 +117,27 @@ public class JobConfig {
         log.info("JobConfig: 任务配置属性已注册");
     }
 
+    /**
+     * 注册时间环处理器
+     *
+     * @param ringTriggerHandler 时间环处理器
+     */
+    public void register(RingTriggerHandler ringTriggerHandler) {
+        this.ringTriggerHandler = ringTriggerHandler;
+    }
+
+    /**
+     * 取消任务在时间环中尚未触发的触发点，调度器未启动时忽略
+     *
+     * @param jobId 任务ID
+     */
+    public void cancelScheduled(int jobId) {
+        RingTriggerHandler current = ringTriggerHandler;
+        if (current != null) {
+            current.cancel(jobId);
+        }
+    }
+
     /**
      * 获取快速最大触发池
      *
@@ -255,6 +286,7 @@ public class JobConfig {
             }
         } finally {
             updateLog(jobLog);
+            JobFileAppender.closeLog(context.getJobLogFileName());
             JobContext.removeJobContext();
         }
     }
@@ -299,6 +331,24 @@ public class JobConfig {
         requireJobMapper().updateById(jobInfo);
     }
 
+    /**
+     * 批量更新任务触发信息
+     * <p>
+     * 仅写回触发状态、上次与下次触发时间，每 {@link #SCHEDULE_UPDATE_BATCH_SIZE} 条合并为一条语句。
+     * </p>
+     *
+     * @param jobInfos 任务信息
+     */
+    public void scheduleUpdate(List<SysJob> jobInfos) {
+        if (jobInfos == null || jobInfos.isEmpty()) {
+            return;
+        }
+        SysJobMapper mapper = requireJobMapper();
+        for (int from = 0; from < jobInfos.size(); from += SCHEDULE_UPDATE_BATCH_SIZE) {
+            mapper.updateTriggerInfoBatch(jobInfos.subList(from, Math.min(from + SCHEDULE_UPDATE_BATCH_SIZE, jobInfos.size())));
+        }
+    }
+
     private SysJobMapper requireJobMapper() {
         if (sysJobMapper == null) {
             throw new IllegalStateException("JobConfig 尚未完成初始化: SysJobMapper 不可用");
@@ -0,0 +1,214 @@
+package com.chua.starter.job.support.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 任务分层时间轮
+ * <p>
+ * 以 {@code tickMillis} 为最小刻度，每层 {@code wheelSize} 个槽，第 n 层每槽跨度为
+ * {@code tickMillis * wheelSize^n}。超出当前层覆盖范围的触发点放入上层，
+ * 上层槽到期时整体降级到下层，插入与推进均为 O(1)（均摊）。
+ * </p>
+ *
+ * <h3>精度</h3>
+ * <ul>
+ *     <li>触发时间向上取整到刻度，任务不会早于触发时间执行，最多延后一个刻度</li>
+ *     <li>推进时逐刻度处理，调度线程短暂停顿后会补齐期间到期的任务</li>
+ * </ul>
+ *
+ * <h3>线程安全</h3>
+ * <p>
+ * 所有读写由同一把锁保护，推送方（{@link CoreTriggerHandler}）与推进方（{@link RingTriggerHandler}）
+ * 可并发访问，不会丢失触发点。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025/01/06
+ * @see RingTriggerHandler
+ */
+final class JobTimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * 已推进到的刻度序号（时间戳 / tickMillis）
+     */
+    private long currentTick;
+    private int size;
+
+    JobTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis 必须大于0且 wheelSize 不能小于2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMillis / tickMillis;
+        this.levels.add(new Level(1, wheelSize));
+    }
+
+    /**
+     * 添加触发点
+     *
+     * @param jobId       任务ID
+     * @param triggerTime 触发时间（毫秒时间戳）
+     * @return 触发时间已到（不晚于当前刻度）时返回 false，由调用方直接触发
+     */
+    boolean add(int jobId, long triggerTime) {
+        long slot = Math.ceilDiv(triggerTime, tickMillis);
+        lock.lock();
+        try {
+            if (slot <= currentTick) {
+                return false;
+            }
+            place(new Entry(jobId, slot));
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进时钟到指定时间，返回期间到期的任务ID
+     *
+     * @param nowMillis 当前时间（毫秒时间戳）
+     * @return 到期任务ID，按触发先后排列
+     */
+    List<Integer> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Integer> due = new ArrayList<>();
+        lock.lock();
+        try {
+            while (currentTick < targetTick) {
+                currentTick++;
+                // 先由高到低逐层降级，再取最底层当前槽
+                for (int i = levels.size() - 1; i > 0; i--) {
+                    Level level = levels.get(i);
+                    if (currentTick % level.span == 0) {
+                        for (Entry entry : level.drain(currentTick)) {
+                            if (entry.slot <= currentTick) {
+                                due.add(entry.jobId);
+                                size--;
+                            } else {
+                                place(entry);
+                            }
+                        }
+                    }
+                }
+                for (Entry entry : levels.get(0).drain(currentTick)) {
+                    due.add(entry.jobId);
+                    size--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    /**
+     * 移除任务尚未触发的全部触发点，用于任务停止或重新调度
+     *
+     * @param jobId 任务ID
+     * @return 移除的触发点数量
+     */
+    int remove(int jobId) {
+        lock.lock();
+        try {
+            int removed = 0;
+            for (Level level : levels) {
+                removed += level.remove(jobId);
+            }
+            size -= removed;
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 时间轮中待触发的数量
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.slot - currentTick;
+        int index = 0;
+        Level level = levels.get(0);
+        while (delta >= level.span * wheelSize) {
+            index++;
+            if (index == levels.size()) {
+                levels.add(new Level(Math.multiplyExact(level.span, wheelSize), wheelSize));
+            }
+            level = levels.get(index);
+        }
+        level.bucketOf(entry.slot).add(entry);
+    }
+
+    /**
+     * 单层时间轮，{@code span} 为每槽覆盖的刻度数
+     */
+    private static final class Level {
+        private final long span;
+        private final List<Entry>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        Level(long span, int wheelSize) {
+            this.span = span;
+            this.buckets = new List[wheelSize];
+        }
+
+        List<Entry> bucketOf(long slot) {
+            int index = (int) ((slot / span) % buckets.length);
+            List<Entry> bucket = buckets[index];
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets[index] = bucket;
+            }
+            return bucket;
+        }
+
+        List<Entry> drain(long tick) {
+            int index = (int) ((tick / span) % buckets.length);
+            List<Entry> bucket = buckets[index];
+            if (bucket == null || bucket.isEmpty()) {
+                return List.of();
+            }
+            buckets[index] = null;
+            return bucket;
+        }
+
+        int remove(int jobId) {
+            int removed = 0;
+            for (List<Entry> bucket : buckets) {
+                if (bucket == null) {
+                    continue;
+                }
+                int before = bucket.size();
+                bucket.removeIf(entry -> entry.jobId == jobId);
+                removed += before - bucket.size();
+            }
+            return removed;
+        }
+    }
+
+    private record Entry(int jobId, long slot) {
+    }
+}
@@ -1,63 +1,59 @@
 package com.chua.starter.job.support.scheduler;
 
 import com.chua.starter.job.support.JobProperties;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 时间环调度处理器
  * <p>
- * 基于时间环的秒级任务触发器，实现精确的秒级任务调度。
- * 时间环是一个60索引的环形数据结构，每个索引对应一秒。
+ * 基于分层时间轮（{@link JobTimingWheel}）的任务触发器，支持亚秒级精度。
+ * 最小刻度与每层槽数通过 {@code plugin.job.timing-wheel-tick-ms}、{@code plugin.job.timing-wheel-size} 配置。
  * </p>
  *
  * <h3>工作原理</h3>
  * <ol>
- *     <li>{@link CoreTriggerHandler}将任务推送到时间环的指定秒数位置</li>
- *     <li>时间环线程每秒精确触发一次</li>
- *     <li>取出当前秒数和前一秒的任务（避免跨秒丢失）</li>
+ *     <li>{@link CoreTriggerHandler}将预读窗口内的触发点（任务ID + 毫秒触发时间）推送到时间轮</li>
+ *     <li>时间轮线程按刻度对齐唤醒，推进时钟并取出期间到期的任务</li>
+ *     <li>线程停顿超过一个刻度时逐刻度补齐，不会跳过触发点</li>
  *     <li>通过{@link JobTriggerPoolHelper}触发任务执行</li>
  * </ol>
  *
- * <h3>数据结构</h3>
- * <pre>
- * ringData: Map&lt;Integer, List&lt;Integer&gt;&gt;
- *   key: 0-59的秒数
- *   value: 该秒需要执行的任务ID列表
- * </pre>
- *
  * <h3>特性</h3>
  * <ul>
- *     <li>毫秒级精度：通过sleep对齐到每秒的开始</li>
- *     <li>容错机制：向前检查一个刻度，避免处理耗时导致丢失</li>
- *     <li>优雅停止：关闭时等待环上任务全部执行完毕</li>
+ *     <li>线程安全：推送与推进由时间轮内部锁保护，高并发推送不会丢失触发点</li>
+ *     <li>不提前触发：触发时间向上取整到刻度，最多延后一个刻度</li>
+ *     <li>优雅停止：关闭时等待时间轮中的触发点执行完毕（最多一个预读窗口）</li>
  * </ul>
  *
  * @author CH
  * @version 1.0.0
  * @since 2024/03/08
  * @see CoreTriggerHandler
+ * @see JobTimingWheel
  * @see JobTriggerPoolHelper
  */
-@Slf4j
-@RequiredArgsConstructor
 public class RingTriggerHandler implements TriggerHandler, Runnable {
     private static final Logger log = LoggerFactory.getLogger(RingTriggerHandler.class);
 
     private volatile boolean ringThreadToStop = false;
-    private static final Map<Integer, List<Integer>> ringData = new ConcurrentHashMap<>();
+    private final JobTimingWheel timingWheel;
+    private final long preReadMs;
     private Thread ringThread;
 
-    private final JobProperties jobProperties;
+    public RingTriggerHandler(JobProperties jobProperties) {
+        long tickMs = jobProperties == null ? 100 : jobProperties.getTimingWheelTickMs();
+        int wheelSize = jobProperties == null ? 100 : jobProperties.getTimingWheelSize();
+        this.timingWheel = new JobTimingWheel(Math.max(1, tickMs), Math.max(2, wheelSize), System.currentTimeMillis());
+        this.preReadMs = jobProperties == null ? JobHelper.PRE_READ_MS : Math.max(1000, jobProperties.getPreReadMs());
+    }
 
     @Override
     public void start() {
+        ringThreadToStop = false;
         ringThread = new Thread(this);
         ringThread.setDaemon(true);
         ringThread.setName("job, ringThread");
@@ -66,66 +62,68 @@ public class RingTriggerHandler implements TriggerHandler, Runnable {
 
     @Override
     public void stop() {
-        ringThreadToStop = true;
-        boolean hasRingData = false;
-        if (!ringData.isEmpty()) {
-            for (int second : ringData.keySet()) {
-                List<Integer> tmpData = ringData.get(second);
-                if (tmpData != null && !tmpData.isEmpty()) {
-                    hasRingData = true;
-                    break;
-                }
-            }
-        }
-        if (hasRingData) {
+        // 等待时间轮中的触发点执行完毕
+        long deadline = System.currentTimeMillis() + preReadMs + timingWheel.getTickMillis();
+        while (timingWheel.size() > 0 && System.currentTimeMillis() < deadline) {
             try {
-                TimeUnit.SECONDS.sleep(8);
+                TimeUnit.MILLISECONDS.sleep(timingWheel.getTickMillis());
             } catch (InterruptedException e) {
-                log.error(e.getMessage(), e);
+                Thread.currentThread().interrupt();
+                break;
             }
         }
 
         ringThreadToStop = true;
-        try {
-            TimeUnit.SECONDS.sleep(1);
-        } catch (InterruptedException e) {
-            log.error(e.getMessage(), e);
-        }
-        if (ringThread.getState() != Thread.State.TERMINATED) {
+        if (ringThread != null && ringThread.getState() != Thread.State.TERMINATED) {
             ringThread.interrupt();
             try {
-                ringThread.join();
+                ringThread.join(TimeUnit.SECONDS.toMillis(5));
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 log.error(e.getMessage(), e);
             }
         }
+        if (timingWheel.size() > 0) {
+            log.warn(">>>>>>>>>>> 时间环停止时仍有 {} 个触发点未执行", timingWheel.size());
+        }
     }
 
     /**
-     * 推送任务到时间环
+     * 推送触发点到时间轮，触发时间已到时直接触发
      *
-     * @param ringSecond 秒数
-     * @param jobId      任务ID
+     * @param jobId       任务ID
+     * @param triggerTime 触发时间（毫秒时间戳）
      */
-    public static void pushTimeRing(int ringSecond, int jobId) {
-        List<Integer> ringItemData = ringData.get(ringSecond);
-        if (ringItemData == null) {
-            ringItemData = new ArrayList<>();
-            ringData.put(ringSecond, ringItemData);
+    public void push(int jobId, long triggerTime) {
+        if (!timingWheel.add(jobId, triggerTime)) {
+            JobTriggerPoolHelper.trigger(jobId, TriggerTypeEnum.CRON, -1, null, null);
+            return;
         }
-        ringItemData.add(jobId);
+        log.debug(">>>>>>>>>>> 推送到时间环: 任务ID={}, 触发时间={}", jobId, triggerTime);
+    }
 
-        log.debug(">>>>>>>>>>> 推送到时间环: 秒数={}, 任务ID={}", ringSecond, ringItemData);
+    /**
+     * 取消任务在时间轮中尚未触发的触发点
+     *
+     * @param jobId 任务ID
+     * @return 取消的触发点数量
+     */
+    public int cancel(int jobId) {
+        int removed = timingWheel.remove(jobId);
+        if (removed > 0) {
+            log.debug(">>>>>>>>>>> 取消时间环触发点: 任务ID={}, 数量={}", jobId, removed);
+        }
+        return removed;
     }
 
     @Override
     public void run() {
-
+        long tickMillis = timingWheel.getTickMillis();
         while (!ringThreadToStop) {
 
-            // 对齐秒
+            // 对齐刻度
             try {
-                TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
+                TimeUnit.MILLISECONDS.sleep(tickMillis - System.currentTimeMillis() % tickMillis);
             } catch (InterruptedException e) {
                 if (!ringThreadToStop) {
                     log.error(e.getMessage(), e);
@@ -133,25 +131,12 @@ public class RingTriggerHandler implements TriggerHandler, Runnable {
             }
 
             try {
-                // 当前秒数据
-                List<Integer> ringItemData = new ArrayList<>();
-                // 避免处理耗时太长，跨过刻度，向前校验一个刻度
-                int nowSecond = Calendar.getInstance().get(Calendar.SECOND);
-                for (int i = 0; i < 2; i++) {
-                    List<Integer> tmpData = ringData.remove((nowSecond + 60 - i) % 60);
-                    if (tmpData != null) {
-                        ringItemData.addAll(tmpData);
-                    }
-                }
-
-                // 时间环触发
-                log.debug(">>>>>>>>>>> 时间环触发: 当前秒={}, 任务数={}", nowSecond, ringItemData.size());
-                if (!ringItemData.isEmpty()) {
-                    // 执行触发
-                    for (int jobId : ringItemData) {
+                List<Integer> dueJobs = timingWheel.advance(System.currentTimeMillis());
+                if (!dueJobs.isEmpty()) {
+                    log.debug(">>>>>>>>>>> 时间环触发: 任务数={}", dueJobs.size());
+                    for (int jobId : dueJobs) {
                         JobTriggerPoolHelper.trigger(jobId, TriggerTypeEnum.CRON, -1, null, null);
                     }
-                    ringItemData.clear();
                 }
             } catch (Exception e) {
                 if (!ringThreadToStop) {
@@ -116,8 +116,8 @@ public class SchedulerTrigger implements InitializingBean, DisposableBean, Appli
         }
 
         // 创建处理器实例
-        coreTriggerHandler = new CoreTriggerHandler(jobProperties);
         ringTriggerHandler = new RingTriggerHandler(jobProperties);
+        coreTriggerHandler = new CoreTriggerHandler(jobProperties, ringTriggerHandler);
 
         // Spring依赖注入
         AutowireCapableBeanFactory beanFactory = applicationContext.getAutowireCapableBeanFactory();
@@ -127,6 +127,7 @@ public class SchedulerTrigger implements InitializingBean, DisposableBean, Appli
         // 注册全局配置
         JobConfig.getInstance().register(jobProperties);
         JobConfig.getInstance().register(applicationContext);
+        JobConfig.getInstance().register(ringTriggerHandler);
 
         // 启动各组件
         coreTriggerHandler.start();
@@ -5,6 +5,7 @@ import com.chua.starter.job.support.JobNumberGenerator;
 import com.chua.starter.job.support.entity.SysJob;
 import com.chua.starter.job.support.scheduler.JobDispatchModeEnum;
 import com.chua.starter.job.support.mapper.SysJobMapper;
+import com.chua.starter.job.support.scheduler.JobConfig;
 import com.chua.starter.job.support.scheduler.JobHelper;
 import com.chua.starter.job.support.scheduler.JobStorageModeEnum;
 import com.chua.starter.job.support.scheduler.LocalJobTrigger;
@@ -15,6 +16,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.Date;
@@ -161,7 +164,7 @@ public class JobDynamicConfigServiceImpl implements JobDynamicConfigService {
         } else if (STATUS_STOP == safeStatus(job.getJobTriggerStatus())) {
             resetTriggerState(job);
         }
-        return sysJobMapper.updateById(job) > 0;
+        return reschedule(job.getJobId(), sysJobMapper.updateById(job) > 0);
     }
 
     @Override
@@ -212,7 +215,7 @@ public class JobDynamicConfigServiceImpl implements JobDynamicConfigService {
         job.setJobTriggerStatus(STATUS_STOP);
         resetTriggerState(job);
 
-        return sysJobMapper.updateById(job) > 0;
+        return reschedule(jobId, sysJobMapper.updateById(job) > 0);
     }
 
     @Override
@@ -285,7 +288,7 @@ public class JobDynamicConfigServiceImpl implements JobDynamicConfigService {
             job.setJobTriggerNextTime(nextTriggerTime);
         }
 
-        return sysJobMapper.updateById(job) > 0;
+        return reschedule(jobId, sysJobMapper.updateById(job) > 0);
     }
 
     @Override
@@ -335,6 +338,31 @@ public class JobDynamicConfigServiceImpl implements JobDynamicConfigService {
         throw new IllegalArgumentException("无效的调度配置: type=" + scheduleType + ", time=" + scheduleTime);
     }
 
+    /**
+     * 取消时间环中按旧配置推送的触发点，之后由调度线程按新的下次触发时间重新推送。
+     * 处于事务中时在提交后取消，避免调度线程在提交前按旧数据再次推送
+     *
+     * @param jobId   任务ID
+     * @param updated 是否更新成功
+     * @return 是否更新成功
+     */
+    private boolean reschedule(Integer jobId, boolean updated) {
+        if (!updated || jobId == null) {
+            return updated;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    JobConfig.getInstance().cancelScheduled(jobId);
+                }
+            });
+        } else {
+            JobConfig.getInstance().cancelScheduled(jobId);
+        }
+        return true;
+    }
+
     private void applyTriggerState(SysJob job, boolean running) {
         if (running) {
             requireText(job.getJobScheduleTime(), "运行中的任务必须配置调度时间");
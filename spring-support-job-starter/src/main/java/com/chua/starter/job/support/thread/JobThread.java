@@ -223,6 +223,10 @@ public class JobThread extends Thread {
 
                 DefaultJobLog.log("异常信息: " + errorMsg);
                 DefaultJobLog.log("<br>----------- 任务执行异常结束 -----------");
+            } finally {
+                if (triggerParam != null && JobContext.getJobContext() != null) {
+                    JobFileAppender.closeLog(JobContext.getJobContext().getJobLogFileName());
+                }
             }
         }
 
@@ -0,0 +1,56 @@
+package com.chua.starter.job.support.log;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobFileAppenderTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        JobFileAppender.initLogOptions(1000, 0, false);
+    }
+
+    @Test
+    void shouldReadFromLineAcrossRolledParts() {
+        JobFileAppender.initLogOptions(0, 1024, false);
+        String logFile = dir.resolve("offset.log").toString();
+        int total = JobLogIndex.INTERVAL * 3;
+        for (int i = 1; i <= total; i++) {
+            JobFileAppender.appendLog(logFile, "line-" + i);
+        }
+
+        // 写入中读取走写入器的内存索引
+        LogResult running = JobFileAppender.readLog(logFile, total - 2);
+        assertThat(running.getToLineNum()).isEqualTo(total);
+        assertThat(running.getLogContent()).isEqualTo(
+                "line-" + (total - 2) + "\nline-" + (total - 1) + "\nline-" + total + "\n");
+
+        JobFileAppender.closeLog(logFile);
+        assertThat(JobLogWriter.partFile(dir.resolve("offset.log").toFile(), 1)).exists();
+
+        // 关闭后读取走索引文件，从分片中间的行开始
+        int from = JobLogIndex.INTERVAL + 7;
+        LogResult closed = JobFileAppender.readLog(logFile, from);
+        assertThat(closed.getToLineNum()).isEqualTo(total);
+        String[] lines = closed.getLogContent().split("\n");
+        assertThat(lines).hasSize(total - from + 1);
+        assertThat(lines[0]).isEqualTo("line-" + from);
+        assertThat(lines[lines.length - 1]).isEqualTo("line-" + total);
+    }
+
+    @Test
+    void shouldReportMissingLog() {
+        LogResult result = JobFileAppender.readLog(dir.resolve("missing.log").toString(), 1);
+
+        assertThat(result.isEnd()).isTrue();
+        assertThat(result.getToLineNum()).isZero();
+    }
+}
@@ -0,0 +1,110 @@
+package com.chua.starter.job.support.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobLogIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRecordOffsetEveryIntervalLines() {
+        JobLogIndex index = new JobLogIndex();
+        byte[] bytes = lines(1, JobLogIndex.INTERVAL * 2 + 10);
+        index.update(bytes, 0, bytes.length);
+
+        assertThat(index.lines()).isEqualTo(JobLogIndex.INTERVAL * 2 + 10);
+        assertThat(index.length()).isEqualTo(bytes.length);
+        assertThat(index.seek(1)).containsExactly(0, 1);
+        assertThat(index.seek(JobLogIndex.INTERVAL)).containsExactly(0, 1);
+
+        long[] second = index.seek(JobLogIndex.INTERVAL + 5);
+        assertThat(second[1]).isEqualTo(JobLogIndex.INTERVAL + 1);
+        assertThat(lineAt(bytes, second[0])).isEqualTo("line-" + (JobLogIndex.INTERVAL + 1));
+
+        long[] third = index.seek(JobLogIndex.INTERVAL * 2 + 10);
+        assertThat(third[1]).isEqualTo(JobLogIndex.INTERVAL * 2 + 1);
+        assertThat(lineAt(bytes, third[0])).isEqualTo("line-" + (JobLogIndex.INTERVAL * 2 + 1));
+    }
+
+    @Test
+    void shouldCountTrailingContentWithoutNewlineAsLine() {
+        JobLogIndex index = new JobLogIndex();
+        byte[] first = "a\nb".getBytes(StandardCharsets.UTF_8);
+        index.update(first, 0, first.length);
+        assertThat(index.lines()).isEqualTo(2);
+
+        byte[] second = "c\n".getBytes(StandardCharsets.UTF_8);
+        index.update(second, 0, second.length);
+        assertThat(index.lines()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRoundTripThroughDataStream() throws IOException {
+        JobLogIndex index = new JobLogIndex();
+        byte[] bytes = lines(1, JobLogIndex.INTERVAL * 3);
+        index.update(bytes, 0, bytes.length);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(buffer));
+        JobLogIndex read = JobLogIndex.readFrom(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+
+        assertThat(read.length()).isEqualTo(index.length());
+        assertThat(read.lines()).isEqualTo(index.lines());
+        assertThat(read.seek(JobLogIndex.INTERVAL * 2 + 3)).containsExactly(index.seek(JobLogIndex.INTERVAL * 2 + 3));
+    }
+
+    @Test
+    void shouldRejectCorruptedIndex() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeLong(10);
+        out.writeLong(1);
+        out.writeLong(10);
+        out.writeInt(100);
+
+        assertThatThrownBy(() -> JobLogIndex.readFrom(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()))))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldScanExistingFile() throws IOException {
+        byte[] bytes = lines(1, JobLogIndex.INTERVAL + 1);
+        Path file = Files.write(dir.resolve("scan.log"), bytes);
+
+        JobLogIndex scanned = JobLogIndex.scan(file.toFile());
+
+        assertThat(scanned.length()).isEqualTo(bytes.length);
+        assertThat(scanned.lines()).isEqualTo(JobLogIndex.INTERVAL + 1);
+        assertThat(lineAt(bytes, scanned.seek(JobLogIndex.INTERVAL + 1)[0])).isEqualTo("line-" + (JobLogIndex.INTERVAL + 1));
+    }
+
+    static byte[] lines(int from, int to) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            builder.append("line-").append(i).append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String lineAt(byte[] bytes, long offset) {
+        int end = (int) offset;
+        while (bytes[end] != '\n') {
+            end++;
+        }
+        return new String(bytes, (int) offset, end - (int) offset, StandardCharsets.UTF_8);
+    }
+}
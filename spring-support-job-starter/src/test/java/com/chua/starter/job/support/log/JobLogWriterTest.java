@@ -0,0 +1,93 @@
+package com.chua.starter.job.support.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobLogWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRollOverBySizeAndStoreIndexOnClose() throws IOException {
+        File base = dir.resolve("job.log").toFile();
+        JobLogWriter writer = new JobLogWriter(base, 64);
+        for (int i = 1; i <= 20; i++) {
+            assertThat(writer.append(("line-" + i + "\n").getBytes(StandardCharsets.UTF_8))).isTrue();
+        }
+
+        int parts = writer.close();
+
+        assertThat(parts).isGreaterThan(1);
+        assertThat(writer.append("late\n".getBytes(StandardCharsets.UTF_8))).isFalse();
+        for (int part = 0; part < parts; part++) {
+            assertThat(JobLogWriter.partFile(base, part).length()).isLessThanOrEqualTo(64);
+        }
+        assertThat(JobLogWriter.indexFile(base)).exists();
+
+        List<JobLogIndex> loaded = JobLogWriter.loadIndexes(base);
+        assertThat(loaded).hasSize(parts);
+        assertThat(loaded.stream().mapToLong(JobLogIndex::lines).sum()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldPersistScannedIndexForLaterReads() throws IOException {
+        File base = dir.resolve("legacy.log").toFile();
+        Files.write(base.toPath(), JobLogIndexTest.lines(1, JobLogIndex.INTERVAL * 2));
+        assertThat(JobLogWriter.indexFile(base)).doesNotExist();
+
+        List<JobLogIndex> scanned = JobLogWriter.loadIndexes(base);
+
+        assertThat(scanned).hasSize(1);
+        assertThat(JobLogWriter.indexFile(base)).exists();
+        assertThat(dir.toFile().list((d, name) -> name.endsWith(".tmp"))).isEmpty();
+        // 换成等长但不含换行的内容：再次读取仍得到原行数，说明走的是索引文件而非重新扫描
+        byte[] blank = new byte[(int) base.length()];
+        Arrays.fill(blank, (byte) 'x');
+        Files.write(base.toPath(), blank);
+        List<JobLogIndex> stored = JobLogWriter.loadIndexes(base);
+        assertThat(stored.get(0).lines()).isEqualTo(JobLogIndex.INTERVAL * 2);
+        assertThat(stored.get(0).seek(JobLogIndex.INTERVAL + 1)).containsExactly(scanned.get(0).seek(JobLogIndex.INTERVAL + 1));
+    }
+
+    @Test
+    void shouldRescanWhenStoredIndexIsStale() throws IOException {
+        File base = dir.resolve("stale.log").toFile();
+        Files.write(base.toPath(), JobLogIndexTest.lines(1, 10));
+        JobLogWriter.loadIndexes(base);
+
+        Files.write(base.toPath(), JobLogIndexTest.lines(11, 15), StandardOpenOption.APPEND);
+
+        assertThat(JobLogWriter.loadIndexes(base).get(0).lines()).isEqualTo(15);
+    }
+
+    @Test
+    void shouldContinueLastPartWhenReopened() throws IOException {
+        File base = dir.resolve("reopen.log").toFile();
+        JobLogWriter first = new JobLogWriter(base, 0);
+        first.append("a\n".getBytes(StandardCharsets.UTF_8));
+        first.close();
+
+        JobLogWriter second = new JobLogWriter(base, 0);
+        // 重新打开后旧索引失效
+        assertThat(JobLogWriter.indexFile(base)).doesNotExist();
+        second.append("b\n".getBytes(StandardCharsets.UTF_8));
+
+        List<JobLogIndex> snapshot = second.snapshot();
+        assertThat(snapshot).hasSize(1);
+        assertThat(snapshot.get(0).lines()).isEqualTo(2);
+        second.close();
+        assertThat(Files.readString(base.toPath())).isEqualTo("a\nb\n");
+    }
+}
@@ -0,0 +1,104 @@
+package com.chua.starter.job.support.scheduler;
+
+import com.chua.starter.job.support.entity.SysJob;
+import com.chua.starter.job.support.mapper.SysJobLogMapper;
+import com.chua.starter.job.support.mapper.SysJobMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoreTriggerHandlerTest {
+
+    private final SysJobMapper jobMapper = mock(SysJobMapper.class);
+    private final List<List<SysJob>> batches = new CopyOnWriteArrayList<>();
+    private GenericApplicationContext context;
+    private RingTriggerHandler ringTriggerHandler;
+    private CoreTriggerHandler coreTriggerHandler;
+
+    @BeforeEach
+    void setUp() {
+        when(jobMapper.updateTriggerInfoBatch(anyList())).thenAnswer(invocation -> {
+            List<SysJob> jobs = invocation.getArgument(0);
+            batches.add(List.copyOf(jobs));
+            return jobs.size();
+        });
+        context = new GenericApplicationContext();
+        context.registerBean(SysJobMapper.class, () -> jobMapper);
+        context.registerBean(SysJobLogMapper.class, () -> mock(SysJobLogMapper.class));
+        context.refresh();
+        JobConfig.getInstance().register(context);
+
+        ringTriggerHandler = new RingTriggerHandler(null);
+        coreTriggerHandler = new CoreTriggerHandler(null, ringTriggerHandler);
+        JobConfig.getInstance().register(ringTriggerHandler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JobConfig.getInstance().register((RingTriggerHandler) null);
+        context.close();
+    }
+
+    @Test
+    void shouldPushEveryTriggerInWindowAndWriteBackNextTime() throws Exception {
+        long now = System.currentTimeMillis();
+        SysJob fixedRate = job(1, 1, now + 100, "300");
+        SysJob stopped = job(2, 0, now + 200, "300");
+
+        coreTriggerHandler.schedule(new ArrayList<>(List.of(fixedRate, stopped)), now, now + 900);
+
+        // 窗口内的 now+100、now+400、now+700 三个触发点都推送到时间轮
+        assertThat(fixedRate.getJobTriggerLastTime()).isEqualTo(now + 700);
+        assertThat(fixedRate.getJobTriggerNextTime()).isEqualTo(now + 1000);
+        assertThat(stopped.getJobTriggerNextTime()).isEqualTo(now + 200);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactly(fixedRate, stopped);
+        assertThat(ringTriggerHandler.cancel(1)).isEqualTo(3);
+        assertThat(ringTriggerHandler.cancel(2)).isZero();
+    }
+
+    @Test
+    void shouldCancelPushedTriggersOnReschedule() throws Exception {
+        long now = System.currentTimeMillis();
+        SysJob job = job(1, 1, now + 100, "300");
+        coreTriggerHandler.schedule(new ArrayList<>(List.of(job)), now, now + 900);
+
+        JobConfig.getInstance().cancelScheduled(1);
+
+        assertThat(ringTriggerHandler.cancel(1)).isZero();
+    }
+
+    @Test
+    void shouldChunkBatchUpdate() {
+        List<SysJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            jobs.add(job(i, 1, (long) i, "1000"));
+        }
+
+        JobConfig.getInstance().scheduleUpdate(jobs);
+
+        assertThat(batches).extracting(List::size).containsExactly(500, 500, 201);
+        assertThat(batches.get(2).get(200).getJobTriggerNextTime()).isEqualTo(1200L);
+    }
+
+    private static SysJob job(int jobId, int status, long nextTime, String intervalMillis) {
+        SysJob job = new SysJob();
+        job.setJobId(jobId);
+        job.setJobTriggerStatus(status);
+        job.setJobTriggerLastTime(0L);
+        job.setJobTriggerNextTime(nextTime);
+        job.setJobScheduleType(SchedulerTypeEnum.FIXED_MS.name());
+        job.setJobScheduleTime(intervalMillis);
+        return job;
+    }
+}
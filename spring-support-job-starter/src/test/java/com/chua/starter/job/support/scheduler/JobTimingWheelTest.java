@@ -0,0 +1,126 @@
+package com.chua.starter.job.support.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void shouldRoundTriggerTimeUpToNextTick() {
+        JobTimingWheel wheel = new JobTimingWheel(100, 10, START);
+
+        assertThat(wheel.add(1, START + 250)).isTrue();
+        assertThat(wheel.add(2, START + 300)).isTrue();
+
+        // 不早于触发时间执行
+        assertThat(wheel.advance(START + 299)).isEmpty();
+        assertThat(wheel.advance(START + 300)).containsExactly(1, 2);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldRejectTriggerTimesNotAfterCurrentTick() {
+        JobTimingWheel wheel = new JobTimingWheel(100, 10, START);
+
+        assertThat(wheel.add(1, START)).isFalse();
+        assertThat(wheel.add(2, START - 5000)).isFalse();
+        assertThat(wheel.size()).isZero();
+        assertThatThrownBy(() -> new JobTimingWheel(0, 10, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JobTimingWheel(100, 1, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCatchUpMissedTicksInTriggerOrder() {
+        JobTimingWheel wheel = new JobTimingWheel(100, 10, START);
+        wheel.add(1, START + 500);
+        wheel.add(2, START + 200);
+        wheel.add(3, START + 900);
+
+        // 调度线程停顿后一次推进多个刻度
+        assertThat(wheel.advance(START + 600)).containsExactly(2, 1);
+        assertThat(wheel.advance(START + 1000)).containsExactly(3);
+    }
+
+    @Test
+    void shouldCascadeMultiRoundEntriesToExactTick() {
+        JobTimingWheel wheel = new JobTimingWheel(100, 10, START);
+        // 超出最底层一圈（1 秒）和第二层一圈（10 秒）的触发点放入上层，到期前逐层降级
+        wheel.add(1, START + 12_345);
+        wheel.add(2, START + 1_050);
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= START + 13_000; now += 100) {
+            for (int jobId : wheel.advance(now)) {
+                firedAt.put(jobId, now);
+            }
+            if (now == START + 12_300) {
+                // 剩余不到一个刻度时仍在时间轮中
+                assertThat(wheel.size()).isEqualTo(1);
+            }
+        }
+
+        assertThat(firedAt).containsEntry(1, START + 12_400).containsEntry(2, START + 1_100);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldFireEveryEntryExactlyOnceAtItsTick() {
+        long tick = 10;
+        JobTimingWheel wheel = new JobTimingWheel(tick, 8, START);
+        Random random = new Random(42);
+        Map<Integer, Long> slots = new HashMap<>();
+        for (int jobId = 0; jobId < 2000; jobId++) {
+            long triggerTime = START + 1 + random.nextInt(200_000);
+            assertThat(wheel.add(jobId, triggerTime)).isTrue();
+            slots.put(jobId, Math.ceilDiv(triggerTime, tick));
+        }
+
+        long previousTick = START / tick;
+        long now = START;
+        Map<Integer, Long> fired = new HashMap<>();
+        while (now < START + 210_000) {
+            now += 1 + random.nextInt(500);
+            long currentTick = now / tick;
+            List<Integer> due = wheel.advance(now);
+            long lastSlot = Long.MIN_VALUE;
+            for (int jobId : due) {
+                long slot = slots.get(jobId);
+                assertThat(slot).isGreaterThan(previousTick).isLessThanOrEqualTo(currentTick).isGreaterThanOrEqualTo(lastSlot);
+                assertThat(fired.put(jobId, slot)).isNull();
+                lastSlot = slot;
+            }
+            previousTick = currentTick;
+        }
+
+        assertThat(fired).hasSize(2000);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldRemoveCancelledJobFromAllLevels() {
+        JobTimingWheel wheel = new JobTimingWheel(100, 10, START);
+        wheel.add(1, START + 300);
+        wheel.add(1, START + 700);
+        wheel.add(1, START + 45_000);
+        wheel.add(2, START + 300);
+
+        assertThat(wheel.remove(1)).isEqualTo(3);
+        assertThat(wheel.remove(1)).isZero();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        // 重新调度后只按新的触发时间执行
+        wheel.add(1, START + 900);
+        assertThat(wheel.advance(START + 800)).containsExactly(2);
+        assertThat(wheel.advance(START + 50_000)).containsExactly(1);
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -4,8 +4,8 @@ import com.chua.common.support.task.layer.idempotent.IdempotentProvider;
 import com.chua.starter.lock.annotation.Idempotent;
 import com.chua.starter.lock.exception.IdempotentException;
 import com.chua.starter.lock.properties.LockProperties;
+import com.chua.starter.lock.support.IdempotentResult;
 import com.chua.starter.lock.support.MethodInvocationSupport;
-import com.chua.starter.lock.support.NullValue;
 import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -48,7 +48,7 @@ public class IdempotentAspect {
 
         if (!idempotentProvider.tryAcquire(idempotentKey, timeout, timeUnit)) {
             Object previousResult = idempotentProvider.getResult(idempotentKey);
-            boolean hasPreviousResult = previousResult != null || previousResult == NullValue.INSTANCE;
+            boolean hasPreviousResult = previousResult != null;
             return handleDuplicate(joinPoint, method, idempotent, previousResult, hasPreviousResult);
         }
 
@@ -57,7 +57,7 @@ public class IdempotentAspect {
             if (idempotent.deleteOnSuccess()) {
                 idempotentProvider.remove(idempotentKey);
             } else {
-                idempotentProvider.complete(idempotentKey, result == null ? NullValue.INSTANCE : result, timeout, timeUnit);
+                idempotentProvider.complete(idempotentKey, IdempotentResult.of(result, method.getGenericReturnType()), timeout, timeUnit);
             }
             return result;
         } catch (Throwable ex) {
@@ -68,15 +68,12 @@ public class IdempotentAspect {
 
     private Object handleDuplicate(ProceedingJoinPoint joinPoint, Method method, Idempotent idempotent,
                                    Object previousResult, boolean hasPreviousResult) throws Throwable {
-        if (previousResult == NullValue.INSTANCE) {
-            previousResult = null;
-        }
-
         return switch (idempotent.duplicateStrategy()) {
             case RETURN_NULL -> null;
             case RETURN_PREVIOUS -> {
                 if (hasPreviousResult) {
-                    yield previousResult;
+                    // 只有需要返回上次结果时才解码
+                    yield IdempotentResult.unwrap(previousResult);
                 }
                 throw new IdempotentException(idempotent.message());
             }
@@ -1,7 +1,6 @@
 package com.chua.starter.lock.aspect;
 
 import com.chua.common.support.concurrent.lock.LockProvider;
-import com.chua.common.support.concurrent.lock.LockSetting;
 import com.chua.common.support.concurrent.lock.Locked;
 import com.chua.common.support.math.unit.TimeUnit;
 import com.chua.starter.lock.exception.LockAcquireException;
@@ -15,9 +14,9 @@ import org.springframework.core.annotation.Order;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 锁切面，复用 utils-support 的锁能力并补齐 Spring AOP 适配。
@@ -31,6 +30,11 @@ public class LockedAspect {
 
     private final LockProviderFactory lockProviderFactory;
 
+    /**
+     * 按方法缓存的注解解析结果
+     */
+    private final Map<Method, LockTemplate> templates = new ConcurrentHashMap<>();
+
     public LockedAspect(LockProviderFactory lockProviderFactory) {
         this.lockProviderFactory = lockProviderFactory;
     }
@@ -38,59 +42,59 @@ public class LockedAspect {
     @Around("@annotation(locked)")
     public Object around(ProceedingJoinPoint joinPoint, Locked locked) throws Throwable {
         Method method = MethodInvocationSupport.resolveMethod(joinPoint);
-        String lockName = resolveLockName(joinPoint, method, locked);
-        long waitTime = parseTime(locked.waitTime());
-        long leaseTime = parseTime(locked.leaseTime());
-
-        LockSetting lockSetting = LockSetting.builder()
-                .name(lockName)
-                .lockType(resolveLockType(locked))
-                .fair(locked.type() == Locked.LockType.FAIR)
-                .waitTime(waitTime)
-                .leaseTime(leaseTime)
-                .reentrant(true)
-                .build();
-
-        LockProvider lockProvider = lockProviderFactory.createLock(lockName, lockSetting);
-        boolean lockedState = false;
-        try {
-            lockedState = lockProvider.tryLock(toTimeout(waitTime), java.util.concurrent.TimeUnit.MILLISECONDS);
-            if (!lockedState) {
-                if (locked.throwException()) {
-                    throw new LockAcquireException("无法获取锁: " + lockName);
+        LockTemplate template = templates.computeIfAbsent(method, key -> compileTemplate(locked));
+        String lockName = resolveLockName(joinPoint, method, template);
+
+        try (LockProviderFactory.LockHandle handle = lockProviderFactory.acquire(
+                lockName, template.lockType(), template.fair(), template.waitTime(), template.leaseTime())) {
+            LockProvider lockProvider = handle.provider();
+            boolean lockedState = false;
+            try {
+                lockedState = lockProvider.tryLock(toTimeout(template.waitTime()), java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (!lockedState) {
+                    if (locked.throwException()) {
+                        throw new LockAcquireException("无法获取锁: " + lockName);
+                    }
+                    if (StringUtils.hasText(locked.fallbackMethod())) {
+                        return MethodInvocationSupport.invokeFallback(joinPoint, method, locked.fallbackMethod());
+                    }
+                    return null;
                 }
-                if (StringUtils.hasText(locked.fallbackMethod())) {
-                    return MethodInvocationSupport.invokeFallback(joinPoint, method, locked.fallbackMethod());
+                return joinPoint.proceed();
+            } finally {
+                if (lockedState) {
+                    unlockQuietly(lockProvider);
                 }
-                return null;
-            }
-            return joinPoint.proceed();
-        } finally {
-            if (lockedState) {
-                unlockQuietly(lockProvider);
             }
         }
     }
 
-    private String resolveLockName(ProceedingJoinPoint joinPoint, Method method, Locked locked) {
-        String baseName = StringUtils.hasText(locked.name())
-                ? MethodInvocationSupport.evaluateToString(locked.name(), joinPoint, method)
+    private LockTemplate compileTemplate(Locked locked) {
+        return new LockTemplate(locked.name(), locked.keys(), resolveLockType(locked), locked.type() == Locked.LockType.FAIR,
+                parseTime(locked.waitTime()), parseTime(locked.leaseTime()));
+    }
+
+    private String resolveLockName(ProceedingJoinPoint joinPoint, Method method, LockTemplate template) {
+        String baseName = StringUtils.hasText(template.name())
+                ? MethodInvocationSupport.evaluateToString(template.name(), joinPoint, method)
                 : MethodInvocationSupport.buildMethodSignature(method);
 
         if (!StringUtils.hasText(baseName)) {
             baseName = MethodInvocationSupport.buildMethodSignature(method);
         }
 
-        List<String> parts = new ArrayList<>();
-        parts.add(baseName);
-        for (String key : locked.keys()) {
+        String[] keys = template.keys();
+        if (keys.length == 0) {
+            return baseName;
+        }
+        StringBuilder lockName = new StringBuilder(baseName);
+        for (String key : keys) {
             String value = MethodInvocationSupport.evaluateToString(key, joinPoint, method);
             if (StringUtils.hasText(value)) {
-                parts.add(value);
+                lockName.append(':').append(value);
             }
         }
-
-        return String.join(":", parts);
+        return lockName.toString();
     }
 
     private String resolveLockType(Locked locked) {
@@ -128,4 +132,7 @@ public class LockedAspect {
         } catch (IllegalMonitorStateException ignored) {
         }
     }
+
+    private record LockTemplate(String name, String[] keys, String lockType, boolean fair, long waitTime, long leaseTime) {
+    }
 }
@@ -1,7 +1,6 @@
 package com.chua.starter.lock.aspect;
 
 import com.chua.common.support.concurrent.lock.LockProvider;
-import com.chua.common.support.concurrent.lock.LockSetting;
 import com.chua.starter.lock.exception.LockAcquireException;
 import com.chua.starter.lock.properties.LockProperties;
 import com.chua.starter.lock.support.AnnotationAttributeSupport;
@@ -17,6 +16,7 @@ import org.springframework.util.StringUtils;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,10 +30,16 @@ import java.util.concurrent.TimeUnit;
 public class StrategyDistributedLockAspect {
 
     private static final String ANNOTATION_NAME = "com.chua.starter.strategy.annotation.DistributedLock";
+    private static final LockTemplate NO_ANNOTATION = new LockTemplate("", "", false, 0L, -1L, "", "", "");
 
     private final LockProviderFactory lockProviderFactory;
     private final LockProperties lockProperties;
 
+    /**
+     * 按方法缓存的注解属性，未标注注解的方法缓存为 {@link #NO_ANNOTATION}
+     */
+    private final Map<Method, LockTemplate> templates = new ConcurrentHashMap<>();
+
     public StrategyDistributedLockAspect(LockProviderFactory lockProviderFactory, LockProperties lockProperties) {
         this.lockProviderFactory = lockProviderFactory;
         this.lockProperties = lockProperties;
@@ -42,43 +48,49 @@ public class StrategyDistributedLockAspect {
     @Around("@annotation(com.chua.starter.strategy.annotation.DistributedLock)")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
         Method method = MethodInvocationSupport.resolveMethod(joinPoint);
+        LockTemplate template = templates.computeIfAbsent(method, this::compileTemplate);
+        if (template == NO_ANNOTATION) {
+            return joinPoint.proceed();
+        }
+
+        String lockName = resolveLockName(joinPoint, method, template.prefix(), template.key());
+        long waitTime = template.waitTime();
+
+        try (LockProviderFactory.LockHandle handle = lockProviderFactory.acquire(
+                lockName, resolveLockType(template.fair()), template.fair(), waitTime, template.leaseTime())) {
+            LockProvider lockProvider = handle.provider();
+            boolean lockedState = false;
+            try {
+                lockedState = lockProvider.tryLock(toTimeout(waitTime), java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (!lockedState) {
+                    return handleFailure(joinPoint, method, template.fallbackMethod(), template.errorMessage(), template.failStrategy());
+                }
+                return joinPoint.proceed();
+            } finally {
+                if (lockedState) {
+                    unlockQuietly(lockProvider);
+                }
+            }
+        }
+    }
+
+    private LockTemplate compileTemplate(Method method) {
         Annotation annotation = AnnotationAttributeSupport.findAnnotation(method, ANNOTATION_NAME);
         if (annotation == null) {
-            return joinPoint.proceed();
+            return NO_ANNOTATION;
         }
 
         Map<String, Object> attributes = AnnotationAttributeSupport.attributes(annotation);
         TimeUnit timeUnit = (TimeUnit) attributes.getOrDefault("timeUnit", TimeUnit.SECONDS);
-        boolean fair = AnnotationAttributeSupport.getBoolean(attributes, "fair", false);
-        String key = AnnotationAttributeSupport.getString(attributes, "key", "");
-        String prefix = AnnotationAttributeSupport.getString(attributes, "prefix", "");
-        String fallbackMethod = AnnotationAttributeSupport.getString(attributes, "fallbackMethod", "");
-        String errorMessage = AnnotationAttributeSupport.getString(attributes, "errorMessage", "获取分布式锁失败，请稍后重试");
-        String failStrategy = AnnotationAttributeSupport.getEnumName(attributes, "failStrategy", "EXCEPTION");
-
-        String lockName = resolveLockName(joinPoint, method, prefix, key);
-        LockSetting lockSetting = LockSetting.builder()
-                .name(lockName)
-                .lockType(resolveLockType(fair))
-                .fair(fair)
-                .waitTime(timeUnit.toMillis(AnnotationAttributeSupport.getLong(attributes, "waitTime", 0L)))
-                .leaseTime(timeUnit.toMillis(AnnotationAttributeSupport.getLong(attributes, "leaseTime", -1L)))
-                .reentrant(true)
-                .build();
-
-        LockProvider lockProvider = lockProviderFactory.createLock(lockName, lockSetting);
-        boolean lockedState = false;
-        try {
-            lockedState = lockProvider.tryLock(toTimeout(lockSetting.getWaitTime()), java.util.concurrent.TimeUnit.MILLISECONDS);
-            if (!lockedState) {
-                return handleFailure(joinPoint, method, fallbackMethod, errorMessage, failStrategy);
-            }
-            return joinPoint.proceed();
-        } finally {
-            if (lockedState) {
-                unlockQuietly(lockProvider);
-            }
-        }
+        return new LockTemplate(
+                AnnotationAttributeSupport.getString(attributes, "key", ""),
+                AnnotationAttributeSupport.getString(attributes, "prefix", ""),
+                AnnotationAttributeSupport.getBoolean(attributes, "fair", false),
+                timeUnit.toMillis(AnnotationAttributeSupport.getLong(attributes, "waitTime", 0L)),
+                timeUnit.toMillis(AnnotationAttributeSupport.getLong(attributes, "leaseTime", -1L)),
+                AnnotationAttributeSupport.getString(attributes, "fallbackMethod", ""),
+                AnnotationAttributeSupport.getString(attributes, "errorMessage", "获取分布式锁失败，请稍后重试"),
+                AnnotationAttributeSupport.getEnumName(attributes, "failStrategy", "EXCEPTION"));
     }
 
     private String resolveLockName(ProceedingJoinPoint joinPoint, Method method, String prefix, String keyExpression) {
@@ -118,4 +130,8 @@ public class StrategyDistributedLockAspect {
         } catch (IllegalMonitorStateException ignored) {
         }
     }
+
+    private record LockTemplate(String key, String prefix, boolean fair, long waitTime, long leaseTime,
+                                String fallbackMethod, String errorMessage, String failStrategy) {
+    }
 }
@@ -14,7 +14,10 @@ import com.chua.starter.lock.properties.LockProperties;
 import com.chua.starter.lock.provider.ReadLockProvider;
 import com.chua.starter.lock.provider.StripedLockProvider;
 import com.chua.starter.lock.provider.WriteLockProvider;
+import com.chua.starter.lock.support.JsonResultCodec;
 import com.chua.starter.lock.support.LockProviderFactory;
+import com.chua.starter.lock.support.ResultCodec;
+import com.chua.starter.lock.support.SmileResultCodec;
 import com.chua.starter.lock.support.StrategyAnnotationCompatibilityMarker;
 import com.chua.starter.lock.support.StoredResultCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -75,9 +78,20 @@ public class LockAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public StoredResultCodec storedResultCodec(ObjectProvider<ObjectMapper> objectMapperProvider) {
+    public ResultCodec idempotentResultCodec(ObjectProvider<ObjectMapper> objectMapperProvider, LockProperties lockProperties) {
         ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
-        return new StoredResultCodec(objectMapper);
+        LockProperties.IdempotentProperties idempotent = lockProperties.getIdempotent();
+        if ("json".equalsIgnoreCase(idempotent.getCodec())) {
+            return new JsonResultCodec(objectMapper);
+        }
+        return new SmileResultCodec(objectMapper, idempotent.getCompressThreshold());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StoredResultCodec storedResultCodec(ResultCodec idempotentResultCodec, ObjectProvider<ObjectMapper> objectMapperProvider) {
+        ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+        return new StoredResultCodec(idempotentResultCodec, objectMapper);
     }
 
     @Bean
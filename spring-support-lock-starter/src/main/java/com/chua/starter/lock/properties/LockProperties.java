@@ -61,6 +61,16 @@ public class LockProperties {
 
         private long localCleanIntervalSeconds = 60L;
 
+        /**
+         * Redis 幂等结果编码格式：smile（二进制）或 json
+         */
+        private String codec = "smile";
+
+        /**
+         * 结果超过该字节数时压缩，小于等于 0 表示不压缩，仅对 smile 生效
+         */
+        private int compressThreshold = 1024;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -108,6 +118,22 @@ public class LockProperties {
         public void setLocalCleanIntervalSeconds(long localCleanIntervalSeconds) {
             this.localCleanIntervalSeconds = localCleanIntervalSeconds;
         }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public void setCodec(String codec) {
+            this.codec = codec;
+        }
+
+        public int getCompressThreshold() {
+            return compressThreshold;
+        }
+
+        public void setCompressThreshold(int compressThreshold) {
+            this.compressThreshold = compressThreshold;
+        }
     }
 
     public static class CompatibilityProperties {
@@ -0,0 +1,153 @@
+package com.chua.starter.lock.provider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 引用计数的读写锁注册表。
+ *
+ * <p>读锁、写锁提供者共用同一把按名称和公平性区分的 {@link ReentrantReadWriteLock}。
+ * 每次加锁（包括等待中的加锁）持有一次引用，解锁或加锁失败时释放；引用归零即从注册表移除，
+ * 使用按实体生成的锁名时注册表大小只与当前持有或等待的锁数量相关。</p>
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public final class ReadWriteLockRegistry {
+
+    private static final Map<LockKey, Entry> LOCKS = new ConcurrentHashMap<>();
+
+    private ReadWriteLockRegistry() {
+    }
+
+    /**
+     * 获取读锁视图。
+     *
+     * @param name 锁名称
+     * @param fair 是否公平锁
+     * @return 读锁
+     */
+    public static Lock readLock(String name, boolean fair) {
+        return new RegisteredLock(new LockKey(name, fair), ReentrantReadWriteLock::readLock);
+    }
+
+    /**
+     * 获取写锁视图。
+     *
+     * @param name 锁名称
+     * @param fair 是否公平锁
+     * @return 写锁
+     */
+    public static Lock writeLock(String name, boolean fair) {
+        return new RegisteredLock(new LockKey(name, fair), ReentrantReadWriteLock::writeLock);
+    }
+
+    /**
+     * 当前被持有或等待中的锁数量
+     */
+    public static int size() {
+        return LOCKS.size();
+    }
+
+    private static ReentrantReadWriteLock retain(LockKey key) {
+        return LOCKS.compute(key, (k, entry) -> {
+            Entry current = entry == null ? new Entry(new ReentrantReadWriteLock(k.fair())) : entry;
+            current.references++;
+            return current;
+        }).lock;
+    }
+
+    private static void release(LockKey key) {
+        LOCKS.computeIfPresent(key, (k, entry) -> --entry.references == 0 ? null : entry);
+    }
+
+    private record LockKey(String name, boolean fair) {
+    }
+
+    /**
+     * 注册表条目，引用计数只在 {@link ConcurrentHashMap#compute} 内修改
+     */
+    private static final class Entry {
+
+        private final ReentrantReadWriteLock lock;
+        private int references;
+
+        private Entry(ReentrantReadWriteLock lock) {
+            this.lock = lock;
+        }
+    }
+
+    /**
+     * 按需从注册表取锁的 {@link Lock} 视图，自身不持有读写锁实例
+     */
+    private static final class RegisteredLock implements Lock {
+
+        private final LockKey key;
+        private final Function<ReentrantReadWriteLock, Lock> view;
+
+        private RegisteredLock(LockKey key, Function<ReentrantReadWriteLock, Lock> view) {
+            this.key = key;
+            this.view = view;
+        }
+
+        @Override
+        public void lock() {
+            view.apply(retain(key)).lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            Lock lock = view.apply(retain(key));
+            try {
+                lock.lockInterruptibly();
+            } catch (InterruptedException ex) {
+                release(key);
+                throw ex;
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (view.apply(retain(key)).tryLock()) {
+                return true;
+            }
+            release(key);
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            Lock lock = view.apply(retain(key));
+            boolean acquired = false;
+            try {
+                acquired = lock.tryLock(time, unit);
+                return acquired;
+            } finally {
+                if (!acquired) {
+                    release(key);
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            Entry entry = LOCKS.get(key);
+            if (entry == null) {
+                throw new IllegalMonitorStateException("锁未被持有: " + key.name());
+            }
+            // 持有期间引用计数大于 0，条目不会被替换
+            view.apply(entry.lock).unlock();
+            release(key);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("注册表中的锁不支持 Condition");
+        }
+    }
+}
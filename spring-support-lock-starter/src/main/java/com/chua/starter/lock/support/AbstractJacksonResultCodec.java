@@ -0,0 +1,77 @@
+package com.chua.starter.lock.support;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Jackson 的幂等结果编解码基类，负责类型解析与读写器缓存。
+ *
+ * <p>类型以 {@link JavaType#toCanonical()} 保存：声明类型为集合或 Map 时保留声明的泛型，
+ * 由 Jackson 选择默认实现；其余情况在声明类型可以特化时使用运行时类型，以便还原子类。</p>
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public abstract class AbstractJacksonResultCodec implements ResultCodec {
+
+    protected final ObjectMapper objectMapper;
+
+    private final Map<TypeKey, JavaType> types = new ConcurrentHashMap<>();
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Map<String, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    protected AbstractJacksonResultCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    protected JavaType resolveType(Object value, Type declaredType) {
+        return types.computeIfAbsent(new TypeKey(declaredType, value.getClass()), this::constructType);
+    }
+
+    protected ObjectWriter writer(JavaType type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    protected ObjectReader reader(String canonicalType) {
+        return readers.computeIfAbsent(canonicalType,
+                key -> objectMapper.readerFor(objectMapper.getTypeFactory().constructFromCanonical(key)));
+    }
+
+    private JavaType constructType(TypeKey key) {
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        Class<?> runtimeType = key.runtimeType();
+        if (key.declaredType() == null || key.declaredType() == Object.class) {
+            return typeFactory.constructType(runtimeType);
+        }
+
+        JavaType declared = typeFactory.constructType(key.declaredType());
+        if (declared.getRawClass() == runtimeType) {
+            return declared;
+        }
+        if (!declared.getRawClass().isAssignableFrom(runtimeType)) {
+            // 基本类型声明与包装类型返回值等情况
+            return typeFactory.constructType(runtimeType);
+        }
+        if (declared.isContainerType()) {
+            return declared;
+        }
+        if (declared.containedTypeCount() > 0) {
+            try {
+                return typeFactory.constructSpecializedType(declared, runtimeType);
+            } catch (IllegalArgumentException ex) {
+                return declared;
+            }
+        }
+        return typeFactory.constructType(runtimeType);
+    }
+
+    private record TypeKey(Type declaredType, Class<?> runtimeType) {
+    }
+}
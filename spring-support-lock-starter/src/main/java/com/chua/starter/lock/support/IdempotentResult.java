@@ -0,0 +1,84 @@
+package com.chua.starter.lock.support;
+
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+/**
+ * 幂等结果。
+ *
+ * <p>写入时携带方法声明的返回类型，供 {@link ResultCodec} 保留泛型信息；从存储读出时只保存编码后的字符串，
+ * 直到重复请求确实需要返回上次结果时才解码。</p>
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public final class IdempotentResult {
+
+    private static final Object UNRESOLVED = new Object();
+
+    private final Type declaredType;
+    private final String encoded;
+    private final Function<String, Object> decoder;
+    private volatile Object value;
+
+    private IdempotentResult(Object value, Type declaredType, String encoded, Function<String, Object> decoder) {
+        this.value = value;
+        this.declaredType = declaredType;
+        this.encoded = encoded;
+        this.decoder = decoder;
+    }
+
+    /**
+     * 包装方法返回值。
+     *
+     * @param value        返回值
+     * @param declaredType 方法声明的返回类型
+     * @return 幂等结果
+     */
+    public static IdempotentResult of(Object value, Type declaredType) {
+        return new IdempotentResult(value == NullValue.INSTANCE ? null : value, declaredType, null, null);
+    }
+
+    /**
+     * 包装尚未解码的存储内容。
+     *
+     * @param encoded 编码后的内容
+     * @param decoder 解码函数
+     * @return 幂等结果
+     */
+    public static IdempotentResult encoded(String encoded, Function<String, Object> decoder) {
+        return new IdempotentResult(UNRESOLVED, null, encoded, decoder);
+    }
+
+    /**
+     * 取出真实返回值，兼容直接存储的对象与 {@link NullValue}。
+     *
+     * @param stored 幂等存储中读出的值
+     * @return 返回值
+     */
+    public static Object unwrap(Object stored) {
+        if (stored instanceof IdempotentResult result) {
+            return result.getValue();
+        }
+        return stored == NullValue.INSTANCE ? null : stored;
+    }
+
+    /**
+     * 返回值，首次调用时解码
+     */
+    public Object getValue() {
+        Object current = value;
+        if (current == UNRESOLVED) {
+            current = decoder.apply(encoded);
+            value = current;
+        }
+        return current;
+    }
+
+    /**
+     * 方法声明的返回类型，从存储读出的结果为 null
+     */
+    public Type getDeclaredType() {
+        return declaredType;
+    }
+}
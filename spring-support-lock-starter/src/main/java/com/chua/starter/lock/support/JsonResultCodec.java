@@ -0,0 +1,85 @@
+package com.chua.starter.lock.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Type;
+
+/**
+ * JSON 文本格式的幂等结果编解码器，即早期版本使用的 {@code {"type":..,"payload":..}} 包装格式。
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public class JsonResultCodec extends AbstractJacksonResultCodec {
+
+    public JsonResultCodec(ObjectMapper objectMapper) {
+        super(objectMapper.copy().findAndRegisterModules());
+    }
+
+    @Override
+    public String encode(Object value, Type declaredType) {
+        StoredResult storedResult = new StoredResult();
+        if (value == null || value == NullValue.INSTANCE) {
+            storedResult.setNullValue(true);
+        } else {
+            JavaType type = resolveType(value, declaredType);
+            storedResult.setType(type.toCanonical());
+            storedResult.setPayload(objectMapper.valueToTree(value));
+        }
+        try {
+            return objectMapper.writeValueAsString(storedResult);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("序列化幂等结果失败", ex);
+        }
+    }
+
+    @Override
+    public Object decode(String data) {
+        try {
+            StoredResult storedResult = objectMapper.readValue(data, StoredResult.class);
+            if (storedResult.isNullValue() || storedResult.getPayload() == null) {
+                return null;
+            }
+            if (!StringUtils.hasText(storedResult.getType())) {
+                return objectMapper.treeToValue(storedResult.getPayload(), Object.class);
+            }
+            return reader(storedResult.getType()).readValue(storedResult.getPayload());
+        } catch (Exception ex) {
+            throw new IllegalStateException("反序列化幂等结果失败", ex);
+        }
+    }
+
+    public static class StoredResult {
+        private boolean nullValue;
+        private String type;
+        private JsonNode payload;
+
+        public boolean isNullValue() {
+            return nullValue;
+        }
+
+        public void setNullValue(boolean nullValue) {
+            this.nullValue = nullValue;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public JsonNode getPayload() {
+            return payload;
+        }
+
+        public void setPayload(JsonNode payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -9,6 +9,10 @@ import com.chua.starter.lock.provider.WriteLockProvider;
 import org.springframework.util.StringUtils;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 锁提供者工厂。
@@ -16,15 +20,33 @@ import java.util.Locale;
  * <p>对 read/write/striped 等 spring-support 扩展类型做显式分派，
  * 其余类型继续委托给 utils-support 的 LockFlow。</p>
  *
+ * <p>切面通过 {@link #acquire} 复用按名称、类型缓存的提供者。缓存条目带引用计数，
+ * 持有或等待锁期间不会被淘汰；条目数超过上限时只清理当前无人使用的条目。</p>
+ *
  * @author CH
  * @since 2026-03-28
  */
 public class LockProviderFactory {
 
+    /**
+     * 默认缓存的提供者数量上限
+     */
+    public static final int DEFAULT_MAXIMUM_PROVIDERS = 10_000;
+
+    private final int maximumProviders;
+    private final Map<ProviderKey, CachedProvider> providers = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public LockProviderFactory() {
+        this(DEFAULT_MAXIMUM_PROVIDERS);
+    }
+
+    public LockProviderFactory(int maximumProviders) {
+        this.maximumProviders = Math.max(1, maximumProviders);
+    }
+
     public LockProvider createLock(String name, LockSetting setting) {
-        String lockType = StringUtils.hasText(setting.getLockType())
-                ? setting.getLockType().toLowerCase(Locale.ROOT)
-                : "reentrant";
+        String lockType = normalizeLockType(setting.getLockType());
 
         return switch (lockType) {
             case "read" -> new ReadLockProvider(name, setting.isFair());
@@ -33,4 +55,125 @@ public class LockProviderFactory {
             default -> LockFlow.createLock(name, setting);
         };
     }
+
+    /**
+     * 获取缓存的锁提供者，使用完毕后必须关闭返回的句柄。
+     *
+     * @param name      锁名称
+     * @param lockType  锁类型
+     * @param fair      是否公平锁
+     * @param waitTime  等待时间（毫秒），仅在首次创建提供者时使用
+     * @param leaseTime 持有时间（毫秒）
+     * @return 锁句柄
+     */
+    public LockHandle acquire(String name, String lockType, boolean fair, long waitTime, long leaseTime) {
+        ProviderKey key = new ProviderKey(name, normalizeLockType(lockType), fair, leaseTime);
+        while (true) {
+            CachedProvider cached = providers.get(key);
+            if (cached == null) {
+                CachedProvider created = new CachedProvider(createLock(name, LockSetting.builder()
+                        .name(name)
+                        .lockType(key.lockType())
+                        .fair(fair)
+                        .waitTime(waitTime)
+                        .leaseTime(leaseTime)
+                        .reentrant(true)
+                        .build()));
+                cached = providers.putIfAbsent(key, created);
+                if (cached == null) {
+                    if (providers.size() > maximumProviders) {
+                        evictUnused();
+                    }
+                    return new LockHandle(created);
+                }
+            }
+            if (cached.retain()) {
+                return new LockHandle(cached);
+            }
+            // 条目已被淘汰，重新创建
+            providers.remove(key, cached);
+        }
+    }
+
+    /**
+     * 当前缓存的提供者数量
+     */
+    public int getCachedProviderCount() {
+        return providers.size();
+    }
+
+    private void evictUnused() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            providers.forEach((key, cached) -> {
+                if (cached.retire()) {
+                    providers.remove(key, cached);
+                }
+            });
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String normalizeLockType(String lockType) {
+        return StringUtils.hasText(lockType) ? lockType.toLowerCase(Locale.ROOT) : "reentrant";
+    }
+
+    /**
+     * 锁句柄，关闭后释放对缓存提供者的引用，不会释放锁本身
+     */
+    public static final class LockHandle implements AutoCloseable {
+
+        private final CachedProvider cached;
+
+        private LockHandle(CachedProvider cached) {
+            this.cached = cached;
+        }
+
+        public LockProvider provider() {
+            return cached.provider;
+        }
+
+        @Override
+        public void close() {
+            cached.release();
+        }
+    }
+
+    private record ProviderKey(String name, String lockType, boolean fair, long leaseTime) {
+    }
+
+    /**
+     * 缓存条目，引用计数为 -1 表示已被淘汰
+     */
+    private static final class CachedProvider {
+
+        private final LockProvider provider;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private CachedProvider(LockProvider provider) {
+            this.provider = provider;
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current < 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            references.decrementAndGet();
+        }
+
+        private boolean retire() {
+            return references.compareAndSet(0, -1);
+        }
+    }
 }
@@ -12,8 +12,6 @@ import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -26,6 +24,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 方法调用辅助工具。
@@ -35,12 +35,16 @@ import java.util.Arrays;
  */
 public final class MethodInvocationSupport {
 
-    private static final ExpressionParser SPEL_PARSER = new SpelExpressionParser();
     private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
     private static final Method HEADER_FUNCTION = ReflectionUtils.findMethod(MethodInvocationSupport.class, "header", String.class);
     private static final Method PARAM_FUNCTION = ReflectionUtils.findMethod(MethodInvocationSupport.class, "param", String.class);
     private static final Method SESSION_ATTR_FUNCTION = ReflectionUtils.findMethod(MethodInvocationSupport.class, "sessionAttr", String.class);
 
+    /**
+     * 按方法和表达式缓存的编译结果，表达式来自注解，数量随方法数有界
+     */
+    private static final Map<ExpressionKey, CompiledKeyExpression> EXPRESSIONS = new ConcurrentHashMap<>();
+
     private MethodInvocationSupport() {
     }
 
@@ -63,7 +67,9 @@ public final class MethodInvocationSupport {
         }
 
         try {
-            Object value = SPEL_PARSER.parseExpression(expression).getValue(buildEvaluationContext(joinPoint, method));
+            CompiledKeyExpression compiled = EXPRESSIONS.computeIfAbsent(new ExpressionKey(method, expression),
+                    key -> CompiledKeyExpression.compile(key.method(), key.expression(), PARAMETER_NAME_DISCOVERER));
+            Object value = compiled.getValue(joinPoint.getArgs(), () -> buildEvaluationContext(joinPoint, method));
             return value == null ? "" : String.valueOf(value);
         } catch (Exception ex) {
             ProxyMethod proxyMethod = ProxyMethod.builder()
@@ -207,4 +213,7 @@ public final class MethodInvocationSupport {
         }
         return new byte[0];
     }
+
+    private record ExpressionKey(Method method, String expression) {
+    }
 }
@@ -0,0 +1,32 @@
+package com.chua.starter.lock.support;
+
+import java.lang.reflect.Type;
+
+/**
+ * 幂等结果编解码 SPI。
+ *
+ * <p>编码结果以字符串形式存入 Redis，实现需要自行保存足以还原声明类型的类型信息。
+ * 默认实现为 {@link SmileResultCodec}，可通过声明该类型的 Bean 替换。</p>
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public interface ResultCodec {
+
+    /**
+     * 编码。
+     *
+     * @param value        返回值，可能为 null 或 {@link NullValue#INSTANCE}
+     * @param declaredType 方法声明的返回类型，未知时为 null
+     * @return 编码结果
+     */
+    String encode(Object value, Type declaredType);
+
+    /**
+     * 解码。
+     *
+     * @param data 编码结果
+     * @return 返回值，原值为 null 时返回 null
+     */
+    Object decode(String data);
+}
@@ -0,0 +1,166 @@
+package com.chua.starter.lock.support;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Smile 二进制格式的幂等结果编解码器。
+ *
+ * <p>编码布局：标志位（1 字节）、类型长度（变长整数）、类型、[原始长度（变长整数）]、Smile 数据，
+ * 整体以无填充 Base64 存为字符串。Smile 数据达到压缩阈值且压缩后更小时使用 Deflate 压缩。
+ * Base64 字符集不含 {@code '{'}，可与 {@link JsonResultCodec} 的历史数据区分。</p>
+ *
+ * @author CH
+ * @since 2026-03-28
+ */
+public class SmileResultCodec extends AbstractJacksonResultCodec {
+
+    /**
+     * 默认压缩阈值（字节）
+     */
+    public static final int DEFAULT_COMPRESS_THRESHOLD = 1024;
+
+    private static final int FLAG_NULL = 1;
+    private static final int FLAG_DEFLATED = 1 << 1;
+
+    private static final String NULL_RESULT = Base64.getEncoder().withoutPadding().encodeToString(new byte[]{FLAG_NULL});
+
+    private final int compressThreshold;
+
+    public SmileResultCodec(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_COMPRESS_THRESHOLD);
+    }
+
+    /**
+     * @param objectMapper      提供模块与序列化配置的 ObjectMapper
+     * @param compressThreshold 压缩阈值（字节），小于等于 0 表示不压缩
+     */
+    public SmileResultCodec(ObjectMapper objectMapper, int compressThreshold) {
+        super(objectMapper.copyWith(new SmileFactory()).findAndRegisterModules());
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public String encode(Object value, Type declaredType) {
+        if (value == null || value == NullValue.INSTANCE) {
+            return NULL_RESULT;
+        }
+
+        try {
+            JavaType type = resolveType(value, declaredType);
+            byte[] payload = writer(type).writeValueAsBytes(value);
+            byte[] typeName = type.toCanonical().getBytes(StandardCharsets.UTF_8);
+
+            int flags = 0;
+            int rawLength = payload.length;
+            if (compressThreshold > 0 && payload.length >= compressThreshold) {
+                byte[] deflated = deflate(payload);
+                if (deflated.length < payload.length) {
+                    payload = deflated;
+                    flags |= FLAG_DEFLATED;
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + typeName.length + 12);
+            out.write(flags);
+            writeVarInt(out, typeName.length);
+            out.write(typeName, 0, typeName.length);
+            if ((flags & FLAG_DEFLATED) != 0) {
+                writeVarInt(out, rawLength);
+            }
+            out.write(payload, 0, payload.length);
+            return Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+        } catch (Exception ex) {
+            throw new IllegalStateException("序列化幂等结果失败", ex);
+        }
+    }
+
+    @Override
+    public Object decode(String data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(data));
+            int flags = buffer.get();
+            if ((flags & FLAG_NULL) != 0) {
+                return null;
+            }
+
+            byte[] typeName = new byte[readVarInt(buffer)];
+            buffer.get(typeName);
+            byte[] payload;
+            if ((flags & FLAG_DEFLATED) != 0) {
+                payload = inflate(buffer, readVarInt(buffer));
+            } else {
+                payload = new byte[buffer.remaining()];
+                buffer.get(payload);
+            }
+            return reader(new String(typeName, StandardCharsets.UTF_8)).readValue(payload);
+        } catch (Exception ex) {
+            throw new IllegalStateException("反序列化幂等结果失败", ex);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] chunk = new byte[Math.min(data.length, 8192)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer buffer, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(buffer);
+            byte[] result = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength) {
+                int read = inflater.inflate(result, offset, rawLength - offset);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new DataFormatException("压缩数据不完整");
+                }
+                offset += read;
+            }
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+}
@@ -1,96 +1,57 @@
 package com.chua.starter.lock.support;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 /**
  * Redis 幂等结果编解码器。
  *
+ * <p>写入委托给配置的 {@link ResultCodec}；读取时只包装为 {@link IdempotentResult}，
+ * 由重复请求按需解码。使用 {@link SmileResultCodec} 时，以 {@code '{'} 开头的内容按
+ * {@link JsonResultCodec} 的历史格式解码，升级前写入的数据在过期前仍可读取。</p>
+ *
  * @author CH
  * @since 2026-03-28
  */
 public class StoredResultCodec {
 
-    private final ObjectMapper objectMapper;
+    private final ResultCodec resultCodec;
+    private final ResultCodec legacyCodec;
 
     public StoredResultCodec(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper.copy().findAndRegisterModules();
+        this(new SmileResultCodec(objectMapper), objectMapper);
+    }
+
+    public StoredResultCodec(ResultCodec resultCodec, ObjectMapper objectMapper) {
+        this.resultCodec = resultCodec;
+        // Smile 编码不会以 '{' 开头，其它实现自行负责兼容
+        this.legacyCodec = resultCodec instanceof SmileResultCodec ? new JsonResultCodec(objectMapper) : null;
     }
 
     public String serialize(Object value) {
-        try {
-            return objectMapper.writeValueAsString(StoredResult.from(value, objectMapper));
-        } catch (JsonProcessingException ex) {
-            throw new IllegalStateException("序列化幂等结果失败", ex);
+        if (value instanceof IdempotentResult result) {
+            return resultCodec.encode(result.getValue(), result.getDeclaredType());
         }
+        return resultCodec.encode(value, null);
     }
 
     public Object deserialize(String value) {
         if (!StringUtils.hasText(value)) {
             return null;
         }
-
-        try {
-            StoredResult storedResult = objectMapper.readValue(value, StoredResult.class);
-            if (storedResult.isNullValue()) {
-                return NullValue.INSTANCE;
-            }
-            if (storedResult.getPayload() == null) {
-                return null;
-            }
-            if (!StringUtils.hasText(storedResult.getType())) {
-                return objectMapper.treeToValue(storedResult.getPayload(), Object.class);
-            }
-
-            Class<?> targetType = ClassUtils.forName(storedResult.getType(), Thread.currentThread().getContextClassLoader());
-            return objectMapper.treeToValue(storedResult.getPayload(), targetType);
-        } catch (Exception ex) {
-            throw new IllegalStateException("反序列化幂等结果失败", ex);
-        }
+        return IdempotentResult.encoded(value, this::decode);
     }
 
-    public static class StoredResult {
-        private boolean nullValue;
-        private String type;
-        private JsonNode payload;
-
-        public static StoredResult from(Object value, ObjectMapper objectMapper) {
-            StoredResult storedResult = new StoredResult();
-            if (value == null || value == NullValue.INSTANCE) {
-                storedResult.setNullValue(true);
-                return storedResult;
-            }
-
-            storedResult.setType(value.getClass().getName());
-            storedResult.setPayload(objectMapper.valueToTree(value));
-            return storedResult;
-        }
-
-        public boolean isNullValue() {
-            return nullValue;
-        }
-
-        public void setNullValue(boolean nullValue) {
-            this.nullValue = nullValue;
-        }
-
-        public String getType() {
-            return type;
-        }
-
-        public void setType(String type) {
-            this.type = type;
-        }
-
-        public JsonNode getPayload() {
-            return payload;
-        }
-
-        public void setPayload(JsonNode payload) {
-            this.payload = payload;
-        }
+    /**
+     * 立即解码。
+     *
+     * @param value 编码后的内容
+     * @return 返回值
+     */
+    public Object decode(String value) {
+        if (legacyCodec != null && value.charAt(0) == '{') {
+            return legacyCodec.decode(value);
+        }
+        return resultCodec.decode(value);
     }
 }
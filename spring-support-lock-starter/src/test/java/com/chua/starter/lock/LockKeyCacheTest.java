@@ -0,0 +1,103 @@
+package com.chua.starter.lock;
+
+import com.chua.common.support.concurrent.lock.LockProvider;
+import com.chua.starter.lock.support.CompiledKeyExpression;
+import com.chua.starter.lock.support.LockProviderFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockKeyCacheTest {
+
+    private static final ParameterNameDiscoverer DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    @Test
+    void shouldResolveSimpleReferencesWithoutSpel() throws Exception {
+        Method method = KeyService.class.getMethod("submit", String.class, Order.class, Map.class);
+        Object[] args = {"tenant-1", new Order(42L), Map.of("code", "A")};
+
+        CompiledKeyExpression name = CompiledKeyExpression.compile(method, "#tenant", DISCOVERER);
+        CompiledKeyExpression property = CompiledKeyExpression.compile(method, "#order.id", DISCOVERER);
+        CompiledKeyExpression alias = CompiledKeyExpression.compile(method, "#p1.id", DISCOVERER);
+
+        assertThat(name.isDirectReference()).isTrue();
+        assertThat(property.isDirectReference()).isTrue();
+        assertThat(alias.isDirectReference()).isTrue();
+        assertThat(name.getValue(args, () -> {
+            throw new AssertionError("SpEL should not be used");
+        })).isEqualTo("tenant-1");
+        assertThat(property.getValue(args, () -> {
+            throw new AssertionError("SpEL should not be used");
+        })).isEqualTo(42L);
+        assertThat(alias.getValue(args, () -> {
+            throw new AssertionError("SpEL should not be used");
+        })).isEqualTo(42L);
+    }
+
+    @Test
+    void shouldAgreeWithSpelForCompiledExpressions() throws Exception {
+        Method method = KeyService.class.getMethod("submit", String.class, Order.class, Map.class);
+        Object[] args = {"tenant-1", new Order(42L), Map.of("code", "A")};
+
+        CompiledKeyExpression concat = CompiledKeyExpression.compile(method, "#tenant + ':' + #order.id", DISCOVERER);
+        CompiledKeyExpression index = CompiledKeyExpression.compile(method, "#attributes['code']", DISCOVERER);
+
+        assertThat(concat.isDirectReference()).isFalse();
+        assertThat(index.isDirectReference()).isFalse();
+        for (int i = 0; i < 3; i++) {
+            // 首次解释执行，之后走编译后的字节码
+            assertThat(concat.getValue(args, () -> context(method, args))).isEqualTo("tenant-1:42");
+            assertThat(index.getValue(args, () -> context(method, args))).isEqualTo("A");
+        }
+    }
+
+    @Test
+    void shouldReuseProvidersAndKeepHeldOnesOnEviction() throws Exception {
+        LockProviderFactory factory = new LockProviderFactory(4);
+
+        try (LockProviderFactory.LockHandle held = factory.acquire("order:1", "reentrant", false, 0L, -1L)) {
+            LockProvider provider = held.provider();
+            assertThat(provider.tryLock(0, TimeUnit.MILLISECONDS)).isTrue();
+            try {
+                for (int i = 0; i < 100; i++) {
+                    factory.acquire("order:tmp:" + i, "reentrant", false, 0L, -1L).close();
+                }
+                assertThat(factory.getCachedProviderCount()).isLessThanOrEqualTo(5);
+
+                try (LockProviderFactory.LockHandle again = factory.acquire("order:1", "reentrant", false, 0L, -1L)) {
+                    assertThat(again.provider()).isSameAs(provider);
+                }
+            } finally {
+                provider.unlock();
+            }
+        }
+    }
+
+    private static MethodBasedEvaluationContext context(Method method, Object[] args) {
+        return new MethodBasedEvaluationContext(null, method, args, DISCOVERER);
+    }
+
+    public static class Order {
+        private final Long id;
+
+        public Order(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class KeyService {
+        public void submit(String tenant, Order order, Map<String, String> attributes) {
+        }
+    }
+}
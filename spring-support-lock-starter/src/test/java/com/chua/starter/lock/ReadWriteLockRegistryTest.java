@@ -0,0 +1,75 @@
+package com.chua.starter.lock;
+
+import com.chua.starter.lock.provider.ReadLockProvider;
+import com.chua.starter.lock.provider.ReadWriteLockRegistry;
+import com.chua.starter.lock.provider.WriteLockProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteLockRegistryTest {
+
+    @Test
+    void shouldReleaseEntriesAcrossMillionsOfDistinctNames() throws Exception {
+        int baseline = ReadWriteLockRegistry.size();
+        for (int i = 0; i < 2_000_000; i++) {
+            Lock lock = (i & 1) == 0
+                    ? ReadWriteLockRegistry.readLock("order:" + i, false)
+                    : ReadWriteLockRegistry.writeLock("order:" + i, false);
+            assertThat(lock.tryLock(0, TimeUnit.MILLISECONDS)).isTrue();
+            lock.unlock();
+        }
+
+        assertThat(ReadWriteLockRegistry.size()).isEqualTo(baseline);
+    }
+
+    @Test
+    void shouldShareTheSameLockBetweenReadAndWriteProviders() throws Exception {
+        ReadLockProvider readLock = new ReadLockProvider("shared-rw", false);
+        WriteLockProvider writeLock = new WriteLockProvider("shared-rw", false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(readLock.tryLock(0, TimeUnit.MILLISECONDS)).isTrue();
+            Future<Boolean> writer = executor.submit(() -> writeLock.tryLock(0, TimeUnit.MILLISECONDS));
+            assertThat(writer.get(5, TimeUnit.SECONDS)).isFalse();
+            readLock.unlock();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepEntryWhileAnotherThreadIsWaiting() throws Exception {
+        int baseline = ReadWriteLockRegistry.size();
+        Lock holder = ReadWriteLockRegistry.writeLock("waiting", false);
+        Lock waiter = ReadWriteLockRegistry.writeLock("waiting", false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            holder.lock();
+            CountDownLatch waiting = new CountDownLatch(1);
+            Future<Boolean> acquired = executor.submit(() -> {
+                waiting.countDown();
+                boolean locked = waiter.tryLock(5, TimeUnit.SECONDS);
+                if (locked) {
+                    waiter.unlock();
+                }
+                return locked;
+            });
+            waiting.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50L);
+            holder.unlock();
+
+            assertThat(acquired.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(ReadWriteLockRegistry.size()).isEqualTo(baseline);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
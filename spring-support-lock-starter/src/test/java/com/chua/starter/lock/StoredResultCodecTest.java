@@ -0,0 +1,141 @@
+package com.chua.starter.lock;
+
+import com.chua.starter.lock.support.IdempotentResult;
+import com.chua.starter.lock.support.JsonResultCodec;
+import com.chua.starter.lock.support.NullValue;
+import com.chua.starter.lock.support.SmileResultCodec;
+import com.chua.starter.lock.support.StoredResultCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoredResultCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldPreserveDeclaredGenericReturnType() throws Exception {
+        StoredResultCodec codec = new StoredResultCodec(new SmileResultCodec(objectMapper), objectMapper);
+        Type declaredType = ResultService.class.getMethod("orders").getGenericReturnType();
+
+        String stored = codec.serialize(IdempotentResult.of(List.of(new Order(1L, "a"), new Order(2L, "b")), declaredType));
+        Object replayed = IdempotentResult.unwrap(codec.deserialize(stored));
+
+        assertThat(replayed).asList().hasSize(2);
+        assertThat(((List<?>) replayed).get(0)).isInstanceOf(Order.class);
+        assertThat(((Order) ((List<?>) replayed).get(1)).getName()).isEqualTo("b");
+    }
+
+    @Test
+    void shouldRestoreSubclassAndNullResults() throws Exception {
+        StoredResultCodec codec = new StoredResultCodec(new SmileResultCodec(objectMapper), objectMapper);
+        Type declaredType = ResultService.class.getMethod("order").getGenericReturnType();
+
+        Object subclass = IdempotentResult.unwrap(codec.deserialize(
+                codec.serialize(IdempotentResult.of(new VipOrder(3L, "vip", 2), declaredType))));
+        Object nullResult = codec.deserialize(codec.serialize(IdempotentResult.of(null, declaredType)));
+
+        assertThat(subclass).isInstanceOf(VipOrder.class);
+        assertThat(((VipOrder) subclass).getLevel()).isEqualTo(2);
+        assertThat(nullResult).isNotNull();
+        assertThat(IdempotentResult.unwrap(nullResult)).isNull();
+        assertThat(IdempotentResult.unwrap(codec.deserialize(codec.serialize(NullValue.INSTANCE)))).isNull();
+    }
+
+    @Test
+    void shouldCompressLargeResultsAndStaySmallerThanJson() throws Exception {
+        Type declaredType = ResultService.class.getMethod("orders").getGenericReturnType();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            orders.add(new Order((long) i, "order-name-" + i));
+        }
+        StoredResultCodec smile = new StoredResultCodec(new SmileResultCodec(objectMapper, 256), objectMapper);
+        StoredResultCodec json = new StoredResultCodec(new JsonResultCodec(objectMapper), objectMapper);
+
+        String compact = smile.serialize(IdempotentResult.of(orders, declaredType));
+        String text = json.serialize(IdempotentResult.of(orders, declaredType));
+
+        assertThat(compact.length()).isLessThan(text.length() / 2);
+        assertThat(IdempotentResult.unwrap(smile.deserialize(compact))).asList().hasSize(500);
+        assertThat(IdempotentResult.unwrap(json.deserialize(text))).asList().hasSize(500);
+    }
+
+    @Test
+    void shouldDecodeLegacyJsonAndDecodeLazily() {
+        StoredResultCodec codec = new StoredResultCodec(objectMapper);
+        String legacy = "{\"nullValue\":false,\"type\":\"java.lang.String\",\"payload\":\"previous\"}";
+
+        assertThat(IdempotentResult.unwrap(codec.deserialize(legacy))).isEqualTo("previous");
+
+        AtomicInteger decodes = new AtomicInteger();
+        IdempotentResult lazy = IdempotentResult.encoded("encoded", value -> {
+            decodes.incrementAndGet();
+            return "decoded";
+        });
+        assertThat(decodes).hasValue(0);
+        assertThat(lazy.getValue()).isEqualTo("decoded");
+        assertThat(lazy.getValue()).isEqualTo("decoded");
+        assertThat(decodes).hasValue(1);
+    }
+
+    public interface ResultService {
+        List<Order> orders();
+
+        Order order();
+    }
+
+    public static class Order {
+        private Long id;
+        private String name;
+
+        public Order() {
+        }
+
+        public Order(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class VipOrder extends Order {
+        private int level;
+
+        public VipOrder() {
+        }
+
+        public VipOrder(Long id, String name, int level) {
+            super(id, name);
+            this.level = level;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,731 @@
+package com.chua.starter.queue.kafka;
+
+import com.chua.starter.queue.Acknowledgment;
+import com.chua.starter.queue.Message;
+import com.chua.starter.queue.MessageHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分区有序、并行处理的 Kafka 消费者
+ * <p>
+ * 单个轮询线程负责 poll、分发、暂停/恢复和提交偏移（KafkaConsumer 非线程安全），
+ * 消息按顺序通道交给虚拟线程处理：
+ * </p>
+ * <ul>
+ *     <li>PARTITION 模式：同一分区串行，不同分区并行</li>
+ *     <li>KEY 模式：同一分区内按 key 哈希到固定通道，同 key 串行，不同 key 并行</li>
+ *     <li>在途消息数达到上限时暂停拉取，回落到一半后恢复</li>
+ *     <li>只异步提交"连续处理完成"的偏移：提交位置为该分区最小的未完成偏移</li>
+ *     <li>手动确认模式下未确认或处理异常的消息会阻止后续偏移提交，
+ *     待分区在途消息处理完后按指数退避暂停该分区，再回退到该偏移重新消费</li>
+ *     <li>同一偏移连续失败达到 {@link RetryPolicy#maxAttempts()} 次后转入死信主题，未配置死信主题时跳过该消息；
+ *     处理器调用 {@code nackToDeadLetter} 时不再重试，直接转入其指定的队列；
+ *     死信异步发送，轮询线程不等待，发送确认后才提交越过该偏移；发送失败或超时时继续退避重试，不会丢弃消息</li>
+ * </ul>
+ *
+ * @author CH
+ * @since 2025-12-25
+ */
+@Slf4j
+class KafkaOrderedConsumerRunner {
+
+    /**
+     * 顺序模式
+     */
+    enum OrderingMode {
+        /**
+         * 分区内有序
+         */
+        PARTITION,
+        /**
+         * 分区内同 key 有序
+         */
+        KEY;
+
+        static OrderingMode of(String value) {
+            return "key".equalsIgnoreCase(value) ? KEY : PARTITION;
+        }
+    }
+
+    /**
+     * 失败重试策略
+     *
+     * @param maxAttempts      同一消息最多处理次数
+     * @param backoffMillis    首次重试前的退避时间，之后每次翻倍
+     * @param maxBackoffMillis 最大退避时间
+     * @param deadLetterSuffix 死信主题后缀，为空时重试耗尽后跳过消息
+     * @param sendTimeoutMs    死信发送超时（毫秒），超时未确认视为失败
+     */
+    record RetryPolicy(int maxAttempts, long backoffMillis, long maxBackoffMillis, String deadLetterSuffix,
+                       long sendTimeoutMs) {
+
+        static final RetryPolicy DEFAULT = new RetryPolicy(5, 1000, 30000, ".DLQ", 30000);
+
+        long backoff(int attempts) {
+            long delay = Math.max(0, backoffMillis) << Math.min(Math.max(0, attempts - 1), 20);
+            return Math.min(delay, Math.max(backoffMillis, maxBackoffMillis));
+        }
+    }
+
+    static final String HEADER_ORIGINAL_TOPIC = "x-original-topic";
+    static final String HEADER_ORIGINAL_PARTITION = "x-original-partition";
+    static final String HEADER_ORIGINAL_OFFSET = "x-original-offset";
+    static final String HEADER_DEAD_LETTER_REASON = "x-dead-letter-reason";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final Consumer<String, byte[]> consumer;
+    private final MessageHandler handler;
+    private final String destination;
+    private final boolean autoAck;
+    private final int keyLanes;
+    private final int maxInFlight;
+    private final long commitIntervalMillis;
+    private final RetryPolicy retryPolicy;
+    private final Producer<String, byte[]> deadLetterProducer;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<TopicPartition, PartitionState> partitions = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+    private boolean throttled;
+    private long lastCommitMillis;
+    private Thread pollThread;
+
+    KafkaOrderedConsumerRunner(Consumer<String, byte[]> consumer, MessageHandler handler, String destination,
+                               boolean autoAck, OrderingMode orderingMode, int keyLanes, int maxInFlight,
+                               long commitIntervalMillis) {
+        this(consumer, handler, destination, autoAck, orderingMode, keyLanes, maxInFlight, commitIntervalMillis,
+                RetryPolicy.DEFAULT, null);
+    }
+
+    /**
+     * @param deadLetterProducer 死信生产者，为 null 时重试耗尽后跳过消息
+     */
+    KafkaOrderedConsumerRunner(Consumer<String, byte[]> consumer, MessageHandler handler, String destination,
+                               boolean autoAck, OrderingMode orderingMode, int keyLanes, int maxInFlight,
+                               long commitIntervalMillis, RetryPolicy retryPolicy,
+                               Producer<String, byte[]> deadLetterProducer) {
+        this.retryPolicy = retryPolicy == null ? RetryPolicy.DEFAULT : retryPolicy;
+        this.deadLetterProducer = deadLetterProducer;
+        this.consumer = consumer;
+        this.handler = handler;
+        this.destination = destination;
+        this.autoAck = autoAck;
+        this.keyLanes = orderingMode == OrderingMode.KEY ? Math.max(1, keyLanes) : 1;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.commitIntervalMillis = Math.max(0, commitIntervalMillis);
+    }
+
+    void start() {
+        consumer.subscribe(Collections.singletonList(destination), new RebalanceListener());
+        pollThread = Thread.ofVirtual().name("kafka-poll-" + destination).start(this::pollLoop);
+    }
+
+    /**
+     * 当前在途（已分发未完成）消息数
+     */
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void pollLoop() {
+        try {
+            while (running) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    dispatch(record);
+                }
+                handleRewinds();
+                applyBackpressure();
+                commitIfDue(false);
+            }
+        } catch (WakeupException e) {
+            // 正常的唤醒异常，用于关闭消费者
+            log.debug("Kafka consumer woken up for destination: {}", destination);
+        } catch (Exception e) {
+            log.error("Kafka consumer error for destination: {}", destination, e);
+        } finally {
+            drainAndClose();
+            stopped.countDown();
+        }
+    }
+
+    private void dispatch(ConsumerRecord<String, byte[]> record) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.computeIfAbsent(tp, PartitionState::new);
+        if (state.isRewinding()) {
+            // 分区即将回退，回退后会重新拉取
+            return;
+        }
+        state.pending.add(record.offset());
+        state.highestDispatched = record.offset();
+        inFlight.incrementAndGet();
+        state.lane(record.key()).execute(() -> process(state, record));
+    }
+
+    private void process(PartitionState state, ConsumerRecord<String, byte[]> record) {
+        boolean success;
+        if (autoAck) {
+            try {
+                handler.handle(toMessage(record, null), AutoAcknowledgment.INSTANCE);
+            } catch (Exception e) {
+                // 自动确认模式下，即使异常也记录日志（消息已自动确认，无法重试）
+                log.error("Error handling message in auto-ack mode, topic: {}, partition: {}, offset: {}",
+                        record.topic(), record.partition(), record.offset(), e);
+            }
+            success = true;
+        } else {
+            KafkaAcknowledgment ack = new KafkaAcknowledgment();
+            try {
+                handler.handle(toMessage(record, ack), ack);
+            } catch (Exception e) {
+                // 处理异常，记录日志，但不确认消息（让消息重试）
+                log.error("Error handling message from topic: {}, partition: {}, offset: {}",
+                        record.topic(), record.partition(), record.offset(), e);
+            }
+            success = ack.isAcknowledged();
+            if (!success) {
+                state.failures.put(record.offset(), new Failure(record, ack.getDeadLetterQueue(), ack.getDeadLetterReason()));
+            }
+        }
+        state.complete(record.offset(), success);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 对存在失败消息且在途已清空的分区执行回退
+     * <p>
+     * 分区保持暂停直到退避时间结束，因此失败消息不会被立即反复拉取；
+     * 同一偏移失败次数达到上限后转入死信或跳过。
+     * </p>
+     */
+    private void handleRewinds() {
+        long now = System.currentTimeMillis();
+        for (PartitionState state : partitions.values()) {
+            if (!state.isRewinding()) {
+                continue;
+            }
+            if (!state.paused) {
+                consumer.pause(Collections.singleton(state.tp));
+                state.paused = true;
+            }
+            if (!state.pending.isEmpty()) {
+                continue;
+            }
+            long failed = state.failedOffset.get();
+            DeadLetterSend send = state.deadLetterSend;
+            if (send != null) {
+                if (!send.done && now < send.deadline) {
+                    // 死信发送中，分区保持暂停，其它分区照常拉取
+                    continue;
+                }
+                state.deadLetterSend = null;
+                if (send.done && send.error == null) {
+                    log.warn("Kafka record moved to dead letter topic {} after {} failed attempts, source: {}@{}",
+                            send.topic, state.attempts, state.tp, failed);
+                    state.attempts = 0;
+                    rewind(state, failed + 1);
+                    continue;
+                }
+                log.warn("Failed to send record to dead letter topic {}, partition {} offset {} will be retried: {}",
+                        send.topic, state.tp, failed, send.done ? send.error.getMessage() : "timed out");
+                state.retryAt = now + retryPolicy.backoff(state.attempts);
+            }
+            if (state.retryAt == 0) {
+                state.attempts = failed == state.retryOffset ? state.attempts + 1 : 1;
+                state.retryOffset = failed;
+                if (state.attempts >= retryPolicy.maxAttempts() || state.isDeadLettered(failed)) {
+                    if (giveUp(state, failed, now)) {
+                        rewind(state, failed + 1);
+                        continue;
+                    }
+                    if (state.deadLetterSend != null) {
+                        continue;
+                    }
+                }
+                state.retryAt = now + retryPolicy.backoff(state.attempts);
+            }
+            if (now < state.retryAt) {
+                continue;
+            }
+            rewind(state, failed);
+            log.debug("Kafka partition {} rewound to offset {} for redelivery, attempt {}",
+                    state.tp, failed, state.attempts + 1);
+        }
+    }
+
+    /**
+     * 提交回退位置之前的偏移并从该位置重新拉取
+     */
+    private void rewind(PartitionState state, long offset) {
+        if (offset > state.committed) {
+            commit(Map.of(state.tp, new OffsetAndMetadata(offset)), false);
+        }
+        consumer.seek(state.tp, offset);
+        state.highestDispatched = offset - 1;
+        state.failures.clear();
+        state.retryAt = 0;
+        state.failedOffset.set(Long.MAX_VALUE);
+        state.paused = false;
+        if (!throttled) {
+            consumer.resume(Collections.singleton(state.tp));
+        }
+    }
+
+    /**
+     * 重试耗尽：转入死信主题，未配置死信时跳过
+     * <p>
+     * 死信异步发送，结果由轮询线程在 {@link #handleRewinds()} 中检查，确认后再提交越过该偏移。
+     * </p>
+     *
+     * @return 是否可以立即越过该偏移；开始发送死信或发送失败时返回 false
+     */
+    private boolean giveUp(PartitionState state, long offset, long now) {
+        Failure failure = state.failures.get(offset);
+        String deadLetterTopic = failure != null && failure.deadLetterQueue() != null
+                ? failure.deadLetterQueue()
+                : deadLetterTopic();
+        if (failure == null || deadLetterTopic == null || deadLetterProducer == null) {
+            log.error("Kafka record skipped after {} failed attempts, topic: {}, partition: {}, offset: {}",
+                    state.attempts, state.tp.topic(), state.tp.partition(), offset);
+            state.attempts = 0;
+            return true;
+        }
+        ConsumerRecord<String, byte[]> record = failure.record();
+        ProducerRecord<String, byte[]> deadLetter = new ProducerRecord<>(deadLetterTopic, null, record.key(), record.value(),
+                new RecordHeaders(record.headers().toArray()));
+        deadLetter.headers()
+                .remove(HEADER_ORIGINAL_TOPIC)
+                .remove(HEADER_ORIGINAL_PARTITION)
+                .remove(HEADER_ORIGINAL_OFFSET)
+                .remove(HEADER_DEAD_LETTER_REASON)
+                .add(HEADER_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8))
+                .add(HEADER_ORIGINAL_PARTITION, String.valueOf(record.partition()).getBytes(StandardCharsets.UTF_8))
+                .add(HEADER_ORIGINAL_OFFSET, String.valueOf(record.offset()).getBytes(StandardCharsets.UTF_8));
+        if (failure.reason() != null) {
+            deadLetter.headers().add(HEADER_DEAD_LETTER_REASON, failure.reason().getBytes(StandardCharsets.UTF_8));
+        }
+        DeadLetterSend send = new DeadLetterSend(deadLetterTopic, now + retryPolicy.sendTimeoutMs());
+        try {
+            deadLetterProducer.send(deadLetter, send);
+        } catch (Exception e) {
+            // 序列化失败、缓冲区满等同步异常
+            log.warn("Failed to send record to dead letter topic {}, partition {} offset {} will be retried: {}",
+                    deadLetterTopic, state.tp, offset, e.getMessage());
+            return false;
+        }
+        state.deadLetterSend = send;
+        return false;
+    }
+
+    private String deadLetterTopic() {
+        String suffix = retryPolicy.deadLetterSuffix();
+        return suffix == null || suffix.isEmpty() ? null : destination + suffix;
+    }
+
+    private void applyBackpressure() {
+        int current = inFlight.get();
+        if (!throttled && current >= maxInFlight) {
+            consumer.pause(consumer.assignment());
+            throttled = true;
+            log.debug("Kafka consumer paused, in-flight records: {}", current);
+        } else if (throttled && current <= maxInFlight / 2) {
+            Set<TopicPartition> resumable = new HashSet<>(consumer.assignment());
+            for (PartitionState state : partitions.values()) {
+                if (state.paused) {
+                    resumable.remove(state.tp);
+                }
+            }
+            consumer.resume(resumable);
+            throttled = false;
+            log.debug("Kafka consumer resumed, in-flight records: {}", current);
+        }
+    }
+
+    private void commitIfDue(boolean sync) {
+        long now = System.currentTimeMillis();
+        if (!sync && now - lastCommitMillis < commitIntervalMillis) {
+            return;
+        }
+        lastCommitMillis = now;
+        commit(collectOffsets(partitions.values()), sync);
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> collectOffsets(Collection<PartitionState> states) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (PartitionState state : states) {
+            long position = state.commitPosition();
+            if (position > state.committed) {
+                offsets.put(state.tp, new OffsetAndMetadata(position));
+            }
+        }
+        return offsets;
+    }
+
+    private void commit(Map<TopicPartition, OffsetAndMetadata> offsets, boolean sync) {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        if (sync) {
+            consumer.commitSync(offsets);
+            markCommitted(offsets);
+        } else {
+            // 乐观标记，失败回调中重置以便下一轮重新提交
+            markCommitted(offsets);
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Failed to commit offsets {}: {}", offsets, e.getMessage());
+                    offsets.keySet().forEach(tp -> {
+                        PartitionState state = partitions.get(tp);
+                        if (state != null) {
+                            state.committed = -1;
+                        }
+                    });
+                }
+            });
+        }
+        log.debug("Committed offsets for {} partitions", offsets.size());
+    }
+
+    private void markCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((tp, offset) -> {
+            PartitionState state = partitions.get(tp);
+            if (state != null) {
+                state.committed = Math.max(state.committed, offset.offset());
+            }
+        });
+    }
+
+    /**
+     * 关闭前等待在途消息处理完成并同步提交最终偏移
+     */
+    private void drainAndClose() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Kafka consumer workers did not finish within timeout, destination: {}", destination);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            commitIfDue(true);
+        } catch (WakeupException e) {
+            // 关闭时的唤醒信号未被 poll 消费，重试一次
+            commitIfDue(true);
+        } catch (Exception e) {
+            log.warn("Failed to commit final offsets: {}", e.getMessage());
+        }
+        try {
+            consumer.close();
+        } catch (Exception e) {
+            log.warn("Failed to close Kafka consumer: {}", e.getMessage());
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        try {
+            consumer.wakeup();
+        } catch (Exception e) {
+            log.warn("Failed to wakeup Kafka consumer: {}", e.getMessage());
+        }
+        if (pollThread == null) {
+            return;
+        }
+        try {
+            if (!stopped.await(10, TimeUnit.SECONDS)) {
+                log.warn("Kafka consumer did not terminate within timeout, destination: {}", destination);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for Kafka consumer to terminate");
+        }
+    }
+
+    static Message toMessage(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        Map<String, Object> headers = new HashMap<>();
+        if (record.headers() != null) {
+            record.headers().forEach(header -> {
+                String key = header.key();
+                byte[] value = header.value();
+                if (key != null && value != null) {
+                    headers.put(key, new String(value, StandardCharsets.UTF_8));
+                }
+            });
+        }
+        return Message.builder()
+                .destination(record.topic())
+                .payload(record.value())
+                .headers(headers)
+                .timestamp(record.timestamp())
+                .type("kafka")
+                .originalMessage(record)
+                .acknowledgment(ack)
+                .build();
+    }
+
+    /**
+     * 分区重平衡：撤销前同步提交已完成的偏移
+     */
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+            List<PartitionState> states = new ArrayList<>();
+            for (TopicPartition tp : revoked) {
+                PartitionState state = partitions.remove(tp);
+                if (state != null) {
+                    states.add(state);
+                }
+            }
+            try {
+                commit(collectOffsets(states), true);
+            } catch (Exception e) {
+                log.warn("Failed to commit offsets on partition revocation: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+            if (throttled && !assigned.isEmpty()) {
+                consumer.pause(assigned);
+            }
+        }
+    }
+
+    /**
+     * 单个分区的分发与完成状态
+     */
+    private final class PartitionState {
+        private final TopicPartition tp;
+        private final SerialLane[] lanes;
+
+        /**
+         * 已分发未完成的偏移
+         */
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+
+        /**
+         * 最小的失败偏移，{@link Long#MAX_VALUE} 表示无失败
+         */
+        private final AtomicLong failedOffset = new AtomicLong(Long.MAX_VALUE);
+
+        /**
+         * 本轮失败的消息，回退后清空
+         */
+        private final Map<Long, Failure> failures = new ConcurrentHashMap<>();
+
+        // 以下字段仅由轮询线程访问
+        private long highestDispatched = -1;
+        private long committed = -1;
+        private boolean paused;
+        private long retryOffset = -1;
+        private int attempts;
+        private long retryAt;
+        private DeadLetterSend deadLetterSend;
+
+        PartitionState(TopicPartition tp) {
+            this.tp = tp;
+            this.lanes = new SerialLane[keyLanes];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new SerialLane();
+            }
+        }
+
+        SerialLane lane(String key) {
+            if (lanes.length == 1 || key == null) {
+                return lanes[0];
+            }
+            return lanes[Math.floorMod(key.hashCode(), lanes.length)];
+        }
+
+        void complete(long offset, boolean success) {
+            if (!success) {
+                failedOffset.accumulateAndGet(offset, Math::min);
+            }
+            pending.remove(offset);
+        }
+
+        boolean isRewinding() {
+            return failedOffset.get() != Long.MAX_VALUE;
+        }
+
+        /**
+         * 处理器是否为该偏移指定了死信队列
+         */
+        boolean isDeadLettered(long offset) {
+            Failure failure = failures.get(offset);
+            return failure != null && failure.deadLetterQueue() != null;
+        }
+
+        /**
+         * 可提交位置：最小未完成偏移与最小失败偏移中的较小者，其下的偏移均已处理完成
+         */
+        long commitPosition() {
+            if (highestDispatched < 0) {
+                return -1;
+            }
+            Long firstPending = pending.ceiling(Long.MIN_VALUE);
+            long position = firstPending != null ? firstPending : highestDispatched + 1;
+            return Math.min(position, failedOffset.get());
+        }
+    }
+
+    /**
+     * 进行中的死信发送，结果由生产者 I/O 线程回填，轮询线程读取
+     */
+    private static final class DeadLetterSend implements Callback {
+        private final String topic;
+        private final long deadline;
+        private volatile Exception error;
+        private volatile boolean done;
+
+        private DeadLetterSend(String topic, long deadline) {
+            this.topic = topic;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            error = exception;
+            done = true;
+        }
+    }
+
+    /**
+     * 失败消息及处理器指定的死信队列
+     */
+    private record Failure(ConsumerRecord<String, byte[]> record, String deadLetterQueue, String reason) {
+    }
+
+    /**
+     * 顺序执行通道，任务串行执行但不独占线程
+     */
+    private final class SerialLane implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                scheduled.set(false);
+            } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Kafka 手动确认实现
+     * <p>
+     * 确认只标记状态，偏移由轮询线程按连续完成位置统一提交；
+     * 未确认的消息在分区回退后重新消费。
+     * </p>
+     */
+    static class KafkaAcknowledgment implements Acknowledgment {
+        private volatile boolean acknowledged = false;
+        private String deadLetterQueue;
+        private String deadLetterReason;
+
+        @Override
+        public void acknowledge() {
+            acknowledged = true;
+        }
+
+        @Override
+        public void nack(boolean requeue) {
+            // Kafka 不支持 requeue，未确认的偏移不会提交，分区回退后重新消费
+        }
+
+        @Override
+        public void nackToDeadLetter(String deadLetterQueue, String reason) {
+            if (!acknowledged) {
+                // 偏移不提交，分区在途消息处理完后由消费者将该消息发送到死信队列再越过该偏移
+                this.deadLetterQueue = deadLetterQueue;
+                this.deadLetterReason = reason;
+            }
+        }
+
+        @Override
+        public boolean isAcknowledged() {
+            return acknowledged;
+        }
+
+        public String getDeadLetterQueue() {
+            return deadLetterQueue;
+        }
+
+        public String getDeadLetterReason() {
+            return deadLetterReason;
+        }
+    }
+
+    /**
+     * 自动确认实现（用于 autoAck=true 的情况）
+     */
+    static class AutoAcknowledgment implements Acknowledgment {
+        static final AutoAcknowledgment INSTANCE = new AutoAcknowledgment();
+
+        @Override
+        public void acknowledge() {
+            // 自动确认模式下，处理返回即视为完成
+        }
+
+        @Override
+        public void nack(boolean requeue) {
+            // 自动确认模式下，nack 等同于 ack
+            acknowledge();
+        }
+
+        @Override
+        public boolean isAcknowledged() {
+            return true;
+        }
+    }
+}
@@ -25,6 +25,10 @@ public class KafkaQueueAutoConfiguration {
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, props.getKafka().getBootstrapServers());
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, props.getKafka().getAcks());
+        config.put(ProducerConfig.LINGER_MS_CONFIG, props.getKafka().getLingerMs());
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, props.getKafka().getBatchSize());
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, props.getKafka().getCompressionType());
         return new KafkaProducer<>(config);
     }
 
@@ -0,0 +1,408 @@
+package com.chua.starter.queue.kafka;
+
+import com.chua.starter.queue.MessageHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaOrderedConsumerRunnerTest {
+
+    private static final String TOPIC = "orders";
+    private static final TopicPartition TP = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition TP1 = new TopicPartition(TOPIC, 1);
+
+    private KafkaOrderedConsumerRunner runner;
+
+    @AfterEach
+    void tearDown() {
+        if (runner != null) {
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    void shouldDeadLetterPoisonRecordAfterMaxAttempts() throws Exception {
+        LogConsumer consumer = new LogConsumer("a", "b");
+        MockProducer<String, byte[]> producer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        Map<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        MessageHandler handler = (message, ack) -> {
+            long offset = Long.parseLong(message.getHeaderAsString("offset"));
+            deliveries.computeIfAbsent(offset, k -> new AtomicInteger()).incrementAndGet();
+            if (offset != 0) {
+                ack.acknowledge();
+            }
+        };
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(3, 10, 20, ".DLQ", 1000), producer);
+
+        awaitUntil(() -> consumer.committedOffset() == 2);
+
+        assertThat(deliveries.get(0L)).hasValue(3);
+        // 同一次拉取中排在失败消息之后的记录可能已处理，回退后会再次投递
+        assertThat(deliveries.get(1L).get()).isGreaterThanOrEqualTo(1);
+        assertThat(producer.history()).hasSize(1);
+        ProducerRecord<String, byte[]> deadLetter = producer.history().get(0);
+        assertThat(deadLetter.topic()).isEqualTo("orders.DLQ");
+        assertThat(new String(deadLetter.value(), StandardCharsets.UTF_8)).isEqualTo("a");
+        assertThat(header(deadLetter, KafkaOrderedConsumerRunner.HEADER_ORIGINAL_OFFSET)).isEqualTo("0");
+        assertThat(header(deadLetter, KafkaOrderedConsumerRunner.HEADER_ORIGINAL_TOPIC)).isEqualTo(TOPIC);
+    }
+
+    @Test
+    void shouldKeepPartitionPausedDuringBackoff() throws Exception {
+        LogConsumer consumer = new LogConsumer("a");
+        AtomicInteger deliveries = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> deliveries.incrementAndGet();
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(3, 60000, 60000, ".DLQ", 1000), null);
+
+        awaitUntil(() -> consumer.paused().contains(TP));
+        Thread.sleep(300);
+
+        assertThat(deliveries).hasValue(1);
+        assertThat(consumer.paused()).contains(TP);
+        assertThat(consumer.committedOffset()).isLessThan(1);
+    }
+
+    @Test
+    void shouldSendExplicitDeadLetterWithoutRetrying() throws Exception {
+        LogConsumer consumer = new LogConsumer("a");
+        MockProducer<String, byte[]> producer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        AtomicInteger deliveries = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> {
+            deliveries.incrementAndGet();
+            ack.nackToDeadLetter("orders-poison", "bad payload");
+        };
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(5, 60000, 60000, ".DLQ", 1000), producer);
+
+        awaitUntil(() -> consumer.committedOffset() == 1);
+
+        assertThat(deliveries).hasValue(1);
+        assertThat(producer.history()).hasSize(1);
+        assertThat(producer.history().get(0).topic()).isEqualTo("orders-poison");
+        assertThat(header(producer.history().get(0), KafkaOrderedConsumerRunner.HEADER_DEAD_LETTER_REASON))
+                .isEqualTo("bad payload");
+    }
+
+    @Test
+    void shouldSkipRecordWhenDeadLetterDisabled() throws Exception {
+        LogConsumer consumer = new LogConsumer("a", "b");
+        List<String> handled = new CopyOnWriteArrayList<>();
+        MessageHandler handler = (message, ack) -> {
+            String payload = message.getPayloadAsString();
+            handled.add(payload);
+            if (!"a".equals(payload)) {
+                ack.acknowledge();
+            }
+        };
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(2, 10, 10, null, 1000), null);
+
+        awaitUntil(() -> consumer.committedOffset() == 2);
+
+        assertThat(handled.stream().filter("a"::equals)).hasSize(2);
+        assertThat(handled).endsWith("b");
+    }
+
+    @Test
+    void shouldKeepRetryingWhenDeadLetterSendFails() throws Exception {
+        LogConsumer consumer = new LogConsumer("a", "b");
+        // 不自动完成，死信发送总是超时
+        MockProducer<String, byte[]> producer = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+        AtomicInteger deliveries = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> deliveries.incrementAndGet();
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(1, 10, 10, ".DLQ", 20), producer);
+
+        awaitUntil(() -> producer.history().size() >= 3);
+
+        assertThat(consumer.committedOffset()).isLessThan(1);
+        assertThat(deliveries.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void shouldCommitDeadLetteredOffsetOnlyAfterAsyncSendCompletes() throws Exception {
+        LogConsumer consumer = new LogConsumer(Map.of(TP, List.of("a"), TP1, List.of("x")));
+        MockProducer<String, byte[]> producer = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+        MessageHandler handler = (message, ack) -> {
+            if (!"a".equals(message.getPayloadAsString())) {
+                ack.acknowledge();
+            }
+        };
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(1, 10, 10, ".DLQ", 60000), producer);
+
+        awaitUntil(() -> producer.history().size() == 1);
+        // 死信发送未确认时轮询线程不阻塞，其它分区继续消费
+        consumer.append(TP1, "y");
+        awaitUntil(() -> consumer.committedOffset(TP1) == 2);
+        assertThat(consumer.committedOffset(TP)).isLessThan(1);
+
+        producer.completeNext();
+
+        awaitUntil(() -> consumer.committedOffset(TP) == 1);
+        assertThat(producer.history()).hasSize(1);
+    }
+
+    @Test
+    void shouldRetryDeadLetterWhenAsyncSendFails() throws Exception {
+        LogConsumer consumer = new LogConsumer("a");
+        MockProducer<String, byte[]> producer = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+        AtomicInteger deliveries = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> deliveries.incrementAndGet();
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(1, 10, 10, ".DLQ", 60000), producer);
+
+        awaitUntil(() -> producer.history().size() == 1);
+        producer.errorNext(new RuntimeException("broker unavailable"));
+
+        awaitUntil(() -> producer.history().size() == 2);
+        assertThat(consumer.committedOffset(TP)).isLessThan(1);
+        assertThat(deliveries.get()).isGreaterThanOrEqualTo(2);
+
+        producer.completeNext();
+        awaitUntil(() -> consumer.committedOffset(TP) == 1);
+    }
+
+    @Test
+    void shouldNeverCommitPastUnfinishedOrFailedOffset() throws Exception {
+        LogConsumer consumer = new LogConsumer("k0#a", "k1#b", "k2#c", "k3#d");
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        MessageHandler handler = (message, ack) -> {
+            String payload = message.getPayloadAsString();
+            int attempt = deliveries.computeIfAbsent(payload, k -> new AtomicInteger()).incrementAndGet();
+            if ("k1#b".equals(payload)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (attempt == 1) {
+                    // 首次处理失败
+                    return;
+                }
+            }
+            ack.acknowledge();
+        };
+        runner = start(consumer, handler, KafkaOrderedConsumerRunner.OrderingMode.KEY, 4,
+                new KafkaOrderedConsumerRunner.RetryPolicy(5, 300, 300, null, 0), null);
+
+        // 偏移 1 未完成，其后的偏移已完成也只能提交到 1
+        awaitUntil(() -> deliveries.containsKey("k2#c") && deliveries.containsKey("k3#d"));
+        awaitUntil(() -> consumer.committedOffset(TP) == 1);
+        Thread.sleep(100);
+        assertThat(consumer.committedOffset(TP)).isEqualTo(1);
+
+        // 偏移 1 失败，退避期间同样不能越过
+        release.countDown();
+        awaitUntil(() -> consumer.paused().contains(TP));
+        assertThat(consumer.committedOffset(TP)).isEqualTo(1);
+
+        awaitUntil(() -> consumer.committedOffset(TP) == 4);
+        assertThat(deliveries.get("k1#b")).hasValue(2);
+    }
+
+    @Test
+    void shouldPreserveKeyOrderAcrossConcurrentLanes() throws Exception {
+        int keys = 8;
+        int perKey = 25;
+        List<String> payloads = new ArrayList<>();
+        for (int seq = 0; seq < perKey; seq++) {
+            for (int key = 0; key < keys; key++) {
+                payloads.add("k" + key + "#" + seq);
+            }
+        }
+        LogConsumer consumer = new LogConsumer(payloads.toArray(String[]::new));
+        Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> activeByKey = new ConcurrentHashMap<>();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> {
+            String[] parts = message.getPayloadAsString().split("#");
+            AtomicInteger keyActive = activeByKey.computeIfAbsent(parts[0], k -> new AtomicInteger());
+            if (keyActive.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.computeIfAbsent(parts[0], k -> new CopyOnWriteArrayList<>()).add(Integer.parseInt(parts[1]));
+            active.decrementAndGet();
+            keyActive.decrementAndGet();
+            ack.acknowledge();
+        };
+        runner = start(consumer, handler, KafkaOrderedConsumerRunner.OrderingMode.KEY, 4,
+                new KafkaOrderedConsumerRunner.RetryPolicy(3, 10, 10, null, 0), null);
+
+        awaitUntil(() -> consumer.committedOffset(TP) == payloads.size());
+
+        assertThat(maxActive.get()).isGreaterThan(1);
+        assertThat(overlaps).hasValue(0);
+        assertThat(handled).hasSize(keys);
+        List<Integer> expected = IntStream.range(0, perKey).boxed().toList();
+        handled.values().forEach(sequence -> assertThat(sequence).isEqualTo(expected));
+    }
+
+    @Test
+    void shouldKeepOtherPartitionsFlowingDuringBackoff() throws Exception {
+        LogConsumer consumer = new LogConsumer(Map.of(TP, List.of("a"), TP1, List.of("x", "y")));
+        AtomicInteger failures = new AtomicInteger();
+        MessageHandler handler = (message, ack) -> {
+            if ("a".equals(message.getPayloadAsString()) && failures.incrementAndGet() <= 2) {
+                return;
+            }
+            ack.acknowledge();
+        };
+        runner = start(consumer, handler, new KafkaOrderedConsumerRunner.RetryPolicy(5, 1000, 1000, null, 0), null);
+
+        awaitUntil(() -> consumer.paused().contains(TP));
+        assertThat(consumer.paused()).doesNotContain(TP1);
+        awaitUntil(() -> consumer.committedOffset(TP1) == 2);
+        // 分区 0 退避期间，分区 1 的新消息照常消费
+        consumer.append(TP1, "z");
+        awaitUntil(() -> consumer.committedOffset(TP1) == 3);
+        assertThat(consumer.committedOffset(TP)).isLessThan(1);
+
+        awaitUntil(() -> consumer.committedOffset(TP) == 1);
+        assertThat(consumer.paused()).isEmpty();
+        assertThat(failures).hasValue(3);
+    }
+
+    @Test
+    void shouldCapExponentialBackoff() {
+        KafkaOrderedConsumerRunner.RetryPolicy policy = new KafkaOrderedConsumerRunner.RetryPolicy(10, 100, 1000, null, 0);
+
+        assertThat(policy.backoff(1)).isEqualTo(100);
+        assertThat(policy.backoff(2)).isEqualTo(200);
+        assertThat(policy.backoff(4)).isEqualTo(800);
+        assertThat(policy.backoff(5)).isEqualTo(1000);
+        assertThat(policy.backoff(64)).isEqualTo(1000);
+    }
+
+    private static KafkaOrderedConsumerRunner start(LogConsumer consumer, MessageHandler handler,
+                                                    KafkaOrderedConsumerRunner.RetryPolicy policy,
+                                                    MockProducer<String, byte[]> producer) {
+        return start(consumer, handler, KafkaOrderedConsumerRunner.OrderingMode.PARTITION, 1, policy, producer);
+    }
+
+    private static KafkaOrderedConsumerRunner start(LogConsumer consumer, MessageHandler handler,
+                                                    KafkaOrderedConsumerRunner.OrderingMode mode, int keyLanes,
+                                                    KafkaOrderedConsumerRunner.RetryPolicy policy,
+                                                    MockProducer<String, byte[]> producer) {
+        KafkaOrderedConsumerRunner runner = new KafkaOrderedConsumerRunner(consumer, handler, TOPIC, false,
+                mode, keyLanes, 100, 0, policy, producer);
+        runner.start();
+        consumer.schedulePollTask(() -> consumer.rebalance(consumer.partitions()));
+        return runner;
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String key) {
+        return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 模拟 Broker 日志：每次拉取时按当前位置补充记录，回退后可以重新读到已消费的记录
+     * <p>
+     * 形如 {@code key#value} 的消息以 {@code #} 之前的部分作为消息键。
+     * </p>
+     */
+    private static final class LogConsumer extends MockConsumer<String, byte[]> {
+
+        private final Map<TopicPartition, List<String>> logs = new ConcurrentHashMap<>();
+
+        LogConsumer(String... payloads) {
+            this(Map.of(TP, List.of(payloads)));
+        }
+
+        LogConsumer(Map<TopicPartition, List<String>> payloads) {
+            super(OffsetResetStrategy.EARLIEST);
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            payloads.forEach((tp, log) -> {
+                logs.put(tp, new CopyOnWriteArrayList<>(log));
+                beginning.put(tp, 0L);
+            });
+            updateBeginningOffsets(beginning);
+        }
+
+        List<TopicPartition> partitions() {
+            return List.copyOf(logs.keySet());
+        }
+
+        void append(TopicPartition tp, String payload) {
+            logs.get(tp).add(payload);
+        }
+
+        @Override
+        public ConsumerRecords<String, byte[]> poll(Duration timeout) {
+            fetch();
+            ConsumerRecords<String, byte[]> records = super.poll(timeout);
+            if (records.isEmpty()) {
+                try {
+                    // 模拟拉取等待，避免轮询线程空转
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return records;
+        }
+
+        private synchronized void fetch() {
+            logs.forEach((tp, log) -> {
+                if (!assignment().contains(tp) || paused().contains(tp)) {
+                    return;
+                }
+                for (int offset = (int) position(tp); offset < log.size(); offset++) {
+                    String payload = log.get(offset);
+                    int separator = payload.indexOf('#');
+                    String key = separator < 0 ? null : payload.substring(0, separator);
+                    ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, tp.partition(), offset, key,
+                            payload.getBytes(StandardCharsets.UTF_8));
+                    record.headers().add("offset", String.valueOf(offset).getBytes(StandardCharsets.UTF_8));
+                    addRecord(record);
+                }
+            });
+        }
+
+        long committedOffset() {
+            return committedOffset(TP);
+        }
+
+        long committedOffset(TopicPartition tp) {
+            OffsetAndMetadata committed = committed(Set.of(tp)).get(tp);
+            return committed == null ? -1 : committed.offset();
+        }
+    }
+}
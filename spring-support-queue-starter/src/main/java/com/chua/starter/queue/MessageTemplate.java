@@ -71,6 +71,16 @@ public interface MessageTemplate {
         throw new UnsupportedOperationException("Delayed message is not supported by this implementation");
     }
 
+    /**
+     * 取消尚未投递的延迟消息
+     *
+     * @param messageId {@link #sendDelayed} 返回的消息ID
+     * @return 消息存在且尚未投递时返回 true
+     */
+    default boolean cancelDelayed(String messageId) {
+        throw new UnsupportedOperationException("Delayed message is not supported by this implementation");
+    }
+
     /**
      * 订阅消息
      *
@@ -1,96 +1,427 @@
 package com.chua.starter.queue.batch;
 
 import com.chua.starter.queue.Message;
-import lombok.Data;
+import com.chua.starter.queue.interceptor.MetricsMessageInterceptor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 /**
  * 消息批量处理器
  * <p>
- * 将多个消息聚合后批量处理，提高处理效率
+ * 将多个消息按目标地址聚合后批量处理，提高处理效率：
+ * </p>
+ * <ul>
+ *     <li>每个目标地址一个无锁的多生产者队列，生产者只做入队和计数</li>
+ *     <li>消息数达到 {@code batchSize}（积压上限更小时取积压上限）、字节数达到 {@code maxBatchBytes}
+ *     或首条消息等待超过 {@code batchTimeout} 时刷新，三个条件互相独立</li>
+ *     <li>超时刷新由共享定时线程驱动，没有新消息的目标地址也会按时刷新</li>
+ *     <li>同一目标地址同时只有一个刷新在执行，批次按入队顺序交给 {@code batchHandler}</li>
+ *     <li>未处理的消息超过 {@code maxPendingMessages} 时按 {@link OverflowStrategy} 阻塞、丢弃或溢出</li>
+ * </ul>
+ * <p>
+ * 设置 {@code metrics} 后，每次刷新的等待时长与批次填充率会记录到 {@link MetricsMessageInterceptor}。
  * </p>
  *
  * @author CH
  * @since 2025-03-20
  */
-@Data
-public class MessageBatchProcessor {
+@Slf4j
+public class MessageBatchProcessor implements AutoCloseable {
+
+    /**
+     * 所有处理器共享的超时刷新定时线程，只负责把刷新任务交给 {@code flushExecutor}
+     */
+    private static final ScheduledExecutorService LINGER_TIMER = createLingerTimer();
+
+    /**
+     * 默认的刷新执行器
+     */
+    private static final Executor DEFAULT_FLUSH_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("queue-batch-flush-", 0).factory());
 
     /**
      * 批量大小
      */
+    @Getter
+    @Setter
     private int batchSize = 100;
 
     /**
-     * 批量超时时间
+     * 单批最大字节数（按消息体长度累计），小于等于 0 表示不限制
+     */
+    @Getter
+    @Setter
+    private long maxBatchBytes = 0;
+
+    /**
+     * 批量超时时间，批次中第一条消息最多等待这么久
      */
+    @Getter
+    @Setter
     private Duration batchTimeout = Duration.ofSeconds(5);
 
     /**
-     * 当前批次
+     * 每个目标地址允许积压的最大消息数，小于等于 0 时取 {@code batchSize} 的 10 倍
      */
-    private final List<Message> currentBatch = new ArrayList<>();
+    @Getter
+    @Setter
+    private int maxPendingMessages = 0;
 
     /**
-     * 最后一次添加时间
+     * 积压超过上限时的处理策略
      */
-    private long lastAddTime = System.currentTimeMillis();
+    @Getter
+    @Setter
+    private OverflowStrategy overflowStrategy = OverflowStrategy.BLOCK;
+
+    /**
+     * {@link OverflowStrategy#BLOCK} 的最长等待时间，超时后按 {@link OverflowStrategy#SPILL} 处理
+     */
+    @Getter
+    @Setter
+    private Duration blockTimeout = Duration.ofSeconds(30);
 
     /**
      * 批量处理器
      */
+    @Getter
+    @Setter
     private Consumer<List<Message>> batchHandler;
 
+    /**
+     * 溢出处理器，为空时溢出的消息直接丢弃
+     */
+    @Getter
+    @Setter
+    private Consumer<Message> spillHandler;
+
+    /**
+     * 刷新执行器
+     */
+    @Getter
+    @Setter
+    private Executor flushExecutor = DEFAULT_FLUSH_EXECUTOR;
+
+    /**
+     * 指标记录
+     */
+    @Getter
+    @Setter
+    private MetricsMessageInterceptor metrics;
+
+    private final Map<String, DestinationBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile long lastAddTime = System.currentTimeMillis();
+    private volatile boolean closed;
+
     /**
      * 添加消息到批次
      *
      * @param message 消息
+     * @deprecated 无法得知消息是否因积压被丢弃或溢出，使用 {@link #offer(Message)}
      */
-    public synchronized void add(Message message) {
-        currentBatch.add(message);
+    @Deprecated
+    public void add(Message message) {
+        offer(message);
+    }
+
+    /**
+     * 添加消息到批次
+     *
+     * @param message 消息
+     * @return 是否进入批次，被丢弃或溢出时返回 false
+     */
+    public boolean offer(Message message) {
+        if (closed) {
+            throw new IllegalStateException("批量处理器已关闭");
+        }
+        String destination = message.getDestination() == null ? "" : message.getDestination();
+        DestinationBuffer buffer = buffers.computeIfAbsent(destination, DestinationBuffer::new);
+        if (!buffer.permits.tryAcquire() && !awaitPermit(buffer, message)) {
+            return false;
+        }
+
+        int bytes = message.getPayload() == null ? 0 : message.getPayload().length;
+        buffer.queue.offer(new Pending(message, System.nanoTime(), bytes));
+        buffer.count.incrementAndGet();
+        buffer.bytes.addAndGet(bytes);
         lastAddTime = System.currentTimeMillis();
 
-        if (shouldFlush()) {
-            flush();
+        if (isFull(buffer)) {
+            dispatch(buffer);
+        } else {
+            armLinger(buffer);
+        }
+        return true;
+    }
+
+    /**
+     * 立即刷新所有目标地址的批次，在当前线程执行
+     */
+    public void flush() {
+        for (DestinationBuffer buffer : buffers.values()) {
+            buffer.drainLock.lock();
+            try {
+                drain(buffer, true);
+            } finally {
+                buffer.drainLock.unlock();
+            }
         }
     }
 
     /**
-     * 是否应该刷新批次
+     * 获取当前批次大小
      */
-    private boolean shouldFlush() {
-        if (currentBatch.size() >= batchSize) {
-            return true;
+    public int getCurrentBatchSize() {
+        int size = 0;
+        for (DestinationBuffer buffer : buffers.values()) {
+            size += buffer.count.get();
         }
+        return size;
+    }
 
-        long elapsed = System.currentTimeMillis() - lastAddTime;
-        return elapsed >= batchTimeout.toMillis();
+    /**
+     * 获取指定目标地址的积压消息数
+     */
+    public int getCurrentBatchSize(String destination) {
+        DestinationBuffer buffer = buffers.get(destination);
+        return buffer == null ? 0 : buffer.count.get();
     }
 
     /**
-     * 刷新批次
+     * 当前积压的消息快照
+     *
+     * @return 所有目标地址尚未刷新的消息，按目标地址分组、组内按入队顺序排列
+     * @deprecated 批次按目标地址分别缓冲，使用 {@link #getCurrentBatchSize()} 获取积压数量
      */
-    public synchronized void flush() {
-        if (currentBatch.isEmpty()) {
+    @Deprecated
+    public List<Message> getCurrentBatch() {
+        List<Message> messages = new ArrayList<>();
+        for (DestinationBuffer buffer : buffers.values()) {
+            for (Pending pending : buffer.queue) {
+                messages.add(pending.message());
+            }
+        }
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * 最后一次添加消息的时间（毫秒）
+     *
+     * @return 时间戳
+     * @deprecated 超时刷新由定时线程按每个批次首条消息的入队时间驱动，不再依赖该时间
+     */
+    @Deprecated
+    public long getLastAddTime() {
+        return lastAddTime;
+    }
+
+    /**
+     * 因积压被丢弃或溢出的消息数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 刷新剩余批次并停止接收消息
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    private boolean awaitPermit(DestinationBuffer buffer, Message message) {
+        if (overflowStrategy == OverflowStrategy.BLOCK) {
+            // 积压时立即刷新全部积压（积压上限可能小于 batchSize），避免等待一个尚未到期的超时刷新
+            buffer.lingerDue = true;
+            dispatch(buffer);
+            long timeoutNanos = blockTimeout == null ? 0L : blockTimeout.toNanos();
+            try {
+                if (buffer.permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        rejectedCount.incrementAndGet();
+        if (overflowStrategy != OverflowStrategy.DROP && spillHandler != null) {
+            spillHandler.accept(message);
+        } else {
+            log.debug("[Queue] 批量积压已满，丢弃消息: destination={}", buffer.destination);
+        }
+        return false;
+    }
+
+    private void armLinger(DestinationBuffer buffer) {
+        if (buffer.count.get() == 0 || !buffer.lingerArmed.compareAndSet(false, true)) {
             return;
         }
+        long lingerNanos = Math.max(1L, batchTimeout == null ? 0L : batchTimeout.toNanos());
+        LINGER_TIMER.schedule(() -> {
+            buffer.lingerArmed.set(false);
+            buffer.lingerDue = true;
+            dispatch(buffer);
+        }, lingerNanos, TimeUnit.NANOSECONDS);
+    }
 
-        List<Message> batch = new ArrayList<>(currentBatch);
-        currentBatch.clear();
+    private void dispatch(DestinationBuffer buffer) {
+        if (!buffer.drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(() -> runDrain(buffer));
+        } catch (RuntimeException e) {
+            buffer.drainScheduled.set(false);
+            log.warn("[Queue] 批量刷新任务提交失败: destination={}", buffer.destination, e);
+        }
+    }
 
-        if (batchHandler != null) {
-            batchHandler.accept(batch);
+    private void runDrain(DestinationBuffer buffer) {
+        buffer.drainScheduled.set(false);
+        if (!buffer.drainLock.tryLock()) {
+            // 正在刷新的线程结束后会重新检查
+            return;
+        }
+        try {
+            boolean lingerDue = buffer.lingerDue;
+            buffer.lingerDue = false;
+            drain(buffer, lingerDue);
+        } finally {
+            buffer.drainLock.unlock();
+        }
+        if (isFull(buffer) || buffer.lingerDue) {
+            dispatch(buffer);
+        } else {
+            armLinger(buffer);
         }
     }
 
     /**
-     * 获取当前批次大小
+     * 按批次取出消息交给处理器，调用方持有 {@code drainLock}
+     *
+     * @param all 为 true 时连不满一批的剩余消息也一并刷新
+     */
+    private void drain(DestinationBuffer buffer, boolean all) {
+        int limit = Math.max(1, batchSize);
+        while (all ? buffer.count.get() > 0 : isFull(buffer)) {
+            List<Message> batch = new ArrayList<>(Math.max(1, Math.min(limit, buffer.count.get())));
+            long batchBytes = 0;
+            long oldestEnqueuedAt = 0;
+            Pending pending;
+            while (batch.size() < limit && (maxBatchBytes <= 0 || batchBytes < maxBatchBytes)
+                    && (pending = buffer.queue.poll()) != null) {
+                if (batch.isEmpty()) {
+                    oldestEnqueuedAt = pending.enqueuedAt();
+                }
+                batch.add(pending.message());
+                batchBytes += pending.bytes();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            buffer.count.addAndGet(-batch.size());
+            buffer.bytes.addAndGet(-batchBytes);
+            buffer.permits.release(batch.size());
+            handle(buffer.destination, batch, batchBytes, oldestEnqueuedAt);
+        }
+    }
+
+    private void handle(String destination, List<Message> batch, long batchBytes, long oldestEnqueuedAt) {
+        boolean success = false;
+        try {
+            if (batchHandler != null) {
+                batchHandler.accept(batch);
+            }
+            success = true;
+        } catch (RuntimeException e) {
+            log.error("[Queue] 批量处理失败: destination={}, size={}", destination, batch.size(), e);
+        } finally {
+            MetricsMessageInterceptor current = metrics;
+            if (current != null) {
+                current.recordBatchFlush(destination, batch.size(), Math.max(1, batchSize), batchBytes,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestEnqueuedAt), success);
+            }
+        }
+    }
+
+    private boolean isFull(DestinationBuffer buffer) {
+        return buffer.count.get() >= Math.min(Math.max(1, batchSize), buffer.maxPending)
+                || (maxBatchBytes > 0 && buffer.bytes.get() >= maxBatchBytes);
+    }
+
+    private int resolveMaxPending() {
+        return maxPendingMessages > 0 ? maxPendingMessages : Math.max(1, batchSize) * 10;
+    }
+
+    private static ScheduledExecutorService createLingerTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("queue-batch-linger").daemon(true).factory());
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * 积压超过上限时的处理策略
+     */
+    public enum OverflowStrategy {
+        /**
+         * 阻塞生产者，直到有空位或超过 {@code blockTimeout}
+         */
+        BLOCK,
+        /**
+         * 直接丢弃
+         */
+        DROP,
+        /**
+         * 交给 {@code spillHandler}，例如写入本地文件或死信队列
+         */
+        SPILL
+    }
+
+    private record Pending(Message message, long enqueuedAt, int bytes) {
+    }
+
+    /**
+     * 单个目标地址的缓冲区
      */
-    public synchronized int getCurrentBatchSize() {
-        return currentBatch.size();
+    private final class DestinationBuffer {
+
+        private final String destination;
+        private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final int maxPending = resolveMaxPending();
+        private final Semaphore permits = new Semaphore(maxPending);
+        private final AtomicBoolean lingerArmed = new AtomicBoolean();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final ReentrantLock drainLock = new ReentrantLock();
+        private volatile boolean lingerDue;
+
+        private DestinationBuffer(String destination) {
+            this.destination = destination;
+        }
     }
 }
@@ -3,15 +3,24 @@ package com.chua.starter.queue.configuration;
 import com.chua.starter.queue.MessageTemplate;
 import com.chua.starter.queue.properties.DeadLetterProperties;
 import com.chua.starter.queue.properties.QueueProperties;
+import com.chua.starter.queue.retry.JdbcRetryStore;
+import com.chua.starter.queue.retry.LocalRetryStore;
+import com.chua.starter.queue.retry.RetryStore;
 import com.chua.starter.queue.template.DeadLetterTemplate;
 import com.chua.starter.queue.template.LocalMessageTemplate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * 死信队列自动配置
  * <p>
@@ -31,11 +40,41 @@ public class DeadLetterAutoConfiguration {
     @Autowired
     private DeadLetterProperties deadLetterProperties;
 
+    /**
+     * 重试与死信存储
+     * <p>
+     * retry-store=jdbc 且存在数据源时使用 JDBC 存储，否则使用本地日志存储（未配置目录时仅保存在内存）。
+     * </p>
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public RetryStore deadLetterRetryStore(ObjectProvider<DataSource> dataSource) {
+        Duration tombstoneRetention = Duration.ofHours(deadLetterProperties.getDeadLetterTombstoneRetentionHours());
+        Duration deadLetterRetention = Duration.ofHours(deadLetterProperties.getDeadLetterStoreRetentionHours());
+        if ("jdbc".equalsIgnoreCase(deadLetterProperties.getRetryStore())) {
+            DataSource available = dataSource.getIfAvailable();
+            if (available != null) {
+                return new JdbcRetryStore(available, deadLetterProperties.getRetryTable(),
+                        deadLetterProperties.isRetryInitializeSchema(), tombstoneRetention, deadLetterRetention);
+            }
+            log.warn("plugin.dead-letter.retry-store=jdbc 但当前上下文没有可用的数据源，回退为本地重试存储");
+        }
+        String path = deadLetterProperties.getRetryStorePath();
+        if (path == null || path.isBlank()) {
+            log.warn("plugin.dead-letter.retry-store-path 未配置，待重试消息和死信记录仅保存在内存中，重启后丢失");
+        }
+        return new LocalRetryStore(path == null || path.isBlank() ? null : Path.of(path),
+                deadLetterProperties.getRetrySegmentBytes(), deadLetterProperties.getRetryCheckpointSegments(),
+                deadLetterProperties.isRetryFsync(), tombstoneRetention,
+                deadLetterProperties.getDeadLetterStoreMaxPerDestination(), deadLetterRetention);
+    }
+
     /**
      * 死信队列消息模板
      */
     @Bean(destroyMethod = "close")
-    public DeadLetterTemplate deadLetterTemplate(@Autowired(required = false) MessageTemplate mainMessageTemplate) {
+    public DeadLetterTemplate deadLetterTemplate(@Autowired(required = false) MessageTemplate mainMessageTemplate,
+                                                 RetryStore retryStore) {
         // 创建死信队列底层存储
         MessageTemplate dlqStorage = createDlqStorage();
 
@@ -47,13 +86,17 @@ public class DeadLetterAutoConfiguration {
                 deadLetterProperties.isExponentialBackoff(),
                 deadLetterProperties.getBackoffMultiplier()
         );
+        config.setJitter(deadLetterProperties.getRetryJitter());
+        config.setPollInterval(java.time.Duration.ofMillis(deadLetterProperties.getRetryPollIntervalMillis()));
+        config.setPollBatchSize(deadLetterProperties.getRetryPollBatchSize());
+        config.setParkThreshold(deadLetterProperties.getParkThreshold());
 
         // 如果有主队列，使用主队列作为消息源；否则使用死信队列存储
         MessageTemplate sourceTemplate = mainMessageTemplate != null ? mainMessageTemplate : dlqStorage;
 
         log.info("[Queue] 创建死信队列模板, 类型: {}, 最大重试: {}",
                 deadLetterProperties.getType(), deadLetterProperties.getMaxRetries());
-        return new DeadLetterTemplate(sourceTemplate, dlqStorage, config);
+        return new DeadLetterTemplate(sourceTemplate, dlqStorage, config, retryStore);
     }
 
     /**
@@ -5,6 +5,7 @@ import com.chua.starter.queue.properties.QueueProperties;
 import com.chua.starter.queue.template.LocalMessageTemplate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -12,6 +13,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 
 import java.util.List;
 
@@ -19,6 +21,10 @@ import static com.chua.starter.common.support.logger.ModuleLog.highlight;
 
 /**
  * 消息队列自动配置
+ * <p>
+ * 组件扫描排除已在 AutoConfiguration.imports 中注册的自动配置（如 {@link QueueRedisAutoConfiguration}），
+ * 避免其被当作普通配置类提前加载，导致排序与条件注解失效。
+ * </p>
  *
  * @author CH
  * @since 2025-12-25
@@ -27,7 +33,8 @@ import static com.chua.starter.common.support.logger.ModuleLog.highlight;
 @Configuration
 @EnableConfigurationProperties(QueueProperties.class)
 @ConditionalOnProperty(prefix = QueueProperties.PREFIX, name = "enable", havingValue = "true")
-@ComponentScan("com.chua.starter.queue")
+@ComponentScan(value = "com.chua.starter.queue",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class))
 public class QueueAutoConfiguration {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(QueueAutoConfiguration.class);
 
@@ -0,0 +1,41 @@
+package com.chua.starter.queue.configuration;
+
+import com.chua.starter.queue.filter.DuplicateMessageStore;
+import com.chua.starter.queue.filter.RedisDuplicateMessageStore;
+import com.chua.starter.queue.properties.QueueProperties;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 消息队列 Redis 适配自动配置
+ * <p>
+ * {@code plugin.queue.dedup.store=redis} 时注册共享去重存储。
+ * 只通过 AutoConfiguration.imports 加载（{@link QueueAutoConfiguration} 的组件扫描会排除本类），
+ * 保证在 Redis 自动配置之后再判断 {@link StringRedisTemplate} 是否存在。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-12-25
+ */
+@AutoConfiguration(after = {QueueAutoConfiguration.class, RedisAutoConfiguration.class},
+        afterName = "com.chua.starter.redis.support.RedisConfiguration")
+@ConditionalOnClass(StringRedisTemplate.class)
+@ConditionalOnBean(StringRedisTemplate.class)
+@ConditionalOnProperty(prefix = QueueProperties.PREFIX, name = "enable", havingValue = "true")
+@ConditionalOnProperty(prefix = QueueProperties.PREFIX + ".dedup", name = "store", havingValue = "redis")
+public class QueueRedisAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(DuplicateMessageStore.class)
+    public DuplicateMessageStore redisDuplicateMessageStore(StringRedisTemplate stringRedisTemplate,
+                                                            QueueProperties queueProperties) {
+        QueueProperties.DedupConfig dedup = queueProperties.getDedup();
+        return new RedisDuplicateMessageStore(stringRedisTemplate, dedup.getRedisKeyPrefix(), dedup.getWindowMillis());
+    }
+}
@@ -0,0 +1,24 @@
+package com.chua.starter.queue.delay;
+
+import java.util.Map;
+
+/**
+ * 延迟消息
+ *
+ * @param id          消息ID
+ * @param destination 目标地址
+ * @param deliverAt   投递时间（毫秒时间戳）
+ * @param headers     消息头
+ * @param payload     消息内容
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-01-02
+ */
+public record DelayedMessage(String id, String destination, long deliverAt,
+                             Map<String, String> headers, byte[] payload) {
+
+    public DelayedMessage {
+        headers = headers == null ? Map.of() : Map.copyOf(headers);
+        payload = payload == null ? new byte[0] : payload;
+    }
+}
@@ -0,0 +1,466 @@
+package com.chua.starter.queue.delay;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 延迟消息追加日志
+ * <p>
+ * 消息以追加方式写入分段文件 {@code segment-N.log}，每条记录带长度与 CRC 校验：
+ * </p>
+ * <pre>
+ * [int length][int crc32][byte type][body...]
+ * ADD:    id, destination, deliverAt, headers, payload
+ * REMOVE: id（已投递或已取消）
+ * </pre>
+ * <p>
+ * 内存中只保存消息所在位置，投递时按位置回读内容。分段过多时执行检查点：
+ * 把仍待投递的 ADD 记录复制到新分段，原子更新 {@code checkpoint} 文件中的起始分段号后删除旧分段。
+ * 启动时从检查点分段开始重放，末尾不完整的记录会被截断。
+ * </p>
+ * <p>
+ * 所有方法在实例锁内执行，调用方可在同一把锁内同步维护待投递索引，避免检查点期间遗漏记录。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-01-02
+ */
+@Slf4j
+public class DelayedMessageJournal implements AutoCloseable {
+
+    private static final byte TYPE_ADD = 1;
+    private static final byte TYPE_REMOVE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int compactSegments;
+    private final boolean fsync;
+    private final TreeMap<Long, FileChannel> segments = new TreeMap<>();
+    private long activeSegment;
+    private FileChannel active;
+
+    /**
+     * 上次检查点后保留的分段数（待投递消息本身跨越的分段），不计入检查点阈值
+     */
+    private int baselineSegments;
+
+    /**
+     * 消息在日志中的位置
+     *
+     * @param segment  分段号
+     * @param position 记录起始位置
+     */
+    public record Location(long segment, long position) {
+    }
+
+    /**
+     * 重放得到的待投递消息
+     *
+     * @param id          消息ID
+     * @param destination 目标地址
+     * @param deliverAt   投递时间
+     * @param location    日志位置
+     */
+    public record Pending(String id, String destination, long deliverAt, Location location) {
+    }
+
+    /**
+     * @param directory       日志目录
+     * @param segmentBytes    单个分段大小上限
+     * @param compactSegments 分段数达到该值时执行检查点
+     * @param fsync           每次写入是否强制刷盘
+     */
+    public DelayedMessageJournal(Path directory, long segmentBytes, int compactSegments, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(64 * 1024, segmentBytes);
+        this.compactSegments = Math.max(2, compactSegments);
+        this.fsync = fsync;
+    }
+
+    /**
+     * 打开日志并重放，返回仍待投递的消息
+     *
+     * @return 按写入顺序排列的待投递消息
+     */
+    public synchronized List<Pending> open() {
+        try {
+            Files.createDirectories(directory);
+            long first = readCheckpoint();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    Long index = segmentIndex(file);
+                    if (index == null) {
+                        return;
+                    }
+                    if (index < first) {
+                        deleteQuietly(file);
+                        return;
+                    }
+                    try {
+                        segments.put(index, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+
+            Map<String, Pending> pending = new LinkedHashMap<>();
+            for (Map.Entry<Long, FileChannel> entry : segments.entrySet()) {
+                replay(entry.getKey(), entry.getValue(), pending, entry.getKey().equals(segments.lastKey()));
+            }
+
+            if (segments.isEmpty()) {
+                openSegment(first);
+            } else {
+                activeSegment = segments.lastKey();
+                active = segments.get(activeSegment);
+                active.position(active.size());
+            }
+            log.info("[Queue] 延迟消息日志已加载: dir={}, segments={}, pending={}", directory, segments.size(), pending.size());
+            return new ArrayList<>(pending.values());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open delayed message journal: " + directory, e);
+        }
+    }
+
+    /**
+     * 追加消息
+     *
+     * @param message 延迟消息
+     * @return 日志位置
+     */
+    public synchronized Location append(DelayedMessage message) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + message.payload().length);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(TYPE_ADD);
+            writeString(out, message.id());
+            writeString(out, message.destination());
+            out.writeLong(message.deliverAt());
+            out.writeInt(message.headers().size());
+            for (Map.Entry<String, String> header : message.headers().entrySet()) {
+                writeString(out, header.getKey());
+                writeString(out, header.getValue());
+            }
+            out.writeInt(message.payload().length);
+            out.write(message.payload());
+            return write(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 记录消息已投递或已取消
+     *
+     * @param id 消息ID
+     */
+    public synchronized void remove(String id) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(TYPE_REMOVE);
+            writeString(out, id);
+            write(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 按位置读取消息
+     *
+     * @param location 日志位置
+     * @return 延迟消息
+     */
+    public synchronized DelayedMessage read(Location location) {
+        FileChannel channel = segments.get(location.segment());
+        if (channel == null) {
+            throw new IllegalStateException("Journal segment not found: " + location.segment());
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, location.position());
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(channel, body, location.position() + HEADER_BYTES);
+            body.flip();
+            if (body.get() != TYPE_ADD) {
+                throw new IllegalStateException("Not an ADD record at " + location);
+            }
+            return decodeAdd(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 是否需要执行检查点
+     */
+    public synchronized boolean needsCheckpoint() {
+        return segments.size() - baselineSegments >= compactSegments;
+    }
+
+    /**
+     * 执行检查点：复制仍待投递的记录到新分段并删除旧分段
+     *
+     * @param live 仍待投递消息的当前位置
+     * @return 消息ID到新位置的映射
+     */
+    public synchronized Map<String, Location> checkpoint(Map<String, Location> live) {
+        try {
+            long first = activeSegment + 1;
+            rollTo(first);
+            Map<String, Location> relocated = new HashMap<>(live.size() * 2);
+            for (Map.Entry<String, Location> entry : live.entrySet()) {
+                relocated.put(entry.getKey(), write(readRaw(entry.getValue())));
+            }
+            // 检查点写入前确保复制的记录已落盘
+            active.force(false);
+            writeCheckpoint(first);
+
+            List<Long> obsolete = new ArrayList<>(segments.headMap(first).keySet());
+            for (Long index : obsolete) {
+                closeQuietly(segments.remove(index));
+                deleteQuietly(segmentPath(index));
+            }
+            baselineSegments = segments.size() - 1;
+            log.debug("[Queue] 延迟消息日志检查点完成: firstSegment={}, live={}", first, live.size());
+            return relocated;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : segments.values()) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                log.warn("Failed to flush journal segment: {}", e.getMessage());
+            }
+            closeQuietly(channel);
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private Location write(byte[] body) throws IOException {
+        if (active.position() >= segmentBytes) {
+            rollTo(activeSegment + 1);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + body.length);
+        buffer.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        long position = active.position();
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        if (fsync) {
+            active.force(false);
+        }
+        return new Location(activeSegment, position);
+    }
+
+    private byte[] readRaw(Location location) throws IOException {
+        FileChannel channel = segments.get(location.segment());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, location.position());
+        header.flip();
+        ByteBuffer body = ByteBuffer.allocate(header.getInt());
+        readFully(channel, body, location.position() + HEADER_BYTES);
+        return body.array();
+    }
+
+    private void rollTo(long index) throws IOException {
+        if (active != null) {
+            active.force(false);
+        }
+        openSegment(index);
+    }
+
+    private void openSegment(long index) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        segments.put(index, channel);
+        activeSegment = index;
+        active = channel;
+    }
+
+    private void replay(long index, FileChannel channel, Map<String, Pending> pending, boolean last) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(channel, body, position + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            body.flip();
+            byte type = body.get();
+            if (type == TYPE_ADD) {
+                String id = readString(body);
+                String destination = readString(body);
+                long deliverAt = body.getLong();
+                pending.remove(id);
+                pending.put(id, new Pending(id, destination, deliverAt, new Location(index, position)));
+            } else if (type == TYPE_REMOVE) {
+                pending.remove(readString(body));
+            }
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            if (last) {
+                // 写入中断留下的不完整记录，截断后继续追加
+                log.warn("[Queue] 延迟消息日志末尾存在不完整记录，已截断: segment={}, position={}", index, position);
+                channel.truncate(position);
+            } else {
+                log.warn("[Queue] 延迟消息日志分段损坏，忽略剩余记录: segment={}, position={}", index, position);
+            }
+        }
+    }
+
+    private static DelayedMessage decodeAdd(ByteBuffer body) {
+        String id = readString(body);
+        String destination = readString(body);
+        long deliverAt = body.getLong();
+        int headerCount = body.getInt();
+        Map<String, String> headers = new LinkedHashMap<>(Math.max(4, headerCount * 2));
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(readString(body), readString(body));
+        }
+        byte[] payload = new byte[body.getInt()];
+        body.get(payload);
+        return new DelayedMessage(id, destination, deliverAt, headers, payload);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal segment at " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        String content = Files.readString(file, StandardCharsets.UTF_8).trim();
+        return content.isEmpty() ? 0 : Long.parseLong(content);
+    }
+
+    private void writeCheckpoint(long firstSegment) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(firstSegment).getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("segment-%020d.log", index));
+    }
+
+    private static Long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("segment-") || !name.endsWith(".log")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close journal segment: {}", e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete journal segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前分段数
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 日志目录
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+}
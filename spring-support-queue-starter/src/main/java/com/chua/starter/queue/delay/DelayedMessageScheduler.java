@@ -0,0 +1,216 @@
+package com.chua.starter.queue.delay;
+
+import com.chua.starter.queue.delay.DelayedMessageJournal.Location;
+import com.chua.starter.queue.delay.DelayedMessageJournal.Pending;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * 延迟消息调度器
+ * <p>
+ * 以 {@link HierarchicalTimingWheel} 调度到期时间，可选以 {@link DelayedMessageJournal} 持久化：
+ * </p>
+ * <ul>
+ *     <li>未配置日志时消息保存在内存中，重启后丢失</li>
+ *     <li>配置日志时内存只保存消息位置，启动时重放未投递的消息；
+ *     重放的消息至少延后 {@code recoveryDelayMillis} 投递，留出订阅者注册的时间</li>
+ *     <li>投递回调返回 true 后才写入删除记录，进程在投递过程中退出时消息会在重启后再次投递（至少一次）</li>
+ *     <li>投递回调返回 false 或抛出异常时消息保留在日志中：调度器仍在运行时延后重试，已关闭时在重启后重放</li>
+ * </ul>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-01-02
+ */
+@Slf4j
+public class DelayedMessageScheduler implements AutoCloseable {
+
+    private final HierarchicalTimingWheel wheel;
+    private final DelayedMessageJournal journal;
+    private final Predicate<DelayedMessage> deliverer;
+    private final long recoveryDelayMillis;
+    private volatile boolean closed;
+
+    /**
+     * 待投递消息：持久化时为 {@link Location}，否则为 {@link DelayedMessage}；由 {@link #lock} 保护
+     */
+    private final Map<String, Object> pending = new HashMap<>();
+
+    /**
+     * 正在投递的消息，结构同 {@link #pending}；检查点会保留它们，投递失败时放回 {@link #pending}
+     */
+    private final Map<String, Object> delivering = new HashMap<>();
+    private final Object lock;
+
+    /**
+     * @param name                调度线程名
+     * @param tickMillis          时间轮最小刻度（毫秒）
+     * @param wheelSize           时间轮每层槽数
+     * @param executor            投递执行器
+     * @param journal             持久化日志，为 null 时仅保存在内存
+     * @param recoveryDelayMillis 重放消息的最小延迟（毫秒）
+     * @param deliverer           投递回调，返回消息是否已投递；返回 false 时消息不会从日志中删除
+     */
+    public DelayedMessageScheduler(String name, long tickMillis, int wheelSize, Executor executor,
+                                   DelayedMessageJournal journal, long recoveryDelayMillis,
+                                   Predicate<DelayedMessage> deliverer) {
+        this.wheel = new HierarchicalTimingWheel(name, tickMillis, wheelSize, executor);
+        this.journal = journal;
+        this.deliverer = deliverer;
+        this.recoveryDelayMillis = Math.max(0, recoveryDelayMillis);
+        this.lock = journal != null ? journal : new Object();
+        recover();
+    }
+
+    /**
+     * 调度延迟消息
+     *
+     * @param message 延迟消息
+     */
+    public void schedule(DelayedMessage message) {
+        synchronized (lock) {
+            pending.put(message.id(), journal != null ? journal.append(message) : message);
+        }
+        wheel.schedule(message.id(), message.deliverAt(), () -> fire(message.id()));
+        maybeCheckpoint();
+    }
+
+    /**
+     * 取消尚未投递的消息
+     *
+     * @param id 消息ID
+     * @return 消息存在且尚未投递时返回 true
+     */
+    public boolean cancel(String id) {
+        synchronized (lock) {
+            if (pending.remove(id) == null) {
+                return false;
+            }
+            if (journal != null) {
+                journal.remove(id);
+            }
+        }
+        wheel.cancel(id);
+        return true;
+    }
+
+    /**
+     * 待投递消息数
+     */
+    public int size() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        wheel.close();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void recover() {
+        if (journal == null) {
+            return;
+        }
+        List<Pending> recovered = journal.open();
+        long earliest = System.currentTimeMillis() + recoveryDelayMillis;
+        synchronized (lock) {
+            for (Pending item : recovered) {
+                pending.put(item.id(), item.location());
+            }
+        }
+        for (Pending item : recovered) {
+            wheel.schedule(item.id(), Math.max(item.deliverAt(), earliest), () -> fire(item.id()));
+        }
+        if (!recovered.isEmpty()) {
+            log.info("[Queue] 已恢复 {} 条待投递延迟消息", recovered.size());
+        }
+        maybeCheckpoint();
+    }
+
+    private void fire(String id) {
+        DelayedMessage message;
+        synchronized (lock) {
+            Object value = pending.remove(id);
+            if (value == null) {
+                return;
+            }
+            try {
+                message = value instanceof Location location ? journal.read(location) : (DelayedMessage) value;
+            } catch (Exception e) {
+                log.error("[Queue] 读取延迟消息失败: id={}", id, e);
+                return;
+            }
+            delivering.put(id, value);
+        }
+        boolean delivered;
+        try {
+            delivered = deliverer.test(message);
+        } catch (Exception e) {
+            log.error("[Queue] 延迟消息投递失败: id={}, destination={}", id, message.destination(), e);
+            delivered = false;
+        }
+        if (!delivered) {
+            retain(message);
+            return;
+        }
+        synchronized (lock) {
+            delivering.remove(id);
+        }
+        if (journal != null) {
+            try {
+                journal.remove(id);
+            } catch (Exception e) {
+                log.warn("[Queue] 写入延迟消息删除记录失败: id={}, error={}", id, e.getMessage());
+            }
+        }
+        maybeCheckpoint();
+    }
+
+    /**
+     * 未投递的消息放回待投递集合，日志中的记录保持不变，检查点也会保留它
+     */
+    private void retain(DelayedMessage message) {
+        synchronized (lock) {
+            Object value = delivering.remove(message.id());
+            if (closed || value == null) {
+                // 已关闭：日志中的记录在重启后重放
+                return;
+            }
+            pending.put(message.id(), value);
+        }
+        long retryAt = System.currentTimeMillis() + Math.max(1000, recoveryDelayMillis);
+        wheel.schedule(message.id(), retryAt, () -> fire(message.id()));
+        log.warn("[Queue] 延迟消息未投递，稍后重试: id={}, destination={}", message.id(), message.destination());
+    }
+
+    private void maybeCheckpoint() {
+        if (journal == null || closed || !journal.needsCheckpoint()) {
+            return;
+        }
+        synchronized (lock) {
+            if (!journal.needsCheckpoint()) {
+                return;
+            }
+            Map<String, Location> live = new HashMap<>((pending.size() + delivering.size()) * 2);
+            pending.forEach((id, value) -> live.put(id, (Location) value));
+            delivering.forEach((id, value) -> live.put(id, (Location) value));
+            journal.checkpoint(live).forEach((id, location) -> {
+                if (delivering.containsKey(id)) {
+                    delivering.put(id, location);
+                } else {
+                    pending.put(id, location);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.chua.starter.queue.delay;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 每层由 {@code wheelSize} 个槽组成，槽内任务以双向链表保存，插入与取消均为 O(1)。
+ * 超出当前层跨度的任务放入上一层（跨度为下层的 {@code wheelSize} 倍），到期时逐层降级。
+ * 只有非空槽会进入 {@link DelayQueue}，驱动线程按槽到期推进时钟，队列规模与槽数相关而与任务数无关。
+ * </p>
+ * <p>
+ * 到期任务交给 {@code executor} 执行，时间使用毫秒级墙钟，便于与持久化的投递时间对齐。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-01-02
+ */
+@Slf4j
+public class HierarchicalTimingWheel implements AutoCloseable {
+
+    private final Executor executor;
+    private final DelayQueue<Bucket> delayQueue = new DelayQueue<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Wheel root;
+    private final Thread driver;
+    private volatile boolean running = true;
+
+    /**
+     * @param name       驱动线程名
+     * @param tickMillis 最底层每格时长（毫秒）
+     * @param wheelSize  每层槽数
+     * @param executor   到期任务执行器
+     */
+    public HierarchicalTimingWheel(String name, long tickMillis, int wheelSize, Executor executor) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        this.executor = executor;
+        this.root = new Wheel(tickMillis, wheelSize, System.currentTimeMillis());
+        this.driver = Thread.ofPlatform().name(name).daemon(true).start(this::drive);
+    }
+
+    /**
+     * 添加定时任务，已存在相同 ID 的任务时先取消旧任务
+     *
+     * @param id             任务ID
+     * @param deadlineMillis 到期时间（毫秒时间戳）
+     * @param task           到期执行的任务
+     */
+    public void schedule(String id, long deadlineMillis, Runnable task) {
+        Entry entry = new Entry(id, deadlineMillis, task);
+        Entry previous = entries.put(id, entry);
+        if (previous != null) {
+            previous.remove();
+        }
+        lock.readLock().lock();
+        try {
+            addOrRun(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param id 任务ID
+     * @return 任务存在且尚未执行时返回 true
+     */
+    public boolean cancel(String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.remove();
+        return true;
+    }
+
+    /**
+     * 待执行任务数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        driver.interrupt();
+        try {
+            driver.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        entries.clear();
+    }
+
+    private void addOrRun(Entry entry) {
+        if (!root.add(entry) && entries.remove(entry.id, entry)) {
+            // 已到期，直接执行
+            try {
+                executor.execute(entry.task);
+            } catch (Exception e) {
+                log.error("Failed to execute expired timer task: {}", entry.id, e);
+            }
+        }
+    }
+
+    private void drive() {
+        while (running) {
+            try {
+                Bucket bucket = delayQueue.poll(200, TimeUnit.MILLISECONDS);
+                if (bucket == null) {
+                    continue;
+                }
+                lock.writeLock().lock();
+                try {
+                    while (bucket != null) {
+                        root.advanceClock(bucket.getExpiration());
+                        bucket.flush(this::addOrRun);
+                        bucket = delayQueue.poll();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Timing wheel driver error", e);
+            }
+        }
+    }
+
+    /**
+     * 单层时间轮
+     */
+    private final class Wheel {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+        private volatile long currentTime;
+        private volatile Wheel overflow;
+
+        Wheel(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - (startMillis % tickMillis);
+        }
+
+        /**
+         * @return 已到期无法加入时返回 false
+         */
+        boolean add(Entry entry) {
+            long deadline = entry.deadline;
+            if (entry.cancelled) {
+                return true;
+            }
+            if (deadline < currentTime + tickMillis) {
+                return false;
+            }
+            if (deadline < currentTime + interval) {
+                long virtualId = deadline / tickMillis;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(entry);
+                if (bucket.setExpiration(virtualId * tickMillis)) {
+                    // 槽进入新一轮，重新加入延迟队列
+                    delayQueue.offer(bucket);
+                }
+                return true;
+            }
+            return overflowWheel().add(entry);
+        }
+
+        void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                Wheel next = overflow;
+                if (next != null) {
+                    next.advanceClock(currentTime);
+                }
+            }
+        }
+
+        private Wheel overflowWheel() {
+            Wheel next = overflow;
+            if (next == null) {
+                synchronized (this) {
+                    next = overflow;
+                    if (next == null) {
+                        next = new Wheel(interval, wheelSize, currentTime);
+                        overflow = next;
+                    }
+                }
+            }
+            return next;
+        }
+    }
+
+    /**
+     * 时间槽，保存同一到期时间的任务链表
+     */
+    private static final class Bucket implements Delayed {
+        private final Entry root = new Entry(null, -1, null);
+        private final AtomicLong expiration = new AtomicLong(-1);
+
+        Bucket() {
+            root.next = root;
+            root.prev = root;
+        }
+
+        synchronized void add(Entry entry) {
+            entry.detach();
+            synchronized (entry) {
+                if (entry.bucket == null && !entry.cancelled) {
+                    Entry tail = root.prev;
+                    entry.next = root;
+                    entry.prev = tail;
+                    entry.bucket = this;
+                    tail.next = entry;
+                    root.prev = entry;
+                }
+            }
+        }
+
+        synchronized void remove(Entry entry) {
+            synchronized (entry) {
+                if (entry.bucket == this) {
+                    entry.next.prev = entry.prev;
+                    entry.prev.next = entry.next;
+                    entry.next = null;
+                    entry.prev = null;
+                    entry.bucket = null;
+                }
+            }
+        }
+
+        /**
+         * 取出全部任务并重置到期时间
+         */
+        synchronized void flush(java.util.function.Consumer<Entry> consumer) {
+            Entry head = root.next;
+            while (head != root) {
+                remove(head);
+                consumer.accept(head);
+                head = root.next;
+            }
+            expiration.set(-1);
+        }
+
+        boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(0, getExpiration() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+        }
+    }
+
+    /**
+     * 定时任务节点
+     */
+    private static final class Entry {
+        private final String id;
+        private final long deadline;
+        private final Runnable task;
+        private volatile Bucket bucket;
+        private volatile boolean cancelled;
+        private Entry next;
+        private Entry prev;
+
+        Entry(String id, long deadline, Runnable task) {
+            this.id = id;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        void remove() {
+            cancelled = true;
+            detach();
+        }
+
+        void detach() {
+            Bucket current = bucket;
+            // 移除期间任务可能被降级到其他槽，循环直到脱离
+            while (current != null) {
+                current.remove(this);
+                current = bucket;
+            }
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package com.chua.starter.queue.filter;
 
 import com.chua.starter.queue.Message;
+import com.chua.starter.queue.properties.QueueProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-
 /**
  * 消息去重过滤器
  * <p>
- * 基于消息ID进行去重，防止重复消息处理
+ * 基于消息ID进行去重，防止重复消息处理。
+ * 本地使用按时间分段的去重窗口（见 {@link TimeBucketedDuplicateStore}），过期时间段整体丢弃；
+ * 配置 {@code plugin.queue.dedup.store=redis} 时，本地窗口未命中的消息再经过 Redis 共享窗口，
+ * 多个消费者实例之间也能去重。
  * </p>
  *
  * @author CH
@@ -20,8 +23,25 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class DuplicateMessageFilter implements MessageFilter {
 
-    private final ConcurrentHashMap<String, Long> processedMessages = new ConcurrentHashMap<>();
-    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
+    private final DuplicateMessageStore localStore;
+    private final ObjectProvider<DuplicateMessageStore> sharedStoreProvider;
+    private volatile DuplicateMessageStore sharedStore;
+    private volatile boolean sharedStoreResolved;
+
+    public DuplicateMessageFilter() {
+        this(new QueueProperties.DedupConfig(), null);
+    }
+
+    @Autowired
+    public DuplicateMessageFilter(QueueProperties queueProperties, ObjectProvider<DuplicateMessageStore> sharedStoreProvider) {
+        this(queueProperties.getDedup(), sharedStoreProvider);
+    }
+
+    private DuplicateMessageFilter(QueueProperties.DedupConfig config, ObjectProvider<DuplicateMessageStore> sharedStoreProvider) {
+        this.localStore = new TimeBucketedDuplicateStore(config.getWindowMillis(), config.getSegments(),
+                config.isBloomEnabled(), config.getExpectedInsertions(), config.getFalsePositiveRate());
+        this.sharedStoreProvider = sharedStoreProvider;
+    }
 
     @Override
     public boolean filter(Message message) {
@@ -30,43 +50,39 @@ public class DuplicateMessageFilter implements MessageFilter {
             return true; // 没有ID的消息直接通过
         }
 
-        long now = System.currentTimeMillis();
-        Long lastProcessTime = processedMessages.putIfAbsent(messageId, now);
-
-        if (lastProcessTime != null) {
-            // 消息已处理过
-            if (now - lastProcessTime < DEFAULT_TTL) {
-                log.warn("[Queue] 检测到重复消息: destination={}, id={}",
-                    message.getDestination(), messageId);
-                return false;
-            } else {
-                // 超过TTL，允许重新处理
-                processedMessages.put(messageId, now);
-                return true;
-            }
+        if (!localStore.markIfAbsent(messageId)) {
+            log.warn("[Queue] 检测到重复消息: destination={}, id={}",
+                message.getDestination(), messageId);
+            return false;
         }
 
-        // 清理过期记录
-        cleanupExpiredRecords(now);
-
+        DuplicateMessageStore shared = sharedStore();
+        if (shared != null && !shared.markIfAbsent(messageId)) {
+            log.warn("[Queue] 检测到其他实例已处理的重复消息: destination={}, id={}",
+                message.getDestination(), messageId);
+            return false;
+        }
         return true;
     }
 
     /**
-     * 清理过期记录
+     * 清空所有记录
      */
-    private void cleanupExpiredRecords(long now) {
-        if (processedMessages.size() > 10000) {
-            processedMessages.entrySet().removeIf(entry ->
-                now - entry.getValue() > DEFAULT_TTL);
+    public void clear() {
+        localStore.clear();
+        DuplicateMessageStore shared = sharedStore();
+        if (shared != null) {
+            shared.clear();
         }
     }
 
-    /**
-     * 清空所有记录
-     */
-    public void clear() {
-        processedMessages.clear();
+    private DuplicateMessageStore sharedStore() {
+        if (!sharedStoreResolved) {
+            // 共享存储由独立的自动配置注册，首次过滤时再解析，避免依赖创建顺序
+            sharedStore = sharedStoreProvider == null ? null : sharedStoreProvider.getIfUnique();
+            sharedStoreResolved = true;
+        }
+        return sharedStore;
     }
 
     @Override
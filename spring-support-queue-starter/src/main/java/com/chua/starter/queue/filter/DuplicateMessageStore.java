@@ -0,0 +1,27 @@
+package com.chua.starter.queue.filter;
+
+/**
+ * 消息去重存储
+ * <p>
+ * 记录去重窗口内已处理的消息ID，供 {@link DuplicateMessageFilter} 使用
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+public interface DuplicateMessageStore {
+
+    /**
+     * 记录消息ID
+     *
+     * @param messageId 消息ID
+     * @return true表示首次出现，false表示窗口内已记录过
+     */
+    boolean markIfAbsent(String messageId);
+
+    /**
+     * 清空所有记录
+     */
+    default void clear() {
+    }
+}
@@ -0,0 +1,41 @@
+package com.chua.starter.queue.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * 基于 Redis 的共享去重存储
+ * <p>
+ * 使用 {@code SET key 1 NX PX window} 记录消息ID，多个消费者实例共享同一个去重窗口。
+ * Redis 不可用时放行消息，由本地窗口兜底。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Slf4j
+public class RedisDuplicateMessageStore implements DuplicateMessageStore {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String keyPrefix;
+    private final Duration window;
+
+    public RedisDuplicateMessageStore(StringRedisTemplate stringRedisTemplate, String keyPrefix, long windowMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.window = Duration.ofMillis(Math.max(1L, windowMillis));
+    }
+
+    @Override
+    public boolean markIfAbsent(String messageId) {
+        try {
+            Boolean absent = stringRedisTemplate.opsForValue().setIfAbsent(keyPrefix + messageId, "1", window);
+            return !Boolean.FALSE.equals(absent);
+        } catch (Exception e) {
+            log.warn("[Queue] Redis 去重失败，按本地窗口处理: id={}, error={}", messageId, e.getMessage());
+            return true;
+        }
+    }
+}
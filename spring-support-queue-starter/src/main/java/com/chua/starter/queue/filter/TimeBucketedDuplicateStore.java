@@ -0,0 +1,205 @@
+package com.chua.starter.queue.filter;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按时间分段的本地去重存储
+ * <p>
+ * 去重窗口按时间切成 {@code segments} 段，消息ID写入当前时间段，查询时检查窗口内的所有时间段。
+ * 时间段过期后整体丢弃，不需要逐条扫描清理，内存只和窗口内的消息量有关：
+ * </p>
+ * <ul>
+ *     <li>精确模式：每段一个并发 Set，不会误判</li>
+ *     <li>布隆模式：每段一个可扩展的布隆过滤器，内存固定，按 {@code falsePositiveRate} 误判为重复</li>
+ * </ul>
+ * <p>
+ * 记录的保留时间在 {@code windowMillis * (segments - 1) / segments} 到 {@code windowMillis} 之间。
+ * 同一时间段内的并发写入只有一个成功；恰好跨越时间段切换的同一ID并发到达时，极少数情况下可能都被放行。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+public class TimeBucketedDuplicateStore implements DuplicateMessageStore {
+
+    /**
+     * 布隆过滤器扩容时新过滤器的误判率收紧比例，使整体误判率收敛
+     */
+    private static final double BLOOM_TIGHTENING_RATIO = 0.5D;
+
+    private final long segmentMillis;
+    private final int segments;
+    private final boolean bloom;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final AtomicReferenceArray<Segment> slots;
+
+    /**
+     * 精确模式
+     *
+     * @param windowMillis 去重窗口（毫秒）
+     * @param segments     时间段数量
+     */
+    public TimeBucketedDuplicateStore(long windowMillis, int segments) {
+        this(windowMillis, segments, false, 0, 0D);
+    }
+
+    /**
+     * @param windowMillis       去重窗口（毫秒）
+     * @param segments           时间段数量
+     * @param bloom              是否使用布隆过滤器
+     * @param expectedInsertions 每个时间段的预计消息数
+     * @param falsePositiveRate  布隆过滤器误判率
+     */
+    public TimeBucketedDuplicateStore(long windowMillis, int segments, boolean bloom,
+                                      int expectedInsertions, double falsePositiveRate) {
+        this.segments = Math.max(2, segments);
+        this.segmentMillis = Math.max(1L, windowMillis / this.segments);
+        this.bloom = bloom;
+        this.expectedInsertions = Math.max(1000, expectedInsertions);
+        this.falsePositiveRate = falsePositiveRate > 0D && falsePositiveRate < 1D ? falsePositiveRate : 0.001D;
+        this.slots = new AtomicReferenceArray<>(this.segments);
+    }
+
+    @Override
+    public boolean markIfAbsent(String messageId) {
+        long bucket = System.currentTimeMillis() / segmentMillis;
+        Segment current = segment(bucket);
+        // 先查较早的时间段，最后由当前时间段的原子写入决定并发下的唯一胜出者
+        for (int i = 1; i < segments; i++) {
+            Segment older = slots.get(index(bucket - i));
+            if (older != null && older.bucket == bucket - i && older.contains(messageId)) {
+                return false;
+            }
+        }
+        return current.add(messageId);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments; i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private Segment segment(long bucket) {
+        int index = index(bucket);
+        while (true) {
+            Segment segment = slots.get(index);
+            if (segment != null && segment.bucket >= bucket) {
+                return segment;
+            }
+            // 槽位里是已经过期的时间段，整体替换
+            Segment created = bloom ? new BloomSegment(bucket) : new ExactSegment(bucket);
+            if (slots.compareAndSet(index, segment, created)) {
+                return created;
+            }
+        }
+    }
+
+    private int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) segments);
+    }
+
+    private abstract static class Segment {
+
+        final long bucket;
+
+        Segment(long bucket) {
+            this.bucket = bucket;
+        }
+
+        abstract boolean contains(String messageId);
+
+        abstract boolean add(String messageId);
+    }
+
+    private static final class ExactSegment extends Segment {
+
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        ExactSegment(long bucket) {
+            super(bucket);
+        }
+
+        @Override
+        boolean contains(String messageId) {
+            return ids.contains(messageId);
+        }
+
+        @Override
+        boolean add(String messageId) {
+            return ids.add(messageId);
+        }
+    }
+
+    /**
+     * 可扩展布隆过滤器，写满预计数量后追加一个更大、误判率更低的过滤器
+     */
+    private final class BloomSegment extends Segment {
+
+        private volatile BloomFilter<CharSequence>[] filters;
+        private final AtomicLong inserted = new AtomicLong();
+        private volatile long capacity;
+
+        @SuppressWarnings("unchecked")
+        BloomSegment(long bucket) {
+            super(bucket);
+            this.filters = new BloomFilter[]{create(expectedInsertions, falsePositiveRate)};
+            this.capacity = expectedInsertions;
+        }
+
+        @Override
+        boolean contains(String messageId) {
+            for (BloomFilter<CharSequence> filter : filters) {
+                if (filter.mightContain(messageId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean add(String messageId) {
+            BloomFilter<CharSequence>[] current = filters;
+            for (int i = 0; i < current.length - 1; i++) {
+                if (current[i].mightContain(messageId)) {
+                    return false;
+                }
+            }
+            if (!current[current.length - 1].put(messageId)) {
+                return false;
+            }
+            if (inserted.incrementAndGet() >= capacity) {
+                grow(current);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void grow(BloomFilter<CharSequence>[] expected) {
+            if (filters != expected) {
+                return;
+            }
+            int size = expected.length;
+            long insertions = (long) expectedInsertions << Math.min(size, 16);
+            double fpp = falsePositiveRate * Math.pow(BLOOM_TIGHTENING_RATIO, size);
+            BloomFilter<CharSequence>[] grown = new BloomFilter[size + 1];
+            System.arraycopy(expected, 0, grown, 0, size);
+            grown[size] = create(insertions, fpp);
+            capacity = inserted.get() + insertions;
+            filters = grown;
+        }
+    }
+
+    private static BloomFilter<CharSequence> create(long insertions, double fpp) {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), insertions, fpp);
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 性能监控拦截器
@@ -25,6 +27,7 @@ public class MetricsMessageInterceptor implements MessageInterceptor {
     private final ConcurrentHashMap<String, AtomicLong> sendFailureCounters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicLong> receiveFailureCounters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Long> sendTimestamps = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, BatchStats> batchStats = new ConcurrentHashMap<>();
 
     @Override
     public Message beforeSend(Message message) {
@@ -108,6 +111,80 @@ public class MetricsMessageInterceptor implements MessageInterceptor {
         return counter != null ? counter.get() : 0;
     }
 
+    /**
+     * 记录一次批量刷新
+     *
+     * @param destination  目标地址
+     * @param size         批次消息数
+     * @param capacity     批次容量
+     * @param bytes        批次字节数
+     * @param latencyMs    批次中最早的消息从入队到处理完成的耗时
+     * @param success      是否处理成功
+     */
+    public void recordBatchFlush(String destination, int size, int capacity, long bytes, long latencyMs, boolean success) {
+        BatchStats stats = batchStats.computeIfAbsent(destination, k -> new BatchStats());
+        stats.flushes.increment();
+        stats.messages.add(size);
+        stats.capacity.add(Math.max(size, capacity));
+        stats.bytes.add(bytes);
+        stats.latencyMs.add(latencyMs);
+        stats.maxLatencyMs.accumulate(latencyMs);
+        if (!success) {
+            stats.failures.increment();
+        }
+    }
+
+    /**
+     * 获取批量刷新次数
+     */
+    public long getBatchFlushCount(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        return stats != null ? stats.flushes.sum() : 0;
+    }
+
+    /**
+     * 获取批量处理失败次数
+     */
+    public long getBatchFailureCount(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        return stats != null ? stats.failures.sum() : 0;
+    }
+
+    /**
+     * 获取平均批次填充率（0~1），批次经常不满说明刷新主要由超时触发
+     */
+    public double getBatchFillRatio(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        long capacity = stats != null ? stats.capacity.sum() : 0;
+        return capacity > 0 ? (double) stats.messages.sum() / capacity : 0D;
+    }
+
+    /**
+     * 获取平均批次字节数
+     */
+    public double getAverageBatchBytes(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        long flushes = stats != null ? stats.flushes.sum() : 0;
+        return flushes > 0 ? (double) stats.bytes.sum() / flushes : 0D;
+    }
+
+    /**
+     * 获取平均刷新延迟（毫秒）
+     */
+    public double getAverageBatchLatency(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        long flushes = stats != null ? stats.flushes.sum() : 0;
+        return flushes > 0 ? (double) stats.latencyMs.sum() / flushes : 0D;
+    }
+
+    /**
+     * 获取最大刷新延迟（毫秒）
+     */
+    public long getMaxBatchLatency(String destination) {
+        BatchStats stats = batchStats.get(destination);
+        return stats != null ? stats.maxLatencyMs.get() : 0;
+    }
+
     /**
      * 重置统计
      */
@@ -117,10 +194,25 @@ public class MetricsMessageInterceptor implements MessageInterceptor {
         sendFailureCounters.clear();
         receiveFailureCounters.clear();
         sendTimestamps.clear();
+        batchStats.clear();
     }
 
     @Override
     public int getOrder() {
         return -100; // 高优先级
     }
+
+    /**
+     * 单个目标地址的批量刷新统计
+     */
+    private static final class BatchStats {
+
+        private final LongAdder flushes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder capacity = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder latencyMs = new LongAdder();
+        private final LongAccumulator maxLatencyMs = new LongAccumulator(Math::max, 0L);
+    }
 }
@@ -58,6 +58,80 @@ public class DeadLetterProperties {
      */
     private double backoffMultiplier = 2.0;
 
+    /**
+     * 重试延迟的随机抖动比例（0~1）
+     */
+    private double retryJitter = 0.2;
+
+    /**
+     * 到期重试的轮询间隔（毫秒）
+     */
+    private long retryPollIntervalMillis = 200;
+
+    /**
+     * 每批投递的重试消息数
+     */
+    private int retryPollBatchSize = 500;
+
+    /**
+     * 单个目标地址等待重试的消息数达到该值时，新的失败消息直接转入死信队列；小于等于 0 表示不限制
+     */
+    private int parkThreshold = 10000;
+
+    /**
+     * 重试存储类型（local/jdbc）
+     */
+    private String retryStore = "local";
+
+    /**
+     * 本地重试存储目录（retry-store=local 时生效）
+     * <p>
+     * 为空时待重试消息、死信副本和墓碑都只保存在内存中，进程重启后未完成的重试丢失，
+     * 已重放死信的墓碑也随之丢失；生产环境应配置为持久化目录，启动时会对内存模式打印警告。
+     * </p>
+     */
+    private String retryStorePath;
+
+    /**
+     * 本地重试日志单个分段大小（字节）
+     */
+    private long retrySegmentBytes = 64L * 1024 * 1024;
+
+    /**
+     * 本地重试日志分段数达到该值时执行检查点
+     */
+    private int retryCheckpointSegments = 4;
+
+    /**
+     * 本地重试日志每次写入是否强制刷盘
+     */
+    private boolean retryFsync = false;
+
+    /**
+     * JDBC 重试存储表名
+     */
+    private String retryTable = "queue_retry_message";
+
+    /**
+     * JDBC 重试存储表不存在时是否自动创建
+     */
+    private boolean retryInitializeSchema = true;
+
+    /**
+     * 已重放或删除死信的墓碑保留时间（小时），应长于死信队列中消息的保留时间
+     */
+    private long deadLetterTombstoneRetentionHours = 7 * 24;
+
+    /**
+     * 重试存储中每个目标地址保存的死信数量上限（仅本地存储），超出时淘汰最早的；小于等于 0 表示不限制
+     */
+    private int deadLetterStoreMaxPerDestination = 10000;
+
+    /**
+     * 重试存储中死信的保留时间（小时），超过后淘汰；死信队列中的副本不受影响
+     */
+    private long deadLetterStoreRetentionHours = 7 * 24;
+
     // Lombok 注解处理器未运行时的手动 getter 方法
     public int getMaxRetries() {
         return maxRetries;
@@ -86,4 +160,60 @@ public class DeadLetterProperties {
     public int getDelayThreads() {
         return delayThreads;
     }
+
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    public long getRetryPollIntervalMillis() {
+        return retryPollIntervalMillis;
+    }
+
+    public int getRetryPollBatchSize() {
+        return retryPollBatchSize;
+    }
+
+    public int getParkThreshold() {
+        return parkThreshold;
+    }
+
+    public String getRetryStore() {
+        return retryStore;
+    }
+
+    public String getRetryStorePath() {
+        return retryStorePath;
+    }
+
+    public long getRetrySegmentBytes() {
+        return retrySegmentBytes;
+    }
+
+    public int getRetryCheckpointSegments() {
+        return retryCheckpointSegments;
+    }
+
+    public boolean isRetryFsync() {
+        return retryFsync;
+    }
+
+    public String getRetryTable() {
+        return retryTable;
+    }
+
+    public boolean isRetryInitializeSchema() {
+        return retryInitializeSchema;
+    }
+
+    public long getDeadLetterTombstoneRetentionHours() {
+        return deadLetterTombstoneRetentionHours;
+    }
+
+    public int getDeadLetterStoreMaxPerDestination() {
+        return deadLetterStoreMaxPerDestination;
+    }
+
+    public long getDeadLetterStoreRetentionHours() {
+        return deadLetterStoreRetentionHours;
+    }
 }
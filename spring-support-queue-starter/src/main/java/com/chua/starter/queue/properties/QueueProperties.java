@@ -2,6 +2,7 @@ package com.chua.starter.queue.properties;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
 
 /**
  * 消息队列配置属性
@@ -55,16 +56,154 @@ public class QueueProperties {
      */
     private RocketMQConfig rocketmq = new RocketMQConfig();
 
+    /**
+     * 消息去重配置
+     */
+    private DedupConfig dedup = new DedupConfig();
+
+    /**
+     * 消息去重配置
+     */
+    @Data
+    public static class DedupConfig {
+        /**
+         * 去重窗口（毫秒）
+         */
+        private long windowMillis = 5 * 60 * 1000L;
+
+        /**
+         * 去重窗口切分的时间段数量，时间段过期后整体丢弃
+         */
+        private int segments = 5;
+
+        /**
+         * 是否使用布隆过滤器代替精确集合，内存固定但有误判
+         */
+        private boolean bloomEnabled = false;
+
+        /**
+         * 每个时间段预计的消息数（布隆过滤器容量）
+         */
+        private int expectedInsertions = 100000;
+
+        /**
+         * 布隆过滤器误判率
+         */
+        private double falsePositiveRate = 0.0001;
+
+        /**
+         * 共享去重存储（local/redis），redis 时多个消费者实例共享去重窗口
+         */
+        private String store = "local";
+
+        /**
+         * Redis 去重键前缀
+         */
+        private String redisKeyPrefix = "plugin:queue:dedup:";
+
+        // Lombok 注解处理器未运行时的手动 getter/setter 方法
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public void setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public void setSegments(int segments) {
+            this.segments = segments;
+        }
+
+        public boolean isBloomEnabled() {
+            return bloomEnabled;
+        }
+
+        public void setBloomEnabled(boolean bloomEnabled) {
+            this.bloomEnabled = bloomEnabled;
+        }
+
+        public int getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(int expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public String getStore() {
+            return store;
+        }
+
+        public void setStore(String store) {
+            this.store = store;
+        }
+
+        public String getRedisKeyPrefix() {
+            return redisKeyPrefix;
+        }
+
+        public void setRedisKeyPrefix(String redisKeyPrefix) {
+            this.redisKeyPrefix = redisKeyPrefix;
+        }
+    }
+
     /**
      * 本地队列配置（基于Guava EventBus）
      */
     @Data
     public static class LocalConfig {
         /**
-         * 延迟消息调度线程数
+         * 延迟消息调度线程数（已由时间轮单线程驱动取代，保留以兼容旧配置）
          */
         private int delayThreads = 2;
 
+        /**
+         * 延迟消息时间轮最小刻度（毫秒）
+         */
+        private long delayTickMillis = 10;
+
+        /**
+         * 延迟消息时间轮每层槽数
+         */
+        private int delayWheelSize = 512;
+
+        /**
+         * 延迟消息持久化目录，为空时仅保存在内存中，重启后丢失
+         */
+        private String delayStorePath;
+
+        /**
+         * 延迟消息日志单个分段大小（字节）
+         */
+        private long delaySegmentBytes = 64L * 1024 * 1024;
+
+        /**
+         * 分段数达到该值时执行检查点，压缩已投递的记录
+         */
+        private int delayCheckpointSegments = 4;
+
+        /**
+         * 每次写入日志是否强制刷盘
+         */
+        private boolean delayFsync = false;
+
+        /**
+         * 重启后恢复的消息最小延迟（毫秒），留出订阅者注册的时间
+         */
+        private long delayRecoveryDelayMillis = 5000;
+
         // Lombok 注解处理器未运行时的手动 getter/setter 方法
         public int getDelayThreads() {
             return delayThreads;
@@ -73,6 +212,62 @@ public class QueueProperties {
         public void setDelayThreads(int delayThreads) {
             this.delayThreads = delayThreads;
         }
+
+        public long getDelayTickMillis() {
+            return delayTickMillis;
+        }
+
+        public void setDelayTickMillis(long delayTickMillis) {
+            this.delayTickMillis = delayTickMillis;
+        }
+
+        public int getDelayWheelSize() {
+            return delayWheelSize;
+        }
+
+        public void setDelayWheelSize(int delayWheelSize) {
+            this.delayWheelSize = delayWheelSize;
+        }
+
+        public String getDelayStorePath() {
+            return delayStorePath;
+        }
+
+        public void setDelayStorePath(String delayStorePath) {
+            this.delayStorePath = delayStorePath;
+        }
+
+        public long getDelaySegmentBytes() {
+            return delaySegmentBytes;
+        }
+
+        public void setDelaySegmentBytes(long delaySegmentBytes) {
+            this.delaySegmentBytes = delaySegmentBytes;
+        }
+
+        public int getDelayCheckpointSegments() {
+            return delayCheckpointSegments;
+        }
+
+        public void setDelayCheckpointSegments(int delayCheckpointSegments) {
+            this.delayCheckpointSegments = delayCheckpointSegments;
+        }
+
+        public boolean isDelayFsync() {
+            return delayFsync;
+        }
+
+        public void setDelayFsync(boolean delayFsync) {
+            this.delayFsync = delayFsync;
+        }
+
+        public long getDelayRecoveryDelayMillis() {
+            return delayRecoveryDelayMillis;
+        }
+
+        public void setDelayRecoveryDelayMillis(long delayRecoveryDelayMillis) {
+            this.delayRecoveryDelayMillis = delayRecoveryDelayMillis;
+        }
     }
 
     /**
@@ -195,12 +390,19 @@ public class QueueProperties {
 
         /**
          * 是否自动提交
+         *
+         * @deprecated 偏移由消费者按"连续处理完成"的位置提交，客户端自动提交会越过未处理的消息，该配置不再生效；
+         * 提交频率由 {@link #commitIntervalMs} 控制
          */
+        @Deprecated
         private boolean enableAutoCommit = true;
 
         /**
          * 自动提交间隔（毫秒）
+         *
+         * @deprecated 客户端自动提交已停用，该配置不再生效，请使用 {@link #commitIntervalMs}
          */
+        @Deprecated
         private int autoCommitIntervalMs = 5000;
 
         /**
@@ -208,6 +410,66 @@ public class QueueProperties {
          */
         private String acks = "all";
 
+        /**
+         * 生产者批次等待时间（毫秒），适当增大可提升批量发送效率
+         */
+        private int lingerMs = 5;
+
+        /**
+         * 生产者批次大小（字节）
+         */
+        private int batchSize = 16384;
+
+        /**
+         * 压缩类型（none/gzip/snappy/lz4/zstd）
+         */
+        private String compressionType = "none";
+
+        /**
+         * 同步发送等待超时（毫秒）
+         */
+        private long sendTimeoutMs = 30000;
+
+        /**
+         * 消费顺序模式：partition 分区内有序；key 分区内同 key 有序、不同 key 并行
+         */
+        private String orderingMode = "partition";
+
+        /**
+         * key 顺序模式下每个分区的并行通道数
+         */
+        private int keyLanes = 16;
+
+        /**
+         * 单个消费者最大在途（已拉取未处理完）消息数，达到后暂停拉取
+         */
+        private int maxInFlightRecords = 1000;
+
+        /**
+         * 偏移异步提交间隔（毫秒），只提交连续处理完成的偏移
+         */
+        private long commitIntervalMs = 1000;
+
+        /**
+         * 手动确认模式下同一消息最多处理次数，达到后转入死信主题或跳过
+         */
+        private int maxDeliveryAttempts = 5;
+
+        /**
+         * 首次重新投递前的退避时间（毫秒），之后每次翻倍
+         */
+        private long retryBackoffMs = 1000;
+
+        /**
+         * 重新投递的最大退避时间（毫秒）
+         */
+        private long maxRetryBackoffMs = 30000;
+
+        /**
+         * 死信主题后缀，死信主题为 {@code 原主题 + 后缀}；为空时重试耗尽后跳过消息
+         */
+        private String deadLetterSuffix = ".DLQ";
+
         // Lombok 注解处理器未运行时的手动 getter 方法
         public String getBootstrapServers() {
             return bootstrapServers;
@@ -233,18 +495,26 @@ public class QueueProperties {
             this.autoOffsetReset = autoOffsetReset;
         }
 
+        @Deprecated
+        @DeprecatedConfigurationProperty(reason = "偏移按连续处理完成的位置由消费者提交，客户端自动提交已停用",
+                replacement = "plugin.queue.kafka.commit-interval-ms")
         public boolean isEnableAutoCommit() {
             return enableAutoCommit;
         }
 
+        @Deprecated
         public void setEnableAutoCommit(boolean enableAutoCommit) {
             this.enableAutoCommit = enableAutoCommit;
         }
 
+        @Deprecated
+        @DeprecatedConfigurationProperty(reason = "客户端自动提交已停用",
+                replacement = "plugin.queue.kafka.commit-interval-ms")
         public int getAutoCommitIntervalMs() {
             return autoCommitIntervalMs;
         }
 
+        @Deprecated
         public void setAutoCommitIntervalMs(int autoCommitIntervalMs) {
             this.autoCommitIntervalMs = autoCommitIntervalMs;
         }
@@ -256,6 +526,102 @@ public class QueueProperties {
         public void setAcks(String acks) {
             this.acks = acks;
         }
+
+        public int getLingerMs() {
+            return lingerMs;
+        }
+
+        public void setLingerMs(int lingerMs) {
+            this.lingerMs = lingerMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public String getCompressionType() {
+            return compressionType;
+        }
+
+        public void setCompressionType(String compressionType) {
+            this.compressionType = compressionType;
+        }
+
+        public long getSendTimeoutMs() {
+            return sendTimeoutMs;
+        }
+
+        public void setSendTimeoutMs(long sendTimeoutMs) {
+            this.sendTimeoutMs = sendTimeoutMs;
+        }
+
+        public String getOrderingMode() {
+            return orderingMode;
+        }
+
+        public void setOrderingMode(String orderingMode) {
+            this.orderingMode = orderingMode;
+        }
+
+        public int getKeyLanes() {
+            return keyLanes;
+        }
+
+        public void setKeyLanes(int keyLanes) {
+            this.keyLanes = keyLanes;
+        }
+
+        public int getMaxInFlightRecords() {
+            return maxInFlightRecords;
+        }
+
+        public void setMaxInFlightRecords(int maxInFlightRecords) {
+            this.maxInFlightRecords = maxInFlightRecords;
+        }
+
+        public long getCommitIntervalMs() {
+            return commitIntervalMs;
+        }
+
+        public void setCommitIntervalMs(long commitIntervalMs) {
+            this.commitIntervalMs = commitIntervalMs;
+        }
+
+        public int getMaxDeliveryAttempts() {
+            return maxDeliveryAttempts;
+        }
+
+        public void setMaxDeliveryAttempts(int maxDeliveryAttempts) {
+            this.maxDeliveryAttempts = maxDeliveryAttempts;
+        }
+
+        public long getRetryBackoffMs() {
+            return retryBackoffMs;
+        }
+
+        public void setRetryBackoffMs(long retryBackoffMs) {
+            this.retryBackoffMs = retryBackoffMs;
+        }
+
+        public long getMaxRetryBackoffMs() {
+            return maxRetryBackoffMs;
+        }
+
+        public void setMaxRetryBackoffMs(long maxRetryBackoffMs) {
+            this.maxRetryBackoffMs = maxRetryBackoffMs;
+        }
+
+        public String getDeadLetterSuffix() {
+            return deadLetterSuffix;
+        }
+
+        public void setDeadLetterSuffix(String deadLetterSuffix) {
+            this.deadLetterSuffix = deadLetterSuffix;
+        }
     }
 
     /**
@@ -455,4 +821,12 @@ public class QueueProperties {
     public LocalConfig getLocal() {
         return local;
     }
+
+    public DedupConfig getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(DedupConfig dedup) {
+        this.dedup = dedup;
+    }
 }
@@ -0,0 +1,304 @@
+package com.chua.starter.queue.retry;
+
+import com.chua.starter.queue.delay.DelayedMessage;
+import com.chua.starter.queue.util.Json;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 JDBC 的重试与死信存储
+ * <p>
+ * 多个实例共用一张表，待重试消息、死信消息与已删除死信的墓碑以 {@code state} 区分：
+ * </p>
+ * <pre>
+ * id VARCHAR(128), state VARCHAR(8), destination VARCHAR(255), due_at BIGINT, headers VARCHAR(4000), payload BLOB
+ * PRIMARY KEY (state, id)，建议在 (state, due_at) 与 (state, destination) 上建索引
+ * </pre>
+ * <p>
+ * 多个实例同时轮询同一张表时，同一条到期消息可能被多个实例重新投递，消费端需要幂等（至少一次）。
+ * 墓碑只保留ID与删除时间，超过保留期后在下一次删除死信时清理；
+ * 死信超过保留期后在保存新死信时清理（最多每分钟一次），JDBC 存储不按数量限制。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Slf4j
+public class JdbcRetryStore implements RetryStore {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final String STATE_RETRY = "RETRY";
+    private static final String STATE_DEAD = "DEAD";
+    private static final String STATE_REMOVED = "REMOVED";
+    private static final long DEAD_LETTER_PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final DataSource dataSource;
+    private final String table;
+    private final long tombstoneRetentionMillis;
+    private final long deadLetterRetentionMillis;
+    private final AtomicLong nextDeadLetterPurge = new AtomicLong();
+
+    /**
+     * @param dataSource       数据源
+     * @param table            表名
+     * @param initializeSchema 表不存在时是否自动创建
+     */
+    public JdbcRetryStore(DataSource dataSource, String table, boolean initializeSchema) {
+        this(dataSource, table, initializeSchema, LocalRetryStore.DEFAULT_TOMBSTONE_RETENTION);
+    }
+
+    /**
+     * @param dataSource         数据源
+     * @param table              表名
+     * @param initializeSchema   表不存在时是否自动创建
+     * @param tombstoneRetention 已删除死信的墓碑保留期，应长于死信队列中消息的保留时间
+     */
+    public JdbcRetryStore(DataSource dataSource, String table, boolean initializeSchema, Duration tombstoneRetention) {
+        this(dataSource, table, initializeSchema, tombstoneRetention, LocalRetryStore.DEFAULT_DEAD_LETTER_RETENTION);
+    }
+
+    /**
+     * @param dataSource          数据源
+     * @param table               表名
+     * @param initializeSchema    表不存在时是否自动创建
+     * @param tombstoneRetention  已删除死信的墓碑保留期，应长于死信队列中消息的保留时间
+     * @param deadLetterRetention 死信保留期，超过后清理
+     */
+    public JdbcRetryStore(DataSource dataSource, String table, boolean initializeSchema, Duration tombstoneRetention,
+                          Duration deadLetterRetention) {
+        if (table == null || !TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid retry table name: " + table);
+        }
+        this.dataSource = dataSource;
+        this.table = table;
+        this.tombstoneRetentionMillis = tombstoneRetention.toMillis();
+        this.deadLetterRetentionMillis = deadLetterRetention.toMillis();
+        if (initializeSchema) {
+            initializeSchema();
+        }
+    }
+
+    @Override
+    public void schedule(DelayedMessage message) {
+        save(STATE_RETRY, message);
+    }
+
+    @Override
+    public List<DelayedMessage> pollDue(long now, int limit) {
+        return query("SELECT id, destination, due_at, headers, payload FROM " + table
+                + " WHERE state = ? AND due_at <= ? ORDER BY due_at, id", limit, STATE_RETRY, now);
+    }
+
+    @Override
+    public void complete(String id) {
+        update("DELETE FROM " + table + " WHERE state = ? AND id = ?", STATE_RETRY, id);
+    }
+
+    @Override
+    public int getPendingCount(String destination) {
+        return count(STATE_RETRY, destination);
+    }
+
+    @Override
+    public void bury(DelayedMessage message) {
+        if (isDeadLetterRemoved(message.id())) {
+            // 保存前已被重放或删除
+            return;
+        }
+        save(STATE_DEAD, message);
+        long now = System.currentTimeMillis();
+        long next = nextDeadLetterPurge.get();
+        if (now >= next && nextDeadLetterPurge.compareAndSet(next, now + DEAD_LETTER_PURGE_INTERVAL_MILLIS)) {
+            update("DELETE FROM " + table + " WHERE state = ? AND due_at < ?", STATE_DEAD, now - deadLetterRetentionMillis);
+        }
+    }
+
+    @Override
+    public List<DelayedMessage> getDeadLetters(String destination, int limit) {
+        return query("SELECT id, destination, due_at, headers, payload FROM " + table
+                + " WHERE state = ? AND destination = ? ORDER BY due_at, id", limit, STATE_DEAD, destination);
+    }
+
+    @Override
+    public int removeDeadLetters(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement clear = connection.prepareStatement(
+                    "DELETE FROM " + table + " WHERE state = ? AND id = ?");
+                 PreparedStatement bury = connection.prepareStatement("UPDATE " + table
+                         + " SET state = ?, due_at = ?, headers = NULL, payload = NULL WHERE state = ? AND id = ?");
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                         + " (id, state, destination, due_at) VALUES (?, ?, ?, ?)");
+                 PreparedStatement expire = connection.prepareStatement(
+                         "DELETE FROM " + table + " WHERE state = ? AND due_at < ?")) {
+                List<String> batch = new ArrayList<>(ids);
+                for (String id : batch) {
+                    bind(clear, STATE_REMOVED, id);
+                    clear.addBatch();
+                    bind(bury, STATE_REMOVED, now, STATE_DEAD, id);
+                    bury.addBatch();
+                }
+                clear.executeBatch();
+                int[] counts = bury.executeBatch();
+                int removed = 0;
+                // 尚未保存的死信也留下墓碑，随后的保存会被跳过
+                for (int i = 0; i < batch.size(); i++) {
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        removed++;
+                    } else {
+                        bind(insert, batch.get(i), STATE_REMOVED, "", now);
+                        insert.addBatch();
+                    }
+                }
+                if (removed < batch.size()) {
+                    insert.executeBatch();
+                }
+                bind(expire, STATE_REMOVED, now - tombstoneRetentionMillis);
+                expire.executeUpdate();
+                connection.commit();
+                return removed;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to remove dead letters from " + table, e);
+        }
+    }
+
+    @Override
+    public boolean isDeadLetterRemoved(String id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM " + table + " WHERE state = ? AND id = ? AND due_at >= ?")) {
+            bind(statement, STATE_REMOVED, id, System.currentTimeMillis() - tombstoneRetentionMillis);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query " + table, e);
+        }
+    }
+
+    @Override
+    public int getDeadLetterCount(String destination) {
+        return count(STATE_DEAD, destination);
+    }
+
+    @Override
+    public void close() {
+        // 连接由数据源管理
+    }
+
+    private void save(String state, DelayedMessage message) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM " + table + " WHERE state = ? AND id = ?");
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                         + " (id, state, destination, due_at, headers, payload) VALUES (?, ?, ?, ?, ?, ?)")) {
+                delete.setString(1, state);
+                delete.setString(2, message.id());
+                delete.executeUpdate();
+                insert.setString(1, message.id());
+                insert.setString(2, state);
+                insert.setString(3, message.destination());
+                insert.setLong(4, message.deliverAt());
+                insert.setString(5, Json.toJson(message.headers()));
+                insert.setBytes(6, message.payload());
+                insert.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to save message " + message.id() + " to " + table, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DelayedMessage> query(String sql, int limit, Object... parameters) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            statement.setMaxRows(Math.max(1, limit));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<DelayedMessage> messages = new ArrayList<>();
+                while (resultSet.next()) {
+                    Map<String, String> headers = Json.fromJson(resultSet.getString("headers"), LinkedHashMap.class);
+                    messages.add(new DelayedMessage(resultSet.getString("id"), resultSet.getString("destination"),
+                            resultSet.getLong("due_at"), headers, resultSet.getBytes("payload")));
+                }
+                return messages;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query " + table, e);
+        }
+    }
+
+    private int count(String state, String destination) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM " + table + " WHERE state = ? AND destination = ?")) {
+            bind(statement, state, destination);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to count " + table, e);
+        }
+    }
+
+    private void update(String sql, Object... parameters) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to update " + table, e);
+        }
+    }
+
+    private void initializeSchema() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "id VARCHAR(128) NOT NULL, state VARCHAR(8) NOT NULL, destination VARCHAR(255) NOT NULL, "
+                    + "due_at BIGINT NOT NULL, headers VARCHAR(4000), payload BLOB, PRIMARY KEY (state, id))");
+        } catch (SQLException e) {
+            // 部分数据库不支持 IF NOT EXISTS 或 BLOB 类型，需要手动建表
+            log.warn("[Queue] 自动创建重试表失败，请手动建表: table={}, error={}", table, e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.chua.starter.queue.retry;
+
+import com.chua.starter.queue.delay.DelayedMessage;
+import com.chua.starter.queue.delay.DelayedMessageJournal;
+import com.chua.starter.queue.delay.DelayedMessageJournal.Location;
+import com.chua.starter.queue.delay.DelayedMessageJournal.Pending;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 本地重试与死信存储
+ * <p>
+ * 以 {@link DelayedMessageJournal} 持久化，待重试消息、死信消息和已删除死信的墓碑分别写入
+ * {@code retry/}、{@code dead/} 与 {@code tombstone/} 三个日志目录：
+ * </p>
+ * <ul>
+ *     <li>未配置目录时消息保存在内存中，重启后丢失</li>
+ *     <li>配置目录时内存只保存到期时间和日志位置，启动时重放，重启前未完成的重试会继续执行</li>
+ *     <li>到期索引按时间排序，轮询只读取已到期的前 {@code limit} 条</li>
+ *     <li>死信按目标地址保存，超过数量上限或保留期后从最早的开始淘汰，只影响批量查看和重放，不影响死信队列中的副本</li>
+ *     <li>墓碑按删除顺序保存，超过保留期后清理</li>
+ * </ul>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Slf4j
+public class LocalRetryStore implements RetryStore {
+
+    private static final Comparator<Due> DUE_ORDER = Comparator.comparingLong(Due::dueAt).thenComparing(Due::id);
+
+    /**
+     * 默认墓碑保留期
+     */
+    public static final Duration DEFAULT_TOMBSTONE_RETENTION = Duration.ofDays(7);
+
+    /**
+     * 默认每个目标地址保存的死信数量上限
+     */
+    public static final int DEFAULT_MAX_DEAD_LETTERS = 10000;
+
+    /**
+     * 默认死信保留期
+     */
+    public static final Duration DEFAULT_DEAD_LETTER_RETENTION = Duration.ofDays(7);
+
+    private final DelayedMessageJournal retryJournal;
+    private final DelayedMessageJournal deadJournal;
+    private final DelayedMessageJournal tombstoneJournal;
+    private final long tombstoneRetentionMillis;
+    private final int maxDeadLetters;
+    private final long deadLetterRetentionMillis;
+
+    /**
+     * 待重试消息：持久化时引用为 {@link Location}，否则为 {@link DelayedMessage}
+     */
+    private final Map<String, Entry> retries = new HashMap<>();
+    private final TreeSet<Due> dueIndex = new TreeSet<>(DUE_ORDER);
+    private final Map<String, Integer> pendingByDestination = new HashMap<>();
+
+    /**
+     * 死信消息，按目标地址分组并保持转入顺序
+     */
+    private final Map<String, LinkedHashMap<String, Dead>> deadLetters = new HashMap<>();
+    private final Map<String, String> deadDestinations = new HashMap<>();
+
+    /**
+     * 已删除死信的墓碑，按删除时间排序
+     */
+    private final LinkedHashMap<String, Tombstone> tombstones = new LinkedHashMap<>();
+    private boolean closed;
+
+    /**
+     * 内存存储
+     */
+    public LocalRetryStore() {
+        this(null, 0, 0, false);
+    }
+
+    /**
+     * @param directory       日志目录，为 null 时仅保存在内存
+     * @param segmentBytes    单个分段大小上限
+     * @param compactSegments 分段数达到该值时执行检查点
+     * @param fsync           每次写入是否强制刷盘
+     */
+    public LocalRetryStore(Path directory, long segmentBytes, int compactSegments, boolean fsync) {
+        this(directory, segmentBytes, compactSegments, fsync, DEFAULT_TOMBSTONE_RETENTION);
+    }
+
+    /**
+     * @param directory          日志目录，为 null 时仅保存在内存
+     * @param segmentBytes       单个分段大小上限
+     * @param compactSegments    分段数达到该值时执行检查点
+     * @param fsync              每次写入是否强制刷盘
+     * @param tombstoneRetention 已删除死信的墓碑保留期，应长于死信队列中消息的保留时间
+     */
+    public LocalRetryStore(Path directory, long segmentBytes, int compactSegments, boolean fsync, Duration tombstoneRetention) {
+        this(directory, segmentBytes, compactSegments, fsync, tombstoneRetention,
+                DEFAULT_MAX_DEAD_LETTERS, DEFAULT_DEAD_LETTER_RETENTION);
+    }
+
+    /**
+     * @param directory          日志目录，为 null 时仅保存在内存
+     * @param segmentBytes       单个分段大小上限
+     * @param compactSegments    分段数达到该值时执行检查点
+     * @param fsync              每次写入是否强制刷盘
+     * @param tombstoneRetention 已删除死信的墓碑保留期，应长于死信队列中消息的保留时间
+     * @param maxDeadLetters     每个目标地址保存的死信数量上限，超出时淘汰最早的；小于等于 0 表示不限制
+     * @param deadLetterRetention 死信保留期，超过后淘汰
+     */
+    public LocalRetryStore(Path directory, long segmentBytes, int compactSegments, boolean fsync, Duration tombstoneRetention,
+                           int maxDeadLetters, Duration deadLetterRetention) {
+        this.tombstoneRetentionMillis = tombstoneRetention.toMillis();
+        this.maxDeadLetters = maxDeadLetters;
+        this.deadLetterRetentionMillis = deadLetterRetention.toMillis();
+        if (directory == null) {
+            this.retryJournal = null;
+            this.deadJournal = null;
+            this.tombstoneJournal = null;
+            return;
+        }
+        this.retryJournal = new DelayedMessageJournal(directory.resolve("retry"), segmentBytes, compactSegments, fsync);
+        this.deadJournal = new DelayedMessageJournal(directory.resolve("dead"), segmentBytes, compactSegments, fsync);
+        this.tombstoneJournal = new DelayedMessageJournal(directory.resolve("tombstone"), segmentBytes, compactSegments, fsync);
+        for (Pending pending : retryJournal.open()) {
+            putRetry(pending.id(), pending.destination(), pending.deliverAt(), pending.location());
+        }
+        List<Pending> dead = new ArrayList<>(deadJournal.open());
+        dead.sort(Comparator.comparingLong(Pending::deliverAt));
+        for (Pending pending : dead) {
+            putDead(pending.id(), pending.destination(), pending.deliverAt(), pending.location());
+        }
+        long now = System.currentTimeMillis();
+        new ArrayList<>(deadLetters.keySet()).forEach(destination -> expireDead(destination, now));
+        List<Pending> removed = new ArrayList<>(tombstoneJournal.open());
+        removed.sort(Comparator.comparingLong(Pending::deliverAt));
+        for (Pending pending : removed) {
+            tombstones.put(pending.id(), new Tombstone(pending.deliverAt(), pending.location()));
+        }
+        expireTombstones(System.currentTimeMillis());
+        log.info("[Queue] 重试存储已加载: dir={}, retries={}, deadLetters={}, tombstones={}",
+                directory, retries.size(), deadDestinations.size(), tombstones.size());
+    }
+
+    @Override
+    public synchronized void schedule(DelayedMessage message) {
+        checkOpen();
+        removeRetry(message.id(), false);
+        putRetry(message.id(), message.destination(), message.deliverAt(),
+                retryJournal != null ? retryJournal.append(message) : message);
+        maybeCheckpoint();
+    }
+
+    @Override
+    public synchronized List<DelayedMessage> pollDue(long now, int limit) {
+        if (closed || dueIndex.isEmpty()) {
+            return List.of();
+        }
+        List<DelayedMessage> due = new ArrayList<>(Math.min(limit, dueIndex.size()));
+        for (Due candidate : dueIndex) {
+            if (candidate.dueAt() > now || due.size() >= limit) {
+                break;
+            }
+            due.add(resolve(retries.get(candidate.id()).ref(), retryJournal));
+        }
+        return due;
+    }
+
+    @Override
+    public synchronized void complete(String id) {
+        if (!closed) {
+            removeRetry(id, true);
+            maybeCheckpoint();
+        }
+    }
+
+    @Override
+    public synchronized int getPendingCount(String destination) {
+        return pendingByDestination.getOrDefault(destination, 0);
+    }
+
+    @Override
+    public synchronized void bury(DelayedMessage message) {
+        checkOpen();
+        if (isDeadLetterRemoved(message.id())) {
+            // 保存前已被重放或删除
+            return;
+        }
+        removeDead(message.id(), false);
+        putDead(message.id(), message.destination(), message.deliverAt(),
+                deadJournal != null ? deadJournal.append(message) : message);
+        expireDead(message.destination(), System.currentTimeMillis());
+        maybeCheckpoint();
+    }
+
+    @Override
+    public synchronized List<DelayedMessage> getDeadLetters(String destination, int limit) {
+        if (closed) {
+            return List.of();
+        }
+        expireDead(destination, System.currentTimeMillis());
+        LinkedHashMap<String, Dead> letters = deadLetters.get(destination);
+        if (letters == null) {
+            return List.of();
+        }
+        List<DelayedMessage> result = new ArrayList<>(Math.min(limit, letters.size()));
+        for (Dead letter : letters.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(resolve(letter.ref(), deadJournal));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int removeDeadLetters(Collection<String> ids) {
+        if (closed) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (String id : ids) {
+            String destination = deadDestinations.get(id);
+            if (removeDead(id, true)) {
+                removed++;
+            }
+            putTombstone(id, destination, now);
+        }
+        expireTombstones(now);
+        maybeCheckpoint();
+        return removed;
+    }
+
+    @Override
+    public synchronized boolean isDeadLetterRemoved(String id) {
+        if (closed) {
+            return false;
+        }
+        expireTombstones(System.currentTimeMillis());
+        return tombstones.containsKey(id);
+    }
+
+    @Override
+    public synchronized int getDeadLetterCount(String destination) {
+        if (!closed) {
+            expireDead(destination, System.currentTimeMillis());
+        }
+        LinkedHashMap<String, Dead> letters = deadLetters.get(destination);
+        return letters == null ? 0 : letters.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (retryJournal != null) {
+            retryJournal.close();
+            deadJournal.close();
+            tombstoneJournal.close();
+        }
+    }
+
+    private void putRetry(String id, String destination, long dueAt, Object ref) {
+        retries.put(id, new Entry(destination, dueAt, ref));
+        dueIndex.add(new Due(dueAt, id));
+        pendingByDestination.merge(destination, 1, Integer::sum);
+    }
+
+    private void removeRetry(String id, boolean journal) {
+        Entry entry = retries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        dueIndex.remove(new Due(entry.dueAt(), id));
+        pendingByDestination.computeIfPresent(entry.destination(), (key, count) -> count > 1 ? count - 1 : null);
+        if (journal && retryJournal != null) {
+            retryJournal.remove(id);
+        }
+    }
+
+    private void putDead(String id, String destination, long buriedAt, Object ref) {
+        deadLetters.computeIfAbsent(destination, key -> new LinkedHashMap<>()).put(id, new Dead(buriedAt, ref));
+        deadDestinations.put(id, destination);
+    }
+
+    /**
+     * 从最早的开始淘汰超过保留期或数量上限的死信
+     */
+    private void expireDead(String destination, long now) {
+        LinkedHashMap<String, Dead> letters = deadLetters.get(destination);
+        if (letters == null) {
+            return;
+        }
+        List<String> expired = new ArrayList<>();
+        int remaining = letters.size();
+        for (Map.Entry<String, Dead> letter : letters.entrySet()) {
+            boolean overflow = maxDeadLetters > 0 && remaining > maxDeadLetters;
+            if (!overflow && now - letter.getValue().buriedAt() < deadLetterRetentionMillis) {
+                break;
+            }
+            expired.add(letter.getKey());
+            remaining--;
+        }
+        for (String id : expired) {
+            removeDead(id, true);
+        }
+        if (!expired.isEmpty()) {
+            log.debug("[Queue] 淘汰过期或超出上限的死信: destination={}, count={}", destination, expired.size());
+        }
+    }
+
+    private boolean removeDead(String id, boolean journal) {
+        String destination = deadDestinations.remove(id);
+        if (destination == null) {
+            return false;
+        }
+        LinkedHashMap<String, Dead> letters = deadLetters.get(destination);
+        letters.remove(id);
+        if (letters.isEmpty()) {
+            deadLetters.remove(destination);
+        }
+        if (journal && deadJournal != null) {
+            deadJournal.remove(id);
+        }
+        return true;
+    }
+
+    private void putTombstone(String id, String destination, long removedAt) {
+        // 重新插入，保持按删除时间排序
+        Tombstone previous = tombstones.remove(id);
+        if (previous != null && tombstoneJournal != null) {
+            tombstoneJournal.remove(id);
+        }
+        Location location = tombstoneJournal == null ? null : tombstoneJournal.append(
+                new DelayedMessage(id, destination == null ? "" : destination, removedAt, null, null));
+        tombstones.put(id, new Tombstone(removedAt, location));
+    }
+
+    private void expireTombstones(long now) {
+        Iterator<Map.Entry<String, Tombstone>> iterator = tombstones.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Tombstone> tombstone = iterator.next();
+            if (now - tombstone.getValue().removedAt() < tombstoneRetentionMillis) {
+                return;
+            }
+            iterator.remove();
+            if (tombstoneJournal != null) {
+                tombstoneJournal.remove(tombstone.getKey());
+            }
+        }
+    }
+
+    private void maybeCheckpoint() {
+        if (retryJournal == null) {
+            return;
+        }
+        if (retryJournal.needsCheckpoint()) {
+            Map<String, Location> live = new HashMap<>(retries.size() * 2);
+            retries.forEach((id, entry) -> live.put(id, (Location) entry.ref()));
+            retryJournal.checkpoint(live).forEach((id, location) -> {
+                Entry entry = retries.get(id);
+                retries.put(id, new Entry(entry.destination(), entry.dueAt(), location));
+            });
+        }
+        if (deadJournal.needsCheckpoint()) {
+            Map<String, Location> live = new HashMap<>(deadDestinations.size() * 2);
+            deadLetters.values().forEach(letters -> letters.forEach((id, letter) -> live.put(id, (Location) letter.ref())));
+            Map<String, Location> relocated = deadJournal.checkpoint(live);
+            deadLetters.values().forEach(letters -> letters.replaceAll(
+                    (id, letter) -> new Dead(letter.buriedAt(), relocated.get(id))));
+        }
+        if (tombstoneJournal.needsCheckpoint()) {
+            Map<String, Location> live = new HashMap<>(tombstones.size() * 2);
+            tombstones.forEach((id, tombstone) -> live.put(id, tombstone.location()));
+            Map<String, Location> relocated = tombstoneJournal.checkpoint(live);
+            tombstones.replaceAll((id, tombstone) -> new Tombstone(tombstone.removedAt(), relocated.get(id)));
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("重试存储已关闭");
+        }
+    }
+
+    private static DelayedMessage resolve(Object ref, DelayedMessageJournal journal) {
+        return ref instanceof Location location ? journal.read(location) : (DelayedMessage) ref;
+    }
+
+    private record Entry(String destination, long dueAt, Object ref) {
+    }
+
+    private record Due(long dueAt, String id) {
+    }
+
+    private record Tombstone(long removedAt, Location location) {
+    }
+
+    private record Dead(long buriedAt, Object ref) {
+    }
+}
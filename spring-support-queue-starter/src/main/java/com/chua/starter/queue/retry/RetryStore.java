@@ -0,0 +1,100 @@
+package com.chua.starter.queue.retry;
+
+import com.chua.starter.queue.delay.DelayedMessage;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 重试与死信存储
+ * <p>
+ * 保存等待重试的消息和已转入死信的消息，供 {@link com.chua.starter.queue.template.DeadLetterTemplate} 使用。
+ * 待重试消息的 {@link DelayedMessage#deliverAt()} 为下次重试时间，死信消息的 {@link DelayedMessage#deliverAt()} 为转入死信的时间。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+public interface RetryStore extends AutoCloseable {
+
+    /**
+     * 保存待重试消息，同一ID的旧记录被覆盖
+     *
+     * @param message 待重试消息
+     */
+    void schedule(DelayedMessage message);
+
+    /**
+     * 按到期时间顺序读取已到期的待重试消息，读取后仍保留，直到 {@link #complete(String)}
+     *
+     * @param now   当前时间（毫秒时间戳）
+     * @param limit 最大数量
+     * @return 到期消息
+     */
+    List<DelayedMessage> pollDue(long now, int limit);
+
+    /**
+     * 删除已重新投递的待重试消息
+     *
+     * @param id 消息ID
+     */
+    void complete(String id);
+
+    /**
+     * 目标地址下等待重试的消息数
+     *
+     * @param destination 目标地址
+     * @return 消息数
+     */
+    int getPendingCount(String destination);
+
+    /**
+     * 保存死信消息，已留有墓碑的ID不再保存
+     *
+     * @param message 死信消息
+     */
+    void bury(DelayedMessage message);
+
+    /**
+     * 按转入顺序读取死信消息
+     *
+     * @param destination 原始目标地址
+     * @param limit       最大数量
+     * @return 死信消息
+     */
+    List<DelayedMessage> getDeadLetters(String destination, int limit);
+
+    /**
+     * 批量删除死信消息
+     * <p>
+     * 每个ID留下一条墓碑，保留期内 {@link #isDeadLetterRemoved(String)} 返回 true，
+     * 死信队列中同一条死信的副本据此跳过，不会重复重放。
+     * </p>
+     *
+     * @param ids 消息ID
+     * @return 实际删除的数量
+     */
+    int removeDeadLetters(Collection<String> ids);
+
+    /**
+     * 死信是否已被重放或删除
+     *
+     * @param id 消息ID
+     * @return 保留期内留有墓碑时返回 true
+     */
+    boolean isDeadLetterRemoved(String id);
+
+    /**
+     * 目标地址下的死信消息数
+     *
+     * @param destination 原始目标地址
+     * @return 消息数
+     */
+    int getDeadLetterCount(String destination);
+
+    /**
+     * 关闭存储，重复调用无副作用
+     */
+    @Override
+    void close();
+}
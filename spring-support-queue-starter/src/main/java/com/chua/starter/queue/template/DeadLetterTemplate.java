@@ -1,25 +1,33 @@
 package com.chua.starter.queue.template;
 
+import com.chua.starter.queue.Acknowledgment;
 import com.chua.starter.queue.Message;
 import com.chua.starter.queue.MessageHandler;
 import com.chua.starter.queue.MessageTemplate;
 import com.chua.starter.queue.SendResult;
+import com.chua.starter.queue.delay.DelayedMessage;
+import com.chua.starter.queue.retry.LocalRetryStore;
+import com.chua.starter.queue.retry.RetryStore;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 /**
  * 死信队列模板
@@ -28,6 +36,15 @@ import java.util.function.BiConsumer;
  * 当消息处理失败达到最大重试次数后，将消息转移到死信队列。
  * 支持自动重试、延迟重试、死信回调等功能。
  * </p>
+ * <p>
+ * 待重试消息和死信消息保存在 {@link RetryStore} 中，重试次数随消息头传递，重启后未完成的重试继续执行。
+ * 到期的重试由单个轮询线程按批取出重新投递；某个目标地址积压的待重试消息达到 {@code parkThreshold} 时，
+ * 该地址新的失败消息直接转入死信队列，积压降到一半以下后恢复重试。
+ * </p>
+ * <p>
+ * 死信只在死信队列确认发送成功后才写入存储，两份副本以 {@link #HEADER_DEAD_LETTER_ID} 关联。
+ * 任一路径重放或删除死信后，存储中留下墓碑记录，另一份副本在死信队列中被消费时据此跳过，不会重复重放。
+ * </p>
  *
  * @author CH
  * @version 1.0.0
@@ -72,6 +89,11 @@ public class DeadLetterTemplate implements MessageTemplate {
      */
     public static final String HEADER_ORIGINAL_MESSAGE_ID = "X-Original-Message-Id";
 
+    /**
+     * 死信记录ID Header键（对应存储中的死信记录，每次转入死信生成一个）
+     */
+    public static final String HEADER_DEAD_LETTER_ID = "X-Dead-Letter-Id";
+
     /**
      * 主消息模板
      */
@@ -88,9 +110,19 @@ public class DeadLetterTemplate implements MessageTemplate {
     private final DeadLetterConfig config;
 
     /**
-     * 重试计数器
+     * 待重试消息与死信消息存储
+     */
+    private final RetryStore retryStore;
+
+    /**
+     * 积压过多、暂停重试的目标地址
+     */
+    private final Set<String> parkedDestinations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 各目标地址的待重试数量缓存，每个轮询间隔最多从存储刷新一次，期间按本实例的调度累加
      */
-    private final ConcurrentMap<String, AtomicInteger> retryCounters = new ConcurrentHashMap<>();
+    private final Map<String, PendingCount> pendingCounts = new ConcurrentHashMap<>();
 
     /**
      * 死信回调
@@ -98,9 +130,9 @@ public class DeadLetterTemplate implements MessageTemplate {
     private final CopyOnWriteArrayList<BiConsumer<Message, Throwable>> deadLetterCallbacks = new CopyOnWriteArrayList<>();
 
     /**
-     * 延迟调度器
+     * 重试轮询线程
      */
-    private final ScheduledExecutorService scheduler;
+    private final ScheduledExecutorService poller;
 
     /**
      * 构造函数（使用同一个消息模板）
@@ -120,6 +152,19 @@ public class DeadLetterTemplate implements MessageTemplate {
      * @param config             配置
      */
     public DeadLetterTemplate(MessageTemplate messageTemplate, MessageTemplate dlqMessageTemplate, DeadLetterConfig config) {
+        this(messageTemplate, dlqMessageTemplate, config, new LocalRetryStore());
+    }
+
+    /**
+     * 构造函数（指定重试存储）
+     *
+     * @param messageTemplate    主消息模板
+     * @param dlqMessageTemplate 死信队列消息模板
+     * @param config             配置
+     * @param retryStore         重试与死信存储
+     */
+    public DeadLetterTemplate(MessageTemplate messageTemplate, MessageTemplate dlqMessageTemplate, DeadLetterConfig config,
+                              RetryStore retryStore) {
         if (messageTemplate == null) {
             throw new IllegalArgumentException("MessageTemplate cannot be null");
         }
@@ -129,6 +174,9 @@ public class DeadLetterTemplate implements MessageTemplate {
         if (config == null) {
             throw new IllegalArgumentException("DeadLetterConfig cannot be null");
         }
+        if (retryStore == null) {
+            throw new IllegalArgumentException("RetryStore cannot be null");
+        }
         
         // 验证配置参数
         validateConfig(config);
@@ -136,11 +184,11 @@ public class DeadLetterTemplate implements MessageTemplate {
         this.messageTemplate = messageTemplate;
         this.dlqMessageTemplate = dlqMessageTemplate;
         this.config = config;
-        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
-            Thread t = new Thread(r, "dlq-scheduler");
-            t.setDaemon(true);
-            return t;
-        });
+        this.retryStore = retryStore;
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("dlq-retry-poller").daemon(true).factory());
+        long pollIntervalMs = Math.max(10L, config.getPollInterval().toMillis());
+        poller.scheduleWithFixedDelay(this::pollDueRetries, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
         log.info("[Queue] 死信队列初始化完成, 最大重试: {}, 重试延迟: {}ms, 类型: {}",
                 config.getMaxRetries(), config.getRetryDelay().toMillis(), dlqMessageTemplate.getType());
     }
@@ -161,6 +209,15 @@ public class DeadLetterTemplate implements MessageTemplate {
         if (config.getBackoffMultiplier() <= 0) {
             throw new IllegalArgumentException("backoffMultiplier must be greater than 0, got: " + config.getBackoffMultiplier());
         }
+        if (config.getPollInterval() == null || config.getPollInterval().isNegative() || config.getPollInterval().isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive, got: " + config.getPollInterval());
+        }
+        if (config.getPollBatchSize() <= 0) {
+            throw new IllegalArgumentException("pollBatchSize must be greater than 0, got: " + config.getPollBatchSize());
+        }
+        if (config.getJitter() < 0 || config.getJitter() > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1, got: " + config.getJitter());
+        }
     }
 
     // ==================== MessageTemplate 接口实现 ====================
@@ -188,24 +245,29 @@ public class DeadLetterTemplate implements MessageTemplate {
         return dlqMessageTemplate.sendDelayed(getDlqDestination(destination), payload, delay);
     }
 
+    @Override
+    public boolean cancelDelayed(String messageId) {
+        return dlqMessageTemplate.cancelDelayed(messageId);
+    }
+
     @Override
     public void subscribe(String destination, MessageHandler handler) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), handler);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), skipRemoved(handler));
     }
 
     @Override
     public void subscribe(String destination, MessageHandler handler, boolean autoAck) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), handler, autoAck);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), skipRemoved(handler), autoAck);
     }
 
     @Override
     public void subscribe(String destination, String group, MessageHandler handler) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, handler);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, skipRemoved(handler));
     }
 
     @Override
     public void subscribe(String destination, String group, MessageHandler handler, boolean autoAck) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, handler, autoAck);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, skipRemoved(handler), autoAck);
     }
 
     @Override
@@ -215,12 +277,12 @@ public class DeadLetterTemplate implements MessageTemplate {
 
     @Override
     public void subscribe(String destination, MessageHandler handler, boolean autoAck, int concurrency) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), handler, autoAck, concurrency);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), skipRemoved(handler), autoAck, concurrency);
     }
 
     @Override
     public void subscribe(String destination, String group, MessageHandler handler, boolean autoAck, int concurrency) {
-        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, handler, autoAck, concurrency);
+        dlqMessageTemplate.subscribe(getDlqDestination(destination), group, skipRemoved(handler), autoAck, concurrency);
     }
 
     @Override
@@ -235,29 +297,23 @@ public class DeadLetterTemplate implements MessageTemplate {
 
     @Override
     public void close() {
-        // 先停止接受新任务
-        scheduler.shutdown();
-        
-        // 清理所有待执行的重试任务对应的计数器
-        // 注意：这里无法直接获取待执行的任务，所以只能清理已完成的
-        // 未执行的任务在 scheduler 关闭后会被取消，对应的计数器会在下次重试时被清理
-        retryCounters.clear();
-        
+        // 先停止轮询，未到期的重试保留在存储中，持久化时重启后继续执行
+        poller.shutdown();
         try {
-            // 等待正在执行的任务完成，最多等待 5 秒
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                log.warn("[Queue] 死信队列调度器未能在 5 秒内关闭，强制关闭");
-                scheduler.shutdownNow();
-                // 再次等待，确保任务被取消
-                if (!scheduler.awaitTermination(2, TimeUnit.SECONDS)) {
-                    log.error("[Queue] 死信队列调度器无法关闭");
+            // 等待正在投递的批次完成，最多等待 5 秒
+            if (!poller.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("[Queue] 死信队列重试轮询未能在 5 秒内关闭，强制关闭");
+                poller.shutdownNow();
+                if (!poller.awaitTermination(2, TimeUnit.SECONDS)) {
+                    log.error("[Queue] 死信队列重试轮询无法关闭");
                 }
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            log.warn("[Queue] 等待死信队列调度器关闭时被中断");
-            scheduler.shutdownNow();
+            log.warn("[Queue] 等待死信队列重试轮询关闭时被中断");
+            poller.shutdownNow();
         }
+        retryStore.close();
         
         // 关闭死信队列底层存储（如果是独立创建的，需要关闭）
         // 注意：如果 dlqMessageTemplate 是 Spring Bean，Spring 会自动关闭，这里不需要关闭
@@ -289,60 +345,7 @@ public class DeadLetterTemplate implements MessageTemplate {
             throw new IllegalArgumentException("Destination and handler cannot be null");
         }
         
-        messageTemplate.subscribe(destination, (message, ack) -> {
-            if (message == null || ack == null) {
-                log.error("[Queue] 收到空消息或空确认对象, 目标: {}", destination);
-                return;
-            }
-            
-            // 优先使用header中的原始消息ID（重试消息），否则使用消息ID，最后生成UUID
-            String originalMessageId = message.getHeaderAsString(HEADER_ORIGINAL_MESSAGE_ID);
-            String messageId = originalMessageId != null ? originalMessageId 
-                    : (message.getId() != null ? message.getId() : UUID.randomUUID().toString());
-            AtomicInteger counter = retryCounters.computeIfAbsent(messageId, k -> new AtomicInteger(0));
-
-            try {
-                handler.handle(message, ack);
-                // 处理成功，清除重试计数（使用 remove 而不是直接删除，避免并发问题）
-                AtomicInteger removed = retryCounters.remove(messageId);
-                if (removed != null && removed.get() > 0) {
-                    log.debug("[Queue] 消息处理成功，清除重试计数, 目标: {}, 消息ID: {}, 最终重试次数: {}",
-                            destination, messageId, removed.get());
-                }
-            } catch (Exception e) {
-                int retryCount = counter.incrementAndGet();
-                log.warn("[Queue] 消息处理失败, 目标: {}, 消息ID: {}, 重试次数: {}/{}",
-                        destination, messageId, retryCount, config.getMaxRetries(), e);
-
-                if (retryCount < config.getMaxRetries()) {
-                    // 延迟重试
-                    scheduleRetry(destination, message, messageId, retryCount, e);
-                    // 重试时确认原消息，避免重复消费
-                    try {
-                        ack.acknowledge();
-                    } catch (Exception ackException) {
-                        log.warn("Failed to acknowledge message for retry: {}", messageId, ackException);
-                    }
-                } else {
-                    // 转移到死信队列
-                    SendResult dlqResult = moveToDeadLetter(destination, message, e);
-                    retryCounters.remove(messageId);
-                    
-                    // 只有在成功转移到死信队列后才确认原消息，避免消息丢失
-                    if (dlqResult.isSuccess()) {
-                        try {
-                            ack.acknowledge();
-                        } catch (Exception ackException) {
-                            log.warn("Failed to acknowledge message after moving to DLQ: {}", messageId, ackException);
-                        }
-                    } else {
-                        // 死信队列发送失败，不确认原消息，让消息重新投递
-                        log.error("[Queue] 死信队列发送失败，不确认原消息以保留消息, 目标: {}, 消息ID: {}",
-                                destination, messageId);
-                    }
-                }
-            }
-        });
+        messageTemplate.subscribe(destination, retrying(destination, null, handler));
     }
 
     /**
@@ -360,59 +363,7 @@ public class DeadLetterTemplate implements MessageTemplate {
             throw new IllegalArgumentException("Group cannot be null");
         }
         
-        messageTemplate.subscribe(destination, group, (message, ack) -> {
-            if (message == null || ack == null) {
-                log.error("[Queue] 收到空消息或空确认对象, 目标: {}, 组: {}", destination, group);
-                return;
-            }
-            
-            // 优先使用header中的原始消息ID（重试消息），否则使用消息ID，最后生成UUID
-            String originalMessageId = message.getHeaderAsString(HEADER_ORIGINAL_MESSAGE_ID);
-            String messageId = originalMessageId != null ? originalMessageId 
-                    : (message.getId() != null ? message.getId() : UUID.randomUUID().toString());
-            AtomicInteger counter = retryCounters.computeIfAbsent(messageId, k -> new AtomicInteger(0));
-
-            try {
-                handler.handle(message, ack);
-                // 处理成功，清除重试计数
-                AtomicInteger removed = retryCounters.remove(messageId);
-                if (removed != null && removed.get() > 0) {
-                    log.debug("[Queue] 消息处理成功，清除重试计数, 目标: {}, 组: {}, 消息ID: {}, 最终重试次数: {}",
-                            destination, group, messageId, removed.get());
-                }
-            } catch (Exception e) {
-                int retryCount = counter.incrementAndGet();
-                log.warn("[Queue] 消息处理失败, 目标: {}, 组: {}, 消息ID: {}, 重试次数: {}/{}",
-                        destination, group, messageId, retryCount, config.getMaxRetries(), e);
-
-                if (retryCount < config.getMaxRetries()) {
-                    scheduleRetry(destination, message, messageId, retryCount, e);
-                    // 重试时确认原消息，避免重复消费
-                    try {
-                        ack.acknowledge();
-                    } catch (Exception ackException) {
-                        log.warn("Failed to acknowledge message for retry: {}", messageId, ackException);
-                    }
-                } else {
-                    // 转移到死信队列
-                    SendResult dlqResult = moveToDeadLetter(destination, message, e);
-                    retryCounters.remove(messageId);
-                    
-                    // 只有在成功转移到死信队列后才确认原消息，避免消息丢失
-                    if (dlqResult.isSuccess()) {
-                        try {
-                            ack.acknowledge();
-                        } catch (Exception ackException) {
-                            log.warn("Failed to acknowledge message after moving to DLQ: {}", messageId, ackException);
-                        }
-                    } else {
-                        // 死信队列发送失败，不确认原消息，让消息重新投递
-                        log.error("[Queue] 死信队列发送失败，不确认原消息以保留消息, 目标: {}, 组: {}, 消息ID: {}",
-                                destination, group, messageId);
-                    }
-                }
-            }
-        });
+        messageTemplate.subscribe(destination, group, retrying(destination, group, handler));
     }
 
     /**
@@ -461,14 +412,15 @@ public class DeadLetterTemplate implements MessageTemplate {
         }
         
         String dlqDestination = getDlqDestination(originalDestination);
-        dlqMessageTemplate.subscribe(dlqDestination, handler);
+        dlqMessageTemplate.subscribe(dlqDestination, skipRemoved(handler));
         log.info("[Queue] 订阅死信队列: {}, 类型: {}", dlqDestination, dlqMessageTemplate.getType());
     }
 
     /**
      * 重新处理死信消息
      * <p>
-     * 将死信队列中的消息重新发送到原始队列进行处理。
+     * 将死信队列中的消息重新发送到原始队列进行处理，成功后删除存储中对应的死信记录并留下墓碑；
+     * 已被重放或删除的死信不再发送。
      * </p>
      *
      * @param originalDestination 原始目标地址
@@ -482,12 +434,33 @@ public class DeadLetterTemplate implements MessageTemplate {
         if (message == null) {
             throw new IllegalArgumentException("Message cannot be null");
         }
-        
-        // 重置重试计数
+
+        String deadLetterId = message.getHeaderAsString(HEADER_DEAD_LETTER_ID);
+        if (isDeadLetterRemoved(deadLetterId)) {
+            log.info("[Queue] 死信消息已被重放或删除，跳过: {}, 死信ID: {}", originalDestination, deadLetterId);
+            return SendResult.failure(originalDestination,
+                    new IllegalStateException("Dead letter already replayed or purged: " + deadLetterId));
+        }
+        SendResult result = resend(originalDestination, message);
+        if (result.isSuccess() && deadLetterId != null) {
+            try {
+                retryStore.removeDeadLetters(List.of(deadLetterId));
+            } catch (Exception e) {
+                log.warn("[Queue] 删除已重放的死信记录失败, 死信ID: {}", deadLetterId, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 重置重试计数后发送到原始队列
+     */
+    private SendResult resend(String originalDestination, Message message) {
         Map<String, Object> headers = new ConcurrentHashMap<>(message.getHeaders() != null ? message.getHeaders() : Map.of());
         headers.put(HEADER_RETRY_COUNT, 0);
         headers.remove(HEADER_FAILURE_REASON);
         headers.remove(HEADER_FAILURE_TIME);
+        headers.remove(HEADER_DEAD_LETTER_ID);
 
         SendResult result = messageTemplate.send(originalDestination, message.getPayload(), headers);
         if (result.isSuccess()) {
@@ -582,10 +555,98 @@ public class DeadLetterTemplate implements MessageTemplate {
             }
         };
         
-        dlqMessageTemplate.subscribe(dlqDestination, messageHandler);
+        dlqMessageTemplate.subscribe(dlqDestination, skipRemoved(messageHandler));
         log.info("[Queue] 开始批量重新处理死信消息: {}, 最大数量: {}", dlqDestination, maxCount);
     }
 
+    /**
+     * 批量查看死信消息
+     *
+     * @param originalDestination 原始目标地址
+     * @param limit               最大数量
+     * @return 按转入顺序排列的死信消息
+     */
+    public List<Message> getDeadLetters(String originalDestination, int limit) {
+        if (originalDestination == null) {
+            throw new IllegalArgumentException("Original destination cannot be null");
+        }
+        List<DelayedMessage> letters = retryStore.getDeadLetters(originalDestination, limit);
+        List<Message> messages = new ArrayList<>(letters.size());
+        for (DelayedMessage letter : letters) {
+            messages.add(toMessage(letter));
+        }
+        return messages;
+    }
+
+    /**
+     * 批量重放死信消息
+     * <p>
+     * 按转入顺序取出最多 maxCount 条死信，通过过滤的消息重新发送到原始队列，发送成功的从存储中批量删除。
+     * 删除后留下墓碑，死信队列中的同一条死信被消费时跳过，不会再次重放。
+     * </p>
+     *
+     * @param originalDestination 原始目标地址
+     * @param maxCount            最大处理数量
+     * @param filter              过滤器，返回true表示重新发送，false表示保留；为 null 时全部重新发送
+     * @return 重新发送成功的数量
+     */
+    public int replayDeadLetters(String originalDestination, int maxCount, Predicate<Message> filter) {
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("Max count must be greater than 0, got: " + maxCount);
+        }
+        List<String> replayed = new ArrayList<>();
+        for (Message message : getDeadLetters(originalDestination, maxCount)) {
+            try {
+                if ((filter == null || filter.test(message)) && resend(originalDestination, message).isSuccess()) {
+                    replayed.add(message.getId());
+                }
+            } catch (Exception e) {
+                log.error("Error replaying dead letter: {}", message.getId(), e);
+            }
+        }
+        retryStore.removeDeadLetters(replayed);
+        log.info("[Queue] 批量重放死信消息: {}, 成功: {}", originalDestination, replayed.size());
+        return replayed.size();
+    }
+
+    /**
+     * 批量删除死信消息
+     * <p>
+     * 删除后留下墓碑，死信队列中的同一条死信被消费时跳过。
+     * </p>
+     *
+     * @param originalDestination 原始目标地址
+     * @param maxCount            最大删除数量
+     * @return 删除的数量
+     */
+    public int purgeDeadLetters(String originalDestination, int maxCount) {
+        List<String> ids = new ArrayList<>();
+        for (Message message : getDeadLetters(originalDestination, maxCount)) {
+            ids.add(message.getId());
+        }
+        return retryStore.removeDeadLetters(ids);
+    }
+
+    /**
+     * 获取死信消息数量
+     *
+     * @param originalDestination 原始目标地址
+     * @return 数量
+     */
+    public int getDeadLetterCount(String originalDestination) {
+        return retryStore.getDeadLetterCount(originalDestination);
+    }
+
+    /**
+     * 获取等待重试的消息数量
+     *
+     * @param destination 目标地址
+     * @return 数量
+     */
+    public int getPendingRetryCount(String destination) {
+        return retryStore.getPendingCount(destination);
+    }
+
     /**
      * 注册死信回调
      *
@@ -624,47 +685,180 @@ public class DeadLetterTemplate implements MessageTemplate {
         return RETRY_PREFIX + originalDestination;
     }
 
+    /**
+     * 包装带重试的消息处理器
+     *
+     * @param destination 目标地址
+     * @param group       消费组，可为 null
+     * @param handler     消息处理器
+     * @return 处理器
+     */
+    private MessageHandler retrying(String destination, String group, MessageHandler handler) {
+        return (message, ack) -> {
+            if (message == null || ack == null) {
+                log.error("[Queue] 收到空消息或空确认对象, 目标: {}, 组: {}", destination, group);
+                return;
+            }
+
+            // 优先使用header中的原始消息ID（重试消息），否则使用消息ID，最后生成UUID
+            String originalMessageId = message.getHeaderAsString(HEADER_ORIGINAL_MESSAGE_ID);
+            String messageId = originalMessageId != null ? originalMessageId
+                    : (message.getId() != null ? message.getId() : UUID.randomUUID().toString());
+
+            try {
+                handler.handle(message, ack);
+            } catch (Exception e) {
+                // 重试次数随消息头传递，不在内存中计数
+                int retryCount = getRetryCount(message) + 1;
+                log.warn("[Queue] 消息处理失败, 目标: {}, 组: {}, 消息ID: {}, 重试次数: {}/{}",
+                        destination, group, messageId, retryCount, config.getMaxRetries(), e);
+
+                Exception cause = e;
+                if (retryCount < config.getMaxRetries()) {
+                    cause = scheduleRetry(destination, message, messageId, retryCount, e);
+                    if (cause == null) {
+                        // 重试已写入存储，确认原消息，避免重复消费
+                        acknowledgeQuietly(ack, messageId);
+                        return;
+                    }
+                }
+
+                // 转移到死信队列，只有在成功转移后才确认原消息，避免消息丢失
+                SendResult dlqResult = moveToDeadLetter(destination, message, messageId, cause);
+                if (dlqResult.isSuccess()) {
+                    acknowledgeQuietly(ack, messageId);
+                } else {
+                    // 死信队列发送失败，不确认原消息，让消息重新投递
+                    log.error("[Queue] 死信队列发送失败，不确认原消息以保留消息, 目标: {}, 组: {}, 消息ID: {}",
+                            destination, group, messageId);
+                }
+            }
+        };
+    }
+
     /**
      * 调度重试
+     *
+     * @return 调度成功返回 null，否则返回转入死信队列的原因
      */
-    private void scheduleRetry(String destination, Message message, String originalMessageId, int retryCount, Exception cause) {
+    private Exception scheduleRetry(String destination, Message message, String originalMessageId, int retryCount, Exception cause) {
+        if (isParked(destination)) {
+            return new RuntimeException("Retry parked, pending retries of " + destination
+                    + " reached " + config.getParkThreshold(), cause);
+        }
+
+        Map<String, String> headers = toStringHeaders(message.getHeaders());
+        headers.put(HEADER_RETRY_COUNT, String.valueOf(retryCount));
+        // 保留原始消息ID，确保重试计数正确跟踪
+        headers.put(HEADER_ORIGINAL_MESSAGE_ID, originalMessageId);
+        headers.put(HEADER_FAILURE_REASON, cause != null && cause.getMessage() != null ? cause.getMessage() : "Unknown error");
+
         Duration delay = calculateRetryDelay(retryCount);
+        try {
+            // 每次重试单独一条记录，重新投递时同步失败再次写入的记录不会被本次的完成标记删除
+            retryStore.schedule(new DelayedMessage(originalMessageId + ":" + retryCount, destination,
+                    System.currentTimeMillis() + delay.toMillis(), headers, message.getPayload()));
+            PendingCount pending = pendingCounts.get(destination);
+            if (pending != null) {
+                pending.count.incrementAndGet();
+            }
+            log.debug("Retry scheduled for destination: {}, originalMessageId: {}, retryCount: {}, delay: {}ms",
+                    destination, originalMessageId, retryCount, delay.toMillis());
+            return null;
+        } catch (Exception e) {
+            log.error("[Queue] 重试消息保存失败, 目标: {}, 消息ID: {}, 直接转移到死信队列", destination, originalMessageId, e);
+            return e;
+        }
+    }
+
+    /**
+     * 目标地址是否暂停重试，积压达到阈值时暂停，降到阈值一半以下时恢复
+     */
+    private boolean isParked(String destination) {
+        int threshold = config.getParkThreshold();
+        if (threshold <= 0) {
+            return false;
+        }
+        int pending = cachedPendingCount(destination);
+        if (parkedDestinations.contains(destination)) {
+            if (pending >= threshold / 2) {
+                return true;
+            }
+            if (parkedDestinations.remove(destination)) {
+                log.info("[Queue] 目标地址重试积压已回落，恢复重试: {}, 待重试: {}", destination, pending);
+            }
+            return false;
+        }
+        if (pending >= threshold && parkedDestinations.add(destination)) {
+            log.warn("[Queue] 目标地址重试积压达到阈值，新的失败消息直接转入死信队列: {}, 待重试: {}", destination, pending);
+        }
+        return pending >= threshold;
+    }
+
+    /**
+     * 待重试数量，避免每次失败都查询存储（JDBC 存储为一次 COUNT 查询）
+     */
+    private int cachedPendingCount(String destination) {
+        long now = System.currentTimeMillis();
+        PendingCount cached = pendingCounts.get(destination);
+        if (cached == null || now - cached.refreshedAt >= Math.max(10L, config.getPollInterval().toMillis())) {
+            cached = new PendingCount(retryStore.getPendingCount(destination), now);
+            pendingCounts.put(destination, cached);
+        }
+        return cached.count.get();
+    }
 
+    /**
+     * 按批投递到期的重试消息，由轮询线程执行
+     */
+    private void pollDueRetries() {
         try {
-            scheduler.schedule(() -> {
-                try {
-                    Map<String, Object> headers = new ConcurrentHashMap<>(message.getHeaders() != null ? message.getHeaders() : Map.of());
-                    headers.put(HEADER_RETRY_COUNT, retryCount);
-                    // 保留原始消息ID，确保重试计数正确跟踪
-                    headers.put(HEADER_ORIGINAL_MESSAGE_ID, originalMessageId);
-
-                    SendResult result = messageTemplate.send(destination, message.getPayload(), headers);
-                    if (result.isSuccess()) {
-                        log.debug("Retry scheduled for destination: {}, originalMessageId: {}, retryCount: {}, delay: {}ms",
-                                destination, originalMessageId, retryCount, delay.toMillis());
-                    } else {
-                        String errorMsg = result.getError() != null ? result.getError().getMessage() : "Unknown error";
-                        log.error("[Queue] 重试消息发送失败, 目标: {}, 消息ID: {}, 重试次数: {}, 错误: {}",
-                                destination, originalMessageId, retryCount, errorMsg);
-                        // 重试发送失败，直接转移到死信队列
-                        moveToDeadLetter(destination, message, new RuntimeException("Retry send failed: " + errorMsg, 
-                                result.getError() != null ? result.getError() : cause));
-                        retryCounters.remove(originalMessageId);
-                    }
-                } catch (Exception e) {
-                    log.error("[Queue] 重试消息发送异常, 目标: {}, 消息ID: {}, 重试次数: {}", 
-                            destination, originalMessageId, retryCount, e);
-                    // 重试发送异常，直接转移到死信队列
-                    moveToDeadLetter(destination, message, e);
-                    retryCounters.remove(originalMessageId);
+            int batchSize = config.getPollBatchSize();
+            List<DelayedMessage> due;
+            do {
+                due = retryStore.pollDue(System.currentTimeMillis(), batchSize);
+                for (DelayedMessage retry : due) {
+                    deliverRetry(retry);
                 }
-            }, delay.toMillis(), TimeUnit.MILLISECONDS);
-        } catch (RejectedExecutionException e) {
-            // scheduler 已关闭，无法调度重试任务，直接转移到死信队列
-            log.warn("[Queue] 无法调度重试任务（调度器已关闭）, 目标: {}, 消息ID: {}, 直接转移到死信队列", 
-                    destination, originalMessageId);
-            moveToDeadLetter(destination, message, new RuntimeException("Scheduler is shutdown", cause));
-            retryCounters.remove(originalMessageId);
+            } while (due.size() >= batchSize && !poller.isShutdown());
+        } catch (Exception e) {
+            log.error("[Queue] 重试轮询失败", e);
+        }
+    }
+
+    private void deliverRetry(DelayedMessage retry) {
+        Map<String, Object> headers = new ConcurrentHashMap<>(retry.headers());
+        String retryCount = retry.headers().get(HEADER_RETRY_COUNT);
+        Exception failure;
+        try {
+            SendResult result = messageTemplate.send(retry.destination(), retry.payload(), headers);
+            if (result.isSuccess()) {
+                retryStore.complete(retry.id());
+                return;
+            }
+            String errorMsg = result.getError() != null ? result.getError().getMessage() : "Unknown error";
+            log.error("[Queue] 重试消息发送失败, 目标: {}, 消息ID: {}, 重试次数: {}, 错误: {}",
+                    retry.destination(), retry.id(), retryCount, errorMsg);
+            failure = new RuntimeException("Retry send failed: " + errorMsg, result.getError());
+        } catch (Exception e) {
+            log.error("[Queue] 重试消息发送异常, 目标: {}, 消息ID: {}, 重试次数: {}",
+                    retry.destination(), retry.id(), retryCount, e);
+            failure = e;
+        }
+        // 重试发送失败，直接转移到死信队列
+        Message message = toMessage(retry);
+        String originalMessageId = retry.headers().getOrDefault(HEADER_ORIGINAL_MESSAGE_ID, retry.id());
+        if (moveToDeadLetter(retry.destination(), message, originalMessageId, failure).isSuccess()) {
+            retryStore.complete(retry.id());
+            return;
+        }
+        // 死信队列也未确认，保留记录并推迟到下一个重试间隔，避免消息丢失
+        try {
+            retryStore.schedule(new DelayedMessage(retry.id(), retry.destination(),
+                    System.currentTimeMillis() + calculateRetryDelay(getRetryCount(message)).toMillis(),
+                    retry.headers(), retry.payload()));
+        } catch (Exception e) {
+            log.error("[Queue] 重试消息推迟失败, 目标: {}, 消息ID: {}", retry.destination(), retry.id(), e);
         }
     }
 
@@ -673,7 +867,7 @@ public class DeadLetterTemplate implements MessageTemplate {
      */
     private Duration calculateRetryDelay(int retryCount) {
         if (!config.isExponentialBackoff()) {
-            return config.getRetryDelay();
+            return withJitter(config.getRetryDelay().toMillis());
         }
 
         // retryCount 从 1 开始，第一次重试时 retryCount=1，延迟应该是 baseDelay
@@ -703,11 +897,23 @@ public class DeadLetterTemplate implements MessageTemplate {
         if (maxRetryDelay == null) {
             // 如果没有设置最大延迟，限制在 1 小时内
             long maxDelayMs = Math.min(delayMs, Duration.ofHours(1).toMillis());
-            return Duration.ofMillis(maxDelayMs);
+            return withJitter(maxDelayMs);
         }
         
         long maxDelayMs = maxRetryDelay.toMillis();
-        return Duration.ofMillis(Math.min(delayMs, maxDelayMs));
+        return withJitter(Math.min(delayMs, maxDelayMs));
+    }
+
+    /**
+     * 在 [delay * (1 - jitter), delay] 内随机取值，避免同一批失败的消息同时重试
+     */
+    private Duration withJitter(long delayMs) {
+        double jitter = config.getJitter();
+        if (jitter <= 0 || delayMs <= 1) {
+            return Duration.ofMillis(delayMs);
+        }
+        long spread = (long) (delayMs * jitter);
+        return Duration.ofMillis(delayMs - (spread > 0 ? ThreadLocalRandom.current().nextLong(spread + 1) : 0));
     }
 
     /**
@@ -715,18 +921,28 @@ public class DeadLetterTemplate implements MessageTemplate {
      * 
      * @return 发送结果，用于判断是否成功
      */
-    private SendResult moveToDeadLetter(String destination, Message message, Exception cause) {
+    private SendResult moveToDeadLetter(String destination, Message message, String messageId, Exception cause) {
         String dlqDestination = getDlqDestination(destination);
 
         Map<String, Object> headers = new ConcurrentHashMap<>(message.getHeaders() != null ? message.getHeaders() : Map.of());
         headers.put(HEADER_ORIGINAL_DESTINATION, destination);
+        headers.put(HEADER_ORIGINAL_MESSAGE_ID, messageId);
         headers.put(HEADER_FAILURE_REASON, cause != null && cause.getMessage() != null ? cause.getMessage() : "Unknown error");
         headers.put(HEADER_FAILURE_TIME, LocalDateTime.now().toString());
         headers.put(HEADER_RETRY_COUNT, config.getMaxRetries());
+        String deadLetterId = UUID.randomUUID().toString();
+        headers.put(HEADER_DEAD_LETTER_ID, deadLetterId);
 
         SendResult result = dlqMessageTemplate.send(dlqDestination, message.getPayload(), headers);
 
         if (result.isSuccess()) {
+            // 死信队列确认后再保存一份到存储中，供批量查看和重放；发送失败时原消息会重新投递，不能提前保存
+            try {
+                retryStore.bury(new DelayedMessage(deadLetterId, destination, System.currentTimeMillis(),
+                        toStringHeaders(headers), message.getPayload()));
+            } catch (Exception e) {
+                log.warn("[Queue] 死信消息保存失败, 目标: {}, 消息ID: {}", destination, messageId, e);
+            }
             log.warn("Message moved to dead letter queue: {}, messageId: {}, reason: {}, dlqType: {}",
                     dlqDestination, message.getId(), cause != null ? cause.getMessage() : "Unknown", dlqMessageTemplate.getType());
         } else {
@@ -748,6 +964,88 @@ public class DeadLetterTemplate implements MessageTemplate {
         return result;
     }
 
+    /**
+     * 包装死信队列的处理器，已被重放或删除的死信直接确认并跳过
+     */
+    private MessageHandler skipRemoved(MessageHandler handler) {
+        return (message, ack) -> {
+            String deadLetterId = message == null ? null : message.getHeaderAsString(HEADER_DEAD_LETTER_ID);
+            if (isDeadLetterRemoved(deadLetterId)) {
+                log.debug("[Queue] 死信消息已被重放或删除，跳过: {}", deadLetterId);
+                if (ack != null) {
+                    acknowledgeQuietly(ack, deadLetterId);
+                }
+                return;
+            }
+            handler.handle(message, ack);
+        };
+    }
+
+    private boolean isDeadLetterRemoved(String deadLetterId) {
+        if (deadLetterId == null) {
+            return false;
+        }
+        try {
+            return retryStore.isDeadLetterRemoved(deadLetterId);
+        } catch (Exception e) {
+            // 无法确认时按未处理对待，宁可重复也不丢失
+            log.warn("[Queue] 查询死信墓碑失败, 死信ID: {}", deadLetterId, e);
+            return false;
+        }
+    }
+
+    private static int getRetryCount(Message message) {
+        String value = message.getHeaderAsString(HEADER_RETRY_COUNT);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void acknowledgeQuietly(Acknowledgment ack, String messageId) {
+        try {
+            ack.acknowledge();
+        } catch (Exception e) {
+            log.warn("Failed to acknowledge message: {}", messageId, e);
+        }
+    }
+
+    private static Map<String, String> toStringHeaders(Map<String, Object> headers) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (headers != null) {
+            headers.forEach((key, value) -> {
+                if (key != null && value != null) {
+                    result.put(key, value.toString());
+                }
+            });
+        }
+        return result;
+    }
+
+    private static Message toMessage(DelayedMessage stored) {
+        return Message.builder()
+                .id(stored.id())
+                .destination(stored.destination())
+                .payload(stored.payload())
+                .headers(new ConcurrentHashMap<>(stored.headers()))
+                .timestamp(stored.deliverAt())
+                .build();
+    }
+
+    private static final class PendingCount {
+        private final AtomicInteger count;
+        private final long refreshedAt;
+
+        private PendingCount(int count, long refreshedAt) {
+            this.count = new AtomicInteger(count);
+            this.refreshedAt = refreshedAt;
+        }
+    }
+
     /**
      * 死信队列配置
      */
@@ -779,5 +1077,34 @@ public class DeadLetterTemplate implements MessageTemplate {
          * 退避乘数
          */
         private double backoffMultiplier = 2.0;
+
+        /**
+         * 重试延迟的随机抖动比例（0~1），实际延迟在 [delay * (1 - jitter), delay] 之间
+         */
+        private double jitter = 0.2;
+
+        /**
+         * 到期重试的轮询间隔
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+
+        /**
+         * 每批投递的重试消息数
+         */
+        private int pollBatchSize = 500;
+
+        /**
+         * 单个目标地址等待重试的消息数达到该值时，新的失败消息直接转入死信队列；小于等于 0 表示不限制
+         */
+        private int parkThreshold = 10000;
+
+        public DeadLetterConfig(int maxRetries, Duration retryDelay, Duration maxRetryDelay,
+                                boolean exponentialBackoff, double backoffMultiplier) {
+            this.maxRetries = maxRetries;
+            this.retryDelay = retryDelay;
+            this.maxRetryDelay = maxRetryDelay;
+            this.exponentialBackoff = exponentialBackoff;
+            this.backoffMultiplier = backoffMultiplier;
+        }
     }
 }
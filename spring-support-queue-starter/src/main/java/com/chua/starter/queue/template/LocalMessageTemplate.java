@@ -6,6 +6,9 @@ import com.chua.starter.queue.Message;
 import com.chua.starter.queue.MessageHandler;
 import com.chua.starter.queue.MessageTemplate;
 import com.chua.starter.queue.SendResult;
+import com.chua.starter.queue.delay.DelayedMessage;
+import com.chua.starter.queue.delay.DelayedMessageJournal;
+import com.chua.starter.queue.delay.DelayedMessageScheduler;
 import com.chua.starter.queue.properties.QueueProperties;
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
@@ -13,7 +16,9 @@ import com.google.common.eventbus.Subscribe;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -21,7 +26,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 
 import static com.chua.starter.common.support.logger.ModuleLog.highlight;
 
@@ -31,6 +35,10 @@ import static com.chua.starter.common.support.logger.ModuleLog.highlight;
  * 使用 {@link EventBus} 和 {@link AsyncEventBus} 实现的本地消息队列，
  * 适用于单机环境或测试场景，支持同步和异步消息传递。
  * </p>
+ * <p>
+ * 延迟消息由分层时间轮调度，配置 {@code delayStorePath} 后写入本地追加日志，重启后恢复未投递的消息，
+ * 并可通过 {@link #cancelDelayed(String)} 按消息ID取消。
+ * </p>
  *
  * @author CH
  * @version 1.0.0
@@ -78,9 +86,9 @@ public class LocalMessageTemplate implements MessageTemplate {
     private final QueueProperties.LocalConfig config;
 
     /**
-     * 延迟消息调度器（使用平台线程，因为虚拟线程不适合精确的定时调度）
+     * 延迟消息调度器（时间轮由平台线程驱动，到期消息交给虚拟线程投递）
      */
-    private final ScheduledExecutorService delayScheduler;
+    private final DelayedMessageScheduler delayScheduler;
 
     /**
      * 虚拟线程执行器，用于执行延迟消息的实际发送
@@ -88,18 +96,11 @@ public class LocalMessageTemplate implements MessageTemplate {
     private final ExecutorService virtualExecutor;
 
     public LocalMessageTemplate(QueueProperties.LocalConfig config) {
-        this.config = config;
-        // 延迟消息调度器使用平台线程（虚拟线程不适合精确的定时调度）
-        this.delayScheduler = Executors.newScheduledThreadPool(
-                config != null && config.getDelayThreads() > 0 ? config.getDelayThreads() : 2,
-                r -> {
-                    Thread t = new Thread(r, "local-queue-delay");
-                    t.setDaemon(true);
-                    return t;
-                });
+        this.config = config != null ? config : new QueueProperties.LocalConfig();
         // 虚拟线程执行器，用于执行延迟消息的实际发送和异步消息处理
         this.virtualExecutor = Executors.newThreadPerTaskExecutor(
                 Thread.ofVirtual().name("local-queue-", 0).factory());
+        this.delayScheduler = createDelayScheduler(this.config);
         log.info("[Queue] 本地消息队列初始化完成 (基于Guava EventBus，使用Java 21虚拟线程)");
     }
 
@@ -193,25 +194,8 @@ public class LocalMessageTemplate implements MessageTemplate {
         String messageId = UUID.randomUUID().toString();
         try {
             byte[] bytes = serializePayload(payload);
-            var message = new Message();
-            message.setId(messageId);
-            message.setDestination(destination);
-            message.setPayload(bytes);
-            message.setTimestamp(System.currentTimeMillis());
-            message.setType(TYPE);
-
-            // 使用平台线程调度，虚拟线程执行
-            delayScheduler.schedule(() -> {
-                // 检查是否已关闭，避免在关闭后发送消息
-                if (running) {
-                    virtualExecutor.execute(() -> {
-                        if (running) {
-                            EventBus eventBus = getOrCreateEventBus(destination);
-                            eventBus.post(message);
-                        }
-                    });
-                }
-            }, delay.toMillis(), java.util.concurrent.TimeUnit.MILLISECONDS);
+            delayScheduler.schedule(new DelayedMessage(messageId, destination,
+                    System.currentTimeMillis() + delay.toMillis(), null, bytes));
 
             log.debug("Delayed message scheduled for destination: {}, delay: {}", destination, delay);
             return SendResult.success(messageId, destination);
@@ -221,6 +205,24 @@ public class LocalMessageTemplate implements MessageTemplate {
         }
     }
 
+    /**
+     * 取消尚未投递的延迟消息
+     *
+     * @param messageId {@link #sendDelayed} 返回的消息ID
+     * @return 消息存在且尚未投递时返回 true
+     */
+    @Override
+    public boolean cancelDelayed(String messageId) {
+        return delayScheduler.cancel(messageId);
+    }
+
+    /**
+     * 待投递的延迟消息数
+     */
+    public int getPendingDelayedCount() {
+        return delayScheduler.size();
+    }
+
     @Override
     public void subscribe(String destination, MessageHandler handler, boolean autoAck) {
         CopyOnWriteArrayList<MessageHandler> handlers = subscribers.computeIfAbsent(
@@ -380,16 +382,8 @@ public class LocalMessageTemplate implements MessageTemplate {
     public void close() {
         running = false;
 
-        // 关闭延迟消息调度器
-        delayScheduler.shutdown();
-        try {
-            if (!delayScheduler.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                delayScheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            delayScheduler.shutdownNow();
-        }
+        // 关闭延迟消息调度器，未投递的消息保留在日志中
+        delayScheduler.close();
 
         // 关闭虚拟线程执行器
         virtualExecutor.shutdown();
@@ -436,6 +430,38 @@ public class LocalMessageTemplate implements MessageTemplate {
         log.debug("ExecutorService closed: {}", name);
     }
 
+    private DelayedMessageScheduler createDelayScheduler(QueueProperties.LocalConfig config) {
+        DelayedMessageJournal journal = null;
+        if (config.getDelayStorePath() != null && !config.getDelayStorePath().isBlank()) {
+            journal = new DelayedMessageJournal(Path.of(config.getDelayStorePath()),
+                    config.getDelaySegmentBytes(), config.getDelayCheckpointSegments(), config.isDelayFsync());
+        }
+        return new DelayedMessageScheduler("local-queue-delay", config.getDelayTickMillis(),
+                config.getDelayWheelSize(), virtualExecutor, journal, config.getDelayRecoveryDelayMillis(),
+                this::deliverDelayed);
+    }
+
+    /**
+     * 投递到期的延迟消息
+     *
+     * @return 是否已投递；已关闭时返回 false，消息保留在日志中，重启后重放
+     */
+    private boolean deliverDelayed(DelayedMessage delayed) {
+        // 检查是否已关闭，避免在关闭后发送消息
+        if (!running) {
+            return false;
+        }
+        var message = new Message();
+        message.setId(delayed.id());
+        message.setDestination(delayed.destination());
+        message.setPayload(delayed.payload());
+        message.setHeaders(new HashMap<>(delayed.headers()));
+        message.setTimestamp(System.currentTimeMillis());
+        message.setType(TYPE);
+        getOrCreateEventBus(delayed.destination()).post(message);
+        return true;
+    }
+
     /**
      * 获取或创建同步EventBus
      */
@@ -0,0 +1,203 @@
+package com.chua.starter.queue.batch;
+
+import com.chua.starter.queue.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageBatchProcessorTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<String> spilled = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Runnable> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private MessageBatchProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        if (processor != null) {
+            runPendingFlushes();
+            processor.close();
+        }
+    }
+
+    @Test
+    void shouldFlushIdleDestinationOnLinger() throws Exception {
+        processor = processor(100, Duration.ofMillis(50));
+
+        processor.offer(message("orders", "m-1"));
+        processor.offer(message("orders", "m-2"));
+        processor.offer(message("audit", "a-1"));
+
+        // 之后不再添加消息，只能由定时线程按超时刷新
+        awaitUntil(() -> batches.size() == 2);
+        assertThat(batches).containsExactlyInAnyOrder(List.of("m-1", "m-2"), List.of("a-1"));
+        assertThat(processor.getCurrentBatchSize()).isZero();
+    }
+
+    @Test
+    void shouldFlushFullBatchWithoutWaitingForLinger() throws Exception {
+        processor = processor(3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 7; i++) {
+            processor.offer(message("orders", "m-" + i));
+        }
+
+        awaitUntil(() -> batches.size() == 2);
+        assertThat(batches).containsExactly(List.of("m-0", "m-1", "m-2"), List.of("m-3", "m-4", "m-5"));
+        assertThat(processor.getCurrentBatchSize("orders")).isEqualTo(1);
+
+        processor.flush();
+        assertThat(batches).last().isEqualTo(List.of("m-6"));
+    }
+
+    @Test
+    void shouldBlockProducerUntilPendingMessagesAreFlushed() throws Exception {
+        processor = processor(100, Duration.ofMinutes(1));
+        processor.setMaxPendingMessages(2);
+        processor.setOverflowStrategy(MessageBatchProcessor.OverflowStrategy.BLOCK);
+        processor.setFlushExecutor(pendingFlushes::add);
+        processor.offer(message("orders", "m-1"));
+        processor.offer(message("orders", "m-2"));
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> processor.offer(message("orders", "m-3")));
+        Thread.sleep(100);
+        assertThat(blocked).isNotDone();
+
+        runPendingFlushes();
+
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+        // 第一批在超时刷新到期前就已刷出；m-3 可能紧接着被同一次刷新带走
+        assertThat(batches.get(0)).containsExactly("m-1", "m-2");
+        assertThat(processor.getRejectedCount()).isZero();
+    }
+
+    @Test
+    void shouldFlushAtPendingLimitBelowBatchSize() throws Exception {
+        processor = processor(100, Duration.ofMinutes(1));
+        processor.setMaxPendingMessages(2);
+        processor.setOverflowStrategy(MessageBatchProcessor.OverflowStrategy.BLOCK);
+        processor.setBlockTimeout(Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(processor.offer(message("orders", "m-" + i))).isTrue();
+        }
+
+        // 积压上限小于 batchSize 时不等待一分钟的超时刷新
+        awaitUntil(() -> batches.stream().mapToInt(List::size).sum() >= 4);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(processor.getRejectedCount()).isZero();
+    }
+
+    @Test
+    void shouldSpillAfterBlockTimeout() {
+        processor = processor(100, Duration.ofMinutes(1));
+        processor.setMaxPendingMessages(2);
+        processor.setOverflowStrategy(MessageBatchProcessor.OverflowStrategy.BLOCK);
+        processor.setBlockTimeout(Duration.ofMillis(50));
+        processor.setFlushExecutor(pendingFlushes::add);
+        processor.offer(message("orders", "m-1"));
+        processor.offer(message("orders", "m-2"));
+
+        assertThat(processor.offer(message("orders", "m-3"))).isFalse();
+
+        assertThat(spilled).containsExactly("m-3");
+        assertThat(processor.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropOverflowWithoutSpilling() {
+        processor = processor(100, Duration.ofMinutes(1));
+        processor.setMaxPendingMessages(2);
+        processor.setOverflowStrategy(MessageBatchProcessor.OverflowStrategy.DROP);
+        processor.setFlushExecutor(pendingFlushes::add);
+        processor.offer(message("orders", "m-1"));
+        processor.offer(message("orders", "m-2"));
+
+        assertThat(processor.offer(message("orders", "m-3"))).isFalse();
+
+        assertThat(spilled).isEmpty();
+        assertThat(processor.getRejectedCount()).isEqualTo(1);
+        assertThat(processor.getCurrentBatchSize("orders")).isEqualTo(2);
+        // 其它目标地址不受影响
+        assertThat(processor.offer(message("audit", "a-1"))).isTrue();
+    }
+
+    @Test
+    void shouldSpillOverflowToHandler() {
+        processor = processor(100, Duration.ofMinutes(1));
+        processor.setMaxPendingMessages(2);
+        processor.setOverflowStrategy(MessageBatchProcessor.OverflowStrategy.SPILL);
+        processor.setFlushExecutor(pendingFlushes::add);
+        processor.offer(message("orders", "m-1"));
+        processor.offer(message("orders", "m-2"));
+
+        assertThat(processor.offer(message("orders", "m-3"))).isFalse();
+        assertThat(processor.offer(message("orders", "m-4"))).isFalse();
+
+        assertThat(spilled).containsExactly("m-3", "m-4");
+        assertThat(processor.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void shouldKeepDeprecatedAccessors() {
+        processor = processor(100, Duration.ofMinutes(1));
+        long before = System.currentTimeMillis();
+
+        processor.add(message("orders", "m-1"));
+        processor.add(message("orders", "m-2"));
+
+        assertThat(processor.getCurrentBatch()).extracting(MessageBatchProcessorTest::payload)
+                .containsExactly("m-1", "m-2");
+        assertThat(processor.getLastAddTime()).isGreaterThanOrEqualTo(before);
+        processor.close();
+        assertThat(processor.getCurrentBatch()).isEmpty();
+        assertThat(batches).containsExactly(List.of("m-1", "m-2"));
+    }
+
+    private MessageBatchProcessor processor(int batchSize, Duration batchTimeout) {
+        MessageBatchProcessor created = new MessageBatchProcessor();
+        created.setBatchSize(batchSize);
+        created.setBatchTimeout(batchTimeout);
+        created.setBatchHandler(batch -> batches.add(batch.stream().map(MessageBatchProcessorTest::payload).toList()));
+        created.setSpillHandler(message -> spilled.add(payload(message)));
+        return created;
+    }
+
+    private void runPendingFlushes() {
+        Runnable task;
+        while ((task = pendingFlushes.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static Message message(String destination, String payload) {
+        return Message.builder()
+                .destination(destination)
+                .payload(payload.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String payload(Message message) {
+        return new String(message.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
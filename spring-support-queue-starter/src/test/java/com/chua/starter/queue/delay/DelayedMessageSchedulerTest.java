@@ -0,0 +1,116 @@
+package com.chua.starter.queue.delay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DelayedMessageSchedulerTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReplayMessageRejectedDuringShutdown() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        DelayedMessageScheduler scheduler = open(0, message -> {
+            attempts.incrementAndGet();
+            // 模拟模板已关闭：投递回调拒绝投递
+            return false;
+        });
+        scheduler.schedule(message("m-1", 20));
+        awaitUntil(() -> attempts.get() == 1);
+        scheduler.close();
+
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        DelayedMessageScheduler restarted = open(0, recordingTo(delivered));
+        try {
+            awaitUntil(() -> delivered.size() == 1);
+            assertThat(delivered).containsExactly("m-1");
+            awaitUntil(() -> restarted.size() == 0);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void shouldNotReplayDeliveredMessage() throws Exception {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        DelayedMessageScheduler scheduler = open(0, recordingTo(delivered));
+        scheduler.schedule(message("m-1", 20));
+        scheduler.schedule(message("m-2", 60_000));
+        awaitUntil(() -> delivered.size() == 1);
+        scheduler.close();
+
+        DelayedMessageScheduler restarted = open(60_000, recordingTo(delivered));
+        try {
+            // 只有尚未到期的消息被恢复
+            assertThat(restarted.size()).isEqualTo(1);
+            assertThat(restarted.cancel("m-2")).isTrue();
+            assertThat(restarted.cancel("m-1")).isFalse();
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void shouldRetryMessageWhenDelivererThrows() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        DelayedMessageScheduler scheduler = open(0, message -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("subscriber not ready");
+            }
+            return delivered.add(message.id());
+        });
+        try {
+            scheduler.schedule(message("m-1", 10));
+
+            awaitUntil(() -> delivered.size() == 1);
+            assertThat(attempts).hasValue(2);
+            awaitUntil(() -> scheduler.size() == 0);
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    private DelayedMessageScheduler open(long recoveryDelayMillis, Predicate<DelayedMessage> deliverer) {
+        DelayedMessageJournal journal = new DelayedMessageJournal(journalDir, 64 * 1024, 4, false);
+        return new DelayedMessageScheduler("test-delay", 10, 64, executor, journal, recoveryDelayMillis, deliverer);
+    }
+
+    private static Predicate<DelayedMessage> recordingTo(List<String> delivered) {
+        return message -> delivered.add(message.id());
+    }
+
+    private static DelayedMessage message(String id, long delayMillis) {
+        return new DelayedMessage(id, "orders", System.currentTimeMillis() + delayMillis, null,
+                id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
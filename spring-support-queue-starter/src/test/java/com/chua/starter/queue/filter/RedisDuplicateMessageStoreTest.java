@@ -0,0 +1,83 @@
+package com.chua.starter.queue.filter;
+
+import com.chua.starter.queue.Message;
+import com.chua.starter.queue.properties.QueueProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisDuplicateMessageStoreTest {
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    @Test
+    void shouldMarkWithSetNxPx() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true, false);
+        RedisDuplicateMessageStore store = new RedisDuplicateMessageStore(redisTemplate, "plugin:queue:dedup:", 60_000);
+
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+        assertThat(store.markIfAbsent("m-1")).isFalse();
+
+        verify(valueOperations, times(2))
+                .setIfAbsent("plugin:queue:dedup:m-1", "1", Duration.ofMillis(60_000));
+    }
+
+    @Test
+    void shouldPassMessageWhenRedisUnavailable() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("m-1"), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.setIfAbsent(eq("m-2"), anyString(), any(Duration.class))).thenReturn(null);
+        RedisDuplicateMessageStore store = new RedisDuplicateMessageStore(redisTemplate, null, 0);
+
+        // 异常和管道/事务中的 null 结果都按首次出现处理，由本地窗口兜底
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+        assertThat(store.markIfAbsent("m-2")).isTrue();
+        verify(valueOperations).setIfAbsent("m-2", "1", Duration.ofMillis(1));
+    }
+
+    @Test
+    void shouldSkipSharedStoreWhenMultipleStoresRegistered() {
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.registerBean("first", DuplicateMessageStore.class, () -> id -> false);
+            context.registerBean("second", DuplicateMessageStore.class, () -> id -> false);
+            context.refresh();
+            DuplicateMessageFilter filter = new DuplicateMessageFilter(new QueueProperties(),
+                    context.getBeanProvider(DuplicateMessageStore.class));
+
+            assertThat(filter.filter(Message.builder().id("m-1").destination("orders").build())).isTrue();
+            assertThat(filter.filter(Message.builder().id("m-1").destination("orders").build())).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectMessagesSeenByOtherInstances() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.registerBean(DuplicateMessageStore.class,
+                    () -> new RedisDuplicateMessageStore(redisTemplate, "dedup:", 60_000));
+            context.refresh();
+            DuplicateMessageFilter filter = new DuplicateMessageFilter(new QueueProperties(),
+                    context.getBeanProvider(DuplicateMessageStore.class));
+
+            assertThat(filter.filter(Message.builder().id("m-1").destination("orders").build())).isFalse();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.chua.starter.queue.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeBucketedDuplicateStoreTest {
+
+    private static final long SEGMENT_MILLIS = 200;
+
+    @Test
+    void shouldRejectDuplicatesWithinWindow() {
+        TimeBucketedDuplicateStore store = new TimeBucketedDuplicateStore(60_000, 5);
+
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+        assertThat(store.markIfAbsent("m-1")).isFalse();
+        assertThat(store.markIfAbsent("m-2")).isTrue();
+
+        store.clear();
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+    }
+
+    @Test
+    void shouldKeepRecordsUntilRetentionBoundaryAndDropExpiredSegment() throws Exception {
+        TimeBucketedDuplicateStore store = new TimeBucketedDuplicateStore(SEGMENT_MILLIS * 4, 4);
+        long start = alignToSegmentStart();
+
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+        sleepUntil(start + SEGMENT_MILLIS + SEGMENT_MILLIS / 2);
+        assertThat(store.markIfAbsent("m-2")).isTrue();
+
+        // 第 4 个时间段仍在窗口内：最早写入的记录保留 windowMillis * (segments - 1) / segments 以上
+        sleepUntil(start + 3 * SEGMENT_MILLIS + SEGMENT_MILLIS / 2);
+        assertThat(store.markIfAbsent("m-1")).isFalse();
+
+        // 轮转回第一个槽位时整段替换，之后写入的时间段不受影响
+        sleepUntil(start + 4 * SEGMENT_MILLIS + SEGMENT_MILLIS / 2);
+        assertThat(store.markIfAbsent("m-1")).isTrue();
+        assertThat(store.markIfAbsent("m-2")).isFalse();
+        assertThat(store.markIfAbsent("m-1")).isFalse();
+    }
+
+    @Test
+    void shouldGrowBloomFilterBeyondExpectedInsertions() {
+        TimeBucketedDuplicateStore store = new TimeBucketedDuplicateStore(3_600_000, 2, true, 1000, 0.01D);
+        List<String> accepted = new ArrayList<>();
+        int falseDrops = 0;
+
+        for (int i = 0; i < 10_000; i++) {
+            String id = "m-" + i;
+            if (store.markIfAbsent(id)) {
+                accepted.add(id);
+            } else {
+                falseDrops++;
+            }
+        }
+
+        // 不扩容时 1000 容量的过滤器写入 10 倍数据后几乎全部误判；扩容后误判率收敛在配置值附近
+        assertThat(falseDrops).isLessThan(300);
+        // 布隆过滤器只会把新消息误判为重复，不会放过已记录的消息
+        assertThat(accepted).allSatisfy(id -> assertThat(store.markIfAbsent(id)).isFalse());
+    }
+
+    @Test
+    void shouldNeverFalseDropInExactMode() {
+        TimeBucketedDuplicateStore store = new TimeBucketedDuplicateStore(3_600_000, 2);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(store.markIfAbsent("m-" + i)).isTrue();
+        }
+    }
+
+    private static long alignToSegmentStart() throws InterruptedException {
+        while (System.currentTimeMillis() % SEGMENT_MILLIS > 20) {
+            Thread.sleep(1);
+        }
+        return System.currentTimeMillis() / SEGMENT_MILLIS * SEGMENT_MILLIS;
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        long remaining = millis - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+}
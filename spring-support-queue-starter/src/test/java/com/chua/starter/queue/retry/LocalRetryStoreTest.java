@@ -0,0 +1,77 @@
+package com.chua.starter.queue.retry;
+
+import com.chua.starter.queue.delay.DelayedMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRetryStoreTest {
+
+    @TempDir
+    Path storeDir;
+
+    @Test
+    void shouldKeepTombstonesAcrossRestart() {
+        LocalRetryStore store = new LocalRetryStore(storeDir, 1024 * 1024, 8, false);
+        store.bury(dead("d1"));
+        store.bury(dead("d2"));
+        assertThat(store.removeDeadLetters(List.of("d1", "missing"))).isEqualTo(1);
+        store.close();
+
+        LocalRetryStore restarted = new LocalRetryStore(storeDir, 1024 * 1024, 8, false);
+        try {
+            assertThat(restarted.isDeadLetterRemoved("d1")).isTrue();
+            assertThat(restarted.isDeadLetterRemoved("missing")).isTrue();
+            assertThat(restarted.isDeadLetterRemoved("d2")).isFalse();
+            assertThat(restarted.getDeadLetters("orders", 10)).extracting(DelayedMessage::id).containsExactly("d2");
+
+            // 删除先于保存完成时，保存被跳过
+            restarted.bury(dead("missing"));
+            assertThat(restarted.getDeadLetterCount("orders")).isEqualTo(1);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void shouldExpireTombstonesAfterRetention() throws Exception {
+        LocalRetryStore store = new LocalRetryStore(null, 0, 0, false, Duration.ofMillis(50));
+        store.bury(dead("d1"));
+        store.removeDeadLetters(List.of("d1"));
+        assertThat(store.isDeadLetterRemoved("d1")).isTrue();
+
+        Thread.sleep(100);
+
+        assertThat(store.isDeadLetterRemoved("d1")).isFalse();
+        store.close();
+    }
+
+    @Test
+    void shouldEvictOldestDeadLettersBeyondCapOrRetention() throws Exception {
+        LocalRetryStore store = new LocalRetryStore(storeDir, 1024 * 1024, 8, false,
+                Duration.ofDays(1), 2, Duration.ofMillis(200));
+        try {
+            store.bury(dead("d1"));
+            store.bury(dead("d2"));
+            store.bury(dead("d3"));
+            assertThat(store.getDeadLetters("orders", 10)).extracting(DelayedMessage::id).containsExactly("d2", "d3");
+
+            Thread.sleep(300);
+
+            assertThat(store.getDeadLetterCount("orders")).isZero();
+            // 淘汰不留墓碑，死信队列中的副本仍可重新处理
+            assertThat(store.isDeadLetterRemoved("d1")).isFalse();
+        } finally {
+            store.close();
+        }
+    }
+
+    private static DelayedMessage dead(String id) {
+        return new DelayedMessage(id, "orders", System.currentTimeMillis(), null, "x".getBytes());
+    }
+}
@@ -0,0 +1,105 @@
+package com.chua.starter.queue.template;
+
+import com.chua.starter.queue.Message;
+import com.chua.starter.queue.properties.QueueProperties;
+import com.chua.starter.queue.retry.LocalRetryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterTemplateTest {
+
+    @TempDir
+    Path storeDir;
+
+    private final List<String> processed = new CopyOnWriteArrayList<>();
+    private final List<Message> dlqCopies = new CopyOnWriteArrayList<>();
+    private volatile boolean failing = true;
+
+    private LocalMessageTemplate main;
+    private LocalMessageTemplate dlq;
+    private DeadLetterTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        main = new LocalMessageTemplate(new QueueProperties.LocalConfig());
+        dlq = new LocalMessageTemplate(new QueueProperties.LocalConfig());
+        // 最大重试 1 次：首次失败直接转入死信队列
+        template = new DeadLetterTemplate(main, dlq,
+                new DeadLetterTemplate.DeadLetterConfig(1, Duration.ofMillis(10), Duration.ofMillis(10), false, 1.0),
+                new LocalRetryStore(storeDir, 1024 * 1024, 8, false));
+        dlq.subscribe(template.getDlqDestination("orders"), (message, ack) -> dlqCopies.add(message), true);
+        template.subscribeWithRetry("orders", (message, ack) -> {
+            if (failing) {
+                throw new IllegalStateException("处理失败");
+            }
+            processed.add(message.getPayloadAsString());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        template.close();
+        main.close();
+    }
+
+    @Test
+    void shouldNotReplayDeadLetterTwice() {
+        main.send("orders", "a");
+        assertThat(dlqCopies).hasSize(1);
+        assertThat(template.getDeadLetterCount("orders")).isEqualTo(1);
+
+        failing = false;
+        assertThat(template.replayDeadLetters("orders", 10, null)).isEqualTo(1);
+        assertThat(template.getDeadLetterCount("orders")).isZero();
+
+        // 死信队列中的副本已随存储中的记录一起重放过
+        assertThat(template.reprocessDeadLetter("orders", dlqCopies.get(0)).isSuccess()).isFalse();
+        assertThat(processed).containsExactly("a");
+    }
+
+    @Test
+    void shouldSkipPurgedCopiesOnDeadLetterQueue() {
+        main.send("orders", "a");
+        main.send("orders", "b");
+        assertThat(template.purgeDeadLetters("orders", 1)).isEqualTo(1);
+
+        List<String> consumed = new CopyOnWriteArrayList<>();
+        template.subscribeDeadLetter("orders", (message, ack) -> consumed.add(message.getPayloadAsString()));
+        String dlqDestination = template.getDlqDestination("orders");
+        for (Message copy : dlqCopies) {
+            dlq.send(dlqDestination, copy.getPayload(), copy.getHeaders());
+        }
+
+        assertThat(consumed).containsExactly("b");
+    }
+
+    @Test
+    void shouldRemoveStoreCopyWhenReprocessedFromQueue() {
+        main.send("orders", "a");
+        failing = false;
+
+        assertThat(template.reprocessDeadLetter("orders", dlqCopies.get(0)).isSuccess()).isTrue();
+
+        assertThat(template.getDeadLetterCount("orders")).isZero();
+        assertThat(template.replayDeadLetters("orders", 10, null)).isZero();
+        assertThat(processed).containsExactly("a");
+    }
+
+    @Test
+    void shouldNotBuryWhenDeadLetterQueueRejects() {
+        dlq.close();
+
+        main.send("orders", "a");
+
+        assertThat(template.getDeadLetterCount("orders")).isZero();
+    }
+}
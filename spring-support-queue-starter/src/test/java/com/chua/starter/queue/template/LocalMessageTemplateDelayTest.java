@@ -0,0 +1,47 @@
+package com.chua.starter.queue.template;
+
+import com.chua.starter.queue.properties.QueueProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalMessageTemplateDelayTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void shouldDeliverPendingDelayedMessageAfterRestart() throws Exception {
+        LocalMessageTemplate template = new LocalMessageTemplate(config());
+        assertThat(template.sendDelayed("orders", "late", Duration.ofMillis(300)).isSuccess()).isTrue();
+        template.close();
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        LocalMessageTemplate restarted = new LocalMessageTemplate(config());
+        try {
+            restarted.subscribe("orders", (message, ack) -> received.add(message.getPayloadAsString()), true);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(received).containsExactly("late");
+            assertThat(restarted.getPendingDelayedCount()).isZero();
+        } finally {
+            restarted.close();
+        }
+    }
+
+    private QueueProperties.LocalConfig config() {
+        QueueProperties.LocalConfig config = new QueueProperties.LocalConfig();
+        config.setDelayStorePath(journalDir.toString());
+        config.setDelayRecoveryDelayMillis(500);
+        return config;
+    }
+}
@@ -1,13 +1,21 @@
 package com.chua.starter.redis.support;
 
 
+import com.chua.starter.common.support.cache.CacheInvalidationBroadcaster;
+import com.chua.starter.common.support.cache.CacheProperties;
+import com.chua.starter.redis.support.cache.RedisCacheInvalidationBroadcaster;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -98,6 +106,22 @@ public class CacheConfiguration {
     public CacheManager redis86400CacheManager(RedisConnectionFactory factory) {
         return createRedisCacheManager(null, factory, 86400);
     }
+    /**
+     * 多级缓存跨节点失效广播（Redis 发布订阅）
+     *
+     * @param factory     工厂
+     * @param environment 环境
+     * @return {@link CacheInvalidationBroadcaster}
+     */
+    @Bean
+    @ConditionalOnMissingBean(CacheInvalidationBroadcaster.class)
+    @ConditionalOnProperty(prefix = CacheProperties.PRE + ".invalidation", name = "mode", havingValue = "redis")
+    public CacheInvalidationBroadcaster redisCacheInvalidationBroadcaster(RedisConnectionFactory factory, Environment environment) {
+        CacheProperties cacheProperties = Binder.get(environment).bindOrCreate(CacheProperties.PRE, CacheProperties.class);
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+        return new RedisCacheInvalidationBroadcaster(factory, template, cacheProperties.getInvalidation().getChannel());
+    }
+
     /**
      * 创建redis缓存管理器
      *
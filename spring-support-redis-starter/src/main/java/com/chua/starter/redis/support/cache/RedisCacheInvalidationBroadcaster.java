@@ -0,0 +1,158 @@
+package com.chua.starter.redis.support.cache;
+
+import com.chua.starter.common.support.cache.CacheInvalidationBroadcaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 发布订阅的缓存失效广播
+ * <p>
+ * 消息格式为 {@code nodeId \t cacheName \t 操作 \t key类型 \t key文本}。
+ * 只传输 String、Long、Integer、Boolean、UUID 这几种带显式类型的标量 key，
+ * 接收方按类型还原，保证与本地缓存中的 key 相等；不会反序列化任意类，
+ * 能向 Redis 发布消息的一方也无法借此在节点上执行代码。
+ * 其他类型的 key（如 {@code SimpleKey}）退化为清空整个缓存，宁可多淘汰也不留下旧值。
+ * </p>
+ * <p>
+ * 使用独立的监听容器，避免与全局 {@link RedisMessageListenerContainer} 的主题序列化配置相互影响。
+ * </p>
+ *
+ * @author CH
+ * @since 2024/7/22
+ */
+@Slf4j
+public class RedisCacheInvalidationBroadcaster implements CacheInvalidationBroadcaster, InitializingBean, DisposableBean {
+
+    private static final String OP_EVICT = "E";
+    private static final String OP_CLEAR = "C";
+    private static final String TYPE_STRING = "S";
+    private static final String TYPE_LONG = "J";
+    private static final String TYPE_INTEGER = "I";
+    private static final String TYPE_BOOLEAN = "Z";
+    private static final String TYPE_UUID = "U";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+    private RedisMessageListenerContainer container;
+
+    public RedisCacheInvalidationBroadcaster(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate redisTemplate,
+                                             String channel) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        redisTemplate.convertAndSend(channel, encode(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+        container.start();
+        log.info(">>>>> 缓存失效广播订阅: channel={}", channel);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("缓存失效消息解析失败: channel={}", channel, e);
+            return;
+        }
+        for (Consumer<CacheInvalidationMessage> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (Exception e) {
+                log.warn("缓存失效消息处理失败: cache={}", invalidation.cacheName(), e);
+            }
+        }
+    }
+
+    static String encode(CacheInvalidationMessage message) {
+        String key = message.clear() ? null : encodeKey(message.key());
+        if (key == null) {
+            return message.nodeId() + '\t' + message.cacheName() + '\t' + OP_CLEAR;
+        }
+        return message.nodeId() + '\t' + message.cacheName() + '\t' + OP_EVICT + '\t' + key;
+    }
+
+    static CacheInvalidationMessage decode(String body) {
+        String[] parts = body.split("\t", 5);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("非法的缓存失效消息: " + body);
+        }
+        if (OP_CLEAR.equals(parts[2]) || parts.length < 5) {
+            return CacheInvalidationMessage.clear(parts[0], parts[1]);
+        }
+        return CacheInvalidationMessage.evict(parts[0], parts[1], decodeKey(parts[3], parts[4]));
+    }
+
+    /**
+     * 编码 key
+     *
+     * @param key 缓存键
+     * @return {@code 类型 \t 文本}，不支持的类型返回 null
+     */
+    private static String encodeKey(Object key) {
+        String type;
+        if (key instanceof String) {
+            type = TYPE_STRING;
+        } else if (key instanceof Long) {
+            type = TYPE_LONG;
+        } else if (key instanceof Integer) {
+            type = TYPE_INTEGER;
+        } else if (key instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+        } else if (key instanceof UUID) {
+            type = TYPE_UUID;
+        } else {
+            log.debug("缓存 key 类型不支持广播, 退化为清空缓存: type={}", key == null ? null : key.getClass().getName());
+            return null;
+        }
+        return type + '\t' + key;
+    }
+
+    private static Object decodeKey(String type, String value) {
+        return switch (type) {
+            case TYPE_STRING -> value;
+            case TYPE_LONG -> Long.valueOf(value);
+            case TYPE_INTEGER -> Integer.valueOf(value);
+            case TYPE_BOOLEAN -> Boolean.valueOf(value);
+            case TYPE_UUID -> UUID.fromString(value);
+            default -> throw new IllegalArgumentException("不支持的缓存 key 类型: " + type);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.chua.starter.redis.support.cache;
+
+import com.chua.starter.common.support.cache.CacheInvalidationBroadcaster.CacheInvalidationMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedisCacheInvalidationBroadcasterTest {
+
+    @Test
+    void shouldRoundTripTypedScalarKeys() {
+        UUID uuid = UUID.randomUUID();
+        for (Object key : new Object[]{"user:1", 42L, 7, true, uuid, "带\t制表符"}) {
+            CacheInvalidationMessage decoded = RedisCacheInvalidationBroadcaster.decode(
+                    RedisCacheInvalidationBroadcaster.encode(CacheInvalidationMessage.evict("node", "user", key)));
+
+            assertThat(decoded.clear()).isFalse();
+            assertThat(decoded.nodeId()).isEqualTo("node");
+            assertThat(decoded.cacheName()).isEqualTo("user");
+            assertThat(decoded.key()).isEqualTo(key);
+        }
+    }
+
+    @Test
+    void shouldFallBackToClearForUnsupportedKeys() {
+        String encoded = RedisCacheInvalidationBroadcaster.encode(
+                CacheInvalidationMessage.evict("node", "user", new SimpleKey("a", 1)));
+
+        assertThat(RedisCacheInvalidationBroadcaster.decode(encoded).clear()).isTrue();
+    }
+
+    @Test
+    void shouldNeverDeserializeArbitraryPayloads() {
+        // 旧格式的 JDK 序列化负载只会被当作清空缓存处理
+        assertThat(RedisCacheInvalidationBroadcaster.decode("node\tuser\tE\trO0ABXQAAWs=").clear()).isTrue();
+        assertThatThrownBy(() -> RedisCacheInvalidationBroadcaster.decode("node\tuser\tE\tL\trO0ABXQAAWs="))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,5 +1,6 @@
 package com.chua.starter.rpc.support.interceptor;
 
+import com.chua.starter.rpc.support.loadbalance.RpcProviderMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -25,6 +26,7 @@ public class MetricsRpcInterceptor implements RpcInterceptor {
     private final ConcurrentHashMap<String, AtomicLong> failureCounters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicLong> totalDurations = new ConcurrentHashMap<>();
     private final ThreadLocal<Long> startTimes = new ThreadLocal<>();
+    private final RpcProviderMetrics providerMetrics = new RpcProviderMetrics();
 
     @Override
     public boolean preHandle(Method method, Object[] args) {
@@ -109,6 +111,13 @@ public class MetricsRpcInterceptor implements RpcInterceptor {
         return total.get() / count.get();
     }
 
+    /**
+     * 获取按提供者统计的调用指标，供负载均衡使用
+     */
+    public RpcProviderMetrics getProviderMetrics() {
+        return providerMetrics;
+    }
+
     /**
      * 重置统计
      */
@@ -117,6 +126,7 @@ public class MetricsRpcInterceptor implements RpcInterceptor {
         successCounters.clear();
         failureCounters.clear();
         totalDurations.clear();
+        providerMetrics.reset();
     }
 
     @Override
@@ -0,0 +1,160 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一致性哈希负载均衡策略
+ * <p>
+ * 相同哈希键（默认第一个参数）的请求固定落到同一个提供者；提供者增减时只有相邻区间的键会迁移。
+ * 哈希环按服务缓存，提供者列表变化时重建；重试时沿环跳过失败的提供者，不重建哈希环。
+ * 重试时若缓存的哈希环与候选列表不一致，临时构建的哈希环不放入缓存，避免缺少失败提供者的环被后续正常调用沿用。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Component
+public class ConsistentHashLoadBalancer implements RpcLoadBalancer {
+
+    /**
+     * 每个提供者的虚拟节点数
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public ConsistentHashLoadBalancer() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashLoadBalancer(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    @Override
+    public <T> T select(List<T> providers) {
+        return select(providers, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T select(List<T> providers, Object context) {
+        if (providers == null || providers.isEmpty()) {
+            return null;
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+
+        RpcLoadBalanceContext loadBalanceContext = context instanceof RpcLoadBalanceContext c ? c : null;
+        String service = loadBalanceContext == null ? "" : loadBalanceContext.getServiceName();
+        Object excluded = loadBalanceContext == null ? null : loadBalanceContext.getExcluded();
+
+        Ring ring = rings.get(service);
+        boolean usable = ring != null && ring.matches(providers, excluded);
+        if (!usable) {
+            ring = new Ring(providers, loadBalanceContext, virtualNodes);
+            if (excluded == null) {
+                rings.put(service, ring);
+            }
+        }
+
+        Object hashKey = loadBalanceContext == null ? null : loadBalanceContext.getHashKey();
+        return (T) ring.select(mix(Objects.hashCode(hashKey)), excluded);
+    }
+
+    @Override
+    public String getName() {
+        return "consistent-hash";
+    }
+
+    private static long hash(String value) {
+        // FNV-1a 64
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        // murmur3 fmix64，让相近的 hashCode 在环上分散
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * 哈希环，节点按哈希值排序后二分查找
+     */
+    private static final class Ring {
+
+        private final List<?> providers;
+        private final long[] hashes;
+        private final Object[] nodes;
+
+        private Ring(List<?> providers, RpcLoadBalanceContext context, int virtualNodes) {
+            this.providers = List.copyOf(providers);
+            int size = providers.size() * virtualNodes;
+            long[] unsortedHashes = new long[size];
+            Integer[] order = new Integer[size];
+            int index = 0;
+            for (Object provider : providers) {
+                String id = context == null ? String.valueOf(provider) : context.getProviderId(provider);
+                for (int i = 0; i < virtualNodes; i++) {
+                    unsortedHashes[index] = hash(id + "#" + i);
+                    order[index] = index;
+                    index++;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(unsortedHashes[a], unsortedHashes[b]));
+            this.hashes = new long[size];
+            this.nodes = new Object[size];
+            for (int i = 0; i < size; i++) {
+                hashes[i] = unsortedHashes[order[i]];
+                nodes[i] = providers.get(order[i] / virtualNodes);
+            }
+        }
+
+        /**
+         * 候选列表是否与构建哈希环时的提供者一致（重试时候选列表中去掉了失败的提供者）
+         */
+        private boolean matches(List<?> candidates, Object excluded) {
+            int index = 0;
+            for (Object provider : providers) {
+                if (excluded != null && provider == excluded) {
+                    continue;
+                }
+                if (index == candidates.size() || candidates.get(index++) != provider) {
+                    return false;
+                }
+            }
+            return index == candidates.size();
+        }
+
+        private Object select(long hash, Object excluded) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                Object node = nodes[(index + i) % nodes.length];
+                if (node != excluded) {
+                    return node;
+                }
+            }
+            return nodes[index % nodes.length];
+        }
+    }
+}
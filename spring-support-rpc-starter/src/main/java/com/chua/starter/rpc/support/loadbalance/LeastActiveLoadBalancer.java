@@ -0,0 +1,62 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少活跃请求负载均衡策略
+ * <p>
+ * 选择进行中请求数最少的提供者，请求数相同时随机选择；上下文中没有调用指标时退化为随机
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Component
+public class LeastActiveLoadBalancer implements RpcLoadBalancer {
+
+    @Override
+    public <T> T select(List<T> providers) {
+        if (providers == null || providers.isEmpty()) {
+            return null;
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        return providers.get(ThreadLocalRandom.current().nextInt(providers.size()));
+    }
+
+    @Override
+    public <T> T select(List<T> providers, Object context) {
+        if (providers == null || providers.size() <= 1
+                || !(context instanceof RpcLoadBalanceContext loadBalanceContext)
+                || loadBalanceContext.getMetrics() == null) {
+            return select(providers);
+        }
+
+        RpcProviderMetrics metrics = loadBalanceContext.getMetrics();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        T selected = null;
+        int least = Integer.MAX_VALUE;
+        int ties = 0;
+        for (T provider : providers) {
+            int active = metrics.getActive(provider);
+            if (active < least) {
+                least = active;
+                selected = provider;
+                ties = 1;
+            } else if (active == least && random.nextInt(++ties) == 0) {
+                // 蓄水池抽样，请求数相同的提供者等概率选中
+                selected = provider;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public String getName() {
+        return "least-active";
+    }
+}
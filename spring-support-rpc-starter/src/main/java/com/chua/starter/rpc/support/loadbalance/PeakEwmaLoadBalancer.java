@@ -0,0 +1,62 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 峰值 EWMA 延迟负载均衡策略
+ * <p>
+ * 随机取两个提供者，选择 "峰值 EWMA 延迟 × (进行中请求数 + 1)" 较小的一个（power of two choices），
+ * 不需要遍历全部提供者，也避免所有调用方同时涌向同一个最快的节点
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Component
+public class PeakEwmaLoadBalancer implements RpcLoadBalancer {
+
+    @Override
+    public <T> T select(List<T> providers) {
+        if (providers == null || providers.isEmpty()) {
+            return null;
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        return providers.get(ThreadLocalRandom.current().nextInt(providers.size()));
+    }
+
+    @Override
+    public <T> T select(List<T> providers, Object context) {
+        if (providers == null || providers.size() <= 1
+                || !(context instanceof RpcLoadBalanceContext loadBalanceContext)
+                || loadBalanceContext.getMetrics() == null) {
+            return select(providers);
+        }
+
+        RpcProviderMetrics metrics = loadBalanceContext.getMetrics();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = providers.size();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        T a = providers.get(first);
+        T b = providers.get(second);
+        return score(metrics, a) <= score(metrics, b) ? a : b;
+    }
+
+    private static double score(RpcProviderMetrics metrics, Object provider) {
+        // 未测量过的提供者延迟为 0，按进行中请求数排序
+        return (metrics.getLatency(provider) + 1D) * (metrics.getActive(provider) + 1);
+    }
+
+    @Override
+    public String getName() {
+        return "peak-ewma";
+    }
+}
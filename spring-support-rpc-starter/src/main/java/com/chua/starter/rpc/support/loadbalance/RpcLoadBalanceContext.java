@@ -0,0 +1,73 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 负载均衡上下文
+ * <p>
+ * 通过 {@link RpcLoadBalancer#select(java.util.List, Object)} 传给负载均衡策略
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Getter
+public class RpcLoadBalanceContext {
+
+    /**
+     * 服务名称（接口名.方法名）
+     */
+    private final String serviceName;
+
+    /**
+     * 调用的方法
+     */
+    private final Method method;
+
+    /**
+     * 调用参数
+     */
+    private final Object[] args;
+
+    /**
+     * 一致性哈希使用的键
+     */
+    private final Object hashKey;
+
+    /**
+     * 提供者调用指标
+     */
+    private final RpcProviderMetrics metrics;
+
+    /**
+     * 上一次调用失败的提供者，重试时不在候选列表中
+     */
+    private final Object excluded;
+
+    private final Map<Object, String> providerIds;
+
+    public RpcLoadBalanceContext(String serviceName, Method method, Object[] args, Object hashKey,
+                                 RpcProviderMetrics metrics, Object excluded, Map<Object, String> providerIds) {
+        this.serviceName = serviceName;
+        this.method = method;
+        this.args = args;
+        this.hashKey = hashKey;
+        this.metrics = metrics;
+        this.excluded = excluded;
+        this.providerIds = providerIds;
+    }
+
+    /**
+     * 提供者的稳定标识，用于一致性哈希环
+     *
+     * @param provider 提供者
+     * @return 标识
+     */
+    public String getProviderId(Object provider) {
+        String id = providerIds == null ? null : providerIds.get(provider);
+        return id != null ? id : String.valueOf(provider);
+    }
+}
@@ -0,0 +1,197 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务提供者调用指标
+ * <p>
+ * 按提供者实例记录进行中的请求数和峰值 EWMA 延迟，供 least-active、peak-ewma 等负载均衡策略使用：
+ * </p>
+ * <ul>
+ *     <li>延迟高于当前值时立即取新值（峰值），低于当前值时按时间衰减平滑</li>
+ *     <li>长时间没有调用的提供者，延迟按同样的时间常数衰减到 0，之后会重新获得流量</li>
+ *     <li>没有进行中请求且超过 {@link #IDLE_DECAY_MULTIPLIER} 个时间常数未调用的提供者会被清理，已下线的提供者不会一直占用内存</li>
+ * </ul>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+public class RpcProviderMetrics {
+
+    /**
+     * 默认衰减时间常数
+     */
+    public static final long DEFAULT_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 空闲清理阈值（时间常数的倍数），此时延迟已衰减到不足 0.3%
+     */
+    public static final int IDLE_DECAY_MULTIPLIER = 6;
+
+    private final Map<Object, ProviderStats> stats = new ConcurrentHashMap<>();
+    private final long decayNanos;
+    private final long idleNanos;
+    private final AtomicLong nextPruneNanos;
+
+    public RpcProviderMetrics() {
+        this(DEFAULT_DECAY_NANOS);
+    }
+
+    /**
+     * @param decayNanos 衰减时间常数（纳秒）
+     */
+    public RpcProviderMetrics(long decayNanos) {
+        this.decayNanos = Math.max(1L, decayNanos);
+        this.idleNanos = this.decayNanos * IDLE_DECAY_MULTIPLIER;
+        this.nextPruneNanos = new AtomicLong(System.nanoTime() + idleNanos);
+    }
+
+    /**
+     * 调用开始
+     *
+     * @param provider 提供者
+     * @return 开始时间（纳秒），传给 {@link #end}
+     */
+    public long begin(Object provider) {
+        stats(provider).active.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 调用结束
+     *
+     * @param provider   提供者
+     * @param startNanos {@link #begin} 的返回值
+     * @param success    是否成功
+     */
+    public void end(Object provider, long startNanos, boolean success) {
+        ProviderStats providerStats = stats(provider);
+        long now = System.nanoTime();
+        // begin 之后统计被重置或清理时，这里拿到的是新建的统计，不能减成负数
+        providerStats.active.getAndUpdate(active -> active > 0 ? active - 1 : 0);
+        if (!success) {
+            providerStats.failures.incrementAndGet();
+        }
+        providerStats.observe(now - startNanos, now, decayNanos);
+        pruneIfDue(now);
+    }
+
+    /**
+     * 进行中的请求数
+     *
+     * @param provider 提供者
+     * @return 请求数
+     */
+    public int getActive(Object provider) {
+        ProviderStats providerStats = stats.get(provider);
+        return providerStats == null ? 0 : providerStats.active.get();
+    }
+
+    /**
+     * 当前的峰值 EWMA 延迟（纳秒）
+     *
+     * @param provider 提供者
+     * @return 延迟，未调用过时为 0
+     */
+    public double getLatency(Object provider) {
+        ProviderStats providerStats = stats.get(provider);
+        return providerStats == null ? 0D : providerStats.cost(System.nanoTime(), decayNanos);
+    }
+
+    /**
+     * 失败次数
+     *
+     * @param provider 提供者
+     * @return 失败次数
+     */
+    public long getFailureCount(Object provider) {
+        ProviderStats providerStats = stats.get(provider);
+        return providerStats == null ? 0L : providerStats.failures.get();
+    }
+
+    /**
+     * 重置统计
+     * <p>
+     * 清空延迟和失败次数并移除空闲的提供者；仍有进行中请求的提供者保留请求数，
+     * 否则与并发的 {@link #begin}/{@link #end} 交错时请求数会失真。
+     * </p>
+     */
+    public void reset() {
+        long now = System.nanoTime();
+        stats.forEach((provider, providerStats) -> {
+            if (providerStats.active.get() == 0) {
+                stats.remove(provider, providerStats);
+            } else {
+                providerStats.failures.set(0L);
+                providerStats.ewma = new Ewma(0D, now);
+            }
+        });
+    }
+
+    /**
+     * 当前记录的提供者数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return stats.size();
+    }
+
+    /**
+     * 清理空闲的提供者，每个空闲周期最多执行一次
+     *
+     * @param now 当前时间（纳秒）
+     */
+    void pruneIfDue(long now) {
+        long due = nextPruneNanos.get();
+        if (now - due < 0L || !nextPruneNanos.compareAndSet(due, now + idleNanos)) {
+            return;
+        }
+        stats.forEach((provider, providerStats) -> {
+            if (providerStats.active.get() == 0 && now - providerStats.ewma.stampNanos() > idleNanos) {
+                stats.remove(provider, providerStats);
+            }
+        });
+    }
+
+    private ProviderStats stats(Object provider) {
+        ProviderStats providerStats = stats.get(provider);
+        return providerStats != null ? providerStats : stats.computeIfAbsent(provider, k -> new ProviderStats());
+    }
+
+    /**
+     * 单个提供者的统计，延迟快照整体替换，读取无锁
+     */
+    private static final class ProviderStats {
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile Ewma ewma = new Ewma(0D, System.nanoTime());
+
+        private synchronized void observe(long rttNanos, long now, long decayNanos) {
+            Ewma current = ewma;
+            double rtt = Math.max(0L, rttNanos);
+            double cost;
+            if (rtt > current.cost()) {
+                cost = rtt;
+            } else {
+                double weight = Math.exp(-Math.max(0L, now - current.stampNanos()) / (double) decayNanos);
+                cost = current.cost() * weight + rtt * (1D - weight);
+            }
+            ewma = new Ewma(cost, now);
+        }
+
+        private double cost(long now, long decayNanos) {
+            Ewma current = ewma;
+            long elapsed = now - current.stampNanos();
+            return elapsed <= 0L ? current.cost() : current.cost() * Math.exp(-elapsed / (double) decayNanos);
+        }
+    }
+
+    private record Ewma(double cost, long stampNanos) {
+    }
+}
@@ -3,6 +3,7 @@ package com.chua.starter.rpc.support.retry;
 import lombok.Data;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * RPC重试策略
@@ -36,6 +37,11 @@ public class RpcRetryPolicy {
      */
     private double multiplier = 2.0;
 
+    /**
+     * 是否在退避延迟上加随机抖动，避免大量调用方在同一时刻重试
+     */
+    private boolean jitter = true;
+
     /**
      * 是否启用重试
      */
@@ -67,6 +73,23 @@ public class RpcRetryPolicy {
         return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
     }
 
+    /**
+     * 计算带抖动的重试延迟
+     * <p>
+     * 启用抖动时在 [0, 指数退避延迟] 内均匀取值（full jitter），否则等同于 {@link #calculateDelay(int)}
+     * </p>
+     *
+     * @param retryCount 当前重试次数（从0开始）
+     * @return 延迟时间
+     */
+    public Duration nextDelay(int retryCount) {
+        Duration delay = calculateDelay(retryCount);
+        if (!jitter || delay.isZero() || delay.isNegative()) {
+            return delay;
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(delay.toMillis() + 1));
+    }
+
     /**
      * 是否应该重试
      *
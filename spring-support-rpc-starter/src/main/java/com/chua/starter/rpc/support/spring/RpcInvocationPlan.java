@@ -0,0 +1,300 @@
+package com.chua.starter.rpc.support.spring;
+
+import com.chua.common.support.network.rpc.RpcConsumerConfig;
+import com.chua.starter.rpc.support.circuitbreaker.RpcCircuitBreaker;
+import com.chua.starter.rpc.support.circuitbreaker.RpcCircuitBreakerManager;
+import com.chua.starter.rpc.support.interceptor.MetricsRpcInterceptor;
+import com.chua.starter.rpc.support.interceptor.RpcInterceptor;
+import com.chua.starter.rpc.support.loadbalance.ConsistentHashLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.LeastActiveLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.PeakEwmaLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.RandomLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.RoundRobinLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.RpcLoadBalanceContext;
+import com.chua.starter.rpc.support.loadbalance.RpcLoadBalancer;
+import com.chua.starter.rpc.support.loadbalance.RpcProviderMetrics;
+import com.chua.starter.rpc.support.retry.RpcRetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 代理级别的调用计划
+ * <p>
+ * 代理创建时一次性解析消费者配置、拦截器、熔断器管理器、负载均衡策略和提供者指标，
+ * 每个方法的服务名、熔断器和调用方式在首次调用时计算并缓存，调用路径上不再做反射读取配置和容器查找。
+ * 服务提供者列表按容器中该类型的 Bean 名称缓存（容器冻结后同一版本返回同一个缓存数组，比较时先按引用短路），
+ * 名称变化时重新查找，实例不变则沿用原列表，负载均衡策略据此判断是否重建哈希环；未找到时每次调用重新查找。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-03-20
+ */
+@Slf4j
+final class RpcInvocationPlan<T> {
+
+    /**
+     * 默认负载均衡策略
+     */
+    static final String DEFAULT_LOAD_BALANCE = "round-robin";
+
+    private static final RpcInterceptor[] NO_INTERCEPTORS = new RpcInterceptor[0];
+
+    private final Class<T> targetType;
+    private final ApplicationContext applicationContext;
+    private final RpcRetryPolicy retryPolicy;
+    private final boolean circuitBreakerEnabled;
+    private final RpcCircuitBreakerManager circuitBreakerManager;
+    private final RpcInterceptor[] interceptors;
+    private final RpcLoadBalancer loadBalancer;
+    private final RpcProviderMetrics providerMetrics;
+    private final Map<Method, MethodPlan> methods = new ConcurrentHashMap<>();
+    private volatile Providers<T> providers;
+
+    RpcInvocationPlan(Class<T> targetType, ApplicationContext applicationContext, RpcConsumerConfig consumerConfig) {
+        this.targetType = targetType;
+        this.applicationContext = applicationContext;
+        this.retryPolicy = createRetryPolicy(consumerConfig);
+        this.circuitBreakerEnabled = Boolean.TRUE.equals(readOptional(consumerConfig, Boolean.class, "getCircuitBreakerEnabled"));
+        this.circuitBreakerManager = circuitBreakerEnabled ? findBean(RpcCircuitBreakerManager.class) : null;
+        this.interceptors = findInterceptors();
+        MetricsRpcInterceptor metricsInterceptor = findBean(MetricsRpcInterceptor.class);
+        this.providerMetrics = metricsInterceptor != null ? metricsInterceptor.getProviderMetrics() : new RpcProviderMetrics();
+        String loadBalance = readOptional(consumerConfig, String.class, "getLoadbalance", "getLoadBalance");
+        this.loadBalancer = findLoadBalancer(loadBalance == null || loadBalance.isBlank() ? DEFAULT_LOAD_BALANCE : loadBalance);
+    }
+
+    RpcRetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
+    RpcInterceptor[] interceptors() {
+        return interceptors;
+    }
+
+    RpcProviderMetrics providerMetrics() {
+        return providerMetrics;
+    }
+
+    /**
+     * 方法级调用计划
+     *
+     * @param method 方法
+     * @return 调用计划
+     */
+    MethodPlan method(Method method) {
+        MethodPlan plan = methods.get(method);
+        return plan != null ? plan : methods.computeIfAbsent(method, this::createMethodPlan);
+    }
+
+    /**
+     * 选择服务提供者
+     *
+     * @param plan     方法调用计划
+     * @param args     参数
+     * @param excluded 上一次失败的提供者，可为 null
+     * @return 提供者
+     */
+    T select(MethodPlan plan, Object[] args, Object excluded) {
+        Providers<T> current = providers();
+        List<T> candidates = current.list();
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        if (excluded != null) {
+            candidates = new ArrayList<>(candidates);
+            candidates.removeIf(provider -> provider == excluded);
+            if (candidates.isEmpty()) {
+                candidates = current.list();
+            }
+        }
+        Object hashKey = args == null || args.length == 0 ? plan.serviceName() : args[0];
+        T selected = loadBalancer.select(candidates, new RpcLoadBalanceContext(
+                plan.serviceName(), plan.method(), args, hashKey, providerMetrics, excluded, current.ids()));
+        return selected != null ? selected : candidates.get(0);
+    }
+
+    private Providers<T> providers() {
+        String[] names = beanNames();
+        Providers<T> current = providers;
+        if (current != null && Arrays.equals(current.names(), names)) {
+            return current;
+        }
+        Map<String, T> beans;
+        try {
+            beans = applicationContext.getBeansOfType(targetType);
+        } catch (Exception e) {
+            log.debug("[Spring RPC] 未找到Bean: {}", targetType.getName());
+            beans = Map.of();
+        }
+        List<T> list = new ArrayList<>(beans.size());
+        Map<Object, String> ids = new IdentityHashMap<>(beans.size());
+        beans.forEach((name, bean) -> {
+            if (!isRpcProxy(bean)) {
+                list.add(bean);
+                ids.put(bean, name);
+            }
+        });
+        if (list.isEmpty()) {
+            throw new RuntimeException("未找到服务实现: " + targetType.getName());
+        }
+        current = current != null && sameProviders(current, list, ids)
+                ? new Providers<>(current.list(), current.ids(), names)
+                : new Providers<>(List.copyOf(list), ids, names);
+        providers = current;
+        return current;
+    }
+
+    /**
+     * 容器中该类型的 Bean 名称，作为提供者列表的版本
+     */
+    private String[] beanNames() {
+        try {
+            return applicationContext.getBeanNamesForType(targetType);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static <T> boolean sameProviders(Providers<T> current, List<T> list, Map<Object, String> ids) {
+        if (current.list().size() != list.size()) {
+            return false;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            T provider = list.get(i);
+            if (current.list().get(i) != provider || !ids.get(provider).equals(current.ids().get(provider))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MethodPlan createMethodPlan(Method method) {
+        String serviceName = targetType.getName() + "." + method.getName();
+        RpcCircuitBreaker circuitBreaker = circuitBreakerManager == null ? null : circuitBreakerManager.getOrCreate(serviceName);
+        Class<?> returnType = method.getReturnType();
+        // 只有声明为 CompletionStage/CompletableFuture 的方法可以由代理返回自己的 CompletableFuture
+        boolean async = CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class);
+        return new MethodPlan(method, serviceName, circuitBreaker, async);
+    }
+
+    private RpcInterceptor[] findInterceptors() {
+        try {
+            return applicationContext.getBeansOfType(RpcInterceptor.class)
+                    .values().stream()
+                    .sorted(Comparator.comparingInt(RpcInterceptor::getOrder))
+                    .toArray(RpcInterceptor[]::new);
+        } catch (Exception e) {
+            log.debug("[Spring RPC] 未找到拦截器");
+            return NO_INTERCEPTORS;
+        }
+    }
+
+    private RpcLoadBalancer findLoadBalancer(String name) {
+        try {
+            for (RpcLoadBalancer candidate : applicationContext.getBeansOfType(RpcLoadBalancer.class).values()) {
+                if (name.equalsIgnoreCase(candidate.getName())) {
+                    return candidate;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("[Spring RPC] 未找到负载均衡策略Bean: {}", name);
+        }
+        return switch (name.toLowerCase()) {
+            case "random" -> new RandomLoadBalancer();
+            case "least-active" -> new LeastActiveLoadBalancer();
+            case "peak-ewma" -> new PeakEwmaLoadBalancer();
+            case "consistent-hash" -> new ConsistentHashLoadBalancer();
+            default -> new RoundRobinLoadBalancer();
+        };
+    }
+
+    private <B> B findBean(Class<B> type) {
+        try {
+            return applicationContext.getBeanProvider(type).getIfAvailable();
+        } catch (Exception e) {
+            log.debug("[Spring RPC] 未找到{}", type.getSimpleName());
+            return null;
+        }
+    }
+
+    private static boolean isRpcProxy(Object bean) {
+        return Proxy.isProxyClass(bean.getClass()) && Proxy.getInvocationHandler(bean) instanceof SpringRpcInvocationHandler<?>;
+    }
+
+    /**
+     * 创建重试策略
+     */
+    private static RpcRetryPolicy createRetryPolicy(RpcConsumerConfig config) {
+        RpcRetryPolicy policy = new RpcRetryPolicy();
+
+        Boolean retryEnabled = readOptional(config, Boolean.class, "getRetryEnabled");
+        if (retryEnabled != null) {
+            policy.setEnabled(retryEnabled);
+        }
+
+        if (config != null && config.getRetries() != null) {
+            policy.setMaxRetries(config.getRetries());
+        }
+
+        Integer retryDelay = readOptional(config, Integer.class, "getRetryDelay");
+        if (retryDelay != null) {
+            policy.setInitialDelay(Duration.ofMillis(retryDelay));
+        }
+
+        return policy;
+    }
+
+    /**
+     * 读取不同版本 RpcConsumerConfig 中可能不存在的配置项，只在创建计划时调用
+     */
+    private static <V> V readOptional(RpcConsumerConfig config, Class<V> type, String... methodNames) {
+        if (config == null) {
+            return null;
+        }
+        for (String methodName : methodNames) {
+            try {
+                Object value = config.getClass().getMethod(methodName).invoke(config);
+                if (type.isInstance(value)) {
+                    return type.cast(value);
+                }
+            } catch (ReflectiveOperationException ignored) {
+                // 当前版本没有该配置项
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 方法级调用计划
+     *
+     * @param method         方法
+     * @param serviceName    服务名称
+     * @param circuitBreaker 熔断器，未启用时为 null
+     * @param async          是否返回 CompletionStage
+     */
+    record MethodPlan(Method method, String serviceName, RpcCircuitBreaker circuitBreaker, boolean async) {
+    }
+
+    /**
+     * 提供者列表
+     *
+     * @param list  提供者
+     * @param ids   提供者到 Bean 名称的映射
+     * @param names 构建时的 Bean 名称数组，按内容比较判断版本
+     */
+    private record Providers<T>(List<T> list, Map<Object, String> ids, String[] names) {
+    }
+}
@@ -2,21 +2,28 @@ package com.chua.starter.rpc.support.spring;
 
 import com.chua.common.support.network.rpc.RpcConsumerConfig;
 import com.chua.starter.rpc.support.circuitbreaker.RpcCircuitBreaker;
-import com.chua.starter.rpc.support.circuitbreaker.RpcCircuitBreakerManager;
 import com.chua.starter.rpc.support.interceptor.RpcInterceptor;
 import com.chua.starter.rpc.support.retry.RpcRetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationContext;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Duration;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Spring RPC调用处理器
  * <p>
- * 处理RPC调用，支持拦截器、重试、熔断等功能
+ * 处理RPC调用，支持拦截器、重试、熔断、负载均衡等功能。
+ * 配置和依赖在代理创建时由 {@link RpcInvocationPlan} 预先解析；
+ * 返回 CompletionStage 的方法在失败后按带抖动的退避延迟调度重试，不占用调用线程；
+ * 其拦截器的后置处理、异常处理和最终处理在结果完成时执行，熔断等同步抛出的异常也转为失败的结果。
  * </p>
  *
  * @author CH
@@ -25,37 +32,12 @@ import java.util.List;
 @Slf4j
 public class SpringRpcInvocationHandler<T> implements InvocationHandler {
 
-    private final Class<T> targetType;
-    private final ApplicationContext applicationContext;
-    private final RpcConsumerConfig consumerConfig;
-    private final RpcRetryPolicy retryPolicy;
-    private RpcCircuitBreakerManager circuitBreakerManager;
-    private List<RpcInterceptor> interceptors;
+    private final RpcInvocationPlan<T> plan;
 
     public SpringRpcInvocationHandler(Class<T> targetType,
                                      ApplicationContext applicationContext,
                                      RpcConsumerConfig consumerConfig) {
-        this.targetType = targetType;
-        this.applicationContext = applicationContext;
-        this.consumerConfig = consumerConfig;
-        this.retryPolicy = createRetryPolicy(consumerConfig);
-
-        // 尝试获取熔断器管理器
-        try {
-            this.circuitBreakerManager = applicationContext.getBean(RpcCircuitBreakerManager.class);
-        } catch (Exception e) {
-            log.debug("[Spring RPC] 未找到熔断器管理器");
-        }
-
-        // 获取所有拦截器
-        try {
-            this.interceptors = applicationContext.getBeansOfType(RpcInterceptor.class)
-                .values().stream()
-                .sorted((a, b) -> Integer.compare(a.getOrder(), b.getOrder()))
-                .toList();
-        } catch (Exception e) {
-            log.debug("[Spring RPC] 未找到拦截器");
-        }
+        this.plan = new RpcInvocationPlan<>(targetType, applicationContext, consumerConfig);
     }
 
     @Override
@@ -65,152 +47,217 @@ public class SpringRpcInvocationHandler<T> implements InvocationHandler {
             return method.invoke(this, args);
         }
 
-        String serviceName = targetType.getName() + "." + method.getName();
+        RpcInvocationPlan.MethodPlan methodPlan = plan.method(method);
+        RpcInterceptor[] interceptors = plan.interceptors();
 
         // 前置拦截
-        if (interceptors != null) {
-            for (RpcInterceptor interceptor : interceptors) {
-                if (!interceptor.preHandle(method, args)) {
-                    log.warn("[Spring RPC] 拦截器拒绝调用: {}", serviceName);
-                    return null;
-                }
+        for (RpcInterceptor interceptor : interceptors) {
+            if (!interceptor.preHandle(method, args)) {
+                log.warn("[Spring RPC] 拦截器拒绝调用: {}", methodPlan.serviceName());
+                return null;
             }
         }
 
-        // 熔断器检查
-        RpcCircuitBreaker circuitBreaker = null;
-        Boolean circuitBreakerEnabled = readBoolean(consumerConfig, "getCircuitBreakerEnabled");
-        if (circuitBreakerManager != null && Boolean.TRUE.equals(circuitBreakerEnabled)) {
-            circuitBreaker = circuitBreakerManager.getOrCreate(serviceName);
-            if (!circuitBreaker.tryAcquire()) {
-                throw new RuntimeException("服务熔断中: " + serviceName);
-            }
+        if (methodPlan.async()) {
+            return invokeAsync(methodPlan, args, interceptors);
         }
 
-        // 重试逻辑
-        int retryCount = 0;
-        Throwable lastException = null;
+        // 熔断器检查
+        checkCircuitBreaker(methodPlan);
 
-        while (retryCount <= retryPolicy.getMaxRetries()) {
-            try {
-                // 查找Spring Bean
-                T bean = findBean();
-                if (bean == null) {
-                    throw new RuntimeException("未找到服务实现: " + targetType.getName());
-                }
+        Object result = invokeWithRetry(methodPlan, args);
 
-                // 执行调用
-                Object result = method.invoke(bean, args);
+        // 后置处理
+        for (RpcInterceptor interceptor : interceptors) {
+            result = interceptor.postHandle(method, args, result);
+        }
 
-                // 记录成功
-                if (circuitBreaker != null) {
-                    circuitBreaker.recordSuccess();
-                }
+        // 最终处理
+        for (RpcInterceptor interceptor : interceptors) {
+            interceptor.afterCompletion(method, args);
+        }
 
-                // 后置处理
-                if (interceptors != null) {
-                    for (RpcInterceptor interceptor : interceptors) {
-                        result = interceptor.postHandle(method, args, result);
-                    }
-                }
+        return result;
+    }
 
-                // 最终处理
-                if (interceptors != null) {
-                    for (RpcInterceptor interceptor : interceptors) {
-                        interceptor.afterCompletion(method, args);
-                    }
-                }
+    /**
+     * 同步调用，调用方需要等待结果，重试前按带抖动的退避延迟等待
+     */
+    private Object invokeWithRetry(RpcInvocationPlan.MethodPlan methodPlan, Object[] args) throws Throwable {
+        RpcRetryPolicy retryPolicy = plan.retryPolicy();
+        Method method = methodPlan.method();
+        Object failedProvider = null;
+        int retryCount = 0;
 
+        while (true) {
+            T provider = plan.select(methodPlan, args, failedProvider);
+            long startNanos = plan.providerMetrics().begin(provider);
+            Throwable error;
+            try {
+                Object result = method.invoke(provider, args);
+                recordSuccess(methodPlan, provider, startNanos);
                 return result;
-
             } catch (Throwable e) {
-                lastException = e;
+                error = unwrap(e);
+            }
 
-                // 记录失败
-                if (circuitBreaker != null) {
-                    circuitBreaker.recordFailure();
-                }
+            recordFailure(methodPlan, provider, startNanos);
 
-                // 异常处理
-                if (interceptors != null) {
-                    for (RpcInterceptor interceptor : interceptors) {
-                        try {
-                            interceptor.handleException(method, args, e);
-                        } catch (Throwable ignored) {
-                            // 拦截器可能会抛出新异常
-                        }
-                    }
+            // 异常处理
+            for (RpcInterceptor interceptor : plan.interceptors()) {
+                try {
+                    interceptor.handleException(method, args, error);
+                } catch (Throwable ignored) {
+                    // 拦截器可能会抛出新异常
                 }
+            }
 
-                // 判断是否可重试
-                if (retryPolicy.isRetryableException(e) && retryPolicy.shouldRetry(retryCount)) {
-                    log.warn("[Spring RPC] 调用失败，准备重试: service={}, retryCount={}",
-                        serviceName, retryCount);
-                    Thread.sleep(retryPolicy.calculateDelay(retryCount).toMillis());
-                    retryCount++;
-                } else {
-                    throw e;
+            // 判断是否可重试
+            if (!retryPolicy.isRetryableException(error) || !retryPolicy.shouldRetry(retryCount)) {
+                throw error;
+            }
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(retryPolicy.nextDelay(retryCount).toMillis());
+            log.warn("[Spring RPC] 调用失败，准备重试: service={}, retryCount={}", methodPlan.serviceName(), retryCount);
+            long deadline = System.nanoTime() + delayNanos;
+            for (long remaining = delayNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("RPC重试等待被中断: " + methodPlan.serviceName());
                 }
             }
+            failedProvider = provider;
+            retryCount++;
         }
-
-        throw lastException != null ? lastException : new RuntimeException("调用失败");
     }
 
     /**
-     * 查找Spring Bean
+     * 异步调用，立即返回 CompletableFuture，失败后的重试由延迟执行器调度；
+     * 全部尝试结束后再依次执行拦截器的后置处理（成功）或异常处理（失败），最后执行最终处理
      */
-    private T findBean() {
+    private CompletableFuture<Object> invokeAsync(RpcInvocationPlan.MethodPlan methodPlan, Object[] args,
+                                                  RpcInterceptor[] interceptors) {
+        CompletableFuture<Object> promise = new CompletableFuture<>();
         try {
-            return applicationContext.getBean(targetType);
-        } catch (Exception e) {
-            log.debug("[Spring RPC] 未找到Bean: {}", targetType.getName());
-            return null;
+            checkCircuitBreaker(methodPlan);
+            attemptAsync(methodPlan, args, 0, null, promise);
+        } catch (Throwable e) {
+            promise.completeExceptionally(e);
         }
-    }
 
-    /**
-     * 创建重试策略
-     */
-    private RpcRetryPolicy createRetryPolicy(RpcConsumerConfig config) {
-        RpcRetryPolicy policy = new RpcRetryPolicy();
+        Method method = methodPlan.method();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        promise.whenComplete((value, e) -> {
+            Object completed = value;
+            Throwable error = e == null ? null : unwrap(e);
+            if (error == null) {
+                try {
+                    for (RpcInterceptor interceptor : interceptors) {
+                        completed = interceptor.postHandle(method, args, completed);
+                    }
+                } catch (Throwable postError) {
+                    error = postError;
+                }
+            } else {
+                for (RpcInterceptor interceptor : interceptors) {
+                    try {
+                        interceptor.handleException(method, args, error);
+                    } catch (Throwable ignored) {
+                        // 拦截器可能会抛出新异常
+                    }
+                }
+            }
+            for (RpcInterceptor interceptor : interceptors) {
+                try {
+                    interceptor.afterCompletion(method, args);
+                } catch (Throwable afterError) {
+                    log.warn("[Spring RPC] 拦截器最终处理失败: {}", methodPlan.serviceName(), afterError);
+                }
+            }
+            if (error == null) {
+                result.complete(completed);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
 
-        Boolean retryEnabled = readBoolean(config, "getRetryEnabled");
-        if (retryEnabled != null) {
-            policy.setEnabled(retryEnabled);
+    private void attemptAsync(RpcInvocationPlan.MethodPlan methodPlan, Object[] args, int retryCount,
+                              Object failedProvider, CompletableFuture<Object> promise) {
+        T provider;
+        try {
+            provider = plan.select(methodPlan, args, failedProvider);
+        } catch (Throwable e) {
+            promise.completeExceptionally(e);
+            return;
         }
 
-        if (config.getRetries() != null) {
-            policy.setMaxRetries(config.getRetries());
+        long startNanos = plan.providerMetrics().begin(provider);
+        CompletionStage<?> stage;
+        try {
+            stage = (CompletionStage<?>) methodPlan.method().invoke(provider, args);
+        } catch (Throwable e) {
+            onAsyncFailure(methodPlan, args, retryCount, provider, startNanos, unwrap(e), promise);
+            return;
         }
-
-        Integer retryDelay = readInteger(config, "getRetryDelay");
-        if (retryDelay != null) {
-            policy.setInitialDelay(Duration.ofMillis(retryDelay));
+        if (stage == null) {
+            recordSuccess(methodPlan, provider, startNanos);
+            promise.complete(null);
+            return;
         }
+        stage.whenComplete((value, e) -> {
+            if (e == null) {
+                recordSuccess(methodPlan, provider, startNanos);
+                promise.complete(value);
+            } else {
+                onAsyncFailure(methodPlan, args, retryCount, provider, startNanos, unwrap(e), promise);
+            }
+        });
+    }
 
-        return policy;
+    private void onAsyncFailure(RpcInvocationPlan.MethodPlan methodPlan, Object[] args, int retryCount, T provider,
+                                long startNanos, Throwable error, CompletableFuture<Object> promise) {
+        recordFailure(methodPlan, provider, startNanos);
+        RpcRetryPolicy retryPolicy = plan.retryPolicy();
+        if (promise.isDone() || !retryPolicy.isRetryableException(error) || !retryPolicy.shouldRetry(retryCount)) {
+            promise.completeExceptionally(error);
+            return;
+        }
+        log.warn("[Spring RPC] 调用失败，准备重试: service={}, retryCount={}", methodPlan.serviceName(), retryCount);
+        CompletableFuture.delayedExecutor(retryPolicy.nextDelay(retryCount).toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> attemptAsync(methodPlan, args, retryCount + 1, provider, promise));
     }
 
-    private Boolean readBoolean(RpcConsumerConfig config, String methodName) {
-        Object value = invokeOptionalGetter(config, methodName);
-        return value instanceof Boolean bool ? bool : null;
+    private static void checkCircuitBreaker(RpcInvocationPlan.MethodPlan methodPlan) {
+        RpcCircuitBreaker circuitBreaker = methodPlan.circuitBreaker();
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            throw new RuntimeException("服务熔断中: " + methodPlan.serviceName());
+        }
     }
 
-    private Integer readInteger(RpcConsumerConfig config, String methodName) {
-        Object value = invokeOptionalGetter(config, methodName);
-        return value instanceof Integer integer ? integer : null;
+    private void recordSuccess(RpcInvocationPlan.MethodPlan methodPlan, T provider, long startNanos) {
+        plan.providerMetrics().end(provider, startNanos, true);
+        if (methodPlan.circuitBreaker() != null) {
+            methodPlan.circuitBreaker().recordSuccess();
+        }
     }
 
-    private Object invokeOptionalGetter(RpcConsumerConfig config, String methodName) {
-        if (config == null) {
-            return null;
+    private void recordFailure(RpcInvocationPlan.MethodPlan methodPlan, T provider, long startNanos) {
+        plan.providerMetrics().end(provider, startNanos, false);
+        if (methodPlan.circuitBreaker() != null) {
+            methodPlan.circuitBreaker().recordFailure();
         }
-        try {
-            Method method = config.getClass().getMethod(methodName);
-            return method.invoke(config);
-        } catch (ReflectiveOperationException ignored) {
-            return null;
+    }
+
+    /**
+     * 取出反射调用和异步结果包装的原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof InvocationTargetException || current instanceof CompletionException
+                || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
         }
+        return current;
     }
 }
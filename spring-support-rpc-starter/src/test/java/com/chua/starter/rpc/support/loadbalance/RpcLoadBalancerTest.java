@@ -0,0 +1,138 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RpcLoadBalancerTest {
+
+    private static final List<String> PROVIDERS = List.of("p0", "p1", "p2", "p3");
+
+    @Test
+    void shouldCycleProvidersInRoundRobinOrder() {
+        RoundRobinLoadBalancer balancer = new RoundRobinLoadBalancer();
+
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            selected.add(balancer.select(PROVIDERS));
+        }
+
+        assertThat(selected).containsExactly("p0", "p1", "p2", "p3", "p0", "p1", "p2", "p3");
+    }
+
+    @Test
+    void shouldSpreadRandomSelectionEvenly() {
+        RandomLoadBalancer balancer = new RandomLoadBalancer();
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 4000; i++) {
+            counts.merge(balancer.select(PROVIDERS), 1, Integer::sum);
+        }
+
+        assertThat(counts).containsOnlyKeys(PROVIDERS);
+        counts.values().forEach(count -> assertThat(count).isBetween(800, 1200));
+    }
+
+    @Test
+    void shouldHandleEmptyAndSingleProviderLists() {
+        List<RpcLoadBalancer> balancers = List.of(new RoundRobinLoadBalancer(), new RandomLoadBalancer(),
+                new LeastActiveLoadBalancer(), new PeakEwmaLoadBalancer(), new ConsistentHashLoadBalancer());
+
+        for (RpcLoadBalancer balancer : balancers) {
+            assertThat(balancer.<String>select(List.of())).isNull();
+            assertThat(balancer.select(List.of("only"), context("key", null, new RpcProviderMetrics()))).isEqualTo("only");
+        }
+    }
+
+    @Test
+    void shouldSelectProviderWithLeastActiveRequests() {
+        RpcProviderMetrics metrics = new RpcProviderMetrics();
+        LeastActiveLoadBalancer balancer = new LeastActiveLoadBalancer();
+        long p0 = metrics.begin("p0");
+        metrics.begin("p0");
+        long p1 = metrics.begin("p1");
+        metrics.begin("p2");
+        metrics.begin("p3");
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(balancer.select(List.of("p0", "p1", "p2"), context("key", null, metrics))).isIn("p1", "p2");
+        }
+
+        metrics.end("p1", p1, true);
+        metrics.end("p0", p0, false);
+
+        assertThat(metrics.getActive("p0")).isEqualTo(1);
+        assertThat(metrics.getActive("p1")).isZero();
+        assertThat(metrics.getFailureCount("p0")).isEqualTo(1);
+        for (int i = 0; i < 50; i++) {
+            assertThat(balancer.select(PROVIDERS, context("key", null, metrics))).isEqualTo("p1");
+        }
+    }
+
+    @Test
+    void shouldPreferLowerLatencyWithPeakEwma() throws Exception {
+        RpcProviderMetrics metrics = new RpcProviderMetrics();
+        PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer();
+        long slow = metrics.begin("slow");
+        Thread.sleep(20);
+        metrics.end("slow", slow, true);
+        metrics.end("fast", metrics.begin("fast"), true);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(balancer.select(List.of("slow", "fast"), context("key", null, metrics))).isEqualTo("fast");
+        }
+    }
+
+    @Test
+    void shouldMoveOnlyKeysOwnedByAddedProvider() {
+        ConsistentHashLoadBalancer balancer = new ConsistentHashLoadBalancer();
+        List<String> grown = List.of("p0", "p1", "p2", "p3", "p4");
+        Map<Integer, String> before = new HashMap<>();
+        for (int key = 0; key < 2000; key++) {
+            before.put(key, balancer.select(PROVIDERS, context(key, null, null)));
+        }
+
+        int moved = 0;
+        for (int key = 0; key < 2000; key++) {
+            String owner = balancer.select(grown, context(key, null, null));
+            if (!owner.equals(before.get(key))) {
+                assertThat(owner).isEqualTo("p4");
+                moved++;
+            }
+        }
+        // 期望约 1/5 的键迁移到新提供者
+        assertThat(moved).isBetween(200, 700);
+
+        for (int key = 0; key < 2000; key++) {
+            assertThat(balancer.select(PROVIDERS, context(key, null, null))).isEqualTo(before.get(key));
+        }
+    }
+
+    @Test
+    void shouldSkipExcludedProviderOnRetryWithoutReplacingRing() {
+        ConsistentHashLoadBalancer balancer = new ConsistentHashLoadBalancer();
+        ConsistentHashLoadBalancer reference = new ConsistentHashLoadBalancer();
+
+        for (int key = 0; key < 200; key++) {
+            String primary = reference.select(PROVIDERS, context(key, null, null));
+            List<String> candidates = new ArrayList<>(PROVIDERS);
+            candidates.remove(primary);
+
+            // 首次调用就是重试：临时哈希环不缓存，后续正常调用不受影响
+            String retried = balancer.select(candidates, context(key, primary, null));
+
+            assertThat(retried).isNotEqualTo(primary).isIn(candidates);
+            assertThat(balancer.select(PROVIDERS, context(key, null, null))).isEqualTo(primary);
+            assertThat(balancer.select(candidates, context(key, primary, null))).isEqualTo(retried);
+        }
+    }
+
+    private static RpcLoadBalanceContext context(Object hashKey, Object excluded, RpcProviderMetrics metrics) {
+        return new RpcLoadBalanceContext("demo.Service.call", null, new Object[]{hashKey}, hashKey, metrics, excluded, null);
+    }
+}
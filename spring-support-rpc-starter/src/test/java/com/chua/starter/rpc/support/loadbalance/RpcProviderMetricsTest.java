@@ -0,0 +1,100 @@
+package com.chua.starter.rpc.support.loadbalance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RpcProviderMetricsTest {
+
+    @Test
+    void shouldTrackActiveRequestsUnderConcurrency() throws Exception {
+        RpcProviderMetrics metrics = new RpcProviderMetrics();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 64; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < 500; j++) {
+                        long startNanos = metrics.begin("p0");
+                        if (j % 100 == 0) {
+                            // 与 begin/end 交错的重置
+                            metrics.reset();
+                        }
+                        metrics.end("p0", startNanos, true);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(metrics.getActive("p0")).isZero();
+    }
+
+    @Test
+    void shouldKeepInFlightCountsOnReset() {
+        RpcProviderMetrics metrics = new RpcProviderMetrics();
+        long startNanos = metrics.begin("p0");
+        metrics.end("p1", metrics.begin("p1"), false);
+
+        metrics.reset();
+
+        assertThat(metrics.getActive("p0")).isEqualTo(1);
+        assertThat(metrics.getFailureCount("p1")).isZero();
+        assertThat(metrics.size()).isEqualTo(1);
+        metrics.end("p0", startNanos, true);
+        assertThat(metrics.getActive("p0")).isZero();
+    }
+
+    @Test
+    void shouldNeverGoNegativeWhenEndFollowsReset() {
+        RpcProviderMetrics metrics = new RpcProviderMetrics();
+        long first = metrics.begin("p0");
+        long second = metrics.begin("p0");
+        metrics.end("p0", first, true);
+        metrics.end("p0", second, true);
+
+        metrics.end("p0", System.nanoTime(), true);
+
+        assertThat(metrics.getActive("p0")).isZero();
+    }
+
+    @Test
+    void shouldPruneIdleProviders() throws Exception {
+        RpcProviderMetrics metrics = new RpcProviderMetrics(TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.end("removed", metrics.begin("removed"), true);
+        metrics.begin("busy");
+        Thread.sleep(20);
+
+        metrics.pruneIfDue(System.nanoTime());
+
+        assertThat(metrics.size()).isEqualTo(1);
+        assertThat(metrics.getActive("busy")).isEqualTo(1);
+        assertThat(metrics.getLatency("removed")).isZero();
+    }
+
+    @Test
+    void shouldDecayPeakLatency() throws Exception {
+        RpcProviderMetrics metrics = new RpcProviderMetrics(TimeUnit.MILLISECONDS.toNanos(5));
+        long startNanos = metrics.begin("p0");
+        Thread.sleep(10);
+        metrics.end("p0", startNanos, true);
+        double peak = metrics.getLatency("p0");
+
+        Thread.sleep(30);
+
+        assertThat(peak).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(metrics.getLatency("p0")).isLessThan(peak / 2);
+    }
+}
@@ -0,0 +1,98 @@
+package com.chua.starter.rpc.support.spring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RpcInvocationPlanTest {
+
+    private static final Method GREET;
+
+    static {
+        try {
+            GREET = Greeter.class.getMethod("greet", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AtomicInteger failedCalls = new AtomicInteger();
+    private GenericApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new GenericApplicationContext();
+        context.registerBean("a", Greeter.class, () -> name -> {
+            failedCalls.incrementAndGet();
+            throw new IOException("connection reset");
+        });
+        context.registerBean("b", Greeter.class, () -> name -> "b:" + name);
+        context.registerBean("c", Greeter.class, () -> name -> "c:" + name);
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void shouldNotSelectExcludedProvider() {
+        RpcInvocationPlan<Greeter> plan = new RpcInvocationPlan<>(Greeter.class, context, null);
+        RpcInvocationPlan.MethodPlan methodPlan = plan.method(GREET);
+        Greeter failed = context.getBean("b", Greeter.class);
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(plan.select(methodPlan, new Object[]{"x"}, failed)).isNotSameAs(failed);
+        }
+    }
+
+    @Test
+    void shouldRetryOnAnotherProvider() throws Exception {
+        Greeter greeter = proxy();
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(greeter.greet("x")).isIn("b:x", "c:x");
+        }
+        // 轮询会选到失败的提供者，但重试不会再次选中它
+        assertThat(failedCalls.get()).isBetween(1, 9);
+    }
+
+    @Test
+    void shouldPickUpProvidersRegisteredAfterRefresh() {
+        RpcInvocationPlan<Greeter> plan = new RpcInvocationPlan<>(Greeter.class, context, null);
+        RpcInvocationPlan.MethodPlan methodPlan = plan.method(GREET);
+        for (int i = 0; i < 3; i++) {
+            plan.select(methodPlan, new Object[]{"x"}, null);
+        }
+
+        context.registerBean("d", Greeter.class, () -> name -> "d:" + name);
+        Greeter added = context.getBean("d", Greeter.class);
+
+        Set<Greeter> selected = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            selected.add(plan.select(methodPlan, new Object[]{"x"}, null));
+        }
+        assertThat(selected).hasSize(4).contains(added);
+    }
+
+    private Greeter proxy() {
+        return (Greeter) Proxy.newProxyInstance(Greeter.class.getClassLoader(), new Class<?>[]{Greeter.class},
+                new SpringRpcInvocationHandler<>(Greeter.class, context, null));
+    }
+
+    interface Greeter {
+
+        String greet(String name) throws IOException;
+    }
+}
@@ -42,6 +42,12 @@ public class ServerManagementProperties {
         private double ioDangerBytesPerSecond = 120 * 1024 * 1024D;
         private int latencyWarningMs = 120;
         private int latencyDangerMs = 300;
+        private int collectParallelism = 32;
+        private long hostTimeoutMs = 15000L;
+        private int sshPoolMaxPerHost = 2;
+        private long sshIdleTimeoutMs = 300000L;
+        private long sshValidateIntervalMs = 30000L;
+        private int historyBatchSize = 500;
     }
 
     @Data
@@ -40,21 +40,29 @@ import java.net.InetAddress;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -104,6 +112,13 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
                     + "read_bytes=$((read_bytes + (${read_sectors:-0} * 512))); "
                     + "write_bytes=$((write_bytes + (${write_sectors:-0} * 512))); "
                     + "done; printf '%s,%s' \"$read_bytes\" \"$write_bytes\"";
+    private static final String LINUX_METRICS_PROBE_COMMAND =
+            "printf 'cpuCores=%s\\n' \"$(getconf _NPROCESSORS_ONLN 2>/dev/null || echo 0)\";"
+                    + "printf 'cpu=%s\\n' \"$(awk '/^cpu / {print $2+$3+$4+$5+$6+$7+$8+$9\",\"$5; exit}' /proc/stat 2>/dev/null)\";"
+                    + "printf 'memory=%s\\n' \"$(free -b 2>/dev/null | awk '/Mem:/ {print $2\",\"$3}')\";"
+                    + "printf 'disk=%s\\n' \"$(df -B1 -x tmpfs -x devtmpfs --total 2>/dev/null | awk 'END {print $2\",\"$3}')\";"
+                    + "printf 'diskIo=%s\\n' \"$(" + LINUX_DISK_IO_COUNTER_COMMAND + ")\";"
+                    + "printf 'network=%s\\n' \"$(" + LINUX_NETWORK_COUNTER_COMMAND + ")\"";
     private static final String WINDOWS_DISK_IO_COUNTER_COMMAND =
             "$read=0;$write=0;"
                     + "try{$samples=Get-Counter '\\\\PhysicalDisk(_Total)\\\\Disk Read Bytes/sec','\\\\PhysicalDisk(_Total)\\\\Disk Write Bytes/sec' -ErrorAction SilentlyContinue;"
@@ -185,12 +200,18 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
     private final ObjectProvider<JobDynamicConfigService> jobDynamicConfigServiceProvider;
     private final ObjectProvider<JobProperties> jobPropertiesProvider;
     private final ObjectMapper objectMapper;
+    private final ServerSshSessionPool sshSessionPool;
 
     private final ServerMetricsCollectorManager metricsCollectorManager = new ServerMetricsCollectorManager();
     private final Map<Integer, ServerMetricsSnapshot> snapshotCache = new ConcurrentHashMap<>();
     private final Map<Integer, Deque<ServerMetricsSnapshot>> historyCache = new ConcurrentHashMap<>();
     private final Map<Integer, NetworkCounterState> networkCounterCache = new ConcurrentHashMap<>();
     private final Map<Integer, DiskCounterState> diskCounterCache = new ConcurrentHashMap<>();
+    private final Map<Integer, CpuCounterState> cpuCounterCache = new ConcurrentHashMap<>();
+    private final ExecutorService collectExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("server-metrics-collector-", 0).factory());
+    private final ScheduledExecutorService collectWatchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("server-metrics-watchdog").daemon(true).factory());
 
     private volatile boolean redisCacheLoaded;
     private volatile long lastRefreshAt;
@@ -207,6 +228,15 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
         }
     }
 
+    /**
+     * 停止采集线程，未完成的主机采集随之中断。
+     */
+    @PreDestroy
+    void shutdownCollectors() {
+        collectWatchdog.shutdownNow();
+        collectExecutor.shutdownNow();
+    }
+
     /**
      * 读取单个服务器当前缓存的最新指标快照。
      */
@@ -272,29 +302,88 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
 
     /**
      * 按主机级开关与采样间隔采集指标；手工刷新时可强制跳过频率限制。
+     *
+     * <p>主机并行采集，并发数受 {@code collectParallelism} 限制；单台主机超过 {@code hostTimeoutMs}
+     * 仍未返回时记为超时并中断，不拖慢整轮采集。缓存、告警与推送按主机顺序在当前线程完成，
+     * 历史与 Redis 快照在本轮结束后批量写入。
      */
     private List<ServerMetricsSnapshot> collectMetrics(boolean forceAll) {
-        List<ServerMetricsSnapshot> snapshots = new ArrayList<>();
         long now = System.currentTimeMillis();
+        List<ServerHost> hosts = new ArrayList<>();
+        Set<SshSessionKey> activeSessionKeys = new HashSet<>();
         for (ServerHost host : serverHostService.listHosts(null, null, null)) {
-            if (!forceAll && !shouldCollectHost(host, now)) {
-                continue;
+            activeSessionKeys.add(sshSessionKey(host));
+            if (forceAll || shouldCollectHost(host, now)) {
+                hosts.add(host);
             }
-            ServerMetricsSnapshot snapshot = collectSnapshot(host);
+        }
+        // 已删除或连接参数变化的主机不再占用会话
+        sshSessionPool.retainKeys(activeSessionKeys);
+
+        ServerManagementProperties.Metrics metrics = properties.getMetrics();
+        Semaphore permits = new Semaphore(Math.max(1, metrics.getCollectParallelism()));
+        List<CompletableFuture<ServerMetricsSnapshot>> futures = new ArrayList<>(hosts.size());
+        for (ServerHost host : hosts) {
+            futures.add(collectSnapshotAsync(host, permits, Math.max(1000L, metrics.getHostTimeoutMs())));
+        }
+
+        List<ServerMetricsSnapshot> snapshots = new ArrayList<>(hosts.size());
+        List<ServerMetricsSnapshot> historyBatch = new ArrayList<>(hosts.size());
+        for (int index = 0; index < hosts.size(); index++) {
+            ServerHost host = hosts.get(index);
+            ServerMetricsSnapshot snapshot = futures.get(index).join();
             if (host.getServerId() != null) {
                 snapshotCache.put(host.getServerId(), snapshot);
-                recordHistory(snapshot);
+                if (!ServerHostMetadataSupport.isPrometheusMetrics(host) && recordHistory(snapshot)) {
+                    historyBatch.add(snapshot);
+                }
             }
             snapshots.add(snapshot);
-            cacheSnapshot(snapshot);
             serverAlertService.processSnapshot(snapshot);
             publishSnapshot(snapshot);
         }
+        cacheSnapshots(snapshots);
+        persistHistory(historyBatch);
         lastRefreshAt = now;
         nextRefreshAt = lastRefreshAt + computeDriverRefreshIntervalMs();
         return snapshots;
     }
 
+    /**
+     * 在采集线程中采集单台主机，超时从拿到并发许可后开始计算。
+     */
+    private CompletableFuture<ServerMetricsSnapshot> collectSnapshotAsync(ServerHost host, Semaphore permits, long timeoutMs) {
+        CompletableFuture<ServerMetricsSnapshot> future = new CompletableFuture<>();
+        try {
+            collectExecutor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.complete(buildFailedSnapshot(host, "指标采集已取消"));
+                    return;
+                }
+                Thread worker = Thread.currentThread();
+                ScheduledFuture<?> timeout = collectWatchdog.schedule(() -> {
+                    if (future.complete(buildFailedSnapshot(host, "指标采集超时(" + timeoutMs + "ms)"))) {
+                        worker.interrupt();
+                    }
+                }, timeoutMs, TimeUnit.MILLISECONDS);
+                try {
+                    future.complete(collectSnapshot(host));
+                } catch (Throwable e) {
+                    future.complete(buildFailedSnapshot(host, e.getMessage()));
+                } finally {
+                    timeout.cancel(false);
+                    permits.release();
+                }
+            });
+        } catch (Exception e) {
+            future.complete(buildFailedSnapshot(host, e.getMessage()));
+        }
+        return future;
+    }
+
     /**
      * 查询指定服务器的指标历史，优先走持久化表，缓存只作为兜底。
      */
@@ -836,17 +925,24 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
         try {
             return metricsCollectorManager.collectSnapshot(new ServerMetricsSpiContext(host, null, this));
         } catch (Exception e) {
-            return ServerMetricsSnapshot.builder()
-                    .serverId(host.getServerId())
-                    .serverCode(host.getServerCode())
-                    .status("OFFLINE")
-                    .online(Boolean.FALSE)
-                    .collectTimestamp(System.currentTimeMillis())
-                    .detailMessage(e.getMessage())
-                    .build();
+            return buildFailedSnapshot(host, e.getMessage());
         }
     }
 
+    /**
+     * 采集失败或超时的离线快照。
+     */
+    private ServerMetricsSnapshot buildFailedSnapshot(ServerHost host, String message) {
+        return ServerMetricsSnapshot.builder()
+                .serverId(host.getServerId())
+                .serverCode(host.getServerCode())
+                .status("OFFLINE")
+                .online(Boolean.FALSE)
+                .collectTimestamp(System.currentTimeMillis())
+                .detailMessage(message)
+                .build();
+    }
+
     /**
      * 使用本机 Oshi 与 JDK 指标采集当前节点状态。
      */
@@ -889,61 +985,67 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
     }
 
     /**
-     * 通过 SSH 执行 Linux 命令采集远程主机指标。
+     * 通过 SSH 执行 Linux 探测脚本采集远程主机指标，会话从池中复用，一次往返取回全部指标。
      */
     private ServerMetricsSnapshot collectViaSsh(ServerHost host) throws Exception {
-        LinuxExecClient client = new LinuxExecClient(toClientSetting(host, 22));
-        try {
-            client.connect();
+        int timeoutMs = properties.getMetrics().getTimeoutMs();
+        long[] latency = new long[1];
+        String output = sshSessionPool.execute(sshSessionKey(host), () -> new LinuxExecClient(toClientSetting(host, 22)), client -> {
             long start = System.nanoTime();
-            client.executeCommand("printf metrics", properties.getMetrics().getTimeoutMs());
-            int latency = (int) ((System.nanoTime() - start) / 1_000_000L);
-            int cpuCores = parseInteger(client.executeCommand(
-                    "getconf _NPROCESSORS_ONLN",
-                    properties.getMetrics().getTimeoutMs()).getOutput());
-            double cpuUsage = parseDouble(client.executeCommand(
-                    "vmstat 1 2 | tail -1 | awk '{print 100-$15}'",
-                    properties.getMetrics().getTimeoutMs()).getOutput());
-            UsageStats memoryStats = parseUsageStats(client.executeCommand(
-                    "free -b | awk '/Mem:/ {print $2\",\"$3}'",
-                    properties.getMetrics().getTimeoutMs()).getOutput());
-            UsageStats diskStats = parseUsageStats(client.executeCommand(
-                    "df -B1 -x tmpfs -x devtmpfs --total | awk 'END {print $2\",\"$3}'",
-                    properties.getMetrics().getTimeoutMs()).getOutput());
-            DiskIoStats diskIoStats = resolveLinuxDiskIoStats(
-                    host.getServerId(),
-                    client.executeCommand(
-                            LINUX_DISK_IO_COUNTER_COMMAND,
-                            properties.getMetrics().getTimeoutMs()).getOutput());
-            NetworkStats networkStats = resolveLinuxNetworkStats(
-                    host.getServerId(),
-                    client.executeCommand(LINUX_NETWORK_COUNTER_COMMAND, properties.getMetrics().getTimeoutMs()).getOutput());
-            return ServerMetricsSnapshot.builder()
-                    .serverId(host.getServerId())
-                    .serverCode(host.getServerCode())
-                    .status("ONLINE")
-                    .online(Boolean.TRUE)
-                    .latencyMs(latency)
-                    .cpuUsage(round(cpuUsage))
-                    .cpuCores(cpuCores)
-                    .memoryUsage(round(memoryStats.usagePercent()))
-                    .memoryTotalBytes(memoryStats.totalBytes())
-                    .memoryUsedBytes(memoryStats.usedBytes())
-                    .diskUsage(round(diskStats.usagePercent()))
-                    .diskTotalBytes(diskStats.totalBytes())
-                    .diskUsedBytes(diskStats.usedBytes())
-                    .diskReadBytesPerSecond(round(diskIoStats.readBytesPerSecond()))
-                    .diskWriteBytesPerSecond(round(diskIoStats.writeBytesPerSecond()))
-                    .ioReadBytesPerSecond(round(networkStats.readBytesPerSecond()))
-                    .ioWriteBytesPerSecond(round(networkStats.writeBytesPerSecond()))
-                    .networkRxPacketsPerSecond(round(networkStats.readPacketsPerSecond()))
-                    .networkTxPacketsPerSecond(round(networkStats.writePacketsPerSecond()))
-                    .collectTimestamp(System.currentTimeMillis())
-                    .detailMessage("SSH 状态已更新")
-                    .build();
-        } finally {
-            client.closeQuietly();
+            String result = client.executeCommand(LINUX_METRICS_PROBE_COMMAND, timeoutMs).getOutput();
+            latency[0] = (System.nanoTime() - start) / 1_000_000L;
+            return result;
+        });
+        Map<String, String> values = parseKeyValues(output);
+        int cpuCores = parseInteger(values.get("cpuCores"));
+        double cpuUsage = resolveLinuxCpuUsage(host.getServerId(), values.get("cpu"));
+        UsageStats memoryStats = parseUsageStats(values.get("memory"));
+        UsageStats diskStats = parseUsageStats(values.get("disk"));
+        DiskIoStats diskIoStats = resolveLinuxDiskIoStats(host.getServerId(), values.get("diskIo"));
+        NetworkStats networkStats = resolveLinuxNetworkStats(host.getServerId(), values.get("network"));
+        return ServerMetricsSnapshot.builder()
+                .serverId(host.getServerId())
+                .serverCode(host.getServerCode())
+                .status("ONLINE")
+                .online(Boolean.TRUE)
+                .latencyMs((int) latency[0])
+                .cpuUsage(round(cpuUsage))
+                .cpuCores(cpuCores)
+                .memoryUsage(round(memoryStats.usagePercent()))
+                .memoryTotalBytes(memoryStats.totalBytes())
+                .memoryUsedBytes(memoryStats.usedBytes())
+                .diskUsage(round(diskStats.usagePercent()))
+                .diskTotalBytes(diskStats.totalBytes())
+                .diskUsedBytes(diskStats.usedBytes())
+                .diskReadBytesPerSecond(round(diskIoStats.readBytesPerSecond()))
+                .diskWriteBytesPerSecond(round(diskIoStats.writeBytesPerSecond()))
+                .ioReadBytesPerSecond(round(networkStats.readBytesPerSecond()))
+                .ioWriteBytesPerSecond(round(networkStats.writeBytesPerSecond()))
+                .networkRxPacketsPerSecond(round(networkStats.readPacketsPerSecond()))
+                .networkTxPacketsPerSecond(round(networkStats.writePacketsPerSecond()))
+                .collectTimestamp(System.currentTimeMillis())
+                .detailMessage("SSH 状态已更新")
+                .build();
+    }
+
+    /**
+     * 根据 /proc/stat 的累计 total,idle 计算 CPU 使用率；首次采样没有上一次的值，按开机以来的平均值估算。
+     */
+    double resolveLinuxCpuUsage(Integer serverId, String output) {
+        String[] parts = StringUtils.hasText(output) ? output.trim().split(",") : new String[0];
+        long total = parts.length > 0 ? parseLong(parts[0]) : 0L;
+        long idle = parts.length > 1 ? parseLong(parts[1]) : 0L;
+        if (total <= 0L) {
+            return 0D;
+        }
+        CpuCounterState previous = serverId == null ? null : cpuCounterCache.put(serverId, new CpuCounterState(total, idle));
+        long totalDelta = previous == null ? total : total - previous.total();
+        long idleDelta = previous == null ? idle : idle - previous.idle();
+        if (totalDelta <= 0L) {
+            totalDelta = total;
+            idleDelta = idle;
         }
+        return Math.min(100D, Math.max(0D, (totalDelta - idleDelta) * 100D / totalDelta));
     }
 
     /**
@@ -1187,7 +1289,16 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
      * 把最新快照回写到 Redis，供页面刷新和重启恢复复用。
      */
     private void cacheSnapshot(ServerMetricsSnapshot snapshot) {
-        if (snapshot == null || snapshot.getServerId() == null || !properties.getMetrics().isCacheEnabled()) {
+        if (snapshot != null) {
+            cacheSnapshots(List.of(snapshot));
+        }
+    }
+
+    /**
+     * 把最新快照批量回写到 Redis，供页面刷新和重启恢复复用。
+     */
+    private void cacheSnapshots(List<ServerMetricsSnapshot> snapshots) {
+        if (snapshots.isEmpty() || !properties.getMetrics().isCacheEnabled()) {
             return;
         }
         StringRedisTemplate redisTemplate = stringRedisTemplateProvider.getIfAvailable();
@@ -1195,10 +1306,16 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
             return;
         }
         try {
-            redisTemplate.opsForHash().put(
-                    SNAPSHOT_CACHE_KEY,
-                    String.valueOf(snapshot.getServerId()),
-                    objectMapper.writeValueAsString(snapshot));
+            Map<String, String> entries = new LinkedHashMap<>();
+            for (ServerMetricsSnapshot snapshot : snapshots) {
+                if (snapshot != null && snapshot.getServerId() != null) {
+                    entries.put(String.valueOf(snapshot.getServerId()), objectMapper.writeValueAsString(snapshot));
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+            redisTemplate.opsForHash().putAll(SNAPSHOT_CACHE_KEY, entries);
             long ttl = Math.max(0L, properties.getMetrics().getCacheTtlSeconds());
             if (ttl > 0L) {
                 redisTemplate.expire(SNAPSHOT_CACHE_KEY, Duration.ofSeconds(ttl));
@@ -1209,14 +1326,13 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
     }
 
     /**
-     * 在内存中追加历史点位，并异步持久化到历史表。
+     * 在内存中追加历史点位，持久化由调用方批量完成。
+     *
+     * @return 是否追加成功
      */
-    private void recordHistory(ServerMetricsSnapshot snapshot) {
+    private boolean recordHistory(ServerMetricsSnapshot snapshot) {
         if (snapshot == null || snapshot.getServerId() == null) {
-            return;
-        }
-        if (!shouldPersistHistory(snapshot.getServerId())) {
-            return;
+            return false;
         }
         Deque<ServerMetricsSnapshot> history = historyCache.computeIfAbsent(
                 snapshot.getServerId(),
@@ -1225,21 +1341,18 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
         while (history.size() > MAX_HISTORY_POINTS) {
             history.pollFirst();
         }
-        persistHistory(snapshot);
+        return true;
     }
 
     /**
-     * 异步落库存档历史指标，避免阻塞实时采集线程。
+     * 按批次落库存档本轮采集的历史指标。
      */
-    @Async
-    protected void persistHistory(ServerMetricsSnapshot snapshot) {
-        if (snapshot == null || snapshot.getServerId() == null) {
-            return;
-        }
-        if (!shouldPersistHistory(snapshot.getServerId())) {
+    protected void persistHistory(List<ServerMetricsSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
             return;
         }
-        try {
+        List<ServerMetricsHistory> entities = new ArrayList<>(snapshots.size());
+        for (ServerMetricsSnapshot snapshot : snapshots) {
             ServerMetricsHistory entity = new ServerMetricsHistory();
             entity.setServerId(snapshot.getServerId());
             entity.setServerCode(snapshot.getServerCode());
@@ -1262,21 +1375,14 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
             entity.setNetworkTxPacketsPerSecond(snapshot.getNetworkTxPacketsPerSecond());
             entity.setCollectTimestamp(snapshot.getCollectTimestamp());
             entity.setDetailMessage(snapshot.getDetailMessage());
-            serverMetricsHistoryMapper.insert(entity);
-        } catch (Exception ignored) {
-            // ignore history persistence failures to avoid blocking realtime collection
+            entities.add(entity);
         }
-    }
-
-    /**
-     * Prometheus 模式直接走远端时序库，不再把指标重复写入本地历史表。
-     */
-    private boolean shouldPersistHistory(Integer serverId) {
-        if (serverId == null) {
-            return false;
+        try {
+            serverMetricsHistoryMapper.insert(entities, Math.max(1, properties.getMetrics().getHistoryBatchSize()));
+        } catch (Exception e) {
+            // ignore history persistence failures to avoid blocking realtime collection
+            log.debug("批量写入服务器指标历史失败: {}", e.getMessage());
         }
-        ServerHost host = serverHostService.getHost(serverId);
-        return !ServerHostMetadataSupport.isPrometheusMetrics(host);
     }
 
     /**
@@ -1660,17 +1766,27 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
      * 执行 SSH 文本命令，异常时返回空串避免影响详情弹框展示。
      */
     private String executeSshCommand(ServerHost host, String command) {
-        LinuxExecClient client = new LinuxExecClient(toClientSetting(host, 22));
         try {
-            client.connect();
-            return client.executeCommand(command, properties.getMetrics().getTimeoutMs()).getOutput();
+            return sshSessionPool.execute(
+                    sshSessionKey(host),
+                    () -> new LinuxExecClient(toClientSetting(host, 22)),
+                    client -> client.executeCommand(command, properties.getMetrics().getTimeoutMs()).getOutput());
         } catch (Exception ignored) {
             return "";
-        } finally {
-            client.closeQuietly();
         }
     }
 
+    /**
+     * SSH 会话池的连接键，连接地址或凭据变化后使用新的会话。
+     */
+    private SshSessionKey sshSessionKey(ServerHost host) {
+        return new SshSessionKey(
+                "LOCAL".equalsIgnoreCase(host.getServerType()) ? "127.0.0.1" : host.getHost(),
+                host.getPort() == null ? 22 : host.getPort(),
+                host.getUsername(),
+                host.getPassword());
+    }
+
     /**
      * 执行 WinRM PowerShell 命令并返回标准输出文本。
      */
@@ -1788,7 +1904,7 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
     /**
      * 解析多行 key=value 文本输出。
      */
-    private Map<String, String> parseKeyValues(String text) {
+    static Map<String, String> parseKeyValues(String text) {
         Map<String, String> result = new LinkedHashMap<>();
         if (!StringUtils.hasText(text)) {
             return result;
@@ -2057,6 +2173,12 @@ public class ServerMetricsServiceImpl implements ServerMetricsService, ServerMet
         }
     }
 
+    private record CpuCounterState(long total, long idle) {
+    }
+
+    private record SshSessionKey(String host, Integer port, String username, String password) {
+    }
+
     private record DiskCounterState(
             long timestampMillis,
             long readBytes,
@@ -0,0 +1,239 @@
+package com.chua.starter.server.support.service.impl;
+
+import com.chua.ssh.support.client.LinuxExecClient;
+import com.chua.starter.server.support.config.ServerManagementProperties;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按主机复用的 SSH 会话池。
+ *
+ * <p>指标采集每轮都会连接同一批主机，复用会话可以省掉每次的 TCP 与 SSH 握手。
+ * 每个连接键最多保留 {@code sshPoolMaxPerHost} 个会话，超出时临时建立一次性会话；
+ * 会话空闲超过校验间隔后，借出前先执行一次轻量命令确认可用，空闲超过回收时间的由后台线程关闭。
+ * 回调抛出异常时会话直接关闭，不再放回池中。
+ *
+ * <p>主机删除或连接参数、凭据变化后，旧连接键不再被使用：采集时通过 {@link #retainKeys(Collection)}
+ * 移除不在当前主机列表中的连接键并关闭其会话，后台回收时也会移除已没有任何会话的连接键。
+ */
+@Slf4j
+@Component
+public class ServerSshSessionPool implements DisposableBean {
+
+    private static final String VALIDATE_COMMAND = "printf ok";
+
+    private final ServerManagementProperties properties;
+    private final Map<Object, HostSessions> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ServerSshSessionPool(ServerManagementProperties properties) {
+        this.properties = properties;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("server-ssh-pool-evictor").daemon(true).factory());
+        long sweepIntervalMs = Math.max(1000L, properties.getMetrics().getSshIdleTimeoutMs() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 借出会话执行回调，结束后归还。
+     *
+     * @param key      连接键，连接参数或凭据不同的主机必须使用不同的键
+     * @param factory  会话不足时创建未连接的客户端
+     * @param callback 使用会话的回调
+     */
+    public <R> R execute(Object key, Supplier<LinuxExecClient> factory, SessionCallback<R> callback) throws Exception {
+        PooledSession session = borrow(key, factory);
+        boolean healthy = false;
+        try {
+            R result = callback.doWithClient(session.client);
+            healthy = true;
+            return result;
+        } finally {
+            release(session, healthy);
+        }
+    }
+
+    /**
+     * 当前保留的会话数量（含借出中的会话）。
+     */
+    public int getSessionCount() {
+        int count = 0;
+        for (HostSessions hostSessions : sessions.values()) {
+            count += hostSessions.total.get();
+        }
+        return count;
+    }
+
+    /**
+     * 只保留给定的连接键，其余连接键的空闲会话立即关闭，借出中的会话归还时关闭。
+     *
+     * @param activeKeys 当前仍在使用的连接键
+     */
+    public void retainKeys(Collection<?> activeKeys) {
+        Set<?> retained = activeKeys instanceof Set<?> set ? set : new HashSet<>(activeKeys);
+        for (Map.Entry<Object, HostSessions> entry : sessions.entrySet()) {
+            if (!retained.contains(entry.getKey())) {
+                retire(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        evictor.shutdownNow();
+        for (HostSessions hostSessions : sessions.values()) {
+            PooledSession session;
+            while ((session = hostSessions.idle.pollFirst()) != null) {
+                discard(session);
+            }
+        }
+    }
+
+    private PooledSession borrow(Object key, Supplier<LinuxExecClient> factory) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("SSH 会话池已关闭");
+        }
+        ServerManagementProperties.Metrics metrics = properties.getMetrics();
+        HostSessions hostSessions = sessions.computeIfAbsent(key, k -> new HostSessions());
+        PooledSession session;
+        while ((session = hostSessions.idle.pollFirst()) != null) {
+            long idleMs = System.currentTimeMillis() - session.lastUsedAt;
+            if (idleMs > metrics.getSshIdleTimeoutMs()) {
+                discard(session);
+                continue;
+            }
+            if (idleMs > metrics.getSshValidateIntervalMs() && !validate(session, metrics.getTimeoutMs())) {
+                discard(session);
+                continue;
+            }
+            return session;
+        }
+
+        boolean pooled = hostSessions.total.incrementAndGet() <= Math.max(1, metrics.getSshPoolMaxPerHost());
+        if (!pooled) {
+            hostSessions.total.decrementAndGet();
+        }
+        LinuxExecClient client = factory.get();
+        try {
+            client.connect();
+        } catch (Exception e) {
+            client.closeQuietly();
+            if (pooled) {
+                hostSessions.total.decrementAndGet();
+            }
+            throw e;
+        }
+        return new PooledSession(hostSessions, client, pooled);
+    }
+
+    private void release(PooledSession session, boolean healthy) {
+        if (!session.pooled || !healthy || closed || session.owner.retired) {
+            discard(session);
+            return;
+        }
+        session.lastUsedAt = System.currentTimeMillis();
+        // 后进先出，空闲较久的会话留在队尾等待回收
+        session.owner.idle.offerFirst(session);
+        if (session.owner.retired && session.owner.idle.removeFirstOccurrence(session)) {
+            // 归还期间连接键被移除
+            discard(session);
+        }
+    }
+
+    private boolean validate(PooledSession session, int timeoutMs) {
+        try {
+            session.client.executeCommand(VALIDATE_COMMAND, timeoutMs);
+            return true;
+        } catch (Exception e) {
+            log.debug("SSH 会话校验失败，重新建立连接: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - properties.getMetrics().getSshIdleTimeoutMs();
+        try {
+            for (Map.Entry<Object, HostSessions> entry : sessions.entrySet()) {
+                HostSessions hostSessions = entry.getValue();
+                for (PooledSession session : hostSessions.idle) {
+                    if (session.lastUsedAt < deadline && hostSessions.idle.removeFirstOccurrence(session)) {
+                        discard(session);
+                    }
+                }
+                if (hostSessions.total.get() == 0 && hostSessions.idle.isEmpty()) {
+                    retire(entry.getKey(), hostSessions);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("回收空闲 SSH 会话失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 移除连接键并关闭其空闲会话；此后借出中的会话归还时直接关闭，新的借用会建立新的连接键条目。
+     */
+    private void retire(Object key, HostSessions hostSessions) {
+        if (!sessions.remove(key, hostSessions)) {
+            return;
+        }
+        hostSessions.retired = true;
+        PooledSession session;
+        while ((session = hostSessions.idle.pollFirst()) != null) {
+            discard(session);
+        }
+    }
+
+    private void discard(PooledSession session) {
+        if (session.pooled) {
+            session.owner.total.decrementAndGet();
+        }
+        session.client.closeQuietly();
+    }
+
+    /**
+     * 使用会话的回调。
+     */
+    @FunctionalInterface
+    public interface SessionCallback<R> {
+
+        R doWithClient(LinuxExecClient client) throws Exception;
+    }
+
+    /**
+     * 单个连接键下的会话，{@code total} 统计空闲与借出中的池内会话。
+     */
+    private static final class HostSessions {
+
+        private final ConcurrentLinkedDeque<PooledSession> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger total = new AtomicInteger();
+        private volatile boolean retired;
+    }
+
+    private static final class PooledSession {
+
+        private final HostSessions owner;
+        private final LinuxExecClient client;
+        private final boolean pooled;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private PooledSession(HostSessions owner, LinuxExecClient client, boolean pooled) {
+            this.owner = owner;
+            this.client = client;
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.chua.starter.server.support.service.impl;
+
+import com.chua.starter.server.support.config.ServerManagementProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ServerMetricsServiceImplTest {
+
+    private final ServerMetricsServiceImpl service = new ServerMetricsServiceImpl(
+            null, new ServerManagementProperties(), null, null, null, null, null, null, null, null);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownCollectors();
+    }
+
+    @Test
+    void shouldParseProbeOutput() {
+        Map<String, String> values = ServerMetricsServiceImpl.parseKeyValues(
+                "cpuCores=4\r\ncpu= 1000,800 \nnoise\n=ignored\nmemory=8589934592,4294967296\nlabel=a=b\n");
+
+        assertThat(values).containsExactly(
+                Map.entry("cpuCores", "4"),
+                Map.entry("cpu", "1000,800"),
+                Map.entry("memory", "8589934592,4294967296"),
+                Map.entry("label", "a=b"));
+        assertThat(ServerMetricsServiceImpl.parseKeyValues(null)).isEmpty();
+        assertThat(ServerMetricsServiceImpl.parseKeyValues("  ")).isEmpty();
+    }
+
+    @Test
+    void shouldComputeCpuUsageFromCounterDeltas() {
+        // 首次采样按开机以来的平均值估算
+        assertThat(service.resolveLinuxCpuUsage(1, "1000,800")).isCloseTo(20D, within(0.001));
+        assertThat(service.resolveLinuxCpuUsage(1, "1100,850")).isCloseTo(50D, within(0.001));
+        // 计数器回绕或主机重启后回落到累计值
+        assertThat(service.resolveLinuxCpuUsage(1, "500,400")).isCloseTo(20D, within(0.001));
+        // 各主机的计数器互不影响
+        assertThat(service.resolveLinuxCpuUsage(2, "200,50")).isCloseTo(75D, within(0.001));
+    }
+
+    @Test
+    void shouldTreatMalformedCpuCountersAsIdle() {
+        assertThat(service.resolveLinuxCpuUsage(1, null)).isZero();
+        assertThat(service.resolveLinuxCpuUsage(1, "")).isZero();
+        assertThat(service.resolveLinuxCpuUsage(1, "abc,def")).isZero();
+        assertThat(service.resolveLinuxCpuUsage(null, "1000,250")).isCloseTo(75D, within(0.001));
+    }
+}
@@ -0,0 +1,240 @@
+package com.chua.starter.server.support.service.impl;
+
+import com.chua.common.support.network.protocol.ClientSetting;
+import com.chua.ssh.support.client.LinuxExecClient;
+import com.chua.starter.server.support.config.ServerManagementProperties;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServerSshSessionPoolTest {
+
+    private static final String PASSWORD = "secret";
+
+    private final AtomicInteger authentications = new AtomicInteger();
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blocker = new CountDownLatch(1);
+
+    private SshServer server;
+    private ServerSshSessionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = SshServer.setUpDefaultServer();
+        server.setHost("127.0.0.1");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((username, password, session) -> {
+            authentications.incrementAndGet();
+            return PASSWORD.equals(password);
+        });
+        server.setCommandFactory((channel, command) -> new ScriptedCommand(command));
+        server.start();
+        pool = new ServerSshSessionPool(new ServerManagementProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        blocker.countDown();
+        pool.destroy();
+        server.stop(true);
+    }
+
+    @Test
+    void shouldReuseSessionForSameKey() throws Exception {
+        SessionKey key = key("alice", PASSWORD);
+        for (int i = 0; i < 3; i++) {
+            assertThat(pool.execute(key, () -> client(key), client -> run(client, "printf ok"))).isEqualTo("ok");
+        }
+
+        assertThat(authentications).hasValue(1);
+        assertThat(pool.getSessionCount()).isEqualTo(1);
+        assertThat(server.getActiveSessions()).hasSize(1);
+    }
+
+    @Test
+    void shouldPoolSessionsPerCredential() throws Exception {
+        SessionKey alice = key("alice", PASSWORD);
+        SessionKey bob = key("bob", PASSWORD);
+        for (int i = 0; i < 2; i++) {
+            assertThat(pool.execute(alice, () -> client(alice), client -> run(client, "whoami"))).isEqualTo("alice");
+            assertThat(pool.execute(bob, () -> client(bob), client -> run(client, "whoami"))).isEqualTo("bob");
+        }
+        assertThat(authentications).hasValue(2);
+        assertThat(pool.getSessionCount()).isEqualTo(2);
+
+        // 同一用户换了密码使用新的连接键，不会借到旧凭据建立的会话
+        SessionKey wrongPassword = key("alice", "wrong");
+        assertThatThrownBy(() -> pool.execute(wrongPassword, () -> client(wrongPassword), client -> run(client, "whoami")))
+                .isInstanceOf(Exception.class);
+        assertThat(pool.getSessionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDiscardSessionAfterCommandTimeout() throws Exception {
+        SessionKey key = key("alice", PASSWORD);
+        assertThatThrownBy(() -> pool.execute(key, () -> client(key), client -> {
+            var result = client.executeCommand("sleep", 200);
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("命令超时");
+            }
+            return result.getOutput();
+        })).isInstanceOf(Exception.class);
+        assertThat(pool.getSessionCount()).isZero();
+
+        assertThat(pool.execute(key, () -> client(key), client -> run(client, "printf ok"))).isEqualTo("ok");
+        assertThat(authentications).hasValue(2);
+    }
+
+    @Test
+    void shouldDiscardSessionWhenWorkerIsInterrupted() throws Exception {
+        SessionKey key = key("alice", PASSWORD);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread worker = Thread.ofVirtual().start(() -> {
+            try {
+                pool.execute(key, () -> client(key), client -> {
+                    var result = client.executeCommand("sleep", 30_000);
+                    if (Thread.interrupted() || !result.isSuccess()) {
+                        throw new InterruptedException("采集被中断");
+                    }
+                    return result.getOutput();
+                });
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        awaitUntil(() -> commands.contains("sleep"));
+
+        worker.interrupt();
+        // 模拟主机超时后中断采集线程，远端命令随后结束
+        blocker.countDown();
+        assertThat(worker.join(Duration.ofSeconds(10))).isTrue();
+
+        assertThat(failure.get()).isNotNull();
+        assertThat(pool.getSessionCount()).isZero();
+    }
+
+    @Test
+    void shouldCloseSessionsOfRemovedHosts() throws Exception {
+        SessionKey alice = key("alice", PASSWORD);
+        SessionKey bob = key("bob", PASSWORD);
+        pool.execute(alice, () -> client(alice), client -> run(client, "printf ok"));
+        pool.execute(bob, () -> client(bob), client -> run(client, "printf ok"));
+
+        pool.retainKeys(Set.of(alice));
+
+        assertThat(pool.getSessionCount()).isEqualTo(1);
+        awaitUntil(() -> server.getActiveSessions().size() == 1);
+        assertThat(pool.execute(alice, () -> client(alice), client -> run(client, "whoami"))).isEqualTo("alice");
+        assertThat(authentications).hasValue(2);
+    }
+
+    private SessionKey key(String username, String password) {
+        return new SessionKey("127.0.0.1", server.getPort(), username, password);
+    }
+
+    private static LinuxExecClient client(SessionKey key) {
+        return new LinuxExecClient(ClientSetting.builder()
+                .host(key.host())
+                .port(key.port())
+                .username(key.username())
+                .password(key.password())
+                .build());
+    }
+
+    private static String run(LinuxExecClient client, String command) throws Exception {
+        return client.executeCommand(command, 5000).getOutput().trim();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private record SessionKey(String host, int port, String username, String password) {
+    }
+
+    /**
+     * 按命令返回固定输出：{@code whoami} 返回登录用户，{@code sleep} 阻塞到测试放行。
+     */
+    private final class ScriptedCommand implements Command {
+
+        private final String command;
+        private OutputStream out;
+        private ExitCallback exitCallback;
+
+        private ScriptedCommand(String command) {
+            this.command = command;
+        }
+
+        @Override
+        public void setInputStream(InputStream in) {
+        }
+
+        @Override
+        public void setOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void setErrorStream(OutputStream err) {
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.exitCallback = callback;
+        }
+
+        @Override
+        public void start(ChannelSession channel, Environment env) {
+            commands.add(command);
+            String username = channel.getSession().getUsername();
+            Thread.ofVirtual().start(() -> {
+                try {
+                    String output = switch (command) {
+                        case "whoami" -> username;
+                        case "sleep" -> {
+                            blocker.await(30, TimeUnit.SECONDS);
+                            yield "slept";
+                        }
+                        default -> "ok";
+                    };
+                    out.write(output.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    exitCallback.onExit(0);
+                } catch (Exception e) {
+                    exitCallback.onExit(1, e.getMessage());
+                }
+            });
+        }
+
+        @Override
+        public void destroy(ChannelSession channel) {
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.chua.socketio.support.session;
 
+import com.chua.socket.support.codec.SocketFrameFormat;
 import com.chua.socket.support.codec.SocketMessageCodec;
+import com.chua.socket.support.codec.SocketPreparedMessage;
+import com.chua.socket.support.codec.SocketSessionKey;
 import com.chua.socket.support.properties.SocketProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.chua.socket.support.session.SocketSession;
 import com.chua.socket.support.session.SocketUser;
 import com.corundumstudio.socketio.HandshakeData;
 import com.corundumstudio.socketio.SocketIOClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.Locale;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * Socket.IO 会话实现
@@ -21,19 +27,41 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class SocketIOSession implements SocketSession {
 
+    private static final Logger log = LoggerFactory.getLogger(SocketIOSession.class);
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * 握手失败标记，避免每次发送都重新生成密钥并尝试握手
+     */
+    private static final SocketSessionKey HANDSHAKE_FAILED = new SocketSessionKey(0, new byte[16]);
     public static final String ATTRIBUTE_ENCRYPT_REQUESTED = "socketEncryptRequested";
     private final SocketIOClient client;
     private final SocketProperties properties;
     private final SocketMessageCodec messageCodec;
     private final Map<String, Object> attributes = new ConcurrentHashMap<>();
     private String clientId;
-    private SocketUser user;
+    private volatile SocketUser user;
+    /**
+     * 用户变更回调，由会话模板注册以维护用户索引，参数为会话和变更前的用户
+     */
+    private volatile BiConsumer<SocketIOSession, SocketUser> userChangeListener;
+    /**
+     * 二进制帧模式下的会话密钥，首次发送加密消息时握手生成；握手失败后为 {@link #HANDSHAKE_FAILED}
+     */
+    private volatile SocketSessionKey sessionKey;
 
     public SocketIOSession(SocketIOClient client, SocketProperties properties) {
+        this(client, properties, new SocketMessageCodec(properties));
+    }
+
+    /**
+     * @param client       Socket.IO 客户端
+     * @param properties   配置
+     * @param messageCodec 编解码器，可在多个会话之间共享
+     */
+    public SocketIOSession(SocketIOClient client, SocketProperties properties, SocketMessageCodec messageCodec) {
         this.client = client;
         this.properties = properties;
-        this.messageCodec = new SocketMessageCodec(properties);
+        this.messageCodec = messageCodec;
         Boolean encryptRequested = resolveEncryptRequested(client);
         if (encryptRequested != null) {
             setAttribute(ATTRIBUTE_ENCRYPT_REQUESTED, encryptRequested);
@@ -62,7 +90,24 @@ public class SocketIOSession implements SocketSession {
 
     @Override
     public void setUser(SocketUser user) {
-        this.user = user;
+        // 回调在锁内执行，同一会话的索引调整按变更顺序进行
+        synchronized (this) {
+            SocketUser previous = this.user;
+            this.user = user;
+            BiConsumer<SocketIOSession, SocketUser> listener = userChangeListener;
+            if (listener != null) {
+                listener.accept(this, previous);
+            }
+        }
+    }
+
+    /**
+     * 注册用户变更回调
+     *
+     * @param listener 回调，参数为会话和变更前的用户
+     */
+    void onUserChange(BiConsumer<SocketIOSession, SocketUser> listener) {
+        this.userChangeListener = listener;
     }
 
     @Override
@@ -109,10 +154,34 @@ public class SocketIOSession implements SocketSession {
                     msg = data.toString();
                 }
             }
+            if (SocketFrameFormat.BINARY == messageCodec.getFrameFormat()) {
+                client.sendEvent(event, messageCodec.encodeFrame(msg, sessionKey()));
+                return;
+            }
             client.sendEvent(event, messageCodec.encode(msg, getAttribute(ATTRIBUTE_ENCRYPT_REQUESTED)));
         }
     }
 
+    @Override
+    public void sendPrepared(String event, SocketPreparedMessage message) {
+        if (!client.isChannelOpen()) {
+            return;
+        }
+        Boolean encryptRequested = getAttribute(ATTRIBUTE_ENCRYPT_REQUESTED);
+        if (SocketFrameFormat.BINARY == messageCodec.getFrameFormat() && messageCodec.isEncrypted(encryptRequested)) {
+            SocketSessionKey key = sessionKey();
+            if (key == null) {
+                // 握手失败，客户端没有任何密钥，只能单独发送明文帧
+                client.sendEvent(event, messageCodec.encodeFrame(message.getPayload(), null));
+                return;
+            }
+            // 广播消息复用组密钥帧，定向消息使用本会话的会话密钥
+            client.sendEvent(event, messageCodec.encode(message, encryptRequested, key));
+            return;
+        }
+        client.sendEvent(event, messageCodec.encode(message, encryptRequested));
+    }
+
     @Override
     public void sendBinary(String event, byte[] data) {
         if (client.isChannelOpen()) {
@@ -136,6 +205,48 @@ public class SocketIOSession implements SocketSession {
         return client;
     }
 
+    /**
+     * 获取会话密钥，首次调用时通过非对称加密的握手消息下发会话密钥与广播组密钥
+     * <p>
+     * 握手失败只尝试一次，结果被记住，之后该会话一直以明文帧发送。
+     * </p>
+     *
+     * @return 会话密钥，当前会话不加密或握手失败时返回 null
+     */
+    SocketSessionKey sessionKey() {
+        if (!messageCodec.isEncrypted(getAttribute(ATTRIBUTE_ENCRYPT_REQUESTED))) {
+            return null;
+        }
+        SocketSessionKey key = sessionKey;
+        if (key == null) {
+            synchronized (this) {
+                key = sessionKey;
+                if (key == null) {
+                    key = handshake();
+                    sessionKey = key;
+                }
+            }
+        }
+        return key == HANDSHAKE_FAILED ? null : key;
+    }
+
+    private SocketSessionKey handshake() {
+        SocketSessionKey created = messageCodec.newSessionKey();
+        Object handshake = messageCodec.handshake(created);
+        if (handshake == null) {
+            log.warn("[SocketIO] 会话握手失败，该会话改为发送明文帧: sessionId={}", getId());
+            return HANDSHAKE_FAILED;
+        }
+        try {
+            // 同一连接上的事件按顺序送达，客户端先拿到密钥再收到加密帧
+            client.sendEvent(SocketMessageCodec.HANDSHAKE_EVENT, handshake);
+        } catch (Exception e) {
+            log.warn("[SocketIO] 发送握手消息失败，该会话改为发送明文帧: sessionId={}", getId(), e);
+            return HANDSHAKE_FAILED;
+        }
+        return created;
+    }
+
     private Boolean resolveEncryptRequested(SocketIOClient client) {
         if (client == null) {
             return null;
@@ -1,6 +1,8 @@
 package com.chua.socketio.support.session;
 
 import com.chua.socket.support.SocketListener;
+import com.chua.socket.support.codec.SocketMessageCodec;
+import com.chua.socket.support.codec.SocketPreparedMessage;
 import com.chua.socket.support.properties.SocketProperties;
 import com.chua.socket.support.session.SocketSession;
 import com.chua.socket.support.session.SocketSessionTemplate;
@@ -25,6 +27,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
 /**
  * Socket.IO 会话模板实现
  * 基于 netty-socketio 实现，支持多房间配置
+ * <p>
+ * 除按 clientId 分组的会话列表外，另维护 sessionId 与 userId 两个索引：
+ * 会话在连接/断开时登记和移除，用户在 {@link SocketIOSession#setUser(SocketUser)} 时重新归入索引，
+ * 按会话或用户发送不再遍历全部在线会话。
+ * </p>
  *
  * @author CH
  * @version 1.0.0
@@ -36,7 +43,19 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
     private static final Logger log = LoggerFactory.getLogger(SocketIOSessionTemplate.class);
     private final SocketProperties properties;
     private final List<SocketListener> listeners;
+    /**
+     * 所有会话共用的编解码器，广播时同一加密分组只编码一次
+     */
+    private final SocketMessageCodec messageCodec;
     private final Map<String, List<SocketIOSession>> sessionCache = new ConcurrentHashMap<>();
+    /**
+     * sessionId -> 会话
+     */
+    private final Map<String, SocketIOSession> sessionsById = new ConcurrentHashMap<>();
+    /**
+     * userId -> 该用户的在线会话（多端登录时有多个）
+     */
+    private final Map<String, Set<SocketIOSession>> userSessions = new ConcurrentHashMap<>();
     
     /**
      * 多服务器实例：clientId -> server
@@ -46,12 +65,16 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
     public SocketIOSessionTemplate(SocketProperties properties, List<SocketListener> listeners) {
         this.properties = properties;
         this.listeners = listeners;
+        this.messageCodec = new SocketMessageCodec(properties);
     }
 
     @Override
     public SocketSession save(String clientId, SocketSession session) {
         if (session instanceof SocketIOSession ioSession) {
             sessionCache.computeIfAbsent(clientId, k -> new CopyOnWriteArrayList<>()).add(ioSession);
+            sessionsById.put(ioSession.getId(), ioSession);
+            ioSession.onUserChange(this::reindexUser);
+            indexUser(ioSession, ioSession.getUser());
         }
         return session;
     }
@@ -66,18 +89,54 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
                 sessionCache.remove(clientId);
             }
         }
+        if (session instanceof SocketIOSession ioSession) {
+            // 先移出会话索引再读取用户，与并发的 setUser 回调配合保证不会残留在用户索引中
+            sessionsById.remove(ioSession.getId(), ioSession);
+            unindexUser(ioSession, ioSession.getUser());
+        }
     }
 
     @Override
     public SocketSession getSession(String sessionId) {
-        for (List<SocketIOSession> sessions : sessionCache.values()) {
-            for (SocketIOSession session : sessions) {
-                if (session.getId().equals(sessionId)) {
-                    return session;
-                }
-            }
+        return sessionId == null ? null : sessionsById.get(sessionId);
+    }
+
+    @Override
+    public List<SocketSession> getUserSessions(String userId) {
+        Set<SocketIOSession> sessions = userId == null ? null : userSessions.get(userId);
+        return sessions == null ? Collections.emptyList() : new ArrayList<>(sessions);
+    }
+
+    /**
+     * 会话的用户变更后调整用户索引
+     *
+     * @param session  会话
+     * @param previous 变更前的用户
+     */
+    private void reindexUser(SocketIOSession session, SocketUser previous) {
+        unindexUser(session, previous);
+        SocketUser current = session.getUser();
+        indexUser(session, current);
+        // 会话可能在登记期间断开，断开时读取的用户可能还是旧值
+        if (sessionsById.get(session.getId()) != session) {
+            unindexUser(session, current);
+        }
+    }
+
+    private void indexUser(SocketIOSession session, SocketUser user) {
+        if (user != null && user.getUserId() != null) {
+            userSessions.computeIfAbsent(user.getUserId(), k -> ConcurrentHashMap.newKeySet()).add(session);
+        }
+    }
+
+    private void unindexUser(SocketIOSession session, SocketUser user) {
+        if (user == null || user.getUserId() == null) {
+            return;
         }
-        return null;
+        userSessions.computeIfPresent(user.getUserId(), (k, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
     }
 
     @Override
@@ -90,10 +149,11 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
 
     @Override
     public void broadcast(String event, String msg) {
+        SocketPreparedMessage prepared = messageCodec.prepare(msg);
         for (List<SocketIOSession> sessions : sessionCache.values()) {
             for (SocketIOSession session : sessions) {
                 try {
-                    session.send(event, msg);
+                    session.sendPrepared(event, prepared);
                 } catch (Exception e) {
                     log.warn("[SocketIO] 广播消息失败: sessionId={}, event={}", 
                             session.getId(), event, e);
@@ -104,17 +164,18 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
 
     @Override
     public void sendToUser(String userId, String event, String msg) {
-        for (List<SocketIOSession> sessions : sessionCache.values()) {
-            for (SocketIOSession session : sessions) {
-                SocketUser user = session.getUser();
-                if (user != null && userId.equals(user.getUserId())) {
-                    try {
-                        session.send(event, msg);
-                    } catch (Exception e) {
-                        log.warn("[SocketIO] 发送消息给用户失败: userId={}, sessionId={}, event={}", 
-                                userId, session.getId(), event, e);
-                    }
-                }
+        // 定向消息不能使用广播组密钥，加密帧按每个会话的会话密钥生成
+        Set<SocketIOSession> sessions = userId == null ? null : userSessions.get(userId);
+        if (sessions == null || sessions.isEmpty()) {
+            return;
+        }
+        SocketPreparedMessage prepared = messageCodec.prepareDirect(msg);
+        for (SocketIOSession session : sessions) {
+            try {
+                session.sendPrepared(event, prepared);
+            } catch (Exception e) {
+                log.warn("[SocketIO] 发送消息给用户失败: userId={}, sessionId={}, event={}", 
+                        userId, session.getId(), event, e);
             }
         }
     }
@@ -230,7 +291,7 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
 
             // 连接事件
             server.addConnectListener(client -> {
-                SocketIOSession session = new SocketIOSession(client, properties);
+                SocketIOSession session = new SocketIOSession(client, properties, messageCodec);
                 session.setAttribute("clientId", clientId);
                 session.setAttribute("contextPath", contextPath);
                 save(clientId, session);
@@ -274,6 +335,8 @@ public class SocketIOSessionTemplate implements SocketSessionTemplate {
         }
         servers.clear();
         sessionCache.clear();
+        sessionsById.clear();
+        userSessions.clear();
     }
 
     /**
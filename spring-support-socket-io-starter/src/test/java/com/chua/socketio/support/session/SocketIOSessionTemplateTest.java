@@ -0,0 +1,90 @@
+package com.chua.socketio.support.session;
+
+import com.chua.socket.support.properties.SocketProperties;
+import com.chua.socket.support.session.SocketUser;
+import com.corundumstudio.socketio.SocketIOClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SocketIOSessionTemplateTest {
+
+    private final SocketProperties properties = new SocketProperties();
+    private final SocketIOSessionTemplate template = new SocketIOSessionTemplate(properties, List.of());
+
+    @Test
+    void shouldIndexUserSetBeforeAndAfterConnect() {
+        SocketIOSession before = session();
+        before.setUser(new SocketUser("u1"));
+        template.save("chat", before);
+        SocketIOSession after = session();
+        template.save("chat", after);
+        after.setUser(new SocketUser("u1"));
+
+        assertThat(template.getUserSessions("u1")).containsExactlyInAnyOrder(before, after);
+        assertThat(template.getSession(after.getId())).isSameAs(after);
+    }
+
+    @Test
+    void shouldMoveSessionWhenUserChanges() {
+        SocketIOSession session = session();
+        template.save("chat", session);
+        session.setUser(new SocketUser("u1"));
+
+        session.setUser(new SocketUser("u2"));
+
+        assertThat(template.getUserSessions("u1")).isEmpty();
+        assertThat(template.getUserSessions("u2")).containsExactly(session);
+
+        session.setUser(null);
+        assertThat(template.getUserSessions("u2")).isEmpty();
+    }
+
+    @Test
+    void shouldDropIndexesOnDisconnect() {
+        SocketIOSession session = session();
+        template.save("chat", session);
+        session.setUser(new SocketUser("u1"));
+
+        template.remove("chat", session);
+
+        assertThat(template.getUserSessions("u1")).isEmpty();
+        assertThat(template.getSession(session.getId())).isNull();
+
+        // 断开后再设置用户也不会重新进入索引
+        session.setUser(new SocketUser("u1"));
+        assertThat(template.getUserSessions("u1")).isEmpty();
+    }
+
+    @Test
+    void shouldSendToIndexedUserSessionsOnly() {
+        SocketIOSession target = session();
+        SocketIOSession other = session();
+        template.save("chat", target);
+        template.save("chat", other);
+        target.setUser(new SocketUser("u1"));
+        other.setUser(new SocketUser("u2"));
+
+        template.sendToUser("u1", "message", "hello");
+        template.sendToUser("missing", "message", "hello");
+
+        verify((SocketIOClient) target.getConnection()).sendEvent(eq("message"), any());
+        verify((SocketIOClient) other.getConnection(), never()).sendEvent(eq("message"), any());
+    }
+
+    private SocketIOSession session() {
+        SocketIOClient client = mock(SocketIOClient.class);
+        when(client.isChannelOpen()).thenReturn(true);
+        when(client.getSessionId()).thenReturn(UUID.randomUUID());
+        return new SocketIOSession(client, properties);
+    }
+}
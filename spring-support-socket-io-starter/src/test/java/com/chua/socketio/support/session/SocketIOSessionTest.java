@@ -0,0 +1,155 @@
+package com.chua.socketio.support.session;
+
+import com.chua.common.support.crypto.CodecKeyPair;
+import com.chua.socket.support.codec.SocketBinaryFrame;
+import com.chua.socket.support.codec.SocketEncryptMode;
+import com.chua.socket.support.codec.SocketFrameFormat;
+import com.chua.socket.support.codec.SocketMessageCodec;
+import com.chua.socket.support.codec.SocketSessionKey;
+import com.chua.socket.support.model.SocketMessageEnvelope;
+import com.chua.socket.support.properties.SocketProperties;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SocketIOSessionTest {
+
+    @Test
+    void shouldRememberFailedHandshakeAndFallBackToPlainFrames() {
+        SocketIOClient client = openClient();
+        SocketMessageCodec codec = encryptingCodec();
+        when(codec.handshake(any())).thenReturn(null);
+        when(codec.encodeFrame(anyString(), isNull())).thenReturn(new byte[]{0});
+        SocketIOSession session = new SocketIOSession(client, new SocketProperties(), codec);
+
+        for (int i = 0; i < 3; i++) {
+            session.send("chat", "hello");
+        }
+
+        assertThat(session.sessionKey()).isNull();
+        verify(codec, times(1)).handshake(any());
+        verify(codec, times(3)).encodeFrame(eq("hello"), isNull());
+        verify(client, never()).sendEvent(eq(SocketMessageCodec.HANDSHAKE_EVENT), any());
+    }
+
+    @Test
+    void shouldRememberHandshakeSendFailure() {
+        SocketIOClient client = openClient();
+        SocketMessageCodec codec = encryptingCodec();
+        when(codec.handshake(any())).thenReturn("handshake");
+        doThrow(new IllegalStateException("channel closed"))
+                .when(client).sendEvent(eq(SocketMessageCodec.HANDSHAKE_EVENT), any());
+        SocketIOSession session = new SocketIOSession(client, new SocketProperties(), codec);
+
+        assertThat(session.sessionKey()).isNull();
+        assertThat(session.sessionKey()).isNull();
+
+        verify(codec, times(1)).handshake(any());
+    }
+
+    @Test
+    void shouldHandshakeOnceAndReuseSessionKey() {
+        SocketIOClient client = openClient();
+        SocketMessageCodec codec = encryptingCodec();
+        when(codec.handshake(any())).thenReturn("handshake");
+        SocketIOSession session = new SocketIOSession(client, new SocketProperties(), codec);
+
+        SocketSessionKey first = session.sessionKey();
+        SocketSessionKey second = session.sessionKey();
+
+        assertThat(first).isNotNull().isSameAs(second);
+        verify(client, times(1)).sendEvent(SocketMessageCodec.HANDSHAKE_EVENT, "handshake");
+    }
+
+    @Test
+    void shouldSendPreparedMessagesDecryptableWithHandshakeKeys() throws Exception {
+        SocketIOClient client = openClient();
+        List<Object[]> events = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> events.add(new Object[]{invocation.getArgument(0), invocation.getArgument(1)}))
+                .when(client).sendEvent(anyString(), any());
+        SocketProperties properties = new SocketProperties();
+        properties.setFrameFormat(SocketFrameFormat.BINARY);
+        properties.setEncryptMode(SocketEncryptMode.ENCRYPTED);
+        SocketMessageCodec codec = new SocketMessageCodec(properties, identityKeyPair());
+        SocketIOSession session = new SocketIOSession(client, properties, codec);
+        String broadcast = "{\"dataId\":\"notice\"}";
+        String direct = "{\"dataId\":\"private\"}";
+
+        session.sendPrepared("message", codec.prepare(broadcast));
+        session.sendPrepared("message", codec.prepareDirect(direct));
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0)[0]).isEqualTo(SocketMessageCodec.HANDSHAKE_EVENT);
+        JsonNode keys = handshakeKeys((SocketMessageEnvelope) events.get(0)[1]);
+        SocketSessionKey groupKey = clientKey(keys, "groupKey");
+        SocketSessionKey sessionKey = clientKey(keys, "sessionKey");
+
+        SocketBinaryFrame broadcastFrame = SocketBinaryFrame.parse((byte[]) events.get(1)[1]);
+        assertThat(broadcastFrame.keyId()).isEqualTo(groupKey.getKeyId());
+        assertThat(decrypt(groupKey, broadcastFrame)).isEqualTo(broadcast);
+
+        SocketBinaryFrame directFrame = SocketBinaryFrame.parse((byte[]) events.get(2)[1]);
+        assertThat(directFrame.keyId()).isEqualTo(sessionKey.getKeyId());
+        assertThat(decrypt(sessionKey, directFrame)).isEqualTo(direct);
+    }
+
+    private static String decrypt(SocketSessionKey key, SocketBinaryFrame frame) {
+        return new String(key.decrypt(frame.body(), frame.authenticatedData()), StandardCharsets.UTF_8);
+    }
+
+    private static SocketSessionKey clientKey(JsonNode keys, String name) {
+        return new SocketSessionKey(keys.get(name + "Id").asInt(), HexFormat.of().parseHex(keys.get(name).asText()));
+    }
+
+    private static JsonNode handshakeKeys(SocketMessageEnvelope envelope) throws Exception {
+        String data = envelope.getData();
+        String prefix = "02" + envelope.getUuid() + "200";
+        return new ObjectMapper().readTree(data.substring(prefix.length(), data.length() - "ffff".length()));
+    }
+
+    /**
+     * 非对称加密原样返回明文，便于读取握手消息中的密钥
+     */
+    private static CodecKeyPair identityKeyPair() throws Exception {
+        CodecKeyPair keyPair = mock(CodecKeyPair.class);
+        when(keyPair.getPublicKeyHex()).thenReturn("public-key");
+        when(keyPair.getPrivateKeyHex()).thenReturn("private-key");
+        when(keyPair.encode(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        return keyPair;
+    }
+
+    private static SocketIOClient openClient() {
+        SocketIOClient client = mock(SocketIOClient.class);
+        when(client.isChannelOpen()).thenReturn(true);
+        when(client.getSessionId()).thenReturn(UUID.randomUUID());
+        return client;
+    }
+
+    private static SocketMessageCodec encryptingCodec() {
+        SocketMessageCodec codec = mock(SocketMessageCodec.class);
+        when(codec.getFrameFormat()).thenReturn(SocketFrameFormat.BINARY);
+        when(codec.isEncrypted(any())).thenReturn(true);
+        when(codec.newSessionKey()).thenAnswer(invocation -> SocketSessionKey.generate());
+        return codec;
+    }
+}
@@ -0,0 +1,133 @@
+package com.chua.socket.support.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Socket 二进制帧
+ * <p>
+ * 固定 14 字节帧头，客户端不解析消息体即可按 dataId 过滤：
+ * </p>
+ * <pre>
+ * magic(2) = 0x5346 | version(1) | flags(1) | keyId(4) | dataIdLength(2) | bodyLength(4)
+ * dataId(UTF-8, dataIdLength) | body(bodyLength)
+ * </pre>
+ * <p>
+ * flags 的最低位表示消息体已加密，此时 body 为 {@code iv(12) + AES-GCM 密文}，
+ * keyId 对应握手时下发的会话密钥或广播组密钥；未加密时 keyId 为 0。
+ * 加密帧以帧头与 dataId（即 body 之前的全部字节）作为 GCM 附加认证数据，
+ * 篡改 flags、keyId、dataId 或长度字段都会导致解密失败。
+ * </p>
+ *
+ * @param flags  标志位
+ * @param keyId  密钥编号
+ * @param dataId 数据 ID，可为空
+ * @param body   消息体
+ * @author CH
+ * @since 2026-04-08
+ */
+public record SocketBinaryFrame(byte flags, int keyId, String dataId, byte[] body) {
+
+    public static final short MAGIC = 0x5346;
+    public static final byte VERSION = 1;
+    public static final byte FLAG_ENCRYPTED = 0x01;
+    public static final int HEADER_LENGTH = 14;
+
+    /**
+     * 是否加密
+     *
+     * @return 是否加密
+     */
+    public boolean encrypted() {
+        return (flags & FLAG_ENCRYPTED) != 0;
+    }
+
+    /**
+     * 编码为字节数组
+     *
+     * @return 帧字节
+     */
+    public byte[] toBytes() {
+        byte[] dataIdBytes = dataIdBytes(dataId);
+        byte[] frame = new byte[HEADER_LENGTH + dataIdBytes.length + body.length];
+        writePrefix(ByteBuffer.wrap(frame), flags, keyId, dataIdBytes, body.length).put(body);
+        return frame;
+    }
+
+    /**
+     * 获取附加认证数据：帧头与 dataId
+     *
+     * @return body 之前的帧字节
+     */
+    public byte[] authenticatedData() {
+        return authenticatedData(flags, keyId, dataId, body.length);
+    }
+
+    /**
+     * 计算附加认证数据，用于在消息体加密前生成
+     *
+     * @param flags      标志位
+     * @param keyId      密钥编号
+     * @param dataId     数据 ID
+     * @param bodyLength 消息体（密文）长度
+     * @return body 之前的帧字节
+     */
+    public static byte[] authenticatedData(byte flags, int keyId, String dataId, int bodyLength) {
+        byte[] dataIdBytes = dataIdBytes(dataId);
+        byte[] prefix = new byte[HEADER_LENGTH + dataIdBytes.length];
+        writePrefix(ByteBuffer.wrap(prefix), flags, keyId, dataIdBytes, bodyLength);
+        return prefix;
+    }
+
+    private static byte[] dataIdBytes(String dataId) {
+        byte[] dataIdBytes = dataId == null ? new byte[0] : dataId.getBytes(StandardCharsets.UTF_8);
+        if (dataIdBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("dataId 过长: " + dataIdBytes.length);
+        }
+        return dataIdBytes;
+    }
+
+    private static ByteBuffer writePrefix(ByteBuffer buffer, byte flags, int keyId, byte[] dataIdBytes, int bodyLength) {
+        return buffer
+                .putShort(MAGIC)
+                .put(VERSION)
+                .put(flags)
+                .putInt(keyId)
+                .putShort((short) dataIdBytes.length)
+                .putInt(bodyLength)
+                .put(dataIdBytes);
+    }
+
+    /**
+     * 解析帧字节
+     *
+     * @param frame 帧字节
+     * @return 二进制帧
+     * @throws IllegalArgumentException 帧格式不正确
+     */
+    public static SocketBinaryFrame parse(byte[] frame) {
+        if (frame == null || frame.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("帧长度不足");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        if (buffer.getShort() != MAGIC) {
+            throw new IllegalArgumentException("帧标识不匹配");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的帧版本: " + version);
+        }
+        byte flags = buffer.get();
+        int keyId = buffer.getInt();
+        int dataIdLength = Short.toUnsignedInt(buffer.getShort());
+        int bodyLength = buffer.getInt();
+        if (bodyLength < 0 || buffer.remaining() != dataIdLength + (long) bodyLength) {
+            throw new IllegalArgumentException("帧长度与帧头不一致");
+        }
+        String dataId = dataIdLength == 0 ? null : new String(frame, HEADER_LENGTH, dataIdLength, StandardCharsets.UTF_8);
+        byte[] body = new byte[bodyLength];
+        buffer.position(HEADER_LENGTH + dataIdLength);
+        buffer.get(body);
+        return new SocketBinaryFrame(flags, keyId, dataId, body);
+    }
+}
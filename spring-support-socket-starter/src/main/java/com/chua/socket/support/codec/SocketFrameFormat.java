@@ -0,0 +1,20 @@
+package com.chua.socket.support.codec;
+
+/**
+ * Socket 消息传输格式
+ *
+ * @author CH
+ * @since 2026-04-08
+ */
+public enum SocketFrameFormat {
+
+    /**
+     * JSON 包装体，兼容现有客户端，每条消息独立做非对称加密
+     */
+    ENVELOPE,
+
+    /**
+     * 二进制帧（见 {@link SocketBinaryFrame}），握手时下发对称密钥，后续消息只做对称加密
+     */
+    BINARY
+}
@@ -4,12 +4,29 @@ import com.chua.common.support.crypto.Codec;
 import com.chua.common.support.crypto.CodecKeyPair;
 import com.chua.socket.support.model.SocketMessageEnvelope;
 import com.chua.socket.support.properties.SocketProperties;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Socket 消息编解码包装
+ * <p>
+ * 支持两种传输格式（见 {@link SocketFrameFormat}）：
+ * </p>
+ * <ul>
+ *     <li>ENVELOPE：JSON 包装体，每条消息做一次非对称加密</li>
+ *     <li>BINARY：二进制帧，非对称加密只用于握手下发会话密钥与广播组密钥，之后的消息只做 AES-GCM 加密</li>
+ * </ul>
+ * <p>
+ * 编解码器可在多个会话之间共享。广播时先 {@link #prepare(String)}，
+ * 同一加密分组的接收方复用同一份编码结果，每条广播最多加密一次；
+ * 发给指定用户的消息使用 {@link #prepareDirect(String)}，二进制加密帧使用各接收会话自己的会话密钥。
+ * </p>
  *
  * @author CH
  * @since 2026-04-08
@@ -17,40 +34,88 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SocketMessageCodec {
 
+    /**
+     * 二进制帧模式下的握手事件名称
+     */
+    public static final String HANDSHAKE_EVENT = "socket-handshake";
+    public static final String HANDSHAKE_DATA_ID = "socket:handshake";
+
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String ENCRYPTED_PREFIX = "02";
     private static final String STATUS_SEGMENT = "200";
     private static final String SUFFIX = "ffff";
+    private static final String DATA_ID = "dataId";
 
     private final SocketEncryptMode encryptMode;
+    private final SocketFrameFormat frameFormat;
     private final CodecKeyPair codecKeyPair;
     private final String publicKeyHex;
+    private final SocketSessionKey groupKey;
 
     public SocketMessageCodec(SocketProperties properties) {
-        String codecType = properties == null || properties.getCodecType() == null
-                ? "json"
-                : properties.getCodecType();
-        this.encryptMode = properties == null
+        this(properties, resolveKeyPair(properties));
+    }
+
+    /**
+     * 使用指定的非对称加密器，而不是按 {@code codecType} 创建
+     *
+     * @param properties   配置
+     * @param codecKeyPair 非对称加密器，为 null 时不加密
+     */
+    public SocketMessageCodec(SocketProperties properties, CodecKeyPair codecKeyPair) {
+        this.encryptMode = resolveEncryptMode(properties);
+        this.frameFormat = properties == null || properties.getFrameFormat() == null
+                ? SocketFrameFormat.ENVELOPE
+                : properties.getFrameFormat();
+        this.codecKeyPair = SocketEncryptMode.PLAIN == encryptMode ? null : codecKeyPair;
+        this.publicKeyHex = this.codecKeyPair == null ? null : this.codecKeyPair.getPublicKeyHex();
+        this.groupKey = SocketFrameFormat.BINARY == frameFormat && supportsEncryption()
+                ? SocketSessionKey.generate()
+                : null;
+    }
+
+    private static SocketEncryptMode resolveEncryptMode(SocketProperties properties) {
+        return properties == null
                 ? SocketEncryptMode.AUTO
                 : properties.resolveEncryptMode();
+    }
 
-        CodecKeyPair pair = null;
-        String publicKey = null;
-        if (SocketEncryptMode.PLAIN != this.encryptMode) {
-            try {
-                Codec codec = Codec.build(codecType);
-                if (codec instanceof CodecKeyPair candidate) {
-                    pair = candidate;
-                    publicKey = candidate.getPublicKeyHex();
-                } else {
-                    log.warn("[Socket] 当前 codecType={} 不支持 Socket 非对称加密，已回退为明文发送", codecType);
-                }
-            } catch (Exception e) {
-                log.warn("[Socket] 初始化消息加密器失败，已回退为明文发送", e);
+    private static CodecKeyPair resolveKeyPair(SocketProperties properties) {
+        if (SocketEncryptMode.PLAIN == resolveEncryptMode(properties)) {
+            return null;
+        }
+        String codecType = properties == null || properties.getCodecType() == null
+                ? "json"
+                : properties.getCodecType();
+        try {
+            Codec codec = Codec.build(codecType);
+            if (codec instanceof CodecKeyPair candidate) {
+                return candidate;
             }
+            log.warn("[Socket] 当前 codecType={} 不支持 Socket 非对称加密，已回退为明文发送", codecType);
+        } catch (Exception e) {
+            log.warn("[Socket] 初始化消息加密器失败，已回退为明文发送", e);
         }
-        this.codecKeyPair = pair;
-        this.publicKeyHex = publicKey;
+        return null;
+    }
+
+    /**
+     * 获取传输格式
+     *
+     * @return 传输格式
+     */
+    public SocketFrameFormat getFrameFormat() {
+        return frameFormat;
+    }
+
+    /**
+     * 当前会话是否需要加密
+     *
+     * @param encryptRequested 客户端请求的加密选项
+     * @return 是否加密
+     */
+    public boolean isEncrypted(Boolean encryptRequested) {
+        return shouldEncryptForCurrentSession(encryptRequested) && supportsEncryption();
     }
 
     public Object encode(String payload) {
@@ -61,7 +126,163 @@ public class SocketMessageCodec {
         if (!shouldEncrypt(payload, encryptRequested)) {
             return payload;
         }
+        Object envelope = encryptEnvelope(payload, resolveDataId(payload));
+        return envelope == null ? payload : envelope;
+    }
+
+    /**
+     * 预编码消息，用于广播
+     *
+     * @param payload 消息
+     * @return 预编码消息
+     */
+    public SocketPreparedMessage prepare(String payload) {
+        return new SocketPreparedMessage(payload, true);
+    }
+
+    /**
+     * 预编码定向消息，用于发送给指定用户的多个会话
+     * <p>
+     * 二进制加密帧不使用广播组密钥，避免其他持有组密钥的会话解密定向消息。
+     * </p>
+     *
+     * @param payload 消息
+     * @return 预编码消息
+     */
+    public SocketPreparedMessage prepareDirect(String payload) {
+        return new SocketPreparedMessage(payload, false);
+    }
 
+    /**
+     * 编码预编码消息
+     * <p>
+     * 按当前传输格式返回明文、加密包装体或二进制帧；加密的二进制帧使用广播组密钥，
+     * 同一条消息的每种结果只生成一次。定向消息的加密帧需要会话密钥，
+     * 见 {@link #encode(SocketPreparedMessage, Boolean, SocketSessionKey)}。
+     * </p>
+     *
+     * @param message          预编码消息
+     * @param encryptRequested 客户端请求的加密选项
+     * @return 待发送对象
+     */
+    public Object encode(SocketPreparedMessage message, Boolean encryptRequested) {
+        return encode(message, encryptRequested, null);
+    }
+
+    /**
+     * 编码预编码消息
+     * <p>
+     * 广播消息的加密帧使用广播组密钥并在所有接收方之间复用；
+     * 定向消息的加密帧使用接收会话的会话密钥，每个接收会话编码一次。
+     * </p>
+     *
+     * @param message          预编码消息
+     * @param encryptRequested 客户端请求的加密选项
+     * @param sessionKey       接收会话的会话密钥，定向消息加密时必填
+     * @return 待发送对象
+     * @throws IllegalArgumentException 定向消息需要加密但未提供会话密钥
+     */
+    public Object encode(SocketPreparedMessage message, Boolean encryptRequested, SocketSessionKey sessionKey) {
+        String payload = message.getPayload();
+        if (payload == null) {
+            return null;
+        }
+        boolean encrypt = shouldEncrypt(payload, encryptRequested);
+        if (SocketFrameFormat.BINARY == frameFormat) {
+            if (!encrypt || groupKey == null) {
+                return message.encoded(SocketPreparedMessage.SLOT_PLAIN_FRAME, () -> frame(payload, dataId(message), null));
+            }
+            if (message.isBroadcast()) {
+                return message.encoded(SocketPreparedMessage.SLOT_GROUP_FRAME, () -> frame(payload, dataId(message), groupKey));
+            }
+            if (sessionKey == null) {
+                throw new IllegalArgumentException("定向消息加密需要接收会话的会话密钥");
+            }
+            return frame(payload, dataId(message), sessionKey);
+        }
+        if (!encrypt) {
+            return payload;
+        }
+        Object envelope = message.encoded(SocketPreparedMessage.SLOT_ENCRYPTED_ENVELOPE,
+                () -> encryptEnvelope(payload, dataId(message)));
+        return envelope == null ? payload : envelope;
+    }
+
+    /**
+     * 编码为二进制帧
+     *
+     * @param payload    消息
+     * @param sessionKey 会话密钥，为 null 时不加密
+     * @return 帧字节
+     */
+    public byte[] encodeFrame(String payload, SocketSessionKey sessionKey) {
+        return frame(payload, resolveDataId(payload), sessionKey);
+    }
+
+    /**
+     * 解码二进制帧，加密帧按帧头中的 keyId 选择会话密钥或广播组密钥
+     *
+     * @param frame      帧字节
+     * @param sessionKey 会话密钥
+     * @return 消息
+     */
+    public String decodeFrame(byte[] frame, SocketSessionKey sessionKey) {
+        SocketBinaryFrame parsed = SocketBinaryFrame.parse(frame);
+        byte[] body = parsed.body();
+        if (parsed.encrypted()) {
+            SocketSessionKey key;
+            if (sessionKey != null && sessionKey.getKeyId() == parsed.keyId()) {
+                key = sessionKey;
+            } else if (groupKey != null && groupKey.getKeyId() == parsed.keyId()) {
+                key = groupKey;
+            } else {
+                throw new IllegalArgumentException("未知的密钥编号: " + parsed.keyId());
+            }
+            body = key.decrypt(body, parsed.authenticatedData());
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 生成会话密钥
+     *
+     * @return 会话密钥
+     */
+    public SocketSessionKey newSessionKey() {
+        return SocketSessionKey.generate();
+    }
+
+    /**
+     * 生成握手消息
+     * <p>
+     * 会话密钥与广播组密钥以现有的非对称加密包装体下发，每个会话只执行一次非对称加密。
+     * </p>
+     *
+     * @param sessionKey 会话密钥
+     * @return 握手消息，不支持加密时返回 null
+     */
+    public Object handshake(SocketSessionKey sessionKey) {
+        if (!supportsEncryption() || sessionKey == null) {
+            return null;
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(DATA_ID, HANDSHAKE_DATA_ID);
+        keys.put("algorithm", SocketSessionKey.ALGORITHM);
+        keys.put("sessionKeyId", sessionKey.getKeyId());
+        keys.put("sessionKey", sessionKey.getKeyHex());
+        if (groupKey != null) {
+            keys.put("groupKeyId", groupKey.getKeyId());
+            keys.put("groupKey", groupKey.getKeyHex());
+        }
+        try {
+            return encryptEnvelope(OBJECT_MAPPER.writeValueAsString(keys), HANDSHAKE_DATA_ID);
+        } catch (Exception e) {
+            log.warn("[Socket] 生成握手消息失败", e);
+            return null;
+        }
+    }
+
+    private SocketMessageEnvelope encryptEnvelope(String payload, String dataId) {
         try {
             String encryptedData = codecKeyPair.encode(payload, publicKeyHex);
             String transportKey = codecKeyPair.getPrivateKeyHex();
@@ -71,18 +292,31 @@ public class SocketMessageCodec {
                     .data(ENCRYPTED_PREFIX + transportKey + STATUS_SEGMENT + encryptedData + SUFFIX)
                     .timestamp(keyLength)
                     .uuid(transportKey)
-                    .dataId(resolveDataId(payload))
+                    .dataId(dataId)
                     .build();
         } catch (Exception e) {
             log.warn("[Socket] 消息加密失败，已回退为明文发送", e);
-            return payload;
+            return null;
         }
     }
 
+    private byte[] frame(String payload, String dataId, SocketSessionKey key) {
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        if (key == null) {
+            return new SocketBinaryFrame((byte) 0, 0, dataId, body).toBytes();
+        }
+        byte flags = SocketBinaryFrame.FLAG_ENCRYPTED;
+        byte[] aad = SocketBinaryFrame.authenticatedData(flags, key.getKeyId(), dataId,
+                SocketSessionKey.encryptedLength(body.length));
+        return new SocketBinaryFrame(flags, key.getKeyId(), dataId, key.encrypt(body, aad)).toBytes();
+    }
+
     private boolean shouldEncrypt(String payload, Boolean encryptRequested) {
-        return shouldEncryptForCurrentSession(encryptRequested)
-                && payload != null
-                && codecKeyPair != null
+        return payload != null && isEncrypted(encryptRequested);
+    }
+
+    private boolean supportsEncryption() {
+        return codecKeyPair != null
                 && publicKeyHex != null
                 && !publicKeyHex.isBlank();
     }
@@ -95,14 +329,38 @@ public class SocketMessageCodec {
         };
     }
 
-    private String resolveDataId(String payload) {
-        try {
-            JsonNode root = OBJECT_MAPPER.readTree(payload);
-            JsonNode dataId = root.get("dataId");
-            if (dataId == null || dataId.isNull()) {
+    private static String dataId(SocketPreparedMessage message) {
+        return message.encoded(SocketPreparedMessage.SLOT_DATA_ID, () -> resolveDataId(message.getPayload()));
+    }
+
+    /**
+     * 流式读取顶层 dataId，找到后立即返回，不构建完整的 JSON 树
+     *
+     * @param payload 消息
+     * @return dataId
+     */
+    static String resolveDataId(String payload) {
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = OBJECT_MAPPER.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
                 return null;
             }
-            return dataId.isTextual() ? dataId.asText() : dataId.toString();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!DATA_ID.equals(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                return switch (value) {
+                    case VALUE_NULL -> null;
+                    case START_OBJECT, START_ARRAY -> parser.readValueAsTree().toString();
+                    default -> parser.getText();
+                };
+            }
+            return null;
         } catch (Exception ignored) {
             return null;
         }
@@ -0,0 +1,77 @@
+package com.chua.socket.support.codec;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 预编码的 Socket 消息
+ * <p>
+ * 由 {@link SocketMessageCodec#prepare(String)} 创建，广播时所有接收方共用同一个实例。
+ * 每种编码结果（加密包装体、明文帧、广播组密钥帧）在第一次使用时生成并缓存，
+ * 之后的接收方直接复用同一个对象或字节数组，不再重复序列化和加密。
+ * </p>
+ * <p>
+ * 由 {@link SocketMessageCodec#prepareDirect(String)} 创建的定向消息（发给指定用户或会话）不使用广播组密钥，
+ * 加密帧按接收会话的会话密钥逐个生成，只复用 dataId 与加密包装体。
+ * </p>
+ *
+ * @author CH
+ * @since 2026-04-08
+ */
+public final class SocketPreparedMessage {
+
+    static final int SLOT_DATA_ID = 0;
+    static final int SLOT_ENCRYPTED_ENVELOPE = 1;
+    static final int SLOT_PLAIN_FRAME = 2;
+    static final int SLOT_GROUP_FRAME = 3;
+
+    private static final Object NONE = new Object();
+
+    private final String payload;
+    private final boolean broadcast;
+    private final AtomicReferenceArray<Object> encoded = new AtomicReferenceArray<>(4);
+
+    SocketPreparedMessage(String payload, boolean broadcast) {
+        this.payload = payload;
+        this.broadcast = broadcast;
+    }
+
+    /**
+     * 获取原始消息
+     *
+     * @return 原始消息
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * 是否为广播消息，只有广播消息可以使用广播组密钥
+     *
+     * @return 是否广播
+     */
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * 获取或生成指定编码结果，并发首次生成时以先写入的结果为准
+     *
+     * @param slot    编码槽位
+     * @param encoder 编码方法，返回 null 表示不可编码
+     * @param <T>     编码结果类型
+     * @return 编码结果
+     */
+    @SuppressWarnings("unchecked")
+    <T> T encoded(int slot, Supplier<T> encoder) {
+        Object value = encoded.get(slot);
+        if (value == null) {
+            T created = encoder.get();
+            value = encoded.compareAndExchange(slot, null, created == null ? NONE : created);
+            if (value == null) {
+                value = created == null ? NONE : created;
+            }
+        }
+        return value == NONE ? null : (T) value;
+    }
+}
@@ -0,0 +1,153 @@
+package com.chua.socket.support.codec;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Socket 对称密钥
+ * <p>
+ * AES-GCM 密钥，握手时通过非对称加密下发一次，之后的消息只做对称加密。
+ * 密文格式为 {@code iv(12) + 密文 + tag(16)}，每次加密使用新的随机 IV。
+ * 附加认证数据（AAD）不进入密文，但会参与 tag 计算，解密时必须提供相同的数据。
+ * </p>
+ *
+ * @author CH
+ * @since 2026-04-08
+ */
+public final class SocketSessionKey {
+
+    public static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int KEY_BITS = 128;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int TAG_LENGTH = TAG_BITS / 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final AtomicInteger KEY_SEQUENCE = new AtomicInteger(RANDOM.nextInt());
+
+    private final int keyId;
+    private final SecretKey key;
+
+    public SocketSessionKey(int keyId, byte[] encoded) {
+        this.keyId = keyId;
+        this.key = new SecretKeySpec(encoded, "AES");
+    }
+
+    /**
+     * 生成新的对称密钥
+     *
+     * @return 对称密钥
+     */
+    public static SocketSessionKey generate() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(KEY_BITS, RANDOM);
+            int keyId;
+            do {
+                keyId = KEY_SEQUENCE.incrementAndGet();
+            } while (keyId == 0); // 0 保留给明文帧
+            return new SocketSessionKey(keyId, generator.generateKey().getEncoded());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 AES", e);
+        }
+    }
+
+    public int getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * 获取十六进制密钥，用于握手下发
+     *
+     * @return 十六进制密钥
+     */
+    public String getKeyHex() {
+        return HexFormat.of().formatHex(key.getEncoded());
+    }
+
+    /**
+     * 计算加密结果长度
+     *
+     * @param plainLength 明文长度
+     * @return {@code iv + 密文 + tag} 的长度
+     */
+    public static int encryptedLength(int plainLength) {
+        return IV_LENGTH + plainLength + TAG_LENGTH;
+    }
+
+    /**
+     * 加密
+     *
+     * @param plain 明文
+     * @return {@code iv + 密文}
+     */
+    public byte[] encrypt(byte[] plain) {
+        return encrypt(plain, null);
+    }
+
+    /**
+     * 加密，并认证附加数据
+     *
+     * @param plain 明文
+     * @param aad   附加认证数据，可为 null
+     * @return {@code iv + 密文}
+     */
+    public byte[] encrypt(byte[] plain, byte[] aad) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+            cipher.doFinal(plain, 0, plain.length, output, IV_LENGTH);
+            return output;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("消息加密失败", e);
+        }
+    }
+
+    /**
+     * 解密
+     *
+     * @param encrypted {@code iv + 密文}
+     * @return 明文
+     */
+    public byte[] decrypt(byte[] encrypted) {
+        return decrypt(encrypted, null);
+    }
+
+    /**
+     * 解密，并校验附加数据
+     *
+     * @param encrypted {@code iv + 密文}
+     * @param aad       加密时使用的附加认证数据，可为 null
+     * @return 明文
+     * @throws IllegalStateException 密文或附加数据被篡改
+     */
+    public byte[] decrypt(byte[] encrypted, byte[] aad) {
+        if (encrypted.length < IV_LENGTH) {
+            throw new IllegalArgumentException("密文长度不足");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, encrypted, 0, IV_LENGTH));
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            return cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("消息解密失败", e);
+        }
+    }
+}
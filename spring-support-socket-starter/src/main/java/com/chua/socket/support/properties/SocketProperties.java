@@ -2,6 +2,7 @@ package com.chua.socket.support.properties;
 
 import com.chua.socket.support.SocketProtocol;
 import com.chua.socket.support.codec.SocketEncryptMode;
+import com.chua.socket.support.codec.SocketFrameFormat;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -141,6 +142,11 @@ public class SocketProperties {
      */
     private String encryptKey;
 
+    /**
+     * 消息传输格式，默认 JSON 包装体；BINARY 时握手下发对称密钥并以二进制帧发送
+     */
+    private SocketFrameFormat frameFormat = SocketFrameFormat.ENVELOPE;
+
     /**
      * 最大帧大小（字节），默认1MB
      */
@@ -333,6 +339,24 @@ public class SocketProperties {
         this.encryptKey = encryptKey;
     }
 
+    /**
+     * 获取消息传输格式
+     *
+     * @return 消息传输格式
+     */
+    public SocketFrameFormat getFrameFormat() {
+        return frameFormat;
+    }
+
+    /**
+     * 设置消息传输格式
+     *
+     * @param frameFormat 消息传输格式
+     */
+    public void setFrameFormat(SocketFrameFormat frameFormat) {
+        this.frameFormat = frameFormat;
+    }
+
     /**
      * 获取最大帧大小
      *
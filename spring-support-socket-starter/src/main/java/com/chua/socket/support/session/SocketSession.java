@@ -1,5 +1,7 @@
 package com.chua.socket.support.session;
 
+import com.chua.socket.support.codec.SocketPreparedMessage;
+
 import java.util.Map;
 
 /**
@@ -98,6 +100,19 @@ public interface SocketSession {
      */
     void send(String event, Object data);
 
+    /**
+     * 发送预编码消息
+     * <p>
+     * 广播时所有会话共用同一个预编码消息，支持的实现直接复用其中缓存的编码结果。
+     * </p>
+     *
+     * @param event   事件名称
+     * @param message 预编码消息
+     */
+    default void sendPrepared(String event, SocketPreparedMessage message) {
+        send(event, message.getPayload());
+    }
+
     /**
      * 发送二进制数据
      *
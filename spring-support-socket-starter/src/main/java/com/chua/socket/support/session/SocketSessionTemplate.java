@@ -4,6 +4,7 @@ import com.chua.socket.support.util.Json;
 import com.chua.socket.support.MsgEvent;
 import com.chua.socket.support.MsgStep;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -164,6 +165,26 @@ public interface SocketSessionTemplate {
      */
     List<SocketSession> getOnlineSessions();
 
+    /**
+     * 获取指定用户的所有在线会话（多端登录时返回多个）
+     * <p>
+     * 默认实现遍历所有在线会话，维护了用户索引的实现应覆盖此方法
+     * </p>
+     *
+     * @param userId 用户ID
+     * @return 在线会话列表
+     */
+    default List<SocketSession> getUserSessions(String userId) {
+        List<SocketSession> result = new ArrayList<>();
+        for (SocketSession session : getOnlineSessions()) {
+            SocketUser user = session.getUser();
+            if (user != null && userId.equals(user.getUserId())) {
+                result.add(session);
+            }
+        }
+        return result;
+    }
+
     /**
      * 获取指定类型和房间ID的在线会话列表
      *
@@ -227,15 +248,11 @@ public interface SocketSessionTemplate {
      * @param data   二进制数据
      */
     default void sendBinaryToUser(String userId, String event, byte[] data) {
-        List<SocketSession> sessions = getOnlineSessions();
-        for (SocketSession session : sessions) {
-            SocketUser user = session.getUser();
-            if (user != null && userId.equals(user.getUserId())) {
-                try {
-                    session.sendBinary(event, data);
-                } catch (Exception e) {
-                    // 忽略单个会话发送失败
-                }
+        for (SocketSession session : getUserSessions(userId)) {
+            try {
+                session.sendBinary(event, data);
+            } catch (Exception e) {
+                // 忽略单个会话发送失败
             }
         }
     }
@@ -0,0 +1,164 @@
+package com.chua.socket.support.codec;
+
+import com.chua.common.support.crypto.CodecKeyPair;
+import com.chua.socket.support.model.SocketMessageEnvelope;
+import com.chua.socket.support.properties.SocketProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SocketMessageCodecTest {
+
+    @Test
+    void shouldCarryDataIdInFrameHeader() {
+        byte[] bytes = new SocketBinaryFrame((byte) 0, 0, "order:1", new byte[]{1, 2, 3}).toBytes();
+
+        SocketBinaryFrame frame = SocketBinaryFrame.parse(bytes);
+
+        assertThat(bytes).hasSize(SocketBinaryFrame.HEADER_LENGTH + "order:1".length() + 3);
+        assertThat(frame.encrypted()).isFalse();
+        assertThat(frame.dataId()).isEqualTo("order:1");
+        assertThat(frame.body()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldEncryptFrameWithSessionKey() {
+        SocketMessageCodec codec = new SocketMessageCodec(binaryProperties(SocketEncryptMode.PLAIN));
+        SocketSessionKey sessionKey = SocketSessionKey.generate();
+        String payload = "{\"dataId\":\"chat\",\"text\":\"你好\"}";
+
+        byte[] bytes = codec.encodeFrame(payload, sessionKey);
+        SocketBinaryFrame frame = SocketBinaryFrame.parse(bytes);
+
+        assertThat(frame.encrypted()).isTrue();
+        assertThat(frame.keyId()).isEqualTo(sessionKey.getKeyId());
+        assertThat(frame.dataId()).isEqualTo("chat");
+        assertThat(codec.decodeFrame(bytes, sessionKey)).isEqualTo(payload);
+        assertThatThrownBy(() -> codec.decodeFrame(bytes, SocketSessionKey.generate()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectFrameWithTamperedHeader() {
+        SocketMessageCodec codec = new SocketMessageCodec(binaryProperties(SocketEncryptMode.PLAIN));
+        SocketSessionKey sessionKey = SocketSessionKey.generate();
+        byte[] bytes = codec.encodeFrame("{\"dataId\":\"chat\"}", sessionKey);
+
+        byte[] tampered = bytes.clone();
+        // 改写 dataId 的第一个字节，消息体不变
+        tampered[SocketBinaryFrame.HEADER_LENGTH] = 'x';
+
+        assertThat(SocketBinaryFrame.parse(tampered).dataId()).isEqualTo("xhat");
+        assertThatThrownBy(() -> codec.decodeFrame(tampered, sessionKey))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(codec.decodeFrame(bytes, sessionKey)).isEqualTo("{\"dataId\":\"chat\"}");
+    }
+
+    @Test
+    void shouldReusePreparedFrameForAllRecipients() {
+        SocketMessageCodec codec = new SocketMessageCodec(binaryProperties(SocketEncryptMode.PLAIN));
+        SocketPreparedMessage prepared = codec.prepare("{\"dataId\":\"notice\"}");
+
+        Object first = codec.encode(prepared, null);
+        Object second = codec.encode(prepared, Boolean.TRUE);
+
+        assertThat(first).isInstanceOf(byte[].class).isSameAs(second);
+        assertThat(SocketBinaryFrame.parse((byte[]) first).dataId()).isEqualTo("notice");
+        assertThat(codec.decodeFrame((byte[]) first, null)).isEqualTo("{\"dataId\":\"notice\"}");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SocketEncryptMode.class, names = {"ENCRYPTED", "AUTO"})
+    void shouldDecryptPreparedGroupFrameWithHandshakeKey(SocketEncryptMode encryptMode) throws Exception {
+        SocketMessageCodec codec = encryptedCodec(encryptMode);
+        SocketSessionKey sessionKey = codec.newSessionKey();
+        JsonNode handshake = handshakeKeys(codec, sessionKey);
+        SocketSessionKey clientGroupKey = new SocketSessionKey(handshake.get("groupKeyId").asInt(),
+                HexFormat.of().parseHex(handshake.get("groupKey").asText()));
+        String payload = "{\"dataId\":\"notice\",\"text\":\"广播\"}";
+        SocketPreparedMessage prepared = codec.prepare(payload);
+
+        byte[] frame = (byte[]) codec.encode(prepared, null);
+        SocketBinaryFrame parsed = SocketBinaryFrame.parse(frame);
+
+        assertThat(parsed.encrypted()).isTrue();
+        assertThat(parsed.keyId()).isEqualTo(clientGroupKey.getKeyId());
+        assertThat(codec.encode(prepared, Boolean.TRUE, sessionKey)).isSameAs(frame);
+        // 客户端只用握手下发的组密钥解密
+        assertThat(new String(clientGroupKey.decrypt(parsed.body(), parsed.authenticatedData()), StandardCharsets.UTF_8))
+                .isEqualTo(payload);
+        assertThat(handshake.get("sessionKeyId").asInt()).isEqualTo(sessionKey.getKeyId());
+        assertThat(handshake.get("sessionKey").asText()).isEqualTo(sessionKey.getKeyHex());
+    }
+
+    @Test
+    void shouldEncryptDirectMessageWithEachRecipientSessionKey() throws Exception {
+        SocketMessageCodec codec = encryptedCodec(SocketEncryptMode.ENCRYPTED);
+        SocketSessionKey first = codec.newSessionKey();
+        SocketSessionKey second = codec.newSessionKey();
+        String payload = "{\"dataId\":\"private\"}";
+        SocketPreparedMessage prepared = codec.prepareDirect(payload);
+
+        byte[] toFirst = (byte[]) codec.encode(prepared, null, first);
+        byte[] toSecond = (byte[]) codec.encode(prepared, null, second);
+
+        assertThat(SocketBinaryFrame.parse(toFirst).keyId()).isEqualTo(first.getKeyId());
+        assertThat(SocketBinaryFrame.parse(toSecond).keyId()).isEqualTo(second.getKeyId());
+        assertThat(codec.decodeFrame(toFirst, first)).isEqualTo(payload);
+        assertThat(codec.decodeFrame(toSecond, second)).isEqualTo(payload);
+        // 其他会话只持有自己的会话密钥和广播组密钥，无法解密定向消息
+        assertThatThrownBy(() -> codec.decodeFrame(toFirst, second)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.encode(prepared, null, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldResolveTopLevelDataIdOnly() {
+        assertThat(SocketMessageCodec.resolveDataId("{\"nested\":{\"dataId\":\"inner\"},\"dataId\":\"outer\"}"))
+                .isEqualTo("outer");
+        assertThat(SocketMessageCodec.resolveDataId("{\"list\":[{\"dataId\":1}],\"dataId\":42}")).isEqualTo("42");
+        assertThat(SocketMessageCodec.resolveDataId("{\"nested\":{\"dataId\":\"inner\"}}")).isNull();
+        assertThat(SocketMessageCodec.resolveDataId("{\"dataId\":null}")).isNull();
+        assertThat(SocketMessageCodec.resolveDataId("plain text")).isNull();
+    }
+
+    /**
+     * 读取握手消息中的密钥，测试用的非对称加密原样返回明文
+     */
+    static JsonNode handshakeKeys(SocketMessageCodec codec, SocketSessionKey sessionKey) throws Exception {
+        SocketMessageEnvelope envelope = (SocketMessageEnvelope) codec.handshake(sessionKey);
+        assertThat(envelope.getDataId()).isEqualTo(SocketMessageCodec.HANDSHAKE_DATA_ID);
+        String data = envelope.getData();
+        String prefix = "02" + envelope.getUuid() + "200";
+        assertThat(data).startsWith(prefix).endsWith("ffff");
+        return new ObjectMapper().readTree(data.substring(prefix.length(), data.length() - "ffff".length()));
+    }
+
+    /**
+     * 非对称加密原样返回明文，便于测试读取握手消息
+     */
+    static SocketMessageCodec encryptedCodec(SocketEncryptMode encryptMode) throws Exception {
+        CodecKeyPair keyPair = mock(CodecKeyPair.class);
+        when(keyPair.getPublicKeyHex()).thenReturn("public-key");
+        when(keyPair.getPrivateKeyHex()).thenReturn("private-key");
+        when(keyPair.encode(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        return new SocketMessageCodec(binaryProperties(encryptMode), keyPair);
+    }
+
+    private static SocketProperties binaryProperties(SocketEncryptMode encryptMode) {
+        SocketProperties properties = new SocketProperties();
+        properties.setEncryptMode(encryptMode);
+        properties.setFrameFormat(SocketFrameFormat.BINARY);
+        return properties;
+    }
+}
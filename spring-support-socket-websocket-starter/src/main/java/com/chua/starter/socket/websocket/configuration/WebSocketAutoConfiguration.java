@@ -52,7 +52,7 @@ public class WebSocketAutoConfiguration implements WebSocketConfigurer {
     @Bean
     @ConditionalOnMissingBean
     public WebSocketSessionManager webSocketSessionManager() {
-        return new WebSocketSessionManager();
+        return new WebSocketSessionManager(properties);
     }
 
     @Bean
@@ -2,6 +2,7 @@ package com.chua.starter.socket.websocket.properties;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,6 +59,11 @@ public class WebSocketProperties {
      */
     private int sendTimeLimit = 10000;
 
+    /**
+     * 慢客户端处理策略：TERMINATE 断开连接，DROP 丢弃最早的待发送消息
+     */
+    private OverflowStrategy overflowStrategy = OverflowStrategy.TERMINATE;
+
     /**
      * 获取允许的源
      *
@@ -130,6 +136,24 @@ public class WebSocketProperties {
         this.maxMessageSize = maxMessageSize;
     }
 
+    /**
+     * 获取发送缓冲区大小限制
+     *
+     * @return 发送缓冲区大小限制（字节）
+     */
+    public int getSendBufferSizeLimit() {
+        return sendBufferSizeLimit;
+    }
+
+    /**
+     * 设置发送缓冲区大小限制
+     *
+     * @param sendBufferSizeLimit 发送缓冲区大小限制（字节）
+     */
+    public void setSendBufferSizeLimit(int sendBufferSizeLimit) {
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
     /**
      * 获取发送超时时间
      *
@@ -148,6 +172,24 @@ public class WebSocketProperties {
         this.sendTimeLimit = sendTimeLimit;
     }
 
+    /**
+     * 获取慢客户端处理策略
+     *
+     * @return 慢客户端处理策略
+     */
+    public OverflowStrategy getOverflowStrategy() {
+        return overflowStrategy;
+    }
+
+    /**
+     * 设置慢客户端处理策略
+     *
+     * @param overflowStrategy 慢客户端处理策略
+     */
+    public void setOverflowStrategy(OverflowStrategy overflowStrategy) {
+        this.overflowStrategy = overflowStrategy;
+    }
+
     /**
      * 获取端点列表
      *
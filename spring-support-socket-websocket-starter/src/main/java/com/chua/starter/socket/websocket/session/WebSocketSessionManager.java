@@ -1,47 +1,118 @@
 package com.chua.starter.socket.websocket.session;
 
+import com.chua.starter.socket.websocket.properties.WebSocketProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket 会话管理器
+ * <p>
+ * 会话按用户、房间、租户建立索引，同一用户可以有多个会话（多端登录），定向发送直接按索引查找。
+ * 每个会话由一个 {@link WebSocketSessionWriter} 负责发送，发送方法只做入队，
+ * 广播时各会话在各自的虚拟线程上并行写出，发送速度不受最慢客户端影响。
+ * </p>
+ * <p>
+ * 连接建立时会读取会话属性 {@value #ATTRIBUTE_USER_ID}、{@value #ATTRIBUTE_TENANT_ID}、{@value #ATTRIBUTE_ROOM_ID}
+ * （通常由握手拦截器写入）自动建立索引，也可以通过 {@link #bindUser}、{@link #bindTenant}、{@link #joinRoom} 手动维护。
+ * </p>
+ * <p>
+ * 容器销毁时关闭所有会话并停止发送任务执行器。
+ * </p>
  *
  * @author CH
  * @since 2025-12-25
  */
 @Slf4j
-public class WebSocketSessionManager {
+public class WebSocketSessionManager implements DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketSessionManager.class);
 
     /**
-     * 所有会话：sessionId -> session
+     * 销毁时等待写出任务结束的时间（秒）
      */
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    public static final String ATTRIBUTE_USER_ID = "userId";
+    public static final String ATTRIBUTE_TENANT_ID = "tenantId";
+    public static final String ATTRIBUTE_ROOM_ID = "roomId";
+
+    private final WebSocketProperties properties;
+
+    /**
+     * 发送任务执行器，每个会话的写出任务运行在独立的虚拟线程上
+     */
+    private final ExecutorService writerExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("websocket-writer-", 0).factory());
+
+    /**
+     * 所有会话：sessionId -> 会话
+     */
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
 
     /**
-     * 用户会话映射：userId -> sessionId
+     * 用户索引：userId -> 会话集合
      */
-    private final Map<String, String> userSessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<SessionEntry>> userSessions = new ConcurrentHashMap<>();
 
     /**
-     * 会话用户映射：sessionId -> userId
+     * 房间索引：roomId -> 会话集合
      */
-    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<String, Set<SessionEntry>> roomSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 租户索引：tenantId -> 会话集合
+     */
+    private final Map<String, Set<SessionEntry>> tenantSessions = new ConcurrentHashMap<>();
+
+    public WebSocketSessionManager() {
+        this(new WebSocketProperties());
+    }
+
+    public WebSocketSessionManager(WebSocketProperties properties) {
+        this.properties = properties;
+    }
 
     /**
      * 添加会话
      */
     public void addSession(WebSocketSession session) {
-        sessions.put(session.getId(), session);
+        SessionEntry entry = new SessionEntry(session, new WebSocketSessionWriter(session, writerExecutor,
+                properties.getSendBufferSizeLimit(), properties.getSendTimeLimit(), properties.getOverflowStrategy()));
+        sessions.put(session.getId(), entry);
+
+        Map<String, Object> attributes = session.getAttributes();
+        if (attributes != null) {
+            Object userId = attributes.get(ATTRIBUTE_USER_ID);
+            if (userId != null) {
+                bindUser(session.getId(), userId.toString());
+            }
+            Object tenantId = attributes.get(ATTRIBUTE_TENANT_ID);
+            if (tenantId != null) {
+                bindTenant(session.getId(), tenantId.toString());
+            }
+            Object roomId = attributes.get(ATTRIBUTE_ROOM_ID);
+            if (roomId != null) {
+                joinRoom(session.getId(), roomId.toString());
+            }
+        }
         log.debug("[WebSocket] 会话已添加: {}", session.getId());
     }
 
@@ -50,38 +121,108 @@ public class WebSocketSessionManager {
      */
     public void removeSession(WebSocketSession session) {
         String sessionId = session.getId();
-        sessions.remove(sessionId);
-        
-        String userId = sessionUsers.remove(sessionId);
-        if (userId != null) {
-            userSessions.remove(userId);
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry == null) {
+            return;
         }
-        
+        entry.writer.close();
+        synchronized (entry) {
+            entry.removed = true;
+            unindex(userSessions, entry.userId, entry);
+            unindex(tenantSessions, entry.tenantId, entry);
+            for (String roomId : entry.rooms) {
+                unindex(roomSessions, roomId, entry);
+            }
+            entry.userId = null;
+            entry.tenantId = null;
+            entry.rooms.clear();
+        }
+
         log.debug("[WebSocket] 会话已移除: {}", sessionId);
     }
 
     /**
-     * 绑定用户
+     * 绑定用户，同一用户可以绑定多个会话
      */
     public void bindUser(String sessionId, String userId) {
-        // 移除旧绑定
-        String oldSessionId = userSessions.get(userId);
-        if (oldSessionId != null && !oldSessionId.equals(sessionId)) {
-            sessionUsers.remove(oldSessionId);
-        }
-        
-        userSessions.put(userId, sessionId);
-        sessionUsers.put(sessionId, userId);
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.removed || userId.equals(entry.userId)) {
+                return;
+            }
+            // 会话改绑其他用户时移除旧绑定
+            unindex(userSessions, entry.userId, entry);
+            entry.userId = userId;
+            index(userSessions, userId, entry);
+        }
         log.debug("[WebSocket] 用户绑定: userId={}, sessionId={}", userId, sessionId);
     }
 
     /**
-     * 解绑用户
+     * 解绑用户的所有会话
      */
     public void unbindUser(String userId) {
-        String sessionId = userSessions.remove(userId);
-        if (sessionId != null) {
-            sessionUsers.remove(sessionId);
+        Set<SessionEntry> entries = userSessions.remove(userId);
+        if (entries == null) {
+            return;
+        }
+        for (SessionEntry entry : entries) {
+            synchronized (entry) {
+                if (userId.equals(entry.userId)) {
+                    entry.userId = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 绑定租户
+     */
+    public void bindTenant(String sessionId, String tenantId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.removed || tenantId.equals(entry.tenantId)) {
+                return;
+            }
+            unindex(tenantSessions, entry.tenantId, entry);
+            entry.tenantId = tenantId;
+            index(tenantSessions, tenantId, entry);
+        }
+    }
+
+    /**
+     * 加入房间，一个会话可以同时在多个房间
+     */
+    public void joinRoom(String sessionId, String roomId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (!entry.removed && entry.rooms.add(roomId)) {
+                index(roomSessions, roomId, entry);
+            }
+        }
+    }
+
+    /**
+     * 离开房间
+     */
+    public void leaveRoom(String sessionId, String roomId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.rooms.remove(roomId)) {
+                unindex(roomSessions, roomId, entry);
+            }
         }
     }
 
@@ -89,29 +230,68 @@ public class WebSocketSessionManager {
      * 获取会话
      */
     public WebSocketSession getSession(String sessionId) {
-        return sessions.get(sessionId);
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null ? entry.session : null;
     }
 
     /**
-     * 获取用户会话
+     * 获取用户的任意一个会话，多端登录时请使用 {@link #getSessionsByUserId(String)}
      */
     public WebSocketSession getSessionByUserId(String userId) {
-        String sessionId = userSessions.get(userId);
-        return sessionId != null ? sessions.get(sessionId) : null;
+        Set<SessionEntry> entries = userSessions.get(userId);
+        if (entries == null) {
+            return null;
+        }
+        Iterator<SessionEntry> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next().session : null;
+    }
+
+    /**
+     * 获取用户的所有会话
+     */
+    public List<WebSocketSession> getSessionsByUserId(String userId) {
+        return sessionsOf(userSessions.get(userId));
+    }
+
+    /**
+     * 获取房间内的所有会话
+     */
+    public List<WebSocketSession> getSessionsByRoom(String roomId) {
+        return sessionsOf(roomSessions.get(roomId));
+    }
+
+    /**
+     * 获取租户的所有会话
+     */
+    public List<WebSocketSession> getSessionsByTenant(String tenantId) {
+        return sessionsOf(tenantSessions.get(tenantId));
     }
 
     /**
      * 获取会话绑定的用户
      */
     public String getUserId(String sessionId) {
-        return sessionUsers.get(sessionId);
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null ? entry.userId : null;
+    }
+
+    /**
+     * 获取会话绑定的租户
+     */
+    public String getTenantId(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null ? entry.tenantId : null;
     }
 
     /**
      * 获取所有会话
      */
     public Collection<WebSocketSession> getAllSessions() {
-        return sessions.values();
+        List<WebSocketSession> result = new ArrayList<>(sessions.size());
+        for (SessionEntry entry : sessions.values()) {
+            result.add(entry.session);
+        }
+        return result;
     }
 
     /**
@@ -121,14 +301,78 @@ public class WebSocketSessionManager {
         return sessions.size();
     }
 
+    /**
+     * 获取在线用户数
+     */
+    public int getUserCount() {
+        return userSessions.size();
+    }
+
+    /**
+     * 获取因慢客户端丢弃的消息总数
+     */
+    public long getDroppedMessageCount() {
+        long dropped = 0;
+        for (SessionEntry entry : sessions.values()) {
+            dropped += entry.writer.getDroppedCount();
+        }
+        return dropped;
+    }
+
+    /**
+     * 发送消息到指定会话
+     *
+     * @return 是否已进入发送队列
+     */
+    public boolean send(String sessionId, WebSocketMessage<?> message) {
+        SessionEntry entry = sessions.get(sessionId);
+        return entry != null && entry.writer.offer(message);
+    }
+
+    /**
+     * 发送消息到用户的所有会话
+     *
+     * @return 进入发送队列的会话数
+     */
+    public int sendToUser(String userId, WebSocketMessage<?> message) {
+        return offer(userSessions.get(userId), message);
+    }
+
+    /**
+     * 发送消息到房间内的所有会话
+     *
+     * @return 进入发送队列的会话数
+     */
+    public int sendToRoom(String roomId, WebSocketMessage<?> message) {
+        return offer(roomSessions.get(roomId), message);
+    }
+
+    /**
+     * 发送消息到租户的所有会话
+     *
+     * @return 进入发送队列的会话数
+     */
+    public int sendToTenant(String tenantId, WebSocketMessage<?> message) {
+        return offer(tenantSessions.get(tenantId), message);
+    }
+
+    /**
+     * 广播消息到所有会话
+     *
+     * @return 进入发送队列的会话数
+     */
+    public int broadcast(WebSocketMessage<?> message) {
+        return offer(sessions.values(), message);
+    }
+
     /**
      * 关闭会话
      */
     public void closeSession(String sessionId, CloseStatus status) {
-        WebSocketSession session = sessions.get(sessionId);
-        if (session != null && session.isOpen()) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null && entry.session.isOpen()) {
             try {
-                session.close(status);
+                entry.session.close(status);
             } catch (IOException e) {
                 log.warn("[WebSocket] 关闭会话失败: {}", sessionId, e);
             }
@@ -139,17 +383,94 @@ public class WebSocketSessionManager {
      * 关闭所有会话
      */
     public void closeAllSessions(CloseStatus status) {
-        sessions.values().forEach(session -> {
+        sessions.values().forEach(entry -> {
+            entry.writer.close();
             try {
-                if (session.isOpen()) {
-                    session.close(status);
+                if (entry.session.isOpen()) {
+                    entry.session.close(status);
                 }
             } catch (IOException e) {
-                log.warn("[WebSocket] 关闭会话失败: {}", session.getId(), e);
+                log.warn("[WebSocket] 关闭会话失败: {}", entry.session.getId(), e);
             }
         });
         sessions.clear();
         userSessions.clear();
-        sessionUsers.clear();
+        roomSessions.clear();
+        tenantSessions.clear();
+    }
+
+    /**
+     * 关闭所有会话并停止发送任务执行器
+     */
+    @Override
+    public void destroy() {
+        closeAllSessions(CloseStatus.GOING_AWAY);
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                writerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int offer(Collection<SessionEntry> entries, WebSocketMessage<?> message) {
+        if (entries == null) {
+            return 0;
+        }
+        int count = 0;
+        for (SessionEntry entry : entries) {
+            if (entry.writer.offer(message)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<WebSocketSession> sessionsOf(Set<SessionEntry> entries) {
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        List<WebSocketSession> result = new ArrayList<>(entries.size());
+        for (SessionEntry entry : entries) {
+            result.add(entry.session);
+        }
+        return result;
+    }
+
+    private static void index(Map<String, Set<SessionEntry>> index, String key, SessionEntry entry) {
+        index.compute(key, (k, entries) -> {
+            Set<SessionEntry> result = entries != null ? entries : ConcurrentHashMap.newKeySet();
+            result.add(entry);
+            return result;
+        });
+    }
+
+    private static void unindex(Map<String, Set<SessionEntry>> index, String key, SessionEntry entry) {
+        if (key == null) {
+            return;
+        }
+        // 集合为空时移除索引键，避免离线用户、房间长期占用内存
+        index.computeIfPresent(key, (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private static final class SessionEntry {
+
+        private final WebSocketSession session;
+        private final WebSocketSessionWriter writer;
+        private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+        private volatile String userId;
+        private volatile String tenantId;
+        private boolean removed;
+
+        private SessionEntry(WebSocketSession session, WebSocketSessionWriter writer) {
+            this.session = session;
+            this.writer = writer;
+        }
     }
 }
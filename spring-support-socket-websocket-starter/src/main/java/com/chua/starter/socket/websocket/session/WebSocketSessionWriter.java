@@ -0,0 +1,213 @@
+package com.chua.starter.socket.websocket.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 会话发送器
+ * <p>
+ * 每个会话一个有界发送队列，由一个写出任务按顺序发送，调用方只负责入队，不会被慢客户端阻塞。
+ * 慢客户端按 {@link OverflowStrategy} 处理：
+ * </p>
+ * <ul>
+ *     <li>TERMINATE：缓冲字节数超过上限，或单条消息发送时间超过上限时关闭会话</li>
+ *     <li>DROP：缓冲字节数超过上限时丢弃最早的消息，只保留最新的消息（降级为有损推送）</li>
+ * </ul>
+ *
+ * @author CH
+ * @since 2025-12-25
+ */
+@Slf4j
+public class WebSocketSessionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketSessionWriter.class);
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimit;
+    private final OverflowStrategy overflowStrategy;
+
+    private final ConcurrentLinkedDeque<WebSocketMessage<?>> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger bufferSize = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 当前消息开始发送的时间，空闲时为 0
+     */
+    private volatile long sendStartedAt;
+
+    /**
+     * @param session          会话
+     * @param executor         写出任务执行器
+     * @param bufferSizeLimit  发送缓冲区大小上限（字节）
+     * @param sendTimeLimit    单条消息发送时间上限（毫秒）
+     * @param overflowStrategy 慢客户端处理策略
+     */
+    public WebSocketSessionWriter(WebSocketSession session, Executor executor, int bufferSizeLimit,
+                                  long sendTimeLimit, OverflowStrategy overflowStrategy) {
+        this.session = session;
+        this.executor = executor;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimit = sendTimeLimit;
+        this.overflowStrategy = overflowStrategy == null ? OverflowStrategy.TERMINATE : overflowStrategy;
+    }
+
+    /**
+     * 消息入队
+     *
+     * @param message 消息
+     * @return 是否入队成功；会话已关闭、被判定为慢客户端或消息被丢弃时返回 false
+     */
+    public boolean offer(WebSocketMessage<?> message) {
+        if (closed.get() || !session.isOpen()) {
+            return false;
+        }
+        if (OverflowStrategy.TERMINATE == overflowStrategy && isSendTimeExceeded()) {
+            terminate("发送超时");
+            return false;
+        }
+        queue.addLast(message);
+        int size = bufferSize.addAndGet(message.getPayloadLength());
+        if (closed.get()) {
+            // close()/terminate() 可能在入队前已清空队列，再清一次避免消息残留
+            clear();
+            return false;
+        }
+        boolean accepted = true;
+        if (size > bufferSizeLimit) {
+            if (OverflowStrategy.TERMINATE == overflowStrategy) {
+                terminate("发送缓冲区溢出");
+                return false;
+            }
+            // 丢弃最早的消息直到缓冲区回到上限以内，单条消息超过上限时自身也会被丢弃
+            while (bufferSize.get() > bufferSizeLimit) {
+                WebSocketMessage<?> oldest = queue.pollFirst();
+                if (oldest == null) {
+                    break;
+                }
+                bufferSize.addAndGet(-oldest.getPayloadLength());
+                droppedCount.incrementAndGet();
+                if (oldest == message) {
+                    accepted = false;
+                }
+            }
+        }
+        schedule();
+        return accepted;
+    }
+
+    /**
+     * 获取待发送字节数
+     *
+     * @return 待发送字节数
+     */
+    public int getBufferSize() {
+        return bufferSize.get();
+    }
+
+    /**
+     * 获取因缓冲区溢出丢弃的消息数
+     *
+     * @return 丢弃的消息数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 停止发送并清空队列，不关闭底层会话
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            clear();
+        }
+    }
+
+    private boolean isSendTimeExceeded() {
+        long startedAt = sendStartedAt;
+        return startedAt > 0 && System.currentTimeMillis() - startedAt > sendTimeLimit;
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.warn("[WebSocket] 发送任务提交失败: sessionId={}", session.getId());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> message;
+            while (!closed.get() && (message = queue.pollFirst()) != null) {
+                bufferSize.addAndGet(-message.getPayloadLength());
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    // 与直接使用会话发送的业务代码保持同一把锁
+                    synchronized (session) {
+                        session.sendMessage(message);
+                    }
+                } catch (Exception e) {
+                    log.warn("[WebSocket] 发送消息失败: sessionId={}, error={}", session.getId(), e.getMessage());
+                    terminate("发送失败");
+                    return;
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 写出任务退出前有新消息入队时，重新调度
+        if (!closed.get() && !queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void terminate(String reason) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        clear();
+        log.warn("[WebSocket] 慢客户端已断开: sessionId={}, reason={}", session.getId(), reason);
+        try {
+            // 关闭可能被阻塞的连接，不占用调用方线程
+            executor.execute(this::closeSession);
+        } catch (RejectedExecutionException e) {
+            closeSession();
+        }
+    }
+
+    private void closeSession() {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.debug("[WebSocket] 关闭会话失败: {}", session.getId(), e);
+        }
+    }
+
+    private void clear() {
+        WebSocketMessage<?> message;
+        while ((message = queue.pollFirst()) != null) {
+            bufferSize.addAndGet(-message.getPayloadLength());
+        }
+    }
+}
@@ -5,11 +5,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-
-import java.io.IOException;
-import java.util.Collection;
 
 /**
  * WebSocket 消息模板
@@ -36,43 +33,94 @@ public class WebSocketTemplate {
 
     /**
      * 发送消息到指定会话
+     * <p>
+     * 消息进入会话的发送队列后立即返回，由会话发送器异步写出
+     * </p>
      *
      * @param sessionId 会话ID
      * @param message   消息内容
-     * @return 是否发送成功
+     * @return 是否已进入发送队列
      */
     public boolean send(String sessionId, String message) {
-        WebSocketSession session = sessionManager.getSession(sessionId);
-        return sendToSession(session, message);
+        return sessionManager.send(sessionId, new TextMessage(message));
     }
 
     /**
-     * 发送消息到指定用户
+     * 发送消息到指定用户的所有会话（多端登录时每个端都会收到）
      *
      * @param userId  用户ID
      * @param message 消息内容
-     * @return 是否发送成功
+     * @return 是否至少有一个会话接收
      */
     public boolean sendToUser(String userId, String message) {
-        WebSocketSession session = sessionManager.getSessionByUserId(userId);
-        return sendToSession(session, message);
+        return sessionManager.sendToUser(userId, new TextMessage(message)) > 0;
+    }
+
+    /**
+     * 发送消息到房间
+     *
+     * @param roomId  房间ID
+     * @param message 消息内容
+     * @return 进入发送队列的会话数
+     */
+    public int sendToRoom(String roomId, String message) {
+        return sessionManager.sendToRoom(roomId, new TextMessage(message));
+    }
+
+    /**
+     * 发送消息到租户
+     *
+     * @param tenantId 租户ID
+     * @param message  消息内容
+     * @return 进入发送队列的会话数
+     */
+    public int sendToTenant(String tenantId, String message) {
+        return sessionManager.sendToTenant(tenantId, new TextMessage(message));
     }
 
     /**
      * 广播消息到所有会话
+     * <p>
+     * 所有会话共用同一个消息对象，各会话并行写出
+     * </p>
      *
      * @param message 消息内容
-     * @return 成功发送的数量
+     * @return 进入发送队列的会话数
      */
     public int broadcast(String message) {
-        Collection<WebSocketSession> sessions = sessionManager.getAllSessions();
-        int count = 0;
-        for (WebSocketSession session : sessions) {
-            if (sendToSession(session, message)) {
-                count++;
-            }
-        }
-        return count;
+        return sessionManager.broadcast(new TextMessage(message));
+    }
+
+    /**
+     * 发送二进制数据到指定会话
+     *
+     * @param sessionId 会话ID
+     * @param data      二进制数据
+     * @return 是否已进入发送队列
+     */
+    public boolean sendBinary(String sessionId, byte[] data) {
+        return sessionManager.send(sessionId, new BinaryMessage(data));
+    }
+
+    /**
+     * 发送二进制数据到指定用户的所有会话
+     *
+     * @param userId 用户ID
+     * @param data   二进制数据
+     * @return 进入发送队列的会话数
+     */
+    public int sendBinaryToUser(String userId, byte[] data) {
+        return sessionManager.sendToUser(userId, new BinaryMessage(data));
+    }
+
+    /**
+     * 广播二进制数据到所有会话
+     *
+     * @param data 二进制数据
+     * @return 进入发送队列的会话数
+     */
+    public int broadcastBinary(byte[] data) {
+        return sessionManager.broadcast(new BinaryMessage(data));
     }
 
     /**
@@ -95,30 +143,41 @@ public class WebSocketTemplate {
     }
 
     /**
-     * 获取在线会话数
+     * 绑定租户到会话
      *
-     * @return 会话数量
+     * @param sessionId 会话ID
+     * @param tenantId  租户ID
      */
-    public int getOnlineCount() {
-        return sessionManager.getSessionCount();
+    public void bindTenant(String sessionId, String tenantId) {
+        sessionManager.bindTenant(sessionId, tenantId);
     }
 
     /**
-     * 发送消息到会话
+     * 会话加入房间
+     *
+     * @param sessionId 会话ID
+     * @param roomId    房间ID
      */
-    private boolean sendToSession(WebSocketSession session, String message) {
-        if (session == null || !session.isOpen()) {
-            return false;
-        }
-        try {
-            synchronized (session) {
-                session.sendMessage(new TextMessage(message));
-            }
-            return true;
-        } catch (IOException e) {
-            log.error("[WebSocket] 发送消息失败: sessionId={}", session.getId(), e);
-            return false;
-        }
+    public void joinRoom(String sessionId, String roomId) {
+        sessionManager.joinRoom(sessionId, roomId);
+    }
+
+    /**
+     * 会话离开房间
+     *
+     * @param sessionId 会话ID
+     * @param roomId    房间ID
+     */
+    public void leaveRoom(String sessionId, String roomId) {
+        sessionManager.leaveRoom(sessionId, roomId);
     }
-}
 
+    /**
+     * 获取在线会话数
+     *
+     * @return 会话数量
+     */
+    public int getOnlineCount() {
+        return sessionManager.getSessionCount();
+    }
+}
@@ -0,0 +1,141 @@
+package com.chua.starter.socket.websocket.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketSessionManagerTest {
+
+    private final WebSocketSessionManager manager = new WebSocketSessionManager();
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    @Test
+    void shouldIndexSessionFromHandshakeAttributes() {
+        StubWebSocketSession session = new StubWebSocketSession("s1")
+                .attribute(WebSocketSessionManager.ATTRIBUTE_USER_ID, "u1")
+                .attribute(WebSocketSessionManager.ATTRIBUTE_TENANT_ID, "t1")
+                .attribute(WebSocketSessionManager.ATTRIBUTE_ROOM_ID, "r1");
+
+        manager.addSession(session);
+
+        assertThat(manager.getSessionsByUserId("u1")).containsExactly(session);
+        assertThat(manager.getSessionsByTenant("t1")).containsExactly(session);
+        assertThat(manager.getSessionsByRoom("r1")).containsExactly(session);
+        assertThat(manager.getUserId("s1")).isEqualTo("u1");
+        assertThat(manager.getTenantId("s1")).isEqualTo("t1");
+    }
+
+    @Test
+    void shouldKeepMultipleSessionsPerUserAndMoveOnRebind() {
+        StubWebSocketSession phone = new StubWebSocketSession("phone");
+        StubWebSocketSession desktop = new StubWebSocketSession("desktop");
+        manager.addSession(phone);
+        manager.addSession(desktop);
+        manager.bindUser("phone", "u1");
+        manager.bindUser("desktop", "u1");
+
+        assertThat(manager.getSessionsByUserId("u1")).containsExactlyInAnyOrder(phone, desktop);
+        assertThat(manager.getUserCount()).isEqualTo(1);
+
+        manager.bindUser("desktop", "u2");
+
+        assertThat(manager.getSessionsByUserId("u1")).containsExactly(phone);
+        assertThat(manager.getSessionsByUserId("u2")).containsExactly(desktop);
+        assertThat(manager.getUserCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropEmptyIndexKeysWhenSessionRemoved() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        manager.addSession(session);
+        manager.bindUser("s1", "u1");
+        manager.bindTenant("s1", "t1");
+        manager.joinRoom("s1", "r1");
+        manager.joinRoom("s1", "r2");
+
+        manager.removeSession(session);
+
+        assertThat(manager.getSessionCount()).isZero();
+        assertThat(manager.getUserCount()).isZero();
+        assertThat(manager.getSessionsByUserId("u1")).isEmpty();
+        assertThat(manager.getSessionsByTenant("t1")).isEmpty();
+        assertThat(manager.getSessionsByRoom("r1")).isEmpty();
+        assertThat(manager.getSessionsByRoom("r2")).isEmpty();
+
+        // 移除后的绑定和发送不再生效
+        manager.bindUser("s1", "u1");
+        manager.joinRoom("s1", "r1");
+        assertThat(manager.getSessionsByUserId("u1")).isEmpty();
+        assertThat(manager.send("s1", new TextMessage("late"))).isFalse();
+    }
+
+    @Test
+    void shouldSendToIndexedSessions() throws Exception {
+        StubWebSocketSession first = new StubWebSocketSession("s1");
+        StubWebSocketSession second = new StubWebSocketSession("s2");
+        StubWebSocketSession other = new StubWebSocketSession("s3");
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.addSession(other);
+        manager.joinRoom("s1", "r1");
+        manager.joinRoom("s2", "r1");
+        manager.bindUser("s3", "u3");
+
+        assertThat(manager.sendToRoom("r1", new TextMessage("room"))).isEqualTo(2);
+        assertThat(manager.sendToUser("u3", new TextMessage("direct"))).isEqualTo(1);
+        assertThat(manager.sendToUser("missing", new TextMessage("none"))).isZero();
+
+        awaitSent(first, 1);
+        awaitSent(second, 1);
+        awaitSent(other, 1);
+        assertThat(first.sent.get(0).getPayload()).isEqualTo("room");
+        assertThat(other.sent.get(0).getPayload()).isEqualTo("direct");
+    }
+
+    @Test
+    void shouldLeaveRoomAndUnbindUser() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        manager.addSession(session);
+        manager.joinRoom("s1", "r1");
+        manager.bindUser("s1", "u1");
+
+        manager.leaveRoom("s1", "r1");
+        manager.unbindUser("u1");
+
+        assertThat(manager.getSessionsByRoom("r1")).isEmpty();
+        assertThat(manager.getSessionsByUserId("u1")).isEmpty();
+        assertThat(manager.getUserId("s1")).isNull();
+        assertThat(manager.getSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCloseAllSessionsOnDestroy() {
+        StubWebSocketSession first = new StubWebSocketSession("s1");
+        StubWebSocketSession second = new StubWebSocketSession("s2");
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.bindUser("s1", "u1");
+
+        manager.destroy();
+
+        assertThat(first.getCloseStatus()).isEqualTo(CloseStatus.GOING_AWAY);
+        assertThat(second.getCloseStatus()).isEqualTo(CloseStatus.GOING_AWAY);
+        assertThat(manager.getSessionCount()).isZero();
+        assertThat(manager.getUserCount()).isZero();
+    }
+
+    private static void awaitSent(StubWebSocketSession session, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (session.sent.size() < count) {
+            assertThat(System.currentTimeMillis()).as("message not sent in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.chua.starter.socket.websocket.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketSessionWriterTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldTerminateSessionWhenBufferOverflows() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        ManualExecutor manual = new ManualExecutor();
+        WebSocketSessionWriter writer = new WebSocketSessionWriter(session, manual, 10, 10_000, OverflowStrategy.TERMINATE);
+
+        assertThat(writer.offer(new TextMessage("123456"))).isTrue();
+        assertThat(writer.offer(new TextMessage("123456"))).isFalse();
+        manual.runAll();
+
+        assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(session.sent).isEmpty();
+        assertThat(writer.getBufferSize()).isZero();
+        assertThat(writer.offer(new TextMessage("1"))).isFalse();
+    }
+
+    @Test
+    void shouldDropOldestMessagesWhenBufferOverflows() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        ManualExecutor manual = new ManualExecutor();
+        WebSocketSessionWriter writer = new WebSocketSessionWriter(session, manual, 10, 10_000, OverflowStrategy.DROP);
+
+        assertThat(writer.offer(new TextMessage("aaaa"))).isTrue();
+        assertThat(writer.offer(new TextMessage("bbbb"))).isTrue();
+        assertThat(writer.offer(new TextMessage("cccc"))).isTrue();
+        // 单条消息超过上限时自身也被丢弃
+        assertThat(writer.offer(new TextMessage("x".repeat(11)))).isFalse();
+
+        assertThat(writer.getDroppedCount()).isEqualTo(4);
+        assertThat(writer.getBufferSize()).isZero();
+
+        assertThat(writer.offer(new TextMessage("dddd"))).isTrue();
+        manual.runAll();
+        assertThat(session.sent).extracting(WebSocketMessage::getPayload).containsExactly("dddd");
+        assertThat(session.isOpen()).isTrue();
+    }
+
+    @Test
+    void shouldKeepNewestMessagesWhenDropping() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        ManualExecutor manual = new ManualExecutor();
+        WebSocketSessionWriter writer = new WebSocketSessionWriter(session, manual, 10, 10_000, OverflowStrategy.DROP);
+
+        writer.offer(new TextMessage("aaaa"));
+        writer.offer(new TextMessage("bbbb"));
+        writer.offer(new TextMessage("cccc"));
+        manual.runAll();
+
+        assertThat(writer.getDroppedCount()).isEqualTo(1);
+        assertThat(session.sent).extracting(WebSocketMessage::getPayload).containsExactly("bbbb", "cccc");
+    }
+
+    @Test
+    void shouldTerminateWhenSingleSendExceedsTimeLimit() throws Exception {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        session.blockSends();
+        WebSocketSessionWriter writer = new WebSocketSessionWriter(session, executor, 1024, 50, OverflowStrategy.TERMINATE);
+
+        assertThat(writer.offer(new TextMessage("first"))).isTrue();
+        Thread.sleep(120);
+
+        assertThat(writer.offer(new TextMessage("second"))).isFalse();
+        awaitUntil(() -> session.getCloseStatus() != null);
+        assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(writer.getBufferSize()).isZero();
+    }
+
+    @Test
+    void shouldRejectAndReleaseMessagesAfterClose() {
+        StubWebSocketSession session = new StubWebSocketSession("s1");
+        ManualExecutor manual = new ManualExecutor();
+        WebSocketSessionWriter writer = new WebSocketSessionWriter(session, manual, 1024, 10_000, OverflowStrategy.TERMINATE);
+        writer.offer(new TextMessage("queued"));
+
+        writer.close();
+
+        assertThat(writer.getBufferSize()).isZero();
+        assertThat(writer.offer(new TextMessage("late"))).isFalse();
+        manual.runAll();
+        assertThat(session.sent).isEmpty();
+        // close 只停止发送，不关闭底层会话
+        assertThat(session.isOpen()).isTrue();
+    }
+
+    @Test
+    void shouldNotLeaveMessagesQueuedWhenClosedConcurrently() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            StubWebSocketSession session = new StubWebSocketSession("s" + round);
+            ManualExecutor manual = new ManualExecutor();
+            WebSocketSessionWriter writer = new WebSocketSessionWriter(session, manual, Integer.MAX_VALUE, 10_000, OverflowStrategy.DROP);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] producers = new Future<?>[4];
+            for (int i = 0; i < producers.length; i++) {
+                producers[i] = executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < 200; n++) {
+                        writer.offer(new TextMessage("m"));
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            writer.close();
+            for (Future<?> producer : producers) {
+                producer.get(5, TimeUnit.SECONDS);
+            }
+
+            assertThat(writer.getBufferSize()).isZero();
+            manual.runAll();
+            assertThat(session.sent).isEmpty();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 手动执行的执行器，测试中控制写出任务的执行时机
+     */
+    static final class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = poll()) != null) {
+                task.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return tasks.poll();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.chua.starter.strategy.aspect;
 import com.chua.starter.strategy.annotation.DistributedLock;
 import com.chua.starter.strategy.exception.LockAcquireException;
 import com.chua.starter.strategy.support.StrategyRedisSupport;
+import com.chua.starter.common.support.expression.CompiledKeyExpression;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -13,13 +14,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -43,10 +43,13 @@ public class DistributedLockAspect {
 
     private static final String LOCK_SUCCESS = "OK";
 
-    private final ExpressionParser parser = new SpelExpressionParser();
-
     private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+    /**
+     * 按方法缓存的 key 表达式
+     */
+    private final Map<Method, CompiledKeyExpression> keyExpressions = new ConcurrentHashMap<>();
+
     @Autowired(required = false)
     private StrategyRedisSupport strategyRedisSupport;
 
@@ -101,11 +104,11 @@ public class DistributedLockAspect {
             return prefix + keyExpression;
         }
 
-        // 使用SpEL解析
-        EvaluationContext context = new MethodBasedEvaluationContext(
-                null, method, args, parameterNameDiscoverer);
-
-        String parsedKey = parser.parseExpression(keyExpression).getValue(context, String.class);
+        // 使用按方法缓存的预编译表达式解析
+        CompiledKeyExpression expression = keyExpressions.computeIfAbsent(method,
+                key -> CompiledKeyExpression.compile(key, keyExpression, parameterNameDiscoverer));
+        String parsedKey = expression.getString(args,
+                () -> new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer));
 
         if (!StringUtils.hasText(parsedKey)) {
             throw new IllegalArgumentException("分布式锁key解析结果为空: " + keyExpression);
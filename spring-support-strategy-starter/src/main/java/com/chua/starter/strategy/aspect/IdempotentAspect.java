@@ -2,7 +2,9 @@ package com.chua.starter.strategy.aspect;
 
 import com.chua.starter.strategy.annotation.Idempotent;
 import com.chua.starter.strategy.exception.IdempotentException;
+import com.chua.starter.strategy.support.ExpiringKeyStore;
 import com.chua.starter.strategy.support.StrategyRedisSupport;
+import com.chua.starter.common.support.expression.CompiledKeyExpression;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -14,8 +16,6 @@ import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -49,14 +49,17 @@ public class IdempotentAspect {
 
     private static final String TOKEN_PARAM = "_idempotentToken";
 
-    private final ExpressionParser parser = new SpelExpressionParser();
-
     private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
     /**
-     * 本地缓存（Redis不可用时的降级方案）
+     * 按方法缓存的 key 表达式
      */
-    private final Map<String, Long> localCache = new ConcurrentHashMap<>();
+    private final Map<Method, CompiledKeyExpression> keyExpressions = new ConcurrentHashMap<>();
+
+    /**
+     * 本地缓存（Redis不可用时的降级方案），按过期时间分段清理
+     */
+    private final ExpiringKeyStore localCache = new ExpiringKeyStore();
 
     @Autowired(required = false)
     private StrategyRedisSupport strategyRedisSupport;
@@ -131,17 +134,19 @@ public class IdempotentAspect {
             return keyExpression;
         }
 
-        EvaluationContext context = new MethodBasedEvaluationContext(
-                null, method, joinPoint.getArgs(), parameterNameDiscoverer);
-
-        // 添加request变量
-        HttpServletRequest request = getRequest();
-        if (request != null) {
-            context.setVariable("request", request);
-            context.setVariable("session", request.getSession(false));
-        }
-
-        String parsedKey = parser.parseExpression(keyExpression).getValue(context, String.class);
+        CompiledKeyExpression expression = keyExpressions.computeIfAbsent(method,
+                key -> CompiledKeyExpression.compile(key, keyExpression, parameterNameDiscoverer));
+        Object[] args = joinPoint.getArgs();
+        String parsedKey = expression.getString(args, () -> {
+            EvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer);
+            // 添加request变量
+            HttpServletRequest request = getRequest();
+            if (request != null) {
+                context.setVariable("request", request);
+                context.setVariable("session", request.getSession(false));
+            }
+            return context;
+        });
         return StringUtils.hasText(parsedKey) ? parsedKey : generateParamsMd5Key(joinPoint, method);
     }
 
@@ -249,25 +254,7 @@ public class IdempotentAspect {
         }
 
         // 降级使用本地缓存
-        return checkAndMarkLocal(key, timeoutMillis);
-    }
-
-    /**
-     * 本地缓存检查并标记
-     */
-    private synchronized boolean checkAndMarkLocal(String key, long timeoutMillis) {
-        long now = System.currentTimeMillis();
-
-        // 清理过期数据
-        localCache.entrySet().removeIf(entry -> now - entry.getValue() > timeoutMillis);
-
-        Long existingTime = localCache.get(key);
-        if (existingTime != null && now - existingTime < timeoutMillis) {
-            return false;
-        }
-
-        localCache.put(key, now);
-        return true;
+        return localCache.putIfAbsent(key, timeoutMillis);
     }
 
     /**
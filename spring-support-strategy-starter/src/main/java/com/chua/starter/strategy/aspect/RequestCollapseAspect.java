@@ -6,15 +6,22 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -24,6 +31,11 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 请求合并切面
@@ -31,6 +43,13 @@ import java.util.concurrent.TimeoutException;
  * 实现请求合并功能，将多个单独的请求合并为批量请求执行。
  * 使用虚拟线程处理批量任务，提高并发性能。
  * </p>
+ * <ul>
+ *     <li>合并器按"方法 + 名称"缓存，创建时预编译 key 表达式；批量方法的 {@link MethodHandle} 按目标类型缓存</li>
+ *     <li>同一方法可能由多个 Bean 实例提供，请求记录各自的目标对象，批次按目标对象分组后分别调用其批量方法</li>
+ *     <li>{@code #p0}/{@code #a0} 形式的 key 直接按下标取参数，不经过 SpEL</li>
+ *     <li>窗口调度分片到多个调度线程，按批量大小或窗口时间任一条件触发</li>
+ *     <li>每个合并器记录批量大小与等待时间直方图，用于判断合并是否真正降低了下游压力</li>
+ * </ul>
  *
  * @author CH
  * @version 1.0.0
@@ -38,7 +57,9 @@ import java.util.concurrent.TimeoutException;
  */
 @Slf4j
 @Aspect
-public class RequestCollapseAspect {
+public class RequestCollapseAspect implements DisposableBean {
+
+    private static final Pattern ARGUMENT_INDEX = Pattern.compile("#[pa](\\d+)");
 
     private final ExpressionParser parser = new SpelExpressionParser();
 
@@ -47,16 +68,34 @@ public class RequestCollapseAspect {
     /**
      * 合并器实例缓存
      */
-    private final Map<String, RequestCollapser<?>> collapsers = new ConcurrentHashMap<>();
+    private final Map<CollapserKey, RequestCollapser> collapsers = new ConcurrentHashMap<>();
+
+    /**
+     * 批量方法缓存，未绑定目标对象
+     */
+    private final Map<BatchMethodKey, MethodHandle> batchMethods = new ConcurrentHashMap<>();
 
     /**
-     * 调度器，用于处理窗口超时
+     * 分片调度器，用于处理窗口超时
      */
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread thread = new Thread(r, "request-collapse-scheduler");
-        thread.setDaemon(true);
-        return thread;
-    });
+    private final ScheduledExecutorService[] schedulers;
+    private final AtomicInteger schedulerIndex = new AtomicInteger();
+
+    public RequestCollapseAspect() {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    public RequestCollapseAspect(int schedulerShards) {
+        this.schedulers = new ScheduledExecutorService[Math.max(1, schedulerShards)];
+        for (int i = 0; i < schedulers.length; i++) {
+            String threadName = "request-collapse-scheduler-" + i;
+            schedulers[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
 
     @Around("@annotation(requestCollapse)")
     public Object around(ProceedingJoinPoint joinPoint, RequestCollapse requestCollapse) throws Throwable {
@@ -67,15 +106,19 @@ public class RequestCollapseAspect {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
 
-        // 解析请求key
-        Object requestKey = parseRequestKey(joinPoint, requestCollapse, method);
-
         // 获取或创建合并器
-        RequestCollapser<Object> collapser = getOrCreateCollapser(joinPoint, requestCollapse, method);
+        RequestCollapser collapser = getOrCreateCollapser(requestCollapse, method);
+
+        // 批量方法在当前目标对象上执行
+        Object target = joinPoint.getTarget();
+        MethodHandle batchHandle = resolveBatchMethod(target.getClass(), requestCollapse.batchMethod());
+
+        // 解析请求key
+        Object requestKey = collapser.keyResolver.resolve(method, joinPoint.getArgs());
 
         // 提交请求并等待结果
         try {
-            CompletableFuture<Object> future = collapser.submit(requestKey);
+            CompletableFuture<Object> future = collapser.submit(target, batchHandle, requestKey);
             return future.get(requestCollapse.timeout(), TimeUnit.MILLISECONDS);
         } catch (TimeoutException e) {
             log.error("请求合并超时: collapser={}, key={}", requestCollapse.name(), requestKey);
@@ -86,109 +129,174 @@ public class RequestCollapseAspect {
     }
 
     /**
-     * 解析请求key
+     * 获取各合并器统计
+     *
+     * @return 合并器名称 -> 统计
      */
-    private Object parseRequestKey(ProceedingJoinPoint joinPoint, RequestCollapse requestCollapse, Method method) {
-        String keyExpression = requestCollapse.keyExpression();
-
-        EvaluationContext context = new MethodBasedEvaluationContext(
-                null, method, joinPoint.getArgs(), parameterNameDiscoverer);
+    public Map<String, CollapserStatistics> getStatistics() {
+        Map<String, CollapserStatistics> result = new LinkedHashMap<>();
+        collapsers.forEach((key, collapser) -> result.put(
+                key.method().getDeclaringClass().getSimpleName() + "#" + key.method().getName() + ":" + key.name(),
+                collapser.statistics()));
+        return result;
+    }
 
-        return parser.parseExpression(keyExpression).getValue(context);
+    @Override
+    public void destroy() {
+        for (ScheduledExecutorService scheduler : schedulers) {
+            scheduler.shutdownNow();
+        }
     }
 
     /**
      * 获取或创建合并器
      */
-    @SuppressWarnings("unchecked")
-    private RequestCollapser<Object> getOrCreateCollapser(ProceedingJoinPoint joinPoint,
-                                                          RequestCollapse requestCollapse,
-                                                          Method method) {
-        String collapserName = requestCollapse.name();
-
-        return (RequestCollapser<Object>) collapsers.computeIfAbsent(collapserName, name -> {
-            log.info("创建请求合并器: name={}, windowTime={}ms, maxBatchSize={}",
-                    name, requestCollapse.windowTime(), requestCollapse.maxBatchSize());
+    private RequestCollapser getOrCreateCollapser(RequestCollapse requestCollapse, Method method) {
+        CollapserKey collapserKey = new CollapserKey(method, requestCollapse.name());
+        RequestCollapser collapser = collapsers.get(collapserKey);
+        if (collapser != null) {
+            return collapser;
+        }
 
-            return new RequestCollapser<>(
-                    name,
+        return collapsers.computeIfAbsent(collapserKey, key -> {
+            log.info("创建请求合并器: name={}, method={}, windowTime={}ms, maxBatchSize={}",
+                    key.name(), method.getName(), requestCollapse.windowTime(), requestCollapse.maxBatchSize());
+            return new RequestCollapser(
+                    key.name(),
                     requestCollapse.windowTime(),
-                    requestCollapse.maxBatchSize(),
-                    keys -> executeBatch(joinPoint, requestCollapse, method, keys),
-                    scheduler
+                    Math.max(1, requestCollapse.maxBatchSize()),
+                    compileKeyResolver(requestCollapse.keyExpression()),
+                    (target, batchHandle, keys) -> executeBatch(target, batchHandle, requestCollapse.batchMethod(), keys),
+                    schedulers[Math.floorMod(schedulerIndex.getAndIncrement(), schedulers.length)]
             );
         });
     }
 
     /**
-     * 执行批量请求
+     * 预编译 key 表达式
      */
-    @SuppressWarnings("unchecked")
-    private Map<Object, Object> executeBatch(ProceedingJoinPoint joinPoint, RequestCollapse requestCollapse,
-                                              Method singleMethod, List<Object> keys) {
-        String batchMethodName = requestCollapse.batchMethod();
-        Object target = joinPoint.getTarget();
-        Class<?> targetClass = target.getClass();
+    private KeyResolver compileKeyResolver(String keyExpression) {
+        Matcher matcher = ARGUMENT_INDEX.matcher(keyExpression.trim());
+        if (matcher.matches()) {
+            int index = Integer.parseInt(matcher.group(1));
+            return (method, args) -> index < args.length ? args[index] : null;
+        }
+        Expression expression = parser.parseExpression(keyExpression);
+        return (method, args) -> {
+            EvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer);
+            return expression.getValue(context);
+        };
+    }
 
-        try {
-            // 查找批量方法
+    /**
+     * 解析目标类型上的批量方法，调用时再传入目标对象
+     */
+    private MethodHandle resolveBatchMethod(Class<?> targetClass, String batchMethodName) {
+        BatchMethodKey key = new BatchMethodKey(targetClass, batchMethodName);
+        MethodHandle handle = batchMethods.get(key);
+        if (handle != null) {
+            return handle;
+        }
+        return batchMethods.computeIfAbsent(key, k -> {
             Method batchMethod = findBatchMethod(targetClass, batchMethodName);
-
             if (batchMethod == null) {
-                throw new RuntimeException("批量方法不存在: " + batchMethodName);
+                throw new IllegalStateException("批量方法不存在: " + batchMethodName);
             }
-
-            batchMethod.setAccessible(true);
-            Object result = batchMethod.invoke(target, keys);
-
-            if (result instanceof Map) {
-                return (Map<Object, Object>) result;
+            try {
+                ReflectionUtils.makeAccessible(batchMethod);
+                return MethodHandles.lookup().unreflect(batchMethod);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("批量方法不可访问: " + batchMethodName, e);
             }
+        });
+    }
 
-            throw new RuntimeException("批量方法返回类型必须为Map");
-
-        } catch (Exception e) {
+    /**
+     * 执行批量请求
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> executeBatch(Object target, MethodHandle batchHandle, String batchMethodName,
+                                             List<Object> keys) {
+        Object result;
+        try {
+            result = batchHandle.invoke(target, keys);
+        } catch (Throwable e) {
             log.error("执行批量请求失败: method={}", batchMethodName, e);
             throw new RuntimeException("执行批量请求失败", e);
         }
+        if (result instanceof Map) {
+            return (Map<Object, Object>) result;
+        }
+        throw new RuntimeException("批量方法返回类型必须为Map");
     }
 
     /**
      * 查找批量方法
      */
     private Method findBatchMethod(Class<?> targetClass, String methodName) {
-        for (Method method : targetClass.getDeclaredMethods()) {
-            if (method.getName().equals(methodName)) {
-                Class<?>[] paramTypes = method.getParameterTypes();
-                if (paramTypes.length == 1 && List.class.isAssignableFrom(paramTypes[0])) {
-                    return method;
+        for (Class<?> type = targetClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getName().equals(methodName)) {
+                    Class<?>[] paramTypes = method.getParameterTypes();
+                    if (paramTypes.length == 1 && List.class.isAssignableFrom(paramTypes[0])) {
+                        return method;
+                    }
                 }
             }
         }
         return null;
     }
 
+    /**
+     * 合并器标识
+     */
+    private record CollapserKey(Method method, String name) {
+    }
+
+    /**
+     * 批量方法标识
+     */
+    private record BatchMethodKey(Class<?> targetClass, String name) {
+    }
+
+    /**
+     * 请求 key 解析器
+     */
+    @FunctionalInterface
+    private interface KeyResolver {
+        Object resolve(Method method, Object[] args);
+    }
+
     /**
      * 请求合并器
-     *
-     * @param <T> 结果类型
      */
-    private static class RequestCollapser<T> {
+    private static class RequestCollapser {
         private final String name;
         private final long windowTime;
         private final int maxBatchSize;
-        private final BatchExecutor<T> batchExecutor;
+        private final KeyResolver keyResolver;
+        private final BatchExecutor batchExecutor;
         private final ScheduledExecutorService scheduler;
 
-        private final List<PendingRequest<T>> pendingRequests = new ArrayList<>();
         private final Object lock = new Object();
-        private volatile boolean windowOpen = false;
+        private List<PendingRequest> pendingRequests = new ArrayList<>();
+        /**
+         * 窗口代次，批量被提前（按大小）触发后，旧窗口的定时任务据此失效
+         */
+        private long generation;
+        private boolean windowOpen;
+
+        private final Histogram batchSizes = new Histogram();
+        private final Histogram waitMicros = new Histogram();
+        private final LongAdder sizeTriggered = new LongAdder();
+        private final LongAdder timeTriggered = new LongAdder();
 
-        RequestCollapser(String name, long windowTime, int maxBatchSize,
-                         BatchExecutor<T> batchExecutor, ScheduledExecutorService scheduler) {
+        RequestCollapser(String name, long windowTime, int maxBatchSize, KeyResolver keyResolver,
+                         BatchExecutor batchExecutor, ScheduledExecutorService scheduler) {
             this.name = name;
             this.windowTime = windowTime;
             this.maxBatchSize = maxBatchSize;
+            this.keyResolver = keyResolver;
             this.batchExecutor = batchExecutor;
             this.scheduler = scheduler;
         }
@@ -196,87 +304,196 @@ public class RequestCollapseAspect {
         /**
          * 提交请求
          */
-        CompletableFuture<T> submit(Object key) {
-            CompletableFuture<T> future = new CompletableFuture<>();
-            PendingRequest<T> request = new PendingRequest<>(key, future);
+        CompletableFuture<Object> submit(Object target, MethodHandle batchHandle, Object key) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            PendingRequest request = new PendingRequest(target, batchHandle, key, future, System.nanoTime());
 
+            List<PendingRequest> batch = null;
+            long scheduleGeneration = -1;
             synchronized (lock) {
                 pendingRequests.add(request);
 
                 // 如果达到最大批量大小，立即执行
                 if (pendingRequests.size() >= maxBatchSize) {
-                    executeBatch();
+                    batch = drain();
                 } else if (!windowOpen) {
                     // 开启时间窗口
                     windowOpen = true;
-                    scheduler.schedule(this::onWindowTimeout, windowTime, TimeUnit.MILLISECONDS);
+                    scheduleGeneration = generation;
                 }
             }
 
+            if (batch != null) {
+                sizeTriggered.increment();
+                dispatch(batch);
+            } else if (scheduleGeneration >= 0) {
+                long expected = scheduleGeneration;
+                scheduler.schedule(() -> onWindowTimeout(expected), windowTime, TimeUnit.MILLISECONDS);
+            }
             return future;
         }
 
         /**
          * 窗口超时回调
          */
-        private void onWindowTimeout() {
+        private void onWindowTimeout(long expectedGeneration) {
+            List<PendingRequest> batch;
             synchronized (lock) {
-                if (!pendingRequests.isEmpty()) {
-                    executeBatch();
+                if (generation != expectedGeneration || pendingRequests.isEmpty()) {
+                    return;
                 }
-                windowOpen = false;
+                batch = drain();
             }
+            timeTriggered.increment();
+            dispatch(batch);
+        }
+
+        /**
+         * 取出当前窗口的请求并开启新代次，需持有锁
+         */
+        private List<PendingRequest> drain() {
+            List<PendingRequest> batch = pendingRequests;
+            pendingRequests = new ArrayList<>(Math.min(maxBatchSize, 64));
+            generation++;
+            windowOpen = false;
+            return batch;
         }
 
         /**
          * 执行批量请求
          */
-        @SuppressWarnings("unchecked")
-        private void executeBatch() {
-            List<PendingRequest<T>> batch;
-            synchronized (lock) {
-                batch = new ArrayList<>(pendingRequests);
-                pendingRequests.clear();
-                windowOpen = false;
+        private void dispatch(List<PendingRequest> batch) {
+            long now = System.nanoTime();
+            batchSizes.record(batch.size());
+            for (PendingRequest request : batch) {
+                waitMicros.record((now - request.submitNanos()) / 1000);
             }
 
-            if (batch.isEmpty()) {
-                return;
+            // 按目标对象分组，通常只有一个目标对象
+            Map<Object, List<PendingRequest>> groups = new IdentityHashMap<>(2);
+            for (PendingRequest request : batch) {
+                groups.computeIfAbsent(request.target(), k -> new ArrayList<>(batch.size())).add(request);
             }
-
             // 使用虚拟线程执行批量请求
-            Thread.startVirtualThread(() -> {
-                try {
-                    List<Object> keys = batch.stream().map(r -> r.key).toList();
-                    Map<Object, T> results = (Map<Object, T>) batchExecutor.execute(keys);
-
-                    // 分发结果
-                    for (PendingRequest<T> request : batch) {
-                        T result = results.get(request.key);
-                        request.future.complete(result);
-                    }
+            for (List<PendingRequest> group : groups.values()) {
+                Thread.startVirtualThread(() -> execute(group));
+            }
+        }
 
-                } catch (Exception e) {
-                    // 批量请求失败，所有请求都失败
-                    for (PendingRequest<T> request : batch) {
-                        request.future.completeExceptionally(e);
-                    }
+        private void execute(List<PendingRequest> group) {
+            PendingRequest first = group.get(0);
+            try {
+                List<Object> keys = new ArrayList<>(group.size());
+                for (PendingRequest request : group) {
+                    keys.add(request.key());
                 }
-            });
+                Map<Object, Object> results = batchExecutor.execute(first.target(), first.batchHandle(), keys);
+
+                // 分发结果
+                for (PendingRequest request : group) {
+                    request.future().complete(results.get(request.key()));
+                }
+
+            } catch (Exception e) {
+                // 批量请求失败，该批所有请求都失败
+                for (PendingRequest request : group) {
+                    request.future().completeExceptionally(e);
+                }
+            }
+        }
+
+        CollapserStatistics statistics() {
+            return new CollapserStatistics(name, sizeTriggered.sum(), timeTriggered.sum(),
+                    batchSizes.snapshot(), waitMicros.snapshot());
         }
     }
 
     /**
      * 待处理请求
      */
-    private record PendingRequest<T>(Object key, CompletableFuture<T> future) {
+    private record PendingRequest(Object target, MethodHandle batchHandle, Object key,
+                                  CompletableFuture<Object> future, long submitNanos) {
     }
 
     /**
      * 批量执行器接口
      */
     @FunctionalInterface
-    private interface BatchExecutor<T> {
-        Map<Object, T> execute(List<Object> keys);
+    private interface BatchExecutor {
+        Map<Object, Object> execute(Object target, MethodHandle batchHandle, List<Object> keys);
+    }
+
+    /**
+     * 合并器统计
+     *
+     * @param name          合并器名称
+     * @param sizeTriggered 因达到批量大小触发的批次数
+     * @param timeTriggered 因窗口超时触发的批次数
+     * @param batchSize     批量大小分布
+     * @param waitMicros    请求在窗口内等待时间分布（微秒）
+     */
+    public record CollapserStatistics(String name, long sizeTriggered, long timeTriggered,
+                                      HistogramSnapshot batchSize, HistogramSnapshot waitMicros) {
+    }
+
+    /**
+     * 直方图快照，分位值为所在 2 的幂区间上界的近似值
+     */
+    public record HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long max) {
+    }
+
+    /**
+     * 按 2 的幂分桶的无锁直方图
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            long v = Math.max(0, value);
+            buckets[64 - Long.numberOfLeadingZeros(v)].increment();
+            count.increment();
+            sum.add(v);
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        HistogramSnapshot snapshot() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long maxValue = max.get();
+            return new HistogramSnapshot(total, total == 0 ? 0 : (double) sum.sum() / total,
+                    percentile(counts, total, 0.5, maxValue),
+                    percentile(counts, total, 0.9, maxValue),
+                    percentile(counts, total, 0.99, maxValue),
+                    maxValue);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+            if (total == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= threshold) {
+                    long upper = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upper, maxValue);
+                }
+            }
+            return maxValue;
+        }
     }
 }
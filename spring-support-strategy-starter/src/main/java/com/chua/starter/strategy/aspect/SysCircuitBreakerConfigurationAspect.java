@@ -5,6 +5,7 @@ import com.chua.starter.strategy.entity.SysCircuitBreakerConfiguration;
 import com.chua.starter.strategy.entity.SysCircuitBreakerRecord;
 import com.chua.starter.strategy.service.SysCircuitBreakerConfigurationService;
 import com.chua.starter.strategy.service.SysCircuitBreakerRecordService;
+import com.chua.starter.strategy.support.StrategyRecordWriter;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
@@ -115,6 +116,9 @@ public class SysCircuitBreakerConfigurationAspect extends StaticMethodMatcherPoi
     
     @Autowired
     private SysCircuitBreakerRecordService circuitBreakerRecordService;
+
+    @Autowired(required = false)
+    private StrategyRecordWriter strategyRecordWriter;
     
     private final CircuitBreakerRegistry circuitBreakerRegistry;
     
@@ -363,7 +367,7 @@ public class SysCircuitBreakerConfigurationAspect extends StaticMethodMatcherPoi
                     record.setCircuitBreakerState(event.getStateTransition().getToState().name());
                     record.setTriggerReason("STATE_TRANSITION");
                     record.setTriggerTime(LocalDateTime.now());
-                    circuitBreakerRecordService.saveCircuitBreakerRecord(record);
+                    saveRecord(record);
                 })
                 .onFailureRateExceeded(event -> {
                     log.warn("熔断器失败率超过阈值: name={}, failureRate={}", 
@@ -405,12 +409,29 @@ public class SysCircuitBreakerConfigurationAspect extends StaticMethodMatcherPoi
                 record.setRequestMethod(request.getMethod());
             }
             
-            circuitBreakerRecordService.saveCircuitBreakerRecord(record);
+            saveRecord(record);
         } catch (Exception e) {
             log.error("创建熔断记录失败", e);
         }
     }
 
+    /**
+     * 保存熔断记录
+     * <p>
+     * 熔断打开时请求会集中被拒绝，记录交给 {@link StrategyRecordWriter} 合并后批量写入，不在请求线程同步落库；
+     * 未配置写入器时直接保存。
+     * </p>
+     *
+     * @param record 熔断记录
+     */
+    private void saveRecord(SysCircuitBreakerRecord record) {
+        if (strategyRecordWriter != null) {
+            strategyRecordWriter.recordCircuitBreak(record);
+        } else {
+            circuitBreakerRecordService.saveCircuitBreakerRecord(record);
+        }
+    }
+
     /**
      * 处理降级
      * 
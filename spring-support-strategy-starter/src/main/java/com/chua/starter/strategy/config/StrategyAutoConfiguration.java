@@ -1,6 +1,7 @@
 package com.chua.starter.strategy.config;
 
 import com.chua.starter.strategy.aspect.*;
+import com.chua.starter.strategy.distributed.LocalRateLimiter;
 import com.chua.starter.strategy.distributed.StrategyDebounce;
 import com.chua.starter.strategy.distributed.StrategyRateLimiter;
 import com.chua.starter.strategy.config.StrategyProperties;
@@ -19,6 +20,8 @@ import com.chua.starter.strategy.interceptor.XssProtectionInterceptor;
 import com.chua.starter.strategy.support.StrategyConsoleAuthInterceptor;
 import com.chua.starter.strategy.service.SysCircuitBreakerConfigurationService;
 import com.chua.starter.strategy.service.SysCircuitBreakerRecordService;
+import com.chua.starter.strategy.service.SysLimitRecordService;
+import com.chua.starter.strategy.support.StrategyRecordWriter;
 import com.chua.starter.strategy.template.DefaultLockTemplate;
 import com.chua.starter.strategy.template.DefaultLimitTemplate;
 import com.chua.starter.strategy.template.DefaultStrategyTemplate;
@@ -267,6 +270,21 @@ public class StrategyAutoConfiguration {
         return new BulkheadAspect();
     }
 
+    /**
+     * 限流/熔断记录写入器
+     * <p>
+     * 合并相同记录并批量写入，避免故障期间逐条落库。
+     * </p>
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public StrategyRecordWriter strategyRecordWriter(
+            StrategyProperties strategyProperties,
+            @Autowired(required = false) SysLimitRecordService limitRecordService,
+            @Autowired(required = false) SysCircuitBreakerRecordService circuitBreakerRecordService) {
+        return new StrategyRecordWriter(strategyProperties.getRecordPipeline(), limitRecordService, circuitBreakerRecordService);
+    }
+
     /**
      * 熔断HTTP拦截器
      */
@@ -275,8 +293,9 @@ public class StrategyAutoConfiguration {
     @ConditionalOnBean({SysCircuitBreakerConfigurationService.class, SysCircuitBreakerRecordService.class})
     public CircuitBreakerInterceptor circuitBreakerInterceptor(
             SysCircuitBreakerConfigurationService configService,
-            SysCircuitBreakerRecordService recordService) {
-        return new CircuitBreakerInterceptor(configService, recordService);
+            SysCircuitBreakerRecordService recordService,
+            @Autowired(required = false) StrategyRecordWriter strategyRecordWriter) {
+        return new CircuitBreakerInterceptor(configService, recordService, strategyRecordWriter);
     }
 
     /**
@@ -384,8 +403,12 @@ public class StrategyAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(name = "plugin.strategy.rate-limiter.type", havingValue = "local", matchIfMissing = true)
-    public StrategyRateLimiter localRateLimiter() {
-        return new com.chua.starter.strategy.distributed.LocalRateLimiter();
+    public StrategyRateLimiter localRateLimiter(StrategyProperties strategyProperties) {
+        StrategyProperties.RateLimiterConfig config = strategyProperties.getRateLimiter();
+        LocalRateLimiter.Algorithm algorithm = "sliding-window".equalsIgnoreCase(config.getAlgorithm())
+                ? LocalRateLimiter.Algorithm.SLIDING_WINDOW
+                : LocalRateLimiter.Algorithm.TOKEN_BUCKET;
+        return new LocalRateLimiter(algorithm, config.getMaximumKeys(), config.getIdleTimeoutMillis());
     }
 
     /**
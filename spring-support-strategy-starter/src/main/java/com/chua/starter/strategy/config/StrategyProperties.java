@@ -6,6 +6,7 @@ import lombok.Data;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +24,10 @@ import java.util.Map;
  *     rate-limiter:
  *       enabled: true                 # 限流功能开关
  *       type: local                    # 限流实现类型：local(本地) / redis(分布式)
+ *       algorithm: token-bucket        # 本地限流算法：token-bucket / sliding-window
+ *       fail-open: true                # Redis 不可用时是否放行
+ *       fail-open-overrides:           # 按限流键前缀单独指定，最长前缀优先
+ *         "[order:]": false
  *     debounce:
  *       enabled: true                  # 防抖功能开关
  *       type: local                    # 防抖实现类型：local(本地) / redis(分布式)
@@ -113,6 +118,11 @@ public class StrategyProperties {
      */
     private WebAuthConfig webAuth = new WebAuthConfig();
 
+    /**
+     * 限流/熔断记录写入配置
+     */
+    private RecordPipelineConfig recordPipeline = new RecordPipelineConfig();
+
     /**
      * 限流配置
      */
@@ -127,6 +137,41 @@ public class StrategyProperties {
          * 限流实现类型：local(本地) / redis(分布式)
          */
         private String type = "local";
+
+        /**
+         * 本地限流算法：token-bucket(令牌桶) / sliding-window(滑动窗口)
+         */
+        private String algorithm = "token-bucket";
+
+        /**
+         * 本地限流最大键数量，超出后淘汰空闲键
+         */
+        private int maximumKeys = 100_000;
+
+        /**
+         * 本地限流键空闲淘汰时间（毫秒），应大于限流周期
+         */
+        private long idleTimeoutMillis = 600_000;
+
+        /**
+         * Redis 限流算法：sliding-window(ZSET 滑动窗口) / gcra(单键 O(1) 状态)
+         */
+        private String redisAlgorithm = "sliding-window";
+
+        /**
+         * Redis 不可用时是否放行
+         */
+        private boolean failOpen = true;
+
+        /**
+         * 按限流键前缀单独指定 Redis 不可用时是否放行，最长前缀优先，未命中时使用 {@code failOpen}
+         */
+        private Map<String, Boolean> failOpenOverrides = new LinkedHashMap<>();
+
+        /**
+         * 本地租约批量大小（仅 gcra），每次向 Redis 预留的许可数，小于等于 1 表示不启用
+         */
+        private int leaseSize = 0;
     }
 
     /**
@@ -181,6 +226,16 @@ public class StrategyProperties {
          * 不需要进行 XSS 检测的路径模式
          */
         private List<String> excludePatterns = new ArrayList<>();
+
+        /**
+         * 按路径豁免检测的参数名，key 为 Ant 风格路径，value 为该路径下不做XSS检测的参数名（如富文本字段）
+         */
+        private Map<String, List<String>> parameterExemptions = new LinkedHashMap<>();
+
+        /**
+         * 单个参数值/请求头最多检测的字符数，超出部分不检测；0 表示不限制
+         */
+        private int maxInspectLength = 0;
     }
 
     /**
@@ -235,6 +290,16 @@ public class StrategyProperties {
          * 不需要进行SQL注入检测的路径模式
          */
         private List<String> excludePatterns = new ArrayList<>();
+
+        /**
+         * 按路径豁免检测的参数名，key 为 Ant 风格路径，value 为该路径下不做SQL注入检测的参数名（如富文本字段）
+         */
+        private Map<String, List<String>> parameterExemptions = new LinkedHashMap<>();
+
+        /**
+         * 单个参数值/请求头最多检测的字符数，超出部分不检测；0 表示不限制
+         */
+        private int maxInspectLength = 0;
     }
 
     /**
@@ -501,4 +566,25 @@ public class StrategyProperties {
          */
         private Integer sessionTimeout = 3600;
     }
+
+    /**
+     * 限流/熔断记录写入配置
+     */
+    @Data
+    public static class RecordPipelineConfig {
+        /**
+         * 待写入的不同记录数上限，超出后按比例丢弃
+         */
+        private int capacity = 10000;
+
+        /**
+         * 单批写入条数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 写入周期（毫秒），同一周期内相同的记录合并为一条
+         */
+        private long flushIntervalMillis = 1000L;
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -32,6 +33,7 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 @Configuration
 @ConditionalOnClass({RedisConnectionFactory.class, StringRedisTemplate.class})
 @AutoConfigureAfter(RedisAutoConfiguration.class)
+@EnableConfigurationProperties(StrategyProperties.class)
 public class StrategyRedisConfiguration {
 
     /**
@@ -77,13 +79,19 @@ public class StrategyRedisConfiguration {
      * </p>
      *
      * @param stringRedisTemplate Redis 模板
+     * @param strategyProperties  策略配置
      * @return Redis 限流器
      */
     @Bean
     @ConditionalOnMissingBean(StrategyRateLimiter.class)
     @ConditionalOnProperty(name = "plugin.strategy.rate-limiter.type", havingValue = "redis")
-    public StrategyRateLimiter redisRateLimiter(StringRedisTemplate stringRedisTemplate) {
-        return new RedisRateLimiter(stringRedisTemplate);
+    public StrategyRateLimiter redisRateLimiter(StringRedisTemplate stringRedisTemplate, StrategyProperties strategyProperties) {
+        StrategyProperties.RateLimiterConfig config = strategyProperties.getRateLimiter();
+        RedisRateLimiter.Algorithm algorithm = "gcra".equalsIgnoreCase(config.getRedisAlgorithm())
+                ? RedisRateLimiter.Algorithm.GCRA
+                : RedisRateLimiter.Algorithm.SLIDING_WINDOW;
+        return new RedisRateLimiter(stringRedisTemplate, algorithm, config.isFailOpen(),
+                config.getFailOpenOverrides(), config.getLeaseSize());
     }
 
     /**
@@ -0,0 +1,167 @@
+package com.chua.starter.strategy.distributed;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 有界、按空闲时间淘汰的限流器注册表
+ * <p>
+ * 以 IP、用户等高基数维度作为限流键时，限流器数量会随访问者无限增长。
+ * 本注册表记录每个条目的最近访问时间，按以下规则回收：
+ * </p>
+ * <ul>
+ *     <li>空闲超过 {@code idleTimeoutMillis} 的条目在清理时移除</li>
+ *     <li>条目数超过 {@code maximumSize} 时立即触发清理，仍超出则按最近访问时间从旧到新淘汰到容量的 90%，
+ *     触发淘汰的新条目本身不会被淘汰</li>
+ *     <li>清理由访问线程顺带完成，同一时刻只有一个线程执行，不需要额外的后台线程</li>
+ * </ul>
+ * <p>
+ * 被淘汰的限流器在下次访问时重新创建，相当于该键的计数被重置，
+ * 因此空闲超时应大于限流周期。
+ * </p>
+ *
+ * @param <V> 限流器类型
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+public class BoundedLimiterRegistry<V> {
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private final long idleTimeoutNanos;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param maximumSize       最大条目数
+     * @param idleTimeoutMillis 空闲超时（毫秒）
+     */
+    public BoundedLimiterRegistry(int maximumSize, long idleTimeoutMillis) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.idleTimeoutNanos = idleTimeoutMillis * 1_000_000L;
+    }
+
+    /**
+     * 获取或创建限流器
+     *
+     * @param key     限流键
+     * @param factory 创建函数
+     * @return 限流器
+     */
+    public V get(String key, Function<String, V> factory) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, k -> new Entry<>(factory.apply(k), now));
+            if (entries.size() > maximumSize) {
+                sweep(now, key);
+            }
+        }
+        entry.lastAccessNanos = now;
+        maybeSweep(now);
+        return entry.value;
+    }
+
+    /**
+     * 获取已存在的限流器，不存在时返回 null
+     *
+     * @param key 限流键
+     * @return 限流器
+     */
+    public V getIfPresent(String key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * 替换限流器（例如限流参数发生变化时）
+     *
+     * @param key   限流键
+     * @param value 新限流器
+     */
+    public void put(String key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void maybeSweep(long now) {
+        long last = lastSweepNanos.get();
+        // 每半个空闲周期最多清理一次
+        if (now - last >= (idleTimeoutNanos >> 1) && lastSweepNanos.compareAndSet(last, now)) {
+            sweep(now, null);
+        }
+    }
+
+    /**
+     * 清理空闲条目
+     *
+     * @param now        当前时间
+     * @param createdKey 触发容量淘汰的新建键，不为 null 时强制把容量压到上限以内，且不淘汰该键
+     */
+    private void sweep(long now, String createdKey) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.entrySet().removeIf(e -> !e.getKey().equals(createdKey)
+                    && now - e.getValue().lastAccessNanos > idleTimeoutNanos);
+            if (createdKey != null && entries.size() > maximumSize) {
+                evictLeastRecentlyUsed(createdKey, (int) (maximumSize * 0.9));
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * 按最近访问时间从旧到新淘汰，直到条目数不超过目标值
+     */
+    private void evictLeastRecentlyUsed(String createdKey, int target) {
+        List<Map.Entry<String, Long>> candidates = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> {
+            if (!key.equals(createdKey)) {
+                candidates.add(Map.entry(key, entry.lastAccessNanos));
+            }
+        });
+        candidates.sort(Comparator.comparingLong(Map.Entry::getValue));
+        for (Map.Entry<String, Long> candidate : candidates) {
+            if (entries.size() <= target) {
+                break;
+            }
+            // 快照之后被再次访问的条目跳过，避免淘汰刚变热的键
+            entries.computeIfPresent(candidate.getKey(),
+                    (key, entry) -> entry.lastAccessNanos == candidate.getValue() ? null : entry);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastAccessNanos;
+
+        private Entry(V value, long lastAccessNanos) {
+            this.value = value;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+}
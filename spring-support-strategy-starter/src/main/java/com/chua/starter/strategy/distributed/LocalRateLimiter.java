@@ -3,15 +3,29 @@ package com.chua.starter.strategy.distributed;
 import com.chua.common.support.core.annotation.Extension;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 基于内存的本地限流器
  * <p>
- * 使用滑动窗口算法实现本地限流，适用于单机场景。
+ * 无锁实现，适用于单机场景，支持两种算法：
+ * </p>
+ * <ul>
+ *     <li>令牌桶（默认）：以 CAS 推进"理论到达时间"，令牌按 {@code periodSeconds / limitForPeriod} 平滑补充，
+ *     桶容量为 {@code limitForPeriod}</li>
+ *     <li>滑动窗口：以前一窗口计数按时间加权估算当前窗口请求数，状态整体 CAS 替换</li>
+ * </ul>
+ * <p>
+ * 限流器保存在 {@link BoundedLimiterRegistry} 中，条目数有上限且按空闲时间淘汰，
+ * 以 IP、用户等高基数维度限流时不会无限增长。带超时获取时按需要等待的时长精确 park，不再轮询休眠。
  * </p>
  *
  * @author CH
@@ -23,133 +37,379 @@ import java.util.concurrent.locks.ReentrantLock;
 public class LocalRateLimiter implements StrategyRateLimiter {
 
     /**
-     * 滑动窗口数据结构
+     * 默认最大限流键数量
      */
-    private static class SlidingWindow {
-        private final int limitForPeriod;
-        private final long windowSizeMillis;
-        private final AtomicLong windowStart;
-        private final AtomicLong counter;
-        private final ReentrantLock lock = new ReentrantLock();
-
-        SlidingWindow(int limitForPeriod, int periodSeconds) {
-            this.limitForPeriod = limitForPeriod;
-            this.windowSizeMillis = periodSeconds * 1000L;
-            this.windowStart = new AtomicLong(System.currentTimeMillis());
-            this.counter = new AtomicLong(0);
-        }
-
-        boolean tryAcquire() {
-            long now = System.currentTimeMillis();
-            lock.lock();
-            try {
-                // 检查是否需要滑动窗口
-                if (now - windowStart.get() >= windowSizeMillis) {
-                    windowStart.set(now);
-                    counter.set(1);
-                    return true;
-                }
-                
-                // 检查是否超过限制
-                if (counter.get() < limitForPeriod) {
-                    counter.incrementAndGet();
-                    return true;
-                }
-                return false;
-            } finally {
-                lock.unlock();
-            }
-        }
+    public static final int DEFAULT_MAXIMUM_KEYS = 100_000;
 
-        long getAvailablePermits() {
-            long now = System.currentTimeMillis();
-            if (now - windowStart.get() >= windowSizeMillis) {
-                return limitForPeriod;
-            }
-            return Math.max(0, limitForPeriod - counter.get());
-        }
+    /**
+     * 默认空闲淘汰时间（毫秒）
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
-        void reset() {
-            windowStart.set(System.currentTimeMillis());
-            counter.set(0);
-        }
+    /**
+     * 限流算法
+     */
+    public enum Algorithm {
+        /**
+         * 令牌桶
+         */
+        TOKEN_BUCKET,
+        /**
+         * 滑动窗口
+         */
+        SLIDING_WINDOW
     }
 
     /**
-     * 限流器缓存
+     * 通过 SPI 无参创建的实例共享同一个注册表
      */
-    private static final Map<String, SlidingWindow> WINDOW_CACHE = new ConcurrentHashMap<>();
+    private static final BoundedLimiterRegistry<Limiter> SHARED_REGISTRY =
+            new BoundedLimiterRegistry<>(DEFAULT_MAXIMUM_KEYS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+    /**
+     * 所有存活实例的注册表，供静态清理方法使用，实例回收后自动移除
+     */
+    private static final Set<BoundedLimiterRegistry<Limiter>> LIVE_REGISTRIES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final Algorithm algorithm;
+    private final BoundedLimiterRegistry<Limiter> registry;
+
+    public LocalRateLimiter() {
+        this(Algorithm.TOKEN_BUCKET, SHARED_REGISTRY);
+    }
+
+    public LocalRateLimiter(Algorithm algorithm, int maximumKeys, long idleTimeoutMillis) {
+        this(algorithm, new BoundedLimiterRegistry<>(maximumKeys, idleTimeoutMillis));
+    }
+
+    private LocalRateLimiter(Algorithm algorithm, BoundedLimiterRegistry<Limiter> registry) {
+        this.algorithm = null == algorithm ? Algorithm.TOKEN_BUCKET : algorithm;
+        this.registry = registry;
+        LIVE_REGISTRIES.add(registry);
+    }
 
     @Override
     public boolean tryAcquire(String key, int limitForPeriod, int periodSeconds) {
-        SlidingWindow window = WINDOW_CACHE.computeIfAbsent(key, 
-                k -> new SlidingWindow(limitForPeriod, periodSeconds));
-        
-        boolean acquired = window.tryAcquire();
-        
+        boolean acquired = getLimiter(key, limitForPeriod, periodSeconds).tryAcquire();
+
         if (acquired) {
             log.debug("本地限流通过: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
         } else {
             log.debug("本地限流触发: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
         }
-        
+
         return acquired;
     }
 
     @Override
     public boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis) {
-        long deadline = System.currentTimeMillis() + timeoutMillis;
-        
-        while (System.currentTimeMillis() < deadline) {
-            if (tryAcquire(key, limitForPeriod, periodSeconds)) {
-                return true;
-            }
-            
-            try {
-                Thread.sleep(Math.min(50, timeoutMillis / 10));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return false;
-            }
+        if (timeoutMillis <= 0) {
+            return tryAcquire(key, limitForPeriod, periodSeconds);
+        }
+        boolean acquired = getLimiter(key, limitForPeriod, periodSeconds)
+                .tryAcquire(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        if (!acquired) {
+            log.debug("本地限流等待超时: key={}, limit={}/{}, timeout={}ms", key, limitForPeriod, periodSeconds, timeoutMillis);
         }
-        
-        return false;
+        return acquired;
     }
 
     @Override
     public long getAvailablePermits(String key, int limitForPeriod, int periodSeconds) {
-        SlidingWindow window = WINDOW_CACHE.get(key);
-        if (window == null) {
+        Limiter limiter = registry.getIfPresent(key);
+        if (limiter == null) {
             return limitForPeriod;
         }
-        return window.getAvailablePermits();
+        return limiter.availablePermits();
     }
 
     @Override
     public void reset(String key) {
-        SlidingWindow window = WINDOW_CACHE.get(key);
-        if (window != null) {
-            window.reset();
+        Limiter limiter = registry.getIfPresent(key);
+        if (limiter != null) {
+            limiter.reset();
             log.debug("重置本地限流: key={}", key);
         }
     }
 
     @Override
     public String getType() {
-        return "LOCAL_SLIDING_WINDOW";
+        return algorithm == Algorithm.SLIDING_WINDOW ? "LOCAL_SLIDING_WINDOW" : "LOCAL_TOKEN_BUCKET";
+    }
+
+    /**
+     * 当前保存的限流键数量
+     */
+    public int size() {
+        return registry.size();
+    }
+
+    /**
+     * 移除当前实例中指定key的限流器
+     */
+    public void evict(String key) {
+        registry.remove(key);
     }
 
     /**
-     * 清除指定key的限流器
+     * 移除当前实例中的所有限流器
      */
+    public void evictAll() {
+        registry.clear();
+    }
+
+    /**
+     * 清除所有实例中指定key的限流器
+     *
+     * @deprecated 限流器按实例保存，请使用 {@link #evict(String)}
+     */
+    @Deprecated
     public static void remove(String key) {
-        WINDOW_CACHE.remove(key);
+        liveRegistries().forEach(registry -> registry.remove(key));
     }
 
     /**
-     * 清除所有限流器
+     * 清除所有实例中的限流器
+     *
+     * @deprecated 限流器按实例保存，请使用 {@link #evictAll()}
      */
+    @Deprecated
     public static void clear() {
-        WINDOW_CACHE.clear();
+        liveRegistries().forEach(BoundedLimiterRegistry::clear);
+    }
+
+    private static List<BoundedLimiterRegistry<Limiter>> liveRegistries() {
+        synchronized (LIVE_REGISTRIES) {
+            return new ArrayList<>(LIVE_REGISTRIES);
+        }
+    }
+
+    private Limiter getLimiter(String key, int limitForPeriod, int periodSeconds) {
+        Limiter limiter = registry.get(key, k -> newLimiter(limitForPeriod, periodSeconds));
+        if (!limiter.matches(limitForPeriod, periodSeconds)) {
+            // 限流参数变化（如动态配置更新），按新参数重建
+            limiter = newLimiter(limitForPeriod, periodSeconds);
+            registry.put(key, limiter);
+        }
+        return limiter;
+    }
+
+    private Limiter newLimiter(int limitForPeriod, int periodSeconds) {
+        int limit = Math.max(1, limitForPeriod);
+        long periodNanos = TimeUnit.SECONDS.toNanos(Math.max(1, periodSeconds));
+        return algorithm == Algorithm.SLIDING_WINDOW
+                ? new SlidingWindow(limitForPeriod, periodSeconds, limit, periodNanos)
+                : new TokenBucket(limitForPeriod, periodSeconds, limit, periodNanos);
+    }
+
+    /**
+     * 按纳秒精确等待，期间被中断则返回 false
+     */
+    private static boolean parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单个限流键的限流器
+     */
+    private abstract static class Limiter {
+        private final int limitForPeriod;
+        private final int periodSeconds;
+        final int limit;
+        final long periodNanos;
+
+        Limiter(int limitForPeriod, int periodSeconds, int limit, long periodNanos) {
+            this.limitForPeriod = limitForPeriod;
+            this.periodSeconds = periodSeconds;
+            this.limit = limit;
+            this.periodNanos = periodNanos;
+        }
+
+        boolean matches(int limitForPeriod, int periodSeconds) {
+            return this.limitForPeriod == limitForPeriod && this.periodSeconds == periodSeconds;
+        }
+
+        abstract boolean tryAcquire();
+
+        abstract boolean tryAcquire(long timeoutNanos);
+
+        abstract long availablePermits();
+
+        abstract void reset();
+    }
+
+    /**
+     * 令牌桶
+     * <p>
+     * 以"理论到达时间"（TAT）表示桶状态：每获取一个令牌 TAT 前进一个补充间隔，
+     * 当 TAT 超出当前时间一个完整周期时桶为空。等价于容量为 limit、匀速补充的令牌桶，
+     * 单个 long 即可完成 CAS 更新。
+     * </p>
+     */
+    private static final class TokenBucket extends Limiter {
+        private final long intervalNanos;
+        private final AtomicLong theoreticalArrival;
+
+        TokenBucket(int limitForPeriod, int periodSeconds, int limit, long periodNanos) {
+            super(limitForPeriod, periodSeconds, limit, periodNanos);
+            this.intervalNanos = Math.max(1, periodNanos / limit);
+            this.theoreticalArrival = new AtomicLong(System.nanoTime() - periodNanos);
+        }
+
+        @Override
+        boolean tryAcquire() {
+            return reserve(0) == 0;
+        }
+
+        @Override
+        boolean tryAcquire(long timeoutNanos) {
+            long waitNanos = reserve(timeoutNanos);
+            if (waitNanos < 0) {
+                return false;
+            }
+            // 令牌已预留，只需等到其生效时刻
+            return waitNanos == 0 || parkUntil(System.nanoTime() + waitNanos);
+        }
+
+        /**
+         * 预留一个令牌
+         *
+         * @param maxWaitNanos 可接受的最长等待
+         * @return 需要等待的纳秒数，-1 表示无法在时限内获得
+         */
+        private long reserve(long maxWaitNanos) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long now = System.nanoTime();
+                long next = Math.max(tat, now) + intervalNanos;
+                long waitNanos = next - now - periodNanos;
+                if (waitNanos > maxWaitNanos) {
+                    return -1;
+                }
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return Math.max(0, waitNanos);
+                }
+            }
+        }
+
+        @Override
+        long availablePermits() {
+            long now = System.nanoTime();
+            long available = (now + periodNanos - Math.max(theoreticalArrival.get(), now)) / intervalNanos;
+            return Math.max(0, Math.min(limit, available));
+        }
+
+        @Override
+        void reset() {
+            theoreticalArrival.set(System.nanoTime() - periodNanos);
+        }
+    }
+
+    /**
+     * 滑动窗口
+     * <p>
+     * 估算值 = 上一窗口计数 × 上一窗口在滑动区间内的剩余占比 + 当前窗口计数。
+     * 窗口状态为不可变对象，整体 CAS 替换。
+     * </p>
+     */
+    private static final class SlidingWindow extends Limiter {
+        private final AtomicReference<Window> state;
+
+        SlidingWindow(int limitForPeriod, int periodSeconds, int limit, long periodNanos) {
+            super(limitForPeriod, periodSeconds, limit, periodNanos);
+            this.state = new AtomicReference<>(new Window(System.nanoTime(), 0, 0));
+        }
+
+        @Override
+        boolean tryAcquire() {
+            while (true) {
+                Window current = state.get();
+                long now = System.nanoTime();
+                Window window = current.roll(now, periodNanos);
+                if (window.estimate(now, periodNanos) + 1 > limit) {
+                    if (window != current) {
+                        state.compareAndSet(current, window);
+                    }
+                    return false;
+                }
+                if (state.compareAndSet(current, window.increment())) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean tryAcquire(long timeoutNanos) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (true) {
+                if (tryAcquire()) {
+                    return true;
+                }
+                long now = System.nanoTime();
+                if (now >= deadline) {
+                    return false;
+                }
+                long wake = Math.min(deadline, now + Math.max(1, state.get().roll(now, periodNanos).nanosUntilAvailable(now, periodNanos, limit)));
+                if (!parkUntil(wake)) {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        long availablePermits() {
+            long now = System.nanoTime();
+            double estimate = state.get().roll(now, periodNanos).estimate(now, periodNanos);
+            return Math.max(0, limit - (long) Math.ceil(estimate));
+        }
+
+        @Override
+        void reset() {
+            state.set(new Window(System.nanoTime(), 0, 0));
+        }
+    }
+
+    private record Window(long startNanos, long current, long previous) {
+
+        Window roll(long now, long periodNanos) {
+            long elapsed = now - startNanos;
+            if (elapsed < periodNanos) {
+                return this;
+            }
+            long windows = elapsed / periodNanos;
+            long start = startNanos + windows * periodNanos;
+            return new Window(start, 0, windows == 1 ? current : 0);
+        }
+
+        double estimate(long now, long periodNanos) {
+            double previousWeight = (double) (periodNanos - (now - startNanos)) / periodNanos;
+            return previous * previousWeight + current;
+        }
+
+        Window increment() {
+            return new Window(startNanos, current + 1, previous);
+        }
+
+        /**
+         * 估算到下一个许可可用需要的时间
+         */
+        long nanosUntilAvailable(long now, long periodNanos, int limit) {
+            long untilNextWindow = startNanos + periodNanos - now;
+            if (current + 1 > limit || previous == 0) {
+                return untilNextWindow;
+            }
+            // previous × (period - t) / period + current + 1 <= limit 时可用
+            double allowedPrevious = limit - 1 - current;
+            long t = (long) (periodNanos - allowedPrevious * periodNanos / previous);
+            return Math.min(untilNextWindow, Math.max(1, startNanos + t - now));
+        }
     }
 }
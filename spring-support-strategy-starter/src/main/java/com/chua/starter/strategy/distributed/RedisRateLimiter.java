@@ -6,11 +6,30 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 基于Redis的滑动窗口分布式限流器
+ * 基于Redis的分布式限流器
  * <p>
- * 使用Redis + Lua脚本实现滑动窗口限流算法，保证原子性和高性能。
+ * 使用Redis + Lua脚本保证原子性，支持两种算法：
+ * </p>
+ * <ul>
+ *     <li>滑动窗口（默认，兼容原实现）：ZSET 按请求时间戳计数，每个请求一个成员</li>
+ *     <li>GCRA：每个键只保存一个"理论到达时间"，状态 O(1)，内存与 CPU 不随 QPS 增长</li>
+ * </ul>
+ * <p>
+ * GCRA 模式下可开启本地租约：节点一次向 Redis 预留 {@code leaseSize} 个许可，在内存中逐个发放，
+ * 热点键每 N 个请求才访问一次 Redis。租约有效期为这批许可对应的补充时长，过期未用完的许可直接作废，
+ * 避免延后使用造成突发超限。带超时获取时直接在 Redis 中预留未来的许可并精确等待，不再轮询。
+ * </p>
+ * <p>
+ * Redis 不可用时按 {@code failOpen} 决定放行或拒绝：调用方显式指定时以其为准，
+ * 否则按限流键前缀匹配 {@code failOpenOverrides}（最长前缀优先），都未命中时使用全局设置。
  * </p>
  *
  * @author CH
@@ -22,8 +41,27 @@ import java.util.Collections;
 public class RedisRateLimiter implements StrategyRateLimiter {
 
     private static final String RATE_LIMITER_PREFIX = "strategy:ratelimit:";
-    
+
+    /**
+     * 限流算法
+     */
+    public enum Algorithm {
+        /**
+         * ZSET 滑动窗口
+         */
+        SLIDING_WINDOW,
+        /**
+         * 通用信元速率算法（Generic Cell Rate Algorithm）
+         */
+        GCRA
+    }
+
     private final StringRedisTemplate redisTemplate;
+    private final Algorithm algorithm;
+    private final boolean failOpen;
+    private final List<Map.Entry<String, Boolean>> failOpenOverrides;
+    private final int leaseSize;
+    private final BoundedLimiterRegistry<Lease> leases;
 
     /**
      * 滑动窗口限流Lua脚本
@@ -39,16 +77,16 @@ public class RedisRateLimiter implements StrategyRateLimiter {
             local window_size = tonumber(ARGV[2])
             local limit = tonumber(ARGV[3])
             local request_id = ARGV[4]
-            
+
             -- 计算窗口起始时间
             local window_start = now - window_size * 1000
-            
+
             -- 移除窗口外的请求
             redis.call('ZREMRANGEBYSCORE', key, '-inf', window_start)
-            
+
             -- 获取当前窗口内的请求数
             local current_count = redis.call('ZCARD', key)
-            
+
             -- 判断是否超过限制
             if current_count < limit then
                 -- 添加当前请求
@@ -69,32 +107,131 @@ public class RedisRateLimiter implements StrategyRateLimiter {
             local now = tonumber(ARGV[1])
             local window_size = tonumber(ARGV[2])
             local limit = tonumber(ARGV[3])
-            
+
             -- 计算窗口起始时间
             local window_start = now - window_size * 1000
-            
+
             -- 移除窗口外的请求
             redis.call('ZREMRANGEBYSCORE', key, '-inf', window_start)
-            
+
             -- 获取当前窗口内的请求数
             local current_count = redis.call('ZCARD', key)
-            
+
             return limit - current_count
             """;
 
+    /**
+     * GCRA 限流Lua脚本
+     * <p>
+     * 键中只保存理论到达时间 TAT（微秒）。时间由调用方传入，与滑动窗口脚本一致。
+     * 返回 {获得的许可数, 需要等待的微秒数}：
+     * - 可立即获得时按 requested 批量发放（租约），最多发放当前可用数
+     * - 无可用许可但等待时长不超过 max_wait 时预留 1 个未来许可，返回等待时长
+     * - 否则返回 {0, 下一个许可可用前的微秒数}
+     * </p>
+     */
+    private static final String GCRA_SCRIPT = """
+            local key = KEYS[1]
+            local now = tonumber(ARGV[1])
+            local interval = tonumber(ARGV[2])
+            local tolerance = tonumber(ARGV[3])
+            local requested = tonumber(ARGV[4])
+            local max_wait = tonumber(ARGV[5])
+
+            local tat = tonumber(redis.call('GET', key) or now)
+            if tat < now then
+                tat = now
+            end
+
+            local available = math.floor((now + tolerance - tat) / interval)
+            local granted = 0
+            local wait = 0
+            if available > 0 then
+                granted = math.min(available, requested)
+            else
+                wait = tat + interval - tolerance - now
+                if wait > max_wait then
+                    return {0, wait}
+                end
+                granted = 1
+            end
+
+            local new_tat = tat + granted * interval
+            redis.call('SET', key, string.format('%.0f', new_tat), 'PX', math.ceil((new_tat - now) / 1000) + 1000)
+            return {granted, wait}
+            """;
+
+    /**
+     * GCRA 剩余许可数Lua脚本
+     */
+    private static final String GCRA_AVAILABLE_SCRIPT = """
+            local now = tonumber(ARGV[1])
+            local interval = tonumber(ARGV[2])
+            local tolerance = tonumber(ARGV[3])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then
+                tat = now
+            end
+            return math.max(0, math.floor((now + tolerance - tat) / interval))
+            """;
+
     private final DefaultRedisScript<Long> slidingWindowScript;
     private final DefaultRedisScript<Long> getAvailableScript;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> gcraScript;
+    private final DefaultRedisScript<Long> gcraAvailableScript;
 
     public RedisRateLimiter(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, Algorithm.SLIDING_WINDOW, true, 0);
+    }
+
+    /**
+     * @param redisTemplate Redis 模板
+     * @param algorithm     限流算法
+     * @param failOpen      Redis 异常时是否放行
+     * @param leaseSize     本地租约批量大小，小于等于 1 表示不启用，仅 GCRA 支持
+     */
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, Algorithm algorithm, boolean failOpen, int leaseSize) {
+        this(redisTemplate, algorithm, failOpen, Collections.emptyMap(), leaseSize);
+    }
+
+    /**
+     * @param redisTemplate     Redis 模板
+     * @param algorithm         限流算法
+     * @param failOpen          Redis 异常时是否放行（默认值）
+     * @param failOpenOverrides 按限流键前缀单独指定的放行策略，最长前缀优先
+     * @param leaseSize         本地租约批量大小，小于等于 1 表示不启用，仅 GCRA 支持
+     */
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, Algorithm algorithm, boolean failOpen,
+                            Map<String, Boolean> failOpenOverrides, int leaseSize) {
         this.redisTemplate = redisTemplate;
-        
+        this.algorithm = null == algorithm ? Algorithm.SLIDING_WINDOW : algorithm;
+        this.failOpen = failOpen;
+        this.failOpenOverrides = null == failOpenOverrides ? List.of() : failOpenOverrides.entrySet().stream()
+                .filter(entry -> entry.getKey() != null && entry.getValue() != null)
+                .sorted(Comparator.comparingInt((Map.Entry<String, Boolean> entry) -> entry.getKey().length()).reversed())
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+        this.leaseSize = this.algorithm == Algorithm.GCRA ? Math.max(1, leaseSize) : 1;
+        this.leases = this.leaseSize > 1
+                ? new BoundedLimiterRegistry<>(LocalRateLimiter.DEFAULT_MAXIMUM_KEYS, LocalRateLimiter.DEFAULT_IDLE_TIMEOUT_MILLIS)
+                : null;
+
         this.slidingWindowScript = new DefaultRedisScript<>();
         this.slidingWindowScript.setScriptText(SLIDING_WINDOW_SCRIPT);
         this.slidingWindowScript.setResultType(Long.class);
-        
+
         this.getAvailableScript = new DefaultRedisScript<>();
         this.getAvailableScript.setScriptText(GET_AVAILABLE_SCRIPT);
         this.getAvailableScript.setResultType(Long.class);
+
+        this.gcraScript = new DefaultRedisScript<>();
+        this.gcraScript.setScriptText(GCRA_SCRIPT);
+        this.gcraScript.setResultType(List.class);
+
+        this.gcraAvailableScript = new DefaultRedisScript<>();
+        this.gcraAvailableScript.setScriptText(GCRA_AVAILABLE_SCRIPT);
+        this.gcraAvailableScript.setResultType(Long.class);
     }
 
     @Override
@@ -104,11 +241,52 @@ public class RedisRateLimiter implements StrategyRateLimiter {
 
     @Override
     public boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis) {
-        String redisKey = RATE_LIMITER_PREFIX + key;
-        long now = System.currentTimeMillis();
-        String requestId = now + ":" + Thread.currentThread().getId() + ":" + Math.random();
+        return tryAcquire(key, limitForPeriod, periodSeconds, timeoutMillis, null);
+    }
 
+    @Override
+    public boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis, Boolean failOpen) {
         try {
+            boolean acquired = algorithm == Algorithm.GCRA
+                    ? tryAcquireGcra(key, limitForPeriod, periodSeconds, timeoutMillis)
+                    : tryAcquireSlidingWindow(key, limitForPeriod, periodSeconds, timeoutMillis);
+
+            if (acquired) {
+                log.debug("分布式限流通过: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
+            } else {
+                log.debug("分布式限流触发: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
+            }
+
+            return acquired;
+        } catch (Exception e) {
+            boolean pass = null != failOpen ? failOpen : isFailOpen(key);
+            log.error("分布式限流执行异常: key={}, failOpen={}", key, pass, e);
+            return pass;
+        }
+    }
+
+    /**
+     * 解析限流键在 Redis 不可用时是否放行
+     *
+     * @param key 限流键
+     * @return true-放行，false-拒绝
+     */
+    public boolean isFailOpen(String key) {
+        for (Map.Entry<String, Boolean> entry : failOpenOverrides) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return failOpen;
+    }
+
+    private boolean tryAcquireSlidingWindow(String key, int limitForPeriod, int periodSeconds, long timeoutMillis) {
+        String redisKey = RATE_LIMITER_PREFIX + key;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long sleepTime = Math.max(1, Math.min(50, timeoutMillis / 10));
+        while (true) {
+            long now = System.currentTimeMillis();
+            String requestId = now + ":" + Thread.currentThread().getId() + ":" + Math.random();
             Long result = redisTemplate.execute(
                     slidingWindowScript,
                     Collections.singletonList(redisKey),
@@ -117,66 +295,96 @@ public class RedisRateLimiter implements StrategyRateLimiter {
                     String.valueOf(limitForPeriod),
                     requestId
             );
+            if (result != null && result == 1) {
+                return true;
+            }
+            // 滑动窗口无法预知下一个许可的时间，仍按间隔重试
+            if (System.currentTimeMillis() + sleepTime >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(sleepTime));
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+    }
 
-            boolean acquired = result != null && result == 1;
-            
-            if (!acquired && timeoutMillis > 0) {
-                // 带超时的重试
-                long deadline = System.currentTimeMillis() + timeoutMillis;
-                long sleepTime = Math.min(50, timeoutMillis / 10);
-                
-                while (System.currentTimeMillis() < deadline) {
-                    try {
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        return false;
-                    }
-                    
-                    now = System.currentTimeMillis();
-                    requestId = now + ":" + Thread.currentThread().getId() + ":" + Math.random();
-                    result = redisTemplate.execute(
-                            slidingWindowScript,
-                            Collections.singletonList(redisKey),
-                            String.valueOf(now),
-                            String.valueOf(periodSeconds),
-                            String.valueOf(limitForPeriod),
-                            requestId
-                    );
-                    
-                    if (result != null && result == 1) {
-                        return true;
-                    }
-                }
+    private boolean tryAcquireGcra(String key, int limitForPeriod, int periodSeconds, long timeoutMillis) {
+        int limit = Math.max(1, limitForPeriod);
+        if (leases != null) {
+            Lease lease = leases.getIfPresent(key);
+            if (lease != null && lease.tryTake(limit, periodSeconds)) {
+                return true;
             }
+        }
 
-            if (acquired) {
-                log.debug("分布式限流通过: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
-            } else {
-                log.debug("分布式限流触发: key={}, limit={}/{}", key, limitForPeriod, periodSeconds);
+        long[] result = executeGcra(key, limit, periodSeconds, leaseSize, TimeUnit.MILLISECONDS.toMicros(Math.max(0, timeoutMillis)));
+        long granted = result[0];
+        long waitMicros = result[1];
+        if (granted <= 0) {
+            return false;
+        }
+        if (granted > 1 && leases != null) {
+            // 多出的许可作为本地租约，在其对应的补充时长内有效
+            long intervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, periodSeconds)) / limit;
+            leases.put(key, new Lease(limit, periodSeconds, (int) granted - 1, System.nanoTime() + granted * intervalNanos));
+        }
+        if (waitMicros > 0) {
+            // 许可已在 Redis 中预留，等待到其生效时刻即可
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(waitMicros);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
             }
+        }
+        return true;
+    }
 
-            return acquired;
-        } catch (Exception e) {
-            log.error("分布式限流执行异常: key={}", key, e);
-            // 异常时默认放行，避免影响业务
-            return true;
+    @SuppressWarnings("unchecked")
+    private long[] executeGcra(String key, int limit, int periodSeconds, int requested, long maxWaitMicros) {
+        long periodMicros = TimeUnit.SECONDS.toMicros(Math.max(1, periodSeconds));
+        List<Object> result = redisTemplate.execute(
+                gcraScript,
+                Collections.singletonList(RATE_LIMITER_PREFIX + key),
+                String.valueOf(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())),
+                String.valueOf(Math.max(1, periodMicros / limit)),
+                String.valueOf(periodMicros),
+                String.valueOf(requested),
+                String.valueOf(maxWaitMicros)
+        );
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("GCRA 脚本返回值异常: " + result);
         }
+        return new long[]{((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue()};
     }
 
     @Override
     public long getAvailablePermits(String key, int limitForPeriod, int periodSeconds) {
         String redisKey = RATE_LIMITER_PREFIX + key;
-        long now = System.currentTimeMillis();
 
         try {
-            Long result = redisTemplate.execute(
-                    getAvailableScript,
-                    Collections.singletonList(redisKey),
-                    String.valueOf(now),
-                    String.valueOf(periodSeconds),
-                    String.valueOf(limitForPeriod)
-            );
+            Long result;
+            if (algorithm == Algorithm.GCRA) {
+                long periodMicros = TimeUnit.SECONDS.toMicros(Math.max(1, periodSeconds));
+                result = redisTemplate.execute(
+                        gcraAvailableScript,
+                        Collections.singletonList(redisKey),
+                        String.valueOf(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())),
+                        String.valueOf(Math.max(1, periodMicros / Math.max(1, limitForPeriod))),
+                        String.valueOf(periodMicros)
+                );
+            } else {
+                result = redisTemplate.execute(
+                        getAvailableScript,
+                        Collections.singletonList(redisKey),
+                        String.valueOf(System.currentTimeMillis()),
+                        String.valueOf(periodSeconds),
+                        String.valueOf(limitForPeriod)
+                );
+            }
             return result != null ? result : limitForPeriod;
         } catch (Exception e) {
             log.error("获取剩余许可数异常: key={}", key, e);
@@ -187,6 +395,9 @@ public class RedisRateLimiter implements StrategyRateLimiter {
     @Override
     public void reset(String key) {
         String redisKey = RATE_LIMITER_PREFIX + key;
+        if (leases != null) {
+            leases.remove(key);
+        }
         try {
             redisTemplate.delete(redisKey);
             log.debug("重置限流计数: key={}", key);
@@ -197,6 +408,39 @@ public class RedisRateLimiter implements StrategyRateLimiter {
 
     @Override
     public String getType() {
-        return "REDIS_SLIDING_WINDOW";
+        return algorithm == Algorithm.GCRA ? "REDIS_GCRA" : "REDIS_SLIDING_WINDOW";
+    }
+
+    /**
+     * 本地租约：已在 Redis 中扣减、由本节点在内存中发放的许可
+     */
+    private static final class Lease {
+        private final int limitForPeriod;
+        private final int periodSeconds;
+        private final AtomicInteger remaining;
+        private final long expiresAtNanos;
+
+        private Lease(int limitForPeriod, int periodSeconds, int permits, long expiresAtNanos) {
+            this.limitForPeriod = limitForPeriod;
+            this.periodSeconds = periodSeconds;
+            this.remaining = new AtomicInteger(permits);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean tryTake(int limitForPeriod, int periodSeconds) {
+            if (this.limitForPeriod != limitForPeriod || this.periodSeconds != periodSeconds
+                    || System.nanoTime() - expiresAtNanos >= 0) {
+                return false;
+            }
+            while (true) {
+                int current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
     }
 }
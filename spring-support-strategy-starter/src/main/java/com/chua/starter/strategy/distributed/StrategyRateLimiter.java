@@ -72,6 +72,23 @@ public interface StrategyRateLimiter {
      */
     boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis);
 
+    /**
+     * 尝试获取许可（带超时，单独指定后端不可用时的处理方式）
+     * <p>
+     * 本地实现不依赖外部存储，不存在后端不可用的情况，默认忽略 {@code failOpen}。
+     * </p>
+     *
+     * @param key             限流键
+     * @param limitForPeriod  周期内允许的请求数
+     * @param periodSeconds   周期时间（秒）
+     * @param timeoutMillis   超时时间（毫秒）
+     * @param failOpen        后端不可用时是否放行，null 表示使用限流器配置
+     * @return true-获取成功，false-被限流或超时
+     */
+    default boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis, Boolean failOpen) {
+        return tryAcquire(key, limitForPeriod, periodSeconds, timeoutMillis);
+    }
+
     /**
      * 获取当前剩余许可数
      *
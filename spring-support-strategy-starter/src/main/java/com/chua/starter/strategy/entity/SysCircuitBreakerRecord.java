@@ -129,6 +129,13 @@ public class SysCircuitBreakerRecord implements Serializable {
     @Schema(description = "熔断触发时间")
     private LocalDateTime triggerTime;
 
+    /**
+     * 合并的记录数（同一写入周期内相同的记录只保存一条）
+     */
+    @TableField("record_count")
+    @Schema(description = "合并的记录数")
+    private Long recordCount;
+
     /**
      * 创建时间
      */
@@ -117,6 +117,13 @@ public class SysLimitRecord implements Serializable {
     @Schema(description = "限流触发时间")
     private LocalDateTime sysLimitTime;
 
+    /**
+     * 合并的记录数（同一写入周期内相同的记录只保存一条）
+     */
+    @TableField("record_count")
+    @Schema(description = "合并的记录数")
+    private Long recordCount;
+
     /**
      * 创建时间
      */
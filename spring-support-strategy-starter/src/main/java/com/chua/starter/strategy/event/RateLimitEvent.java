@@ -37,6 +37,11 @@ public class RateLimitEvent extends StrategyEvent {
      */
     private final Integer refreshPeriodSeconds;
 
+    /**
+     * 聚合的请求数（周期内同一配置、同一结果的请求数，单次事件为 1）
+     */
+    private final long count;
+
     /**
      * 构造函数
      *
@@ -69,12 +74,51 @@ public class RateLimitEvent extends StrategyEvent {
                          String rateLimitKey,
                          Integer limitForPeriod,
                          Integer refreshPeriodSeconds) {
+        this(source, requestUri, requestMethod, clientIp, userId, strategyName, allowed, reason, extraData,
+                configId, dimension, rateLimitKey, limitForPeriod, refreshPeriodSeconds, 1L);
+    }
+
+    /**
+     * 构造聚合事件，请求相关字段取周期内最后一次请求
+     *
+     * @param source              事件源
+     * @param requestUri          请求URI
+     * @param requestMethod       请求方法
+     * @param clientIp            客户端IP
+     * @param userId              用户ID
+     * @param strategyName        策略名称
+     * @param allowed             是否允许通过
+     * @param reason              拒绝原因
+     * @param extraData           额外数据
+     * @param configId            限流配置ID
+     * @param dimension           限流维度
+     * @param rateLimitKey        限流键
+     * @param limitForPeriod      限流阈值
+     * @param refreshPeriodSeconds 限流周期
+     * @param count               聚合的请求数
+     */
+    public RateLimitEvent(Object source,
+                         String requestUri,
+                         String requestMethod,
+                         String clientIp,
+                         String userId,
+                         String strategyName,
+                         boolean allowed,
+                         String reason,
+                         String extraData,
+                         Long configId,
+                         String dimension,
+                         String rateLimitKey,
+                         Integer limitForPeriod,
+                         Integer refreshPeriodSeconds,
+                         long count) {
         super(source, requestUri, requestMethod, clientIp, userId, strategyName, allowed, reason, extraData);
         this.configId = configId;
         this.dimension = dimension;
         this.rateLimitKey = rateLimitKey;
         this.limitForPeriod = limitForPeriod;
         this.refreshPeriodSeconds = refreshPeriodSeconds;
+        this.count = count;
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.chua.starter.strategy.entity.SysCircuitBreakerRecord;
 import com.chua.starter.strategy.event.CircuitBreakerEvent;
 import com.chua.starter.strategy.service.SysCircuitBreakerConfigurationService;
 import com.chua.starter.strategy.service.SysCircuitBreakerRecordService;
+import com.chua.starter.strategy.support.StrategyRecordWriter;
 import com.chua.starter.strategy.util.StrategyEventPublisher;
 import com.chua.starter.strategy.util.UserContextHelper;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -12,7 +13,6 @@ import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
@@ -37,7 +37,6 @@ import java.util.concurrent.ConcurrentHashMap;
  * @since 2025-12-28
  */
 @Slf4j
-@RequiredArgsConstructor
 public class CircuitBreakerInterceptor implements HandlerInterceptor {
 
     private static final String CIRCUIT_BREAKER_START_TIME = "circuitBreaker.startTime";
@@ -45,9 +44,28 @@ public class CircuitBreakerInterceptor implements HandlerInterceptor {
     private final SysCircuitBreakerConfigurationService configService;
     private final SysCircuitBreakerRecordService recordService;
 
+    /**
+     * 记录写入器，为空时在请求线程中直接调用 {@link SysCircuitBreakerRecordService#saveCircuitBreakerRecord} 逐条保存，
+     * 不合并批量，是否异步取决于该服务的 {@code @Async} 代理是否生效
+     */
+    private final StrategyRecordWriter recordWriter;
+
     private final Map<String, CircuitBreaker> circuitBreakerCache = new ConcurrentHashMap<>();
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
+    public CircuitBreakerInterceptor(SysCircuitBreakerConfigurationService configService,
+                                     SysCircuitBreakerRecordService recordService) {
+        this(configService, recordService, null);
+    }
+
+    public CircuitBreakerInterceptor(SysCircuitBreakerConfigurationService configService,
+                                     SysCircuitBreakerRecordService recordService,
+                                     StrategyRecordWriter recordWriter) {
+        this.configService = configService;
+        this.recordService = recordService;
+        this.recordWriter = recordWriter;
+    }
+
     @Override
     public boolean preHandle(@NonNull HttpServletRequest request, 
                             @NonNull HttpServletResponse response, 
@@ -69,7 +87,7 @@ public class CircuitBreakerInterceptor implements HandlerInterceptor {
             log.warn("熔断器打开: uri={}, name={}", uri, config.getName());
             
             // 记录熔断
-            recordCircuitBreak(config, request, "CIRCUIT_OPEN");
+            recordCircuitBreak(config, request, circuitBreaker.getState().name(), "CIRCUIT_OPEN");
             
             // 发布事件
             publishEvent(request, config, circuitBreaker.getState().name(), false, "熔断器打开");
@@ -182,19 +200,25 @@ public class CircuitBreakerInterceptor implements HandlerInterceptor {
                 "{\"code\":503,\"message\":\"%s\",\"success\":false}", message));
     }
 
-    private void recordCircuitBreak(SysCircuitBreakerConfiguration config, 
-                                   HttpServletRequest request, String reason) {
+    private void recordCircuitBreak(SysCircuitBreakerConfiguration config,
+                                   HttpServletRequest request, String state, String reason) {
         try {
             SysCircuitBreakerRecord record = new SysCircuitBreakerRecord();
             record.setConfigId(config.getId());
             record.setConfigName(config.getName());
             record.setRequestUri(request.getRequestURI());
             record.setRequestMethod(request.getMethod());
+            record.setCircuitBreakerState(state);
             record.setTriggerReason(reason);
             record.setTriggerTime(LocalDateTime.now());
             record.setClientIp(getClientIp(request));
-            
-            recordService.save(record);
+
+            // 熔断打开时请求会集中失败，记录合并后批量写入，不在请求线程同步落库；未配置写入器时逐条保存
+            if (recordWriter != null) {
+                recordWriter.recordCircuitBreak(record);
+            } else {
+                recordService.saveCircuitBreakerRecord(record);
+            }
         } catch (Exception e) {
             log.warn("记录熔断事件失败", e);
         }
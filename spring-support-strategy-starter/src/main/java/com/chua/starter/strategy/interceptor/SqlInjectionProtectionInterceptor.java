@@ -2,6 +2,8 @@ package com.chua.starter.strategy.interceptor;
 
 import com.chua.starter.strategy.config.StrategyProperties;
 import com.chua.starter.strategy.event.SqlInjectionProtectionEvent;
+import com.chua.starter.strategy.util.MultiPatternScanner;
+import com.chua.starter.strategy.util.MultiPatternScanner.Rule;
 import com.chua.starter.strategy.util.StrategyEventPublisher;
 import com.chua.starter.strategy.util.UserContextHelper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,15 +18,19 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * SQL注入防护拦截器
  * <p>
  * 检测并阻止SQL注入攻击，防止恶意SQL语句执行。
  * 主要检测请求参数和请求体中的SQL注入攻击模式。
+ * 规则由 {@link MultiPatternScanner} 统一扫描：每个值只做一次字面量预筛，命中锚点的规则才执行正则。
  * </p>
  *
  * @author CH
@@ -43,34 +49,36 @@ public class SqlInjectionProtectionInterceptor implements HandlerInterceptor {
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     /**
-     * SQL注入特征匹配模式
+     * SQL注入特征匹配模式，锚点为正则命中时必然出现的字面量
      */
-    private static final Pattern[] SQL_INJECTION_PATTERNS = new Pattern[]{
+    static final MultiPatternScanner SQL_INJECTION_SCANNER = new MultiPatternScanner(List.of(
             // 单引号注入
-            Pattern.compile("([';]+|(\\s|^)(or|and)(\\s|$))", Pattern.CASE_INSENSITIVE),
+            Rule.of("([';]+|(\\s|^)(or|and)(\\s|$))", "'", ";", "or", "and"),
             // UNION注入
-            Pattern.compile("union\\s+(all\\s+)?select", Pattern.CASE_INSENSITIVE),
+            Rule.of("union\\s+(all\\s+)?select", "union").and("select"),
             // 注释注入
-            Pattern.compile("(--|#|/\\*|\\*/)", Pattern.CASE_INSENSITIVE),
+            Rule.of("(--|#|/\\*|\\*/)", "--", "#", "/*", "*/"),
             // 执行函数
-            Pattern.compile("(exec|execute|sp_executesql)", Pattern.CASE_INSENSITIVE),
+            Rule.of("(exec|execute|sp_executesql)", "exec"),
             // 危险函数
-            Pattern.compile("(xp_cmdshell|xp_regread|xp_regwrite)", Pattern.CASE_INSENSITIVE),
+            Rule.of("(xp_cmdshell|xp_regread|xp_regwrite)", "xp_cmdshell", "xp_regread", "xp_regwrite"),
             // DROP/ALTER/DELETE/TRUNCATE
-            Pattern.compile("(drop|alter|delete|truncate)\\s+(table|database|index|view)", Pattern.CASE_INSENSITIVE),
+            Rule.of("(drop|alter|delete|truncate)\\s+(table|database|index|view)", "drop", "alter", "delete", "truncate")
+                    .and("table", "database", "index", "view"),
             // INSERT/UPDATE
-            Pattern.compile("(insert|update)\\s+into", Pattern.CASE_INSENSITIVE),
+            Rule.of("(insert|update)\\s+into", "insert", "update").and("into"),
             // 条件注入
-            Pattern.compile("(\\s|^)(or|and)\\s+\\d+\\s*=\\s*\\d+", Pattern.CASE_INSENSITIVE),
+            Rule.of("(\\s|^)(or|and)\\s+\\d+\\s*=\\s*\\d+", "or", "and").and("="),
             // 布尔盲注
-            Pattern.compile("(\\s|^)(or|and)\\s+['\"]?\\d+['\"]?\\s*=\\s*['\"]?\\d+['\"]?", Pattern.CASE_INSENSITIVE),
+            Rule.of("(\\s|^)(or|and)\\s+['\"]?\\d+['\"]?\\s*=\\s*['\"]?\\d+['\"]?", "or", "and").and("="),
             // 时间盲注
-            Pattern.compile("(sleep|waitfor|delay)\\s*\\(", Pattern.CASE_INSENSITIVE),
+            Rule.of("(sleep|waitfor|delay)\\s*\\(", "sleep", "waitfor", "delay").and("("),
             // 信息泄露
-            Pattern.compile("(version|database|user|schema)\\s*\\(", Pattern.CASE_INSENSITIVE),
+            Rule.of("(version|database|user|schema)\\s*\\(", "version", "database", "user", "schema").and("("),
             // 堆叠查询
-            Pattern.compile(";\\s*(drop|alter|delete|truncate|insert|update|create)", Pattern.CASE_INSENSITIVE)
-    };
+            Rule.of(";\\s*(drop|alter|delete|truncate|insert|update|create)", ";")
+                    .and("drop", "alter", "delete", "truncate", "insert", "update", "create")
+    ));
 
     @Override
     public boolean preHandle(@NonNull HttpServletRequest request,
@@ -140,11 +148,12 @@ public class SqlInjectionProtectionInterceptor implements HandlerInterceptor {
      * @return 检测结果，如果安全则返回null
      */
     private SqlInjectionResult checkParameters(HttpServletRequest request) {
+        Set<String> exemptions = getExemptParameters(request.getRequestURI());
         Map<String, String[]> parameterMap = request.getParameterMap();
         for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
             String paramName = entry.getKey();
             String[] values = entry.getValue();
-            if (values == null) {
+            if (values == null || exemptions.contains(paramName)) {
                 continue;
             }
 
@@ -197,6 +206,26 @@ public class SqlInjectionProtectionInterceptor implements HandlerInterceptor {
         return null;
     }
 
+    /**
+     * 当前路径豁免检测的参数名
+     *
+     * @param uri 请求路径
+     * @return 参数名集合
+     */
+    private Set<String> getExemptParameters(String uri) {
+        Map<String, List<String>> parameterExemptions = sqlInjectionConfig.getParameterExemptions();
+        if (parameterExemptions == null || parameterExemptions.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        parameterExemptions.forEach((pattern, parameters) -> {
+            if (parameters != null && pathMatcher.match(pattern, uri)) {
+                names.addAll(parameters);
+            }
+        });
+        return names;
+    }
+
     /**
      * 查找SQL注入模式
      *
@@ -204,15 +233,7 @@ public class SqlInjectionProtectionInterceptor implements HandlerInterceptor {
      * @return 命中的模式，如果没有则返回null
      */
     private String findSqlInjectionPattern(String value) {
-        if (value == null || value.isEmpty()) {
-            return null;
-        }
-        for (Pattern pattern : SQL_INJECTION_PATTERNS) {
-            if (pattern.matcher(value).find()) {
-                return pattern.pattern();
-            }
-        }
-        return null;
+        return SQL_INJECTION_SCANNER.find(value, sqlInjectionConfig.getMaxInspectLength());
     }
 
     /**
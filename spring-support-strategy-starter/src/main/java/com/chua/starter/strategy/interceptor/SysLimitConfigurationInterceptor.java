@@ -1,20 +1,24 @@
 package com.chua.starter.strategy.interceptor;
 
+import com.chua.starter.strategy.distributed.BoundedLimiterRegistry;
+import com.chua.starter.strategy.distributed.LocalRateLimiter;
 import com.chua.starter.strategy.entity.SysLimitConfiguration;
 import com.chua.starter.strategy.entity.SysLimitRecord;
 import com.chua.starter.strategy.event.RateLimitEvent;
 import com.chua.starter.strategy.service.SysLimitConfigurationService;
 import com.chua.starter.strategy.service.SysLimitRecordService;
+import com.chua.starter.strategy.support.StrategyRecordWriter;
 import com.chua.starter.strategy.util.StrategyEventPublisher;
 import com.chua.starter.strategy.util.UserContextHelper;
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -22,12 +26,23 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 限流配置拦截器
  *
  * 处理数据库配置的限流策略，拦截HTTP请求
+ * <ul>
+ *     <li>限流器按配置分组保存在 {@link BoundedLimiterRegistry} 中，IP/用户维度的条目数有上限，
+ *     按空闲时间回收，超出上限时先淘汰最久未访问的键</li>
+ *     <li>配置的限流参数变化后整组重建，新参数立即生效</li>
+ *     <li>限流事件按"配置 + 结果"聚合计数，每秒发布一次，事件中的请求信息取周期内最后一次请求</li>
+ * </ul>
  *
  * @author CH
  * @version 1.0.0
@@ -36,19 +51,46 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
+public class SysLimitConfigurationInterceptor implements HandlerInterceptor, DisposableBean {
+
+    /**
+     * 事件聚合发布周期（毫秒）
+     */
+    private static final long EVENT_FLUSH_INTERVAL_MILLIS = 1000L;
 
     private final SysLimitConfigurationService sysLimitConfigurationService;
-    private final RateLimiterRegistry rateLimiterRegistry;
 
     @Autowired(required = false)
     private SysLimitRecordService sysLimitRecordService;
 
+    @Autowired(required = false)
+    private StrategyRecordWriter strategyRecordWriter;
+
+    /**
+     * 限流器分组缓存
+     * key: 配置ID，value: 该配置下按维度值（如：ratelimit:1:192.168.1.1）区分的限流器
+     */
+    private final Map<Long, LimiterGroup> rateLimiterGroups = new ConcurrentHashMap<>();
+
+    /**
+     * 待发布的事件计数
+     */
+    private final Map<EventKey, EventCounter> eventCounters = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService eventFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rate-limit-event-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
-     * 限流器缓存
-     * key: 配置ID + 维度值（如：1_192.168.1.1）
+     * 启动事件聚合发布
      */
-    private final Map<String, RateLimiter> rateLimiterCache = new ConcurrentHashMap<>();
+    @PostConstruct
+    public void init() {
+        eventFlusher.scheduleWithFixedDelay(this::flushEvents,
+                EVENT_FLUSH_INTERVAL_MILLIS, EVENT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
@@ -73,8 +115,8 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
             // 尝试获取许可
             rateLimiter.acquirePermission();
             log.debug("限流检查通过: {} - {}", config.getSysLimitName(), rateLimiterKey);
-            
-            // 发布允许事件
+
+            // 记录允许事件
             publishEvent(request, config, rateLimiterKey, true, null);
             return true;
         } catch (RequestNotPermitted e) {
@@ -84,7 +126,7 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
             // 异步保存限流记录
             saveRateLimitRecord(config, request);
 
-            // 发布拒绝事件
+            // 记录拒绝事件
             publishEvent(request, config, rateLimiterKey, false, config.getSysLimitMessage());
 
             // 返回限流错误
@@ -104,17 +146,15 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
      * @return 限流器实例
      */
     private RateLimiter getRateLimiter(String key, SysLimitConfiguration config) {
-        return rateLimiterCache.computeIfAbsent(key, k -> {
-            RateLimiterConfig rateLimiterConfig = RateLimiterConfig.custom()
-                    .limitForPeriod(config.getSysLimitForPeriod())
-                    .limitRefreshPeriod(Duration.ofSeconds(config.getSysLimitRefreshPeriodSeconds()))
-                    .timeoutDuration(Duration.ofMillis(config.getSysLimitTimeoutDurationMillis()))
-                    .build();
-
-            RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(k, rateLimiterConfig);
-            log.debug("创建限流器: {} - 配置: {}/{} 秒", k,
-                    config.getSysLimitForPeriod(),
-                    config.getSysLimitRefreshPeriodSeconds());
+        LimiterGroup group = rateLimiterGroups.get(config.getSysLimitConfigurationId());
+        if (group == null || !group.matches(config)) {
+            group = rateLimiterGroups.compute(config.getSysLimitConfigurationId(),
+                    (id, current) -> current != null && current.matches(config) ? current : new LimiterGroup(config));
+        }
+        LimiterGroup target = group;
+        return target.limiters.get(key, k -> {
+            RateLimiter rateLimiter = RateLimiter.of(k, target.rateLimiterConfig);
+            log.debug("创建限流器: {} - 配置: {}/{} 秒", k, target.limitForPeriod, target.refreshPeriodSeconds);
             return rateLimiter;
         });
     }
@@ -142,7 +182,12 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
             // record.setSysUserId(...);
             // record.setSysUserName(...);
 
-            sysLimitRecordService.saveAsync(record);
+            // 优先合并后批量写入，未配置写入器时逐条异步保存
+            if (strategyRecordWriter != null) {
+                strategyRecordWriter.recordLimit(record);
+            } else {
+                sysLimitRecordService.saveAsync(record);
+            }
         } catch (Exception e) {
             log.error("保存限流记录失败", e);
         }
@@ -200,7 +245,7 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
     }
 
     /**
-     * 发布限流事件
+     * 记录限流事件，由 {@link #flushEvents()} 聚合发布
      *
      * @param request        HTTP请求
      * @param config         限流配置
@@ -210,26 +255,96 @@ public class SysLimitConfigurationInterceptor implements HandlerInterceptor {
      */
     private void publishEvent(HttpServletRequest request, SysLimitConfiguration config,
                              String rateLimitKey, boolean allowed, String reason) {
-        String clientIp = getClientIp(request);
-        String userId = UserContextHelper.getUserId(request);
+        EventCounter counter = eventCounters.computeIfAbsent(
+                new EventKey(config.getSysLimitConfigurationId(), allowed), k -> new EventCounter());
+        counter.last = new EventSample(request.getRequestURI(), request.getMethod(), getClientIp(request),
+                UserContextHelper.getUserId(request), config, rateLimitKey, reason);
+        counter.count.increment();
+    }
+
+    /**
+     * 发布周期内聚合的限流事件
+     */
+    private void flushEvents() {
+        eventCounters.forEach((key, counter) -> {
+            long count = counter.count.sumThenReset();
+            EventSample sample = counter.last;
+            if (count == 0 || sample == null) {
+                return;
+            }
+            SysLimitConfiguration config = sample.config();
+            try {
+                StrategyEventPublisher.publishEvent(new RateLimitEvent(
+                        this,
+                        sample.requestUri(),
+                        sample.requestMethod(),
+                        sample.clientIp(),
+                        sample.userId(),
+                        config.getSysLimitName(),
+                        key.allowed(),
+                        sample.reason(),
+                        null,
+                        config.getSysLimitConfigurationId(),
+                        config.getSysLimitDimension(),
+                        sample.rateLimitKey(),
+                        config.getSysLimitForPeriod(),
+                        config.getSysLimitRefreshPeriodSeconds(),
+                        count
+                ));
+            } catch (Exception e) {
+                log.warn("发布限流事件失败: {}", config.getSysLimitName(), e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        eventFlusher.shutdownNow();
+        flushEvents();
+    }
+
+    /**
+     * 同一配置下的限流器
+     * <p>
+     * 空闲超时至少为两个限流周期，避免长周期限流因淘汰而提前重置计数。
+     * </p>
+     */
+    private static final class LimiterGroup {
+        private final int limitForPeriod;
+        private final int refreshPeriodSeconds;
+        private final long timeoutDurationMillis;
+        private final RateLimiterConfig rateLimiterConfig;
+        private final BoundedLimiterRegistry<RateLimiter> limiters;
+
+        private LimiterGroup(SysLimitConfiguration config) {
+            this.limitForPeriod = config.getSysLimitForPeriod();
+            this.refreshPeriodSeconds = config.getSysLimitRefreshPeriodSeconds();
+            this.timeoutDurationMillis = config.getSysLimitTimeoutDurationMillis();
+            this.rateLimiterConfig = RateLimiterConfig.custom()
+                    .limitForPeriod(limitForPeriod)
+                    .limitRefreshPeriod(Duration.ofSeconds(refreshPeriodSeconds))
+                    .timeoutDuration(Duration.ofMillis(timeoutDurationMillis))
+                    .build();
+            this.limiters = new BoundedLimiterRegistry<>(LocalRateLimiter.DEFAULT_MAXIMUM_KEYS,
+                    Math.max(LocalRateLimiter.DEFAULT_IDLE_TIMEOUT_MILLIS, TimeUnit.SECONDS.toMillis(refreshPeriodSeconds) * 2));
+        }
+
+        private boolean matches(SysLimitConfiguration config) {
+            return Objects.equals(limitForPeriod, config.getSysLimitForPeriod())
+                    && Objects.equals(refreshPeriodSeconds, config.getSysLimitRefreshPeriodSeconds())
+                    && Objects.equals(timeoutDurationMillis, config.getSysLimitTimeoutDurationMillis());
+        }
+    }
+
+    private record EventKey(Long configId, boolean allowed) {
+    }
+
+    private record EventSample(String requestUri, String requestMethod, String clientIp, String userId,
+                               SysLimitConfiguration config, String rateLimitKey, String reason) {
+    }
 
-        RateLimitEvent event = new RateLimitEvent(
-                this,
-                request.getRequestURI(),
-                request.getMethod(),
-                clientIp,
-                userId,
-                config.getSysLimitName(),
-                allowed,
-                reason,
-                null,
-                config.getSysLimitConfigurationId(),
-                config.getSysLimitDimension(),
-                rateLimitKey,
-                config.getSysLimitForPeriod(),
-                config.getSysLimitRefreshPeriodSeconds()
-        );
-
-        StrategyEventPublisher.publishEvent(event);
+    private static final class EventCounter {
+        private final LongAdder count = new LongAdder();
+        private volatile EventSample last;
     }
 }
@@ -2,6 +2,8 @@ package com.chua.starter.strategy.interceptor;
 
 import com.chua.starter.strategy.config.StrategyProperties;
 import com.chua.starter.strategy.event.XssProtectionEvent;
+import com.chua.starter.strategy.util.MultiPatternScanner;
+import com.chua.starter.strategy.util.MultiPatternScanner.Rule;
 import com.chua.starter.strategy.util.StrategyEventPublisher;
 import com.chua.starter.strategy.util.UserContextHelper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,15 +16,19 @@ import org.springframework.util.AntPathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * XSS 防护拦截器
  *
  * 通过简单规则检测常见脚本注入内容，命中后直接拒绝请求。
  * 主要针对查询参数与请求头，避免引入复杂的请求包装逻辑。
+ * 规则由 {@link MultiPatternScanner} 统一扫描：每个值只做一次字面量预筛，命中锚点的规则才执行正则。
  *
  * @author CH
  */
@@ -38,23 +44,23 @@ public class XssProtectionInterceptor implements HandlerInterceptor {
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     /**
-     * 常见 XSS 特征匹配
+     * 常见 XSS 特征匹配，锚点为正则命中时必然出现的字面量
      */
-    private static final Pattern[] XSS_PATTERNS = new Pattern[]{
+    static final MultiPatternScanner XSS_SCANNER = new MultiPatternScanner(List.of(
             // script 标签
-            Pattern.compile("<\\s*script", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("</\\s*script", Pattern.CASE_INSENSITIVE),
+            Rule.of("<\\s*script", "<").and("script"),
+            Rule.of("</\\s*script", "</").and("script"),
             // javascript: 协议
-            Pattern.compile("javascript\\s*:", Pattern.CASE_INSENSITIVE),
+            Rule.of("javascript\\s*:", "javascript").and(":"),
             // onXXX 事件
-            Pattern.compile("on[a-zA-Z]+\\s*=", Pattern.CASE_INSENSITIVE),
+            Rule.of("on[a-zA-Z]+\\s*=", "on").and("="),
             // iframe、img 等常见载体
-            Pattern.compile("<\\s*iframe", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("<\\s*img", Pattern.CASE_INSENSITIVE),
+            Rule.of("<\\s*iframe", "<").and("iframe"),
+            Rule.of("<\\s*img", "<").and("img"),
             // 危险函数
-            Pattern.compile("eval\\s*\\(", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("alert\\s*\\(", Pattern.CASE_INSENSITIVE)
-    };
+            Rule.of("eval\\s*\\(", "eval").and("("),
+            Rule.of("alert\\s*\\(", "alert").and("(")
+    ));
 
     @Override
     public boolean preHandle(@NonNull HttpServletRequest request,
@@ -113,10 +119,11 @@ public class XssProtectionInterceptor implements HandlerInterceptor {
      */
     private XssDetectionResult detectXss(HttpServletRequest request) {
         // 检查请求参数
+        Set<String> exemptions = getExemptParameters(request.getRequestURI());
         Map<String, String[]> parameterMap = request.getParameterMap();
         for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
             String[] values = entry.getValue();
-            if (values == null) {
+            if (values == null || exemptions.contains(entry.getKey())) {
                 continue;
             }
             for (String value : values) {
@@ -144,6 +151,26 @@ public class XssProtectionInterceptor implements HandlerInterceptor {
         return null;
     }
 
+    /**
+     * 当前路径豁免检测的参数名
+     *
+     * @param uri 请求路径
+     * @return 参数名集合
+     */
+    private Set<String> getExemptParameters(String uri) {
+        Map<String, List<String>> parameterExemptions = xssConfig.getParameterExemptions();
+        if (parameterExemptions == null || parameterExemptions.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        parameterExemptions.forEach((pattern, parameters) -> {
+            if (parameters != null && pathMatcher.match(pattern, uri)) {
+                names.addAll(parameters);
+            }
+        });
+        return names;
+    }
+
     /**
      * 查找XSS模式
      *
@@ -151,15 +178,7 @@ public class XssProtectionInterceptor implements HandlerInterceptor {
      * @return 命中的模式，如果没有则返回null
      */
     private String findXssPattern(String value) {
-        if (value == null || value.isEmpty()) {
-            return null;
-        }
-        for (Pattern pattern : XSS_PATTERNS) {
-            if (pattern.matcher(value).find()) {
-                return pattern.pattern();
-            }
-        }
-        return null;
+        return XSS_SCANNER.find(value, xssConfig.getMaxInspectLength());
     }
 
     /**
@@ -9,19 +9,21 @@ import com.chua.starter.strategy.mapper.SysLimitConfigurationMapper;
 import com.chua.starter.strategy.service.SysLimitConfigurationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.chua.starter.strategy.util.PathPatternIndex;
 import org.springframework.stereotype.Service;
-import org.springframework.util.AntPathMatcher;
 
 import jakarta.annotation.PostConstruct;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 限流配置服务实现
  * 
- * 支持数据库配置和内存缓存同步
+ * 支持数据库配置和内存缓存同步，
+ * 路径匹配使用按段编译的 {@link PathPatternIndex}，配置变更时整体重建并原子替换
  *
  * @author CH
  * @version 1.0.0
@@ -39,9 +41,15 @@ public class SysLimitConfigurationServiceImpl extends ServiceImpl<SysLimitConfig
     private final Map<String, SysLimitConfiguration> limitConfigCache = new ConcurrentHashMap<>();
 
     /**
-     * 路径匹配器
+     * 限流规则优先级：排序值越小越优先
      */
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private static final Comparator<SysLimitConfiguration> PRIORITY = Comparator.comparing(
+            SysLimitConfiguration::getSysLimitSort, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * 路径规则索引，由 {@link #limitConfigCache} 构建
+     */
+    private volatile PathPatternIndex<SysLimitConfiguration> pathIndex = PathPatternIndex.empty();
 
     /**
      * 应用启动时加载配置到内存
@@ -94,34 +102,27 @@ public class SysLimitConfigurationServiceImpl extends ServiceImpl<SysLimitConfig
         if (StringUtils.isBlank(path)) {
             return null;
         }
-        
-        // 优先精确匹配
-        if (limitConfigCache.containsKey(path)) {
-            return limitConfigCache.get(path);
-        }
-        
-        // Ant风格模式匹配，按排序值优先级匹配
-        return limitConfigCache.values().stream()
-                .filter(config -> pathMatcher.match(config.getSysLimitPath(), path))
-                .min(Comparator.comparing(SysLimitConfiguration::getSysLimitSort))
-                .orElse(null);
+
+        // 优先精确匹配，其次按排序值取命中的 Ant 风格规则
+        return pathIndex.match(path);
     }
 
     @Override
     public void refreshRateLimiters() {
         try {
-            // 清空缓存
-            limitConfigCache.clear();
-            
             // 从数据库加载所有启用的配置
             List<SysLimitConfiguration> configs = listEnabledConfigurations();
-            
-            // 加载到内存缓存
-            for (SysLimitConfiguration config : configs) {
-                limitConfigCache.put(config.getSysLimitPath(), config);
-                log.debug("加载限流配置到内存: {} -> {}", config.getSysLimitPath(), config.getSysLimitName());
+
+            // 加载到内存缓存，索引重建前请求仍使用旧索引
+            synchronized (limitConfigCache) {
+                limitConfigCache.clear();
+                for (SysLimitConfiguration config : configs) {
+                    limitConfigCache.put(config.getSysLimitPath(), config);
+                    log.debug("加载限流配置到内存: {} -> {}", config.getSysLimitPath(), config.getSysLimitName());
+                }
+                rebuildIndex();
             }
-            
+
             log.info("限流配置刷新完成，共加载 {} 个配置", configs.size());
         } catch (Exception e) {
             log.error("刷新限流配置失败", e);
@@ -134,7 +135,10 @@ public class SysLimitConfigurationServiceImpl extends ServiceImpl<SysLimitConfig
         boolean result = super.save(entity);
         if (result && entity.getSysLimitStatus() == 1) {
             // 保存成功且状态为启用，同步到内存
-            limitConfigCache.put(entity.getSysLimitPath(), entity);
+            synchronized (limitConfigCache) {
+                limitConfigCache.put(entity.getSysLimitPath(), entity);
+                rebuildIndex();
+            }
             log.info("限流配置已保存并同步到内存: {}", entity.getSysLimitName());
         }
         return result;
@@ -144,13 +148,17 @@ public class SysLimitConfigurationServiceImpl extends ServiceImpl<SysLimitConfig
     public boolean updateById(SysLimitConfiguration entity) {
         boolean result = super.updateById(entity);
         if (result) {
-            // 更新成功，刷新内存缓存
-            if (entity.getSysLimitStatus() == 1) {
-                limitConfigCache.put(entity.getSysLimitPath(), entity);
-                log.info("限流配置已更新并同步到内存: {}", entity.getSysLimitName());
-            } else {
-                limitConfigCache.remove(entity.getSysLimitPath());
-                log.info("限流配置已禁用并从内存移除: {}", entity.getSysLimitName());
+            // 更新成功，刷新内存缓存（路径可能已修改，先按ID移除旧条目）
+            synchronized (limitConfigCache) {
+                limitConfigCache.values().removeIf(config ->
+                        Objects.equals(config.getSysLimitConfigurationId(), entity.getSysLimitConfigurationId()));
+                if (Objects.equals(entity.getSysLimitStatus(), 1)) {
+                    limitConfigCache.put(entity.getSysLimitPath(), entity);
+                    log.info("限流配置已更新并同步到内存: {}", entity.getSysLimitName());
+                } else {
+                    log.info("限流配置已禁用并从内存移除: {}", entity.getSysLimitName());
+                }
+                rebuildIndex();
             }
         }
         return result;
@@ -162,9 +170,19 @@ public class SysLimitConfigurationServiceImpl extends ServiceImpl<SysLimitConfig
         boolean result = super.removeById(id);
         if (result && config != null) {
             // 删除成功，从内存移除
-            limitConfigCache.remove(config.getSysLimitPath());
+            synchronized (limitConfigCache) {
+                limitConfigCache.remove(config.getSysLimitPath());
+                rebuildIndex();
+            }
             log.info("限流配置已删除并从内存移除: {}", config.getSysLimitName());
         }
         return result;
     }
+
+    /**
+     * 按当前缓存重建路径索引，调用方需持有 {@link #limitConfigCache} 锁
+     */
+    private void rebuildIndex() {
+        pathIndex = PathPatternIndex.build(limitConfigCache.values(), SysLimitConfiguration::getSysLimitPath, PRIORITY);
+    }
 }
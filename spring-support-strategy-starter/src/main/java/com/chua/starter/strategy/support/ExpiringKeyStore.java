@@ -0,0 +1,134 @@
+package com.chua.starter.strategy.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 带过期时间的本地键存储
+ * <p>
+ * 用作幂等等场景在无 Redis 时的降级存储：
+ * </p>
+ * <ul>
+ *     <li>键按哈希分散到多个分段，写入只锁定单个键所在的桶，调用方之间互不阻塞</li>
+ *     <li>写入时即时判断旧值是否过期，过期键视为不存在</li>
+ *     <li>清理分段进行：每个清理周期内轮流扫描各分段，由写入线程顺带触发，单次只扫描一个分段，不需要后台线程</li>
+ * </ul>
+ * <p>
+ * 过期键最多在一个清理周期后被移除，因此内存占用只与"过期时间 + 清理周期"内写入的不同键数量有关。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+public class ExpiringKeyStore {
+
+    /**
+     * 默认分段数
+     */
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    /**
+     * 默认清理周期（毫秒），周期内所有分段各扫描一次
+     */
+    public static final long DEFAULT_SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final Map<String, Long>[] segments;
+    private final int mask;
+    private final long sweepStepMillis;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweepAt;
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+
+    public ExpiringKeyStore() {
+        this(DEFAULT_SEGMENTS, DEFAULT_SWEEP_INTERVAL_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * @param segments            分段数，向上取整为 2 的幂
+     * @param sweepIntervalMillis 清理周期（毫秒）
+     * @param clock               毫秒时钟
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringKeyStore(int segments, long sweepIntervalMillis, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(1, segments - 1) << 1);
+        this.segments = new Map[size];
+        for (int i = 0; i < size; i++) {
+            this.segments[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = size - 1;
+        this.sweepStepMillis = Math.max(1L, sweepIntervalMillis / size);
+        this.clock = clock;
+        this.nextSweepAt = new AtomicLong(clock.getAsLong() + sweepStepMillis);
+    }
+
+    /**
+     * 键不存在或已过期时写入
+     *
+     * @param key        键
+     * @param ttlMillis  过期时间（毫秒）
+     * @return 是否写入成功，false 表示键仍在有效期内
+     */
+    public boolean putIfAbsent(String key, long ttlMillis) {
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+        long expireAt = now + Math.max(0L, ttlMillis);
+        Long[] holder = new Long[1];
+        segment(key).compute(key, (k, existing) -> {
+            if (existing != null && existing > now) {
+                holder[0] = existing;
+                return existing;
+            }
+            return expireAt;
+        });
+        return holder[0] == null;
+    }
+
+    /**
+     * 键是否存在且未过期
+     *
+     * @param key 键
+     * @return 是否存在
+     */
+    public boolean contains(String key) {
+        Long expireAt = segment(key).get(key);
+        return expireAt != null && expireAt > clock.getAsLong();
+    }
+
+    /**
+     * 删除键
+     *
+     * @param key 键
+     */
+    public void remove(String key) {
+        segment(key).remove(key);
+    }
+
+    /**
+     * 当前保存的键数量（含尚未清理的过期键）
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, Long> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Map<String, Long> segment(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepAt.get();
+        if (now < due || !nextSweepAt.compareAndSet(due, now + sweepStepMillis)) {
+            return;
+        }
+        Map<String, Long> segment = segments[sweepCursor.getAndIncrement() & mask];
+        segment.values().removeIf(expireAt -> expireAt <= now);
+    }
+}
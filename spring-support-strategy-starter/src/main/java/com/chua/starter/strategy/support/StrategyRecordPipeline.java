@@ -0,0 +1,223 @@
+package com.chua.starter.strategy.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 有界、合并写入的策略记录管道
+ * <p>
+ * 限流、熔断等记录在故障期间会集中爆发，逐条同步落库会在数据库最吃紧时放大压力。本管道：
+ * </p>
+ * <ul>
+ *     <li>按合并键把同一窗口内的相同记录合并为一条，只累加次数</li>
+ *     <li>由调度线程按周期或待写条数达到批量大小时批量写入，请求线程只做内存操作</li>
+ *     <li>不同记录数超过容量后按比例随机丢弃（容量的 1~2 倍之间线性降低写入概率，2 倍以上全部丢弃），从不阻塞请求线程</li>
+ *     <li>写入失败只记录日志，不重试，避免对故障中的数据库重复施压</li>
+ * </ul>
+ *
+ * @param <T> 记录类型
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+@Slf4j
+public class StrategyRecordPipeline<T> {
+
+    private final String name;
+    private final int capacity;
+    private final int batchSize;
+    private final Function<T, Object> coalesceKey;
+    private final BiConsumer<T, Long> countSetter;
+    private final Consumer<List<T>> batchWriter;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Object, Slot<T>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong reportedDropped = new AtomicLong();
+
+    /**
+     * @param name                管道名称，用于日志
+     * @param capacity            待写入的不同记录数上限
+     * @param batchSize           单批写入条数
+     * @param flushIntervalMillis 写入周期（毫秒），也是合并窗口
+     * @param coalesceKey         合并键，键相同的记录合并为一条
+     * @param countSetter         写入前把合并次数回填到记录
+     * @param batchWriter         批量写入函数
+     * @param scheduler           调度线程，可在多个管道间共享
+     */
+    public StrategyRecordPipeline(String name, int capacity, int batchSize, long flushIntervalMillis,
+                                  Function<T, Object> coalesceKey, BiConsumer<T, Long> countSetter,
+                                  Consumer<List<T>> batchWriter, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.coalesceKey = coalesceKey;
+        this.countSetter = countSetter;
+        this.batchWriter = batchWriter;
+        this.scheduler = scheduler;
+        long interval = Math.max(10L, flushIntervalMillis);
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交记录，不阻塞
+     *
+     * @param record 记录
+     * @return 是否被接收（合并或排队），false 表示因积压被丢弃
+     */
+    public boolean offer(T record) {
+        Object key = coalesceKey.apply(record);
+        while (true) {
+            Slot<T> slot = pending.get(key);
+            if (slot != null) {
+                if (slot.increment()) {
+                    coalesced.increment();
+                    return true;
+                }
+                // 该条目已被写入线程取走，重新排队
+                pending.remove(key, slot);
+                continue;
+            }
+            int size = pending.size();
+            if (!admit(size)) {
+                dropped.increment();
+                return false;
+            }
+            if (pending.putIfAbsent(key, new Slot<>(record)) == null) {
+                if (size + 1 >= batchSize && flushRequested.compareAndSet(false, true)) {
+                    requestFlush();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 立即写入当前积压的记录
+     */
+    public void flush() {
+        flushRequested.set(false);
+        try {
+            List<T> batch = new ArrayList<>(Math.min(batchSize, Math.max(1, pending.size())));
+            for (Map.Entry<Object, Slot<T>> entry : pending.entrySet()) {
+                Slot<T> slot = entry.getValue();
+                if (!pending.remove(entry.getKey(), slot)) {
+                    continue;
+                }
+                countSetter.accept(slot.record, slot.seal());
+                batch.add(slot.record);
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            reportDropped();
+        } catch (Throwable e) {
+            log.warn("[策略模块][记录管道]{} 写入异常", name, e);
+        }
+    }
+
+    /**
+     * 被合并的记录数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 因积压被丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 当前待写入的记录数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void requestFlush() {
+        try {
+            scheduler.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            // 调度线程已关闭，等待关闭流程中的最后一次写入
+            flushRequested.set(false);
+        }
+    }
+
+    private boolean admit(int size) {
+        if (size < capacity) {
+            return true;
+        }
+        if (size >= capacity * 2) {
+            return false;
+        }
+        // 超出容量后写入概率从 1 线性降到 0
+        return ThreadLocalRandom.current().nextInt(capacity) >= size - capacity;
+    }
+
+    private void write(List<T> batch) {
+        try {
+            batchWriter.accept(batch);
+            log.debug("[策略模块][记录管道]{} 写入 {} 条", name, batch.size());
+        } catch (Exception e) {
+            log.warn("[策略模块][记录管道]{} 批量写入失败，丢弃 {} 条", name, batch.size(), e);
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        long previous = reportedDropped.getAndSet(total);
+        if (total > previous) {
+            log.warn("[策略模块][记录管道]{} 积压超出容量，本周期丢弃 {} 条记录", name, total - previous);
+        }
+    }
+
+    /**
+     * 待写入条目，count 为 0 表示已被写入线程取走
+     */
+    private static final class Slot<T> {
+        private final T record;
+        private final AtomicLong count = new AtomicLong(1);
+
+        private Slot(T record) {
+            this.record = record;
+        }
+
+        private boolean increment() {
+            long current;
+            do {
+                current = count.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private long seal() {
+            return count.getAndSet(0);
+        }
+    }
+}
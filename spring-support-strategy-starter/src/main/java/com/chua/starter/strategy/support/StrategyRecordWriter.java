@@ -0,0 +1,119 @@
+package com.chua.starter.strategy.support;
+
+import com.chua.starter.strategy.config.StrategyProperties;
+import com.chua.starter.strategy.entity.SysCircuitBreakerRecord;
+import com.chua.starter.strategy.entity.SysLimitRecord;
+import com.chua.starter.strategy.service.SysCircuitBreakerRecordService;
+import com.chua.starter.strategy.service.SysLimitRecordService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流/熔断记录写入器
+ * <p>
+ * 两类记录共用一个调度线程，各自通过 {@link StrategyRecordPipeline} 合并、限量后批量写入，
+ * 拦截器只做内存操作。合并键不含时间，同一写入周期内相同来源的记录保存为一条并累加 {@code recordCount}。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+@Slf4j
+public class StrategyRecordWriter implements DisposableBean {
+
+    private final ScheduledExecutorService scheduler;
+    private final StrategyRecordPipeline<SysLimitRecord> limitRecords;
+    private final StrategyRecordPipeline<SysCircuitBreakerRecord> circuitBreakerRecords;
+
+    /**
+     * @param config                      写入配置
+     * @param limitRecordService          限流记录服务，可为 null
+     * @param circuitBreakerRecordService 熔断记录服务，可为 null
+     */
+    public StrategyRecordWriter(StrategyProperties.RecordPipelineConfig config,
+                                SysLimitRecordService limitRecordService,
+                                SysCircuitBreakerRecordService circuitBreakerRecordService) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "strategy-record-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.limitRecords = limitRecordService == null ? null : new StrategyRecordPipeline<>(
+                "限流记录", config.getCapacity(), config.getBatchSize(), config.getFlushIntervalMillis(),
+                record -> List.of(nullToEmpty(record.getSysLimitConfigurationId()), nullToEmpty(record.getSysLimitPath()),
+                        nullToEmpty(record.getClientIp()), nullToEmpty(record.getRequestMethod()),
+                        nullToEmpty(record.getSysUserId())),
+                SysLimitRecord::setRecordCount,
+                limitRecordService::saveBatch,
+                scheduler);
+        this.circuitBreakerRecords = circuitBreakerRecordService == null ? null : new StrategyRecordPipeline<>(
+                "熔断记录", config.getCapacity(), config.getBatchSize(), config.getFlushIntervalMillis(),
+                record -> List.of(nullToEmpty(record.getSysCircuitBreakerId()), nullToEmpty(record.getSysCircuitBreakerPath()),
+                        nullToEmpty(record.getCircuitBreakerState()), nullToEmpty(record.getTriggerReason()),
+                        nullToEmpty(record.getClientIp()), nullToEmpty(record.getRequestMethod())),
+                SysCircuitBreakerRecord::setRecordCount,
+                circuitBreakerRecordService::saveBatch,
+                scheduler);
+    }
+
+    /**
+     * 提交限流记录
+     *
+     * @param record 限流记录
+     */
+    public void recordLimit(SysLimitRecord record) {
+        if (limitRecords == null) {
+            return;
+        }
+        if (record.getSysLimitTime() == null) {
+            record.setSysLimitTime(LocalDateTime.now());
+        }
+        limitRecords.offer(record);
+    }
+
+    /**
+     * 提交熔断记录
+     *
+     * @param record 熔断记录
+     */
+    public void recordCircuitBreak(SysCircuitBreakerRecord record) {
+        if (circuitBreakerRecords == null) {
+            return;
+        }
+        if (record.getTriggerTime() == null) {
+            record.setTriggerTime(LocalDateTime.now());
+        }
+        circuitBreakerRecords.offer(record);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 写入关闭前的剩余记录
+        if (limitRecords != null) {
+            limitRecords.flush();
+        }
+        if (circuitBreakerRecords != null) {
+            circuitBreakerRecords.flush();
+        }
+    }
+
+    private static Object nullToEmpty(Object value) {
+        return value == null ? "" : value;
+    }
+}
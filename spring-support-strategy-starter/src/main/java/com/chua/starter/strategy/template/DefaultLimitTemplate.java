@@ -85,6 +85,18 @@ public class DefaultLimitTemplate implements LimitTemplate {
         }
     }
 
+    @Override
+    public <T> T tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis, boolean failOpen,
+                            Supplier<T> supplier, Supplier<T> fallback) {
+        var limiter = getRateLimiter(null);
+        if (limiter.tryAcquire(key, limitForPeriod, periodSeconds, Math.max(0, timeoutMillis), failOpen)) {
+            log.debug("获取限流许可成功: key={}, limit={}, period={}s", key, limitForPeriod, periodSeconds);
+            return supplier.get();
+        }
+        log.warn("获取限流许可失败，执行降级逻辑: key={}, limit={}, period={}s", key, limitForPeriod, periodSeconds);
+        return fallback.get();
+    }
+
     @Override
     public boolean tryAcquire(String key, int limitForPeriod, int periodSeconds, Runnable action) {
         return tryAcquire(key, limitForPeriod, periodSeconds, 0, action);
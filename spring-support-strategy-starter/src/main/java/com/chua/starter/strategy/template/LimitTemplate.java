@@ -71,6 +71,22 @@ public interface LimitTemplate {
      */
     <T> T tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis, Supplier<T> supplier, Supplier<T> fallback);
 
+    /**
+     * 尝试获取限流许可并执行（带超时和降级，单独指定限流后端不可用时的处理方式）
+     *
+     * @param key             限流键
+     * @param limitForPeriod  周期内允许的请求数
+     * @param periodSeconds   周期时间（秒）
+     * @param timeoutMillis   超时时间（毫秒）
+     * @param failOpen        限流后端（如 Redis）不可用时是否放行
+     * @param supplier        执行逻辑
+     * @param fallback         降级逻辑（被限流或超时时执行）
+     * @param <T>              返回类型
+     * @return 执行结果
+     */
+    <T> T tryAcquire(String key, int limitForPeriod, int periodSeconds, long timeoutMillis, boolean failOpen,
+                     Supplier<T> supplier, Supplier<T> fallback);
+
     /**
      * 尝试获取限流许可并执行（无返回值）
      *
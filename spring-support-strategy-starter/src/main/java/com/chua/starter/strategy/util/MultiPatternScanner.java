@@ -0,0 +1,243 @@
+package com.chua.starter.strategy.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 多规则单遍扫描器
+ * <p>
+ * 每条规则由一个正则和若干组"锚点"字面量组成：正则能命中时，每组锚点中至少有一个必然出现在文本里。
+ * 扫描分两步：
+ * </p>
+ * <ol>
+ *     <li>用所有锚点构建的 Aho-Corasick 自动机对文本做一次线性扫描（ASCII 忽略大小写），得到出现过的锚点集合</li>
+ *     <li>只对锚点条件全部满足的规则执行正则确认，按规则声明顺序返回第一条命中的规则</li>
+ * </ol>
+ * <p>
+ * 只要锚点声明正确，结果与依次执行全部正则完全一致；绝大多数正常参数在第一步即被排除，不会触发任何正则。
+ * 实例不可变，可在多线程间共享。
+ * </p>
+ *
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+public final class MultiPatternScanner {
+
+    private static final int ALPHABET = 128;
+
+    /**
+     * 锚点数上限（锚点集合用 long 位图表示）
+     */
+    private static final int MAX_ANCHORS = Long.SIZE;
+
+    private final Rule[] rules;
+    private final long[][] ruleMasks;
+    private final int[] transitions;
+    private final long[] outputs;
+
+    /**
+     * @param rules 规则，按优先级排列
+     */
+    public MultiPatternScanner(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+        Map<String, Integer> anchorIds = new LinkedHashMap<>();
+        this.ruleMasks = new long[this.rules.length][];
+        for (int i = 0; i < this.rules.length; i++) {
+            List<String[]> groups = this.rules[i].anchorGroups;
+            long[] masks = new long[groups.size()];
+            for (int g = 0; g < groups.size(); g++) {
+                for (String anchor : groups.get(g)) {
+                    Integer id = anchorIds.computeIfAbsent(anchor, k -> anchorIds.size());
+                    if (id >= MAX_ANCHORS) {
+                        throw new IllegalArgumentException("too many distinct anchors, max " + MAX_ANCHORS);
+                    }
+                    masks[g] |= 1L << id;
+                }
+            }
+            this.ruleMasks[i] = masks;
+        }
+
+        // 构建 goto 树
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Long> outputList = new ArrayList<>();
+        gotoTable.add(newRow());
+        outputList.add(0L);
+        for (Map.Entry<String, Integer> entry : anchorIds.entrySet()) {
+            int state = 0;
+            for (char c : entry.getKey().toCharArray()) {
+                int next = gotoTable.get(state)[c];
+                if (next < 0) {
+                    next = gotoTable.size();
+                    gotoTable.get(state)[c] = next;
+                    gotoTable.add(newRow());
+                    outputList.add(0L);
+                }
+                state = next;
+            }
+            outputList.set(state, outputList.get(state) | 1L << entry.getValue());
+        }
+
+        // BFS 计算失败指针并展开为完整的状态转移表
+        int states = gotoTable.size();
+        this.transitions = new int[states * ALPHABET];
+        this.outputs = new long[states];
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = gotoTable.get(0)[c];
+            if (next > 0) {
+                fail[next] = 0;
+                queue.add(next);
+                transitions[c] = next;
+            }
+        }
+        outputs[0] = outputList.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = outputList.get(state) | outputs[fail[state]];
+            int[] row = gotoTable.get(state);
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = row[c];
+                if (next > 0) {
+                    fail[next] = transitions[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                    transitions[state * ALPHABET + c] = next;
+                } else {
+                    transitions[state * ALPHABET + c] = transitions[fail[state] * ALPHABET + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找第一条命中的规则
+     *
+     * @param value     待检测内容
+     * @param maxLength 最多检测的字符数，小于等于 0 表示不限制
+     * @return 命中规则的正则表达式，未命中返回 null
+     */
+    public String find(String value, int maxLength) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int end = maxLength > 0 ? Math.min(value.length(), maxLength) : value.length();
+        long seen = scan(value, end);
+        if (seen == 0) {
+            return null;
+        }
+        for (int i = 0; i < rules.length; i++) {
+            if (!accepts(ruleMasks[i], seen)) {
+                continue;
+            }
+            Matcher matcher = rules[i].pattern.matcher(value);
+            if (end < value.length()) {
+                matcher.region(0, end);
+            }
+            if (matcher.find()) {
+                return rules[i].pattern.pattern();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 全部规则的正则，按优先级排列
+     */
+    public List<Pattern> patterns() {
+        List<Pattern> patterns = new ArrayList<>(rules.length);
+        for (Rule rule : rules) {
+            patterns.add(rule.pattern);
+        }
+        return Collections.unmodifiableList(patterns);
+    }
+
+    private long scan(String value, int end) {
+        int state = 0;
+        long seen = 0L;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= ALPHABET) {
+                // 锚点均为 ASCII，非 ASCII 字符必然打断匹配
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            state = transitions[state * ALPHABET + c];
+            seen |= outputs[state];
+        }
+        return seen;
+    }
+
+    private static boolean accepts(long[] masks, long seen) {
+        for (long mask : masks) {
+            if ((mask & seen) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 扫描规则
+     */
+    public static final class Rule {
+
+        private final Pattern pattern;
+        private final List<String[]> anchorGroups = new ArrayList<>();
+
+        private Rule(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * 创建忽略大小写的规则
+         *
+         * @param regex 正则表达式
+         * @param anyOf 第一组锚点，正则命中时其中至少一个必然出现
+         * @return 规则
+         */
+        public static Rule of(String regex, String... anyOf) {
+            return new Rule(Pattern.compile(regex, Pattern.CASE_INSENSITIVE)).and(anyOf);
+        }
+
+        /**
+         * 追加一组锚点，规则要求每组锚点都至少出现一个
+         *
+         * @param anyOf 锚点
+         * @return 当前规则
+         */
+        public Rule and(String... anyOf) {
+            if (anyOf.length == 0) {
+                throw new IllegalArgumentException("anchor group must not be empty: " + pattern.pattern());
+            }
+            String[] group = new String[anyOf.length];
+            for (int i = 0; i < anyOf.length; i++) {
+                String anchor = anyOf[i];
+                if (anchor.isEmpty() || !anchor.chars().allMatch(c -> c < ALPHABET)) {
+                    throw new IllegalArgumentException("anchor must be non-empty ASCII: " + anchor);
+                }
+                group[i] = anchor.toLowerCase(Locale.ROOT);
+            }
+            anchorGroups.add(group);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.chua.starter.strategy.util;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按路径段编译的 Ant 风格规则索引
+ * <p>
+ * 规则按 {@code /} 切分后构建成前缀树，查找时沿请求路径的各段向下匹配，
+ * 耗时只与路径段数和通配分支有关，与规则总数无关：
+ * </p>
+ * <ul>
+ *     <li>普通段走哈希查找；{@code *} 匹配单段；{@code **} 匹配零个或多个段</li>
+ *     <li>含 {@code ?}、{@code *}、<code>{var}</code> 的段按单段 Ant 规则匹配</li>
+ *     <li>规则字符串与请求路径完全相同时优先返回，其余命中规则按优先级取最小者</li>
+ *     <li>空段被忽略，即不区分首尾及重复的分隔符</li>
+ * </ul>
+ * <p>
+ * 索引构建后不可变，配置变更时整体重建并替换引用，读线程无需加锁。
+ * </p>
+ *
+ * @param <T> 规则类型
+ * @author CH
+ * @version 1.0.0
+ * @since 2025-12-28
+ */
+public final class PathPatternIndex<T> {
+
+    private static final PathPatternIndex<?> EMPTY = new PathPatternIndex<>(Map.of(), new Node<>(), (a, b) -> 0, 0);
+
+    private static final AntPathMatcher SEGMENT_MATCHER = new AntPathMatcher();
+
+    private final Map<String, T> exact;
+    private final Node<T> root;
+    private final Comparator<? super T> priority;
+    private final int size;
+
+    private PathPatternIndex(Map<String, T> exact, Node<T> root, Comparator<? super T> priority, int size) {
+        this.exact = exact;
+        this.root = root;
+        this.priority = priority;
+        this.size = size;
+    }
+
+    /**
+     * 空索引
+     *
+     * @param <T> 规则类型
+     * @return 空索引
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PathPatternIndex<T> empty() {
+        return (PathPatternIndex<T>) EMPTY;
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param rules    规则
+     * @param pattern  规则路径提取函数，返回空的规则会被忽略
+     * @param priority 优先级，越小越优先
+     * @param <T>      规则类型
+     * @return 索引
+     */
+    public static <T> PathPatternIndex<T> build(Collection<? extends T> rules,
+                                                Function<? super T, String> pattern,
+                                                Comparator<? super T> priority) {
+        Map<String, T> exact = new HashMap<>();
+        Node<T> root = new Node<>();
+        int size = 0;
+        for (T rule : rules) {
+            String path = pattern.apply(rule);
+            if (path == null || path.isBlank()) {
+                continue;
+            }
+            exact.merge(path, rule, (a, b) -> priority.compare(a, b) <= 0 ? a : b);
+            Node<T> node = root;
+            for (String segment : tokenize(path)) {
+                node = node.child(segment);
+            }
+            node.rule = node.rule == null || priority.compare(rule, node.rule) < 0 ? rule : node.rule;
+            size++;
+        }
+        return new PathPatternIndex<>(exact, root, priority, size);
+    }
+
+    /**
+     * 查找请求路径命中的规则
+     *
+     * @param path 请求路径
+     * @return 命中的规则，未命中返回 null
+     */
+    public T match(String path) {
+        if (path == null || size == 0) {
+            return null;
+        }
+        T rule = exact.get(path);
+        if (rule != null) {
+            return rule;
+        }
+        List<String> segments = tokenize(path);
+        return match(root, segments, 0, null);
+    }
+
+    /**
+     * 规则数
+     */
+    public int size() {
+        return size;
+    }
+
+    private T match(Node<T> node, List<String> segments, int index, T best) {
+        if (index == segments.size()) {
+            best = better(best, node.rule);
+            // 末尾的 ** 可以匹配零个段
+            return node.doubleWildcard == null ? best : match(node.doubleWildcard, segments, index, best);
+        }
+        String segment = segments.get(index);
+        if (node.literals != null) {
+            Node<T> child = node.literals.get(segment);
+            if (child != null) {
+                best = match(child, segments, index + 1, best);
+            }
+        }
+        if (node.wildcard != null) {
+            best = match(node.wildcard, segments, index + 1, best);
+        }
+        if (node.patterns != null) {
+            for (Map.Entry<String, Node<T>> entry : node.patterns.entrySet()) {
+                if (SEGMENT_MATCHER.match(entry.getKey(), segment)) {
+                    best = match(entry.getValue(), segments, index + 1, best);
+                }
+            }
+        }
+        if (node.doubleWildcard != null) {
+            for (int next = index; next <= segments.size(); next++) {
+                best = match(node.doubleWildcard, segments, next, best);
+            }
+        }
+        return best;
+    }
+
+    private T better(T current, T candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || priority.compare(candidate, current) < 0 ? candidate : current;
+    }
+
+    private static List<String> tokenize(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node<T> {
+        private Map<String, Node<T>> literals;
+        private Map<String, Node<T>> patterns;
+        private Node<T> wildcard;
+        private Node<T> doubleWildcard;
+        private T rule;
+
+        private Node<T> child(String segment) {
+            if ("**".equals(segment)) {
+                return doubleWildcard == null ? doubleWildcard = new Node<>() : doubleWildcard;
+            }
+            if ("*".equals(segment)) {
+                return wildcard == null ? wildcard = new Node<>() : wildcard;
+            }
+            if (isPattern(segment)) {
+                if (patterns == null) {
+                    patterns = new LinkedHashMap<>();
+                }
+                return patterns.computeIfAbsent(segment, k -> new Node<>());
+            }
+            if (literals == null) {
+                literals = new HashMap<>();
+            }
+            return literals.computeIfAbsent(segment, k -> new Node<>());
+        }
+
+        private static boolean isPattern(String segment) {
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '*' || c == '?' || c == '{') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
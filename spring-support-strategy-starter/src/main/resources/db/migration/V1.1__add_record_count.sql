@@ -0,0 +1,12 @@
+-- =============================================
+-- 策略管理模块升级脚本
+-- 版本: 1.1
+-- 描述: 限流记录与熔断记录增加合并记录数，同一写入周期内相同的记录只保存一条
+-- 作者: CH
+-- =============================================
+
+ALTER TABLE `sys_limit_record`
+    ADD COLUMN `record_count` BIGINT NOT NULL DEFAULT 1 COMMENT '合并的记录数（同一写入周期内相同的记录只保存一条）' AFTER `sys_limit_time`;
+
+ALTER TABLE `sys_circuit_breaker_record`
+    ADD COLUMN `record_count` BIGINT NOT NULL DEFAULT 1 COMMENT '合并的记录数（同一写入周期内相同的记录只保存一条）' AFTER `trigger_time`;
@@ -0,0 +1,120 @@
+package com.chua.starter.strategy.aspect;
+
+import com.chua.starter.strategy.annotation.RequestCollapse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCollapseAspectTest {
+
+    private final RequestCollapseAspect aspect = new RequestCollapseAspect(1);
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        aspect.destroy();
+    }
+
+    @Test
+    void shouldMergeConcurrentCallsIntoOneBatch() throws Exception {
+        UserRepository repository = new UserRepository("db");
+        UserService service = proxy(repository);
+
+        List<Future<String>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            long id = i;
+            results.add(callers.submit(() -> service.findName(id)));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("db-" + i);
+        }
+        assertThat(repository.batches).hasSize(1);
+        assertThat(repository.batches.get(0)).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void shouldRunBatchOnTheTargetThatReceivedTheCall() throws Exception {
+        UserRepository primary = new UserRepository("primary");
+        UserRepository replica = new UserRepository("replica");
+        UserService primaryService = proxy(primary);
+        UserService replicaService = proxy(replica);
+
+        // 两个 Bean 共用同一个方法上的合并器，且落在同一个窗口内
+        Future<String> fromPrimary = callers.submit(() -> primaryService.findName(1L));
+        Future<String> fromReplica = callers.submit(() -> replicaService.findName(1L));
+
+        assertThat(fromPrimary.get(5, TimeUnit.SECONDS)).isEqualTo("primary-1");
+        assertThat(fromReplica.get(5, TimeUnit.SECONDS)).isEqualTo("replica-1");
+        assertThat(primary.batches).allSatisfy(keys -> assertThat(keys).containsOnly(1L));
+        assertThat(replica.batches).allSatisfy(keys -> assertThat(keys).containsOnly(1L));
+        assertThat(aspect.getStatistics()).hasSize(1);
+    }
+
+    @Test
+    void shouldFailAllRequestsOfFailedBatch() {
+        UserRepository repository = new UserRepository("db");
+        repository.failing = true;
+        UserService service = proxy(repository);
+
+        assertThatThrownBy(() -> service.findName(1L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("执行批量请求失败");
+    }
+
+    private UserService proxy(UserRepository target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    /**
+     * 业务接口，合并器按接口方法缓存
+     */
+    public interface UserService {
+        String findName(Long id);
+    }
+
+    public static class UserRepository implements UserService {
+
+        private final String source;
+        final List<List<Object>> batches = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        public UserRepository(String source) {
+            this.source = source;
+        }
+
+        @Override
+        @RequestCollapse(name = "user", batchMethod = "findNames", windowTime = 200, timeout = 5000)
+        public String findName(Long id) {
+            throw new UnsupportedOperationException("单条查询应被合并");
+        }
+
+        public Map<Object, Object> findNames(List<Object> ids) {
+            if (failing) {
+                throw new IllegalStateException("db down");
+            }
+            batches.add(List.copyOf(ids));
+            Map<Object, Object> result = new LinkedHashMap<>();
+            for (Object id : ids) {
+                result.put(id, source + "-" + id);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.chua.starter.strategy.distributed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedLimiterRegistryTest {
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWhenFull() throws Exception {
+        BoundedLimiterRegistry<String> registry = new BoundedLimiterRegistry<>(10, 60_000);
+        for (int i = 0; i < 10; i++) {
+            registry.get("key-" + i, k -> k);
+            Thread.sleep(1);
+        }
+        // 最早创建的键重新变热
+        registry.get("key-0", k -> k);
+        registry.get("key-1", k -> k);
+
+        registry.get("new", k -> k);
+
+        assertThat(registry.size()).isLessThanOrEqualTo(10);
+        assertThat(registry.getIfPresent("new")).isEqualTo("new");
+        assertThat(registry.getIfPresent("key-0")).isNotNull();
+        assertThat(registry.getIfPresent("key-1")).isNotNull();
+        assertThat(registry.getIfPresent("key-2")).isNull();
+    }
+
+    @Test
+    void shouldNeverEvictEntryJustCreated() {
+        BoundedLimiterRegistry<Integer> registry = new BoundedLimiterRegistry<>(5, 60_000);
+        AtomicInteger created = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            String key = "ip-" + i;
+            Integer value = registry.get(key, k -> created.incrementAndGet());
+            assertThat(registry.getIfPresent(key)).isSameAs(value);
+            assertThat(registry.size()).isLessThanOrEqualTo(5);
+        }
+        assertThat(created).hasValue(1000);
+    }
+
+    @Test
+    void shouldKeepHotKeyUnderKeyChurn() {
+        BoundedLimiterRegistry<Object> registry = new BoundedLimiterRegistry<>(100, 60_000);
+        Object hot = registry.get("hot", k -> new Object());
+        for (int i = 0; i < 10_000; i++) {
+            registry.get("scan-" + i, k -> new Object());
+            if (i % 10 == 0) {
+                assertThat(registry.get("hot", k -> new Object())).isSameAs(hot);
+            }
+        }
+    }
+}
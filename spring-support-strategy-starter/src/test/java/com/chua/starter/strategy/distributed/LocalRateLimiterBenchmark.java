@@ -0,0 +1,132 @@
+package com.chua.starter.strategy.distributed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地限流器基准测试
+ * <p>
+ * 对比加锁固定窗口（原实现）与无锁令牌桶、滑动窗口在热点单键和高基数多键下的吞吐。
+ * 运行方式：执行 {@link #main(String[])}，或 {@code mvn test-compile} 后通过 JMH Runner 指定本类。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-12-28
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class LocalRateLimiterBenchmark {
+
+    /**
+     * 限流键数量：1 表示热点单键，其余模拟按 IP/用户限流
+     */
+    @Param({"1", "10000"})
+    public int keys;
+
+    private String[] keyNames;
+    private LocalRateLimiter tokenBucket;
+    private LocalRateLimiter slidingWindow;
+    private LockedFixedWindowLimiter locked;
+
+    @Setup
+    public void setup() {
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "key-" + i;
+        }
+        tokenBucket = new LocalRateLimiter(LocalRateLimiter.Algorithm.TOKEN_BUCKET, 100_000, 60_000);
+        slidingWindow = new LocalRateLimiter(LocalRateLimiter.Algorithm.SLIDING_WINDOW, 100_000, 60_000);
+        locked = new LockedFixedWindowLimiter();
+    }
+
+    private String nextKey() {
+        return keys == 1 ? keyNames[0] : keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    @Benchmark
+    public boolean tokenBucket() {
+        return tokenBucket.tryAcquire(nextKey(), 1_000_000, 1);
+    }
+
+    @Benchmark
+    public boolean slidingWindow() {
+        return slidingWindow.tryAcquire(nextKey(), 1_000_000, 1);
+    }
+
+    @Benchmark
+    public boolean lockedFixedWindow() {
+        return locked.tryAcquire(nextKey(), 1_000_000, 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LocalRateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 原实现：ReentrantLock 保护的固定窗口，作为对照组
+     */
+    static final class LockedFixedWindowLimiter {
+        private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+        boolean tryAcquire(String key, int limitForPeriod, int periodSeconds) {
+            return windows.computeIfAbsent(key, k -> new Window(limitForPeriod, periodSeconds)).tryAcquire();
+        }
+
+        private static final class Window {
+            private final int limit;
+            private final long windowSizeMillis;
+            private final ReentrantLock lock = new ReentrantLock();
+            private long windowStart = System.currentTimeMillis();
+            private long counter;
+
+            Window(int limit, int periodSeconds) {
+                this.limit = limit;
+                this.windowSizeMillis = periodSeconds * 1000L;
+            }
+
+            boolean tryAcquire() {
+                long now = System.currentTimeMillis();
+                lock.lock();
+                try {
+                    if (now - windowStart >= windowSizeMillis) {
+                        windowStart = now;
+                        counter = 1;
+                        return true;
+                    }
+                    if (counter < limit) {
+                        counter++;
+                        return true;
+                    }
+                    return false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
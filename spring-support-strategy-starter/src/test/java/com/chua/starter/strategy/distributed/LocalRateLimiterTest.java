@@ -0,0 +1,93 @@
+package com.chua.starter.strategy.distributed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    @Test
+    void shouldNotExceedLimitUnderConcurrency() throws Exception {
+        LocalRateLimiter limiter = new LocalRateLimiter(LocalRateLimiter.Algorithm.TOKEN_BUCKET, 1000, 60_000);
+        AtomicInteger acquired = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("hot", 100, 3600)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdownNow();
+
+        assertThat(acquired.get()).isEqualTo(100);
+        assertThat(limiter.getAvailablePermits("hot", 100, 3600)).isZero();
+    }
+
+    @Test
+    void shouldWaitForRefillWithinTimeout() {
+        LocalRateLimiter limiter = new LocalRateLimiter(LocalRateLimiter.Algorithm.TOKEN_BUCKET, 1000, 60_000);
+        // 每 100ms 补充一个令牌
+        assertThat(limiter.tryAcquire("refill", 10, 1)).isTrue();
+        for (int i = 0; i < 9; i++) {
+            limiter.tryAcquire("refill", 10, 1);
+        }
+        assertThat(limiter.tryAcquire("refill", 10, 1)).isFalse();
+
+        long start = System.nanoTime();
+        assertThat(limiter.tryAcquire("refill", 10, 1, 500)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(400);
+        assertThat(limiter.tryAcquire("refill", 10, 1, 10)).isFalse();
+    }
+
+    @Test
+    void shouldLimitWithSlidingWindow() {
+        LocalRateLimiter limiter = new LocalRateLimiter(LocalRateLimiter.Algorithm.SLIDING_WINDOW, 1000, 60_000);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("window", 5, 60)).isTrue();
+        }
+        assertThat(limiter.tryAcquire("window", 5, 60)).isFalse();
+
+        limiter.reset("window");
+        assertThat(limiter.tryAcquire("window", 5, 60)).isTrue();
+    }
+
+    @Test
+    void shouldKeepKeySpaceBounded() {
+        LocalRateLimiter limiter = new LocalRateLimiter(LocalRateLimiter.Algorithm.TOKEN_BUCKET, 1000, 60_000);
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("ip-" + i, 10, 1);
+        }
+        assertThat(limiter.size()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void staticRemovalShouldReachConfiguredInstances() {
+        LocalRateLimiter limiter = new LocalRateLimiter(LocalRateLimiter.Algorithm.TOKEN_BUCKET, 1000, 60_000);
+        limiter.tryAcquire("a", 1, 60);
+        limiter.tryAcquire("b", 1, 60);
+
+        LocalRateLimiter.remove("a");
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a", 1, 60)).isTrue();
+
+        LocalRateLimiter.clear();
+        assertThat(limiter.size()).isZero();
+
+        limiter.tryAcquire("c", 1, 60);
+        limiter.evict("c");
+        assertThat(limiter.size()).isZero();
+    }
+}
@@ -0,0 +1,135 @@
+package com.chua.starter.strategy.distributed;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisRateLimiterTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = RedisServer.builder().port(port).setting("maxmemory 64M").build();
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    void gcraShouldAllowBurstThenLimit() {
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, RedisRateLimiter.Algorithm.GCRA, true, 0);
+        limiter.reset("gcra");
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("gcra", 10, 60)).isTrue();
+        }
+        assertThat(limiter.tryAcquire("gcra", 10, 60)).isFalse();
+        assertThat(limiter.getAvailablePermits("gcra", 10, 60)).isZero();
+        // 单键只保存一个值
+        assertThat(redisTemplate.type("strategy:ratelimit:gcra").code()).isEqualTo("string");
+    }
+
+    @Test
+    void gcraShouldReserveAndWaitWithinTimeout() {
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, RedisRateLimiter.Algorithm.GCRA, true, 0);
+        limiter.reset("gcra-wait");
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("gcra-wait", 10, 1);
+        }
+
+        long start = System.currentTimeMillis();
+        assertThat(limiter.tryAcquire("gcra-wait", 10, 1, 500)).isTrue();
+        assertThat(System.currentTimeMillis() - start).isBetween(50L, 400L);
+        assertThat(limiter.tryAcquire("gcra-wait", 10, 1, 10)).isFalse();
+    }
+
+    @Test
+    void leaseShouldServePermitsFromMemory() {
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, RedisRateLimiter.Algorithm.GCRA, true, 5);
+        limiter.reset("lease");
+
+        assertThat(limiter.tryAcquire("lease", 100, 60)).isTrue();
+        // 一次往返预留 5 个许可，Redis 侧已扣减
+        assertThat(limiter.getAvailablePermits("lease", 100, 60)).isEqualTo(95);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire("lease", 100, 60)).isTrue();
+        }
+        assertThat(limiter.getAvailablePermits("lease", 100, 60)).isEqualTo(95);
+    }
+
+    @Test
+    void shouldHonourFailClosed() {
+        LettuceConnectionFactory broken = new LettuceConnectionFactory("127.0.0.1", 1);
+        broken.afterPropertiesSet();
+        broken.start();
+        try {
+            StringRedisTemplate template = new StringRedisTemplate(broken);
+            assertThat(new RedisRateLimiter(template, RedisRateLimiter.Algorithm.GCRA, false, 0)
+                    .tryAcquire("closed", 10, 1)).isFalse();
+            assertThat(new RedisRateLimiter(template, RedisRateLimiter.Algorithm.GCRA, true, 0)
+                    .tryAcquire("open", 10, 1)).isTrue();
+        } finally {
+            broken.destroy();
+        }
+    }
+
+    @Test
+    void shouldResolveFailOpenPerLimiter() {
+        LettuceConnectionFactory broken = new LettuceConnectionFactory("127.0.0.1", 1);
+        broken.afterPropertiesSet();
+        broken.start();
+        try {
+            StringRedisTemplate template = new StringRedisTemplate(broken);
+            RedisRateLimiter limiter = new RedisRateLimiter(template, RedisRateLimiter.Algorithm.GCRA, true,
+                    Map.of("order:", false, "order:query:", true), 0);
+
+            assertThat(limiter.tryAcquire("order:create", 10, 1)).isFalse();
+            // 最长前缀优先
+            assertThat(limiter.tryAcquire("order:query:list", 10, 1)).isTrue();
+            assertThat(limiter.tryAcquire("user:login", 10, 1)).isTrue();
+            // 调用方显式指定时以其为准
+            assertThat(limiter.tryAcquire("user:login", 10, 1, 0, false)).isFalse();
+            assertThat(limiter.tryAcquire("order:create", 10, 1, 0, true)).isTrue();
+        } finally {
+            broken.destroy();
+        }
+    }
+
+    @Test
+    void slidingWindowShouldRemainDefault() {
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate);
+        limiter.reset("window");
+        assertThat(limiter.getType()).isEqualTo("REDIS_SLIDING_WINDOW");
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("window", 3, 60)).isTrue();
+        }
+        assertThat(limiter.tryAcquire("window", 3, 60)).isFalse();
+    }
+}
@@ -0,0 +1,101 @@
+package com.chua.starter.strategy.interceptor;
+
+import com.chua.starter.strategy.util.MultiPatternScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * XSS / SQL 注入检测基准测试
+ * <p>
+ * 对比逐条执行正则（原实现）与 {@link MultiPatternScanner} 单遍预筛后再确认的耗时，
+ * 输入为一次表单提交的全部参数值。
+ * 运行方式：执行 {@link #main(String[])}，或 {@code mvn test-compile} 后通过 JMH Runner 指定本类。
+ * </p>
+ *
+ * @author CH
+ * @since 2025-12-28
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtectionScannerBenchmark {
+
+    /**
+     * benign：常规表单；malicious：混入一个攻击载荷
+     */
+    @Param({"benign", "malicious"})
+    public String payload;
+
+    private String[] values;
+    private Pattern[] xssPatterns;
+    private Pattern[] sqlPatterns;
+
+    @Setup
+    public void setup() {
+        List<String> form = new ArrayList<>(List.of(
+                "张三", "13800138000", "zhangsan@example.com", "上海市浦东新区世纪大道100号",
+                "2025-12-28", "The quick brown fox jumps over the lazy dog, again and again.",
+                "{\"orderId\":1024,\"items\":[{\"sku\":\"A-1\",\"count\":2}]}",
+                "description ".repeat(40)));
+        if ("malicious".equals(payload)) {
+            form.add("<img src=x onerror=alert(1)>' or 1=1 --");
+        }
+        values = form.toArray(new String[0]);
+        xssPatterns = XssProtectionInterceptor.XSS_SCANNER.patterns().toArray(new Pattern[0]);
+        sqlPatterns = SqlInjectionProtectionInterceptor.SQL_INJECTION_SCANNER.patterns().toArray(new Pattern[0]);
+    }
+
+    @Benchmark
+    public void sequentialRegex(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(sequential(xssPatterns, value));
+            blackhole.consume(sequential(sqlPatterns, value));
+        }
+    }
+
+    @Benchmark
+    public void multiPatternScanner(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(XssProtectionInterceptor.XSS_SCANNER.find(value, 0));
+            blackhole.consume(SqlInjectionProtectionInterceptor.SQL_INJECTION_SCANNER.find(value, 0));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ProtectionScannerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 原实现：依次执行每条正则，作为对照组
+     */
+    private static String sequential(Pattern[] patterns, String value) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(value).find()) {
+                return pattern.pattern();
+            }
+        }
+        return null;
+    }
+}
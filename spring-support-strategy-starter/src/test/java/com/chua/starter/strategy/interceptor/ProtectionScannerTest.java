@@ -0,0 +1,54 @@
+package com.chua.starter.strategy.interceptor;
+
+import com.chua.starter.strategy.util.MultiPatternScanner;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProtectionScannerTest {
+
+    private static final List<String> SAMPLES = List.of(
+            "hello world", "张三", "13800138000", "order by name", "Error: not found", "a=1&b=2",
+            "<script>alert(1)</script>", "< SCRIPT src=x>", "</script >", "JavaScript :void(0)",
+            "<img src=x onerror=alert(1)>", "onClick =go()", "<iframe src=//evil>", "eval (code)",
+            "' or 1=1 --", "1 OR 1 = 1", "admin'--", "x; DROP TABLE users", "UNION ALL SELECT password",
+            "union\tselect", "exec sp_executesql", "xp_cmdshell 'dir'", "delete  from t", "DELETE TABLE t",
+            "insert into t", "update into x", "and '1'='1'", "sleep(5)", "WAITFOR (x)", "version()",
+            "user (", "/* comment */", "#hash", "a;b", "json", "condition", "android", "or", "and",
+            "text/html,application/xhtml+xml;q=0.9", "Mozilla/5.0 (Windows NT 10.0; Win64)",
+            "ſcript", "＜script", "éval(1)");
+
+    @Test
+    void xssScannerShouldAgreeWithSequentialRegex() {
+        assertAgrees(XssProtectionInterceptor.XSS_SCANNER);
+    }
+
+    @Test
+    void sqlInjectionScannerShouldAgreeWithSequentialRegex() {
+        assertAgrees(SqlInjectionProtectionInterceptor.SQL_INJECTION_SCANNER);
+    }
+
+    @Test
+    void shouldOnlyInspectConfiguredPrefix() {
+        String value = "a".repeat(100) + "<script>";
+
+        assertThat(XssProtectionInterceptor.XSS_SCANNER.find(value, 100)).isNull();
+        assertThat(XssProtectionInterceptor.XSS_SCANNER.find(value, 0)).isEqualTo("<\\s*script");
+    }
+
+    private void assertAgrees(MultiPatternScanner scanner) {
+        for (String sample : SAMPLES) {
+            String expected = null;
+            for (Pattern pattern : scanner.patterns()) {
+                if (pattern.matcher(sample).find()) {
+                    expected = pattern.pattern();
+                    break;
+                }
+            }
+            assertThat(scanner.find(sample, 0)).as(sample).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.chua.starter.strategy.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringKeyStoreTest {
+
+    @Test
+    void shouldRejectKeysUntilTheyExpire() {
+        AtomicLong clock = new AtomicLong();
+        ExpiringKeyStore store = new ExpiringKeyStore(4, 100L, clock::get);
+
+        assertThat(store.putIfAbsent("order:1", 50L)).isTrue();
+        assertThat(store.putIfAbsent("order:1", 50L)).isFalse();
+        assertThat(store.contains("order:1")).isTrue();
+
+        clock.set(50L);
+        assertThat(store.contains("order:1")).isFalse();
+        assertThat(store.putIfAbsent("order:1", 50L)).isTrue();
+
+        store.remove("order:1");
+        assertThat(store.putIfAbsent("order:1", 50L)).isTrue();
+    }
+
+    @Test
+    void shouldKeepMemoryFlatAcrossMillionsOfDistinctKeys() {
+        AtomicLong clock = new AtomicLong();
+        ExpiringKeyStore store = new ExpiringKeyStore(16, 200L, clock::get);
+        int maxSize = 0;
+
+        // 每毫秒写入 1000 个不同的键，过期时间 100 毫秒
+        for (int i = 0; i < 2_000_000; i++) {
+            if (i % 1_000 == 0) {
+                clock.incrementAndGet();
+            }
+            assertThat(store.putIfAbsent("key:" + i, 100L)).isTrue();
+            if (i % 1_000 == 999) {
+                maxSize = Math.max(maxSize, store.size());
+            }
+        }
+
+        // 上限为（过期时间 + 清理周期）内写入的键数
+        assertThat(maxSize).isLessThanOrEqualTo((100 + 200 + 20) * 1_000);
+        assertThat(store.size()).isLessThanOrEqualTo((100 + 200 + 20) * 1_000);
+    }
+
+    @Test
+    void shouldAdmitExactlyOneCallerPerKey() throws Exception {
+        ExpiringKeyStore store = new ExpiringKeyStore();
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    if (store.putIfAbsent("request:" + i, 60_000L)) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(admitted.get()).isEqualTo(10_000);
+        assertThat(store.size()).isEqualTo(10_000);
+    }
+}
@@ -0,0 +1,137 @@
+package com.chua.starter.strategy.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+class StrategyRecordPipelineTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void shouldCoalesceIdenticalRecordsIntoCounts() {
+        StrategyRecordPipeline<Event> pipeline = pipeline(100, 100);
+        for (int i = 0; i < 5; i++) {
+            pipeline.offer(new Event("/api/a"));
+        }
+        pipeline.offer(new Event("/api/b"));
+
+        pipeline.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(Event::key, Event::count)
+                .containsExactlyInAnyOrder(tuple("/api/a", 5L),
+                        tuple("/api/b", 1L));
+        assertThat(pipeline.getCoalescedCount()).isEqualTo(4);
+        assertThat(pipeline.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldSplitFlushIntoBatches() throws Exception {
+        // 先占住调度线程，使达到批量大小时触发的写入排队到手动写入之后
+        CountDownLatch blocked = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        StrategyRecordPipeline<Event> pipeline = pipeline(1000, 10);
+        for (int i = 0; i < 25; i++) {
+            pipeline.offer(new Event("/api/" + i));
+        }
+
+        pipeline.flush();
+        blocked.countDown();
+
+        assertThat(batches).extracting(List::size).containsExactly(10, 10, 5);
+    }
+
+    @Test
+    void shouldDropInsteadOfGrowingBeyondTwiceCapacity() {
+        StrategyRecordPipeline<Event> pipeline = pipeline(10, 1000);
+        for (int i = 0; i < 100; i++) {
+            pipeline.offer(new Event("/api/" + i));
+        }
+
+        assertThat(pipeline.getPendingCount()).isBetween(10, 20);
+        assertThat(pipeline.getDroppedCount()).isEqualTo(100 - pipeline.getPendingCount());
+        // 已排队的记录仍可合并
+        assertThat(pipeline.offer(new Event("/api/0"))).isTrue();
+    }
+
+    @Test
+    void shouldNotLoseCountsWhileFlushingConcurrently() throws Exception {
+        StrategyRecordPipeline<Event> pipeline = pipeline(100, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    pipeline.offer(new Event("/api/hot"));
+                }
+                latch.countDown();
+            });
+        }
+        while (latch.getCount() > 0) {
+            pipeline.flush();
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        pipeline.flush();
+
+        long total = 0;
+        synchronized (batches) {
+            for (List<Event> batch : batches) {
+                for (Event event : batch) {
+                    total += event.count;
+                }
+            }
+        }
+        assertThat(total).isEqualTo(40_000);
+    }
+
+    private StrategyRecordPipeline<Event> pipeline(int capacity, int batchSize) {
+        return new StrategyRecordPipeline<>("test", capacity, batchSize, TimeUnit.HOURS.toMillis(1),
+                Event::key, Event::setCount, batch -> batches.add(List.copyOf(batch)), scheduler);
+    }
+
+    private static final class Event {
+        private final String key;
+        private long count;
+
+        private Event(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return key;
+        }
+
+        long count() {
+            return count;
+        }
+
+        void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.chua.starter.strategy.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathPatternIndexTest {
+
+    private record Rule(String path, int sort) {
+    }
+
+    @Test
+    void shouldPreferExactMatchOverPriority() {
+        PathPatternIndex<Rule> index = index(List.of(
+                new Rule("/api/**", 0),
+                new Rule("/api/user/list", 9)
+        ));
+
+        assertThat(index.match("/api/user/list").sort()).isEqualTo(9);
+        assertThat(index.match("/api/user/detail").sort()).isZero();
+    }
+
+    @Test
+    void shouldPickLowestSortAmongMatchingPatterns() {
+        PathPatternIndex<Rule> index = index(List.of(
+                new Rule("/**", 5),
+                new Rule("/api/*/list", 3),
+                new Rule("/api/user/*", 1),
+                new Rule("/api/{module}/export.*", 2)
+        ));
+
+        assertThat(index.match("/api/user/list").sort()).isEqualTo(1);
+        assertThat(index.match("/api/order/list").sort()).isEqualTo(3);
+        assertThat(index.match("/api/order/export.xlsx").sort()).isEqualTo(2);
+        assertThat(index.match("/other").sort()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldMatchDoubleWildcardAcrossSegments() {
+        PathPatternIndex<Rule> index = index(List.of(
+                new Rule("/api/**/detail", 0),
+                new Rule("/static/**", 1)
+        ));
+
+        assertThat(index.match("/api/detail")).isNotNull();
+        assertThat(index.match("/api/a/b/c/detail")).isNotNull();
+        assertThat(index.match("/api/a/b/c")).isNull();
+        assertThat(index.match("/static")).isNotNull();
+        assertThat(index.match("/static/js/app.js")).isNotNull();
+        assertThat(index.match("/public/app.js")).isNull();
+    }
+
+    @Test
+    void shouldAgreeWithAntPathMatcher() {
+        List<Rule> rules = List.of(
+                new Rule("/api/**", 10),
+                new Rule("/api/user/**", 5),
+                new Rule("/api/user/*/orders", 3),
+                new Rule("/api/*/info", 4),
+                new Rule("/api/report/export?", 2),
+                new Rule("/open/**/callback", 1),
+                new Rule("/health", 0)
+        );
+        List<String> paths = List.of("/api", "/api/user", "/api/user/1/orders", "/api/order/info",
+                "/api/report/export1", "/api/report/export12", "/open/pay/wx/callback", "/open/callback",
+                "/health", "/healthz", "/other/path");
+        PathPatternIndex<Rule> index = index(rules);
+        AntPathMatcher matcher = new AntPathMatcher();
+
+        for (String path : paths) {
+            Rule expected = rules.stream()
+                    .filter(rule -> matcher.match(rule.path(), path))
+                    .min(Comparator.comparingInt(Rule::sort))
+                    .orElse(null);
+            assertThat(index.match(path)).as(path).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldHandleManyRules() {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            rules.add(new Rule("/api/module" + i + "/**", i));
+        }
+        PathPatternIndex<Rule> index = index(rules);
+
+        assertThat(index.size()).isEqualTo(10_000);
+        assertThat(index.match("/api/module9999/a/b").sort()).isEqualTo(9999);
+        assertThat(index.match("/api/unknown/a")).isNull();
+        assertThat(PathPatternIndex.<Rule>empty().match("/api")).isNull();
+    }
+
+    private PathPatternIndex<Rule> index(List<Rule> rules) {
+        return PathPatternIndex.build(rules, Rule::path, Comparator.comparingInt(Rule::sort));
+    }
+}